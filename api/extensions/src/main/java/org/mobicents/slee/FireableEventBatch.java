@@ -0,0 +1,203 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee;
+
+import java.util.ArrayList;
+
+import javax.slee.Address;
+import javax.slee.resource.ActivityHandle;
+import javax.slee.resource.EventFlags;
+import javax.slee.resource.FireableEventType;
+import javax.slee.resource.ReceivableService;
+
+/**
+ * An ordered batch of events to fire through a {@link SleeEndpointExt}. Each
+ * entry holds the same parameters of a single
+ * {@link javax.slee.resource.SleeEndpoint} fire event method invocation.
+ * 
+ * A batch is not thread safe, and may be reused after being fired, by using
+ * {@link #clear()}.
+ * 
+ * @author martins
+ * 
+ */
+public class FireableEventBatch {
+
+	private final ArrayList<ActivityHandle> handles;
+	private final ArrayList<FireableEventType> eventTypes;
+	private final ArrayList<Object> events;
+	private final ArrayList<Address> addresses;
+	private final ArrayList<ReceivableService> receivableServices;
+	private int[] eventFlags;
+
+	/**
+	 * Creates a new empty batch.
+	 */
+	public FireableEventBatch() {
+		this(16);
+	}
+
+	/**
+	 * Creates a new empty batch, with the specified initial capacity.
+	 * 
+	 * @param initialCapacity
+	 */
+	public FireableEventBatch(int initialCapacity) {
+		if (initialCapacity < 1) {
+			initialCapacity = 1;
+		}
+		handles = new ArrayList<ActivityHandle>(initialCapacity);
+		eventTypes = new ArrayList<FireableEventType>(initialCapacity);
+		events = new ArrayList<Object>(initialCapacity);
+		addresses = new ArrayList<Address>(initialCapacity);
+		receivableServices = new ArrayList<ReceivableService>(initialCapacity);
+		eventFlags = new int[initialCapacity];
+	}
+
+	/**
+	 * Adds an event to the batch, with no address, receivable service or
+	 * flags.
+	 * 
+	 * @param handle
+	 * @param eventType
+	 * @param event
+	 * @return this batch
+	 */
+	public FireableEventBatch add(ActivityHandle handle,
+			FireableEventType eventType, Object event) {
+		return add(handle, eventType, event, null, null, EventFlags.NO_FLAGS);
+	}
+
+	/**
+	 * Adds an event to the batch.
+	 * 
+	 * @param handle
+	 * @param eventType
+	 * @param event
+	 * @param address
+	 * @param receivableService
+	 * @param eventFlags
+	 * @return this batch
+	 */
+	public FireableEventBatch add(ActivityHandle handle,
+			FireableEventType eventType, Object event, Address address,
+			ReceivableService receivableService, int eventFlags) {
+		final int index = handles.size();
+		if (index == this.eventFlags.length) {
+			final int[] newEventFlags = new int[index * 2];
+			System.arraycopy(this.eventFlags, 0, newEventFlags, 0, index);
+			this.eventFlags = newEventFlags;
+		}
+		handles.add(handle);
+		eventTypes.add(eventType);
+		events.add(event);
+		addresses.add(address);
+		receivableServices.add(receivableService);
+		this.eventFlags[index] = eventFlags;
+		return this;
+	}
+
+	/**
+	 * Retrieves the number of events in the batch.
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return handles.size();
+	}
+
+	/**
+	 * Removes all events from the batch.
+	 */
+	public void clear() {
+		handles.clear();
+		eventTypes.clear();
+		events.clear();
+		addresses.clear();
+		receivableServices.clear();
+	}
+
+	/**
+	 * 
+	 * @param index
+	 * @return the activity handle of the event at the specified index
+	 */
+	public ActivityHandle getHandle(int index) {
+		return handles.get(index);
+	}
+
+	/**
+	 * 
+	 * @param index
+	 * @return the event type of the event at the specified index
+	 */
+	public FireableEventType getEventType(int index) {
+		return eventTypes.get(index);
+	}
+
+	/**
+	 * 
+	 * @param index
+	 * @return the event object at the specified index
+	 */
+	public Object getEvent(int index) {
+		return events.get(index);
+	}
+
+	/**
+	 * 
+	 * @param index
+	 * @return the address of the event at the specified index, may be null
+	 */
+	public Address getAddress(int index) {
+		return addresses.get(index);
+	}
+
+	/**
+	 * 
+	 * @param index
+	 * @return the receivable service of the event at the specified index, may
+	 *         be null
+	 */
+	public ReceivableService getReceivableService(int index) {
+		return receivableServices.get(index);
+	}
+
+	/**
+	 * 
+	 * @param index
+	 * @return the flags of the event at the specified index
+	 */
+	public int getEventFlags(int index) {
+		if (index >= handles.size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ handles.size());
+		}
+		return eventFlags[index];
+	}
+
+	@Override
+	public String toString() {
+		return "FireableEventBatch[size=" + handles.size() + "]";
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.resource.ResourceException;
+import javax.slee.Address;
+import javax.slee.EventTypeID;
+import javax.slee.connection.ExternalActivityHandle;
+import javax.slee.connection.SleeConnection;
+
+/**
+ * Extension of {@link SleeConnection}, which allows an external application
+ * to fire events without waiting for these to be fired. Events submitted
+ * within a short time window are fired together, in a single transaction,
+ * instead of one transaction per event.
+ * 
+ * The {@link SleeConnection} retrieved from the SLEE's connection factory can
+ * be cast to this interface.
+ * 
+ * @author martins
+ * 
+ */
+public interface SleeConnectionExt extends SleeConnection {
+
+	/**
+	 * Asynchronous version of
+	 * {@link SleeConnection#fireEvent(Object, EventTypeID, ExternalActivityHandle, Address)}
+	 * . The returned future completes once the transaction which fired the
+	 * event commits. If the event is not fired, {@link Future#get()} throws an
+	 * {@link ExecutionException}, caused by the exception which the
+	 * synchronous method would throw, such as
+	 * {@link javax.slee.UnrecognizedEventException}. Canceling the future
+	 * before the event is fired prevents its firing.
+	 * 
+	 * @param event
+	 * @param eventType
+	 * @param activityHandle
+	 * @param address
+	 * @return
+	 * @throws NullPointerException
+	 *             if the event, event type or activity handle is
+	 *             <code>null</code>.
+	 * @throws ResourceException
+	 *             if the connection is closed or the SLEE is not running.
+	 */
+	public Future<Void> fireEventAsync(Object event, EventTypeID eventType,
+			ExternalActivityHandle activityHandle, Address address)
+			throws NullPointerException, ResourceException;
+
+}
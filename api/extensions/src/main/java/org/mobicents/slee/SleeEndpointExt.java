@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee;
+
+import javax.slee.SLEEException;
+import javax.slee.TransactionRequiredLocalException;
+import javax.slee.resource.ActivityIsEndingException;
+import javax.slee.resource.FireEventException;
+import javax.slee.resource.IllegalEventException;
+import javax.slee.resource.SleeEndpoint;
+import javax.slee.resource.UnrecognizedActivityHandleException;
+
+/**
+ * Extension of {@link SleeEndpoint}, which allows a Resource Adaptor to fire
+ * several events in a single invocation, for instance all messages decoded
+ * from a single network read. The SLEE validates each event type once per
+ * batch, and retrieves each activity context once per distinct activity
+ * handle.
+ * 
+ * The events, and the activity handles they are fired on, are validated
+ * before any of these is fired, so a batch with an invalid event or an
+ * unrecognized activity handle fires no event at all. Once validated, events
+ * are fired in the batch order, and if firing one fails, for instance because
+ * its activity is ending, the exception is thrown and the remaining events
+ * are not fired, while the events already fired are not undone, unless the
+ * transaction these were fired in rolls back.
+ * 
+ * The {@link SleeEndpoint} provided to Resource Adaptors by the SLEE can be
+ * cast to this interface.
+ * 
+ * @author martins
+ * 
+ */
+public interface SleeEndpointExt extends SleeEndpoint {
+
+	/**
+	 * Fires all events in the batch, each as if
+	 * {@link SleeEndpoint#fireEvent(javax.slee.resource.ActivityHandle, javax.slee.resource.FireableEventType, Object, javax.slee.Address, javax.slee.resource.ReceivableService, int)}
+	 * was invoked, but the caller's transaction, if any, is suspended only
+	 * once.
+	 * 
+	 * @param batch
+	 * @throws NullPointerException
+	 *             if the batch, or any handle, event type or event in it, is
+	 *             <code>null</code>.
+	 * @throws UnrecognizedActivityHandleException
+	 * @throws IllegalEventException
+	 * @throws ActivityIsEndingException
+	 * @throws FireEventException
+	 * @throws SLEEException
+	 */
+	public void fireEvents(FireableEventBatch batch)
+			throws NullPointerException, UnrecognizedActivityHandleException,
+			IllegalEventException, ActivityIsEndingException,
+			FireEventException, SLEEException;
+
+	/**
+	 * Fires all events in the batch, in the caller's transaction, each as if
+	 * {@link SleeEndpoint#fireEventTransacted(javax.slee.resource.ActivityHandle, javax.slee.resource.FireableEventType, Object, javax.slee.Address, javax.slee.resource.ReceivableService, int)}
+	 * was invoked.
+	 * 
+	 * @param batch
+	 * @throws NullPointerException
+	 *             if the batch, or any handle, event type or event in it, is
+	 *             <code>null</code>.
+	 * @throws UnrecognizedActivityHandleException
+	 * @throws IllegalEventException
+	 * @throws TransactionRequiredLocalException
+	 * @throws ActivityIsEndingException
+	 * @throws FireEventException
+	 * @throws SLEEException
+	 */
+	public void fireEventsTransacted(FireableEventBatch batch)
+			throws NullPointerException, UnrecognizedActivityHandleException,
+			IllegalEventException, TransactionRequiredLocalException,
+			ActivityIsEndingException, FireEventException, SLEEException;
+
+}
@@ -45,7 +45,6 @@ import org.mobicents.slee.container.activity.ActivityContextHandle;
 import org.mobicents.slee.container.activity.ActivityType;
 import org.mobicents.slee.container.management.jmx.editors.ComponentIDPropertyEditor;
 import org.mobicents.slee.container.resource.ResourceAdaptorActivityContextHandle;
-import org.mobicents.slee.container.resource.ResourceAdaptorEntity;
 import org.mobicents.slee.container.sbbentity.SbbEntity;
 import org.mobicents.slee.container.sbbentity.SbbEntityFactory;
 import org.mobicents.slee.container.sbbentity.SbbEntityID;
@@ -87,6 +86,62 @@ public class ActivityManagementMBeanImpl extends MobicentsServiceMBeanSupport
 		return this.acFactory.getActivityContextCount();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ActivityManagementMBeanImplMBean#getActivityContextCountByType(java.lang.String)
+	 */
+	public int getActivityContextCountByType(String activityType) throws IllegalArgumentException {
+		return this.acFactory.getActivityContextCount(ActivityType.valueOf(activityType));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ActivityManagementMBeanImplMBean#getLivenessTrackedActivityContexts()
+	 */
+	public int getLivenessTrackedActivityContexts() {
+		return acFactory.getLivenessScanner().getTrackedActivities();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ActivityManagementMBeanImplMBean#getLivenessChecks()
+	 */
+	public long getLivenessChecks() {
+		return acFactory.getLivenessScanner().getChecks();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ActivityManagementMBeanImplMBean#getLivenessQueries()
+	 */
+	public long getLivenessQueries() {
+		return acFactory.getLivenessScanner().getQueries();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ActivityManagementMBeanImplMBean#getLivenessPendingChecks()
+	 */
+	public int getLivenessPendingChecks() {
+		return acFactory.getLivenessScanner().getPendingChecks();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ActivityManagementMBeanImplMBean#getLivenessLastScanExpired()
+	 */
+	public int getLivenessLastScanExpired() {
+		return acFactory.getLivenessScanner().getLastScanExpired();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ActivityManagementMBeanImplMBean#getLivenessLastScanTime()
+	 */
+	public long getLivenessLastScanTime() {
+		return acFactory.getLivenessScanner().getLastScanTime();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.mobicents.slee.container.management.jmx.ActivityManagementMBeanImplMBean#setTimeBetweenLivenessQueries(long)
@@ -98,6 +153,8 @@ public class ActivityManagementMBeanImpl extends MobicentsServiceMBeanSupport
 		}
 		else {
 			if (scheduledFuture == null) {
+				// last access times were not tracked while off
+				acFactory.getLivenessScanner().reconcile();
 				scheduleLivenessQuery();
 			}
 		}
@@ -476,44 +533,18 @@ public class ActivityManagementMBeanImpl extends MobicentsServiceMBeanSupport
 	// , depends on impl
 
 	/**
-	 * FIXME uncomment code when everything is commited
+	 * Runs the scan of the activity context liveness scanner, which only
+	 * inspects the activities possibly idle, and submits the liveness checks
+	 * to the event router executors.
 	 */
 	private class PeriodicLivelinessScanner extends TimerTask {
 
-		private void queryLiveness(ActivityContextHandle ach,long currentTime) {
-			
-			if (ach.getActivityType() != ActivityType.RA)
-				return;
-			
-			if(logger.isDebugEnabled())
-				logger
-					.debug("Periodic Liveliness Task is on the run, processing AC "+ach);
-			
-			ActivityContextImpl ac = acFactory.getActivityContext(ach);
-			if(ac == null) {
-				return;
-			}
-			
-			if ((currentTime - ac.getLastAccessTime()) < acFactory.getConfiguration().getMaxTimeIdleInMs()) {
-				// This one has been accessed in near past, so we dont
-				// want to query it
-				return;
-			}
-			
-			final ResourceAdaptorActivityContextHandle raach = (ResourceAdaptorActivityContextHandle) ach; 
-			final ResourceAdaptorEntity raEntity = raach.getResourceAdaptorEntity();
-			if (logger.isDebugEnabled()) {
-				logger.debug("Invoking ra entity "+raEntity.getName()+" queryLiveness() for activity handle "+ach.getActivityHandle());
-			}
-			raEntity.getResourceAdaptorObject().queryLiveness(
-								ach.getActivityHandle());								
-			
-		}
-		
 		public void run() {
-			long currentTime = System.currentTimeMillis();
-			for (ActivityContextHandle ach : acFactory.getAllActivityContextsHandles()) {
-				this.queryLiveness(ach,currentTime);										
+			try {
+				acFactory.getLivenessScanner().scan();
+			}
+			catch (Throwable e) {
+				logger.error("Failure in activity liveness scan", e);
 			}
 			scheduleLivenessQuery();
 		}
@@ -164,6 +164,52 @@ public interface ActivityManagementMBeanImplMBean
 	 */
 	public int getActivityContextCount();
 
+	/**
+	 * Retrieves the number of activity contexts of the specified type.
+	 * 
+	 * @param activityType
+	 *            the name of the activity type, such as RA or NULL
+	 * @return
+	 * @throws IllegalArgumentException
+	 *             if the activity type is unknown
+	 */
+	public int getActivityContextCountByType(String activityType) throws IllegalArgumentException;
+
+	/**
+	 * Retrieves the number of activity contexts tracked by the liveness
+	 * scanner.
+	 */
+	public int getLivenessTrackedActivityContexts();
+
+	/**
+	 * Retrieves the number of activity contexts checked by the liveness
+	 * scanner, since the container started.
+	 */
+	public long getLivenessChecks();
+
+	/**
+	 * Retrieves the number of liveness queries done to resource adaptors, since
+	 * the container started.
+	 */
+	public long getLivenessQueries();
+
+	/**
+	 * Retrieves the number of activity contexts found possibly idle by
+	 * liveness scans, which were not checked yet.
+	 */
+	public int getLivenessPendingChecks();
+
+	/**
+	 * Retrieves the number of activity contexts found possibly idle by the last
+	 * liveness scan.
+	 */
+	public int getLivenessLastScanExpired();
+
+	/**
+	 * Retrieves the time of the last liveness scan, 0 if none was done yet.
+	 */
+	public long getLivenessLastScanTime();
+
 	/**
 	 * Retrieve the period between activity context liveness queries.
 	 * 
@@ -35,13 +35,13 @@ import java.util.*;
 
 /**
  * 
- * Proxy object for activity context factory data management through JBoss Cache
+ * Proxy object for activity context data management through JBoss Cache
  * 
  * @author martins
  * 
  */
 @SuppressWarnings("rawtypes")
-public class ActivityContextCacheData extends CacheData {
+public class ActivityContextCacheData extends CacheData implements ActivityContextData {
 
 	/**
 	 * the fqn of the node that holds all activity context cache child nodes
@@ -130,14 +130,55 @@ public class ActivityContextCacheData extends CacheData {
 		return _cmpAttributesNode;
 	}
 	
+	private final ActivityContextHandle activityContextHandle;
+	
+	private final ActivityContextStringIDIndexCacheData stringIDIndex;
+	
+	private final ActivityContextTypeIndexCacheData typeIndex;
+	
 	/**
 	 * 
 	 * @param activityContextHandle
+	 * @param cluster
+	 * @param stringIDIndex
+	 * @param typeIndex
 	 */
 	public ActivityContextCacheData(ActivityContextHandle activityContextHandle,
-			MobicentsCluster cluster) {
+			MobicentsCluster cluster, ActivityContextStringIDIndexCacheData stringIDIndex, ActivityContextTypeIndexCacheData typeIndex) {
 		super(FqnWrapper.fromElementsWrapper(parentNodeFqn, activityContextHandle),
 				cluster.getMobicentsCache());
+		this.activityContextHandle = activityContextHandle;
+		this.stringIDIndex = stringIDIndex;
+		this.typeIndex = typeIndex;
+	}
+
+	/**
+	 * Creates the cache data, and the type index entries.
+	 */
+	@Override
+	public boolean create() {
+		if (super.create()) {
+			typeIndex.add(activityContextHandle);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the cache data, the string ID index entry if exists, and the
+	 * type index entries.
+	 */
+	@Override
+	public boolean remove() {
+		final Node node = getNode();
+		if (node != null) {
+			final String sid = (String) node.get(STRING_ID_ATTRIBUTE_MAP_KEY);
+			if (sid != null) {
+				stringIDIndex.remove(sid);
+			}
+			typeIndex.remove(activityContextHandle);
+		}
+		return super.remove();
 	}
 
 	/**
@@ -404,7 +445,11 @@ public class ActivityContextCacheData extends CacheData {
 
 	@SuppressWarnings("unchecked")
 	public void setStringID(String sid) {
-		getNode().put(STRING_ID_ATTRIBUTE_MAP_KEY, sid);
+		final String oldSid = (String) getNode().put(STRING_ID_ATTRIBUTE_MAP_KEY, sid);
+		if (oldSid != null) {
+			stringIDIndex.remove(oldSid);
+		}
+		stringIDIndex.put(sid, activityContextHandle);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.activity.ActivityType;
+import org.mobicents.slee.container.resource.ResourceAdaptorActivityContextHandle;
+
+/**
+ * Live counters of activity contexts, per activity type and per resource
+ * adaptor entity, the latter also keeps the set of handles, to avoid scans of
+ * all activity contexts. The set of handles of a resource adaptor entity is
+ * removed once empty.
+ * 
+ * @author martins
+ * 
+ */
+public class ActivityContextCounters {
+
+	private final AtomicInteger[] activityTypeCounters;
+
+	private final ConcurrentHashMap<String, Set<ActivityContextHandle>> raEntityHandles = new ConcurrentHashMap<String, Set<ActivityContextHandle>>();
+
+	public ActivityContextCounters() {
+		final ActivityType[] activityTypes = ActivityType.values();
+		activityTypeCounters = new AtomicInteger[activityTypes.length];
+		for (int i = 0; i < activityTypes.length; i++) {
+			activityTypeCounters[i] = new AtomicInteger();
+		}
+	}
+
+	/**
+	 * Accounts the creation of an activity context.
+	 * 
+	 * @param ach
+	 */
+	public void activityContextCreated(ActivityContextHandle ach) {
+		final ActivityType activityType = ach.getActivityType();
+		activityTypeCounters[activityType.ordinal()].incrementAndGet();
+		if (activityType == ActivityType.RA) {
+			final String raEntityName = ((ResourceAdaptorActivityContextHandle) ach).getResourceAdaptorEntity().getName();
+			while (true) {
+				Set<ActivityContextHandle> handles = raEntityHandles.get(raEntityName);
+				if (handles == null) {
+					final Set<ActivityContextHandle> newHandles = Collections.newSetFromMap(new ConcurrentHashMap<ActivityContextHandle, Boolean>());
+					handles = raEntityHandles.putIfAbsent(raEntityName, newHandles);
+					if (handles == null) {
+						handles = newHandles;
+					}
+				}
+				synchronized (handles) {
+					// the set may have been removed meanwhile, once empty
+					if (raEntityHandles.get(raEntityName) == handles) {
+						handles.add(ach);
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Accounts the removal of an activity context.
+	 * 
+	 * @param ach
+	 */
+	public void activityContextRemoved(ActivityContextHandle ach) {
+		final ActivityType activityType = ach.getActivityType();
+		activityTypeCounters[activityType.ordinal()].decrementAndGet();
+		if (activityType == ActivityType.RA) {
+			final String raEntityName = ((ResourceAdaptorActivityContextHandle) ach).getResourceAdaptorEntity().getName();
+			final Set<ActivityContextHandle> handles = raEntityHandles.get(raEntityName);
+			if (handles != null) {
+				synchronized (handles) {
+					if (handles.remove(ach) && handles.isEmpty()) {
+						raEntityHandles.remove(raEntityName, handles);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resets all counters.
+	 */
+	public void clear() {
+		for (AtomicInteger counter : activityTypeCounters) {
+			counter.set(0);
+		}
+		raEntityHandles.clear();
+	}
+
+	/**
+	 * 
+	 * @return the number of activity contexts
+	 */
+	public int getCount() {
+		int count = 0;
+		for (AtomicInteger counter : activityTypeCounters) {
+			count += counter.get();
+		}
+		return count;
+	}
+
+	/**
+	 * 
+	 * @param activityType
+	 * @return the number of activity contexts of the specified type
+	 */
+	public int getCount(ActivityType activityType) {
+		return activityTypeCounters[activityType.ordinal()].get();
+	}
+
+	/**
+	 * 
+	 * @param raEntityName
+	 * @return the number of activity contexts of the specified ra entity
+	 */
+	public int getResourceAdaptorEntityCount(String raEntityName) {
+		final Set<ActivityContextHandle> handles = raEntityHandles.get(raEntityName);
+		return handles != null ? handles.size() : 0;
+	}
+
+	/**
+	 * 
+	 * @return the number of ra entities with activity contexts
+	 */
+	int getResourceAdaptorEntitiesCount() {
+		return raEntityHandles.size();
+	}
+
+	/**
+	 * 
+	 * @param raEntityName
+	 * @return an unmodifiable view of the handles of the activity contexts of
+	 *         the specified ra entity
+	 */
+	public Set<ActivityContextHandle> getResourceAdaptorEntityHandles(String raEntityName) {
+		final Set<ActivityContextHandle> handles = raEntityHandles.get(raEntityName);
+		if (handles == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(handles);
+	}
+
+}
@@ -0,0 +1,221 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.slee.facilities.TimerID;
+
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+
+/**
+ * The data of an activity context, which may be stored in the cluster cache or
+ * locally, in the heap of this node.
+ * 
+ * @author martins
+ * 
+ */
+@SuppressWarnings("rawtypes")
+public interface ActivityContextData {
+
+	/**
+	 * Creates the activity context data
+	 * 
+	 * @return true if it was created, false if it already existed
+	 */
+	boolean create();
+
+	/**
+	 * Verifies if the activity context data exists
+	 * 
+	 * @return
+	 */
+	boolean exists();
+
+	/**
+	 * Removes the activity context data
+	 * 
+	 * @return true if it was removed, false if it did not exist
+	 */
+	boolean remove();
+
+	/**
+	 * Puts an object in the data
+	 * 
+	 * @param key
+	 * @param value
+	 * @return the old object for the specified key, null if key was not mapped
+	 */
+	Object putObject(Object key, Object value);
+
+	/**
+	 * Retrieves an object in the data mapped to the specified key
+	 * 
+	 * @param key
+	 * @return
+	 */
+	Object getObject(Object key);
+
+	/**
+	 * Removes an object in the data mapped to the specified key
+	 * 
+	 * @param key
+	 * @return the object removed, null if the key was not mapped
+	 */
+	Object removeObject(Object key);
+
+	/**
+	 * 
+	 * @return
+	 */
+	boolean isEnding();
+
+	/**
+	 * 
+	 * @param value
+	 * @return true if the ending flag changed
+	 */
+	boolean setEnding(boolean value);
+
+	/**
+	 * Tries to attaches an sbb entity
+	 * 
+	 * @param sbbEntityId
+	 * @return true if it was attached, false if already was attached
+	 */
+	boolean attachSbbEntity(SbbEntityID sbbEntityId);
+
+	/**
+	 * Detaches an sbb entity
+	 * 
+	 * @param sbbEntityId
+	 */
+	boolean detachSbbEntity(SbbEntityID sbbEntityId);
+
+	/**
+	 * Verifies if there at least one sbb entity attached
+	 * 
+	 * @return false is there are no sbb entities attached, true otherwise
+	 */
+	boolean noSbbEntitiesAttached();
+
+	/**
+	 * Return a set with all sbb entities attached.
+	 * 
+	 * @return
+	 */
+	Set<SbbEntityID> getSbbEntitiesAttached();
+
+	/**
+	 * Attaches a timer
+	 * 
+	 * @param timerID
+	 */
+	boolean attachTimer(TimerID timerID);
+
+	/**
+	 * Detaches a timer
+	 * 
+	 * @param timerID
+	 */
+	boolean detachTimer(TimerID timerID);
+
+	/**
+	 * Verifies if there at least one timer attached
+	 * 
+	 * @return false is there are no timers attached, true otherwise
+	 */
+	boolean noTimersAttached();
+
+	/**
+	 * Returns the set of timers attached to the ac
+	 * 
+	 * @return
+	 */
+	Set getAttachedTimers();
+
+	/**
+	 * Adds the specified name to the set of names bound to the ac
+	 * 
+	 * @param name
+	 */
+	void nameBound(String name);
+
+	/**
+	 * Removes the specified name from the set of names bound to the ac
+	 * 
+	 * @param name
+	 */
+	boolean nameUnbound(String name);
+
+	/**
+	 * Verifies if there at least one name bound to the ac
+	 * 
+	 * @return false is there are no names bound, true otherwise
+	 */
+	boolean noNamesBound();
+
+	/**
+	 * Returns the set of names bound to the ac
+	 * 
+	 * @return
+	 */
+	Set getNamesBoundCopy();
+
+	/**
+	 * Sets the aci cmp attribute
+	 * 
+	 * @param attrName
+	 * @param attrValue
+	 */
+	void setCmpAttribute(String attrName, Object attrValue);
+
+	/**
+	 * Retrieves the aci cmp attribute
+	 * 
+	 * @param attrName
+	 * @return
+	 */
+	Object getCmpAttribute(String attrName);
+
+	/**
+	 * Retrieves a map copy of the aci attributes set
+	 * 
+	 * @return
+	 */
+	Map getCmpAttributesCopy();
+
+	/**
+	 * 
+	 * @return
+	 */
+	String getStringID();
+
+	/**
+	 * 
+	 * @param sid
+	 */
+	void setStringID(String sid);
+
+}
@@ -22,6 +22,7 @@
 package org.mobicents.slee.runtime.activity;
 
 import org.apache.log4j.Logger;
+import org.infinispan.remoting.transport.Address;
 import org.infinispan.tree.Fqn;
 import org.infinispan.tree.Node;
 import org.mobicents.slee.container.AbstractSleeContainerModule;
@@ -35,6 +36,9 @@ import org.mobicents.slee.container.transaction.TransactionContext;
 import org.mobicents.slee.container.transaction.TransactionalAction;
 import org.restcomm.cache.FqnWrapper;
 import org.restcomm.cluster.DataRemovalListener;
+import org.restcomm.cluster.FailOverListener;
+import org.restcomm.cluster.cache.ClusteredCacheData;
+import org.restcomm.cluster.election.ClientLocalListenerElector;
 
 import javax.slee.SLEEException;
 import javax.slee.resource.ActivityAlreadyExistsException;
@@ -66,12 +70,29 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 	
 	private ActivityContextFactoryCacheData cacheData;
 	
+	private ActivityContextStringIDIndexCacheData stringIDIndexCacheData;
+	
+	private ActivityContextTypeIndexCacheData typeIndexCacheData;
+	
+	/**
+	 * the in heap store of ACs data, used instead of the cache in local mode
+	 */
+	private ActivityContextLocalDataStore localDataStore;
+	
 	private final ActivityManagementConfiguration configuration;
 	
+	private final ActivityContextLivenessScanner livenessScanner;
+	
+	/**
+	 * requests the liveness scanner to track the activities of failed cluster members
+	 */
+	private final LivenessFailOverListener livenessFailOverListener = new LivenessFailOverListener();
+	
 	private final static boolean doTraceLogs = logger.isTraceEnabled();
 	
 	public ActivityContextFactoryImpl(ActivityManagementConfiguration configuration) {
 		this.configuration = configuration;
+		this.livenessScanner = new ActivityContextLivenessScanner(this);
 	}
 	
 	/**
@@ -82,6 +103,22 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 		return configuration;
 	}
 	
+	/**
+	 * 
+	 * @return the scanner of idle activities
+	 */
+	public ActivityContextLivenessScanner getLivenessScanner() {
+		return livenessScanner;
+	}
+	
+	/**
+	 * 
+	 * @return true if the ACs data is kept in the heap, not in the cluster cache
+	 */
+	public boolean isLocalMode() {
+		return localDataStore != null;
+	}
+	
 	@Override
 	public void sleeInitialization() {
 		sleeContainer.getCluster().addDataRemovalListener(new DataRemovalClusterListener());		
@@ -89,12 +126,45 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 	
 	@Override
 	public void sleeStarting() {
-		cacheData = new ActivityContextFactoryCacheData(sleeContainer.getCluster());
-		cacheData.create();
+		if (sleeContainer.getCluster().getMobicentsCache().isLocalMode()) {
+			// no replication, keep ACs data in the heap, bypassing the cache
+			localDataStore = new ActivityContextLocalDataStore(sleeContainer.getTransactionManager());
+		}
+		else {
+			cacheData = new ActivityContextFactoryCacheData(sleeContainer.getCluster());
+			cacheData.create();
+			stringIDIndexCacheData = new ActivityContextStringIDIndexCacheData(sleeContainer.getCluster());
+			stringIDIndexCacheData.create();
+			typeIndexCacheData = new ActivityContextTypeIndexCacheData(sleeContainer.getCluster());
+			typeIndexCacheData.create();
+			sleeContainer.getCluster().addFailOverListener(livenessFailOverListener);
+		}
+	}
+	
+	@Override
+	public void sleeStopped() {
+		if (localDataStore == null) {
+			sleeContainer.getCluster().removeFailOverListener(livenessFailOverListener);
+		}
 	}
 
 	public void WAremove(String type) {
-		cacheData.WAremove(type);
+		if (localDataStore != null) {
+			localDataStore.removeAll(type);
+		}
+		else {
+			cacheData.WAremove(type);
+			typeIndexCacheData.removeAll(type);
+		}
+	}
+	
+	private ActivityContextData getActivityContextData(ActivityContextHandle ach) {
+		if (localDataStore != null) {
+			return new ActivityContextLocalData(ach, localDataStore);
+		}
+		else {
+			return new ActivityContextCacheData(ach, sleeContainer.getCluster(), stringIDIndexCacheData, typeIndexCacheData);
+		}
 	}
 	
 	/*
@@ -105,6 +175,22 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 		return sleeContainer;
 	}
 	
+	/**
+	 * Retrieves the event router executor of the activity context with the
+	 * specified handle, without loading the activity context.
+	 * 
+	 * @param ach
+	 * @return
+	 */
+	EventRouterExecutor getEventRouterExecutor(ActivityContextHandle ach) {
+		final LocalActivityContextImpl localActivityContext = localActivityContexts.get(ach);
+		if (localActivityContext != null && localActivityContext.getExecutorService() != null) {
+			return localActivityContext.getExecutorService();
+		}
+		// the one the local activity context will be bound to
+		return sleeContainer.getEventRouter().getEventRouterExecutorMapper().getExecutor(ach);
+	}
+	
 	LocalActivityContextImpl getLocalActivityContext(ActivityContextImpl ac) {
 		final ActivityContextHandle ach = ac.getActivityContextHandle();
 		LocalActivityContextImpl localActivityContext = localActivityContexts.get(ach);
@@ -157,7 +243,7 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 		}
 		
 		// create ac
-		ActivityContextCacheData activityContextCacheData = new ActivityContextCacheData(ach, sleeContainer.getCluster());
+		ActivityContextData activityContextCacheData = getActivityContextData(ach);
 		if (activityContextCacheData.exists()) {
 			throw new ActivityAlreadyExistsException(ach.toString());
 		}
@@ -186,7 +272,7 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 	
 	@Override
 	public ActivityContextImpl getActivityContext(ActivityContextHandle ach, boolean updateLastAccessTime) {
-		ActivityContextCacheData activityContextCacheData = new ActivityContextCacheData(ach, sleeContainer.getCluster());
+		ActivityContextData activityContextCacheData = getActivityContextData(ach);
 		if (activityContextCacheData.exists()) {
 			try {
 				return new ActivityContextImpl(ach,activityContextCacheData,tracksIdleTime(ach, updateLastAccessTime),this);
@@ -198,6 +284,7 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 				if (localActivityContext != null) {
 					localActivityContext.getExecutorService().activityUnmapped(ach);
 				}
+				livenessScanner.removed(ach);
 				activityContextCacheData.remove();
 				return null;
 			}
@@ -215,14 +302,13 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 	@Override
 	public ActivityContext getActivityContext(String sid,
 			boolean updateLastAccessTime) {
-		// TODO add alternative strategy where there is a cache data mapping from sid to
-		// ach, and configuration option to select strategy
-		ActivityContextImpl ac = null;
-		for (ActivityContextHandle ach : getAllActivityContextsHandles()) {
-			ac = getActivityContext(ach, updateLastAccessTime);
-			if (sid.equals(ac.getStringID(false))) {
-				break;
-			}
+		final ActivityContextHandle ach = localDataStore != null ? localDataStore.getActivityContextHandle(sid) : stringIDIndexCacheData.get(sid);
+		if (ach == null) {
+			return null;
+		}
+		final ActivityContextImpl ac = getActivityContext(ach, updateLastAccessTime);
+		if (ac == null || !sid.equals(ac.getStringID(false))) {
+			return null;
 		}
 		return ac;
 	}
@@ -232,6 +318,9 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 	 * @see org.mobicents.slee.container.activity.ActivityContextFactory#getAllActivityContextsHandles()
 	 */
 	public Set<ActivityContextHandle> getAllActivityContextsHandles() {
+		if (localDataStore != null) {
+			return localDataStore.getActivityContextHandles();
+		}
 		return cacheData.getActivityContextHandles();
 	}
 	
@@ -246,6 +335,7 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 		if (localActivityContext != null) {
 			localActivityContext.getExecutorService().activityUnmapped(ac.getActivityContextHandle());
 		}
+		livenessScanner.removed(ac.getActivityContextHandle());
 				
 		if (logger.isDebugEnabled()) {
 			logger.debug("Removed activity context with handle "+ac.getActivityContextHandle());
@@ -257,15 +347,51 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 	 * @see org.mobicents.slee.container.activity.ActivityContextFactory#getActivityContextCount()
 	 */
 	public int getActivityContextCount() {		
+		if (localDataStore != null) {
+			return localDataStore.getCounters().getCount();
+		}
 		return getAllActivityContextsHandles().size();
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.activity.ActivityContextFactory#getActivityContextCount(org.mobicents.slee.container.activity.ActivityType)
+	 */
+	public int getActivityContextCount(ActivityType activityType) {
+		if (localDataStore != null) {
+			return localDataStore.getCounters().getCount(activityType);
+		}
+		return typeIndexCacheData.getCount(activityType);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.activity.ActivityContextFactory#getResourceAdaptorEntityActivityContextCount(java.lang.String)
+	 */
+	public int getResourceAdaptorEntityActivityContextCount(String raEntityName) {
+		if (localDataStore != null) {
+			return localDataStore.getCounters().getResourceAdaptorEntityCount(raEntityName);
+		}
+		return getResourceAdaptorEntityActivityContextsHandles(raEntityName).size();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.activity.ActivityContextFactory#getResourceAdaptorEntityActivityContextsHandles(java.lang.String)
+	 */
+	public Set<ActivityContextHandle> getResourceAdaptorEntityActivityContextsHandles(String raEntityName) {
+		if (localDataStore != null) {
+			return localDataStore.getCounters().getResourceAdaptorEntityHandles(raEntityName);
+		}
+		return typeIndexCacheData.getResourceAdaptorEntityHandles(raEntityName);
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see org.mobicents.slee.container.activity.ActivityContextFactory#activityContextExists(org.mobicents.slee.container.activity.ActivityContextHandle)
 	 */
 	public boolean activityContextExists(ActivityContextHandle ach) {
-		return new ActivityContextCacheData(ach, sleeContainer.getCluster()).exists();
+		return getActivityContextData(ach).exists();
 	}	
 	
 	@Override
@@ -281,6 +407,7 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 		public void dataRemoved(FqnWrapper dataFqnWrapper) {
 			final Fqn dataFqn = dataFqnWrapper.getFqn();
 			final ActivityContextHandle ach = (ActivityContextHandle) dataFqn.getLastElement();
+			livenessScanner.removed(ach);
 			final LocalActivityContextImpl localActivityContext = localActivityContexts.remove(ach);
 			if(localActivityContext != null) {
 				final EventRouterExecutor executor = localActivityContext.getExecutorService(); 
@@ -299,4 +426,32 @@ public class ActivityContextFactoryImpl extends AbstractSleeContainerModule impl
 		}
 		
 	}
+	
+	private class LivenessFailOverListener implements FailOverListener {
+		
+		public void failOverClusterMember(Address address) {
+			// the activities of the failed member are not tracked by this node's scanner
+			livenessScanner.reconcile();
+		}
+		
+		@SuppressWarnings("rawtypes")
+		public FqnWrapper getBaseFqn() {
+			return new FqnWrapper(ActivityContextFactoryCacheData.NODE_FQN);
+		}
+		
+		public ClientLocalListenerElector getElector() {
+			return null;
+		}
+		
+		public byte getPriority() {
+			return 0;
+		}
+		
+		public void lostOwnership(ClusteredCacheData clusteredCacheData) {
+		}
+		
+		public void wonOwnership(ClusteredCacheData clusteredCacheData) {
+		}
+		
+	}
 }
\ No newline at end of file
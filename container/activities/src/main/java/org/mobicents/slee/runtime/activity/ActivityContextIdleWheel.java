@@ -0,0 +1,208 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+
+/**
+ * A wheel of time buckets, where activity context handles are kept by last
+ * access time, so that the idle ones can be found by inspecting only the
+ * buckets which expired, instead of all activity contexts.
+ * 
+ * The wheel is local, non transactional, and its times are hints, the real
+ * last access time of an activity context must be checked before considering
+ * it idle. The updates of an activity context handle bucket and index are
+ * done while holding a lock, from a small set of locks striped by handle, so
+ * concurrent updates and removals of expired buckets always leave a tracked
+ * handle in the bucket of its index.
+ * 
+ * @author martins
+ * 
+ */
+public class ActivityContextIdleWheel {
+
+	private static final int LOCK_STRIPES = 64;
+
+	/**
+	 * the duration of each bucket, in ms
+	 */
+	private final long bucketDuration;
+
+	/**
+	 * the buckets, by index
+	 */
+	private final ConcurrentSkipListMap<Long, Set<ActivityContextHandle>> buckets = new ConcurrentSkipListMap<Long, Set<ActivityContextHandle>>();
+
+	/**
+	 * the bucket index of each activity context handle in the wheel
+	 */
+	private final ConcurrentHashMap<ActivityContextHandle, Long> bucketIndexes = new ConcurrentHashMap<ActivityContextHandle, Long>();
+
+	/**
+	 * the locks guarding the updates of each activity context handle bucket
+	 * and index
+	 */
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	/**
+	 * 
+	 * @param bucketDuration
+	 *            the duration of each bucket, in ms
+	 */
+	public ActivityContextIdleWheel(long bucketDuration) {
+		if (bucketDuration < 1) {
+			throw new IllegalArgumentException("bucket duration must be positive");
+		}
+		this.bucketDuration = bucketDuration;
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	private Object getLock(ActivityContextHandle ach) {
+		int hash = ach.hashCode();
+		// the stripe is picked by the low bits only, mix the high ones in, or
+		// handles with hash codes differing only in those would share a lock
+		hash ^= (hash >>> 16);
+		return locks[hash & (LOCK_STRIPES - 1)];
+	}
+
+	/**
+	 * Puts the activity context handle in the bucket for the specified last
+	 * access time, moving it if it was in another bucket.
+	 * 
+	 * @param ach
+	 * @param lastAccessTime
+	 */
+	public void accessed(ActivityContextHandle ach, long lastAccessTime) {
+		final Long bucketIndex = Long.valueOf(lastAccessTime / bucketDuration);
+		synchronized (getLock(ach)) {
+			final Long oldBucketIndex = bucketIndexes.get(ach);
+			if (bucketIndex.equals(oldBucketIndex)) {
+				return;
+			}
+			addToBucket(ach, bucketIndex);
+			bucketIndexes.put(ach, bucketIndex);
+			if (oldBucketIndex != null) {
+				removeFromBucket(ach, oldBucketIndex);
+			}
+		}
+	}
+
+	/**
+	 * Removes the activity context handle from the wheel.
+	 * 
+	 * @param ach
+	 */
+	public void removed(ActivityContextHandle ach) {
+		synchronized (getLock(ach)) {
+			final Long oldBucketIndex = bucketIndexes.remove(ach);
+			if (oldBucketIndex != null) {
+				removeFromBucket(ach, oldBucketIndex);
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @param ach
+	 * @return true if the activity context handle is in the wheel
+	 */
+	public boolean contains(ActivityContextHandle ach) {
+		return bucketIndexes.containsKey(ach);
+	}
+
+	/**
+	 * 
+	 * @return the number of activity context handles in the wheel
+	 */
+	public int size() {
+		return bucketIndexes.size();
+	}
+
+	/**
+	 * Removes from the wheel the activity context handles which last access
+	 * time is, for sure, before the specified time. Only the buckets which
+	 * expired are inspected.
+	 * 
+	 * @param time
+	 * @return
+	 */
+	public List<ActivityContextHandle> removeExpired(long time) {
+		final Map<Long, Set<ActivityContextHandle>> expiredBuckets = buckets.headMap(Long.valueOf(time / bucketDuration));
+		if (expiredBuckets.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final List<ActivityContextHandle> result = new ArrayList<ActivityContextHandle>();
+		for (Iterator<Map.Entry<Long, Set<ActivityContextHandle>>> i = expiredBuckets.entrySet().iterator(); i.hasNext();) {
+			final Map.Entry<Long, Set<ActivityContextHandle>> bucket = i.next();
+			i.remove();
+			for (ActivityContextHandle ach : bucket.getValue()) {
+				synchronized (getLock(ach)) {
+					// only take it if it was not moved meanwhile
+					if (bucketIndexes.remove(ach, bucket.getKey())) {
+						result.add(ach);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private void addToBucket(ActivityContextHandle ach, Long bucketIndex) {
+		while (true) {
+			Set<ActivityContextHandle> bucket = buckets.get(bucketIndex);
+			if (bucket == null) {
+				final Set<ActivityContextHandle> newBucket = Collections.newSetFromMap(new ConcurrentHashMap<ActivityContextHandle, Boolean>());
+				bucket = buckets.putIfAbsent(bucketIndex, newBucket);
+				if (bucket == null) {
+					bucket = newBucket;
+				}
+			}
+			bucket.add(ach);
+			if (buckets.get(bucketIndex) == bucket) {
+				return;
+			}
+			// the bucket expired and was removed meanwhile, its removal may
+			// not see the handle, retry with a new bucket
+			bucket.remove(ach);
+		}
+	}
+
+	private void removeFromBucket(ActivityContextHandle ach, Long bucketIndex) {
+		final Set<ActivityContextHandle> bucket = buckets.get(bucketIndex);
+		if (bucket != null) {
+			bucket.remove(ach);
+		}
+	}
+
+}
@@ -88,7 +88,7 @@ public class ActivityContextImpl implements ActivityContext {
 	/**
 	 * the data stored in cache for this ac
 	 */
-	protected final ActivityContextCacheData cacheData;
+	protected final ActivityContextData cacheData;
 
 	private final ActivityContextFactoryImpl factory;
 
@@ -98,7 +98,7 @@ public class ActivityContextImpl implements ActivityContext {
 
 	public ActivityContextImpl(
 			final ActivityContextHandle activityContextHandle,
-			ActivityContextCacheData cacheData, boolean updateAccessTime,
+			ActivityContextData cacheData, boolean updateAccessTime,
 			Integer activityFlags, ActivityContextFactoryImpl factory) {
 		this.activityContextHandle = activityContextHandle;
 		this.factory = factory;
@@ -121,7 +121,7 @@ public class ActivityContextImpl implements ActivityContext {
 	}
 
 	public ActivityContextImpl(ActivityContextHandle activityContextHandle,
-			ActivityContextCacheData cacheData, boolean updateAccessTime,
+			ActivityContextData cacheData, boolean updateAccessTime,
 			ActivityContextFactoryImpl factory) {
 		this.activityContextHandle = activityContextHandle;
 		this.factory = factory;
@@ -426,8 +426,10 @@ public class ActivityContextImpl implements ActivityContext {
 
 	private void updateLastAccessTime(boolean creation) {
 		if (creation) {
+			final long now = System.currentTimeMillis();
 			cacheData.putObject(NODE_MAP_KEY_LAST_ACCESS,
-					Long.valueOf(System.currentTimeMillis()));
+					Long.valueOf(now));
+			factory.getLivenessScanner().accessed(activityContextHandle, now);
 		} else {
 			ActivityManagementConfiguration configuration = factory
 					.getConfiguration();
@@ -444,6 +446,7 @@ public class ActivityContextImpl implements ActivityContext {
 					}
 					cacheData.putObject(NODE_MAP_KEY_LAST_ACCESS,
 							Long.valueOf(now));
+					factory.getLivenessScanner().accessed(activityContextHandle, now);
 				} else {
 					if (logger.isDebugEnabled()) {
 						logger.debug("Skipping update of access time for AC with handle "
@@ -451,8 +454,10 @@ public class ActivityContextImpl implements ActivityContext {
 					}
 				}
 			} else {
+				final long now = System.currentTimeMillis();
 				cacheData.putObject(NODE_MAP_KEY_LAST_ACCESS,
-						Long.valueOf(System.currentTimeMillis()));
+						Long.valueOf(now));
+				factory.getLivenessScanner().accessed(activityContextHandle, now);
 				if (logger.isTraceEnabled()) {
 					logger.trace("Updating access time for AC with handle "
 							+ getActivityContextHandle());
@@ -0,0 +1,300 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.activity.ActivityType;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.container.resource.ResourceAdaptorActivityContextHandle;
+import org.mobicents.slee.container.resource.ResourceAdaptorEntity;
+
+/**
+ * Finds idle RA activities and queries their liveness, through an
+ * {@link ActivityContextIdleWheel}, fed with the last access time updates
+ * of activity contexts. Each scan only inspects the wheel buckets which
+ * expired, and the liveness checks of the activities found are done in
+ * bounded batches, by the event router executor of each activity, the one
+ * its local activity context is bound to.
+ * 
+ * @author martins
+ * 
+ */
+public class ActivityContextLivenessScanner {
+
+	private static final Logger logger = Logger.getLogger(ActivityContextLivenessScanner.class);
+
+	/**
+	 * the duration of each idle wheel bucket, in ms
+	 */
+	private static final long BUCKET_DURATION = 60000;
+
+	/**
+	 * the max number of activities checked by each task submitted to an event
+	 * router executor
+	 */
+	private static final int BATCH_SIZE = 256;
+
+	/**
+	 * the min time between scans reconciling the wheel with all activities in
+	 * the cluster, in ms, besides the ones after a cluster member failover
+	 */
+	private static final long CLUSTER_RECONCILE_PERIOD = 30 * BUCKET_DURATION;
+
+	private final ActivityContextFactoryImpl factory;
+
+	private final ActivityContextIdleWheel wheel = new ActivityContextIdleWheel(BUCKET_DURATION);
+
+	/**
+	 * if true the next scan will add the untracked RA activities to the wheel
+	 */
+	private volatile boolean reconcileNeeded = true;
+
+	/**
+	 * the time of the last scan which reconciled the wheel
+	 */
+	private long lastReconcileTime;
+
+	// --- metrics
+
+	private final AtomicLong checks = new AtomicLong();
+
+	private final AtomicLong queries = new AtomicLong();
+
+	private final AtomicInteger pendingChecks = new AtomicInteger();
+
+	private volatile int lastScanExpired;
+
+	private volatile long lastScanTime;
+
+	/**
+	 * 
+	 * @param factory
+	 */
+	public ActivityContextLivenessScanner(ActivityContextFactoryImpl factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Indicates the last access time of the specified activity context was
+	 * updated.
+	 * 
+	 * @param ach
+	 * @param lastAccessTime
+	 */
+	void accessed(ActivityContextHandle ach, long lastAccessTime) {
+		wheel.accessed(ach, lastAccessTime);
+	}
+
+	/**
+	 * Indicates the specified activity context was removed.
+	 * 
+	 * @param ach
+	 */
+	void removed(ActivityContextHandle ach) {
+		wheel.removed(ach);
+	}
+
+	/**
+	 * Requests the next scan to add the RA activities not tracked by the wheel,
+	 * which is needed after the scanning was off, since meanwhile last access
+	 * times were not updated, or after a cluster member failed, since its
+	 * activities were not tracked by this node.
+	 */
+	public void reconcile() {
+		reconcileNeeded = true;
+	}
+
+	/**
+	 * Scans for idle activities, submitting the liveness checks of the
+	 * activities found to the event router executors.
+	 */
+	public void scan() {
+		final long now = System.currentTimeMillis();
+		if (reconcileNeeded
+				|| (!factory.isLocalMode() && now - lastReconcileTime >= CLUSTER_RECONCILE_PERIOD)) {
+			// in a cluster the failover of activities from other nodes
+			// requests a reconcile, the periodic one is a safety net for
+			// activities this node missed, listing all is too expensive for
+			// every scan
+			reconcileNeeded = false;
+			lastReconcileTime = now;
+			for (ActivityContextHandle ach : factory.getAllActivityContextsHandles()) {
+				if (ach.getActivityType() == ActivityType.RA && !wheel.contains(ach)) {
+					wheel.accessed(ach, now);
+				}
+			}
+		}
+		final long maxTimeIdle = factory.getConfiguration().getMaxTimeIdleInMs();
+		final List<ActivityContextHandle> expired = wheel.removeExpired(now - maxTimeIdle);
+		lastScanTime = now;
+		lastScanExpired = expired.size();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Liveness scan found " + expired.size() + " activities possibly idle, " + wheel.size() + " activities in the idle wheel");
+		}
+		if (expired.isEmpty()) {
+			return;
+		}
+		// shard by the executor of each activity
+		final Map<EventRouterExecutor, List<ActivityContextHandle>> shards = new IdentityHashMap<EventRouterExecutor, List<ActivityContextHandle>>();
+		int checksSubmitted = 0;
+		for (ActivityContextHandle ach : expired) {
+			// the activity context is only loaded by its check, in the
+			// executor, not by the thread scanning
+			final EventRouterExecutor executor = factory.getEventRouterExecutor(ach);
+			List<ActivityContextHandle> shard = shards.get(executor);
+			if (shard == null) {
+				shard = new ArrayList<ActivityContextHandle>();
+				shards.put(executor, shard);
+			}
+			shard.add(ach);
+			checksSubmitted++;
+		}
+		// submit bounded batches
+		pendingChecks.addAndGet(checksSubmitted);
+		for (Map.Entry<EventRouterExecutor, List<ActivityContextHandle>> shard : shards.entrySet()) {
+			final List<ActivityContextHandle> handles = shard.getValue();
+			for (int i = 0; i < handles.size(); i += BATCH_SIZE) {
+				final List<ActivityContextHandle> batch = handles.subList(i, Math.min(i + BATCH_SIZE, handles.size()));
+				try {
+					shard.getKey().execute(new LivenessCheckBatch(batch, now, maxTimeIdle));
+				} catch (Throwable e) {
+					logger.error("Failed to submit liveness checks, activities will be checked in next scan", e);
+					for (ActivityContextHandle ach : batch) {
+						wheel.accessed(ach, 0L);
+					}
+					pendingChecks.addAndGet(-batch.size());
+				}
+			}
+		}
+	}
+
+	private void check(ActivityContextHandle ach, long now, long maxTimeIdle) {
+		checks.incrementAndGet();
+		final ActivityContextImpl ac = factory.getActivityContext(ach);
+		if (ac == null) {
+			// removed meanwhile
+			return;
+		}
+		// back to the wheel, with the real last access time
+		final long lastAccessTime = ac.getLastAccessTime();
+		wheel.accessed(ach, lastAccessTime);
+		if ((now - lastAccessTime) < maxTimeIdle) {
+			// accessed in near past, no need to query it
+			return;
+		}
+		final ResourceAdaptorEntity raEntity = ((ResourceAdaptorActivityContextHandle) ach).getResourceAdaptorEntity();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Invoking ra entity " + raEntity.getName() + " queryLiveness() for activity handle " + ach.getActivityHandle());
+		}
+		queries.incrementAndGet();
+		raEntity.getResourceAdaptorObject().queryLiveness(ach.getActivityHandle());
+	}
+
+	// --- metrics
+
+	/**
+	 * 
+	 * @return the number of activities tracked by the idle wheel
+	 */
+	public int getTrackedActivities() {
+		return wheel.size();
+	}
+
+	/**
+	 * 
+	 * @return the number of activities checked since the scanner creation
+	 */
+	public long getChecks() {
+		return checks.get();
+	}
+
+	/**
+	 * 
+	 * @return the number of liveness queries since the scanner creation
+	 */
+	public long getQueries() {
+		return queries.get();
+	}
+
+	/**
+	 * 
+	 * @return the number of activities found by scans which are still to be
+	 *         checked
+	 */
+	public int getPendingChecks() {
+		return pendingChecks.get();
+	}
+
+	/**
+	 * 
+	 * @return the number of activities found by the last scan
+	 */
+	public int getLastScanExpired() {
+		return lastScanExpired;
+	}
+
+	/**
+	 * 
+	 * @return the time of the last scan, 0 if there was no scan yet
+	 */
+	public long getLastScanTime() {
+		return lastScanTime;
+	}
+
+	private class LivenessCheckBatch implements Runnable {
+
+		private final List<ActivityContextHandle> handles;
+
+		private final long now;
+
+		private final long maxTimeIdle;
+
+		private LivenessCheckBatch(List<ActivityContextHandle> handles, long now, long maxTimeIdle) {
+			this.handles = handles;
+			this.now = now;
+			this.maxTimeIdle = maxTimeIdle;
+		}
+
+		public void run() {
+			for (ActivityContextHandle ach : handles) {
+				try {
+					check(ach, now, maxTimeIdle);
+				} catch (Throwable e) {
+					logger.error("Failed to check liveness of activity " + ach, e);
+				} finally {
+					pendingChecks.decrementAndGet();
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,315 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.slee.facilities.TimerID;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+import org.mobicents.slee.runtime.activity.ActivityContextLocalDataStore.Operation;
+
+/**
+ * 
+ * Proxy object for activity context data management through the local, in
+ * heap, {@link ActivityContextLocalDataStore}, which bypasses the cluster
+ * cache when the SLEE runs in local mode.
+ * 
+ * @author martins
+ * 
+ */
+@SuppressWarnings("rawtypes")
+public class ActivityContextLocalData implements ActivityContextData {
+
+	private final ActivityContextHandle ach;
+
+	private final ActivityContextLocalDataStore store;
+
+	/**
+	 * 
+	 * @param ach
+	 * @param store
+	 */
+	ActivityContextLocalData(ActivityContextHandle ach,
+			ActivityContextLocalDataStore store) {
+		this.ach = ach;
+		this.store = store;
+	}
+
+	private boolean update(Operation operation) {
+		return Boolean.TRUE.equals(store.update(ach, operation));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#create()
+	 */
+	public boolean create() {
+		return store.create(ach);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#exists()
+	 */
+	public boolean exists() {
+		return store.get(ach) != null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#remove()
+	 */
+	public boolean remove() {
+		return store.remove(ach);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#putObject(java.lang.Object, java.lang.Object)
+	 */
+	public Object putObject(final Object key, final Object value) {
+		return store.update(ach, new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				return state.putObject(key, value);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#getObject(java.lang.Object)
+	 */
+	public Object getObject(Object key) {
+		final ActivityContextLocalState state = store.get(ach);
+		return state != null ? state.getObject(key) : null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#removeObject(java.lang.Object)
+	 */
+	public Object removeObject(final Object key) {
+		return store.update(ach, new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				return state.removeObject(key);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#isEnding()
+	 */
+	public boolean isEnding() {
+		final ActivityContextLocalState state = store.get(ach);
+		return state != null ? state.isEnding() : false;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#setEnding(boolean)
+	 */
+	public boolean setEnding(final boolean value) {
+		if (isEnding() == value) {
+			return false;
+		}
+		return update(new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				if (state.isEnding() == value) {
+					return Boolean.FALSE;
+				}
+				state.setEnding(value);
+				return Boolean.TRUE;
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#attachSbbEntity(org.mobicents.slee.container.sbbentity.SbbEntityID)
+	 */
+	public boolean attachSbbEntity(final SbbEntityID sbbEntityId) {
+		return update(new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				return state.attachSbbEntity(sbbEntityId);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#detachSbbEntity(org.mobicents.slee.container.sbbentity.SbbEntityID)
+	 */
+	public boolean detachSbbEntity(final SbbEntityID sbbEntityId) {
+		return update(new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				return state.detachSbbEntity(sbbEntityId);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#noSbbEntitiesAttached()
+	 */
+	public boolean noSbbEntitiesAttached() {
+		return getSbbEntitiesAttached().isEmpty();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#getSbbEntitiesAttached()
+	 */
+	public Set<SbbEntityID> getSbbEntitiesAttached() {
+		final ActivityContextLocalState state = store.get(ach);
+		if (state == null) {
+			return Collections.emptySet();
+		}
+		return state.getAttachedSbbs();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#attachTimer(javax.slee.facilities.TimerID)
+	 */
+	public boolean attachTimer(final TimerID timerID) {
+		return update(new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				return state.attachTimer(timerID);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#detachTimer(javax.slee.facilities.TimerID)
+	 */
+	public boolean detachTimer(final TimerID timerID) {
+		return update(new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				return state.detachTimer(timerID);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#noTimersAttached()
+	 */
+	public boolean noTimersAttached() {
+		return getAttachedTimers().isEmpty();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#getAttachedTimers()
+	 */
+	public Set getAttachedTimers() {
+		final ActivityContextLocalState state = store.get(ach);
+		if (state == null) {
+			return Collections.emptySet();
+		}
+		return state.getAttachedTimers();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#nameBound(java.lang.String)
+	 */
+	public void nameBound(final String name) {
+		update(new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				return state.nameBound(name);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#nameUnbound(java.lang.String)
+	 */
+	public boolean nameUnbound(final String name) {
+		return update(new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				return state.nameUnbound(name);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#noNamesBound()
+	 */
+	public boolean noNamesBound() {
+		return getNamesBoundCopy().isEmpty();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#getNamesBoundCopy()
+	 */
+	public Set getNamesBoundCopy() {
+		final ActivityContextLocalState state = store.get(ach);
+		if (state == null) {
+			return Collections.emptySet();
+		}
+		return state.getNamesBound();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#setCmpAttribute(java.lang.String, java.lang.Object)
+	 */
+	public void setCmpAttribute(final String attrName, final Object attrValue) {
+		update(new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				state.setCmpAttribute(attrName, attrValue);
+				return Boolean.TRUE;
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#getCmpAttribute(java.lang.String)
+	 */
+	public Object getCmpAttribute(String attrName) {
+		final ActivityContextLocalState state = store.get(ach);
+		return state != null ? state.getCmpAttribute(attrName) : null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#getCmpAttributesCopy()
+	 */
+	public Map getCmpAttributesCopy() {
+		final ActivityContextLocalState state = store.get(ach);
+		if (state == null) {
+			return Collections.emptyMap();
+		}
+		return new HashMap<String, Object>(state.getCmpAttributes());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#getStringID()
+	 */
+	public String getStringID() {
+		final ActivityContextLocalState state = store.get(ach);
+		return state != null ? state.getStringID() : null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.activity.ActivityContextData#setStringID(java.lang.String)
+	 */
+	public void setStringID(final String sid) {
+		update(new Operation() {
+			public Object apply(ActivityContextLocalState state) {
+				state.setStringID(sid);
+				return Boolean.TRUE;
+			}
+		});
+	}
+
+}
@@ -0,0 +1,503 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.slee.SLEEException;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.transaction.SleeTransactionManager;
+import org.mobicents.slee.container.transaction.TransactionContext;
+import org.mobicents.slee.container.transaction.TransactionalAction;
+
+/**
+ * Stores the data of activity contexts in the heap, as an alternative to the
+ * cluster cache when the SLEE runs in local mode.
+ * 
+ * The data is transactional, with copy on commit semantics: the first change
+ * done by a transaction locks the activity context and copies its committed
+ * state, further changes are applied to the copy, which is only visible to
+ * the transaction, and on commit the copy replaces the committed state. The
+ * lock is held till the transaction completes, so concurrent transactions
+ * changing the same activity context are serialized, as these would be by
+ * the write locks of the cluster cache, and a transaction waiting longer than
+ * the lock timeout fails. On rollback the copies are simply discarded.
+ * 
+ * The store also indexes the handles of the activity contexts by string ID,
+ * and counts the activity contexts, both derived from the committed states.
+ * 
+ * @author martins
+ * 
+ */
+class ActivityContextLocalDataStore {
+
+	/**
+	 * the default max time, in milliseconds, to wait for the lock of an
+	 * activity context
+	 */
+	static final long DEFAULT_LOCK_TIMEOUT = 10000;
+
+	/**
+	 * An operation changing the state of an activity context.
+	 */
+	interface Operation {
+
+		/**
+		 * Applies the operation to the specified state.
+		 * 
+		 * @param state
+		 * @return the result of the operation
+		 */
+		Object apply(ActivityContextLocalState state);
+
+	}
+
+	/**
+	 * The write lock of an activity context, owned by a transaction, or by a
+	 * thread changing the committed state out of any transaction.
+	 */
+	private static class WriteLock {
+
+		private final CountDownLatch released = new CountDownLatch(1);
+
+	}
+
+	/**
+	 * The changes done by a transaction to the state of an activity context.
+	 */
+	private static class TransactionEntry {
+
+		/**
+		 * the lock held by the transaction
+		 */
+		private final WriteLock lock;
+
+		/**
+		 * the transaction's state, null if removed
+		 */
+		private ActivityContextLocalState state;
+
+		private TransactionEntry(WriteLock lock, ActivityContextLocalState state) {
+			this.lock = lock;
+			this.state = state;
+		}
+
+	}
+
+	/**
+	 * the committed states
+	 */
+	private final ConcurrentHashMap<ActivityContextHandle, ActivityContextLocalState> states = new ConcurrentHashMap<ActivityContextHandle, ActivityContextLocalState>();
+
+	/**
+	 * the write locks of activity contexts being changed
+	 */
+	private final ConcurrentHashMap<ActivityContextHandle, WriteLock> locks = new ConcurrentHashMap<ActivityContextHandle, WriteLock>();
+
+	/**
+	 * the index of committed states by string ID
+	 */
+	private final ConcurrentHashMap<String, ActivityContextHandle> stringIDs = new ConcurrentHashMap<String, ActivityContextHandle>();
+
+	/**
+	 * the counters of committed states
+	 */
+	private final ActivityContextCounters counters = new ActivityContextCounters();
+
+	private final SleeTransactionManager txManager;
+
+	/**
+	 * the max time, in milliseconds, to wait for the lock of an activity
+	 * context
+	 */
+	private final long lockTimeout;
+
+	/**
+	 * 
+	 * @param txManager
+	 */
+	ActivityContextLocalDataStore(SleeTransactionManager txManager) {
+		this(txManager, DEFAULT_LOCK_TIMEOUT);
+	}
+
+	/**
+	 * 
+	 * @param txManager
+	 * @param lockTimeout
+	 */
+	ActivityContextLocalDataStore(SleeTransactionManager txManager, long lockTimeout) {
+		this.txManager = txManager;
+		this.lockTimeout = lockTimeout;
+	}
+
+	/**
+	 * 
+	 * @return the counters of activity contexts with committed state
+	 */
+	ActivityContextCounters getCounters() {
+		return counters;
+	}
+
+	/**
+	 * Retrieves the handles of all activity contexts with committed state.
+	 * 
+	 * @return
+	 */
+	Set<ActivityContextHandle> getActivityContextHandles() {
+		return Collections.unmodifiableSet(states.keySet());
+	}
+
+	/**
+	 * Retrieves the state of the specified activity context, as seen by the
+	 * current transaction.
+	 * 
+	 * @param ach
+	 * @return null if the activity context state does not exist
+	 */
+	ActivityContextLocalState get(ActivityContextHandle ach) {
+		final Map<ActivityContextHandle, TransactionEntry> entries = getTransactionEntries(false);
+		if (entries != null) {
+			final TransactionEntry entry = entries.get(ach);
+			if (entry != null) {
+				return entry.state;
+			}
+		}
+		return states.get(ach);
+	}
+
+	/**
+	 * Retrieves the handle of the activity context with the specified string
+	 * ID, as seen by the current transaction.
+	 * 
+	 * @param sid
+	 * @return null if there is no activity context with such string ID
+	 */
+	ActivityContextHandle getActivityContextHandle(String sid) {
+		final Map<ActivityContextHandle, TransactionEntry> entries = getTransactionEntries(false);
+		if (entries != null) {
+			for (Map.Entry<ActivityContextHandle, TransactionEntry> mapEntry : entries.entrySet()) {
+				final ActivityContextLocalState state = mapEntry.getValue().state;
+				if (state != null && sid.equals(state.getStringID())) {
+					return mapEntry.getKey();
+				}
+			}
+		}
+		final ActivityContextHandle ach = stringIDs.get(sid);
+		if (ach != null && entries != null && entries.containsKey(ach)) {
+			// the tx removed the state or changed its string id
+			return null;
+		}
+		return ach;
+	}
+
+	/**
+	 * Creates the state of the specified activity context.
+	 * 
+	 * @param ach
+	 * @return false if the state already exists
+	 */
+	boolean create(ActivityContextHandle ach) {
+		final Map<ActivityContextHandle, TransactionEntry> entries = getTransactionEntries(true);
+		if (entries == null) {
+			final WriteLock lock = lock(ach);
+			try {
+				final ActivityContextLocalState newState = new ActivityContextLocalState();
+				if (states.putIfAbsent(ach, newState) != null) {
+					return false;
+				}
+				stateCommitted(ach, null, newState);
+				return true;
+			} finally {
+				unlock(ach, lock);
+			}
+		}
+		final TransactionEntry entry = getTransactionEntry(entries, ach);
+		if (entry.state != null) {
+			return false;
+		}
+		entry.state = new ActivityContextLocalState();
+		return true;
+	}
+
+	/**
+	 * Removes the state of the specified activity context.
+	 * 
+	 * @param ach
+	 * @return false if the state does not exist
+	 */
+	boolean remove(ActivityContextHandle ach) {
+		final Map<ActivityContextHandle, TransactionEntry> entries = getTransactionEntries(true);
+		if (entries == null) {
+			final WriteLock lock = lock(ach);
+			try {
+				final ActivityContextLocalState oldState = states.remove(ach);
+				if (oldState == null) {
+					return false;
+				}
+				stateCommitted(ach, oldState, null);
+				return true;
+			} finally {
+				unlock(ach, lock);
+			}
+		}
+		final TransactionEntry entry = getTransactionEntry(entries, ach);
+		if (entry.state == null) {
+			return false;
+		}
+		entry.state = null;
+		return true;
+	}
+
+	/**
+	 * Applies the specified operation to the state of the specified activity
+	 * context.
+	 * 
+	 * @param ach
+	 * @param operation
+	 * @return the result of the operation, null if the state does not exist
+	 */
+	Object update(ActivityContextHandle ach, Operation operation) {
+		final Map<ActivityContextHandle, TransactionEntry> entries = getTransactionEntries(true);
+		if (entries == null) {
+			// no tx, apply to the committed state right away
+			final WriteLock lock = lock(ach);
+			try {
+				final ActivityContextLocalState current = states.get(ach);
+				if (current == null) {
+					return null;
+				}
+				final ActivityContextLocalState newState = current.copy();
+				final Object result = operation.apply(newState);
+				states.put(ach, newState);
+				stateCommitted(ach, current, newState);
+				return result;
+			} finally {
+				unlock(ach, lock);
+			}
+		}
+		final TransactionEntry entry = getTransactionEntry(entries, ach);
+		if (entry.state == null) {
+			return null;
+		}
+		return operation.apply(entry.state);
+	}
+
+	/**
+	 * Removes all committed states of activity contexts, which handle string
+	 * representation starts with the specified prefix, or all if the prefix is
+	 * empty.
+	 * 
+	 * @param prefix
+	 */
+	void removeAll(String prefix) {
+		if (prefix.length() == 0) {
+			states.clear();
+			stringIDs.clear();
+			counters.clear();
+		} else {
+			for (ActivityContextHandle ach : states.keySet()) {
+				if (ach.toString().startsWith(prefix)) {
+					final ActivityContextLocalState oldState = states.remove(ach);
+					if (oldState != null) {
+						stateCommitted(ach, oldState, null);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the changes done by the current transaction to the specified
+	 * activity context, if there are none yet the activity context is locked
+	 * and its committed state copied.
+	 * 
+	 * @param entries
+	 * @param ach
+	 * @return
+	 */
+	private TransactionEntry getTransactionEntry(Map<ActivityContextHandle, TransactionEntry> entries, ActivityContextHandle ach) {
+		TransactionEntry entry = entries.get(ach);
+		if (entry == null) {
+			final WriteLock lock = lock(ach);
+			// copy only once locked, no other tx changes the state till commit
+			final ActivityContextLocalState committedState = states.get(ach);
+			entry = new TransactionEntry(lock, committedState != null ? committedState.copy() : null);
+			entries.put(ach, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Acquires the write lock of the specified activity context, waiting at
+	 * most the lock timeout.
+	 * 
+	 * @param ach
+	 * @return the lock acquired
+	 * @throws SLEEException
+	 *             if the lock was not acquired
+	 */
+	private WriteLock lock(ActivityContextHandle ach) throws SLEEException {
+		final WriteLock lock = new WriteLock();
+		final long deadline = System.currentTimeMillis() + lockTimeout;
+		WriteLock otherLock = null;
+		while ((otherLock = locks.putIfAbsent(ach, lock)) != null) {
+			final long timeout = deadline - System.currentTimeMillis();
+			try {
+				if (timeout <= 0 || !otherLock.released.await(timeout, TimeUnit.MILLISECONDS)) {
+					throw new SLEEException("timeout while acquiring the lock of activity context " + ach);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SLEEException(e.getMessage(), e);
+			}
+		}
+		return lock;
+	}
+
+	/**
+	 * Releases the specified write lock of the specified activity context.
+	 * 
+	 * @param ach
+	 * @param lock
+	 */
+	private void unlock(ActivityContextHandle ach, WriteLock lock) {
+		locks.remove(ach, lock);
+		lock.released.countDown();
+	}
+
+	/**
+	 * Updates the string ID index and the counters, due to the commit of a
+	 * state change.
+	 * 
+	 * @param ach
+	 * @param oldState
+	 * @param newState
+	 */
+	private void stateCommitted(ActivityContextHandle ach, ActivityContextLocalState oldState, ActivityContextLocalState newState) {
+		final String oldSid = oldState != null ? oldState.getStringID() : null;
+		final String newSid = newState != null ? newState.getStringID() : null;
+		if (oldSid != null && !oldSid.equals(newSid)) {
+			stringIDs.remove(oldSid, ach);
+		}
+		if (newSid != null && !newSid.equals(oldSid)) {
+			stringIDs.put(newSid, ach);
+		}
+		if (oldState == null) {
+			if (newState != null) {
+				counters.activityContextCreated(ach);
+			}
+		} else if (newState == null) {
+			counters.activityContextRemoved(ach);
+		}
+	}
+
+	/**
+	 * Retrieves the transaction context of the current transaction.
+	 * 
+	 * @return null if there is no transaction
+	 */
+	TransactionContext getTransactionContext() {
+		return txManager.getTransactionContext();
+	}
+
+	/**
+	 * Retrieves the changes done by the current transaction, if there is no
+	 * transaction null is returned.
+	 * 
+	 * @param create
+	 *            if true and the transaction has no changes yet, the changes
+	 *            map is created and its commit scheduled
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<ActivityContextHandle, TransactionEntry> getTransactionEntries(boolean create) {
+		final TransactionContext txContext = getTransactionContext();
+		if (txContext == null) {
+			return null;
+		}
+		Map<ActivityContextHandle, TransactionEntry> entries = (Map<ActivityContextHandle, TransactionEntry>) txContext.getData().get(this);
+		if (entries == null && create) {
+			entries = new HashMap<ActivityContextHandle, TransactionEntry>(4);
+			txContext.getData().put(this, entries);
+			final Map<ActivityContextHandle, TransactionEntry> txEntries = entries;
+			final TransactionalAction commitAction = new TransactionalAction() {
+				public void execute() {
+					commit(txEntries);
+				}
+			};
+			// must be the first action, others such as the event commit may
+			// handoff work which reads the committed state
+			txContext.getAfterCommitPriorityActions().add(0, commitAction);
+			final TransactionalAction rollbackAction = new TransactionalAction() {
+				public void execute() {
+					rollback(txEntries);
+				}
+			};
+			txContext.getAfterRollbackActions().add(rollbackAction);
+		}
+		return entries;
+	}
+
+	/**
+	 * Applies the changes done by a transaction to the committed states, and
+	 * releases the locks of the transaction.
+	 * 
+	 * @param entries
+	 */
+	private void commit(Map<ActivityContextHandle, TransactionEntry> entries) {
+		ActivityContextHandle ach = null;
+		TransactionEntry entry = null;
+		for (Map.Entry<ActivityContextHandle, TransactionEntry> mapEntry : entries.entrySet()) {
+			ach = mapEntry.getKey();
+			entry = mapEntry.getValue();
+			try {
+				if (entry.state == null) {
+					stateCommitted(ach, states.remove(ach), null);
+				} else {
+					stateCommitted(ach, states.put(ach, entry.state), entry.state);
+				}
+			} finally {
+				unlock(ach, entry.lock);
+			}
+		}
+	}
+
+	/**
+	 * Discards the changes done by a transaction, and releases its locks.
+	 * 
+	 * @param entries
+	 */
+	private void rollback(Map<ActivityContextHandle, TransactionEntry> entries) {
+		for (Map.Entry<ActivityContextHandle, TransactionEntry> mapEntry : entries.entrySet()) {
+			unlock(mapEntry.getKey(), mapEntry.getValue().lock);
+		}
+	}
+
+}
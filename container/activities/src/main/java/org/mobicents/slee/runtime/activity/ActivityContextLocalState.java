@@ -0,0 +1,250 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.slee.facilities.TimerID;
+
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+
+/**
+ * The state of an activity context stored in the heap, used when the SLEE runs
+ * in local mode. The collections are copy on write, so a state copy is cheap
+ * and the collections returned by the getters are stable snapshots.
+ * 
+ * @author martins
+ * 
+ */
+final class ActivityContextLocalState {
+
+	private Map<Object, Object> objects;
+
+	private String stringID;
+
+	private boolean ending;
+
+	private Set<SbbEntityID> attachedSbbs;
+
+	private Set<TimerID> attachedTimers;
+
+	private Set<String> namesBound;
+
+	private Map<String, Object> cmpAttributes;
+
+	ActivityContextLocalState() {
+	}
+
+	private ActivityContextLocalState(ActivityContextLocalState other) {
+		this.objects = other.objects;
+		this.stringID = other.stringID;
+		this.ending = other.ending;
+		this.attachedSbbs = other.attachedSbbs;
+		this.attachedTimers = other.attachedTimers;
+		this.namesBound = other.namesBound;
+		this.cmpAttributes = other.cmpAttributes;
+	}
+
+	/**
+	 * Creates a shallow copy of this state, the collections are shared till
+	 * one of the states is changed.
+	 * 
+	 * @return
+	 */
+	ActivityContextLocalState copy() {
+		return new ActivityContextLocalState(this);
+	}
+
+	// --- objects
+
+	Object getObject(Object key) {
+		return objects != null ? objects.get(key) : null;
+	}
+
+	Object putObject(Object key, Object value) {
+		final Map<Object, Object> newObjects = objects != null ? new HashMap<Object, Object>(objects) : new HashMap<Object, Object>(4);
+		final Object oldValue = newObjects.put(key, value);
+		objects = newObjects;
+		return oldValue;
+	}
+
+	Object removeObject(Object key) {
+		if (objects == null || !objects.containsKey(key)) {
+			return null;
+		}
+		final Map<Object, Object> newObjects = new HashMap<Object, Object>(objects);
+		final Object oldValue = newObjects.remove(key);
+		objects = newObjects.isEmpty() ? null : newObjects;
+		return oldValue;
+	}
+
+	// --- string id
+
+	String getStringID() {
+		return stringID;
+	}
+
+	void setStringID(String stringID) {
+		this.stringID = stringID;
+	}
+
+	// --- ending
+
+	boolean isEnding() {
+		return ending;
+	}
+
+	void setEnding(boolean ending) {
+		this.ending = ending;
+	}
+
+	// --- sbb attachments
+
+	Set<SbbEntityID> getAttachedSbbs() {
+		return unmodifiable(attachedSbbs);
+	}
+
+	boolean attachSbbEntity(SbbEntityID sbbEntityID) {
+		final Set<SbbEntityID> newSet = add(attachedSbbs, sbbEntityID);
+		if (newSet == null) {
+			return false;
+		}
+		attachedSbbs = newSet;
+		return true;
+	}
+
+	boolean detachSbbEntity(SbbEntityID sbbEntityID) {
+		if (attachedSbbs == null || !attachedSbbs.contains(sbbEntityID)) {
+			return false;
+		}
+		attachedSbbs = remove(attachedSbbs, sbbEntityID);
+		return true;
+	}
+
+	// --- timer attachments
+
+	Set<TimerID> getAttachedTimers() {
+		return unmodifiable(attachedTimers);
+	}
+
+	boolean attachTimer(TimerID timerID) {
+		final Set<TimerID> newSet = add(attachedTimers, timerID);
+		if (newSet == null) {
+			return false;
+		}
+		attachedTimers = newSet;
+		return true;
+	}
+
+	boolean detachTimer(TimerID timerID) {
+		if (attachedTimers == null || !attachedTimers.contains(timerID)) {
+			return false;
+		}
+		attachedTimers = remove(attachedTimers, timerID);
+		return true;
+	}
+
+	// --- names bound
+
+	Set<String> getNamesBound() {
+		return unmodifiable(namesBound);
+	}
+
+	boolean nameBound(String name) {
+		final Set<String> newSet = add(namesBound, name);
+		if (newSet == null) {
+			return false;
+		}
+		namesBound = newSet;
+		return true;
+	}
+
+	boolean nameUnbound(String name) {
+		if (namesBound == null || !namesBound.contains(name)) {
+			return false;
+		}
+		namesBound = remove(namesBound, name);
+		return true;
+	}
+
+	// --- cmp attributes
+
+	Object getCmpAttribute(String attrName) {
+		return cmpAttributes != null ? cmpAttributes.get(attrName) : null;
+	}
+
+	void setCmpAttribute(String attrName, Object attrValue) {
+		final Map<String, Object> newCmpAttributes = cmpAttributes != null ? new HashMap<String, Object>(cmpAttributes) : new HashMap<String, Object>(4);
+		newCmpAttributes.put(attrName, attrValue);
+		cmpAttributes = newCmpAttributes;
+	}
+
+	Map<String, Object> getCmpAttributes() {
+		if (cmpAttributes == null) {
+			return Collections.emptyMap();
+		}
+		return Collections.unmodifiableMap(cmpAttributes);
+	}
+
+	// --- copy on write helpers
+
+	private static <T> Set<T> unmodifiable(Set<T> set) {
+		if (set == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(set);
+	}
+
+	/**
+	 * 
+	 * @param set
+	 * @param element
+	 * @return a copy of the set with the element added, null if the set
+	 *         already contains the element
+	 */
+	private static <T> Set<T> add(Set<T> set, T element) {
+		if (set == null) {
+			return Collections.singleton(element);
+		}
+		if (set.contains(element)) {
+			return null;
+		}
+		final Set<T> newSet = new LinkedHashSet<T>(set);
+		newSet.add(element);
+		return newSet;
+	}
+
+	private static <T> Set<T> remove(Set<T> set, T element) {
+		if (set.size() == 1) {
+			return null;
+		}
+		final Set<T> newSet = new LinkedHashSet<T>(set);
+		newSet.remove(element);
+		return newSet;
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import org.infinispan.tree.Fqn;
+import org.infinispan.tree.Node;
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.restcomm.cache.CacheData;
+import org.restcomm.cache.FqnWrapper;
+import org.restcomm.cluster.MobicentsCluster;
+
+/**
+ * 
+ * Proxy object for the index of activity context handles by string ID, data
+ * management through JBoss Cache
+ * 
+ * @author martins
+ * 
+ */
+@SuppressWarnings("rawtypes")
+public class ActivityContextStringIDIndexCacheData extends CacheData {
+
+	/**
+	 * the name of the cache node that holds all data
+	 */
+	public static final String CACHE_NODE_NAME = "ac-sid";
+
+	private static final Boolean CACHE_NODE_MAP_KEY = Boolean.TRUE;
+
+	/**
+	 * 
+	 * @param cluster
+	 */
+	public ActivityContextStringIDIndexCacheData(MobicentsCluster cluster) {
+		super(FqnWrapper.fromElementsWrapper(CACHE_NODE_NAME),
+				cluster.getMobicentsCache());
+	}
+
+	/**
+	 * Indexes the specified activity context handle by the specified string ID
+	 * 
+	 * @param sid
+	 * @param ach
+	 */
+	@SuppressWarnings("unchecked")
+	public void put(String sid, ActivityContextHandle ach) {
+		final Node node = getNode();
+		Node childNode = node.getChild(sid);
+		if (childNode == null) {
+			childNode = node.addChild(Fqn.fromElements(sid));
+		}
+		childNode.put(CACHE_NODE_MAP_KEY, ach);
+	}
+
+	/**
+	 * Removes the index entry for the specified string ID
+	 * 
+	 * @param sid
+	 * @return
+	 */
+	public boolean remove(String sid) {
+		return getNode().removeChild(sid);
+	}
+
+	/**
+	 * Lookup of the activity context handle indexed by the specified string ID
+	 * 
+	 * @param sid
+	 * @return
+	 */
+	public ActivityContextHandle get(String sid) {
+		final Node childNode = getNode().getChild(sid);
+		if (childNode == null) {
+			return null;
+		} else {
+			return (ActivityContextHandle) childNode.get(CACHE_NODE_MAP_KEY);
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.infinispan.tree.Fqn;
+import org.infinispan.tree.Node;
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.activity.ActivityType;
+import org.mobicents.slee.container.resource.ResourceAdaptorActivityContextHandle;
+import org.restcomm.cache.CacheData;
+import org.restcomm.cache.FqnWrapper;
+import org.restcomm.cluster.MobicentsCluster;
+
+/**
+ * 
+ * Proxy object for the index of activity context handles by activity type
+ * and by resource adaptor entity, data management through JBoss Cache. The
+ * index of a resource adaptor entity is removed once empty.
+ * 
+ * @author martins
+ * 
+ */
+@SuppressWarnings("rawtypes")
+public class ActivityContextTypeIndexCacheData extends CacheData {
+
+	/**
+	 * the name of the cache node that holds all data
+	 */
+	public static final String CACHE_NODE_NAME = "ac-type";
+
+	/**
+	 * the name of the child node that holds the indexes of ra entities, the
+	 * ones of activity types are named after these
+	 */
+	private static final String RA_ENTITIES_CHILD_NODE_NAME = "ra-entity";
+
+	private static final Fqn RA_ENTITIES_CHILD_NODE_FQN = Fqn.fromElements(RA_ENTITIES_CHILD_NODE_NAME);
+
+	private static final Boolean CACHE_NODE_MAP_VALUE = Boolean.TRUE;
+
+	/**
+	 * 
+	 * @param cluster
+	 */
+	public ActivityContextTypeIndexCacheData(MobicentsCluster cluster) {
+		super(FqnWrapper.fromElementsWrapper(CACHE_NODE_NAME),
+				cluster.getMobicentsCache());
+	}
+
+	private static Node getChild(Node node, String name, boolean createIfNotExists) {
+		Node childNode = node.getChild(name);
+		if (childNode == null && createIfNotExists) {
+			childNode = node.addChild(Fqn.fromElements(name));
+		}
+		return childNode;
+	}
+
+	private static String getResourceAdaptorEntityName(ActivityContextHandle ach) {
+		return ((ResourceAdaptorActivityContextHandle) ach).getResourceAdaptorEntity().getName();
+	}
+
+	/**
+	 * Indexes the specified activity context handle.
+	 * 
+	 * @param ach
+	 */
+	@SuppressWarnings("unchecked")
+	public void add(ActivityContextHandle ach) {
+		final Node node = getNode();
+		getChild(node, ach.getActivityType().name(), true).put(ach, CACHE_NODE_MAP_VALUE);
+		if (ach.getActivityType() == ActivityType.RA) {
+			Node raEntitiesNode = node.getChild(RA_ENTITIES_CHILD_NODE_NAME);
+			if (raEntitiesNode == null) {
+				raEntitiesNode = node.addChild(RA_ENTITIES_CHILD_NODE_FQN);
+			}
+			getChild(raEntitiesNode, getResourceAdaptorEntityName(ach), true).put(ach, CACHE_NODE_MAP_VALUE);
+		}
+	}
+
+	/**
+	 * Removes the index entries for the specified activity context handle.
+	 * 
+	 * @param ach
+	 */
+	@SuppressWarnings("unchecked")
+	public void remove(ActivityContextHandle ach) {
+		final Node node = getNode();
+		final Node typeNode = getChild(node, ach.getActivityType().name(), false);
+		if (typeNode != null) {
+			typeNode.remove(ach);
+		}
+		if (ach.getActivityType() == ActivityType.RA) {
+			final Node raEntitiesNode = node.getChild(RA_ENTITIES_CHILD_NODE_NAME);
+			if (raEntitiesNode != null) {
+				final String raEntityName = getResourceAdaptorEntityName(ach);
+				final Node raEntityNode = getChild(raEntitiesNode, raEntityName, false);
+				if (raEntityNode != null) {
+					raEntityNode.remove(ach);
+					if (raEntityNode.getKeys().isEmpty()) {
+						raEntitiesNode.removeChild(raEntityName);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the index entries for all activity context handles, which
+	 * string representation starts with the specified prefix.
+	 * 
+	 * @param prefix
+	 */
+	public void removeAll(String prefix) {
+		final Node node = getNode();
+		if (prefix.length() == 0) {
+			node.removeChildren();
+			return;
+		}
+		for (ActivityType activityType : ActivityType.values()) {
+			final Node typeNode = getChild(node, activityType.name(), false);
+			if (typeNode != null) {
+				for (Object ach : typeNode.getKeys().toArray()) {
+					if (ach.toString().startsWith(prefix)) {
+						remove((ActivityContextHandle) ach);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @param activityType
+	 * @return the number of activity context handles of the specified type
+	 */
+	public int getCount(ActivityType activityType) {
+		final Node typeNode = getChild(getNode(), activityType.name(), false);
+		return typeNode != null ? typeNode.getKeys().size() : 0;
+	}
+
+	/**
+	 * 
+	 * @param raEntityName
+	 * @return the activity context handles of the specified ra entity
+	 */
+	@SuppressWarnings("unchecked")
+	public Set<ActivityContextHandle> getResourceAdaptorEntityHandles(String raEntityName) {
+		final Node raEntitiesNode = getNode().getChild(RA_ENTITIES_CHILD_NODE_NAME);
+		if (raEntitiesNode != null) {
+			final Node raEntityNode = getChild(raEntitiesNode, raEntityName, false);
+			if (raEntityNode != null) {
+				return raEntityNode.getKeys();
+			}
+		}
+		return Collections.emptySet();
+	}
+
+}
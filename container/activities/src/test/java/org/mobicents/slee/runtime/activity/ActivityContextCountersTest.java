@@ -0,0 +1,387 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.slee.EventTypeID;
+import javax.slee.ServiceID;
+import javax.slee.facilities.AlarmFacility;
+import javax.slee.management.NotificationSource;
+import javax.slee.management.ResourceAdaptorEntityState;
+import javax.slee.management.ResourceUsageMBean;
+import javax.slee.resource.ActivityHandle;
+import javax.slee.resource.ConfigProperties;
+import javax.slee.resource.FireableEventType;
+import javax.slee.resource.Marshaler;
+import javax.slee.resource.ReceivableService;
+import javax.slee.resource.ResourceAdaptorID;
+import javax.slee.resource.ResourceAdaptorTypeID;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.activity.ActivityType;
+import org.mobicents.slee.container.component.ra.ResourceAdaptorComponent;
+import org.mobicents.slee.container.resource.ResourceAdaptorActivityContextHandle;
+import org.mobicents.slee.container.resource.ResourceAdaptorEntity;
+import org.mobicents.slee.container.resource.ResourceAdaptorObject;
+
+/**
+ * Tests the {@link ActivityContextCounters}.
+ * 
+ * @author martins
+ *
+ */
+public class ActivityContextCountersTest extends TestCase {
+
+	private ActivityContextCounters counters;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		counters = new ActivityContextCounters();
+	}
+
+	public void testCountPerActivityType() {
+		for (ActivityType activityType : ActivityType.values()) {
+			assertEquals(0, counters.getCount(activityType));
+		}
+		final ActivityContextHandle nullAch = new TestActivityContextHandle(ActivityType.NULL, "null");
+		final ActivityContextHandle serviceAch = new TestActivityContextHandle(ActivityType.SERVICE, "service");
+		final ActivityContextHandle profileTableAch1 = new TestActivityContextHandle(ActivityType.PTABLE, "ptable1");
+		final ActivityContextHandle profileTableAch2 = new TestActivityContextHandle(ActivityType.PTABLE, "ptable2");
+		final ActivityContextHandle raAch = new TestResourceAdaptorActivityContextHandle(new TestResourceAdaptorEntity("ra"), "ra");
+		counters.activityContextCreated(nullAch);
+		counters.activityContextCreated(serviceAch);
+		counters.activityContextCreated(profileTableAch1);
+		counters.activityContextCreated(profileTableAch2);
+		counters.activityContextCreated(raAch);
+		assertEquals(1, counters.getCount(ActivityType.NULL));
+		assertEquals(1, counters.getCount(ActivityType.SERVICE));
+		assertEquals(2, counters.getCount(ActivityType.PTABLE));
+		assertEquals(1, counters.getCount(ActivityType.RA));
+		assertEquals(5, counters.getCount());
+		counters.activityContextRemoved(profileTableAch1);
+		counters.activityContextRemoved(serviceAch);
+		assertEquals(1, counters.getCount(ActivityType.NULL));
+		assertEquals(0, counters.getCount(ActivityType.SERVICE));
+		assertEquals(1, counters.getCount(ActivityType.PTABLE));
+		assertEquals(1, counters.getCount(ActivityType.RA));
+		assertEquals(3, counters.getCount());
+		counters.clear();
+		assertEquals(0, counters.getCount());
+		assertEquals(0, counters.getResourceAdaptorEntityCount("ra"));
+	}
+
+	public void testResourceAdaptorEntityHandles() {
+		final TestResourceAdaptorEntity raEntity1 = new TestResourceAdaptorEntity("ra1");
+		final TestResourceAdaptorEntity raEntity2 = new TestResourceAdaptorEntity("ra2");
+		final ActivityContextHandle ach1 = new TestResourceAdaptorActivityContextHandle(raEntity1, "1");
+		final ActivityContextHandle ach2 = new TestResourceAdaptorActivityContextHandle(raEntity1, "2");
+		final ActivityContextHandle ach3 = new TestResourceAdaptorActivityContextHandle(raEntity2, "3");
+		assertTrue(counters.getResourceAdaptorEntityHandles("ra1").isEmpty());
+		counters.activityContextCreated(ach1);
+		counters.activityContextCreated(ach2);
+		counters.activityContextCreated(ach3);
+		counters.activityContextCreated(new TestActivityContextHandle(ActivityType.NULL, "null"));
+		assertEquals(2, counters.getResourceAdaptorEntityCount("ra1"));
+		assertEquals(1, counters.getResourceAdaptorEntityCount("ra2"));
+		final Set<ActivityContextHandle> handles = counters.getResourceAdaptorEntityHandles("ra1");
+		assertEquals(2, handles.size());
+		assertTrue(handles.contains(ach1));
+		assertTrue(handles.contains(ach2));
+		assertFalse(handles.contains(ach3));
+		try {
+			handles.remove(ach1);
+			fail("expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		counters.activityContextRemoved(ach1);
+		assertEquals(1, counters.getResourceAdaptorEntityCount("ra1"));
+		assertEquals(1, counters.getResourceAdaptorEntityCount("ra2"));
+		// the removal of an unknown handle does not change the sets
+		counters.activityContextRemoved(new TestResourceAdaptorActivityContextHandle(new TestResourceAdaptorEntity("ra3"), "4"));
+		assertEquals(0, counters.getResourceAdaptorEntityCount("ra3"));
+	}
+
+	public void testEmptyResourceAdaptorEntityHandlesRemoved() {
+		final TestResourceAdaptorEntity raEntity = new TestResourceAdaptorEntity("ra");
+		final ActivityContextHandle ach1 = new TestResourceAdaptorActivityContextHandle(raEntity, "1");
+		final ActivityContextHandle ach2 = new TestResourceAdaptorActivityContextHandle(raEntity, "2");
+		counters.activityContextCreated(ach1);
+		counters.activityContextCreated(ach2);
+		assertEquals(1, counters.getResourceAdaptorEntitiesCount());
+		counters.activityContextRemoved(ach1);
+		assertEquals(1, counters.getResourceAdaptorEntitiesCount());
+		counters.activityContextRemoved(ach2);
+		assertEquals(0, counters.getResourceAdaptorEntitiesCount());
+		assertTrue(counters.getResourceAdaptorEntityHandles("ra").isEmpty());
+		// a new activity of the entity creates a new set
+		counters.activityContextCreated(ach1);
+		assertEquals(1, counters.getResourceAdaptorEntitiesCount());
+		assertTrue(counters.getResourceAdaptorEntityHandles("ra").contains(ach1));
+	}
+
+	public void testConcurrentResourceAdaptorEntityUpdates() throws Exception {
+		final TestResourceAdaptorEntity raEntity = new TestResourceAdaptorEntity("ra");
+		final int threads = 4;
+		final int activities = 2000;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final CountDownLatch start = new CountDownLatch(1);
+			final List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (int i = 0; i < threads; i++) {
+				final int thread = i;
+				results.add(executor.submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						start.await();
+						// each activity is created and removed, the set
+						// of the entity keeps being emptied and recreated
+						for (int j = 0; j < activities; j++) {
+							final ActivityContextHandle ach = new TestResourceAdaptorActivityContextHandle(raEntity, thread + "-" + j);
+							counters.activityContextCreated(ach);
+							assertTrue(counters.getResourceAdaptorEntityHandles("ra").contains(ach));
+							counters.activityContextRemoved(ach);
+						}
+						// and the last ones are kept
+						counters.activityContextCreated(new TestResourceAdaptorActivityContextHandle(raEntity, thread + "-last"));
+						return null;
+					}
+				}));
+			}
+			start.countDown();
+			for (Future<Void> result : results) {
+				result.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(threads, counters.getResourceAdaptorEntityCount("ra"));
+		assertEquals(threads, counters.getCount(ActivityType.RA));
+		assertEquals(1, counters.getResourceAdaptorEntitiesCount());
+	}
+
+}
+
+/**
+ * A handle of an activity context of the specified type.
+ */
+class TestActivityContextHandle implements ActivityContextHandle {
+
+	private final ActivityType activityType;
+
+	private final String id;
+
+	TestActivityContextHandle(ActivityType activityType, String id) {
+		this.activityType = activityType;
+		this.id = id;
+	}
+
+	public ActivityHandle getActivityHandle() {
+		return null;
+	}
+
+	public Object getActivityObject() {
+		return null;
+	}
+
+	public ActivityType getActivityType() {
+		return activityType;
+	}
+
+	public void writeExternal(ObjectOutput out) throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int hashCode() {
+		return id.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null || obj.getClass() != getClass()) {
+			return false;
+		}
+		final TestActivityContextHandle other = (TestActivityContextHandle) obj;
+		return other.activityType == activityType && other.id.equals(id);
+	}
+
+	@Override
+	public String toString() {
+		return activityType + ":" + id;
+	}
+
+}
+
+/**
+ * A handle of an activity context of the specified ra entity.
+ */
+class TestResourceAdaptorActivityContextHandle extends TestActivityContextHandle implements ResourceAdaptorActivityContextHandle {
+
+	private final ResourceAdaptorEntity raEntity;
+
+	TestResourceAdaptorActivityContextHandle(ResourceAdaptorEntity raEntity, String id) {
+		super(ActivityType.RA, id);
+		this.raEntity = raEntity;
+	}
+
+	public ResourceAdaptorEntity getResourceAdaptorEntity() {
+		return raEntity;
+	}
+
+}
+
+/**
+ * A ra entity which only has a name.
+ */
+class TestResourceAdaptorEntity implements ResourceAdaptorEntity {
+
+	private final String name;
+
+	TestResourceAdaptorEntity(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void activate() {
+		throw new UnsupportedOperationException();
+	}
+
+	public void activityEnded(ActivityHandle handle, int activityFlags) {
+		throw new UnsupportedOperationException();
+	}
+
+	public void allActivitiesEnded() {
+		throw new UnsupportedOperationException();
+	}
+
+	public void deactivate() {
+		throw new UnsupportedOperationException();
+	}
+
+	public ActivityContextHandle getActivityContextHandle(ActivityHandle activityHandle) {
+		throw new UnsupportedOperationException();
+	}
+
+	public AlarmFacility getAlarmFacility() {
+		throw new UnsupportedOperationException();
+	}
+
+	public Set<EventTypeID> getAllowedEventTypes() {
+		throw new UnsupportedOperationException();
+	}
+
+	public ResourceAdaptorComponent getComponent() {
+		throw new UnsupportedOperationException();
+	}
+
+	public ConfigProperties getConfigurationProperties() {
+		throw new UnsupportedOperationException();
+	}
+
+	public FireableEventType getFireableEventType(EventTypeID eventTypeID) {
+		throw new UnsupportedOperationException();
+	}
+
+	public Marshaler getMarshaler() {
+		throw new UnsupportedOperationException();
+	}
+
+	public NotificationSource getNotificationSource() {
+		throw new UnsupportedOperationException();
+	}
+
+	public ReceivableService getReceivableService(ServiceID serviceID) {
+		throw new UnsupportedOperationException();
+	}
+
+	public ResourceAdaptorID getResourceAdaptorID() {
+		throw new UnsupportedOperationException();
+	}
+
+	public Object getResourceAdaptorInterface(ResourceAdaptorTypeID raType) {
+		throw new UnsupportedOperationException();
+	}
+
+	public ResourceAdaptorObject getResourceAdaptorObject() {
+		throw new UnsupportedOperationException();
+	}
+
+	public ResourceUsageMBean getResourceUsageMBean() {
+		throw new UnsupportedOperationException();
+	}
+
+	public ResourceAdaptorEntityState getState() {
+		throw new UnsupportedOperationException();
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	public void serviceActive(ServiceID serviceID) {
+		throw new UnsupportedOperationException();
+	}
+
+	public void serviceInactive(ServiceID serviceID) {
+		throw new UnsupportedOperationException();
+	}
+
+	public void serviceStopping(ServiceID serviceID) {
+		throw new UnsupportedOperationException();
+	}
+
+	public void sleeRunning() {
+		throw new UnsupportedOperationException();
+	}
+
+	public void sleeStopping() {
+		throw new UnsupportedOperationException();
+	}
+
+	public void updateConfigurationProperties(ConfigProperties properties) {
+		throw new UnsupportedOperationException();
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.runtime.facilities.nullactivity.NullActivityContextHandle;
+import org.mobicents.slee.runtime.facilities.nullactivity.NullActivityHandleImpl;
+
+public class ActivityContextIdleWheelTest extends TestCase {
+
+	private final ActivityContextHandle ach1 = new NullActivityContextHandle(new NullActivityHandleImpl("jUnitHandle1"));
+
+	private final ActivityContextHandle ach2 = new NullActivityContextHandle(new NullActivityHandleImpl("jUnitHandle2"));
+
+	public void testRemoveExpired() {
+		final ActivityContextIdleWheel wheel = new ActivityContextIdleWheel(1000);
+		wheel.accessed(ach1, 1500);
+		wheel.accessed(ach2, 3500);
+		assertEquals(2, wheel.size());
+		// bucket of ach1 not fully expired yet
+		assertTrue(wheel.removeExpired(1999).isEmpty());
+		List<ActivityContextHandle> expired = wheel.removeExpired(2000);
+		assertEquals(1, expired.size());
+		assertEquals(ach1, expired.get(0));
+		assertFalse(wheel.contains(ach1));
+		assertTrue(wheel.contains(ach2));
+		assertTrue(wheel.removeExpired(2000).isEmpty());
+	}
+
+	public void testAccessMovesHandle() {
+		final ActivityContextIdleWheel wheel = new ActivityContextIdleWheel(1000);
+		wheel.accessed(ach1, 1500);
+		wheel.accessed(ach1, 5500);
+		assertEquals(1, wheel.size());
+		assertTrue(wheel.removeExpired(5000).isEmpty());
+		assertEquals(1, wheel.removeExpired(6000).size());
+		assertEquals(0, wheel.size());
+	}
+
+	public void testRemoved() {
+		final ActivityContextIdleWheel wheel = new ActivityContextIdleWheel(1000);
+		wheel.accessed(ach1, 1500);
+		wheel.removed(ach1);
+		assertFalse(wheel.contains(ach1));
+		assertTrue(wheel.removeExpired(10000).isEmpty());
+	}
+
+	public void testConcurrentAccessAndRemoveExpired() throws Exception {
+		final ActivityContextIdleWheel wheel = new ActivityContextIdleWheel(10);
+		final ActivityContextHandle[] handles = new ActivityContextHandle[64];
+		for (int i = 0; i < handles.length; i++) {
+			handles[i] = new NullActivityContextHandle(new NullActivityHandleImpl("jUnitHandle" + i));
+		}
+		final int accesses = 50000;
+		final Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final int seed = i;
+			threads[i] = new Thread() {
+				public void run() {
+					final Random random = new Random(seed);
+					for (int j = 0; j < accesses; j++) {
+						// access times spread over expired and live buckets
+						wheel.accessed(handles[random.nextInt(handles.length)], random.nextInt(1000));
+					}
+				}
+			};
+			threads[i].start();
+		}
+		boolean running = true;
+		while (running) {
+			for (long time = 0; time <= 1000; time += 10) {
+				wheel.removeExpired(time);
+			}
+			running = false;
+			for (Thread thread : threads) {
+				if (thread.isAlive()) {
+					running = true;
+				}
+			}
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		// every handle still tracked must be in the bucket of its time
+		final int size = wheel.size();
+		assertEquals(size, wheel.removeExpired(Long.MAX_VALUE).size());
+		assertEquals(0, wheel.size());
+	}
+
+}
@@ -0,0 +1,237 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.activity;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.slee.resource.ActivityHandle;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.activity.ActivityType;
+import org.mobicents.slee.container.event.EventContext;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
+
+/**
+ * Tests the scans of {@link ActivityContextLivenessScanner}.
+ * 
+ * @author martins
+ *
+ */
+public class ActivityContextLivenessScannerTest extends TestCase {
+
+	private final ActivityContextHandle ach1 = new TestRAActivityContextHandle("1");
+
+	private final ActivityContextHandle ach2 = new TestRAActivityContextHandle("2");
+
+	private TestFactory factory;
+
+	private ActivityContextLivenessScanner scanner;
+
+	@Override
+	protected void setUp() throws Exception {
+		factory = new TestFactory();
+		scanner = factory.getLivenessScanner();
+	}
+
+	public void testClusteredScanReconcilesOnlyWhenRequested() {
+		factory.localMode = false;
+		factory.handles.add(ach1);
+		scanner.scan();
+		assertEquals(1, factory.allHandlesRetrievals);
+		assertEquals(1, scanner.getTrackedActivities());
+		// an activity created by other node is not listed by every scan
+		factory.handles.add(ach2);
+		scanner.scan();
+		scanner.scan();
+		assertEquals(1, factory.allHandlesRetrievals);
+		assertEquals(1, scanner.getTrackedActivities());
+		// a failover requests the reconcile
+		scanner.reconcile();
+		scanner.scan();
+		assertEquals(2, factory.allHandlesRetrievals);
+		assertEquals(2, scanner.getTrackedActivities());
+	}
+
+	public void testLocalScanReconcilesOnlyWhenRequested() {
+		factory.handles.add(ach1);
+		scanner.scan();
+		scanner.scan();
+		assertEquals(1, factory.allHandlesRetrievals);
+		assertEquals(1, scanner.getTrackedActivities());
+	}
+
+	public void testActivityContextsLoadedByChecksOnly() {
+		scanner.accessed(ach1, 0L);
+		scanner.accessed(ach2, 0L);
+		scanner.scan();
+		// the scan only shards the expired activities by executor
+		assertEquals(0, factory.activityContextRetrievals);
+		assertEquals(1, factory.executor.tasks.size());
+		assertEquals(2, scanner.getPendingChecks());
+		assertEquals(0, scanner.getTrackedActivities());
+		factory.executor.runAll();
+		assertEquals(2, factory.activityContextRetrievals);
+		assertEquals(2, scanner.getChecks());
+		assertEquals(0, scanner.getPendingChecks());
+		assertEquals(0L, scanner.getQueries());
+	}
+
+	public void testRemovedActivityNotChecked() {
+		scanner.accessed(ach1, 0L);
+		scanner.removed(ach1);
+		scanner.scan();
+		assertTrue(factory.executor.tasks.isEmpty());
+		assertEquals(0, scanner.getLastScanExpired());
+	}
+
+	/**
+	 * A factory with the activity context handles of {@link #handles}, which
+	 * activity contexts are gone, and a single executor.
+	 */
+	private static class TestFactory extends ActivityContextFactoryImpl {
+
+		final Set<ActivityContextHandle> handles = new HashSet<ActivityContextHandle>();
+
+		final QueueExecutor executor = new QueueExecutor();
+
+		boolean localMode = true;
+
+		int allHandlesRetrievals;
+
+		int activityContextRetrievals;
+
+		TestFactory() {
+			super(new ActivityManagementConfiguration());
+		}
+
+		@Override
+		public boolean isLocalMode() {
+			return localMode;
+		}
+
+		@Override
+		public Set<ActivityContextHandle> getAllActivityContextsHandles() {
+			allHandlesRetrievals++;
+			return Collections.unmodifiableSet(new HashSet<ActivityContextHandle>(handles));
+		}
+
+		@Override
+		public ActivityContextImpl getActivityContext(ActivityContextHandle ach) {
+			activityContextRetrievals++;
+			return null;
+		}
+
+		@Override
+		EventRouterExecutor getEventRouterExecutor(ActivityContextHandle ach) {
+			return executor;
+		}
+
+	}
+
+	private static class QueueExecutor implements EventRouterExecutor {
+
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+
+		void runAll() {
+			for (Runnable task : tasks) {
+				task.run();
+			}
+			tasks.clear();
+		}
+
+		public void activityMapped(ActivityContextHandle ach) {
+		}
+
+		public void activityUnmapped(ActivityContextHandle ach) {
+		}
+
+		public void execute(Runnable task) {
+			tasks.add(task);
+		}
+
+		public void executeNow(Runnable task) {
+			execute(task);
+		}
+
+		public EventRouterExecutorStatistics getStatistics() {
+			return null;
+		}
+
+		public void routeEvent(EventContext event) {
+		}
+
+		public void shutdown() {
+		}
+	}
+
+	private static class TestRAActivityContextHandle implements ActivityContextHandle {
+
+		private final String id;
+
+		TestRAActivityContextHandle(String id) {
+			this.id = id;
+		}
+
+		public ActivityHandle getActivityHandle() {
+			return null;
+		}
+
+		public Object getActivityObject() {
+			return null;
+		}
+
+		public ActivityType getActivityType() {
+			return ActivityType.RA;
+		}
+
+		public void writeExternal(ObjectOutput out) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int hashCode() {
+			return id.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof TestRAActivityContextHandle && ((TestRAActivityContextHandle) obj).id.equals(id);
+		}
+
+	}
+
+}
@@ -0,0 +1,448 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.mobicents.slee.runtime.activity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.slee.SLEEException;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.activity.ActivityType;
+import org.mobicents.slee.container.eventrouter.EventRoutingTransactionData;
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+import org.mobicents.slee.container.transaction.TransactionContext;
+import org.mobicents.slee.container.transaction.TransactionalAction;
+import org.mobicents.slee.runtime.facilities.nullactivity.NullActivityContextHandle;
+import org.mobicents.slee.runtime.facilities.nullactivity.NullActivityHandleImpl;
+
+public class ActivityContextLocalDataStoreTest extends TestCase {
+
+	private final ActivityContextHandle ach = new NullActivityContextHandle(new NullActivityHandleImpl("jUnitHandle"));
+
+	private FakeLocalDataStore store;
+
+	private ExecutorService otherThread;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		store = new FakeLocalDataStore(ActivityContextLocalDataStore.DEFAULT_LOCK_TIMEOUT);
+		otherThread = Executors.newSingleThreadExecutor();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		otherThread.shutdownNow();
+		super.tearDown();
+	}
+
+	public void testCreateCommit() {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		final FakeTransactionContext tx = store.begin();
+		assertTrue(data.create());
+		assertFalse(data.create());
+		data.nameBound("name");
+		assertTrue(data.exists());
+		assertTrue(store.getActivityContextHandles().isEmpty());
+		store.suspend();
+		// not visible out of the tx before commit
+		assertFalse(data.exists());
+		tx.commit();
+		assertTrue(data.exists());
+		assertTrue(data.getNamesBoundCopy().contains("name"));
+		assertTrue(store.getActivityContextHandles().contains(ach));
+	}
+
+	public void testRollback() {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		assertTrue(data.create());
+		final FakeTransactionContext tx = store.begin();
+		data.setCmpAttribute("attr", "value");
+		assertTrue(data.setEnding(true));
+		assertTrue(data.isEnding());
+		assertEquals("value", data.getCmpAttribute("attr"));
+		store.suspend();
+		tx.rollback();
+		// the tx changes are discarded, and the lock released
+		assertFalse(data.isEnding());
+		assertNull(data.getCmpAttribute("attr"));
+		assertTrue(data.setEnding(true));
+	}
+
+	public void testRemove() {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		assertTrue(data.create());
+		final FakeTransactionContext tx = store.begin();
+		assertTrue(data.remove());
+		assertFalse(data.exists());
+		assertFalse(data.remove());
+		store.suspend();
+		assertTrue(data.exists());
+		tx.commit();
+		assertFalse(data.exists());
+	}
+
+	public void testConcurrentTransactionsEndingSameActivityContext() throws Exception {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		assertTrue(data.create());
+		final FakeTransactionContext tx1 = store.begin();
+		assertTrue(data.setEnding(true));
+		final Future<Boolean> tx2Result = inOtherTransaction(new Callable<Boolean>() {
+			public Boolean call() throws Exception {
+				return data.setEnding(true);
+			}
+		});
+		// tx2 waits for the lock held by tx1
+		assertBlocked(tx2Result);
+		store.suspend();
+		tx1.commit();
+		// only one tx ends the activity context
+		assertFalse(tx2Result.get(5, TimeUnit.SECONDS));
+		assertTrue(data.isEnding());
+	}
+
+	public void testConcurrentCreateOfSameActivityContext() throws Exception {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		final FakeTransactionContext tx1 = store.begin();
+		assertTrue(data.create());
+		data.nameBound("name1");
+		final Future<Boolean> tx2Result = inOtherTransaction(new Callable<Boolean>() {
+			public Boolean call() throws Exception {
+				return data.create();
+			}
+		});
+		assertBlocked(tx2Result);
+		store.suspend();
+		tx1.commit();
+		assertFalse(tx2Result.get(5, TimeUnit.SECONDS));
+		// the state created by tx1 was not overwritten
+		assertTrue(data.getNamesBoundCopy().contains("name1"));
+	}
+
+	public void testConcurrentChangesSerialized() throws Exception {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		assertTrue(data.create());
+		final FakeTransactionContext tx1 = store.begin();
+		data.nameBound("name1");
+		final Future<Boolean> tx2Result = inOtherTransaction(new Callable<Boolean>() {
+			public Boolean call() throws Exception {
+				data.nameBound("name2");
+				// the tx copied the state committed by tx1
+				return data.getNamesBoundCopy().contains("name1");
+			}
+		});
+		assertBlocked(tx2Result);
+		store.suspend();
+		tx1.commit();
+		assertTrue(tx2Result.get(5, TimeUnit.SECONDS));
+		assertTrue(data.getNamesBoundCopy().contains("name1"));
+		assertTrue(data.getNamesBoundCopy().contains("name2"));
+		assertEquals(2, data.getNamesBoundCopy().size());
+	}
+
+	public void testChangesAfterConcurrentRemoveAreDiscarded() throws Exception {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		assertTrue(data.create());
+		final FakeTransactionContext tx1 = store.begin();
+		assertTrue(data.remove());
+		final Future<Boolean> tx2Result = inOtherTransaction(new Callable<Boolean>() {
+			public Boolean call() throws Exception {
+				data.nameBound("name");
+				return data.exists();
+			}
+		});
+		assertBlocked(tx2Result);
+		store.suspend();
+		tx1.commit();
+		assertFalse(tx2Result.get(5, TimeUnit.SECONDS));
+		assertFalse(data.exists());
+	}
+
+	public void testLockTimeout() throws Exception {
+		store = new FakeLocalDataStore(100);
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		assertTrue(data.create());
+		store.begin();
+		assertTrue(data.setEnding(true));
+		final Future<Boolean> tx2Result = inOtherTransaction(new Callable<Boolean>() {
+			public Boolean call() throws Exception {
+				return data.setEnding(true);
+			}
+		});
+		try {
+			tx2Result.get(5, TimeUnit.SECONDS);
+			fail("expected SLEEException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof SLEEException);
+		}
+	}
+
+	public void testReturnedSetsAreSnapshots() {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		assertTrue(data.create());
+		data.nameBound("name1");
+		data.nameBound("name2");
+		store.begin();
+		int count = 0;
+		for (Object name : data.getNamesBoundCopy()) {
+			assertTrue(data.nameUnbound((String) name));
+			count++;
+		}
+		assertEquals(2, count);
+		assertTrue(data.noNamesBound());
+	}
+
+	public void testStringIDIndex() {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		FakeTransactionContext tx = store.begin();
+		assertTrue(data.create());
+		data.setStringID("sid");
+		// visible in the tx before commit
+		assertEquals(ach, store.getActivityContextHandle("sid"));
+		store.suspend();
+		assertNull(store.getActivityContextHandle("sid"));
+		tx.commit();
+		assertEquals(ach, store.getActivityContextHandle("sid"));
+		// removal in a tx hides the index entry to the tx, and removes it on commit
+		tx = store.begin();
+		assertTrue(data.remove());
+		assertNull(store.getActivityContextHandle("sid"));
+		store.suspend();
+		assertEquals(ach, store.getActivityContextHandle("sid"));
+		tx.commit();
+		assertNull(store.getActivityContextHandle("sid"));
+	}
+
+	public void testCounters() {
+		final ActivityContextLocalData data = new ActivityContextLocalData(ach, store);
+		final ActivityContextCounters counters = store.getCounters();
+		FakeTransactionContext tx = store.begin();
+		assertTrue(data.create());
+		store.suspend();
+		assertEquals(0, counters.getCount(ActivityType.NULL));
+		tx.commit();
+		assertEquals(1, counters.getCount(ActivityType.NULL));
+		assertEquals(0, counters.getCount(ActivityType.RA));
+		assertEquals(1, counters.getCount());
+		tx = store.begin();
+		assertTrue(data.remove());
+		store.suspend();
+		tx.commit();
+		assertEquals(0, counters.getCount());
+	}
+
+	public void testCountersOfEachActivityType() {
+		final TestResourceAdaptorEntity raEntity = new TestResourceAdaptorEntity("ra");
+		final ActivityContextHandle raAch1 = new TestResourceAdaptorActivityContextHandle(raEntity, "ra1");
+		final ActivityContextHandle raAch2 = new TestResourceAdaptorActivityContextHandle(raEntity, "ra2");
+		final ActivityContextHandle serviceAch = new TestActivityContextHandle(ActivityType.SERVICE, "service");
+		final ActivityContextHandle profileTableAch = new TestActivityContextHandle(ActivityType.PTABLE, "ptable");
+		final ActivityContextCounters counters = store.getCounters();
+		FakeTransactionContext tx = store.begin();
+		for (ActivityContextHandle ach : new ActivityContextHandle[] { this.ach, raAch1, raAch2, serviceAch, profileTableAch }) {
+			assertTrue(new ActivityContextLocalData(ach, store).create());
+		}
+		store.suspend();
+		assertEquals(0, counters.getCount());
+		assertTrue(counters.getResourceAdaptorEntityHandles("ra").isEmpty());
+		tx.commit();
+		assertEquals(1, counters.getCount(ActivityType.NULL));
+		assertEquals(2, counters.getCount(ActivityType.RA));
+		assertEquals(1, counters.getCount(ActivityType.SERVICE));
+		assertEquals(1, counters.getCount(ActivityType.PTABLE));
+		assertEquals(5, counters.getCount());
+		assertEquals(2, counters.getResourceAdaptorEntityCount("ra"));
+		assertTrue(counters.getResourceAdaptorEntityHandles("ra").contains(raAch1));
+		assertTrue(counters.getResourceAdaptorEntityHandles("ra").contains(raAch2));
+		// a rolled back removal does not change the counters
+		tx = store.begin();
+		assertTrue(new ActivityContextLocalData(raAch1, store).remove());
+		store.suspend();
+		tx.rollback();
+		assertEquals(2, counters.getResourceAdaptorEntityCount("ra"));
+		// the set of the ra entity is removed with its last activity context
+		tx = store.begin();
+		assertTrue(new ActivityContextLocalData(raAch1, store).remove());
+		assertTrue(new ActivityContextLocalData(serviceAch, store).remove());
+		store.suspend();
+		tx.commit();
+		assertEquals(1, counters.getCount(ActivityType.RA));
+		assertEquals(0, counters.getCount(ActivityType.SERVICE));
+		assertEquals(1, counters.getResourceAdaptorEntityCount("ra"));
+		tx = store.begin();
+		assertTrue(new ActivityContextLocalData(raAch2, store).remove());
+		store.suspend();
+		tx.commit();
+		assertEquals(0, counters.getCount(ActivityType.RA));
+		assertEquals(0, counters.getResourceAdaptorEntitiesCount());
+		assertEquals(2, counters.getCount());
+		// removal of all by type prefix
+		store.removeAll("");
+		assertEquals(0, counters.getCount());
+	}
+
+	/**
+	 * Runs the specified task in a new tx of another thread, which is
+	 * committed if the task succeeds.
+	 */
+	private <T> Future<T> inOtherTransaction(final Callable<T> task) {
+		return otherThread.submit(new Callable<T>() {
+			public T call() throws Exception {
+				final FakeTransactionContext tx = store.begin();
+				boolean committed = false;
+				try {
+					final T result = task.call();
+					store.suspend();
+					tx.commit();
+					committed = true;
+					return result;
+				} finally {
+					if (!committed) {
+						store.suspend();
+						tx.rollback();
+					}
+				}
+			}
+		});
+	}
+
+	private void assertBlocked(Future<?> future) throws Exception {
+		try {
+			future.get(200, TimeUnit.MILLISECONDS);
+			fail("expected the task to wait for the activity context lock");
+		} catch (TimeoutException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * A store which transactions are managed by the test, per thread.
+	 */
+	private static class FakeLocalDataStore extends ActivityContextLocalDataStore {
+
+		private final ThreadLocal<FakeTransactionContext> txContext = new ThreadLocal<FakeTransactionContext>();
+
+		FakeLocalDataStore(long lockTimeout) {
+			super(null, lockTimeout);
+		}
+
+		@Override
+		TransactionContext getTransactionContext() {
+			return txContext.get();
+		}
+
+		FakeTransactionContext begin() {
+			final FakeTransactionContext tx = new FakeTransactionContext();
+			txContext.set(tx);
+			return tx;
+		}
+
+		void suspend() {
+			txContext.remove();
+		}
+
+	}
+
+	private static class FakeTransactionContext implements TransactionContext {
+
+		@SuppressWarnings("rawtypes")
+		private final Map data = new HashMap();
+
+		private final List<TransactionalAction> afterCommitPriorityActions = new ArrayList<TransactionalAction>();
+
+		private final List<TransactionalAction> afterRollbackActions = new ArrayList<TransactionalAction>();
+
+		void commit() {
+			for (TransactionalAction action : afterCommitPriorityActions) {
+				action.execute();
+			}
+		}
+
+		void rollback() {
+			for (TransactionalAction action : afterRollbackActions) {
+				action.execute();
+			}
+		}
+
+		public List<TransactionalAction> getAfterCommitActions() {
+			return null;
+		}
+
+		public List<TransactionalAction> getAfterCommitPriorityActions() {
+			return afterCommitPriorityActions;
+		}
+
+		public List<TransactionalAction> getAfterCommitCompletedActions() {
+			return null;
+		}
+
+		public List<TransactionalAction> getAfterRollbackActions() {
+			return afterRollbackActions;
+		}
+
+		public List<TransactionalAction> getBeforeCommitActions() {
+			return null;
+		}
+
+		public List<TransactionalAction> getBeforeCommitPriorityActions() {
+			return null;
+		}
+
+		@SuppressWarnings("rawtypes")
+		public Map getData() {
+			return data;
+		}
+
+		public EventRoutingTransactionData getEventRoutingTransactionData() {
+			return null;
+		}
+
+		public void setEventRoutingTransactionData(EventRoutingTransactionData eventRoutingTransactionData) {
+		}
+
+		public Set<SbbEntityID> getInvokedNonReentrantSbbEntities() {
+			return null;
+		}
+
+		public boolean isSbbEntityLockWaitAllowed() {
+			return true;
+		}
+
+		public void setSbbEntityLockWaitAllowed(boolean sbbEntityLockWaitAllowed) {
+		}
+
+	}
+
+}
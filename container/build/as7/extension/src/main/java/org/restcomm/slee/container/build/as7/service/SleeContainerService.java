@@ -18,7 +18,6 @@ import org.jboss.vfs.TempFileProvider;
 import org.jboss.vfs.VFS;
 import org.jboss.vfs.VFSUtils;
 import org.jboss.vfs.VirtualFile;
-import org.mobicents.slee.connector.local.SleeConnectionService;
 import org.mobicents.slee.connector.local.SleeConnectionServiceImpl;
 import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.activity.ActivityContextFactory;
@@ -45,8 +44,6 @@ import org.mobicents.slee.container.management.*;
 import org.mobicents.slee.container.management.jmx.*;
 import org.mobicents.slee.container.remote.RmiServerInterfaceImpl;
 import org.mobicents.slee.container.rmi.RmiServerInterface;
-import org.mobicents.slee.container.sbbentity.SbbEntityFactory;
-import org.mobicents.slee.container.transaction.SleeTransactionManager;
 import org.mobicents.slee.runtime.activity.ActivityContextFactoryImpl;
 import org.mobicents.slee.runtime.activity.ActivityManagementConfiguration;
 import org.mobicents.slee.runtime.eventrouter.EventRouterImpl;
@@ -55,6 +52,7 @@ import org.mobicents.slee.runtime.facilities.TimerFacilityImpl;
 import org.mobicents.slee.runtime.facilities.nullactivity.NullActivityContextInterfaceFactoryImpl;
 import org.mobicents.slee.runtime.facilities.nullactivity.NullActivityFactoryImpl;
 import org.mobicents.slee.runtime.sbbentity.SbbEntityFactoryImpl;
+import org.mobicents.slee.runtime.transaction.LocalSleeTransactionManagerImpl;
 import org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl;
 import org.restcomm.cache.MobicentsCache;
 import org.restcomm.cluster.DefaultMobicentsCluster;
@@ -177,9 +175,30 @@ public class SleeContainerService implements Service<SleeContainer> {
 					getTransactionManager().getValue(),
 					elector);
 
-		// init the tx manager
-		final SleeTransactionManager sleeTransactionManager = new SleeTransactionManagerImpl(
-				getTransactionManager().getValue());
+		// init the tx manager, local transactions are only possible without replication
+		final TransactionManagerConfiguration transactionManagerConfiguration = new TransactionManagerConfiguration();
+		transactionManagerConfiguration.setLocalTransactions(
+				getPropertyBoolean("SleeTransactionManager", "localTransactions", false));
+		transactionManagerConfiguration.setAsyncExecutionStrategy(
+				getPropertyString("SleeTransactionManager", "asyncExecutionStrategy", "BOUNDED"));
+		transactionManagerConfiguration.setAsyncExecutorThreads(
+				getPropertyInt("SleeTransactionManager", "asyncExecutorThreads", 16));
+		transactionManagerConfiguration.setAsyncExecutorQueueSize(
+				getPropertyInt("SleeTransactionManager", "asyncExecutorQueueSize", 1000));
+		final SleeTransactionManagerImpl sleeTransactionManager;
+		if (transactionManagerConfiguration.isLocalTransactions()) {
+			if (cache.isLocalMode()) {
+				sleeTransactionManager = new LocalSleeTransactionManagerImpl(
+						getTransactionManager().getValue(), transactionManagerConfiguration);
+			} else {
+				log.warn("Local transactions are not supported with a clustered cache, ignoring configuration");
+				sleeTransactionManager = new SleeTransactionManagerImpl(
+						getTransactionManager().getValue(), transactionManagerConfiguration);
+			}
+		} else {
+			sleeTransactionManager = new SleeTransactionManagerImpl(
+					getTransactionManager().getValue(), transactionManagerConfiguration);
+		}
 
 		final TraceMBeanImpl traceMBean = new TraceMBeanImpl();
 		
@@ -190,6 +209,8 @@ public class SleeContainerService implements Service<SleeContainer> {
 				getPropertyInt("MobicentsManagement", "entitiesRemovalDelay", 1));
 		mobicentsManagement.setInitializeReferenceDataTypesWithNull(
 				getPropertyBoolean("MobicentsManagement", "initializeReferenceDataTypesWithNull", true));
+		mobicentsManagement.setCompactCMPFieldStorage(
+				getPropertyBoolean("MobicentsManagement", "compactCMPFieldStorage", false));
 
 		final SbbManagement sbbManagement = new SbbManagementImpl();
 
@@ -235,6 +256,14 @@ public class SleeContainerService implements Service<SleeContainer> {
 
         ProfileManagement profileManagement = null;
         if (profileConfiguration != null) {
+            profileConfiguration.setProfileCacheSize(
+                    getPropertyInt("ProfileManagement", "profileCacheSize", 0));
+            profileConfiguration.setProfileCacheTimeToLive(
+                    getPropertyInt("ProfileManagement", "profileCacheTimeToLive", 0));
+            profileConfiguration.setProfileAttributeIndexMaxSize(
+                    getPropertyInt("ProfileManagement", "profileAttributeIndexMaxSize", 0));
+            profileConfiguration.setJdbcBatchSize(
+                    getPropertyInt("ProfileManagement", "jdbcBatchSize", 0));
             profileManagement = new ProfileManagementImpl(profileConfiguration);
         } else {
             log.error("Profile configuration is not configured properly.");
@@ -247,6 +276,12 @@ public class SleeContainerService implements Service<SleeContainer> {
 				getPropertyBoolean("EventRouterConfiguration", "collectStats", true));
 		eventRouterConfiguration.setConfirmSbbEntityAttachement(
 				getPropertyBoolean("EventRouterConfiguration", "confirmSbbEntityAttachement", true));
+		eventRouterConfiguration.setBatchSbbDeliveries(
+				getPropertyBoolean("EventRouterConfiguration", "batchSbbDeliveries", false));
+		eventRouterConfiguration.setExecutorQueueSize(
+				getPropertyInt("EventRouterConfiguration", "executorQueueSize", 0));
+		eventRouterConfiguration.setExecutorWaitStrategy(
+				getPropertyString("EventRouterConfiguration", "executorWaitStrategy", "BLOCKING"));
 		try {
 			eventRouterConfiguration.setExecutorMapperClassName(
 					getPropertyString("EventRouterConfiguration", "executorMapperClassName",
@@ -258,10 +293,14 @@ public class SleeContainerService implements Service<SleeContainer> {
 
 
 		final TimerFacilityConfiguration timerFacilityConfiguration = new TimerFacilityConfiguration();
-		timerFacilityConfiguration.setTimerThreads(4);
-		timerFacilityConfiguration.setPurgePeriod(0);
-		timerFacilityConfiguration
-				.setTaskExecutionWaitsForTxCommitConfirmation(true);
+		timerFacilityConfiguration.setTimerThreads(
+				getPropertyInt("TimerFacilityConfiguration", "timerThreads", 4));
+		timerFacilityConfiguration.setPurgePeriod(
+				getPropertyInt("TimerFacilityConfiguration", "purgePeriod", 0));
+		timerFacilityConfiguration.setTaskExecutionWaitsForTxCommitConfirmation(
+				getPropertyBoolean("TimerFacilityConfiguration", "taskExecutionWaitsForTxCommitConfirmation", true));
+		timerFacilityConfiguration.setTimingWheel(
+				getPropertyBoolean("TimerFacilityConfiguration", "timingWheel", false));
 		final TimerFacility timerFacility = new TimerFacilityImpl(
 				timerFacilityConfiguration);
 
@@ -279,7 +318,13 @@ public class SleeContainerService implements Service<SleeContainer> {
 		final ActivityContextNamingFacility activityContextNamingFacility = new ActivityContextNamingFacilityImpl();
 
 		// TODO SLEE Connection Factory + RMI stuff
-		final SleeConnectionService sleeConnectionService = new SleeConnectionServiceImpl();
+		final SleeConnectionServiceImpl sleeConnectionService = new SleeConnectionServiceImpl();
+		sleeConnectionService.setEventBatchWindow(
+				getPropertyInt("SleeConnectionService", "eventBatchWindow", 2));
+		sleeConnectionService.setEventBatchMaxSize(
+				getPropertyInt("SleeConnectionService", "eventBatchMaxSize", 256));
+		sleeConnectionService.setEventQueueMaxSize(
+				getPropertyInt("SleeConnectionService", "eventQueueMaxSize", 65536));
         final RmiServerInterface rmiServerInterface = new RmiServerInterfaceImpl();
 		rmiServerInterface.setAddress(
 				getPropertyString("RmiServerInterface", "rmiAddress", "127.0.0.1"));
@@ -287,12 +332,19 @@ public class SleeContainerService implements Service<SleeContainer> {
 
 		final UsageParametersManagement usageParametersManagement = new UsageParametersManagementImpl();
 
-		final SbbEntityFactory sbbEntityFactory = new SbbEntityFactoryImpl();
+		final SbbEntityFactoryImpl sbbEntityFactory = new SbbEntityFactoryImpl(
+				getPropertyInt("MobicentsManagement", "sbbEntityLockStripes", 0));
 
 		final EventContextFactoryDataSource eventContextFactoryDataSource = new DefaultEventContextFactoryDataSource();
 		final EventContextFactoryConfiguration eventContextFactoryConfiguration = new EventContextFactoryConfiguration();
 		eventContextFactoryConfiguration.setDefaultEventContextSuspensionTimeout(
 				getPropertyInt("EventContextFactoryConfiguration", "defaultEventContextSuspensionTimeout", 10000));
+		eventContextFactoryConfiguration.setEventContextPooling(
+				getPropertyBoolean("EventContextFactoryConfiguration", "eventContextPooling", false));
+		eventContextFactoryConfiguration.setEventContextPoolSize(
+				getPropertyInt("EventContextFactoryConfiguration", "eventContextPoolSize", 1024));
+		eventContextFactoryConfiguration.setEventContextPoolDebug(
+				getPropertyBoolean("EventContextFactoryConfiguration", "eventContextPoolDebug", false));
 		final EventContextFactory eventContextFactory = new EventContextFactoryImpl(
 				eventContextFactoryDataSource, eventContextFactoryConfiguration);
 
@@ -336,6 +388,9 @@ public class SleeContainerService implements Service<SleeContainer> {
 		registerMBean(eventRouterConfiguration, EventRouterConfigurationMBean.OBJECT_NAME);		
 		registerMBean(new EventRouterStatistics(eventRouter), EventRouterStatisticsMBean.OBJECT_NAME);
 		registerMBean(timerFacilityConfiguration, TimerFacilityConfigurationMBean.OBJECT_NAME);
+		registerMBean(transactionManagerConfiguration, TransactionManagerConfigurationMBean.OBJECT_NAME);
+		registerMBean(new TransactionManagerStatistics(sleeTransactionManager), TransactionManagerStatisticsMBean.OBJECT_NAME);
+		registerMBean(new SbbEntityLockStatistics(sbbEntityFactory), SbbEntityLockStatisticsMBean.OBJECT_NAME);
 		registerMBean(eventContextFactoryConfiguration, EventContextFactoryConfigurationMBean.OBJECT_NAME);
 		registerMBean(congestionControlConfiguration, CongestionControlConfigurationMBean.OBJECT_NAME);
 
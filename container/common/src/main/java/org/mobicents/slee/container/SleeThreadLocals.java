@@ -55,4 +55,25 @@ public class SleeThreadLocals {
 		return invokingService.get();
 	}
 	
+	/**
+	 * indicates if the current thread is an event router executor thread
+	 */
+	private static ThreadLocal<Boolean> eventRouterThread = new ThreadLocal<Boolean>();
+	
+	/**
+	 * Marks the current thread as an event router executor thread, which is
+	 * long lived and runs most SLEE work.
+	 */
+	public static void setEventRouterThread() {
+		eventRouterThread.set(Boolean.TRUE);
+	}
+	
+	/**
+	 * Indicates if the current thread is an event router executor thread.
+	 * @return
+	 */
+	public static boolean isEventRouterThread() {
+		return eventRouterThread.get() != null;
+	}
+	
 }
@@ -67,6 +67,18 @@ public class MobicentsManagement implements
 		MobicentsManagement.initializeReferenceDataTypesWithNull = initializeReferenceDataTypesWithNull;
 	}
 
+	// Flag for storing SBB CMP fields in slots, applies to SBBs deployed after changed
+	//
+	private static Boolean compactCMPFieldStorage = false;
+
+	public boolean isCompactCMPFieldStorage() {
+		return MobicentsManagement.compactCMPFieldStorage;
+	}
+
+	public void setCompactCMPFieldStorage(boolean compactCMPFieldStorage) {
+		MobicentsManagement.compactCMPFieldStorage = compactCMPFieldStorage;
+	}
+
 	public String getVersion() {
 		return mobicentsVersion;
 	}
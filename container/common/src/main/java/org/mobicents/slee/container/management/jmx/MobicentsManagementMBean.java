@@ -52,6 +52,19 @@ public interface MobicentsManagementMBean {
 	 * @param initializeReferenceDataTypesWithNull
 	 */
 	public void setInitializeReferenceDataTypesWithNull(boolean initializeReferenceDataTypesWithNull);
+
+	/**
+	 * Are SBB CMP fields stored in slots, assigned when the concrete SBB
+	 * class is generated, with primitive values unboxed?
+	 * @return
+	 */
+	public boolean isCompactCMPFieldStorage();
+
+	/**
+	 * Changes to this flag apply only to SBBs deployed afterwards.
+	 * @param compactCMPFieldStorage
+	 */
+	public void setCompactCMPFieldStorage(boolean compactCMPFieldStorage);
 		
 	/**
 	 * 
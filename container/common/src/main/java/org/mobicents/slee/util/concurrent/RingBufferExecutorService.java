@@ -0,0 +1,429 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ * This file incorporates work covered by the following copyright contributed under the GNU LGPL : Copyright 2007-2011 Red Hat.
+ */
+package org.mobicents.slee.util.concurrent;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A single thread executor, which instead of a linked queue uses a bounded
+ * ring buffer of pre-allocated slots, where multiple producers publish tasks
+ * for the executor thread, the single consumer. Publishing a task does not
+ * allocate and does not lock.
+ * 
+ * Producers never wait, since these are often the threads of other executors,
+ * which may be blocked submitting tasks to this one. When the ring buffer is
+ * full the tasks go to an unbounded overflow queue, and the executor signals
+ * it is exhausted, so congestion control can refuse new work. While the
+ * overflow queue is not empty all tasks go there, and each overflow task is
+ * only executed after the tasks published in the ring buffer before it, thus
+ * the tasks of each producer are executed in order. The
+ * {@link RingBufferWaitStrategy} defines how the consumer waits for new
+ * tasks.
+ * 
+ * Subclasses may override {@link #beforeExecute(Thread, Runnable)} and
+ * {@link #afterExecute(Runnable, Throwable)}, just like with a
+ * {@link java.util.concurrent.ThreadPoolExecutor}, and also
+ * {@link #capacityExhausted()} and {@link #capacityRestored()}, to be notified
+ * when the ring buffer becomes full, and when its usage drops back to half of
+ * the capacity.
+ * 
+ * @author Eduardo Martins
+ */
+public class RingBufferExecutorService extends AbstractExecutorService {
+
+	private static final Logger logger = Logger
+			.getLogger(RingBufferExecutorService.class);
+
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+	private static final long MAX_CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(10);
+
+	private static final int RUNNING = 0;
+	private static final int SHUTDOWN = 1;
+	private static final int STOP = 2;
+
+	/**
+	 * A task submitted while the ring buffer was full, or overflowing.
+	 */
+	private static class OverflowTask {
+
+		/**
+		 * the first ring buffer sequence which was not claimed when the task
+		 * was submitted
+		 */
+		private final long sequence;
+		private final Runnable task;
+
+		private OverflowTask(long sequence, Runnable task) {
+			this.sequence = sequence;
+			this.task = task;
+		}
+	}
+
+	private final AtomicReferenceArray<Runnable> slots;
+	private final int capacity;
+	private final int mask;
+	private final RingBufferWaitStrategy waitStrategy;
+
+	/**
+	 * the next sequence to be claimed by a producer
+	 */
+	private final AtomicLong tail = new AtomicLong(0L);
+
+	/**
+	 * the next sequence to be consumed, only written by the consumer
+	 */
+	private final AtomicLong head = new AtomicLong(0L);
+
+	/**
+	 * tasks submitted when the ring buffer was full, or while there were
+	 * tasks here
+	 */
+	private final ConcurrentLinkedQueue<OverflowTask> overflow = new ConcurrentLinkedQueue<OverflowTask>();
+
+	/**
+	 * the number of tasks in the overflow queue, incremented before a task is
+	 * added, so producers see it before the task
+	 */
+	private final AtomicInteger overflowSize = new AtomicInteger(0);
+
+	private final AtomicBoolean exhausted = new AtomicBoolean(false);
+	private final CountDownLatch termination = new CountDownLatch(1);
+	private final Thread consumer;
+
+	private volatile boolean consumerWaiting;
+	private volatile int runState = RUNNING;
+
+	/**
+	 * 
+	 * @param capacity
+	 *            the number of slots in the ring buffer, rounded up to the
+	 *            next power of two
+	 * @param waitStrategy
+	 * @param threadFactory
+	 */
+	public RingBufferExecutorService(int capacity,
+			RingBufferWaitStrategy waitStrategy, ThreadFactory threadFactory) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		if (capacity > (1 << 30)) {
+			throw new IllegalArgumentException("capacity too big");
+		}
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.capacity = size;
+		this.mask = size - 1;
+		this.slots = new AtomicReferenceArray<Runnable>(size);
+		this.waitStrategy = waitStrategy == null ? RingBufferWaitStrategy.BLOCKING
+				: waitStrategy;
+		this.consumer = threadFactory.newThread(new Runnable() {
+			public void run() {
+				consume();
+			}
+		});
+		this.consumer.start();
+	}
+
+	/**
+	 * Retrieves the number of slots in the ring buffer.
+	 * 
+	 * @return
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Retrieves a view of the tasks queued in the ring buffer.
+	 * 
+	 * @return
+	 */
+	public Collection<Runnable> getQueue() {
+		return new AbstractCollection<Runnable>() {
+			@Override
+			public int size() {
+				final long size = tail.get() - head.get();
+				return (size > 0 ? (int) size : 0) + overflowSize.get();
+			}
+
+			@Override
+			public Iterator<Runnable> iterator() {
+				final List<Runnable> snapshot = new ArrayList<Runnable>();
+				final long end = tail.get();
+				Runnable task = null;
+				for (long sequence = head.get(); sequence < end; sequence++) {
+					task = slots.get((int) sequence & mask);
+					if (task != null) {
+						snapshot.add(task);
+					}
+				}
+				for (OverflowTask overflowTask : overflow) {
+					snapshot.add(overflowTask.task);
+				}
+				return Collections.unmodifiableList(snapshot).iterator();
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
+	 */
+	public void execute(Runnable task) {
+		if (task == null) {
+			throw new NullPointerException("null task");
+		}
+		if (runState != RUNNING) {
+			throw new RejectedExecutionException("executor is shutdown");
+		}
+		if (overflowSize.get() == 0) {
+			long sequence = tail.get();
+			while (sequence - head.get() < capacity) {
+				if (tail.compareAndSet(sequence, sequence + 1)) {
+					publish(sequence, task);
+					return;
+				}
+				sequence = tail.get();
+			}
+		}
+		// full, or overflowing already, never wait for the consumer, the
+		// producer may be the thread of an executor this one is waiting for
+		if (exhausted.compareAndSet(false, true)) {
+			capacityExhausted();
+		}
+		overflowSize.incrementAndGet();
+		overflow.offer(new OverflowTask(tail.get(), task));
+		if (consumerWaiting) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	private void publish(long sequence, Runnable task) {
+		slots.set((int) sequence & mask, task);
+		if (consumerWaiting) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	private int consumerIdle(int idleCount, int index) {
+		switch (waitStrategy) {
+		case BUSY_SPIN:
+			return idleCount;
+		case YIELDING:
+			if (idleCount < SPIN_TRIES) {
+				return idleCount + 1;
+			}
+			Thread.yield();
+			return idleCount;
+		default:
+			if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+				if (idleCount >= SPIN_TRIES) {
+					Thread.yield();
+				}
+				return idleCount + 1;
+			}
+			consumerWaiting = true;
+			try {
+				if (runState == RUNNING && slots.get(index) == null
+						&& overflowSize.get() == 0) {
+					LockSupport.parkNanos(this, MAX_CONSUMER_PARK_NANOS);
+				}
+			} finally {
+				consumerWaiting = false;
+			}
+			return idleCount;
+		}
+	}
+
+	private void consume() {
+		long sequence = head.get();
+		int idleCount = 0;
+		int index = 0;
+		Runnable task = null;
+		OverflowTask overflowTask = null;
+		while (runState != STOP) {
+			overflowTask = overflow.peek();
+			if (overflowTask != null && overflowTask.sequence <= sequence) {
+				// all tasks published before the overflow task are done
+				overflow.poll();
+				overflowSize.decrementAndGet();
+				idleCount = 0;
+				runTask(overflowTask.task);
+				checkCapacityRestored(sequence);
+				continue;
+			}
+			index = (int) sequence & mask;
+			task = slots.get(index);
+			if (task == null) {
+				if (runState != RUNNING && tail.get() == sequence
+						&& overflowSize.get() == 0) {
+					break;
+				}
+				idleCount = consumerIdle(idleCount, index);
+				continue;
+			}
+			idleCount = 0;
+			slots.lazySet(index, null);
+			head.lazySet(++sequence);
+			runTask(task);
+			checkCapacityRestored(sequence);
+		}
+		termination.countDown();
+	}
+
+	private void checkCapacityRestored(long sequence) {
+		if (exhausted.get() && overflowSize.get() == 0
+				&& tail.get() - sequence <= (capacity >> 1)
+				&& exhausted.compareAndSet(true, false)) {
+			capacityRestored();
+		}
+	}
+
+	private void runTask(Runnable task) {
+		Throwable thrown = null;
+		beforeExecute(consumer, task);
+		try {
+			task.run();
+		} catch (Throwable e) {
+			thrown = e;
+			logger.error("Failure executing task", e);
+		} finally {
+			afterExecute(task, thrown);
+		}
+	}
+
+	/**
+	 * Method invoked prior to executing the given task, in the executor
+	 * thread.
+	 * 
+	 * @param t
+	 * @param r
+	 */
+	protected void beforeExecute(Thread t, Runnable r) {
+	}
+
+	/**
+	 * Method invoked upon completion of execution of the given task, in the
+	 * executor thread.
+	 * 
+	 * @param r
+	 * @param t
+	 *            the exception that caused termination, or null if execution
+	 *            completed normally
+	 */
+	protected void afterExecute(Runnable r, Throwable t) {
+	}
+
+	/**
+	 * Method invoked when a task is submitted and the ring buffer is full.
+	 */
+	protected void capacityExhausted() {
+	}
+
+	/**
+	 * Method invoked once the usage of the ring buffer drops to half of its
+	 * capacity, after being full.
+	 */
+	protected void capacityRestored() {
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ExecutorService#shutdown()
+	 */
+	public void shutdown() {
+		if (runState == RUNNING) {
+			runState = SHUTDOWN;
+		}
+		LockSupport.unpark(consumer);
+		if (exhausted.compareAndSet(true, false)) {
+			capacityRestored();
+		}
+	}
+
+	/**
+	 * Stops the executor, discarding the tasks not executed yet.
+	 * 
+	 * @see java.util.concurrent.ExecutorService#shutdownNow()
+	 */
+	public List<Runnable> shutdownNow() {
+		runState = STOP;
+		consumer.interrupt();
+		if (exhausted.compareAndSet(true, false)) {
+			capacityRestored();
+		}
+		return Collections.emptyList();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ExecutorService#isShutdown()
+	 */
+	public boolean isShutdown() {
+		return runState != RUNNING;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ExecutorService#isTerminated()
+	 */
+	public boolean isTerminated() {
+		return termination.getCount() == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ExecutorService#awaitTermination(long,
+	 * java.util.concurrent.TimeUnit)
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return termination.await(timeout, unit);
+	}
+
+}
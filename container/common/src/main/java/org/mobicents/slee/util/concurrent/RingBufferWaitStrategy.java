@@ -0,0 +1,49 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ * This file incorporates work covered by the following copyright contributed under the GNU LGPL : Copyright 2007-2011 Red Hat.
+ */
+package org.mobicents.slee.util.concurrent;
+
+/**
+ * The strategies available to a {@link RingBufferExecutorService}, for the
+ * consumer thread waiting for new tasks.
+ * 
+ * @author Eduardo Martins
+ */
+public enum RingBufferWaitStrategy {
+
+	/**
+	 * Never releases the CPU, lowest latency but each executor burns a core
+	 * even when idle.
+	 */
+	BUSY_SPIN,
+
+	/**
+	 * Spins for a while and then yields the CPU to other threads, low latency
+	 * but idle executors still consume CPU.
+	 */
+	YIELDING,
+
+	/**
+	 * Spins and yields for a while, and then parks the thread until signaled,
+	 * the most CPU friendly strategy.
+	 */
+	BLOCKING;
+
+}
@@ -0,0 +1,171 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ * This file incorporates work covered by the following copyright contributed under the GNU LGPL : Copyright 2007-2011 Red Hat.
+ */
+package org.mobicents.slee.util.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class RingBufferExecutorServiceTest extends TestCase {
+
+	private static final int PRODUCERS = 4;
+	private static final int TASKS_PER_PRODUCER = 20000;
+
+	private void testOrderingPerProducer(RingBufferWaitStrategy waitStrategy)
+			throws Exception {
+		final RingBufferExecutorService executor = new RingBufferExecutorService(
+				64, waitStrategy, new SleeThreadFactory("RingBufferTest"));
+		final int[] lastValues = new int[PRODUCERS];
+		final AtomicInteger failures = new AtomicInteger(0);
+		final CountDownLatch done = new CountDownLatch(PRODUCERS
+				* TASKS_PER_PRODUCER);
+		Thread[] producers = new Thread[PRODUCERS];
+		for (int i = 0; i < PRODUCERS; i++) {
+			final int producer = i;
+			producers[i] = new Thread() {
+				public void run() {
+					for (int j = 1; j <= TASKS_PER_PRODUCER; j++) {
+						final int value = j;
+						executor.execute(new Runnable() {
+							public void run() {
+								// only the executor thread touches lastValues
+								if (lastValues[producer] != value - 1) {
+									failures.incrementAndGet();
+								}
+								lastValues[producer] = value;
+								done.countDown();
+							}
+						});
+					}
+				}
+			};
+			producers[i].start();
+		}
+		assertTrue("tasks not executed",
+				done.await(30, TimeUnit.SECONDS));
+		assertEquals("tasks of a producer executed out of order", 0,
+				failures.get());
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	public void testBlockingWaitStrategy() throws Exception {
+		testOrderingPerProducer(RingBufferWaitStrategy.BLOCKING);
+	}
+
+	public void testYieldingWaitStrategy() throws Exception {
+		testOrderingPerProducer(RingBufferWaitStrategy.YIELDING);
+	}
+
+	public void testTasksFromExecutorThreadWhenFull() throws Exception {
+		final StringBuilder sb = new StringBuilder();
+		final AtomicInteger exhausted = new AtomicInteger(0);
+		final AtomicInteger restored = new AtomicInteger(0);
+		final RingBufferExecutorService executor = new RingBufferExecutorService(
+				2, RingBufferWaitStrategy.BLOCKING, new SleeThreadFactory(
+						"RingBufferTest")) {
+			@Override
+			protected void capacityExhausted() {
+				exhausted.incrementAndGet();
+			}
+
+			@Override
+			protected void capacityRestored() {
+				restored.incrementAndGet();
+			}
+		};
+		final CountDownLatch done = new CountDownLatch(1);
+		executor.execute(new Runnable() {
+			public void run() {
+				// the executor thread submits more tasks than slots available
+				for (int i = 0; i < 5; i++) {
+					final int value = i;
+					executor.execute(new Runnable() {
+						public void run() {
+							sb.append(value);
+						}
+					});
+				}
+				executor.execute(new Runnable() {
+					public void run() {
+						done.countDown();
+					}
+				});
+			}
+		});
+		assertTrue("tasks not executed", done.await(5, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals("01234", sb.toString());
+		assertEquals(1, exhausted.get());
+		assertEquals(1, restored.get());
+	}
+
+	public void testExecutorsFiringIntoEachOtherWhenFull() throws Exception {
+		final AtomicInteger exhausted = new AtomicInteger(0);
+		final RingBufferExecutorService[] executors = new RingBufferExecutorService[2];
+		for (int i = 0; i < executors.length; i++) {
+			executors[i] = new RingBufferExecutorService(4,
+					RingBufferWaitStrategy.BLOCKING, new SleeThreadFactory(
+							"RingBufferTest-" + i)) {
+				@Override
+				protected void capacityExhausted() {
+					exhausted.incrementAndGet();
+				}
+			};
+		}
+		final int tasks = 1000;
+		final CountDownLatch busy = new CountDownLatch(executors.length);
+		final CountDownLatch done = new CountDownLatch(executors.length
+				* tasks);
+		for (int i = 0; i < executors.length; i++) {
+			final RingBufferExecutorService other = executors[(i + 1)
+					% executors.length];
+			executors[i].execute(new Runnable() {
+				public void run() {
+					// both executor threads fill the other's ring buffer
+					busy.countDown();
+					try {
+						busy.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					for (int j = 0; j < tasks; j++) {
+						other.execute(new Runnable() {
+							public void run() {
+								done.countDown();
+							}
+						});
+					}
+				}
+			});
+		}
+		assertTrue("executors deadlocked", done.await(10, TimeUnit.SECONDS));
+		assertTrue(exhausted.get() >= executors.length);
+		for (RingBufferExecutorService executor : executors) {
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		}
+	}
+
+}
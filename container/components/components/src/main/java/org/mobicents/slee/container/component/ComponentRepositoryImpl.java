@@ -25,6 +25,7 @@ package org.mobicents.slee.container.component;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.slee.ComponentID;
 import javax.slee.EventTypeID;
@@ -60,6 +61,11 @@ public class ComponentRepositoryImpl implements ComponentRepository {
 	 */
 	private final ConcurrentHashMap<EventTypeID, EventTypeComponent> eventTypeComponents = new ConcurrentHashMap<EventTypeID, EventTypeComponent>();
 
+	/**
+	 * incremented each time an {@link EventTypeComponent} is put or removed
+	 */
+	private final AtomicInteger eventTypeComponentsVersion = new AtomicInteger(0);
+
 	/**
 	 * the {@link ProfileSpecificationComponent}s stored in the repository
 	 */
@@ -135,6 +141,14 @@ public class ComponentRepositoryImpl implements ComponentRepository {
 		return eventTypeComponents.keySet();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.component.ComponentRepository#getEventTypeComponentsVersion()
+	 */
+	public int getEventTypeComponentsVersion() {
+		return eventTypeComponentsVersion.get();
+	}
+
 	public Set<ProfileSpecificationID> getProfileSpecificationIDs() {
 		return profileSpecificationComponents.keySet();
 	}
@@ -301,8 +315,12 @@ public class ComponentRepositoryImpl implements ComponentRepository {
 	// ----
 
 	public boolean putComponent(EventTypeComponent component) {
-		return eventTypeComponents.putIfAbsent(component.getEventTypeID(),
-				component) == null;
+		if (eventTypeComponents.putIfAbsent(component.getEventTypeID(),
+				component) == null) {
+			eventTypeComponentsVersion.incrementAndGet();
+			return true;
+		}
+		return false;
 	}
 
 	public boolean putComponent(ProfileSpecificationComponent component) {
@@ -337,7 +355,9 @@ public class ComponentRepositoryImpl implements ComponentRepository {
 	// ----
 
 	public void removeComponent(EventTypeID componentID) {
-		eventTypeComponents.remove(componentID);
+		if (eventTypeComponents.remove(componentID) != null) {
+			eventTypeComponentsVersion.incrementAndGet();
+		}
 	}
 
 	public void removeComponent(ProfileSpecificationID componentID) {
@@ -57,6 +57,7 @@ import org.mobicents.slee.container.component.common.ProfileSpecRefDescriptor;
 import org.mobicents.slee.container.component.deployment.jaxb.descriptors.SbbDescriptorImpl;
 import org.mobicents.slee.container.component.sbb.AbstractSbbClassInfo;
 import org.mobicents.slee.container.component.sbb.AbstractSbbClassInfoImpl;
+import org.mobicents.slee.container.component.sbb.CMPFieldsLayout;
 import org.mobicents.slee.container.component.sbb.EventEntryDescriptor;
 import org.mobicents.slee.container.component.sbb.ResourceAdaptorEntityBindingDescriptor;
 import org.mobicents.slee.container.component.sbb.ResourceAdaptorTypeBindingDescriptor;
@@ -423,6 +424,7 @@ public class SbbComponentImpl extends AbstractSleeComponentWithUsageParametersIn
 		sbbLocalInterfaceClass = null;
 		sbbLocalInterfaceConcreteClass = null;
 		sbbLocalObjectClassConstructor = null;
+		cmpFieldsLayout = null;
 		specsDescriptor = null;
 	}
 	
@@ -531,4 +533,25 @@ public class SbbComponentImpl extends AbstractSleeComponentWithUsageParametersIn
 	public void setAlarmFacility(AlarmFacility alarmFacility) {
 		this.alarmFacility = alarmFacility;
 	}
+	
+	/**
+	 * the slots assigned to the cmp fields, null if not stored in slots
+	 */
+	private CMPFieldsLayout cmpFieldsLayout;
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.component.sbb.SbbComponent#getCMPFieldsLayout()
+	 */
+	public CMPFieldsLayout getCMPFieldsLayout() {
+		return cmpFieldsLayout;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.component.sbb.SbbComponent#setCMPFieldsLayout(org.mobicents.slee.container.component.sbb.CMPFieldsLayout)
+	 */
+	public void setCMPFieldsLayout(CMPFieldsLayout cmpFieldsLayout) {
+		this.cmpFieldsLayout = cmpFieldsLayout;
+	}
 }
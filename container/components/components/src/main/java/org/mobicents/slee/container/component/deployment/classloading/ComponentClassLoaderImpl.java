@@ -38,6 +38,11 @@ import org.mobicents.slee.container.component.classloading.ComponentClassLoader;
  */
 public class ComponentClassLoaderImpl extends ComponentClassLoader {
 
+	static {
+		// the class loader only delegates, no need to lock it on class loading
+		registerAsParallelCapable();
+	}
+
 	/**
 	 * the component id, used to make this class loader unique
 	 */
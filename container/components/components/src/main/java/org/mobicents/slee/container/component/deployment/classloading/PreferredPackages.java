@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.component.deployment.classloading;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * The set of preferred packages of a class loader domain, i.e., the package
+ * prefixes of the classes which the domain loads before trying its parent. The
+ * set keeps a prefix trie of its packages, rebuilt on every change, so
+ * matching a class name does not depend on the number of packages.
+ * 
+ * @author martins
+ * 
+ */
+class PreferredPackages extends AbstractSet<String> {
+
+	private final Set<String> packages = new HashSet<String>();
+
+	/**
+	 * the root of the prefix trie
+	 */
+	private volatile Node root = new Node();
+
+	PreferredPackages() {
+	}
+
+	PreferredPackages(Collection<String> packages) {
+		this.packages.addAll(packages);
+		rebuild();
+	}
+
+	/**
+	 * Indicates if the specified class name starts with any of the preferred
+	 * packages.
+	 * 
+	 * @param className
+	 * @return
+	 */
+	boolean matches(String className) {
+		Node node = root;
+		final int length = className.length();
+		for (int i = 0; !node.terminal; i++) {
+			if (i == length) {
+				return false;
+			}
+			node = node.getChild(className.charAt(i));
+			if (node == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rebuild() {
+		final Node root = new Node();
+		for (String pack : packages) {
+			Node node = root;
+			for (int i = 0; i < pack.length(); i++) {
+				node = node.addChild(pack.charAt(i));
+			}
+			node.terminal = true;
+		}
+		this.root = root;
+	}
+
+	@Override
+	public synchronized boolean add(String pack) {
+		if (packages.add(pack)) {
+			rebuild();
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized boolean remove(Object pack) {
+		if (packages.remove(pack)) {
+			rebuild();
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized void clear() {
+		packages.clear();
+		rebuild();
+	}
+
+	@Override
+	public synchronized boolean contains(Object pack) {
+		return packages.contains(pack);
+	}
+
+	@Override
+	public synchronized int size() {
+		return packages.size();
+	}
+
+	@Override
+	public synchronized Iterator<String> iterator() {
+		// iterates a snapshot, removals go through the set
+		final Iterator<String> snapshot = new ArrayList<String>(packages)
+				.iterator();
+		return new Iterator<String>() {
+
+			private String current;
+
+			public boolean hasNext() {
+				return snapshot.hasNext();
+			}
+
+			public String next() {
+				current = snapshot.next();
+				return current;
+			}
+
+			public void remove() {
+				if (current == null) {
+					throw new IllegalStateException();
+				}
+				PreferredPackages.this.remove(current);
+				current = null;
+			}
+		};
+	}
+
+	/**
+	 * A trie node, with children sorted by char.
+	 */
+	private static class Node {
+
+		private char[] chars = new char[0];
+
+		private Node[] children = new Node[0];
+
+		/**
+		 * if true a package ends in this node
+		 */
+		private boolean terminal;
+
+		Node getChild(char c) {
+			final int i = Arrays.binarySearch(chars, c);
+			return i < 0 ? null : children[i];
+		}
+
+		Node addChild(char c) {
+			int i = Arrays.binarySearch(chars, c);
+			if (i >= 0) {
+				return children[i];
+			}
+			i = -(i + 1);
+			final char[] newChars = new char[chars.length + 1];
+			final Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(chars, 0, newChars, 0, i);
+			System.arraycopy(children, 0, newChildren, 0, i);
+			newChars[i] = c;
+			newChildren[i] = new Node();
+			System.arraycopy(chars, i, newChars, i + 1, chars.length - i);
+			System.arraycopy(children, i, newChildren, i + 1, children.length
+					- i);
+			chars = newChars;
+			children = newChildren;
+			return newChildren[i];
+		}
+	}
+
+}
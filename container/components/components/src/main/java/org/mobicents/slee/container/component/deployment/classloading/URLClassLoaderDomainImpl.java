@@ -30,13 +30,15 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.Vector;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.mobicents.slee.container.component.classloading.URLClassLoaderDomain;
@@ -44,25 +46,52 @@ import org.mobicents.slee.container.component.classloading.URLClassLoaderDomain;
 /**
  * An extension of {@link URLClassLoader} to support multiple parents.
  * 
+ * The domain is parallel capable, a class is defined while holding only the
+ * domain's lock for the class name, thus concurrent loading of different
+ * classes, in the same or different domains, does not block.
+ * 
  * @author martins
  * 
  */
 public class URLClassLoaderDomainImpl extends URLClassLoaderDomain {
 
+	static {
+		registerAsParallelCapable();
+	}
+
 	private static final Logger logger = Logger
 			.getLogger(URLClassLoaderDomainImpl.class);
 
+	/**
+	 * incremented on any change of dependencies, in any domain, to invalidate
+	 * the cached flat lists of dependencies
+	 */
+	private static final AtomicInteger DEPENDENCIES_VERSION = new AtomicInteger(0);
+
     /**
      * classes loaded within these packages will have classloading order
      * inverted. That is first try locally, then in parent.
      */
-    private Set<String> preferredPackages = new HashSet();
+    private PreferredPackages preferredPackages = new PreferredPackages();
 
 	/**
 	 * the set of dependencies for the domain
 	 */
 	private Set<URLClassLoaderDomainImpl> directDependencies = new HashSet<URLClassLoaderDomainImpl>();
 
+	/**
+	 * the flat list of all dependencies, and the dependencies version when it
+	 * was built
+	 */
+	private volatile DependenciesSnapshot allDependencies;
+
+	/**
+	 * the names of classes not found in the domain URLs, when searched on
+	 * behalf of a dependent domain, and the dependencies version when those
+	 * were searched
+	 */
+	private volatile MissingClassesSnapshot missingClasses;
+
 	/**
 	 * 
 	 * @param urls
@@ -83,6 +112,7 @@ public class URLClassLoaderDomainImpl extends URLClassLoaderDomain {
 			logger.trace(toString() + " adding domain " + domain
 					+ " to direct dependencies");
 		directDependencies.add(domain);
+		DEPENDENCIES_VERSION.incrementAndGet();
 	}
 
 	/**
@@ -99,142 +129,113 @@ public class URLClassLoaderDomainImpl extends URLClassLoaderDomain {
 	 * @return
 	 */
 	public List<URLClassLoaderDomainImpl> getAllDependencies() {
-		List<URLClassLoaderDomainImpl> result = new ArrayList<URLClassLoaderDomainImpl>();
-		this.getAllDependencies(result);
-		return result;
+		final int version = DEPENDENCIES_VERSION.get();
+		DependenciesSnapshot snapshot = allDependencies;
+		if (snapshot == null || snapshot.version != version) {
+			final Set<URLClassLoaderDomainImpl> result = new LinkedHashSet<URLClassLoaderDomainImpl>();
+			this.getAllDependencies(result);
+			snapshot = new DependenciesSnapshot(version,
+					Collections.unmodifiableList(new ArrayList<URLClassLoaderDomainImpl>(result)));
+			allDependencies = snapshot;
+		}
+		return snapshot.dependencies;
 	}
 
-	private void getAllDependencies(List<URLClassLoaderDomainImpl> result) {
+	private void getAllDependencies(Set<URLClassLoaderDomainImpl> result) {
 		for (URLClassLoaderDomainImpl i : directDependencies) {
-			if (!result.contains(i)) {
-				result.add(i);
+			if (result.add(i)) {
 				i.getAllDependencies(result);
 			}
 		}
 	}
-	
-	private static final ReentrantLock GLOBAL_LOCK = new ReentrantLock();
-	private static final long WAIT_FOR_LOCK = 10;
-	private static final long MAX_WAIT_FOR_LOCK = 10000;
-	private static final long MAX_ATTEMPTS = MAX_WAIT_FOR_LOCK / WAIT_FOR_LOCK;
 
-	private boolean acquireGlobalLock() {
-		boolean acquired = false;
-
-		if (GLOBAL_LOCK.isHeldByCurrentThread()) {
-			return false;
-		} else {
-			int attempts = 0;
-			try {
-				//prevent an infinite loop by limiting the acquire attempts
-				while (!acquired && attempts < MAX_ATTEMPTS) {
-					acquired = GLOBAL_LOCK.tryLock(WAIT_FOR_LOCK, TimeUnit.MILLISECONDS);
-					attempts = attempts + 1;
-				}
-			} catch (InterruptedException ex) {
-				if (logger.isDebugEnabled()) {
-					logger.debug("Interrupted while acquiring.", ex);
-				}
-			}
-			if (!acquired) {
-				//throw a runtime exception so error is reported upstream
-				throw new IllegalMonitorStateException("Unable to acquire global lock.");
-			}
+	/**
+	 * Retrieves the names of classes not found in the domain URLs, for the
+	 * current dependencies version, any change of dependencies discards the
+	 * names previously cached.
+	 * 
+	 * @return
+	 */
+	private Set<String> getMissingClasses() {
+		final int version = DEPENDENCIES_VERSION.get();
+		MissingClassesSnapshot snapshot = missingClasses;
+		if (snapshot == null || snapshot.version != version) {
+			snapshot = new MissingClassesSnapshot(version);
+			missingClasses = snapshot;
 		}
-
-		return acquired;
+		return snapshot.classNames;
 	}
 
-	private void releaseGlobalLock() {
-		GLOBAL_LOCK.unlock();
+	private boolean isPreferredPackage(String className) {
+		return preferredPackages.matches(className);
 	}
-        
-    private boolean isPreferredPackage(String className) {
-        boolean isPreferred = false;
-        for (String prefPack : preferredPackages)
-        {
-            if (className.startsWith(prefPack)) {
-                isPreferred = true;
-            }
-        }
-        return isPreferred;
-    }
 
-        
 	@Override
-    protected Class<?> loadClass(final String name, final boolean resolve)
-            throws ClassNotFoundException {
-
-        Class foundClass = null;
-        ClassNotFoundException localException = null;
+	protected Class<?> loadClass(final String name, final boolean resolve)
+			throws ClassNotFoundException {
 
-        if (logger.isTraceEnabled()) {
-            logger.trace(toString() + " loadClass: " + name);
-        }
+		if (logger.isTraceEnabled()) {
+			logger.trace(toString() + " loadClass: " + name);
+		}
 
-        boolean acquiredLock = false;
-
-        try {
-            acquiredLock = acquireGlobalLock();
-
-            //fixes https://github.com/RestComm/jain-slee/issues/49
-            //classloader order is inverted for preferred packages                
-            if (isPreferredPackage(name)) {
-                try {
-                    Class<?> loaded = this.findLoadedClass(name);
-                    if (loaded == null) {
-                        Class<?> clazz = this.findClass(name);
-                        foundClass = clazz;
-                    } else {
-                        foundClass = loaded;
-                    }
-                } catch (ClassNotFoundException cExp) {
-                    //ignore, try with parent before raising exception
-                    //save exception in case parent dont find it
-                    localException = cExp;
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("Class not found" + cExp);
-                    }
-                }
-            }
-        } finally {
-            //in any case always release lock
-            if (acquiredLock) {
-                releaseGlobalLock();
-            }
-        }
-        if (foundClass == null) {
-            //now try with parent
-            // load the class
-            if (System.getSecurityManager() != null) {
-                try {
-                    return AccessController
-                            .doPrivileged(new PrivilegedExceptionAction<Class<?>>() {
-                                public Class<?> run()
-                                        throws ClassNotFoundException {
-                                    return URLClassLoaderDomainImpl.super
-                                            .loadClass(name, resolve);
-                                }
-                            });
-                } catch (PrivilegedActionException e) {
-                    throw (ClassNotFoundException) e.getException();
-                }
-            } else {
-                foundClass = super.loadClass(name, resolve);
-            }
-        }
+		// no lock is held here, only the definition of a class in a domain
+		// is locked, by class name, see findClassLocallyLocked(String)
+		Class<?> foundClass = findLoadedClass(name);
+		if (foundClass == null) {
+			ClassNotFoundException localException = null;
+			//fixes https://github.com/RestComm/jain-slee/issues/49
+			//classloader order is inverted for preferred packages
+			if (isPreferredPackage(name)) {
+				try {
+					foundClass = findClass(name);
+				} catch (ClassNotFoundException cExp) {
+					//ignore, try with parent before raising exception
+					//save exception in case parent dont find it
+					localException = cExp;
+					if (logger.isTraceEnabled()) {
+						logger.trace("Class not found" + cExp);
+					}
+				}
+				if (foundClass == null) {
+					try {
+						foundClass = loadClassFromParent(name);
+					} catch (ClassNotFoundException e) {
+						//ensure we raise proper exception
+						throw localException;
+					}
+				}
+			} else {
+				try {
+					foundClass = loadClassFromParent(name);
+				} catch (ClassNotFoundException e) {
+					foundClass = findClass(name);
+				}
+			}
+		}
+		if (resolve) {
+			resolveClass(foundClass);
+		}
+		return foundClass;
+	}
 
-        if (foundClass != null) {
-            return foundClass;
-        } else {
-            //ensure we raise proper exception
-            if (localException != null) {
-                throw localException;
-            } else {
-                throw new ClassNotFoundException(name);
-            }
-        }
-    }
+	private Class<?> loadClassFromParent(final String name)
+			throws ClassNotFoundException {
+		if (System.getSecurityManager() != null) {
+			try {
+				return AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Class<?>>() {
+							public Class<?> run()
+									throws ClassNotFoundException {
+								return getParent().loadClass(name);
+							}
+						});
+			} catch (PrivilegedActionException e) {
+				throw (ClassNotFoundException) e.getException();
+			}
+		} else {
+			return getParent().loadClass(name);
+		}
+	}
 
 	@Override
 	protected Class<?> findClass(String name) throws ClassNotFoundException {
@@ -243,16 +244,21 @@ public class URLClassLoaderDomainImpl extends URLClassLoaderDomain {
 		// try 1st in dependencies
 		Class<?> c = null;
 		for (URLClassLoaderDomainImpl dependency : getAllDependencies()) {
-			synchronized (dependency) {
-				c = dependency.findLoadedClass(name);
-				if (c != null) {
-					return c;
-				}
-				try {
-					return dependency.findClassLocallyLocked(name);
-				} catch (Throwable e) {
-					// ignore
-				}
+			c = dependency.findLoadedClass(name);
+			if (c != null) {
+				return c;
+			}
+			final Set<String> dependencyMissingClasses = dependency
+					.getMissingClasses();
+			if (dependencyMissingClasses.contains(name)) {
+				continue;
+			}
+			try {
+				return dependency.findClassLocallyLocked(name);
+			} catch (ClassNotFoundException e) {
+				dependencyMissingClasses.add(name);
+			} catch (Throwable e) {
+				// ignore
 			}
 		}
 		// now locally
@@ -272,21 +278,28 @@ public class URLClassLoaderDomainImpl extends URLClassLoaderDomain {
         if (logger.isTraceEnabled()) {
             logger.trace(toString() + " findClassLocally: " + name);
         }
-        final boolean acquiredLock = acquireGlobalLock();
-        try {
-            return findClassLocallyLocked(name);
-        } finally {
-            if (acquiredLock) {
-                releaseGlobalLock();
-            }
-        }
+        return findClassLocallyLocked(name);
     }
 	
+	/**
+	 * Finds a class locally, holding the domain's lock for the class name, so
+	 * the class is never defined twice in the domain.
+	 * 
+	 * @param name
+	 * @return
+	 * @throws ClassNotFoundException
+	 */
 	protected Class<?> findClassLocallyLocked(String name)
 			throws ClassNotFoundException {
 		if (logger.isTraceEnabled())
 			logger.trace(toString() + " findClassLocallyLocked: " + name);
-		return super.findClass(name);		
+		synchronized (getClassLoadingLock(name)) {
+			final Class<?> c = findLoadedClass(name);
+			if (c != null) {
+				return c;
+			}
+			return super.findClass(name);
+		}
 	}
 
 	@Override
@@ -366,14 +379,61 @@ public class URLClassLoaderDomainImpl extends URLClassLoaderDomain {
 
 	public void clear() {
 		directDependencies.clear();
+		DEPENDENCIES_VERSION.incrementAndGet();
+		missingClasses = null;
 	}
         
+    /**
+     * Retrieves the preferred packages of the domain, changes to the returned
+     * set are applied to the domain.
+     * 
+     * @return
+     */
     public Set<String> getPreferredPackages() {
         return preferredPackages;
     }
 
+    /**
+     * Sets the preferred packages of the domain, the packages are copied, thus
+     * further changes to the specified set are not applied to the domain.
+     * 
+     * @param preferredPackages
+     */
     public void setPreferredPackages(Set<String> preferredPackages) {
-        this.preferredPackages = preferredPackages;
+        this.preferredPackages = new PreferredPackages(preferredPackages);
+    }
+
+    /**
+     * The flat list of all dependencies of a domain, for a specific version
+     * of the dependencies.
+     */
+    private static class DependenciesSnapshot {
+
+    	private final int version;
+
+    	private final List<URLClassLoaderDomainImpl> dependencies;
+
+    	DependenciesSnapshot(int version,
+    			List<URLClassLoaderDomainImpl> dependencies) {
+    		this.version = version;
+    		this.dependencies = dependencies;
+    	}
+    }
+
+    /**
+     * The names of classes not found in a domain URLs, for a specific version
+     * of the dependencies.
+     */
+    private static class MissingClassesSnapshot {
+
+    	private final int version;
+
+    	private final Set<String> classNames = Collections
+    			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    	MissingClassesSnapshot(int version) {
+    		this.version = version;
+    	}
     }
 
 }
\ No newline at end of file
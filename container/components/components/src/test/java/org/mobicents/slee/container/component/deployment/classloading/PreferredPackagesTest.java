@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.component.deployment.classloading;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author martins
+ *
+ */
+public class PreferredPackagesTest {
+
+	@Test
+	public void testMatches() {
+		PreferredPackages preferredPackages = new PreferredPackages(Arrays.asList("javax.transaction", "org.foo."));
+		Assert.assertTrue(preferredPackages.matches("javax.transaction.Transaction"));
+		Assert.assertTrue(preferredPackages.matches("org.foo.Bar"));
+		Assert.assertFalse(preferredPackages.matches("org.fo"));
+		Assert.assertFalse(preferredPackages.matches("org.foobar.Bar"));
+		Assert.assertFalse(preferredPackages.matches("java.lang.String"));
+	}
+
+	@Test
+	public void testChanges() {
+		PreferredPackages preferredPackages = new PreferredPackages();
+		Assert.assertFalse(preferredPackages.matches("org.foo.Bar"));
+		preferredPackages.add("org.foo");
+		Assert.assertTrue(preferredPackages.matches("org.foo.Bar"));
+		Iterator<String> iterator = preferredPackages.iterator();
+		iterator.next();
+		iterator.remove();
+		Assert.assertTrue(preferredPackages.isEmpty());
+		Assert.assertFalse(preferredPackages.matches("org.foo.Bar"));
+	}
+
+}
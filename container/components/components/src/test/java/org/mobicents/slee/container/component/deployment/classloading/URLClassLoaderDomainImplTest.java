@@ -1,67 +1,191 @@
-package org.mobicents.slee.container.component.deployment.classloading;
-
-import java.io.File;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.HashSet;
-import java.util.Set;
-import javax.slee.SbbID;
-import org.junit.Assert;
-import org.junit.Test;
-
-/**
- * Test to ensure fix for https://github.com/RestComm/jain-slee/issues/49
- * 
- * Tries to replicate the same runtime classloader structure, where parent
- * classloader is jboss based, while slee components have their own URLClassLoaderDomain
- * 
- * By setting preferredPackages we ensure the class is loaded from slee classloader,
- * instead of Jboss one.
- * 
- * We also replicate a typical SBB to Lib dependency.
- */
-public class URLClassLoaderDomainImplTest {
-    
-    public URLClassLoaderDomainImplTest() {
-    }
-
-    @Test
-    public void testPreferredPackages() throws MalformedURLException, ClassNotFoundException, InstantiationException, IllegalAccessException {
- 
-        //use dependencies provided by maven, so this test doesnt rely on any external
-        //activity. Keep it as unit test as possible (quick and self-contained)
-        URL[] jbossURLS = new URL[1];
-        String classpath=System.getProperty("surefire.test.class.path");
-        String[] paths = classpath.split(String.valueOf(java.io.File.pathSeparatorChar));
-        String workingURL = null;
-        for (String path : paths)
-        {
-            if (path.contains("jta")) {
-                workingURL = path;
-                break;
-            }
-        }
-        jbossURLS[0] = new File(workingURL).toURI().toURL();
-
-        URLClassLoader jbossLoader = new URLClassLoader(jbossURLS,Thread.currentThread().getClass().getClassLoader());
-
-                
-        URLClassLoaderDomainImpl libLoader = new URLClassLoaderDomainImpl(jbossURLS,jbossLoader);
-        Set<String> preferredPack = new HashSet();
-        preferredPack.add("javax.transaction");
-        libLoader.setPreferredPackages(preferredPack);
-        URLClassLoaderDomainImpl domainLoader = new URLClassLoaderDomainImpl(new URL[0],jbossLoader);
-        domainLoader.setPreferredPackages(preferredPack);
-        domainLoader.addDirectDependency(libLoader);
-
-        SbbID compId = new SbbID("sbbName", "sbbVendor", "1.0");
-        ComponentClassLoaderImpl compLoader = new ComponentClassLoaderImpl(compId, domainLoader);
-        Class<?> loadClass = compLoader.loadClass("javax.transaction.Transaction");
-        //load class twice to check duplicate errors
-        loadClass = compLoader.loadClass("javax.transaction.Transaction");
-        //loadClass.newInstance();
-        Assert.assertEquals( URLClassLoaderDomainImpl.class, loadClass.getClassLoader().getClass());
-    }
-    
-}
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.component.deployment.classloading;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 
+ * @author martins
+ *
+ */
+public class URLClassLoaderDomainImplTest {
+
+	private static final String MISSING_CLASS = "org.foo.Missing";
+
+	private static final int THREADS = 8;
+
+	private ClassLoader sleeClassLoader;
+
+	private URL[] testClassesURLs;
+
+	@Before
+	public void setUp() {
+		// the slee class loader does not see the test classes, only the
+		// domains do
+		sleeClassLoader = new URLClassLoader(new URL[0], null);
+		testClassesURLs = new URL[] { URLClassLoaderDomainImplTest.class
+				.getProtectionDomain().getCodeSource().getLocation() };
+	}
+
+	@Test
+	public void testParallelLoading() throws Exception {
+		final CountingDomain library = new CountingDomain(testClassesURLs);
+		final CountingDomain[] domains = new CountingDomain[THREADS];
+		for (int i = 0; i < domains.length; i++) {
+			domains[i] = new CountingDomain(new URL[0]);
+			domains[i].addDirectDependency(library);
+		}
+		final String[] classNames = { Loaded1.class.getName(),
+				Loaded2.class.getName(), Loaded3.class.getName() };
+		final Map<String, Class<?>> loadedClasses = new ConcurrentHashMap<String, Class<?>>();
+		final List<Throwable> failures = new ArrayList<Throwable>();
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[THREADS];
+		for (int i = 0; i < threads.length; i++) {
+			final CountingDomain domain = domains[i];
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						start.await();
+						for (String className : classNames) {
+							final Class<?> c = domain.loadClass(className);
+							final Class<?> other = loadedClasses.put(className, c);
+							if (other != null && other != c) {
+								throw new AssertionError(className
+										+ " defined twice");
+							}
+						}
+					} catch (Throwable e) {
+						synchronized (failures) {
+							failures.add(e);
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join(10000);
+			Assert.assertFalse(thread.isAlive());
+		}
+		Assert.assertTrue(failures.toString(), failures.isEmpty());
+		for (String className : classNames) {
+			final Class<?> c = loadedClasses.get(className);
+			Assert.assertSame(library, c.getClassLoader());
+			Assert.assertNotSame(Class.forName(className), c);
+			for (CountingDomain domain : domains) {
+				Assert.assertSame(c, domain.loadClass(className));
+			}
+		}
+	}
+
+	@Test
+	public void testMissingClassSearchedOncePerDependenciesVersion()
+			throws Exception {
+		final CountingDomain library = new CountingDomain(testClassesURLs);
+		final CountingDomain domain = new CountingDomain(new URL[0]);
+		domain.addDirectDependency(library);
+		assertClassNotFound(domain, MISSING_CLASS);
+		assertClassNotFound(domain, MISSING_CLASS);
+		Assert.assertEquals(1, library.getLookups(MISSING_CLASS));
+		Assert.assertEquals(2, domain.getLookups(MISSING_CLASS));
+		// a change of dependencies, in any domain, discards the cached names
+		final CountingDomain otherLibrary = new CountingDomain(new URL[0]);
+		new CountingDomain(new URL[0]).addDirectDependency(otherLibrary);
+		assertClassNotFound(domain, MISSING_CLASS);
+		assertClassNotFound(domain, MISSING_CLASS);
+		Assert.assertEquals(2, library.getLookups(MISSING_CLASS));
+		// as does clearing the domain
+		library.clear();
+		assertClassNotFound(domain, MISSING_CLASS);
+		Assert.assertEquals(3, library.getLookups(MISSING_CLASS));
+		// classes found are not affected by the cache
+		Assert.assertSame(library, domain.loadClass(Loaded1.class.getName())
+				.getClassLoader());
+	}
+
+	private static void assertClassNotFound(CountingDomain domain,
+			String className) {
+		try {
+			domain.loadClass(className);
+			Assert.fail(className + " found");
+		} catch (ClassNotFoundException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * A domain counting the searches of classes in its URLs.
+	 */
+	private class CountingDomain extends URLClassLoaderDomainImpl {
+
+		private final ConcurrentHashMap<String, AtomicInteger> lookups = new ConcurrentHashMap<String, AtomicInteger>();
+
+		CountingDomain(URL[] urls) {
+			super(urls, sleeClassLoader);
+		}
+
+		int getLookups(String className) {
+			final AtomicInteger counter = lookups.get(className);
+			return counter == null ? 0 : counter.get();
+		}
+
+		@Override
+		protected Class<?> findClassLocallyLocked(String name)
+				throws ClassNotFoundException {
+			AtomicInteger counter = lookups.get(name);
+			if (counter == null) {
+				final AtomicInteger newCounter = new AtomicInteger();
+				counter = lookups.putIfAbsent(name, newCounter);
+				if (counter == null) {
+					counter = newCounter;
+				}
+			}
+			counter.incrementAndGet();
+			return super.findClassLocallyLocked(name);
+		}
+	}
+
+	public static class Loaded1 {
+	}
+
+	public static class Loaded2 {
+	}
+
+	public static class Loaded3 {
+	}
+
+}
@@ -382,6 +382,11 @@ class FakeRepository implements ComponentRepository {
 		
 	}
 
+	public int getEventTypeComponentsVersion() {
+		// TODO Auto-generated method stub
+		return 0;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.mobicents.slee.core.component.ComponentRepository#removeComponent(javax.slee.management.LibraryID)
 	 */
@@ -570,6 +570,11 @@ public class SbbComponentValidatorSbbEventsTest extends TCUtilityClass {
 			
 		}
 
+		public int getEventTypeComponentsVersion() {
+			// TODO Auto-generated method stub
+			return 0;
+		}
+
 		/* (non-Javadoc)
 		 * @see org.mobicents.slee.core.component.ComponentRepository#removeComponent(javax.slee.management.LibraryID)
 		 */
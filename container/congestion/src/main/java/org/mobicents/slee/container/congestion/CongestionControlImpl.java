@@ -25,6 +25,7 @@ package org.mobicents.slee.container.congestion;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.slee.facilities.AlarmFacility;
 import javax.slee.facilities.AlarmLevel;
@@ -46,6 +47,11 @@ public class CongestionControlImpl extends AbstractSleeContainerModule implement
 		
 	private boolean notEnoughFreeMemory; 
 	
+	/**
+	 * the number of event router executors with a full working queue
+	 */
+	private final AtomicInteger fullEventRouterExecutorQueues = new AtomicInteger(0);
+	
 	private ScheduledFuture<?> scheduledFuture;
 	
 	private AlarmFacility alarmFacility;
@@ -99,7 +105,7 @@ public class CongestionControlImpl extends AbstractSleeContainerModule implement
 	 */
 	public boolean refuseStartActivity() {
 		if (configuration.isRefuseStartActivity()) {
-			return notEnoughFreeMemory;
+			return notEnoughFreeMemory || fullEventRouterExecutorQueues.get() > 0;
 		}
 		else {
 			return false;
@@ -112,13 +118,33 @@ public class CongestionControlImpl extends AbstractSleeContainerModule implement
 	 */
 	public boolean refuseFireEvent() {
 		if (configuration.isRefuseFireEvent()) {
-			return notEnoughFreeMemory;
+			return notEnoughFreeMemory || fullEventRouterExecutorQueues.get() > 0;
 		}
 		else {
 			return false;
 		}
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.congestion.CongestionControl#eventRouterExecutorQueueFull()
+	 */
+	public void eventRouterExecutorQueueFull() {
+		if (fullEventRouterExecutorQueues.getAndIncrement() == 0) {
+			logger.warn("Congestion Control activated since an event router executor working queue is full");
+		}
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.congestion.CongestionControl#eventRouterExecutorQueueAvailable()
+	 */
+	public void eventRouterExecutorQueueAvailable() {
+		if (fullEventRouterExecutorQueues.decrementAndGet() == 0) {
+			logger.info("Event router executors working queues are no longer full");
+		}
+	}
+	
 	/**
 	 * 
 	 */
@@ -119,4 +119,28 @@ public class CongestionControlTest {
 		
 		// test succeed
 	}
+	
+	@Test
+	public void testEventRouterExecutorQueueFull() throws Exception {
+		
+		configuration.setRefuseFireEvent(true);
+		configuration.setRefuseStartActivity(true);
+		configuration.setPeriodBetweenChecks(0);
+		
+		// two executors with full queues
+		congestionControl.eventRouterExecutorQueueFull();
+		congestionControl.eventRouterExecutorQueueFull();
+		Assert.assertTrue("Not refusing start activity", congestionControl.refuseStartActivity());
+		Assert.assertTrue("Not refusing event firing", congestionControl.refuseFireEvent());
+		
+		// one still full
+		congestionControl.eventRouterExecutorQueueAvailable();
+		Assert.assertTrue("Not refusing start activity", congestionControl.refuseStartActivity());
+		Assert.assertTrue("Not refusing event firing", congestionControl.refuseFireEvent());
+		
+		// none full
+		congestionControl.eventRouterExecutorQueueAvailable();
+		Assert.assertFalse("Refusing start activity", congestionControl.refuseStartActivity());
+		Assert.assertFalse("Refusing event firing", congestionControl.refuseFireEvent());
+	}
 }
@@ -44,10 +44,10 @@ import org.mobicents.slee.container.sbbentity.SbbEntityID;
  */
 public class DefaultEventContextData implements EventContextData {
 
-	private final EventTypeID eventTypeId;
-	private final ServiceID serviceID;
-	private final Object eventObject;
-	private final Address address;
+	private EventTypeID eventTypeId;
+	private ServiceID serviceID;
+	private Object eventObject;
+	private Address address;
 	
 	private LocalActivityContext localActivityContext;
 	private EventUnreferencedCallback unreferencedCallback;
@@ -72,12 +72,42 @@ public class DefaultEventContextData implements EventContextData {
 	 */
 	private LinkedList<ServiceComponent> activeServicesToProcessEventAsInitial;
 
+	/**
+	 * Creates data which needs to be initialized, used by recyclable event
+	 * contexts.
+	 */
+	DefaultEventContextData() {
+	}
+
 	public DefaultEventContextData(EventTypeID eventTypeId, Object event,
 			ActivityContext ac, Address address, ServiceID serviceID,
 			EventProcessingSucceedCallback succeedCallback,
 			EventProcessingFailedCallback failedCallback,
 			EventUnreferencedCallback unreferencedCallback,
 			ReferencesHandler referencesHandler) {
+		init(eventTypeId, event, ac, address, serviceID, succeedCallback,
+				failedCallback, unreferencedCallback, referencesHandler);
+	}
+
+	/**
+	 * Initializes the data with the specified event.
+	 * 
+	 * @param eventTypeId
+	 * @param event
+	 * @param ac
+	 * @param address
+	 * @param serviceID
+	 * @param succeedCallback
+	 * @param failedCallback
+	 * @param unreferencedCallback
+	 * @param referencesHandler
+	 */
+	void init(EventTypeID eventTypeId, Object event,
+			ActivityContext ac, Address address, ServiceID serviceID,
+			EventProcessingSucceedCallback succeedCallback,
+			EventProcessingFailedCallback failedCallback,
+			EventUnreferencedCallback unreferencedCallback,
+			ReferencesHandler referencesHandler) {
 		this.eventTypeId = eventTypeId;
 		this.eventObject = event;
 		this.localActivityContext = ac.getLocalActivityContext();
@@ -241,6 +271,29 @@ public class DefaultEventContextData implements EventContextData {
 		this.unreferencedCallback = null;
 	}
 	
+	/**
+	 * Clears all references to the event, so the data can be reused, without
+	 * the need to create new collections.
+	 */
+	void clear() {
+		eventTypeId = null;
+		eventObject = null;
+		localActivityContext = null;
+		address = null;
+		serviceID = null;
+		succeedCallback = null;
+		failedCallback = null;
+		unreferencedCallback = null;
+		referencesHandler = null;
+		barriedEvents = null;
+		if (sbbEntitiesThatHandledEvent != null) {
+			sbbEntitiesThatHandledEvent.clear();
+		}
+		if (activeServicesToProcessEventAsInitial != null) {
+			activeServicesToProcessEventAsInitial.clear();
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
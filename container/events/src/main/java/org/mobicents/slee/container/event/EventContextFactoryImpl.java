@@ -44,6 +44,12 @@ public class EventContextFactoryImpl extends AbstractSleeContainerModule
 
 	private final EventContextFactoryConfiguration configuration;
 
+	/**
+	 * the pool of recycled event contexts, null if the data source does not
+	 * allow recycling
+	 */
+	private final EventContextPool pool;
+
 	/**
 	 * @param dataSource
 	 */
@@ -52,6 +58,9 @@ public class EventContextFactoryImpl extends AbstractSleeContainerModule
 		super();
 		this.dataSource = dataSource;
 		this.configuration = configuration;
+		// recycled event contexts use the default data impl
+		this.pool = dataSource.getClass() == DefaultEventContextFactoryDataSource.class ? new EventContextPool(
+				configuration) : null;
 	}
 
 	/*
@@ -93,6 +102,21 @@ public class EventContextFactoryImpl extends AbstractSleeContainerModule
 			EventProcessingSucceedCallback succeedCallback,
 			EventProcessingFailedCallback failedCallback,
 			EventUnreferencedCallback unreferencedCallback) {
+		// events with an unreferenced callback requiring a tx may be notified
+		// of routing more than once, so these are not recycled
+		if (pool != null
+				&& configuration.isEventContextPooling()
+				&& (unreferencedCallback == null || !unreferencedCallback
+						.requiresTransaction())) {
+			PooledEventContextImpl eventContext = pool.acquire();
+			if (eventContext == null) {
+				eventContext = new PooledEventContextImpl(this, pool);
+			}
+			eventContext.init(eventTypeId, eventObject, ac, address,
+					serviceID, succeedCallback, failedCallback,
+					unreferencedCallback);
+			return eventContext;
+		}
 		final EventReferencesHandlerImpl referencesHandler = new EventReferencesHandlerImpl();
 		final EventContextData data = dataSource.newEventContextData(
 				eventTypeId, eventObject, ac, address, serviceID,
@@ -49,7 +49,7 @@ import org.mobicents.slee.container.sbbentity.SbbEntityID;
  */
 public class EventContextImpl extends LazyStoredEventContext implements EventContext {
 
-	private final EventContextData data;
+	private EventContextData data;
 	private EventContextSuspensionHandler suspensionHandler;
 
 	public EventContextImpl(EventContextData data, EventContextFactoryImpl factory) {
@@ -57,6 +57,26 @@ public class EventContextImpl extends LazyStoredEventContext implements EventCon
 		this.data = data;
 	}
 
+	/**
+	 * Replaces the event context data, used when an event context is recycled.
+	 * 
+	 * @param data
+	 */
+	protected void setData(EventContextData data) {
+		this.data = data;
+		this.suspensionHandler = null;
+	}
+
+	/**
+	 * Indicates if the suspension handler was created, i.e., if the event
+	 * suspension state was used.
+	 * 
+	 * @return
+	 */
+	protected boolean hasSuspensionHandler() {
+		return suspensionHandler != null;
+	}
+
 	private void suspensionHandlerLazyInit() {
 		if (suspensionHandler == null) {
 			suspensionHandler = new EventContextSuspensionHandler(this);
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.event;
+
+import java.util.Arrays;
+
+import org.mobicents.slee.container.management.jmx.EventContextFactoryConfiguration;
+
+/**
+ * A pool of recycled {@link PooledEventContextImpl}s. Event contexts are
+ * released by the event router executors, once routed, and acquired by the
+ * threads firing events, so the pool is shared.
+ * 
+ * The pool is an array stack, so releasing does not allocate, guarded by the
+ * pool monitor, which is held only to push or pop. The array grows on demand
+ * up to the pool size, which may be changed at runtime, thus a fixed
+ * capacity queue is not used.
+ * 
+ * @author martins
+ * 
+ */
+class EventContextPool {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private PooledEventContextImpl[] stack = new PooledEventContextImpl[0];
+
+	private int size;
+
+	private final EventContextFactoryConfiguration configuration;
+
+	/**
+	 * 
+	 * @param configuration
+	 */
+	EventContextPool(EventContextFactoryConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Retrieves a recycled event context.
+	 * 
+	 * @return null if the pool is empty
+	 */
+	synchronized PooledEventContextImpl acquire() {
+		if (size == 0) {
+			return null;
+		}
+		final PooledEventContextImpl eventContext = stack[--size];
+		stack[size] = null;
+		return eventContext;
+	}
+
+	/**
+	 * Returns a recycled event context to the pool, if the pool is full the
+	 * event context is discarded.
+	 * 
+	 * @param eventContext
+	 */
+	void release(PooledEventContextImpl eventContext) {
+		final int maxSize = configuration.getEventContextPoolSize();
+		synchronized (this) {
+			if (size >= maxSize) {
+				return;
+			}
+			if (size == stack.length) {
+				stack = Arrays.copyOf(stack, Math.min(maxSize, Math.max(INITIAL_CAPACITY, size * 2)));
+			}
+			stack[size++] = eventContext;
+		}
+	}
+
+	/**
+	 * Retrieves the number of event contexts in the pool.
+	 * 
+	 * @return
+	 */
+	synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Indicates if released event contexts should not be reused, but instead
+	 * fail on any further usage.
+	 * 
+	 * @return
+	 */
+	boolean isDebug() {
+		return configuration.isEventContextPoolDebug();
+	}
+
+}
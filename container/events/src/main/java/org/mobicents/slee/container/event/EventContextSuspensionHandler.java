@@ -70,9 +70,10 @@ public class EventContextSuspensionHandler {
 
 	
 	/**
-	 * indicates if the context is suspended or not
+	 * indicates if the context is suspended or not, read by threads other
+	 * than the one routing the event
 	 */
-	private boolean suspended;
+	private volatile boolean suspended;
 	
 	/**
 	 * the scheduled future for the task controlling the suspension timeout
@@ -82,7 +83,7 @@ public class EventContextSuspensionHandler {
 	/**
 	 * transactional action action to change state
 	 */
-	private EventContextStateChange transactionalAction;
+	private volatile EventContextStateChange transactionalAction;
 
 	public void barrierEvent(EventContext eventContext) {
 		barriedEvents.add(eventContext);		
@@ -125,7 +126,9 @@ public class EventContextSuspensionHandler {
 				transactionalAction = new EventContextStateChange();
 				transactionalAction.op = EventContextStateChangeOp.resume;
 				TransactionContext transactionContext = sleeContainer.getTransactionManager().getTransactionContext();
-				transactionContext.getAfterCommitActions().add(transactionalAction);
+				// only resume once the tx completion ended, so that the routing
+				// of the event, in another thread, sees all state changed by the tx
+				transactionContext.getAfterCommitCompletedActions().add(transactionalAction);
 				TransactionalAction rollbackAction = new TransactionalAction() {
 					public void execute() {
 						transactionalAction = null;							
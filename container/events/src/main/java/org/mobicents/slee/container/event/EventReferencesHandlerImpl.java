@@ -46,6 +46,13 @@ public class EventReferencesHandlerImpl implements ReferencesHandler {
 		this.eventContext = eventContext;
 	}
 	
+	/**
+	 * Resets the references count, used when the handler is recycled.
+	 */
+	protected void reset() {
+		references.set(0);
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see org.mobicents.slee.container.event.EventReferencesHandler#add(org.mobicents.slee.container.activity.ActivityContextHandle)
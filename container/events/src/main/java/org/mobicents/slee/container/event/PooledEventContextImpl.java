@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.slee.Address;
+import javax.slee.EventTypeID;
+import javax.slee.ServiceID;
+
+import org.mobicents.slee.container.activity.ActivityContext;
+
+/**
+ * An {@link EventContextImpl} which, together with its data and references
+ * handler, is returned to the factory's pool once the event is both routed
+ * and unreferenced. Event contexts which had the handle requested, i.e.
+ * stored, the suspension state used, or were canceled, are not recycled.
+ * 
+ * @author martins
+ * 
+ */
+class PooledEventContextImpl extends EventContextImpl {
+
+	private final DefaultEventContextData data;
+
+	private final EventReferencesHandlerImpl referencesHandler;
+
+	private final EventContextPool pool;
+
+	/**
+	 * counts the routed and unreferenced notifications, the event context is
+	 * released when both happened
+	 */
+	private final AtomicInteger releaseGate = new AtomicInteger(0);
+
+	/**
+	 * if true the event context is not recycled
+	 */
+	private volatile boolean pinned;
+
+	PooledEventContextImpl(EventContextFactoryImpl factory,
+			EventContextPool pool) {
+		this(new DefaultEventContextData(), new EventReferencesHandlerImpl(),
+				factory, pool);
+	}
+
+	private PooledEventContextImpl(DefaultEventContextData data,
+			EventReferencesHandlerImpl referencesHandler,
+			EventContextFactoryImpl factory, EventContextPool pool) {
+		super(data, factory);
+		this.data = data;
+		this.referencesHandler = referencesHandler;
+		this.pool = pool;
+		referencesHandler.setEventContext(this);
+	}
+
+	/**
+	 * Initializes the event context with a new event.
+	 * 
+	 * @param eventTypeId
+	 * @param eventObject
+	 * @param ac
+	 * @param address
+	 * @param serviceID
+	 * @param succeedCallback
+	 * @param failedCallback
+	 * @param unreferencedCallback
+	 */
+	void init(EventTypeID eventTypeId, Object eventObject,
+			ActivityContext ac, Address address, ServiceID serviceID,
+			EventProcessingSucceedCallback succeedCallback,
+			EventProcessingFailedCallback failedCallback,
+			EventUnreferencedCallback unreferencedCallback) {
+		data.init(eventTypeId, eventObject, ac, address, serviceID,
+				succeedCallback, failedCallback, unreferencedCallback,
+				referencesHandler);
+		referencesHandler.reset();
+		releaseGate.set(0);
+		pinned = false;
+		setData(data);
+	}
+
+	@Override
+	public EventContextHandle getEventContextHandle() {
+		// the event context may now be looked up at any time
+		pinned = true;
+		return super.getEventContextHandle();
+	}
+
+	@Override
+	public void canceled() {
+		// the queue manager still uses the event after canceling it
+		pinned = true;
+		super.canceled();
+	}
+
+	@Override
+	protected void eventUnreferenced() {
+		super.eventUnreferenced();
+		if (releaseGate.incrementAndGet() == 2) {
+			release();
+		}
+	}
+
+	@Override
+	public void routed() {
+		super.routed();
+		if (releaseGate.incrementAndGet() == 2) {
+			release();
+		}
+	}
+
+	private void release() {
+		if (pinned || hasSuspensionHandler()) {
+			return;
+		}
+		if (pool.isDebug()) {
+			// any further usage will fail
+			setData(new ReleasedEventContextData());
+		} else {
+			data.clear();
+			pool.release(this);
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.event;
+
+import java.util.LinkedList;
+import java.util.Set;
+
+import javax.slee.Address;
+import javax.slee.EventTypeID;
+import javax.slee.ServiceID;
+
+import org.mobicents.slee.container.activity.LocalActivityContext;
+import org.mobicents.slee.container.component.service.ServiceComponent;
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+
+/**
+ * The {@link EventContextData} of a recycled event context, when the event
+ * context pool is in debug mode. Any usage fails, providing the point where
+ * the event context was released.
+ * 
+ * @author martins
+ * 
+ */
+class ReleasedEventContextData implements EventContextData {
+
+	private final Throwable releasePoint;
+
+	ReleasedEventContextData() {
+		this.releasePoint = new Throwable("event context released by thread "
+				+ Thread.currentThread().getName());
+	}
+
+	private IllegalStateException usedAfterRelease() {
+		return new IllegalStateException("event context used after release",
+				releasePoint);
+	}
+
+	public void barrierEvent(EventContext eventContext) {
+		throw usedAfterRelease();
+	}
+
+	public LinkedList<ServiceComponent> getActiveServicesToProcessEventAsInitial() {
+		throw usedAfterRelease();
+	}
+
+	public Address getAddress() {
+		throw usedAfterRelease();
+	}
+
+	public Object getEventObject() {
+		throw usedAfterRelease();
+	}
+
+	public EventTypeID getEventTypeId() {
+		throw usedAfterRelease();
+	}
+
+	public EventProcessingFailedCallback getFailedCallback() {
+		throw usedAfterRelease();
+	}
+
+	public LocalActivityContext getLocalActivityContext() {
+		throw usedAfterRelease();
+	}
+
+	public Set<SbbEntityID> getSbbEntitiesThatHandledEvent() {
+		throw usedAfterRelease();
+	}
+
+	public ServiceID getService() {
+		throw usedAfterRelease();
+	}
+
+	public EventProcessingSucceedCallback getSucceedCallback() {
+		throw usedAfterRelease();
+	}
+
+	public EventUnreferencedCallback getUnreferencedCallback() {
+		throw usedAfterRelease();
+	}
+
+	public ReferencesHandler getReferencesHandler() {
+		throw usedAfterRelease();
+	}
+
+	public EventContext[] removeEventsBarried() {
+		throw usedAfterRelease();
+	}
+
+	public void unsetFailedCallback() {
+		throw usedAfterRelease();
+	}
+
+	public void unsetUnreferencedCallback() {
+		throw usedAfterRelease();
+	}
+
+	@Override
+	public String toString() {
+		return "released event context data";
+	}
+}
@@ -35,6 +35,12 @@ public class EventContextFactoryConfiguration implements
 
 	private int defaultEventContextSuspensionTimeout = 10000;
 
+	private volatile boolean eventContextPooling = false;
+
+	private volatile int eventContextPoolSize = 1024;
+
+	private volatile boolean eventContextPoolDebug = false;
+
 	@Override
 	public int getDefaultEventContextSuspensionTimeout() {
 		return defaultEventContextSuspensionTimeout;
@@ -50,4 +56,38 @@ public class EventContextFactoryConfiguration implements
 		this.defaultEventContextSuspensionTimeout = i;
 	}
 
+	@Override
+	public boolean isEventContextPooling() {
+		return eventContextPooling;
+	}
+
+	@Override
+	public void setEventContextPooling(boolean eventContextPooling) {
+		this.eventContextPooling = eventContextPooling;
+	}
+
+	@Override
+	public int getEventContextPoolSize() {
+		return eventContextPoolSize;
+	}
+
+	@Override
+	public void setEventContextPoolSize(int i) throws IllegalArgumentException {
+		if (i < 0) {
+			throw new IllegalArgumentException(
+					"pool size must not be lower than 0");
+		}
+		this.eventContextPoolSize = i;
+	}
+
+	@Override
+	public boolean isEventContextPoolDebug() {
+		return eventContextPoolDebug;
+	}
+
+	@Override
+	public void setEventContextPoolDebug(boolean eventContextPoolDebug) {
+		this.eventContextPoolDebug = eventContextPoolDebug;
+	}
+
 }
@@ -58,4 +58,52 @@ public interface EventContextFactoryConfigurationMBean {
 	public void setDefaultEventContextSuspensionTimeout(int i)
 			throws IllegalArgumentException;
 
+	/**
+	 * Indicates if the event contexts of events fired with no transaction
+	 * aware unreferenced callback are recycled, once routed and unreferenced,
+	 * instead of being created for each event.
+	 * 
+	 * @return
+	 */
+	public boolean isEventContextPooling();
+
+	/**
+	 * Enables or disables the recycling of event contexts.
+	 * 
+	 * @param eventContextPooling
+	 */
+	public void setEventContextPooling(boolean eventContextPooling);
+
+	/**
+	 * Retrieves the max number of recycled event contexts kept for reuse.
+	 * 
+	 * @return
+	 */
+	public int getEventContextPoolSize();
+
+	/**
+	 * Sets the max number of recycled event contexts kept for reuse.
+	 * 
+	 * @param i
+	 * @throws IllegalArgumentException
+	 *             if the size is lower than 0.
+	 */
+	public void setEventContextPoolSize(int i) throws IllegalArgumentException;
+
+	/**
+	 * Indicates if recycled event contexts are not reused, and instead fail
+	 * with an {@link IllegalStateException} on any usage, to detect code
+	 * which keeps using an event context after it was released.
+	 * 
+	 * @return
+	 */
+	public boolean isEventContextPoolDebug();
+
+	/**
+	 * Enables or disables the event context pool debug mode.
+	 * 
+	 * @param eventContextPoolDebug
+	 */
+	public void setEventContextPoolDebug(boolean eventContextPoolDebug);
+
 }
@@ -0,0 +1,311 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.event;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.slee.Address;
+import javax.slee.EventTypeID;
+import javax.slee.SLEEException;
+import javax.slee.ServiceID;
+import javax.slee.facilities.TimerID;
+import javax.slee.resource.ActivityIsEndingException;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.activity.ActivityContext;
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.activity.ActivityContextInterface;
+import org.mobicents.slee.container.activity.ActivityEventQueueManager;
+import org.mobicents.slee.container.activity.LocalActivityContext;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.container.eventrouter.EventRoutingTask;
+import org.mobicents.slee.container.management.jmx.EventContextFactoryConfiguration;
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+
+/**
+ * Tests the recycling of {@link PooledEventContextImpl}s through the
+ * {@link EventContextPool}.
+ * 
+ * @author martins
+ *
+ */
+public class PooledEventContextImplTest extends TestCase {
+
+	private static final EventTypeID EVENT_TYPE_ID = new EventTypeID("name", "vendor", "1.0");
+
+	private EventContextFactoryConfiguration configuration;
+
+	private EventContextFactoryImpl factory;
+
+	private EventContextPool pool;
+
+	private final FakeActivityContext ac = new FakeActivityContext();
+
+	@Override
+	protected void setUp() throws Exception {
+		configuration = new EventContextFactoryConfiguration();
+		configuration.setEventContextPooling(true);
+		configuration.setEventContextPoolSize(2);
+		factory = new EventContextFactoryImpl(new DefaultEventContextFactoryDataSource(), configuration);
+		pool = new EventContextPool(configuration);
+	}
+
+	public void testRoutedAndUnreferencedIsRecycled() {
+		final PooledEventContextImpl eventContext = newEventContext("event");
+		eventContext.fired();
+		eventContext.routed();
+		assertEquals(1, pool.size());
+		assertSame(eventContext, pool.acquire());
+		assertEquals(0, pool.size());
+		// once recycled it holds no event
+		assertNull(eventContext.getEvent());
+		eventContext.init(EVENT_TYPE_ID, "other", ac, null, null, null, null, null);
+		assertEquals("other", eventContext.getEvent());
+	}
+
+	public void testCreatedFromPool() {
+		factory = new EventContextFactoryImpl(new DefaultEventContextFactoryDataSource(), configuration);
+		final EventContext eventContext = factory.createEventContext(EVENT_TYPE_ID, "event", ac, null, null, null, null, null);
+		assertTrue(eventContext instanceof PooledEventContextImpl);
+		eventContext.fired();
+		eventContext.routed();
+		final EventContext other = factory.createEventContext(EVENT_TYPE_ID, "other", ac, null, null, null, null, null);
+		assertSame(eventContext, other);
+		assertEquals("other", other.getEvent());
+	}
+
+	public void testStillReferencedIsNotRecycled() {
+		final PooledEventContextImpl eventContext = newEventContext("event");
+		eventContext.fired();
+		// a second reference, e.g. the event fired in another activity
+		eventContext.getReferencesHandler().add(null);
+		eventContext.routed();
+		assertEquals(0, pool.size());
+		assertEquals("event", eventContext.getEvent());
+		eventContext.getReferencesHandler().remove(null);
+		assertEquals(1, pool.size());
+	}
+
+	public void testPinnedIsNotRecycled() {
+		final PooledEventContextImpl eventContext = newEventContext("event");
+		eventContext.fired();
+		// canceling pins the event context, and also routes it
+		eventContext.canceled();
+		assertEquals(0, pool.size());
+		// still usable by the queue manager
+		assertEquals("event", eventContext.getEvent());
+	}
+
+	public void testDoubleReleaseIsIgnored() {
+		final PooledEventContextImpl eventContext = newEventContext("event");
+		eventContext.fired();
+		eventContext.routed();
+		assertEquals(1, pool.size());
+		// late notifications of the released event context
+		eventContext.routed();
+		eventContext.eventUnreferenced();
+		assertEquals(1, pool.size());
+		assertSame(eventContext, pool.acquire());
+		assertNull(pool.acquire());
+	}
+
+	public void testAccessAfterReleaseFailsInDebugMode() {
+		configuration.setEventContextPoolDebug(true);
+		final PooledEventContextImpl eventContext = newEventContext("event");
+		eventContext.fired();
+		eventContext.routed();
+		assertEquals(0, pool.size());
+		try {
+			eventContext.getEvent();
+			fail("event context used after release");
+		} catch (IllegalStateException e) {
+			// the cause points to where it was released
+			assertNotNull(e.getCause());
+			assertTrue(e.getCause().getMessage().contains(Thread.currentThread().getName()));
+		}
+		try {
+			eventContext.getEventTypeId();
+			fail("event context used after release");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	public void testPoolSize() {
+		final PooledEventContextImpl eventContext1 = new PooledEventContextImpl(factory, pool);
+		final PooledEventContextImpl eventContext2 = new PooledEventContextImpl(factory, pool);
+		final PooledEventContextImpl eventContext3 = new PooledEventContextImpl(factory, pool);
+		pool.release(eventContext1);
+		pool.release(eventContext2);
+		// full, discarded
+		pool.release(eventContext3);
+		assertEquals(2, pool.size());
+		// last released is reused first
+		assertSame(eventContext2, pool.acquire());
+		assertSame(eventContext1, pool.acquire());
+		assertNull(pool.acquire());
+		// size may be changed at runtime
+		configuration.setEventContextPoolSize(40);
+		for (int i = 0; i < 50; i++) {
+			pool.release(new PooledEventContextImpl(factory, pool));
+		}
+		assertEquals(40, pool.size());
+		configuration.setEventContextPoolSize(0);
+		pool.release(eventContext1);
+		assertEquals(40, pool.size());
+		for (int i = 0; i < 40; i++) {
+			assertNotNull(pool.acquire());
+		}
+		assertNull(pool.acquire());
+	}
+
+	private PooledEventContextImpl newEventContext(Object event) {
+		final PooledEventContextImpl eventContext = new PooledEventContextImpl(factory, pool);
+		eventContext.init(EVENT_TYPE_ID, event, ac, null, null, null, null, null);
+		return eventContext;
+	}
+
+	private static class FakeLocalActivityContext implements LocalActivityContext {
+
+		public ActivityContextHandle getActivityContextHandle() {
+			return null;
+		}
+
+		public String getStringId() {
+			return null;
+		}
+
+		public EventRoutingTask getCurrentEventRoutingTask() {
+			return null;
+		}
+
+		public ActivityEventQueueManager getEventQueueManager() {
+			return null;
+		}
+
+		public EventRouterExecutor getExecutorService() {
+			return null;
+		}
+
+		public void setCurrentEventRoutingTask(EventRoutingTask eventRoutingTask) {
+		}
+
+		public void setExecutorService(EventRouterExecutor executor) {
+		}
+	}
+
+	private static class FakeActivityContext implements ActivityContext {
+
+		private final LocalActivityContext localActivityContext = new FakeLocalActivityContext();
+
+		public LocalActivityContext getLocalActivityContext() {
+			return localActivityContext;
+		}
+
+		public ActivityContextHandle getActivityContextHandle() {
+			return null;
+		}
+
+		public void activityEnded() {
+		}
+
+		public void addNameBinding(String aciName) {
+		}
+
+		public boolean attachSbbEntity(SbbEntityID sbbEntityId) {
+			return false;
+		}
+
+		public boolean attachTimer(TimerID timerID) {
+			return false;
+		}
+
+		public void detachSbbEntity(SbbEntityID sbbEntityId) {
+		}
+
+		public boolean detachTimer(TimerID timerID) {
+			return false;
+		}
+
+		public void endActivity() {
+		}
+
+		public void fireEvent(EventTypeID eventTypeId, Object event, Address address, ServiceID serviceID,
+				EventProcessingSucceedCallback succeedCallback, EventProcessingFailedCallback failedCallback,
+				EventUnreferencedCallback unreferencedCallback) throws ActivityIsEndingException, SLEEException {
+		}
+
+		public void fireEvent(EventTypeID eventTypeId, Object event, Address address, ServiceID serviceID,
+				EventContext reference) throws ActivityIsEndingException, SLEEException {
+		}
+
+		public ActivityContextInterface getActivityContextInterface() {
+			return null;
+		}
+
+		public Set<TimerID> getAttachedTimers() {
+			return null;
+		}
+
+		public Object getDataAttribute(String key) {
+			return null;
+		}
+
+		@SuppressWarnings("rawtypes")
+		public Map getDataAttributes() {
+			return null;
+		}
+
+		public Set<String> getNamingBindings() {
+			return null;
+		}
+
+		public Set<SbbEntityID> getSbbAttachmentSet() {
+			return null;
+		}
+
+		public Set<SbbEntityID> getSortedSbbAttachmentSet(Set<SbbEntityID> excludeSet) {
+			return null;
+		}
+
+		public boolean isEnding() {
+			return false;
+		}
+
+		public boolean removeNameBinding(String aciName) {
+			return false;
+		}
+
+		public void setDataAttribute(String key, Object newValue) {
+		}
+
+		public void beforeDeliveringEvent(EventContext eventContext) {
+		}
+
+		public String getStringID() {
+			return null;
+		}
+	}
+}
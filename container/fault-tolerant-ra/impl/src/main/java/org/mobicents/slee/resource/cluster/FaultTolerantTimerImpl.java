@@ -64,7 +64,7 @@ public class FaultTolerantTimerImpl implements FaultTolerantTimer {
 		}
 		this.scheduler = new FaultTolerantScheduler("fts-raentity-" + raEntity,
 				threads, sleeContainer.getCluster(), (byte) 0, sleeContainer
-						.getTransactionManager().getRealTransactionManager(),
+						.getTransactionManager(),
 				new FaultTolerantTimerTaskFactoryWrapper(taskFactory));
 	}
 
@@ -38,6 +38,14 @@ public class Configuration {
 	private String hibernateDatasource;
 	
 	private String hibernateDialect;
+	
+	private int profileCacheSize;
+	
+	private int profileCacheTimeToLive;
+	
+	private int profileAttributeIndexMaxSize;
+	
+	private int jdbcBatchSize;
 
 	/**
 	 *  
@@ -103,4 +111,68 @@ public class Configuration {
 		this.hibernateDialect = hibernateDialect;
 	}	
 	
+	/**
+	 *  
+	 * @return the max number of profiles cached in memory per profile table, 0 if there is no cache
+	 */
+	public int getProfileCacheSize() {
+		return profileCacheSize;
+	}
+
+	/**
+	 *  
+	 * @param profileCacheSize the profileCacheSize to set
+	 */
+	public void setProfileCacheSize(int profileCacheSize) {
+		this.profileCacheSize = profileCacheSize;
+	}
+
+	/**
+	 *  
+	 * @return the time, in seconds, a profile stays cached in memory, 0 if it does not expire
+	 */
+	public int getProfileCacheTimeToLive() {
+		return profileCacheTimeToLive;
+	}
+
+	/**
+	 *  
+	 * @param profileCacheTimeToLive the profileCacheTimeToLive to set
+	 */
+	public void setProfileCacheTimeToLive(int profileCacheTimeToLive) {
+		this.profileCacheTimeToLive = profileCacheTimeToLive;
+	}
+
+	/**
+	 *  
+	 * @return the max number of profiles a table may have to keep in memory indexes of its attributes, 0 if there are no indexes
+	 */
+	public int getProfileAttributeIndexMaxSize() {
+		return profileAttributeIndexMaxSize;
+	}
+
+	/**
+	 *  
+	 * @param profileAttributeIndexMaxSize the profileAttributeIndexMaxSize to set
+	 */
+	public void setProfileAttributeIndexMaxSize(int profileAttributeIndexMaxSize) {
+		this.profileAttributeIndexMaxSize = profileAttributeIndexMaxSize;
+	}
+
+	/**
+	 *  
+	 * @return the max number of profile writes sent to the database in a single JDBC batch, 0 if batching is disabled
+	 */
+	public int getJdbcBatchSize() {
+		return jdbcBatchSize;
+	}
+
+	/**
+	 *  
+	 * @param jdbcBatchSize the jdbcBatchSize to set
+	 */
+	public void setJdbcBatchSize(int jdbcBatchSize) {
+		this.jdbcBatchSize = jdbcBatchSize;
+	}
+	
 }
@@ -29,6 +29,7 @@ import org.hibernate.internal.QueryImpl;
 import org.jboss.as.jpa.config.PersistenceUnitMetadataImpl;
 import org.mobicents.slee.container.component.profile.ProfileAttribute;
 import org.mobicents.slee.container.component.profile.ProfileSpecificationComponent;
+import org.mobicents.slee.container.deployment.profile.ClassGeneratorUtils;
 import org.mobicents.slee.container.profile.entity.ProfileEntity;
 import org.mobicents.slee.container.profile.entity.ProfileEntityFactory;
 import org.mobicents.slee.container.profile.entity.ProfileEntityFramework;
@@ -48,12 +49,15 @@ import javax.slee.profile.AttributeTypeMismatchException;
 import javax.slee.profile.UnrecognizedAttributeException;
 import javax.slee.profile.UnrecognizedQueryNameException;
 import javax.slee.profile.query.QueryExpression;
+import javax.transaction.SystemException;
 import javax.transaction.Transaction;
+import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 
@@ -112,6 +116,12 @@ public class JPAProfileEntityFramework implements ProfileEntityFramework {
 	
 	private final Configuration configuration;
 
+	/**
+	 * the getters of the profile entity class, per attribute name, used to
+	 * retrieve attribute index keys
+	 */
+	private final ConcurrentHashMap<String, Method> profileEntityAttributeGetters = new ConcurrentHashMap<String, Method>();
+
 	/**
 	 * 
 	 * @param component
@@ -489,6 +499,81 @@ public class JPAProfileEntityFramework implements ProfileEntityFramework {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.profile.entity.ProfileEntityFramework
+	 * #getProfileAttributeIndexKeys
+	 * (org.mobicents.slee.container.profile.entity.ProfileEntity,
+	 * org.mobicents.slee.container.component.profile.ProfileAttribute)
+	 */
+	public Collection<Object> getProfileAttributeIndexKeys(
+			final ProfileEntity profileEntity, ProfileAttribute profileAttribute) {
+
+		Method getter = profileEntityAttributeGetters.get(profileAttribute.getName());
+		if (getter == null) {
+			try {
+				getter = profileEntityClass.getMethod("get" + ClassGeneratorUtils.getPojoCmpAccessorSufix(profileAttribute.getName()));
+			} catch (NoSuchMethodException e) {
+				throw new SLEEException(e.getMessage(), e);
+			}
+			profileEntityAttributeGetters.put(profileAttribute.getName(), getter);
+		}
+
+		Object value = null;
+		if (System.getSecurityManager() == null) {
+			try {
+				value = getter.invoke(profileEntity);
+			} catch (Exception e) {
+				throw new SLEEException(e.getMessage(), e);
+			}
+		} else {
+			final Method privilegedGetter = getter;
+			try {
+				value = AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
+					public Object run() throws Exception {
+						return privilegedGetter.invoke(profileEntity);
+					}
+				});
+			} catch (PrivilegedActionException e) {
+				throw new SLEEException(e.getMessage(), e.getCause());
+			}
+		}
+
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		if (profileAttribute.isArray()) {
+			// array values are matched by their string form, see findProfilesByAttribute(...)
+			final List<?> arrayValues = (List<?>) value;
+			final List<Object> result = new ArrayList<Object>(arrayValues.size());
+			for (Object arrayValue : arrayValues) {
+				final String string = ((ProfileEntityArrayAttributeValue) arrayValue).getString();
+				if (string != null) {
+					result.add(string);
+				}
+			}
+			return result;
+		} else {
+			return Collections.singletonList(value);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.profile.entity.ProfileEntityFramework
+	 * #getProfileAttributeIndexKey
+	 * (org.mobicents.slee.container.component.profile.ProfileAttribute,
+	 * java.lang.Object)
+	 */
+	public Object getProfileAttributeIndexKey(
+			ProfileAttribute profileAttribute, Object attributeValue) {
+		return profileAttribute.isArray() ? attributeValue.toString() : attributeValue;
+	}
+
     /*
      * (non-Javadoc)
      * 
@@ -678,7 +763,12 @@ public class JPAProfileEntityFramework implements ProfileEntityFramework {
 
 			properties.setProperty(Environment.USE_REFLECTION_OPTIMIZER, "false");
 			properties.setProperty(Environment.BYTECODE_PROVIDER, "javassist");
-			properties.setProperty(Environment.STATEMENT_BATCH_SIZE, "0");
+			properties.setProperty(Environment.STATEMENT_BATCH_SIZE, Integer.toString(configuration.getJdbcBatchSize()));
+			if (configuration.getJdbcBatchSize() > 0) {
+				// group inserts and updates per entity, so that profiles and array attribute values are batched
+				properties.setProperty(Environment.ORDER_INSERTS, "true");
+				properties.setProperty(Environment.ORDER_UPDATES, "true");
+			}
 			properties.setProperty(Environment.SHOW_SQL, "false");
 			properties.setProperty(Environment.FORMAT_SQL, "false");
 
@@ -742,6 +832,12 @@ public class JPAProfileEntityFramework implements ProfileEntityFramework {
 		EntityManager result = (EntityManager) transactionContextData
 				.get(txDataKey);
 		if (result == null) {
+			// the persistence context joins the transaction of the underlying tx manager
+			try {
+				sleeTransactionManager.requireRealTransaction();
+			} catch (SystemException e) {
+				throw new SLEEException(e.getMessage(), e);
+			}
 			// create using factory
 			result = entityManagerFactory.createEntityManager();
 			// store in tx context data
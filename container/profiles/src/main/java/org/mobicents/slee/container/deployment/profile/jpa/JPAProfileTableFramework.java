@@ -40,6 +40,7 @@ import javax.persistence.spi.PersistenceUnitTransactionType;
 import javax.slee.SLEEException;
 import javax.slee.profile.ProfileSpecificationID;
 import javax.slee.profile.ProfileTableAlreadyExistsException;
+import javax.transaction.SystemException;
 import javax.transaction.Transaction;
 import java.util.*;
 
@@ -173,6 +174,21 @@ public class JPAProfileTableFramework {
         }
     }
 
+    /**
+     * Creates an entity manager, ensuring the current SLEE transaction is
+     * backed by a transaction the persistence context can join.
+     *
+     * @return
+     */
+    private EntityManager createEntityManager() {
+        try {
+            sleeTransactionManager.requireRealTransaction();
+        } catch (SystemException e) {
+            throw new SLEEException(e.getMessage(), e);
+        }
+        return entityManagerFactory.createEntityManager();
+    }
+
     public void storeProfileTable(ProfileTableImpl profileTable) {
 
         if (logger.isTraceEnabled()) {
@@ -182,7 +198,7 @@ public class JPAProfileTableFramework {
         EntityManager em = null;
 
         try {
-            em = entityManagerFactory.createEntityManager();
+            em = createEntityManager();
             em.persist(new JPAProfileTable(profileTable));
             em.flush();
         } finally {
@@ -201,7 +217,7 @@ public class JPAProfileTableFramework {
         EntityManager em = null;
 
         try {
-            em = entityManagerFactory.createEntityManager();
+            em = createEntityManager();
 
             Query q = em.createNamedQuery(JPAProfileTable.JPA_NAMED_QUERY_DELETE_TABLE)
                     .setParameter("profileTableName", profileTableName);
@@ -223,7 +239,7 @@ public class JPAProfileTableFramework {
         EntityManager em = null;
 
         try {
-            em = entityManagerFactory.createEntityManager();
+            em = createEntityManager();
 
             Query q = em.createNamedQuery(JPAProfileTable.JPA_NAMED_QUERY_RENAME_TABLE)
                     .setParameter("newProfileTableName", newProfileTableName)
@@ -245,7 +261,7 @@ public class JPAProfileTableFramework {
 
         try {
 
-            em = entityManagerFactory.createEntityManager();
+            em = createEntityManager();
 
             Query q = em.createNamedQuery(JPAProfileTable.JPA_NAMED_QUERY_FIND_TABLE_BY_NAME)
                     .setParameter("profileTableName", profileTableName);
@@ -322,7 +338,7 @@ public class JPAProfileTableFramework {
                 createPersistenceUnit();
             }
 
-            em = entityManagerFactory.createEntityManager();
+            em = createEntityManager();
 
             Query q = null;
             if (profileSpecificationID == null) {
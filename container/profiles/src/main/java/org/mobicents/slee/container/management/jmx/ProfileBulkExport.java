@@ -0,0 +1,401 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+import java.beans.PropertyEditor;
+import java.beans.PropertyEditorManager;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.slee.SLEEException;
+import javax.slee.profile.ProfileID;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.container.component.profile.ProfileSpecificationComponent;
+import org.mobicents.slee.container.deployment.profile.ClassGeneratorUtils;
+import org.mobicents.slee.container.profile.ProfileObjectImpl;
+import org.mobicents.slee.container.profile.ProfileTableImpl;
+import org.mobicents.slee.container.transaction.SleeTransactionManager;
+
+/**
+ * Exports the profiles of a profile table to a CSV or JSON file, in the
+ * formats read by {@link ProfileBulkImport}, with all profile attributes
+ * ordered by name. Profiles are read in batches, each in its own
+ * transaction, which is rolled back since nothing is changed.
+ * 
+ * Null values are exported as empty CSV values, same as empty strings, or
+ * omitted from JSON objects. Values with line breaks, or array elements with
+ * {@link ProfileBulkImport#ARRAY_ELEMENTS_SEPARATOR}, can't be imported back
+ * from CSV, the JSON format should be used for those.
+ * 
+ * @author martins
+ * 
+ */
+public class ProfileBulkExport {
+
+	private static final Logger logger = Logger.getLogger(ProfileBulkExport.class);
+
+	private final ProfileTableImpl profileTable;
+
+	private final String fileName;
+
+	private final int batchSize;
+
+	private final SleeTransactionManager txManager;
+
+	private final AtomicLong exported = new AtomicLong();
+
+	private final boolean json;
+
+	private String[] attributeNames;
+
+	private Method[] cmpGetters;
+
+	private boolean firstJsonProfile = true;
+
+	/**
+	 * 
+	 * @param profileTable
+	 * @param fileName
+	 * @param batchSize
+	 *            the max number of profiles read per transaction
+	 * @param txManager
+	 */
+	public ProfileBulkExport(ProfileTableImpl profileTable, String fileName,
+			int batchSize, SleeTransactionManager txManager) {
+		this.profileTable = profileTable;
+		this.fileName = fileName;
+		this.batchSize = batchSize;
+		this.txManager = txManager;
+		this.json = fileName.toLowerCase().endsWith(ProfileBulkImport.JSON_FILE_EXTENSION);
+	}
+
+	/**
+	 * Executes the export, returning once all profiles are written.
+	 * 
+	 * @return the number of profiles exported
+	 * @throws IOException
+	 *             if the file can't be written
+	 * @throws SLEEException
+	 *             if profiles can't be read
+	 */
+	public long execute() throws IOException, SLEEException {
+
+		final ProfileSpecificationComponent component = profileTable.getProfileSpecificationComponent();
+		final ClassLoader oldClassLoader = Thread.currentThread().getContextClassLoader();
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), "UTF-8"));
+		try {
+			Thread.currentThread().setContextClassLoader(component.getClassLoader());
+			buildCmpGetters(component);
+			if (json) {
+				writer.write('[');
+			}
+			else {
+				final List<String> header = new ArrayList<String>(attributeNames.length + 1);
+				header.add(ProfileJsonReader.PROFILE_NAME);
+				Collections.addAll(header, attributeNames);
+				writer.write(formatLine(header));
+				writer.write('\n');
+			}
+			final List<String> profileNames = getProfileNames();
+			for (int i = 0; i < profileNames.size(); i += batchSize) {
+				exportBatch(profileNames.subList(i, Math.min(i + batchSize, profileNames.size())), writer);
+			}
+			if (json) {
+				writer.write(firstJsonProfile ? "]\n" : "\n]\n");
+			}
+		} finally {
+			Thread.currentThread().setContextClassLoader(oldClassLoader);
+			writer.close();
+		}
+		return exported.get();
+	}
+
+	private void buildCmpGetters(ProfileSpecificationComponent component) {
+		final List<String> names = new ArrayList<String>(component.getProfileAttributes().keySet());
+		Collections.sort(names);
+		attributeNames = names.toArray(new String[names.size()]);
+		cmpGetters = new Method[attributeNames.length];
+		for (int i = 0; i < attributeNames.length; i++) {
+			try {
+				cmpGetters[i] = component.getProfileCmpInterfaceClass().getMethod("get" + ClassGeneratorUtils.capitalize(attributeNames[i]));
+			} catch (NoSuchMethodException e) {
+				throw new SLEEException(component + " does not defines a getter for attribute " + attributeNames[i], e);
+			}
+		}
+	}
+
+	private List<String> getProfileNames() throws SLEEException {
+		final List<String> result = new ArrayList<String>();
+		try {
+			txManager.begin();
+			try {
+				for (ProfileID profileID : profileTable.getProfiles()) {
+					// skip the default profile
+					if (profileID.getProfileName() != null) {
+						result.add(profileID.getProfileName());
+					}
+				}
+			} finally {
+				txManager.rollback();
+			}
+		} catch (SLEEException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SLEEException(e.getMessage(), e);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads and writes a batch of profiles in a single transaction.
+	 * 
+	 * @param profileNames
+	 * @param writer
+	 * @throws IOException
+	 * @throws SLEEException
+	 */
+	private void exportBatch(List<String> profileNames, Writer writer)
+			throws IOException, SLEEException {
+		try {
+			txManager.begin();
+			try {
+				for (String profileName : profileNames) {
+					final ProfileObjectImpl profileObject = profileTable.getProfile(profileName);
+					if (profileObject == null) {
+						// removed meanwhile
+						continue;
+					}
+					final Object[] values = new Object[cmpGetters.length];
+					for (int i = 0; i < cmpGetters.length; i++) {
+						try {
+							values[i] = cmpGetters[i].invoke(profileObject.getProfileConcrete());
+						} catch (InvocationTargetException e) {
+							throw new SLEEException("failed to get attribute " + attributeNames[i] + " of profile " + profileName, e.getCause());
+						}
+					}
+					if (json) {
+						writer.write(firstJsonProfile ? "\n" : ",\n");
+						firstJsonProfile = false;
+						writer.write(formatJsonProfile(profileName, attributeNames, values));
+					}
+					else {
+						writer.write(formatCsvProfile(profileName, values));
+						writer.write('\n');
+					}
+					exported.incrementAndGet();
+				}
+			} finally {
+				txManager.rollback();
+			}
+		} catch (IOException e) {
+			throw e;
+		} catch (SLEEException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SLEEException(e.getMessage(), e);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug(this.toString());
+		}
+	}
+
+	/**
+	 * Formats a profile as a CSV line, without line terminator.
+	 * 
+	 * @param profileName
+	 * @param values
+	 * @return
+	 */
+	static String formatCsvProfile(String profileName, Object[] values) {
+		final List<String> cells = new ArrayList<String>(values.length + 1);
+		cells.add(profileName);
+		for (Object value : values) {
+			if (value == null) {
+				cells.add("");
+			}
+			else if (value.getClass().isArray()) {
+				final StringBuilder cell = new StringBuilder();
+				for (int i = 0; i < Array.getLength(value); i++) {
+					if (i > 0) {
+						cell.append(ProfileBulkImport.ARRAY_ELEMENTS_SEPARATOR);
+					}
+					cell.append(formatValue(Array.get(value, i)));
+				}
+				cells.add(cell.toString());
+			}
+			else {
+				cells.add(formatValue(value));
+			}
+		}
+		return formatLine(cells);
+	}
+
+	/**
+	 * Formats CSV values as a line, quoting the values with quotes, commas
+	 * or surrounding spaces.
+	 * 
+	 * @param values
+	 * @return
+	 */
+	static String formatLine(List<String> values) {
+		final StringBuilder result = new StringBuilder();
+		for (int i = 0; i < values.size(); i++) {
+			if (i > 0) {
+				result.append(',');
+			}
+			final String value = values.get(i);
+			if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || !value.equals(value.trim())) {
+				result.append('"').append(value.replace("\"", "\"\"")).append('"');
+			}
+			else {
+				result.append(value);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Formats a profile as a JSON object, numbers and booleans are written
+	 * as such, other values as strings.
+	 * 
+	 * @param profileName
+	 * @param attributeNames
+	 * @param values
+	 * @return
+	 */
+	static String formatJsonProfile(String profileName, String[] attributeNames, Object[] values) {
+		final StringBuilder result = new StringBuilder("{");
+		appendJsonString(result, ProfileJsonReader.PROFILE_NAME).append(':');
+		appendJsonString(result, profileName);
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				continue;
+			}
+			result.append(',');
+			appendJsonString(result, attributeNames[i]).append(':');
+			if (values[i].getClass().isArray()) {
+				result.append('[');
+				for (int j = 0; j < Array.getLength(values[i]); j++) {
+					if (j > 0) {
+						result.append(',');
+					}
+					appendJsonValue(result, Array.get(values[i], j));
+				}
+				result.append(']');
+			}
+			else {
+				appendJsonValue(result, values[i]);
+			}
+		}
+		return result.append('}').toString();
+	}
+
+	private static void appendJsonValue(StringBuilder sb, Object value) {
+		if (value == null) {
+			sb.append("null");
+		}
+		else if (value instanceof Number || value instanceof Boolean) {
+			sb.append(value);
+		}
+		else {
+			appendJsonString(sb, formatValue(value));
+		}
+	}
+
+	private static StringBuilder appendJsonString(StringBuilder sb, String s) {
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			final char c = s.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				}
+				else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"');
+	}
+
+	/**
+	 * Converts a value to text, with the property editor of its type if
+	 * there is one, the reverse of {@link ProfileBulkImport#parseValue(Class, String)}.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	static String formatValue(Object value) {
+		if (value instanceof String || value instanceof Character || value instanceof Number || value instanceof Boolean) {
+			return value.toString();
+		}
+		final PropertyEditor editor = PropertyEditorManager.findEditor(value.getClass());
+		if (editor == null) {
+			return value.toString();
+		}
+		editor.setValue(value);
+		return editor.getAsText();
+	}
+
+	/**
+	 * Retrieves the number of profiles exported.
+	 * 
+	 * @return
+	 */
+	public long getExported() {
+		return exported.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ProfileBulkExport( table = " + profileTable.getProfileTableName()
+				+ " , file = " + fileName + " , exported = " + exported.get() + " )";
+	}
+}
@@ -0,0 +1,595 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+import java.beans.PropertyEditor;
+import java.beans.PropertyEditorManager;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.slee.InvalidArgumentException;
+import javax.slee.SLEEException;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.container.component.profile.ProfileAttribute;
+import org.mobicents.slee.container.component.profile.ProfileSpecificationComponent;
+import org.mobicents.slee.container.deployment.profile.ClassGeneratorUtils;
+import org.mobicents.slee.container.profile.ProfileObjectImpl;
+import org.mobicents.slee.container.profile.ProfileTableImpl;
+import org.mobicents.slee.container.transaction.SleeTransactionManager;
+import org.mobicents.slee.util.concurrent.SleeThreadFactory;
+
+/**
+ * Imports profiles into a profile table from a CSV or JSON file. Profiles
+ * are created in batches, each in its own transaction, executed by parallel
+ * workers, while the file is read.
+ * 
+ * The first line of a CSV file is a header with the profile name column
+ * followed by the names of the profile attributes to set, each other line
+ * holds a profile. Elements of array attributes are separated by
+ * {@link #ARRAY_ELEMENTS_SEPARATOR}, and empty values leave the attribute
+ * with the default profile value.
+ * 
+ * A file with name ending in {@link #JSON_FILE_EXTENSION} holds a JSON array
+ * of profile objects, see {@link ProfileJsonReader}, where absent or null
+ * members leave the attribute with the default profile value.
+ * 
+ * Values are converted from text with the property editor of the attribute
+ * type. If a batch fails its profiles are retried one per transaction, so
+ * that only the invalid profiles are not imported. In dry run mode profiles
+ * are created and verified but every transaction is rolled back.
+ * 
+ * @author martins
+ * 
+ */
+public class ProfileBulkImport {
+
+	private static final Logger logger = Logger.getLogger(ProfileBulkImport.class);
+
+	private static final SleeThreadFactory SLEE_THREAD_FACTORY = new SleeThreadFactory("SLEE-ProfileBulkImport");
+
+	public static final char ARRAY_ELEMENTS_SEPARATOR = '|';
+
+	public static final String JSON_FILE_EXTENSION = ".json";
+
+	private final ProfileTableImpl profileTable;
+
+	private final String fileName;
+
+	private final int batchSize;
+
+	private final int workers;
+
+	private final boolean dryRun;
+
+	private final SleeTransactionManager txManager;
+
+	private final AtomicLong read = new AtomicLong();
+
+	private final AtomicLong imported = new AtomicLong();
+
+	private final AtomicLong failed = new AtomicLong();
+
+	/**
+	 * the setters of the profile attributes, by attribute name, only used by
+	 * the thread reading the file
+	 */
+	private final Map<String, AttributeSetter> attributeSetters = new HashMap<String, AttributeSetter>();
+
+	/**
+	 * the cmp setters of the profile specification, by attribute name,
+	 * built on first use
+	 */
+	private Map<String, Method> cmpSetters;
+
+	/**
+	 * 
+	 * @param profileTable
+	 * @param fileName
+	 * @param batchSize
+	 *            the max number of profiles created per transaction
+	 * @param workers
+	 *            the number of threads creating profiles
+	 * @param dryRun
+	 *            if true all transactions are rolled back
+	 * @param txManager
+	 */
+	public ProfileBulkImport(ProfileTableImpl profileTable, String fileName,
+			int batchSize, int workers, boolean dryRun,
+			SleeTransactionManager txManager) {
+		this.profileTable = profileTable;
+		this.fileName = fileName;
+		this.batchSize = batchSize;
+		this.workers = workers;
+		this.dryRun = dryRun;
+		this.txManager = txManager;
+	}
+
+	/**
+	 * Executes the import, returning once all profiles are processed.
+	 * 
+	 * @return the number of profiles imported, or validated in dry run mode
+	 * @throws IOException
+	 *             if the file can't be read, or it is not valid JSON
+	 * @throws InvalidArgumentException
+	 *             if the CSV file header is not valid
+	 * @throws InterruptedException
+	 */
+	public long execute() throws IOException, InvalidArgumentException,
+			InterruptedException {
+
+		final ClassLoader oldClassLoader = Thread.currentThread().getContextClassLoader();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), "UTF-8"));
+		ThreadPoolExecutor executor = null;
+		try {
+			Thread.currentThread().setContextClassLoader(getProfileClassLoader());
+			// the caller runs batches when all workers are busy, which
+			// throttles the file reading
+			executor = new ThreadPoolExecutor(workers, workers, 0L,
+					TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(workers),
+					SLEE_THREAD_FACTORY, new ThreadPoolExecutor.CallerRunsPolicy());
+			if (fileName.toLowerCase().endsWith(JSON_FILE_EXTENSION)) {
+				readJson(reader, executor);
+			}
+			else {
+				readCsv(reader, executor);
+			}
+		} finally {
+			Thread.currentThread().setContextClassLoader(oldClassLoader);
+			reader.close();
+			if (executor != null) {
+				executor.shutdown();
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			}
+		}
+		return imported.get();
+	}
+
+	private void readCsv(BufferedReader reader, ThreadPoolExecutor executor)
+			throws IOException, InvalidArgumentException {
+		String line = reader.readLine();
+		if (line == null) {
+			throw new InvalidArgumentException("file " + fileName + " is empty");
+		}
+		final List<String> header = parseLine(line);
+		final AttributeSetter[] setters = new AttributeSetter[header.size() - 1];
+		for (int i = 1; i < header.size(); i++) {
+			setters[i - 1] = getAttributeSetter(header.get(i).trim());
+		}
+		List<ProfileRow> batch = new ArrayList<ProfileRow>(batchSize);
+		int lineNumber = 1;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.trim().length() == 0) {
+				continue;
+			}
+			read.incrementAndGet();
+			try {
+				batch.add(parseRow(lineNumber, setters, parseLine(line)));
+			} catch (IllegalArgumentException e) {
+				profileFailed(lineNumber, e);
+				continue;
+			}
+			if (batch.size() == batchSize) {
+				submit(executor, batch);
+				batch = new ArrayList<ProfileRow>(batchSize);
+			}
+		}
+		if (!batch.isEmpty()) {
+			submit(executor, batch);
+		}
+	}
+
+	private void readJson(BufferedReader reader, ThreadPoolExecutor executor)
+			throws IOException {
+		final ProfileJsonReader jsonReader = new ProfileJsonReader(reader);
+		List<ProfileRow> batch = new ArrayList<ProfileRow>(batchSize);
+		Map<String, Object> profile = null;
+		while ((profile = jsonReader.next()) != null) {
+			read.incrementAndGet();
+			try {
+				batch.add(parseRow(jsonReader.getLineNumber(), profile));
+			} catch (IllegalArgumentException e) {
+				profileFailed(jsonReader.getLineNumber(), e);
+				continue;
+			}
+			if (batch.size() == batchSize) {
+				submit(executor, batch);
+				batch = new ArrayList<ProfileRow>(batchSize);
+			}
+		}
+		if (!batch.isEmpty()) {
+			submit(executor, batch);
+		}
+	}
+
+	private void submit(ThreadPoolExecutor executor, final List<ProfileRow> batch) {
+		executor.execute(new Runnable() {
+			public void run() {
+				importBatch(batch);
+			}
+		});
+	}
+
+	/**
+	 * Retrieves the class loader of the profile specification, set while
+	 * profiles are created.
+	 * 
+	 * @return
+	 */
+	ClassLoader getProfileClassLoader() {
+		return profileTable.getProfileSpecificationComponent().getClassLoader();
+	}
+
+	/**
+	 * Retrieves the setter for the specified profile attribute.
+	 * 
+	 * @param attributeName
+	 * @return
+	 * @throws InvalidArgumentException
+	 *             if the profile specification does not define a cmp field
+	 *             with such name
+	 */
+	AttributeSetter getAttributeSetter(String attributeName)
+			throws InvalidArgumentException {
+		AttributeSetter result = attributeSetters.get(attributeName);
+		if (result != null) {
+			return result;
+		}
+		final ProfileSpecificationComponent component = profileTable.getProfileSpecificationComponent();
+		if (cmpSetters == null) {
+			cmpSetters = new HashMap<String, Method>();
+			for (Method method : component.getProfileCmpInterfaceClass().getMethods()) {
+				if (method.getName().startsWith("set") && method.getParameterTypes().length == 1) {
+					cmpSetters.put(ClassGeneratorUtils.decapitalize(method.getName().substring(3)), method);
+				}
+			}
+		}
+		final ProfileAttribute profileAttribute = component.getProfileAttributes().get(attributeName);
+		final Method cmpSetter = cmpSetters.get(attributeName);
+		if (profileAttribute == null || cmpSetter == null) {
+			throw new InvalidArgumentException(component + " does not defines an attribute named " + attributeName);
+		}
+		result = new AttributeSetter(attributeName, profileAttribute.getType(), cmpSetter);
+		attributeSetters.put(attributeName, result);
+		return result;
+	}
+
+	private ProfileRow parseRow(int lineNumber, AttributeSetter[] setters,
+			List<String> cells) throws IllegalArgumentException {
+		if (cells.size() != setters.length + 1) {
+			throw new IllegalArgumentException("expected " + (setters.length + 1) + " values, found " + cells.size());
+		}
+		final String profileName = cells.get(0).trim();
+		ProfileTableImpl.validateProfileName(profileName);
+		final Object[] values = new Object[setters.length];
+		for (int i = 0; i < values.length; i++) {
+			final String text = cells.get(i + 1);
+			if (text.length() > 0) {
+				values[i] = setters[i].type.isArray() ? parseArray(setters[i].type, split(text, ARRAY_ELEMENTS_SEPARATOR)) : parseValue(setters[i].type, text);
+			}
+		}
+		return new ProfileRow(lineNumber, profileName, setters, values);
+	}
+
+	@SuppressWarnings("unchecked")
+	private ProfileRow parseRow(int lineNumber, Map<String, Object> profile)
+			throws IllegalArgumentException {
+		final Object profileName = profile.get(ProfileJsonReader.PROFILE_NAME);
+		if (!(profileName instanceof String)) {
+			throw new IllegalArgumentException("profile without " + ProfileJsonReader.PROFILE_NAME);
+		}
+		ProfileTableImpl.validateProfileName((String) profileName);
+		final List<AttributeSetter> setters = new ArrayList<AttributeSetter>(profile.size());
+		final List<Object> values = new ArrayList<Object>(profile.size());
+		for (Map.Entry<String, Object> member : profile.entrySet()) {
+			if (member.getKey().equals(ProfileJsonReader.PROFILE_NAME) || member.getValue() == null) {
+				continue;
+			}
+			final AttributeSetter setter;
+			try {
+				setter = getAttributeSetter(member.getKey());
+			} catch (InvalidArgumentException e) {
+				throw new IllegalArgumentException(e.getMessage());
+			}
+			if (member.getValue() instanceof List) {
+				if (!setter.type.isArray()) {
+					throw new IllegalArgumentException("attribute " + setter.name + " is not an array");
+				}
+				values.add(parseArray(setter.type, (List<String>) member.getValue()));
+			}
+			else {
+				if (setter.type.isArray()) {
+					throw new IllegalArgumentException("attribute " + setter.name + " is an array");
+				}
+				values.add(parseValue(setter.type, (String) member.getValue()));
+			}
+			setters.add(setter);
+		}
+		return new ProfileRow(lineNumber, (String) profileName, setters.toArray(new AttributeSetter[setters.size()]), values.toArray());
+	}
+
+	private static Object parseArray(Class<?> type, List<String> elements)
+			throws IllegalArgumentException {
+		final Object array = Array.newInstance(type.getComponentType(), elements.size());
+		for (int i = 0; i < elements.size(); i++) {
+			Array.set(array, i, parseValue(type.getComponentType(), elements.get(i)));
+		}
+		return array;
+	}
+
+	static Object parseValue(Class<?> type, String text)
+			throws IllegalArgumentException {
+		if (type == String.class) {
+			return text;
+		}
+		if (type == char.class || type == Character.class) {
+			if (text.length() != 1) {
+				throw new IllegalArgumentException("invalid char value " + text);
+			}
+			return Character.valueOf(text.charAt(0));
+		}
+		final PropertyEditor editor = PropertyEditorManager.findEditor(type);
+		if (editor == null) {
+			throw new IllegalArgumentException("no property editor for type " + type.getName());
+		}
+		editor.setAsText(text.trim());
+		return editor.getValue();
+	}
+
+	/**
+	 * Parses a CSV line, values may be quoted with '"', using '""' for a
+	 * quote inside a quoted value. Values spanning multiple lines are not
+	 * supported.
+	 * 
+	 * @param line
+	 * @return
+	 */
+	static List<String> parseLine(String line) {
+		final List<String> result = new ArrayList<String>();
+		final StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"') {
+					if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						value.append(c);
+						i++;
+					} else {
+						quoted = false;
+					}
+				} else {
+					value.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				result.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		result.add(value.toString());
+		return result;
+	}
+
+	private static List<String> split(String text, char separator) {
+		final List<String> result = new ArrayList<String>();
+		int start = 0;
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) == separator) {
+				result.add(text.substring(start, i));
+				start = i + 1;
+			}
+		}
+		result.add(text.substring(start));
+		return result;
+	}
+
+	/**
+	 * Imports a batch of profiles in a single transaction, if that fails
+	 * each profile is retried in its own transaction.
+	 * 
+	 * @param batch
+	 */
+	private void importBatch(List<ProfileRow> batch) {
+		try {
+			createProfiles(batch);
+			imported.addAndGet(batch.size());
+			if (logger.isDebugEnabled()) {
+				logger.debug(this.toString());
+			}
+			return;
+		} catch (Throwable e) {
+			if (batch.size() == 1) {
+				profileFailed(batch.get(0).lineNumber, e);
+				return;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to import batch of " + batch.size() + " profiles, retrying each profile in its own transaction", e);
+			}
+		}
+		for (ProfileRow row : batch) {
+			try {
+				createProfiles(Collections.singletonList(row));
+				imported.incrementAndGet();
+			} catch (Throwable e) {
+				profileFailed(row.lineNumber, e);
+			}
+		}
+	}
+
+	/**
+	 * Creates the specified profiles in a new transaction, which is committed
+	 * unless in dry run mode.
+	 * 
+	 * @param rows
+	 * @throws Exception
+	 *             if a profile is not created, the transaction is then rolled
+	 *             back
+	 */
+	void createProfiles(List<ProfileRow> rows) throws Exception {
+		final ClassLoader oldClassLoader = Thread.currentThread().getContextClassLoader();
+		boolean commit = false;
+		txManager.begin();
+		try {
+			Thread.currentThread().setContextClassLoader(profileTable.getProfileSpecificationComponent().getClassLoader());
+			for (ProfileRow row : rows) {
+				final ProfileObjectImpl profileObject = profileTable.createProfile(row.profileName);
+				for (int i = 0; i < row.values.length; i++) {
+					if (row.values[i] != null) {
+						try {
+							row.setters[i].cmpSetter.invoke(profileObject.getProfileConcrete(), row.values[i]);
+						} catch (InvocationTargetException e) {
+							throw new SLEEException("failed to set attribute " + row.setters[i].name + " : " + e.getCause().getMessage(), e.getCause());
+						}
+					}
+				}
+				profileObject.profileVerify();
+			}
+			if (txManager.getRollbackOnly()) {
+				throw new SLEEException("transaction marked for rollback");
+			}
+			commit = !dryRun;
+		} finally {
+			Thread.currentThread().setContextClassLoader(oldClassLoader);
+			if (!commit) {
+				try {
+					txManager.rollback();
+				} catch (Throwable e) {
+					logger.error(e.getMessage(), e);
+				}
+			}
+		}
+		if (commit) {
+			txManager.commit();
+		}
+	}
+
+	private void profileFailed(int lineNumber, Throwable e) {
+		failed.incrementAndGet();
+		logger.warn("Failed to import profile at line " + lineNumber + " of file " + fileName + " : " + e.getMessage());
+		if (logger.isDebugEnabled()) {
+			logger.debug(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Retrieves the number of profiles read from the file.
+	 * 
+	 * @return
+	 */
+	public long getRead() {
+		return read.get();
+	}
+
+	/**
+	 * Retrieves the number of profiles imported, or validated in dry run mode.
+	 * 
+	 * @return
+	 */
+	public long getImported() {
+		return imported.get();
+	}
+
+	/**
+	 * Retrieves the number of profiles which failed to be imported.
+	 * 
+	 * @return
+	 */
+	public long getFailed() {
+		return failed.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ProfileBulkImport( table = " + (profileTable != null ? profileTable.getProfileTableName() : null)
+				+ " , file = " + fileName + " , dryRun = " + dryRun
+				+ " , read = " + read.get() + " , imported = " + imported.get()
+				+ " , failed = " + failed.get() + " )";
+	}
+
+	/**
+	 * The setter of a profile attribute.
+	 * 
+	 * @author martins
+	 * 
+	 */
+	static class AttributeSetter {
+
+		final String name;
+
+		final Class<?> type;
+
+		final Method cmpSetter;
+
+		AttributeSetter(String name, Class<?> type, Method cmpSetter) {
+			this.name = name;
+			this.type = type;
+			this.cmpSetter = cmpSetter;
+		}
+	}
+
+	/**
+	 * A profile read from the file.
+	 * 
+	 * @author martins
+	 * 
+	 */
+	static class ProfileRow {
+
+		final int lineNumber;
+
+		final String profileName;
+
+		/**
+		 * the setters of the attributes with values
+		 */
+		final AttributeSetter[] setters;
+
+		final Object[] values;
+
+		ProfileRow(int lineNumber, String profileName, AttributeSetter[] setters, Object[] values) {
+			this.lineNumber = lineNumber;
+			this.profileName = profileName;
+			this.setters = setters;
+			this.values = values;
+		}
+	}
+}
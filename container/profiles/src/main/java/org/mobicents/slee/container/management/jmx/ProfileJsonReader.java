@@ -0,0 +1,286 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads profiles from a JSON array of objects, one per profile, with the
+ * profile name in the {@link #PROFILE_NAME} member and the attribute values
+ * in members named after the attributes. Values may be strings, numbers,
+ * booleans, null or arrays of those, scalars are returned as text, arrays as
+ * lists of text.
+ * 
+ * The stream is parsed as profiles are requested, thus the whole array is
+ * never kept in memory.
+ * 
+ * @author martins
+ * 
+ */
+class ProfileJsonReader {
+
+	static final String PROFILE_NAME = "profileName";
+
+	private static final int NONE = -2;
+
+	private final Reader reader;
+
+	/**
+	 * the char peeked but not yet read, if any
+	 */
+	private int peeked = NONE;
+
+	private int lineNumber = 1;
+
+	private boolean started;
+
+	private boolean ended;
+
+	ProfileJsonReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Retrieves the line of the stream being parsed.
+	 * 
+	 * @return
+	 */
+	int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Reads the next profile.
+	 * 
+	 * @return the members of the profile object, null if there are no more
+	 *         profiles
+	 * @throws IOException
+	 *             if the stream can't be read or is not valid
+	 */
+	Map<String, Object> next() throws IOException {
+		if (ended) {
+			return null;
+		}
+		if (!started) {
+			expectToken('[');
+			started = true;
+			if (peekToken() == ']') {
+				read();
+				ended = true;
+				return null;
+			}
+		}
+		else {
+			final int c = readToken();
+			if (c == ']') {
+				ended = true;
+				return null;
+			}
+			if (c != ',') {
+				throw invalid("expected ',' or ']' after profile");
+			}
+		}
+		expectToken('{');
+		final Map<String, Object> result = new LinkedHashMap<String, Object>();
+		if (peekToken() == '}') {
+			read();
+			return result;
+		}
+		while (true) {
+			expectToken('"');
+			final String name = readString();
+			expectToken(':');
+			result.put(name, readValue(true));
+			final int c = readToken();
+			if (c == '}') {
+				return result;
+			}
+			if (c != ',') {
+				throw invalid("expected ',' or '}' after value of " + name);
+			}
+		}
+	}
+
+	private Object readValue(boolean arrayAllowed) throws IOException {
+		int c = readToken();
+		if (c == '"') {
+			return readString();
+		}
+		if (c == '[') {
+			if (!arrayAllowed) {
+				throw invalid("arrays inside arrays are not supported");
+			}
+			final List<String> result = new ArrayList<String>();
+			if (peekToken() == ']') {
+				read();
+				return result;
+			}
+			while (true) {
+				final Object element = readValue(false);
+				if (element == null) {
+					throw invalid("null array elements are not supported");
+				}
+				result.add((String) element);
+				c = readToken();
+				if (c == ']') {
+					return result;
+				}
+				if (c != ',') {
+					throw invalid("expected ',' or ']' after array element");
+				}
+			}
+		}
+		if (c == -1) {
+			throw invalid("unexpected end of stream");
+		}
+		// a number, boolean or null
+		final StringBuilder literal = new StringBuilder().append((char) c);
+		while (isLiteralChar(peek())) {
+			literal.append((char) read());
+		}
+		final String text = literal.toString();
+		if (text.equals("null")) {
+			return null;
+		}
+		if (text.equals("true") || text.equals("false") || c == '-' || Character.isDigit(c)) {
+			return text;
+		}
+		throw invalid("unexpected value " + text);
+	}
+
+	private static boolean isLiteralChar(int c) {
+		return c != -1 && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.');
+	}
+
+	/**
+	 * Reads the remaining of a string, the opening quote was already read.
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	private String readString() throws IOException {
+		final StringBuilder result = new StringBuilder();
+		while (true) {
+			int c = read();
+			switch (c) {
+			case -1:
+				throw invalid("unexpected end of stream in string");
+			case '"':
+				return result.toString();
+			case '\\':
+				c = read();
+				switch (c) {
+				case '"':
+				case '\\':
+				case '/':
+					result.append((char) c);
+					break;
+				case 'b':
+					result.append('\b');
+					break;
+				case 'f':
+					result.append('\f');
+					break;
+				case 'n':
+					result.append('\n');
+					break;
+				case 'r':
+					result.append('\r');
+					break;
+				case 't':
+					result.append('\t');
+					break;
+				case 'u':
+					final char[] hex = new char[4];
+					for (int i = 0; i < hex.length; i++) {
+						c = read();
+						if (c == -1) {
+							throw invalid("unexpected end of stream in string");
+						}
+						hex[i] = (char) c;
+					}
+					try {
+						result.append((char) Integer.parseInt(new String(hex), 16));
+					} catch (NumberFormatException e) {
+						throw invalid("invalid unicode escape \\u" + new String(hex));
+					}
+					break;
+				default:
+					throw invalid("invalid escape \\" + (char) c);
+				}
+				break;
+			default:
+				result.append((char) c);
+			}
+		}
+	}
+
+	private void expectToken(char expected) throws IOException {
+		final int c = readToken();
+		if (c != expected) {
+			throw invalid("expected '" + expected + "' but found " + (c == -1 ? "end of stream" : "'" + (char) c + "'"));
+		}
+	}
+
+	private int readToken() throws IOException {
+		peekToken();
+		return read();
+	}
+
+	private int peekToken() throws IOException {
+		while (Character.isWhitespace(peek())) {
+			read();
+		}
+		return peek();
+	}
+
+	private int peek() throws IOException {
+		if (peeked == NONE) {
+			peeked = reader.read();
+		}
+		return peeked;
+	}
+
+	private int read() throws IOException {
+		int c = peeked;
+		if (c == NONE) {
+			c = reader.read();
+		}
+		else {
+			peeked = NONE;
+		}
+		if (c == '\n') {
+			lineNumber++;
+		}
+		return c;
+	}
+
+	private IOException invalid(String message) {
+		return new IOException("invalid JSON at line " + lineNumber + " : " + message);
+	}
+}
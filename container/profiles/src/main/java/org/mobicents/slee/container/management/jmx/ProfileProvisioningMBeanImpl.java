@@ -36,10 +36,12 @@
  */
 package org.mobicents.slee.container.management.jmx;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
@@ -89,6 +91,11 @@ public class ProfileProvisioningMBeanImpl extends MobicentsServiceMBeanSupport i
 	private ProfileManagementImpl sleeProfileManagement = null;
 	private SleeTransactionManager sleeTransactionManagement = null;
 	
+	/**
+	 * the profile import running, if any
+	 */
+	private final AtomicReference<ProfileBulkImport> profileImport = new AtomicReference<ProfileBulkImport>();
+	
 	/**
 	 * 
 	 * @throws NotCompliantMBeanException
@@ -838,6 +845,124 @@ public class ProfileProvisioningMBeanImpl extends MobicentsServiceMBeanSupport i
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ProfileProvisioningMBeanImplMBean#importProfiles(java.lang.String, java.lang.String, int, int, boolean)
+	 */
+	public long importProfiles(String profileTableName, String fileName,
+			int batchSize, int workers, boolean dryRun)
+			throws NullPointerException, UnrecognizedProfileTableNameException,
+			InvalidArgumentException, ManagementException {
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("importProfiles( profileTableName = "
+					+ profileTableName + " , fileName = " + fileName
+					+ " , batchSize = " + batchSize + " , workers = "
+					+ workers + " , dryRun = " + dryRun + " )");
+		}
+
+		if (profileTableName == null)
+			throw new NullPointerException("Argument[ProfileTableName] must not be null");
+		if (fileName == null)
+			throw new NullPointerException("Argument[FileName] must not be null");
+		if (batchSize < 1)
+			throw new InvalidArgumentException("Argument[BatchSize] must be greater than zero");
+		if (workers < 1)
+			throw new InvalidArgumentException("Argument[Workers] must be greater than zero");
+
+		ProfileTableImpl profileTable = null;
+		boolean b = this.sleeTransactionManagement.requireTransaction();
+		try {
+			profileTable = this.sleeProfileManagement.getProfileTable(profileTableName);
+		} catch (SLEEException e) {
+			throw new ManagementException(e.getMessage(), e);
+		} finally {
+			// never rollbacks
+			try {
+				sleeTransactionManagement.requireTransactionEnd(b,false);	
+			} catch (Throwable e) {
+				throw new ManagementException(e.getMessage(),e);
+			}
+		}
+
+		final ProfileBulkImport bulkImport = new ProfileBulkImport(profileTable, fileName, batchSize, workers, dryRun, sleeTransactionManagement);
+		if (!profileImport.compareAndSet(null, bulkImport)) {
+			throw new ManagementException("A profile import is already running: "+profileImport.get());
+		}
+		try {
+			logger.info("Starting "+bulkImport);
+			final long result = bulkImport.execute();
+			logger.info("Completed "+bulkImport);
+			return result;
+		} catch (IOException e) {
+			throw new ManagementException("Failed to read profiles file "+fileName+" : "+e.getMessage(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ManagementException("Interrupted while waiting for "+bulkImport, e);
+		} finally {
+			profileImport.set(null);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ProfileProvisioningMBeanImplMBean#getProfileImportProgress()
+	 */
+	public String getProfileImportProgress() {
+		final ProfileBulkImport bulkImport = profileImport.get();
+		return bulkImport != null ? bulkImport.toString() : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ProfileProvisioningMBeanImplMBean#exportProfiles(java.lang.String, java.lang.String, int)
+	 */
+	public long exportProfiles(String profileTableName, String fileName,
+			int batchSize) throws NullPointerException,
+			UnrecognizedProfileTableNameException, InvalidArgumentException,
+			ManagementException {
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("exportProfiles( profileTableName = "
+					+ profileTableName + " , fileName = " + fileName
+					+ " , batchSize = " + batchSize + " )");
+		}
+
+		if (profileTableName == null)
+			throw new NullPointerException("Argument[ProfileTableName] must not be null");
+		if (fileName == null)
+			throw new NullPointerException("Argument[FileName] must not be null");
+		if (batchSize < 1)
+			throw new InvalidArgumentException("Argument[BatchSize] must be greater than zero");
+
+		ProfileTableImpl profileTable = null;
+		boolean b = this.sleeTransactionManagement.requireTransaction();
+		try {
+			profileTable = this.sleeProfileManagement.getProfileTable(profileTableName);
+		} catch (SLEEException e) {
+			throw new ManagementException(e.getMessage(), e);
+		} finally {
+			// never rollbacks
+			try {
+				sleeTransactionManagement.requireTransactionEnd(b,false);	
+			} catch (Throwable e) {
+				throw new ManagementException(e.getMessage(),e);
+			}
+		}
+
+		final ProfileBulkExport bulkExport = new ProfileBulkExport(profileTable, fileName, batchSize, sleeTransactionManagement);
+		try {
+			logger.info("Starting "+bulkExport);
+			final long result = bulkExport.execute();
+			logger.info("Completed "+bulkExport);
+			return result;
+		} catch (IOException e) {
+			throw new ManagementException("Failed to write profiles file "+fileName+" : "+e.getMessage(), e);
+		} catch (SLEEException e) {
+			throw new ManagementException(e.getMessage(), e);
+		}
+	}
+
 	/**
 	 * 
 	 * start MBean service lifecycle method
@@ -28,11 +28,73 @@
  */
 package org.mobicents.slee.container.management.jmx;
 
+import javax.slee.InvalidArgumentException;
+import javax.slee.management.ManagementException;
 import javax.slee.management.ProfileProvisioningMBean;
+import javax.slee.profile.UnrecognizedProfileTableNameException;
 
 /**
  * @author Ivelin Ivanov
  *
  */
 public interface ProfileProvisioningMBeanImplMBean extends ProfileProvisioningMBean {
+
+	/**
+	 * Imports the profiles in the specified CSV or JSON file, local to the
+	 * server, into a profile table. The first line of a CSV file names the
+	 * profile name column followed by the profile attributes to set, each
+	 * other line holds a profile. Elements of array attributes are separated
+	 * by '|'. A file with name ending in ".json" holds an array of objects,
+	 * each with the profile name in the "profileName" member and the
+	 * attributes to set in members with the attribute names.
+	 * 
+	 * Profiles are created in transactions of up to batchSize profiles,
+	 * executed by the specified number of parallel workers. Profiles which
+	 * fail validation are logged and skipped.
+	 * 
+	 * @param profileTableName
+	 * @param fileName
+	 * @param batchSize
+	 * @param workers
+	 * @param dryRun
+	 *            if true profiles are validated but not stored
+	 * @return the number of profiles imported, or validated in dry run mode
+	 * @throws NullPointerException
+	 * @throws UnrecognizedProfileTableNameException
+	 * @throws InvalidArgumentException
+	 * @throws ManagementException
+	 */
+	public long importProfiles(String profileTableName, String fileName,
+			int batchSize, int workers, boolean dryRun)
+			throws NullPointerException, UnrecognizedProfileTableNameException,
+			InvalidArgumentException, ManagementException;
+
+	/**
+	 * Retrieves the progress of the running profile import.
+	 * 
+	 * @return null if there is no profile import running
+	 */
+	public String getProfileImportProgress();
+
+	/**
+	 * Exports the profiles of a profile table to the specified file, local
+	 * to the server, in the CSV format of
+	 * {@link #importProfiles(String, String, int, int, boolean)}, or JSON if
+	 * the file name ends in ".json".
+	 * 
+	 * @param profileTableName
+	 * @param fileName
+	 * @param batchSize
+	 *            the max number of profiles read per transaction
+	 * @return the number of profiles exported
+	 * @throws NullPointerException
+	 * @throws UnrecognizedProfileTableNameException
+	 * @throws InvalidArgumentException
+	 * @throws ManagementException
+	 */
+	public long exportProfiles(String profileTableName, String fileName,
+			int batchSize) throws NullPointerException,
+			UnrecognizedProfileTableNameException, InvalidArgumentException,
+			ManagementException;
+
 }
\ No newline at end of file
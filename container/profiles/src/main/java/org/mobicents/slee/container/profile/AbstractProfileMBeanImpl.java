@@ -244,6 +244,7 @@ public abstract class AbstractProfileMBeanImpl extends StandardMBean implements
             }
             // get object & make it writable
             ProfileObjectImpl profileObject = profileTable.getProfile(profileName);
+            profileObject.beforeProfileEntityChange();
             profileObject.getProfileEntity().setReadOnly(false);
             // change state
             state = State.write;
@@ -371,7 +372,9 @@ public abstract class AbstractProfileMBeanImpl extends StandardMBean implements
                     try {
                         txManager.begin();
                         this.transaction = txManager.getTransaction();
-                        ProfileEntity newTxProfileEntity = profileEntity.isCreate() ? profileTable.createProfile(profileName).getProfileEntity() : getProfileObject().getProfileEntity();
+                        ProfileObjectImpl newTxProfileObject = profileEntity.isCreate() ? profileTable.createProfile(profileName) : getProfileObject();
+                        newTxProfileObject.beforeProfileEntityChange();
+                        ProfileEntity newTxProfileEntity = newTxProfileObject.getProfileEntity();
                         profileTable.getProfileSpecificationComponent().getProfileEntityFramework().getProfileEntityFactory().copyAttributes(profileEntity, newTxProfileEntity);
                         newTxProfileEntity.setReadOnly(false);
                         txManager.suspend();
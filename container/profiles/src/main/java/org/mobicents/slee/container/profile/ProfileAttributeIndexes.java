@@ -0,0 +1,344 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.profile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.container.component.profile.ProfileAttribute;
+import org.mobicents.slee.container.profile.entity.ProfileEntity;
+import org.mobicents.slee.container.profile.entity.ProfileEntityFramework;
+
+/**
+ * In memory secondary indexes of a profile table attributes, which resolve
+ * lookups by attribute without querying the persistent store.
+ * 
+ * The index of an attribute is built on the first lookup by the attribute,
+ * from all profiles in the table, and then kept up to date with the profile
+ * changes committed in this node. Lookups never block, each index entry is
+ * replaced, not modified, when the profiles holding a value change.
+ * 
+ * If the table has more profiles than the configured max size all indexes
+ * are discarded and lookups go to the persistent store from then on.
+ * 
+ * @author martins
+ * 
+ */
+public class ProfileAttributeIndexes {
+
+	private static final Logger logger = Logger
+			.getLogger(ProfileAttributeIndexes.class);
+
+	private final ProfileEntityFramework profileEntityFramework;
+
+	private final int maxSize;
+
+	/**
+	 * the indexes built, per attribute name
+	 */
+	private final ConcurrentHashMap<String, AttributeIndex> indexes = new ConcurrentHashMap<String, AttributeIndex>();
+
+	/**
+	 * serializes index builds, so that concurrent lookups of an attribute
+	 * which is not indexed yet do not load all profiles more than once
+	 */
+	private final Object buildLock = new Object();
+
+	/**
+	 * the number of updates applied to the indexes, guarded by this
+	 * instance's lock, used to discard indexes built concurrently with
+	 * updates
+	 */
+	private long updates;
+
+	/**
+	 * if true the table has too many profiles to be indexed
+	 */
+	private volatile boolean disabled;
+
+	/**
+	 * 
+	 * @param profileEntityFramework
+	 * @param maxSize
+	 *            the max number of profiles the table may have to be indexed
+	 */
+	public ProfileAttributeIndexes(
+			ProfileEntityFramework profileEntityFramework, int maxSize) {
+		this.profileEntityFramework = profileEntityFramework;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Retrieves the names of the profiles with the specified attribute value,
+	 * building the attribute index if needed. Must be invoked in a
+	 * transaction which did not change profiles of the table.
+	 * 
+	 * @param profileTableName
+	 * @param profileAttribute
+	 * @param attributeValue
+	 * @return null if the lookup can't be resolved by the indexes
+	 */
+	public Collection<String> getProfileNames(String profileTableName,
+			ProfileAttribute profileAttribute, Object attributeValue) {
+		if (disabled) {
+			return null;
+		}
+		AttributeIndex index = indexes.get(profileAttribute.getName());
+		if (index == null) {
+			index = build(profileTableName, profileAttribute);
+			if (index == null) {
+				return null;
+			}
+		}
+		final Collection<String> profileNames = index.profileNamesByKey
+				.get(profileEntityFramework.getProfileAttributeIndexKey(
+						profileAttribute, attributeValue));
+		return profileNames != null ? profileNames : Collections
+				.<String> emptyList();
+	}
+
+	/**
+	 * Builds the index of the specified attribute, from all profiles in the
+	 * persistent store.
+	 * 
+	 * @param profileTableName
+	 * @param profileAttribute
+	 * @return null if the index could not be built
+	 */
+	private AttributeIndex build(String profileTableName,
+			ProfileAttribute profileAttribute) {
+		synchronized (buildLock) {
+			AttributeIndex index = indexes.get(profileAttribute.getName());
+			if (index != null || disabled) {
+				return index;
+			}
+			final long updatesBeforeBuild;
+			synchronized (this) {
+				updatesBeforeBuild = updates;
+			}
+			final Collection<ProfileEntity> profileEntities = profileEntityFramework
+					.findAll(profileTableName);
+			if (profileEntities.size() > maxSize) {
+				disable(profileTableName, profileEntities.size());
+				return null;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Building index of attribute "
+						+ profileAttribute.getName() + " of profile table "
+						+ profileTableName + ", with "
+						+ profileEntities.size() + " profiles");
+			}
+			index = new AttributeIndex(profileAttribute);
+			for (ProfileEntity profileEntity : profileEntities) {
+				index.put(profileEntity.getProfileName(),
+						profileEntityFramework.getProfileAttributeIndexKeys(
+								profileEntity, profileAttribute));
+			}
+			synchronized (this) {
+				if (disabled || updates != updatesBeforeBuild) {
+					// profiles changed meanwhile, the index will be built on
+					// a later lookup
+					return null;
+				}
+				indexes.put(profileAttribute.getName(), index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Retrieves the keys of the specified profile entity, for each attribute
+	 * indexed, to be later applied to the indexes through
+	 * {@link #update(Collection, Collection, Map)}.
+	 * 
+	 * @param profileEntity
+	 * @return
+	 */
+	public Map<String, Collection<Object>> getIndexKeys(
+			ProfileEntity profileEntity) {
+		final Map<String, Collection<Object>> result = new HashMap<String, Collection<Object>>();
+		for (AttributeIndex index : indexes.values()) {
+			result.put(index.profileAttribute.getName(), profileEntityFramework
+					.getProfileAttributeIndexKeys(profileEntity,
+							index.profileAttribute));
+		}
+		return result;
+	}
+
+	/**
+	 * Applies the profile changes committed by a transaction to the indexes.
+	 * 
+	 * @param changedProfiles
+	 *            the names of all profiles changed, created or removed
+	 * @param removedProfiles
+	 *            the names of the profiles removed
+	 * @param storedProfiles
+	 *            the index keys of the profiles changed or created, per
+	 *            profile name
+	 */
+	public synchronized void update(Collection<String> changedProfiles,
+			Collection<String> removedProfiles,
+			Map<String, Map<String, Collection<Object>>> storedProfiles) {
+		updates++;
+		if (disabled) {
+			return;
+		}
+		for (String profileName : changedProfiles) {
+			if (indexes.isEmpty()) {
+				return;
+			}
+			if (removedProfiles.contains(profileName)) {
+				for (AttributeIndex index : indexes.values()) {
+					index.remove(profileName);
+				}
+				continue;
+			}
+			final Map<String, Collection<Object>> indexKeys = storedProfiles
+					.get(profileName);
+			if (indexKeys == null) {
+				// the new state of the profile is unknown, indexes will be
+				// rebuilt on next lookups
+				if (logger.isDebugEnabled()) {
+					logger.debug("Discarding indexes, unknown state of changed profile "
+							+ profileName);
+				}
+				indexes.clear();
+				return;
+			}
+			for (Iterator<AttributeIndex> it = indexes.values().iterator(); it
+					.hasNext();) {
+				final AttributeIndex index = it.next();
+				final Collection<Object> keys = indexKeys
+						.get(index.profileAttribute.getName());
+				if (keys == null) {
+					// index built after the keys were retrieved
+					it.remove();
+					continue;
+				}
+				index.remove(profileName);
+				index.put(profileName, keys);
+				if (index.keysByProfileName.size() > maxSize) {
+					disable(null, index.keysByProfileName.size());
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discards all indexes, they will be rebuilt on next lookups.
+	 */
+	public synchronized void clear() {
+		updates++;
+		indexes.clear();
+	}
+
+	private synchronized void disable(String profileTableName, int size) {
+		if (!disabled) {
+			logger.info("Disabling in memory attribute indexes of profile table"
+					+ (profileTableName != null ? " " + profileTableName : "")
+					+ ", it has " + size + " profiles, max for indexing is "
+					+ maxSize);
+			disabled = true;
+		}
+		indexes.clear();
+	}
+
+	/**
+	 * The index of a single attribute.
+	 * 
+	 * @author martins
+	 * 
+	 */
+	private static class AttributeIndex {
+
+		private final ProfileAttribute profileAttribute;
+
+		/**
+		 * the names of the profiles holding each key, never modified once
+		 * added, so that lookups are safe while updates are applied
+		 */
+		private final ConcurrentHashMap<Object, Collection<String>> profileNamesByKey = new ConcurrentHashMap<Object, Collection<String>>();
+
+		/**
+		 * the keys of each profile, only accessed by the thread building the
+		 * index or applying updates
+		 */
+		private final HashMap<String, Collection<Object>> keysByProfileName = new HashMap<String, Collection<Object>>();
+
+		private AttributeIndex(ProfileAttribute profileAttribute) {
+			this.profileAttribute = profileAttribute;
+		}
+
+		private void put(String profileName, Collection<Object> keys) {
+			keysByProfileName.put(profileName, keys);
+			for (Object key : keys) {
+				final Collection<String> profileNames = profileNamesByKey
+						.get(key);
+				if (profileNames == null) {
+					profileNamesByKey.put(key,
+							Collections.singletonList(profileName));
+				} else if (!profileNames.contains(profileName)) {
+					final List<String> newProfileNames = new ArrayList<String>(
+							profileNames.size() + 1);
+					newProfileNames.addAll(profileNames);
+					newProfileNames.add(profileName);
+					profileNamesByKey.put(key,
+							Collections.unmodifiableList(newProfileNames));
+				}
+			}
+		}
+
+		private void remove(String profileName) {
+			final Collection<Object> keys = keysByProfileName
+					.remove(profileName);
+			if (keys == null) {
+				return;
+			}
+			for (Object key : keys) {
+				final Collection<String> profileNames = profileNamesByKey
+						.get(key);
+				if (profileNames == null
+						|| !profileNames.contains(profileName)) {
+					continue;
+				}
+				if (profileNames.size() == 1) {
+					profileNamesByKey.remove(key);
+				} else {
+					final List<String> newProfileNames = new ArrayList<String>(
+							profileNames);
+					newProfileNames.remove(profileName);
+					profileNamesByKey.put(key,
+							Collections.unmodifiableList(newProfileNames));
+				}
+			}
+		}
+	}
+}
@@ -59,6 +59,8 @@ public class ProfileCmpHandler {
 			throw new ReadOnlyProfileException("Profile: " + profileObject.getProfileEntity().getProfileName() + ", table:" + profileObject.getProfileTable().getProfileTableName() + " ,is not writeable.");
 		}
 		
+		profileObject.beforeProfileEntityChange();
+		
 		ProfileCallRecorderTransactionData.addProfileCall(profileObject);			
 	}
 
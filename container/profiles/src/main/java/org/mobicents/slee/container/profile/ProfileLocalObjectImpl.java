@@ -178,7 +178,8 @@ public class ProfileLocalObjectImpl implements ProfileLocalObject {
 				// confirm it is still the same tx
 				checkTransaction();
 				// remove
-				profileEntity.remove();
+				profileObject.beforeProfileEntityChange();
+				profileObject.getProfileEntity().remove();
 			}
 			else {
 				// there is no profile assigned to the object
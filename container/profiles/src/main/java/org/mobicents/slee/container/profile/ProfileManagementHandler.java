@@ -95,6 +95,7 @@ public class ProfileManagementHandler {
 			logger.info("[markProfileDirty] @ " + profileObject);
 		}
 
+		profileObject.beforeProfileEntityChange();
 		profileObject.getProfileEntity().setDirty(true);
 	}
 
@@ -107,6 +107,11 @@ public class ProfileObjectImpl implements ProfileObject {
 	 */
 	private ProfileEntity profileEntity;
 	
+	/**
+	 * indicates the profile entity is a copy served by the profile table cache, not managed by the profile entity framework
+	 */
+	private boolean profileEntityCopy;
+	
 	/**
 	 * 
 	 */
@@ -244,6 +249,7 @@ public class ProfileObjectImpl implements ProfileObject {
 	 * @throws CreateException
 	 */
 	public void profileCreate(String profileName) throws CreateException {
+		profileTable.profileChanged(profileName);
 		profileInitialize(profileName);
 		profilePostCreate();
 		profileStore();
@@ -333,6 +339,7 @@ public class ProfileObjectImpl implements ProfileObject {
 	 */
 	public void profileActivate(ProfileEntity profileEntity) {		
 		profileActivate();	
+		this.profileEntityCopy = false;
 		profileLoad(profileEntity);
 	}
 		
@@ -496,6 +503,10 @@ public class ProfileObjectImpl implements ProfileObject {
 			// FIXME tests/profiles/lifecycle/Test1110227Test.xml enforces profileStore to be called before every profilePassivate(), doing this here to enfore it happens
 			profileStore();
 			
+			if (this.profileEntity.getProfileName() != null) {
+				profileTable.profileStored(profileEntity);
+			}
+			
 			if(logger.isTraceEnabled()) {
 				logger.trace("[profilePassivate] "+this);
 			}
@@ -522,6 +533,7 @@ public class ProfileObjectImpl implements ProfileObject {
 		}
 		
 		this.profileEntity = null;
+		this.profileEntityCopy = false;
 		this.profileEntitySnapshot = null;
 		
 	}
@@ -538,6 +550,11 @@ public class ProfileObjectImpl implements ProfileObject {
 		if (state != ProfileObjectState.READY) {
 			throw new SLEEException(this.toString());
 		}
+		
+		beforeProfileEntityChange();
+		if (profileEntity.getProfileName() != null) {
+			profileTable.profileRemoved(profileEntity.getProfileName());
+		}
 				
 		if (isSlee11 && invokeConcreteSbb) {
 			if (profileConcreteClassInfo.isInvokeProfileRemove()) {
@@ -571,6 +588,7 @@ public class ProfileObjectImpl implements ProfileObject {
 		state = ProfileObjectState.POOLED;
 		
 		this.profileEntity = null;
+		this.profileEntityCopy = false;
 		this.profileEntitySnapshot = null;
 					
 	}
@@ -644,6 +662,33 @@ public class ProfileObjectImpl implements ProfileObject {
 		return profileEntity;
 	}	
 	
+	/**
+	 * Invoked before the profile entity is changed or removed. If the entity
+	 * is a copy served by the profile table cache it is replaced by the one
+	 * managed by the profile entity framework, so that changes are persisted.
+	 */
+	public void beforeProfileEntityChange() {
+		final String profileName = profileEntity.getProfileName();
+		if (profileName == null) {
+			// the default profile is not cached
+			return;
+		}
+		if (profileEntityCopy) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Replacing cached copy of profile entity on object "+this);
+			}
+			final ProfileEntity managedProfileEntity = profileEntityFramework.retrieveProfile(profileTable.getProfileTableName(), profileName);
+			if (managedProfileEntity == null) {
+				throw new SLEEException("Profile "+profileName+" of table "+profileTable.getProfileTableName()+" was removed");
+			}
+			managedProfileEntity.setReadOnly(profileEntity.isReadOnly());
+			managedProfileEntity.setDirty(profileEntity.isDirty());
+			profileEntity = managedProfileEntity;
+			profileEntityCopy = false;
+		}
+		profileTable.profileChanged(profileName);
+	}
+	
 	/**
 	 * Retrieves the local representation for this profile object
 	 * @return
@@ -713,10 +758,21 @@ public class ProfileObjectImpl implements ProfileObject {
 	private ProfileEntity loadProfileEntity(String profileName) throws UnrecognizedProfileNameException {
 		
 		if (profileName != null) {
-			ProfileEntity profileEntity = profileEntityFramework.retrieveProfile(profileTable.getProfileTableName(), profileName);
+			final ProfileTableCache cache = profileTable.getCache();
+			ProfileEntity profileEntity = cache != null ? cache.getProfileEntity(profileName) : null;
+			if (profileEntity != null) {
+				profileEntityCopy = true;
+				return profileEntity;
+			}
+			final long cacheGeneration = cache != null ? cache.getGeneration() : 0L;
+			profileEntity = profileEntityFramework.retrieveProfile(profileTable.getProfileTableName(), profileName);
 			if (profileEntity == null) {
 				throw new UnrecognizedProfileNameException();
 			}
+			if (cache != null) {
+				cache.putProfileEntity(profileEntity, cacheGeneration);
+			}
+			profileEntityCopy = false;
 			return profileEntity;
 		}
 		else {
@@ -0,0 +1,394 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.profile;
+
+import java.lang.reflect.Array;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mobicents.slee.container.component.profile.ProfileSpecificationComponent;
+import org.mobicents.slee.container.profile.entity.ProfileEntity;
+import org.mobicents.slee.container.profile.entity.ProfileEntityFactory;
+
+/**
+ * A bounded in memory cache of a profile table, holding copies of profile
+ * entities and the names of the profiles matching lookups by attribute.
+ * 
+ * Entries are evicted in LRU order, within each of the cache segments, and
+ * expire after the configured time to live. Any committed profile change
+ * invalidates the entry of the profile and all attribute lookups, and
+ * increments the cache generation, entries loaded from the persistent store
+ * are only cached if the generation did not change meanwhile.
+ * 
+ * @author martins
+ * 
+ */
+public class ProfileTableCache implements ProfileTableCacheStatistics {
+
+	private static final int SEGMENTS = 16;
+
+	private static final int SEGMENT_MASK = SEGMENTS - 1;
+
+	private final ProfileSpecificationComponent component;
+
+	private final long timeToLive;
+
+	private final Segment[] profileEntities = new Segment[SEGMENTS];
+
+	private final Segment[] attributeLookups = new Segment[SEGMENTS];
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * 
+	 * @param component
+	 *            the profile spec component of the table
+	 * @param size
+	 *            the max number of profiles, and of attribute lookups, in
+	 *            the cache
+	 * @param timeToLive
+	 *            the time, in seconds, an entry stays in the cache, 0 for no
+	 *            expiration
+	 */
+	public ProfileTableCache(ProfileSpecificationComponent component,
+			int size, int timeToLive) {
+		this.component = component;
+		this.timeToLive = TimeUnit.SECONDS.toMillis(timeToLive);
+		final int segmentSize = Math.max(1, (size + SEGMENT_MASK) / SEGMENTS);
+		for (int i = 0; i < SEGMENTS; i++) {
+			profileEntities[i] = new Segment(segmentSize);
+			attributeLookups[i] = new Segment(segmentSize);
+		}
+	}
+
+	/**
+	 * Retrieves the current generation of the cache, which must be obtained
+	 * before loading from the persistent store data to be cached.
+	 * 
+	 * @return
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * Retrieves a copy of the cached entity of the profile with the specified
+	 * name.
+	 * 
+	 * @param profileName
+	 * @return null if not in the cache
+	 */
+	public ProfileEntity getProfileEntity(String profileName) {
+		final ProfileEntity profileEntity = (ProfileEntity) get(
+				profileEntities, profileName);
+		return profileEntity != null ? copy(profileEntity) : null;
+	}
+
+	/**
+	 * Caches a copy of the specified profile entity, loaded from the
+	 * persistent store, if the cache generation is still the specified one.
+	 * 
+	 * @param profileEntity
+	 * @param generation
+	 */
+	public void putProfileEntity(ProfileEntity profileEntity, long generation) {
+		final ProfileEntity copy = copy(profileEntity);
+		copy.setReadOnly(true);
+		put(profileEntities, copy.getProfileName(), copy, generation);
+	}
+
+	/**
+	 * Retrieves the cached names of the profiles matching a lookup by
+	 * attribute.
+	 * 
+	 * @param attributeName
+	 * @param attributeValue
+	 * @return null if not in the cache
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<String> getProfileNamesByAttribute(String attributeName,
+			Object attributeValue) {
+		return (Collection<String>) get(attributeLookups, new AttributeLookup(
+				attributeName, attributeValue));
+	}
+
+	/**
+	 * Caches the names of the profiles matching a lookup by attribute, loaded
+	 * from the persistent store, if the cache generation is still the
+	 * specified one.
+	 * 
+	 * @param attributeName
+	 * @param attributeValue
+	 * @param profileNames
+	 * @param generation
+	 */
+	public void putProfileNamesByAttribute(String attributeName,
+			Object attributeValue, Collection<String> profileNames,
+			long generation) {
+		put(attributeLookups,
+				new AttributeLookup(attributeName, copyIfArray(attributeValue)),
+				Collections.unmodifiableList(new ArrayList<String>(
+						profileNames)), generation);
+	}
+
+	/**
+	 * Invalidates the cached entities of the profiles with the specified
+	 * names, and all attribute lookups.
+	 * 
+	 * @param profileNames
+	 */
+	public void invalidate(Collection<String> profileNames) {
+		generation.incrementAndGet();
+		for (String profileName : profileNames) {
+			final Segment segment = segment(profileEntities, profileName);
+			synchronized (segment) {
+				segment.remove(profileName);
+			}
+		}
+		clear(attributeLookups);
+	}
+
+	/**
+	 * Invalidates all entries.
+	 */
+	public void clear() {
+		generation.incrementAndGet();
+		clear(profileEntities);
+		clear(attributeLookups);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.profile.ProfileTableCacheStatistics#getHits()
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.profile.ProfileTableCacheStatistics#getMisses()
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.profile.ProfileTableCacheStatistics#getEvictions()
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.profile.ProfileTableCacheStatistics#getSize()
+	 */
+	public int getSize() {
+		int size = 0;
+		for (Segment segment : profileEntities) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	private Object get(Segment[] segments, Object key) {
+		final Segment segment = segment(segments, key);
+		CacheEntry entry = null;
+		synchronized (segment) {
+			entry = segment.get(key);
+			if (entry != null && entry.isExpired()) {
+				segment.remove(key);
+				evictions.incrementAndGet();
+				entry = null;
+			}
+		}
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.value;
+	}
+
+	private void put(Segment[] segments, Object key, Object value,
+			long generation) {
+		final Segment segment = segment(segments, key);
+		synchronized (segment) {
+			// an invalidation increments the generation before removing
+			// entries, with the segment lock held
+			if (generation == this.generation.get()) {
+				segment.put(key, new CacheEntry(value,
+						timeToLive > 0 ? System.currentTimeMillis() + timeToLive
+								: Long.MAX_VALUE));
+			}
+		}
+	}
+
+	private void clear(Segment[] segments) {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	private Segment segment(Segment[] segments, Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & SEGMENT_MASK];
+	}
+
+	/**
+	 * Copies the specified attribute value if it is an array, so that the
+	 * cached lookup is not changed if the caller modifies the array.
+	 * 
+	 * @param attributeValue
+	 * @return
+	 */
+	private static Object copyIfArray(Object attributeValue) {
+		if (!attributeValue.getClass().isArray()) {
+			return attributeValue;
+		}
+		final int length = Array.getLength(attributeValue);
+		final Object copy = Array.newInstance(attributeValue.getClass().getComponentType(), length);
+		System.arraycopy(attributeValue, 0, copy, 0, length);
+		return copy;
+	}
+
+	private ProfileEntity copy(final ProfileEntity source) {
+		final ProfileEntityFactory profileEntityFactory = component
+				.getProfileEntityFramework().getProfileEntityFactory();
+		final ProfileEntity result = profileEntityFactory.newInstance(
+				source.getTableName(), source.getProfileName());
+		if (System.getSecurityManager() == null) {
+			profileEntityFactory.copyAttributes(source, result);
+		} else {
+			AccessController.doPrivileged(new PrivilegedAction<Object>() {
+				public Object run() {
+					profileEntityFactory.copyAttributes(source, result);
+					return null;
+				}
+			});
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "ProfileTableCache[ size = " + getSize() + " , hits = "
+				+ getHits() + " , misses = " + getMisses()
+				+ " , evictions = " + getEvictions() + " ]";
+	}
+
+	private static class CacheEntry {
+
+		private final Object value;
+
+		private final long expirationTime;
+
+		CacheEntry(Object value, long expirationTime) {
+			this.value = value;
+			this.expirationTime = expirationTime;
+		}
+
+		boolean isExpired() {
+			return expirationTime != Long.MAX_VALUE
+					&& expirationTime < System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * A cache segment, a map in access order, which removes the least
+	 * recently used entry when full. Must be accessed with its lock held.
+	 */
+	private class Segment extends LinkedHashMap<Object, CacheEntry> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry> eldest) {
+			if (size() > capacity) {
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * The key of a lookup by attribute, array values are compared by content.
+	 */
+	private static class AttributeLookup {
+
+		private final String attributeName;
+
+		private final Object[] attributeValue;
+
+		AttributeLookup(String attributeName, Object attributeValue) {
+			this.attributeName = attributeName;
+			// wrapped so that deep equals and hash code handle arrays of any type
+			this.attributeValue = new Object[] { attributeValue };
+		}
+
+		@Override
+		public int hashCode() {
+			return attributeName.hashCode() * 31 + Arrays.deepHashCode(attributeValue);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			final AttributeLookup other = (AttributeLookup) obj;
+			return attributeName.equals(other.attributeName)
+					&& Arrays.deepEquals(attributeValue, other.attributeValue);
+		}
+	}
+}
@@ -26,8 +26,10 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.slee.CreateException;
@@ -56,10 +58,12 @@ import org.mobicents.slee.container.activity.ActivityContext;
 import org.mobicents.slee.container.activity.ActivityContextHandle;
 import org.mobicents.slee.container.component.profile.ProfileAttribute;
 import org.mobicents.slee.container.component.profile.ProfileSpecificationComponent;
+import org.mobicents.slee.container.deployment.profile.jpa.Configuration;
 import org.mobicents.slee.container.management.ProfileManagementImpl;
 import org.mobicents.slee.container.management.TraceManagement;
 import org.mobicents.slee.container.management.jmx.ProfileTableUsageMBean;
 import org.mobicents.slee.container.profile.entity.ProfileEntity;
+import org.mobicents.slee.container.transaction.TransactionContext;
 import org.mobicents.slee.container.transaction.TransactionalAction;
 import org.mobicents.slee.container.util.concurrent.ConcurrentHashSet;
 import org.mobicents.slee.runtime.facilities.NotificationSourceWrapperImpl;
@@ -130,6 +134,21 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 	 */
 	private ProfileEntity defaultProfileEntity;
 	
+	/**
+	 * the in memory cache of the table, null if disabled
+	 */
+	private final ProfileTableCache cache;
+	
+	/**
+	 * the in memory attribute indexes of the table, null if disabled
+	 */
+	private final ProfileAttributeIndexes attributeIndexes;
+	
+	/**
+	 * the key of the profile changes done by a tx, in the tx data
+	 */
+	private final String changedProfilesTxDataKey;
+	
 	/**
 	 * 
 	 * @param profileTableName
@@ -154,6 +173,23 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 		
 		this.fireEvents = component.getDescriptor().getEventsEnabled();
 		this.transactionView = new ProfileTableTransactionView(this);
+		
+		final Configuration configuration = profileManagement.getJPAConfiguration();
+		// the cache and indexes are only updated by changes done in this node
+		final boolean localProfiles = !configuration.isClusteredProfiles() || sleeContainer.getCluster().getMobicentsCache().isLocalMode();
+		if (configuration.getProfileCacheSize() > 0 && localProfiles) {
+			this.cache = new ProfileTableCache(component, configuration.getProfileCacheSize(), configuration.getProfileCacheTimeToLive());
+		}
+		else {
+			this.cache = null;
+		}
+		if (configuration.getProfileAttributeIndexMaxSize() > 0 && localProfiles) {
+			this.attributeIndexes = new ProfileAttributeIndexes(component.getProfileEntityFramework(), configuration.getProfileAttributeIndexMaxSize());
+		}
+		else {
+			this.attributeIndexes = null;
+		}
+		this.changedProfilesTxDataKey = "ptc." + profileTableName;
 	}
 	
 	private boolean traceRegistred = false;
@@ -231,6 +267,107 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 		return profileTableUsageMBean;
 	}
 
+	/**
+	 * 
+	 * @return the in memory cache of the table, null if disabled
+	 */
+	ProfileTableCache getCache() {
+		return cache;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.profile.ProfileTable#getCacheStatistics()
+	 */
+	public ProfileTableCacheStatistics getCacheStatistics() {
+		return cache;
+	}
+	
+	/**
+	 * Indicates the profile with the specified name is changed, created or
+	 * removed by the current transaction, its cached state is invalidated, and
+	 * the attribute indexes updated, once the transaction commits.
+	 * 
+	 * @param profileName
+	 */
+	@SuppressWarnings("unchecked")
+	void profileChanged(String profileName) {
+		if ((cache == null && attributeIndexes == null) || profileName == null) {
+			return;
+		}
+		final TransactionContext txContext = sleeContainer.getTransactionManager().getTransactionContext();
+		final Map txData = txContext.getData();
+		TransactionProfileChanges profileChanges = (TransactionProfileChanges) txData.get(changedProfilesTxDataKey);
+		if (profileChanges == null) {
+			profileChanges = new TransactionProfileChanges();
+			txData.put(changedProfilesTxDataKey, profileChanges);
+			final TransactionProfileChanges committedProfileChanges = profileChanges;
+			txContext.getAfterCommitActions().add(new TransactionalAction() {
+				public void execute() {
+					if (cache != null) {
+						cache.invalidate(committedProfileChanges.changedProfiles);
+					}
+					if (attributeIndexes != null) {
+						attributeIndexes.update(committedProfileChanges.changedProfiles, committedProfileChanges.removedProfiles, committedProfileChanges.storedProfiles);
+					}
+				}
+			});
+		}
+		profileChanges.changedProfiles.add(profileName);
+	}
+	
+	/**
+	 * Indicates the specified profile entity, changed or created by the
+	 * current transaction, is about to be committed, retrieving its index
+	 * keys for the attribute indexes update.
+	 * 
+	 * @param profileEntity
+	 */
+	void profileStored(ProfileEntity profileEntity) {
+		final TransactionProfileChanges profileChanges = getTransactionProfileChanges();
+		if (attributeIndexes == null || profileChanges == null || !profileChanges.changedProfiles.contains(profileEntity.getProfileName())) {
+			return;
+		}
+		profileChanges.removedProfiles.remove(profileEntity.getProfileName());
+		profileChanges.storedProfiles.put(profileEntity.getProfileName(), attributeIndexes.getIndexKeys(profileEntity));
+	}
+	
+	/**
+	 * Indicates the profile with the specified name is removed by the current
+	 * transaction.
+	 * 
+	 * @param profileName
+	 */
+	void profileRemoved(String profileName) {
+		final TransactionProfileChanges profileChanges = getTransactionProfileChanges();
+		if (attributeIndexes == null || profileChanges == null || !profileChanges.changedProfiles.contains(profileName)) {
+			return;
+		}
+		profileChanges.storedProfiles.remove(profileName);
+		profileChanges.removedProfiles.add(profileName);
+	}
+	
+	/**
+	 * 
+	 * @return the profile changes done by the current transaction, null if there are none
+	 */
+	private TransactionProfileChanges getTransactionProfileChanges() {
+		final TransactionContext txContext = sleeContainer.getTransactionManager().getTransactionContext();
+		return txContext != null ? (TransactionProfileChanges) txContext.getData().get(changedProfilesTxDataKey) : null;
+	}
+	
+	/**
+	 * Indicates if the current transaction changed profiles of the table, in
+	 * such case neither the cache nor the attribute indexes can serve lookups
+	 * by attribute, since those changes are only visible in the persistent
+	 * store.
+	 * 
+	 * @return
+	 */
+	private boolean isProfileChangedByTransaction() {
+		return getTransactionProfileChanges() != null;
+	}
+
 	/**
 	 * 
 	 * @return
@@ -504,10 +641,9 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 		
 		sleeContainer.getTransactionManager().mandateTransaction();
 
-		// We get profile entities
-		Collection<ProfileEntity> profileEntities = null;
+		ProfileAttribute profileAttribute = null;
 		try {
-			profileEntities = getProfileEntitiesByAttribute(attributeName, attributeValue, true);
+			profileAttribute = getProfileAttribute(attributeName, attributeValue, true);
 		}
 		catch (AttributeNotIndexedException e) {
 			throw new SLEEException(e.getMessage(),e);
@@ -518,11 +654,38 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 		}
 
 		// We need ProfileLocalObjects
-       ArrayList<ProfileLocalObject> plocs = new ArrayList<ProfileLocalObject>();
-       for(ProfileEntity profileEntity : profileEntities) {
-    	   plocs.add(transactionView.getProfile(profileEntity).getProfileLocalObject());
-      }
-      return Collections.unmodifiableCollection(plocs);
+		ArrayList<ProfileLocalObject> plocs = new ArrayList<ProfileLocalObject>();
+		final boolean profileChangedByTransaction = isProfileChangedByTransaction();
+		final boolean useCache = cache != null && !profileChangedByTransaction;
+		Collection<String> profileNames = getIndexedProfileNames(profileAttribute, attributeValue, profileChangedByTransaction);
+		if (profileNames == null && useCache) {
+			profileNames = cache.getProfileNamesByAttribute(attributeName, attributeValue);
+		}
+		if (profileNames != null) {
+			for (String profileName : profileNames) {
+				ProfileObjectImpl profileObject = transactionView.getProfile(profileName);
+				// the profile may be removed concurrently
+				if (profileObject != null) {
+					plocs.add(profileObject.getProfileLocalObject());
+				}
+			}
+		}
+		else {
+			final long cacheGeneration = useCache ? cache.getGeneration() : 0L;
+			if (useCache) {
+				profileNames = new ArrayList<String>();
+			}
+			for(ProfileEntity profileEntity : getProfileEntitiesByAttribute(profileAttribute, attributeValue)) {
+				plocs.add(transactionView.getProfile(profileEntity).getProfileLocalObject());
+				if (useCache) {
+					profileNames.add(profileEntity.getProfileName());
+				}
+			}
+			if (useCache) {
+				cache.putProfileNamesByAttribute(attributeName, attributeValue, profileNames, cacheGeneration);
+			}
+		}
+		return Collections.unmodifiableCollection(plocs);
 	}
 
 	/*
@@ -538,20 +701,69 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 			logger.debug("getProfilesByAttribute( attributeName = "+attributeName+" , attributeValue = "+attributeValue+" , isSlee11 = "+isSlee11+" )");
 		}
 		
-		// We get profile entities
-		Collection<ProfileEntity> profileEntities = getProfileEntitiesByAttribute(attributeName, attributeValue, isSlee11);
+		ProfileAttribute profileAttribute = getProfileAttribute(attributeName, attributeValue, isSlee11);
+
+		final boolean profileChangedByTransaction = isProfileChangedByTransaction();
+		final boolean useCache = cache != null && !profileChangedByTransaction;
+		Collection<String> profileNames = getIndexedProfileNames(profileAttribute, attributeValue, profileChangedByTransaction);
+		if (profileNames == null && useCache) {
+			profileNames = cache.getProfileNamesByAttribute(attributeName, attributeValue);
+		}
+		if (profileNames == null) {
+			final long cacheGeneration = useCache ? cache.getGeneration() : 0L;
+			profileNames = new ArrayList<String>();
+			for(ProfileEntity profileEntity : getProfileEntitiesByAttribute(profileAttribute, attributeValue)) {
+				profileNames.add(profileEntity.getProfileName());
+			}
+			if (useCache) {
+				cache.putProfileNamesByAttribute(attributeName, attributeValue, profileNames, cacheGeneration);
+			}
+		}
 
 		// We need ProfileIDs
 		Collection<ProfileID> profileIDs = new ArrayList<ProfileID>();
-		for(ProfileEntity profileEntity : profileEntities) {
-			profileIDs.add( new ProfileID(profileEntity.getTableName(), profileEntity.getProfileName()) );    
+		for(String profileName : profileNames) {
+			profileIDs.add( new ProfileID(profileTableName, profileName) );    
 		}
 
 		return Collections.unmodifiableCollection( profileIDs );
 	}	
 	
 	/**
-	 * Retrieves the {@link ProfileEntity}s from the persistent store, matching specified attribute name and value type
+	 * Retrieves the names of the profiles matching specified attribute and value from the attribute indexes
+	 * @param profileAttribute
+	 * @param attributeValue
+	 * @param profileChangedByTransaction
+	 * @return null if the indexes are disabled or can't be used
+	 */
+	private Collection<String> getIndexedProfileNames(
+			ProfileAttribute profileAttribute, Object attributeValue, boolean profileChangedByTransaction) {
+		if (attributeIndexes == null || profileChangedByTransaction) {
+			return null;
+		}
+		return attributeIndexes.getProfileNames(profileTableName, profileAttribute, attributeValue);
+	}
+	
+	/**
+	 * Retrieves the {@link ProfileEntity}s from the persistent store, matching specified attribute and value
+	 * @param profileAttribute
+	 * @param attributeValue
+	 * @return
+	 * @throws SLEEException
+	 */
+	private Collection<ProfileEntity> getProfileEntitiesByAttribute(
+			ProfileAttribute profileAttribute, Object attributeValue)
+			throws SLEEException {
+    
+		if (logger.isDebugEnabled()) {
+			logger.debug("getProfileEntitiesByAttribute( profileAttribute = "+profileAttribute+" , attributeValue = "+attributeValue+" )");
+		}
+		
+		return component.getProfileEntityFramework().findProfilesByAttribute(this.getProfileTableName(), profileAttribute, attributeValue);
+	}	
+	
+	/**
+	 * Retrieves the {@link ProfileAttribute} for a lookup by attribute, validating the lookup
 	 * @param attributeName
 	 * @param attributeValue
 	 * @param isSlee11
@@ -559,17 +771,11 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 	 * @throws UnrecognizedAttributeException
 	 * @throws AttributeNotIndexedException
 	 * @throws AttributeTypeMismatchException
-	 * @throws SLEEException
 	 */
-	private Collection<ProfileEntity> getProfileEntitiesByAttribute(
+	private ProfileAttribute getProfileAttribute(
 			String attributeName, Object attributeValue, boolean isSlee11)
 			throws UnrecognizedAttributeException,
-			AttributeNotIndexedException, AttributeTypeMismatchException,
-			SLEEException {
-    
-		if (logger.isDebugEnabled()) {
-			logger.debug("getProfileEntitiesByAttribute( attributeName = "+attributeName+" , attributeValue = "+attributeValue+" , isSlee11 = "+isSlee11+" )");
-		}
+			AttributeNotIndexedException, AttributeTypeMismatchException {
 		
 		ProfileAttribute profileAttribute = getProfileAttribute(attributeName, attributeValue);
 		
@@ -585,7 +791,7 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 			}
 		}
 		
-		return component.getProfileEntityFramework().findProfilesByAttribute(this.getProfileTableName(), profileAttribute, attributeValue);
+		return profileAttribute;
 	}	
 	
 	/**
@@ -647,6 +853,12 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 		//thus no profiles will be returned on this call later on. ouch :)
 	  Collection<ProfileID> profileIDs = this.getProfiles();
 	  component.getProfileEntityFramework().renameProfileTable(this.profileTableName, newProfileTableName);
+	  if (cache != null) {
+		  cache.clear();
+	  }
+	  if (attributeIndexes != null) {
+		  attributeIndexes.clear();
+	  }
 	  //here we remove beans.
 	  for(ProfileID pid: profileIDs)
 	  {
@@ -694,7 +906,13 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 				final TraceManagement traceMBeanImpl = sleeContainer.getTraceManagement();
 				traceMBeanImpl.deregisterNotificationSource(new ProfileTableNotification(profileTableName));
 				// close uncommitted mbeans
-				closeUncommittedProfileMBeans();					
+				closeUncommittedProfileMBeans();
+				if (cache != null) {
+					cache.clear();
+				}
+				if (attributeIndexes != null) {
+					attributeIndexes.clear();
+				}
 			}
 		};
 		sleeContainer.getTransactionManager().getTransactionContext().getAfterCommitActions().add(commitAction);
@@ -830,7 +1048,7 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 		if (component.getUsageParametersInterface() != null) {
 			// create resource usage mbean
 			try {
-				this.profileTableUsageMBean = sleeContainer.getUsageParametersManagement().newProfileTableUsageMBean(profileTableName, component);				
+				this.profileTableUsageMBean = sleeContainer.getUsageParametersManagement().newProfileTableUsageMBean(profileTableName, component, cache);				
 			} catch (Throwable t) {
 				if (this.profileTableUsageMBean != null) {
 					this.profileTableUsageMBean.remove();
@@ -920,4 +1138,29 @@ public class ProfileTableImpl implements ProfileTable, Serializable {
 		}
 		return Collections.unmodifiableSet(tmp);
 	}
+	
+	/**
+	 * The profile changes done by a transaction, kept in the tx data.
+	 * 
+	 * @author martins
+	 *
+	 */
+	private static class TransactionProfileChanges {
+		
+		/**
+		 * the names of the profiles changed, created or removed
+		 */
+		private final Set<String> changedProfiles = new HashSet<String>();
+		
+		/**
+		 * the names of the profiles removed
+		 */
+		private final Set<String> removedProfiles = new HashSet<String>();
+		
+		/**
+		 * the attribute index keys of the profiles changed or created, per profile name
+		 */
+		private final Map<String, Map<String, Collection<Object>>> storedProfiles = new HashMap<String, Map<String, Collection<Object>>>();
+		
+	}
 }
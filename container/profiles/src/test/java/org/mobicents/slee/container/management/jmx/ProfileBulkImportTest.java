@@ -0,0 +1,301 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.slee.InvalidArgumentException;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the file parsing and batching of {@link ProfileBulkImport}, and the
+ * formats written by {@link ProfileBulkExport}, without a profile table.
+ * 
+ * @author martins
+ *
+ */
+public class ProfileBulkImportTest extends TestCase {
+
+	private static final Map<String, Class<?>> ATTRIBUTE_TYPES = new HashMap<String, Class<?>>();
+	
+	static {
+		ATTRIBUTE_TYPES.put("address", String.class);
+		ATTRIBUTE_TYPES.put("count", int.class);
+		ATTRIBUTE_TYPES.put("enabled", Boolean.class);
+		ATTRIBUTE_TYPES.put("initial", char.class);
+		ATTRIBUTE_TYPES.put("codes", long[].class);
+	}
+	
+	private File file;
+	
+	@Override
+	protected void setUp() throws Exception {
+		file = null;
+	}
+	
+	@Override
+	protected void tearDown() throws Exception {
+		if (file != null) {
+			file.delete();
+		}
+	}
+	
+	public void testParseLine() {
+		assertEquals(Arrays.asList("a", "b"), ProfileBulkImport.parseLine("a,b"));
+		assertEquals(Arrays.asList("a", "", ""), ProfileBulkImport.parseLine("a,,"));
+		assertEquals(Arrays.asList("a,b", " c "), ProfileBulkImport.parseLine("\"a,b\",\" c \""));
+		assertEquals(Arrays.asList("say \"hi\"", "x"), ProfileBulkImport.parseLine("\"say \"\"hi\"\"\",x"));
+		assertEquals(Collections.singletonList(""), ProfileBulkImport.parseLine(""));
+	}
+	
+	public void testCsvImport() throws Exception {
+		final TestImport bulkImport = newImport(".csv", 3,
+				"profileName,address,count,enabled,initial,codes",
+				"a,\"sip:a@x, y\",1,true,A,1|2|3",
+				"",
+				"b,,2,,,",
+				"c,c,3,false,C,4");
+		assertEquals(3, bulkImport.execute());
+		final ProfileBulkImport.ProfileRow a = bulkImport.getCreated("a");
+		assertEquals(2, a.lineNumber);
+		assertEquals("sip:a@x, y", getValue(a, "address"));
+		assertEquals(Integer.valueOf(1), getValue(a, "count"));
+		assertEquals(Boolean.TRUE, getValue(a, "enabled"));
+		assertEquals(Character.valueOf('A'), getValue(a, "initial"));
+		assertTrue(Arrays.equals(new long[] { 1, 2, 3 }, (long[]) getValue(a, "codes")));
+		// empty values keep the default
+		final ProfileBulkImport.ProfileRow b = bulkImport.getCreated("b");
+		assertEquals(4, b.lineNumber);
+		assertNull(getValue(b, "address"));
+		assertEquals(Integer.valueOf(2), getValue(b, "count"));
+		assertNull(getValue(b, "codes"));
+		assertEquals(3, bulkImport.getRead());
+		assertEquals(0, bulkImport.getFailed());
+	}
+	
+	public void testCsvUnknownAttribute() throws Exception {
+		final TestImport bulkImport = newImport(".csv", 10,
+				"profileName,address,unknown",
+				"a,a,1");
+		try {
+			bulkImport.execute();
+			fail("unknown attribute in header accepted");
+		} catch (InvalidArgumentException e) {
+			// expected
+		}
+		assertTrue(bulkImport.batches.isEmpty());
+	}
+	
+	public void testCsvRowErrors() throws Exception {
+		final TestImport bulkImport = newImport(".csv", 10,
+				"profileName,count,initial",
+				"a,1,a",
+				"b,1",
+				"c,x,c",
+				"d d,1,d",
+				"e,1,ee",
+				"f,1,f");
+		assertEquals(2, bulkImport.execute());
+		assertNotNull(bulkImport.getCreated("a"));
+		assertNotNull(bulkImport.getCreated("f"));
+		assertEquals(6, bulkImport.getRead());
+		assertEquals(4, bulkImport.getFailed());
+		// invalid rows are not part of batches
+		assertEquals(Collections.singletonList(2), bulkImport.batches);
+	}
+	
+	public void testBatchSize() throws Exception {
+		final String[] lines = new String[8];
+		lines[0] = "profileName,count";
+		for (int i = 1; i < lines.length; i++) {
+			lines[i] = "p" + i + "," + i;
+		}
+		final TestImport bulkImport = newImport(".csv", 3, lines);
+		assertEquals(7, bulkImport.execute());
+		final List<Integer> batches = new ArrayList<Integer>(bulkImport.batches);
+		Collections.sort(batches);
+		assertEquals(Arrays.asList(1, 3, 3), batches);
+	}
+	
+	public void testFailedBatchRetriedPerProfile() throws Exception {
+		final TestImport bulkImport = newImport(".csv", 3,
+				"profileName,count",
+				"a,1",
+				"fail,2",
+				"c,3");
+		assertEquals(2, bulkImport.execute());
+		assertEquals(Arrays.asList(3, 1, 1, 1), bulkImport.batches);
+		assertNotNull(bulkImport.getCreated("a"));
+		assertNull(bulkImport.getCreated("fail"));
+		assertNotNull(bulkImport.getCreated("c"));
+		assertEquals(1, bulkImport.getFailed());
+	}
+	
+	public void testJsonImport() throws Exception {
+		final TestImport bulkImport = newImport(".json", 2,
+				"[",
+				" {\"profileName\":\"a\", \"address\":\"sip:\\\"a\\\"@x\\u0021\", \"count\":1, \"enabled\":true, \"codes\":[1, 2]},",
+				" {\"profileName\":\"b\", \"count\":-2, \"address\":null, \"codes\":[]},",
+				" {\"profileName\":\"c\", \"unknown\":1},",
+				" {\"profileName\":\"d\", \"count\":[1]},",
+				" {\"count\":1},",
+				" {\"profileName\":\"f\", \"initial\":\"F\"}",
+				"]");
+		assertEquals(3, bulkImport.execute());
+		final ProfileBulkImport.ProfileRow a = bulkImport.getCreated("a");
+		assertEquals("sip:\"a\"@x!", getValue(a, "address"));
+		assertEquals(Integer.valueOf(1), getValue(a, "count"));
+		assertEquals(Boolean.TRUE, getValue(a, "enabled"));
+		assertTrue(Arrays.equals(new long[] { 1, 2 }, (long[]) getValue(a, "codes")));
+		final ProfileBulkImport.ProfileRow b = bulkImport.getCreated("b");
+		assertEquals(3, b.lineNumber);
+		assertEquals(Integer.valueOf(-2), getValue(b, "count"));
+		assertNull(getValue(b, "address"));
+		assertEquals(0, ((long[]) getValue(b, "codes")).length);
+		assertEquals(Character.valueOf('F'), getValue(bulkImport.getCreated("f"), "initial"));
+		assertEquals(6, bulkImport.getRead());
+		assertEquals(3, bulkImport.getFailed());
+		assertEquals(Arrays.asList(2, 1), bulkImport.batches);
+	}
+	
+	public void testInvalidJson() throws Exception {
+		final TestImport bulkImport = newImport(".json", 10,
+				"[",
+				" {\"profileName\":\"a\"},",
+				" {\"profileName\":\"b\"",
+				"]");
+		try {
+			bulkImport.execute();
+			fail("invalid JSON accepted");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("line 4"));
+		}
+	}
+	
+	public void testEmptyJson() throws Exception {
+		assertEquals(0, newImport(".json", 10, " [ ] ").execute());
+	}
+	
+	public void testCsvExportFormat() throws Exception {
+		final String line = ProfileBulkExport.formatCsvProfile("a", new Object[] { "x, \"y\"", Integer.valueOf(1), null, new long[] { 1, 2 }, " z" });
+		assertEquals("a,\"x, \"\"y\"\"\",1,,1|2,\" z\"", line);
+		assertEquals(Arrays.asList("a", "x, \"y\"", "1", "", "1|2", " z"), ProfileBulkImport.parseLine(line));
+	}
+	
+	public void testJsonExportFormat() throws Exception {
+		final String json = ProfileBulkExport.formatJsonProfile("a", new String[] { "address", "count", "enabled", "initial", "codes" },
+				new Object[] { "line\n\"quoted\"\\", Integer.valueOf(-1), null, Character.valueOf('c'), new long[] { 1, 2 } });
+		assertEquals("{\"profileName\":\"a\",\"address\":\"line\\n\\\"quoted\\\"\\\\\",\"count\":-1,\"initial\":\"c\",\"codes\":[1,2]}", json);
+		final Map<String, Object> profile = new ProfileJsonReader(new StringReader("[" + json + "]")).next();
+		assertEquals("a", profile.get(ProfileJsonReader.PROFILE_NAME));
+		assertEquals("line\n\"quoted\"\\", profile.get("address"));
+		assertEquals("-1", profile.get("count"));
+		assertFalse(profile.containsKey("enabled"));
+		assertEquals("c", profile.get("initial"));
+		assertEquals(Arrays.asList("1", "2"), profile.get("codes"));
+	}
+	
+	// --- helpers
+	
+	private TestImport newImport(String extension, int batchSize, String... lines) throws IOException {
+		file = File.createTempFile("profiles", extension);
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		return new TestImport(file.getAbsolutePath(), batchSize);
+	}
+	
+	private static Object getValue(ProfileBulkImport.ProfileRow row, String attributeName) {
+		for (int i = 0; i < row.setters.length; i++) {
+			if (row.setters[i].name.equals(attributeName)) {
+				return row.values[i];
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Records the profiles created instead of using a profile table,
+	 * failing the ones named "fail".
+	 */
+	private static class TestImport extends ProfileBulkImport {
+		
+		private final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+		
+		private final Map<String, ProfileRow> created = Collections.synchronizedMap(new HashMap<String, ProfileRow>());
+		
+		TestImport(String fileName, int batchSize) {
+			super(null, fileName, batchSize, 1, false, null);
+		}
+		
+		@Override
+		ClassLoader getProfileClassLoader() {
+			return getClass().getClassLoader();
+		}
+		
+		@Override
+		AttributeSetter getAttributeSetter(String attributeName) throws InvalidArgumentException {
+			final Class<?> type = ATTRIBUTE_TYPES.get(attributeName);
+			if (type == null) {
+				throw new InvalidArgumentException("no attribute named " + attributeName);
+			}
+			return new AttributeSetter(attributeName, type, null);
+		}
+		
+		@Override
+		void createProfiles(List<ProfileRow> rows) throws Exception {
+			batches.add(rows.size());
+			for (ProfileRow row : rows) {
+				if (row.profileName.equals("fail")) {
+					throw new Exception("failed to create " + row.profileName);
+				}
+			}
+			for (ProfileRow row : rows) {
+				created.put(row.profileName, row);
+			}
+		}
+		
+		ProfileRow getCreated(String profileName) {
+			return created.get(profileName);
+		}
+	}
+	
+}
@@ -0,0 +1,275 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.profile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.slee.profile.query.QueryExpression;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.component.profile.ProfileAttribute;
+import org.mobicents.slee.container.profile.entity.ProfileEntity;
+import org.mobicents.slee.container.profile.entity.ProfileEntityFactory;
+import org.mobicents.slee.container.profile.entity.ProfileEntityFramework;
+
+/**
+ * Tests {@link ProfileAttributeIndexes}, with a profile entity framework
+ * which keeps the profiles in memory.
+ * 
+ * @author martins
+ *
+ */
+public class ProfileAttributeIndexesTest extends TestCase {
+
+	private static final String TABLE_NAME = "table";
+
+	private static class TestProfileEntity extends ProfileEntity {
+
+		final Map<String, Object> values = new HashMap<String, Object>();
+
+		TestProfileEntity(String profileName, String attributeName, Object value) {
+			setProfileName(profileName);
+			setTableName(TABLE_NAME);
+			values.put(attributeName, value);
+		}
+	}
+
+	/**
+	 * The profile entity framework, keeping the profiles in memory, only the
+	 * methods used by the indexes are supported.
+	 */
+	private static class TestProfileEntityFramework implements ProfileEntityFramework {
+
+		final List<ProfileEntity> profileEntities = new ArrayList<ProfileEntity>();
+
+		int findAllInvocations;
+
+		Runnable onFindAll;
+
+		public Collection<ProfileEntity> findAll(String profileTable) {
+			findAllInvocations++;
+			if (onFindAll != null) {
+				onFindAll.run();
+			}
+			return new ArrayList<ProfileEntity>(profileEntities);
+		}
+
+		public Collection<Object> getProfileAttributeIndexKeys(ProfileEntity profileEntity, ProfileAttribute profileAttribute) {
+			final Object value = ((TestProfileEntity) profileEntity).values.get(profileAttribute.getName());
+			return value != null ? Collections.singletonList(value) : Collections.emptyList();
+		}
+
+		public Object getProfileAttributeIndexKey(ProfileAttribute profileAttribute, Object attributeValue) {
+			return attributeValue;
+		}
+
+		public ProfileEntity findProfile(String profileTable, String profileName) {
+			throw new UnsupportedOperationException();
+		}
+
+		public Collection<ProfileEntity> findProfilesByAttribute(String profileTable, ProfileAttribute profileAttribute, Object attributeValue) {
+			throw new UnsupportedOperationException();
+		}
+
+		public Class<?> getProfileEntityClass() {
+			throw new UnsupportedOperationException();
+		}
+
+		public ProfileEntityFactory getProfileEntityFactory() {
+			throw new UnsupportedOperationException();
+		}
+
+		public Collection<ProfileEntity> getProfilesByDynamicQuery(String profileTable, QueryExpression expr) {
+			throw new UnsupportedOperationException();
+		}
+
+		public Collection<ProfileEntity> getProfilesByStaticQuery(String profileTable, String queryName, Object[] parameters) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void install() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void persistProfile(ProfileEntity profileEntity) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void removeprofile(ProfileEntity profileEntity) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void renameProfileTable(String oldProfileTableName, String newProfileTableName) {
+			throw new UnsupportedOperationException();
+		}
+
+		public ProfileEntity retrieveProfile(String profileTable, String profileName) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void uninstall() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void closeEntityManagerFactory() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * A non array string profile attribute.
+	 */
+	private static class TestProfileAttribute implements ProfileAttribute {
+
+		private final String name;
+
+		TestProfileAttribute(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isArray() {
+			return false;
+		}
+
+		public boolean isUnique() {
+			return false;
+		}
+
+		public boolean isIndex() {
+			return true;
+		}
+
+		public Class<?> getType() {
+			return String.class;
+		}
+
+		public Class<?> getNonPrimitiveType() {
+			return String.class;
+		}
+
+		public boolean isPrimitive() {
+			return false;
+		}
+	}
+
+	private final ProfileAttribute attribute = new TestProfileAttribute("attribute");
+
+	private TestProfileEntityFramework framework;
+
+	private ProfileAttributeIndexes indexes;
+
+	@Override
+	protected void setUp() throws Exception {
+		framework = new TestProfileEntityFramework();
+		framework.profileEntities.add(new TestProfileEntity("a", "attribute", "x"));
+		framework.profileEntities.add(new TestProfileEntity("b", "attribute", "y"));
+		framework.profileEntities.add(new TestProfileEntity("c", "attribute", "x"));
+		indexes = new ProfileAttributeIndexes(framework, 10);
+	}
+
+	private static Map<String, Map<String, Collection<Object>>> storedProfile(String profileName, String attributeName, Object key) {
+		final Map<String, Collection<Object>> indexKeys = new HashMap<String, Collection<Object>>();
+		indexKeys.put(attributeName, Collections.<Object> singletonList(key));
+		return Collections.singletonMap(profileName, indexKeys);
+	}
+
+	public void testLookupBuildsIndexOnce() {
+		assertEquals(new HashSet<String>(Arrays.asList("a", "c")), new HashSet<String>(indexes.getProfileNames(TABLE_NAME, attribute, "x")));
+		assertEquals(Collections.singletonList("b"), indexes.getProfileNames(TABLE_NAME, attribute, "y"));
+		assertTrue(indexes.getProfileNames(TABLE_NAME, attribute, "z").isEmpty());
+		assertEquals(1, framework.findAllInvocations);
+	}
+
+	public void testUpdateAppliesCommittedChanges() {
+		indexes.getProfileNames(TABLE_NAME, attribute, "x");
+		// a changes to y, c is removed, d is created with x
+		final Map<String, Map<String, Collection<Object>>> storedProfiles = new HashMap<String, Map<String, Collection<Object>>>();
+		storedProfiles.putAll(storedProfile("a", "attribute", "y"));
+		storedProfiles.putAll(storedProfile("d", "attribute", "x"));
+		indexes.update(Arrays.asList("a", "c", "d"), Collections.singletonList("c"), storedProfiles);
+		assertEquals(Collections.singletonList("d"), indexes.getProfileNames(TABLE_NAME, attribute, "x"));
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), new HashSet<String>(indexes.getProfileNames(TABLE_NAME, attribute, "y")));
+		assertEquals(1, framework.findAllInvocations);
+	}
+
+	public void testLookupResultNotChangedByLaterUpdate() {
+		final Collection<String> profileNames = indexes.getProfileNames(TABLE_NAME, attribute, "x");
+		indexes.update(Collections.singletonList("a"), Collections.singletonList("a"), Collections.<String, Map<String, Collection<Object>>> emptyMap());
+		assertEquals(new HashSet<String>(Arrays.asList("a", "c")), new HashSet<String>(profileNames));
+		assertEquals(Collections.singletonList("c"), indexes.getProfileNames(TABLE_NAME, attribute, "x"));
+	}
+
+	public void testIndexBuiltConcurrentlyWithUpdateDiscarded() {
+		framework.onFindAll = new Runnable() {
+			public void run() {
+				framework.onFindAll = null;
+				indexes.update(Collections.singletonList("b"), Collections.<String> emptyList(), storedProfile("b", "attribute", "x"));
+			}
+		};
+		assertNull(indexes.getProfileNames(TABLE_NAME, attribute, "x"));
+		// built again on the next lookup
+		assertNotNull(indexes.getProfileNames(TABLE_NAME, attribute, "x"));
+		assertEquals(2, framework.findAllInvocations);
+	}
+
+	public void testUnknownProfileStateDiscardsIndexes() {
+		indexes.getProfileNames(TABLE_NAME, attribute, "x");
+		indexes.update(Collections.singletonList("a"), Collections.<String> emptyList(), Collections.<String, Map<String, Collection<Object>>> emptyMap());
+		indexes.getProfileNames(TABLE_NAME, attribute, "x");
+		assertEquals(2, framework.findAllInvocations);
+	}
+
+	public void testIndexKeysOfIndexedAttributes() {
+		final TestProfileEntity profileEntity = new TestProfileEntity("d", "attribute", "x");
+		assertTrue(indexes.getIndexKeys(profileEntity).isEmpty());
+		indexes.getProfileNames(TABLE_NAME, attribute, "x");
+		assertEquals(Collections.singletonList("x"), indexes.getIndexKeys(profileEntity).get("attribute"));
+	}
+
+	public void testDisabledWithTooManyProfiles() {
+		indexes = new ProfileAttributeIndexes(framework, 2);
+		assertNull(indexes.getProfileNames(TABLE_NAME, attribute, "x"));
+		assertNull(indexes.getProfileNames(TABLE_NAME, attribute, "x"));
+		assertEquals(1, framework.findAllInvocations);
+	}
+
+	public void testClearDiscardsIndexes() {
+		indexes.getProfileNames(TABLE_NAME, attribute, "x");
+		indexes.clear();
+		indexes.getProfileNames(TABLE_NAME, attribute, "x");
+		assertEquals(2, framework.findAllInvocations);
+	}
+
+}
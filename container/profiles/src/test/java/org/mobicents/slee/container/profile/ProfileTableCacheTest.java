@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.profile;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the attribute lookups of {@link ProfileTableCache}.
+ * 
+ * @author martins
+ *
+ */
+public class ProfileTableCacheTest extends TestCase {
+
+	private static final String ATTRIBUTE_NAME = "attribute";
+
+	private ProfileTableCache cache;
+
+	@Override
+	protected void setUp() throws Exception {
+		// profile entities are not used by lookups, no component needed
+		cache = new ProfileTableCache(null, 1000, 0);
+	}
+
+	public void testLookupHit() {
+		cache.putProfileNamesByAttribute(ATTRIBUTE_NAME, "value", Arrays.asList("a", "b"), cache.getGeneration());
+		assertEquals(Arrays.asList("a", "b"), cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, "value"));
+		assertNull(cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, "other"));
+		assertNull(cache.getProfileNamesByAttribute("other", "value"));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	public void testPrimitiveArrayValueMatchedByContent() {
+		cache.putProfileNamesByAttribute(ATTRIBUTE_NAME, new byte[] { 1, 2 }, Collections.singletonList("a"), cache.getGeneration());
+		assertEquals(Collections.singletonList("a"), cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, new byte[] { 1, 2 }));
+		assertNull(cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, new byte[] { 1, 3 }));
+	}
+
+	public void testObjectArrayValueMatchedByContent() {
+		cache.putProfileNamesByAttribute(ATTRIBUTE_NAME, new String[] { "x", "y" }, Collections.singletonList("a"), cache.getGeneration());
+		assertEquals(Collections.singletonList("a"), cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, new String[] { "x", "y" }));
+		assertNull(cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, new String[] { "y", "x" }));
+	}
+
+	public void testArrayValueChangedAfterPut() {
+		final byte[] value = new byte[] { 1, 2 };
+		cache.putProfileNamesByAttribute(ATTRIBUTE_NAME, value, Collections.singletonList("a"), cache.getGeneration());
+		value[0] = 9;
+		assertEquals(Collections.singletonList("a"), cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, new byte[] { 1, 2 }));
+		assertNull(cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, value));
+	}
+
+	public void testInvalidateDiscardsLookups() {
+		cache.putProfileNamesByAttribute(ATTRIBUTE_NAME, "value", Collections.singletonList("a"), cache.getGeneration());
+		cache.invalidate(Collections.singletonList("b"));
+		assertNull(cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, "value"));
+	}
+
+	public void testStaleGenerationNotCached() {
+		final long generation = cache.getGeneration();
+		// a profile changes while the lookup is done in the persistent store
+		cache.invalidate(Collections.singletonList("a"));
+		cache.putProfileNamesByAttribute(ATTRIBUTE_NAME, "value", Collections.singletonList("a"), generation);
+		assertNull(cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, "value"));
+	}
+
+	public void testCachedNamesNotModifiable() {
+		cache.putProfileNamesByAttribute(ATTRIBUTE_NAME, "value", Arrays.asList("a"), cache.getGeneration());
+		final Collection<String> profileNames = cache.getProfileNamesByAttribute(ATTRIBUTE_NAME, "value");
+		try {
+			profileNames.add("b");
+			fail("cached profile names modified");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	public void testEvictionWhenFull() {
+		final ProfileTableCache smallCache = new ProfileTableCache(null, 16, 0);
+		for (int i = 0; i < 100; i++) {
+			smallCache.putProfileNamesByAttribute(ATTRIBUTE_NAME, Integer.valueOf(i), Collections.singletonList("a"), smallCache.getGeneration());
+		}
+		assertTrue(smallCache.getEvictions() >= 100 - 16);
+		// the last one put is the most recently used of its segment
+		assertNotNull(smallCache.getProfileNamesByAttribute(ATTRIBUTE_NAME, Integer.valueOf(99)));
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.connector.local;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.resource.ResourceException;
+
+import org.mobicents.slee.connector.remote.EventInvocation;
+import org.mobicents.slee.util.concurrent.SleeThreadFactory;
+
+/**
+ * Coalesces the events fired asynchronously through SLEE connections, firing
+ * the events submitted within a time window in a single transaction.
+ * 
+ * @author martins
+ * 
+ */
+class SleeConnectionEventBatcher implements Runnable {
+
+	private final static SleeThreadFactory SLEE_THREAD_FACTORY = new SleeThreadFactory("SLEE-SleeConnectionEventBatcher");
+
+	private final SleeConnectionService service;
+
+	/**
+	 * the max time, in milliseconds, an event waits for others
+	 */
+	private final int window;
+
+	/**
+	 * the max number of events fired in a single transaction
+	 */
+	private final int maxSize;
+
+	/**
+	 * the max number of events waiting to be fired
+	 */
+	private final int maxQueueSize;
+
+	private final ScheduledExecutorService executor = Executors
+			.newSingleThreadScheduledExecutor(SLEE_THREAD_FACTORY);
+
+	private final ConcurrentLinkedQueue<EventInvocationFuture> queue = new ConcurrentLinkedQueue<EventInvocationFuture>();
+
+	private final AtomicInteger queueSize = new AtomicInteger(0);
+
+	/**
+	 * indicates if a flush is scheduled, to be done once the window ends
+	 */
+	private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+	private volatile boolean shutdown;
+
+	/**
+	 * 
+	 * @param service
+	 * @param window
+	 * @param maxSize
+	 * @param maxQueueSize
+	 */
+	SleeConnectionEventBatcher(SleeConnectionService service, int window,
+			int maxSize, int maxQueueSize) {
+		this.service = service;
+		this.window = window;
+		this.maxSize = maxSize;
+		this.maxQueueSize = maxQueueSize;
+	}
+
+	/**
+	 * Queues the specified event invocation, to be fired in the next batch.
+	 * 
+	 * @param eventInvocation
+	 * @return
+	 * @throws ResourceException
+	 *             if the batcher was shutdown, or the queue is full
+	 */
+	Future<Void> submit(EventInvocation eventInvocation)
+			throws ResourceException {
+		// reserve the queue slot first, so the queue never exceeds its max
+		final int size = queueSize.incrementAndGet();
+		if (size > maxQueueSize) {
+			queueSize.decrementAndGet();
+			throw new ResourceException("Too many events waiting to be fired, max is "+maxQueueSize);
+		}
+		final EventInvocationFuture future = new EventInvocationFuture(
+				eventInvocation);
+		queue.offer(future);
+		if (shutdown) {
+			// a flush may still be scheduled, the executor would not reject
+			if (queue.remove(future)) {
+				queueSize.decrementAndGet();
+			}
+			throw new ResourceException("Container is not in running state.");
+		}
+		try {
+			if (size == maxSize) {
+				// a full batch is waiting, no need to wait for the window end
+				executor.execute(this);
+			} else if (flushScheduled.compareAndSet(false, true)) {
+				executor.schedule(this, window, TimeUnit.MILLISECONDS);
+			}
+		} catch (RejectedExecutionException e) {
+			if (queue.remove(future)) {
+				queueSize.decrementAndGet();
+			}
+			throw new ResourceException("Container is not in running state.");
+		}
+		return future;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		// events queued from now on need a new flush
+		flushScheduled.set(false);
+		final List<EventInvocationFuture> futures = new ArrayList<EventInvocationFuture>();
+		final List<EventInvocation> eventInvocations = new ArrayList<EventInvocation>();
+		EventInvocationFuture future = null;
+		while (true) {
+			while (futures.size() < maxSize
+					&& (future = queue.poll()) != null) {
+				queueSize.decrementAndGet();
+				if (!future.isCancelled()) {
+					futures.add(future);
+					eventInvocations.add(future.eventInvocation);
+				}
+			}
+			if (futures.isEmpty()) {
+				return;
+			}
+			fire(futures, eventInvocations);
+			futures.clear();
+			eventInvocations.clear();
+		}
+	}
+
+	private void fire(List<EventInvocationFuture> futures,
+			List<EventInvocation> eventInvocations) {
+		final Exception[] result;
+		try {
+			result = service.fireEvents(eventInvocations);
+		} catch (Throwable e) {
+			for (EventInvocationFuture future : futures) {
+				future.failed(e);
+			}
+			return;
+		}
+		for (int i = 0; i < result.length; i++) {
+			if (result[i] == null) {
+				futures.get(i).fired();
+			} else {
+				futures.get(i).failed(result[i]);
+			}
+		}
+	}
+
+	/**
+	 * Shuts down the batcher, the events not yet fired fail.
+	 */
+	void shutdown() {
+		// set before draining, so events queued concurrently are either
+		// drained or rejected by submit
+		shutdown = true;
+		executor.shutdownNow();
+		EventInvocationFuture future = null;
+		while ((future = queue.poll()) != null) {
+			queueSize.decrementAndGet();
+			future.failed(new ResourceException(
+					"Container is not in running state."));
+		}
+	}
+
+	/**
+	 * The future of an event invocation, completed by the batcher.
+	 */
+	private static class EventInvocationFuture extends FutureTask<Void> {
+
+		private static final Runnable NOOP = new Runnable() {
+			public void run() {
+			}
+		};
+
+		private final EventInvocation eventInvocation;
+
+		EventInvocationFuture(EventInvocation eventInvocation) {
+			super(NOOP, null);
+			this.eventInvocation = eventInvocation;
+		}
+
+		void fired() {
+			set(null);
+		}
+
+		void failed(Throwable t) {
+			setException(t);
+		}
+
+	}
+
+}
@@ -26,6 +26,7 @@
 package org.mobicents.slee.connector.local;
 
 import org.apache.log4j.Logger;
+import org.mobicents.slee.SleeConnectionExt;
 
 import javax.resource.ResourceException;
 import javax.slee.Address;
@@ -33,14 +34,14 @@ import javax.slee.EventTypeID;
 import javax.slee.UnrecognizedActivityException;
 import javax.slee.UnrecognizedEventException;
 import javax.slee.connection.ExternalActivityHandle;
-import javax.slee.connection.SleeConnection;
+import java.util.concurrent.Future;
 
 /**
  * Connection object which proxies calls.
  * @author baranowb
  *
  */
-public class SleeConnectionImpl implements SleeConnection {
+public class SleeConnectionImpl implements SleeConnectionExt {
 
 	
 	private static final Logger logger = Logger.getLogger(MobicentsSleeConnectionFactoryImpl.class);
@@ -103,6 +104,26 @@ public class SleeConnectionImpl implements SleeConnection {
 		this.service.fireEvent(event, eventType, activityHandle, address);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.SleeConnectionExt#fireEventAsync(java.lang.Object, javax.slee.EventTypeID, javax.slee.connection.ExternalActivityHandle, javax.slee.Address)
+	 */
+	public Future<Void> fireEventAsync(Object event, EventTypeID eventType,
+			ExternalActivityHandle activityHandle, Address address) throws NullPointerException,
+			ResourceException {
+		if(service == null)
+		{
+			throw new ResourceException("Connection is in closed state");
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("fireEventAsync(event=" + event + ",eventType=" + eventType
+					+ ",activityHandle=" + activityHandle + ",address="
+					+ address + ")");
+		}
+
+		return this.service.fireEventAsync(event, eventType, activityHandle, address);
+	}
+
 	/* (non-Javadoc)
 	 * @see javax.slee.connection.SleeConnection#getEventTypeID(java.lang.String, java.lang.String, java.lang.String)
 	 */
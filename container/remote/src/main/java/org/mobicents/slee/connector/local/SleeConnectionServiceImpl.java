@@ -35,6 +35,7 @@
 package org.mobicents.slee.connector.local;
 
 import org.apache.log4j.Logger;
+import org.mobicents.slee.connector.remote.EventInvocation;
 import org.mobicents.slee.container.AbstractSleeContainerModule;
 import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.activity.ActivityContext;
@@ -48,6 +49,9 @@ import javax.slee.*;
 import javax.slee.connection.ExternalActivityHandle;
 import javax.slee.management.SleeState;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 /**
  * This interface duplicates methods from {@link javax.slee.connection.SleeConnection}.
@@ -57,6 +61,98 @@ import java.util.Arrays;
 public class SleeConnectionServiceImpl extends AbstractSleeContainerModule implements SleeConnectionService {
 
 	private static final Logger logger = Logger.getLogger(SleeConnectionServiceImpl.class);
+
+	/**
+	 * The result of validating an event type for firing, reused till the event
+	 * type components installed change.
+	 */
+	private static class EventTypeDescriptor {
+
+		private final int eventTypeComponentsVersion;
+		private final EventTypeComponent eventTypeComponent;
+		private volatile Class<?> lastEventClass;
+
+		public EventTypeDescriptor(int eventTypeComponentsVersion,
+				EventTypeComponent eventTypeComponent) {
+			this.eventTypeComponentsVersion = eventTypeComponentsVersion;
+			this.eventTypeComponent = eventTypeComponent;
+		}
+	}
+
+	/**
+	 * the descriptors of event types fired through the connection
+	 */
+	private final ConcurrentHashMap<EventTypeID, EventTypeDescriptor> eventTypeDescriptors = new ConcurrentHashMap<EventTypeID, EventTypeDescriptor>();
+
+	/**
+	 * the max time, in milliseconds, an event fired asynchronously waits for
+	 * other events, to be fired in the same transaction
+	 */
+	private int eventBatchWindow = 2;
+
+	/**
+	 * the max number of events fired asynchronously in the same transaction
+	 */
+	private int eventBatchMaxSize = 256;
+
+	/**
+	 * the max number of events fired asynchronously waiting to be fired, once
+	 * reached new events are rejected
+	 */
+	private int eventQueueMaxSize = 65536;
+
+	/**
+	 * the batcher of events fired asynchronously, only exists while the SLEE is running
+	 */
+	private volatile SleeConnectionEventBatcher eventBatcher;
+
+	public int getEventBatchWindow() {
+		return eventBatchWindow;
+	}
+
+	public void setEventBatchWindow(int eventBatchWindow) throws IllegalArgumentException {
+		if (eventBatchWindow < 0) {
+			throw new IllegalArgumentException("event batch window must not be lower than 0");
+		}
+		this.eventBatchWindow = eventBatchWindow;
+	}
+
+	public int getEventBatchMaxSize() {
+		return eventBatchMaxSize;
+	}
+
+	public void setEventBatchMaxSize(int eventBatchMaxSize) throws IllegalArgumentException {
+		if (eventBatchMaxSize < 1) {
+			throw new IllegalArgumentException("event batch max size must be greater than 0");
+		}
+		this.eventBatchMaxSize = eventBatchMaxSize;
+	}
+
+	public int getEventQueueMaxSize() {
+		return eventQueueMaxSize;
+	}
+
+	public void setEventQueueMaxSize(int eventQueueMaxSize) throws IllegalArgumentException {
+		if (eventQueueMaxSize < 1) {
+			throw new IllegalArgumentException("event queue max size must be greater than 0");
+		}
+		this.eventQueueMaxSize = eventQueueMaxSize;
+	}
+
+	@Override
+	public void sleeRunning() {
+		eventBatcher = new SleeConnectionEventBatcher(this, eventBatchWindow, eventBatchMaxSize, eventQueueMaxSize);
+	}
+
+	@Override
+	public void sleeStopping() {
+		final SleeConnectionEventBatcher eventBatcher = this.eventBatcher;
+		if (eventBatcher != null) {
+			this.eventBatcher = null;
+			eventBatcher.shutdown();
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see javax.slee.connection.SleeConnection#createActivityHandle()
 	 */
@@ -79,88 +175,21 @@ public class SleeConnectionServiceImpl extends AbstractSleeContainerModule imple
 	public void fireEvent(Object event, EventTypeID eventType,
 			ExternalActivityHandle activityHandle, Address address) throws NullPointerException,
 			UnrecognizedActivityException, UnrecognizedEventException, ResourceException {
-		if(sleeContainer == null)
-		{
-			throw new ResourceException("Connection is in closed state");
-		}
-		if(sleeContainer.getSleeState()!=SleeState.RUNNING)
-		{
-			throw new ResourceException("Container is not in running state.");
-		}
+		checkRunning();
 		if (logger.isDebugEnabled()) {
 			logger.debug("fireEvent(event=" + event + ",eventType=" + eventType
 					+ ",activityHandle=" + activityHandle + ",address="
 					+ address + ")");
 		}
 
-		if (event == null) {
-			throw new NullPointerException("event is null");
-		}
-		if (eventType == null) {
-			throw new NullPointerException("event type is null");
-		}
-		if (activityHandle == null) {
-			throw new NullPointerException("activity handle is null");
-		}
-
-		EventTypeComponent eventTypeComponent = sleeContainer
-				.getComponentRepository().getComponentByID(eventType);
-		if (eventTypeComponent == null) {
-			throw new UnrecognizedEventException("event type not installed");
-		}
-
-		if (!eventTypeComponent.getEventTypeClass().isAssignableFrom(event.getClass())) {
-			logger.info(""+eventTypeComponent.getEventTypeClass().toString());
-			logger.info(""+eventTypeComponent.getEventTypeClass().getCanonicalName());
-			logger.info(""+Arrays.toString(eventTypeComponent.getEventTypeClass().getDeclaredMethods()));
-			logger.info(""+eventTypeComponent.getEventTypeClass().getClass().toString());
-			logger.info(""+eventTypeComponent.getEventTypeClass().getClass().getCanonicalName());
-			logger.info(""+event.getClass().toString());
-			logger.info(""+event.getClass().getCanonicalName());
-			logger.info(""+Arrays.toString(event.getClass().getDeclaredMethods()));
-			logger.info("*"+eventTypeComponent);
-			logger.info("*"+eventTypeComponent.getEventTypeID());
-			logger.info("*"+event);
-			logger.info("&"+eventTypeComponent.getClassLoader());
-			logger.info("&"+eventTypeComponent.getEventTypeClass().getClassLoader());
-			logger.info("&"+event.getClass().getClassLoader());
-			//throw new UnrecognizedEventException(
-			//	"the class of the event object fired is not assignable to the event class of the event type.\n" +
-			//	" EventClass: "+event.getClass()+", component class: "+eventTypeComponent.getEventTypeClass());
-
-		}
-
-		if (!(activityHandle instanceof NullActivityHandle)) {
-			throw new UnrecognizedActivityException(activityHandle);
-		}
-
-		// check container state is running
-		SleeContainer sleeContainer = SleeContainer.lookupFromJndi();
-		if (sleeContainer.getSleeState() != SleeState.RUNNING) {
-			throw new IllegalStateException("Container is not running");
-		}
+		final NullActivityHandle nullActivityHandle = validateEvent(event, eventType, activityHandle);
 
 		SleeTransactionManager txMgr = sleeContainer.getTransactionManager();
 		boolean newTx = txMgr.requireTransaction();
 		boolean rollback = true;
 
 		try {
-			final NullActivityHandle nullActivityHandle = (NullActivityHandle) activityHandle;
-			final ActivityContextHandle ach = nullActivityHandle.getActivityContextHandle();
-			ActivityContext ac = sleeContainer.getActivityContextFactory()
-					.getActivityContext(ach);
-			if (ac == null) {
-				sleeContainer.getNullActivityFactory().createNullActivity(
-						nullActivityHandle, false);
-				ac = sleeContainer.getActivityContextFactory()
-						.getActivityContext(ach);
-				if (ac == null) {
-					throw new SLEEException(
-							"unable to create null ac for external activity handle "
-									+ activityHandle);
-				}
-			}
-			ac.fireEvent(eventType, event, address, null, null,null,null);
+			fireEvent(event, eventType, nullActivityHandle, address);
 			rollback = false;
 		} catch (Throwable ex) {
 			logger.error("Exception in fireEvent!", ex);
@@ -185,6 +214,257 @@ public class SleeConnectionServiceImpl extends AbstractSleeContainerModule imple
 		}
 	}
 
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.connector.local.SleeConnectionService#fireEvents(java.util.List)
+	 */
+	public Exception[] fireEvents(List<EventInvocation> eventInvocations)
+			throws ResourceException {
+		checkRunning();
+		final int size = eventInvocations.size();
+		final Exception[] result = new Exception[size];
+		final NullActivityHandle[] nullActivityHandles = new NullActivityHandle[size];
+		EventInvocation eventInvocation = null;
+		// validate all events before starting the tx
+		for (int i = 0; i < size; i++) {
+			eventInvocation = eventInvocations.get(i);
+			try {
+				nullActivityHandles[i] = validateEvent(eventInvocation.event,
+						eventInvocation.eventTypeId,
+						eventInvocation.externalActivityHandle);
+			} catch (Exception e) {
+				result[i] = e;
+			}
+		}
+
+		final SleeTransactionManager txMgr = sleeContainer.getTransactionManager();
+		int failed = -1;
+		do {
+			final boolean newTx = txMgr.requireTransaction();
+			boolean rollback = true;
+			try {
+				failed = fireValidatedEvents(eventInvocations,
+						nullActivityHandles, result);
+				rollback = false;
+			} finally {
+				if (newTx && rollback) {
+					try {
+						txMgr.rollback();
+					} catch (Throwable e) {
+						logger.error("failed to rollback implicit tx", e);
+					}
+				}
+			}
+			if (failed < 0) {
+				if (newTx) {
+					try {
+						txMgr.commit();
+					} catch (Throwable e) {
+						final ResourceException re = new ResourceException(
+								"failed to commit implicit tx");
+						re.initCause(e);
+						throw re;
+					}
+				}
+			} else if (newTx) {
+				// the tx holds the partial work of the failed event, such as
+				// a null activity it created, roll it back and fire the
+				// others in a new tx
+				nullActivityHandles[failed] = null;
+				try {
+					txMgr.rollback();
+				} catch (Throwable e) {
+					logger.error("failed to rollback implicit tx", e);
+				}
+			} else {
+				// the caller's tx can't be rolled back here, mark it for
+				// rollback, and fail all events
+				try {
+					txMgr.setRollbackOnly();
+				} catch (Throwable e) {
+					logger.error("failed to mark caller tx for rollback", e);
+				}
+				for (int i = 0; i < size; i++) {
+					if (nullActivityHandles[i] != null && i != failed) {
+						final ResourceException re = new ResourceException(
+								"caller tx marked for rollback, due to the failure of another event in the batch");
+						re.initCause(result[failed]);
+						result[i] = re;
+					}
+				}
+				break;
+			}
+		} while (failed >= 0);
+		return result;
+	}
+
+	/**
+	 * Fires the events which passed validation, in the active transaction,
+	 * stopping at the first event which fails.
+	 * 
+	 * @param eventInvocations
+	 * @param nullActivityHandles
+	 *            the handle of each event's null activity, or null if the
+	 *            event is not to be fired
+	 * @param result
+	 *            where the exception of the failed event is set
+	 * @return the index of the event which failed, or -1 if all were fired
+	 */
+	private int fireValidatedEvents(List<EventInvocation> eventInvocations,
+			NullActivityHandle[] nullActivityHandles, Exception[] result) {
+		EventInvocation eventInvocation = null;
+		for (int i = 0; i < nullActivityHandles.length; i++) {
+			if (nullActivityHandles[i] != null) {
+				eventInvocation = eventInvocations.get(i);
+				try {
+					fireEvent(eventInvocation.event,
+							eventInvocation.eventTypeId,
+							nullActivityHandles[i], eventInvocation.address);
+				} catch (Exception e) {
+					result[i] = e;
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.connector.local.SleeConnectionService#fireEventAsync(java.lang.Object, javax.slee.EventTypeID, javax.slee.connection.ExternalActivityHandle, javax.slee.Address)
+	 */
+	public Future<Void> fireEventAsync(Object event, EventTypeID eventType,
+			ExternalActivityHandle activityHandle, Address address)
+			throws NullPointerException, ResourceException {
+		checkRunning();
+		if (event == null) {
+			throw new NullPointerException("event is null");
+		}
+		if (eventType == null) {
+			throw new NullPointerException("event type is null");
+		}
+		if (activityHandle == null) {
+			throw new NullPointerException("activity handle is null");
+		}
+		final SleeConnectionEventBatcher eventBatcher = this.eventBatcher;
+		if (eventBatcher == null) {
+			throw new ResourceException("Container is not in running state.");
+		}
+		return eventBatcher.submit(new EventInvocation(event, eventType,
+				activityHandle, address));
+	}
+
+	private void checkRunning() throws ResourceException {
+		if(sleeContainer == null)
+		{
+			throw new ResourceException("Connection is in closed state");
+		}
+		if(sleeContainer.getSleeState()!=SleeState.RUNNING)
+		{
+			throw new ResourceException("Container is not in running state.");
+		}
+	}
+
+	/**
+	 * Validates an event to be fired.
+	 * 
+	 * @param event
+	 * @param eventType
+	 * @param activityHandle
+	 * @return the activity handle, which is always a null activity handle
+	 * @throws NullPointerException
+	 * @throws UnrecognizedActivityException
+	 * @throws UnrecognizedEventException
+	 */
+	private NullActivityHandle validateEvent(Object event,
+			EventTypeID eventType, ExternalActivityHandle activityHandle)
+			throws NullPointerException, UnrecognizedActivityException,
+			UnrecognizedEventException {
+		if (event == null) {
+			throw new NullPointerException("event is null");
+		}
+		if (eventType == null) {
+			throw new NullPointerException("event type is null");
+		}
+		if (activityHandle == null) {
+			throw new NullPointerException("activity handle is null");
+		}
+
+		final int eventTypeComponentsVersion = sleeContainer
+				.getComponentRepository().getEventTypeComponentsVersion();
+		EventTypeDescriptor eventTypeDescriptor = eventTypeDescriptors.get(eventType);
+		if (eventTypeDescriptor == null
+				|| eventTypeDescriptor.eventTypeComponentsVersion != eventTypeComponentsVersion) {
+			final EventTypeComponent eventTypeComponent = sleeContainer
+					.getComponentRepository().getComponentByID(eventType);
+			if (eventTypeComponent == null) {
+				eventTypeDescriptors.remove(eventType);
+				throw new UnrecognizedEventException("event type not installed");
+			}
+			eventTypeDescriptor = new EventTypeDescriptor(
+					eventTypeComponentsVersion, eventTypeComponent);
+			eventTypeDescriptors.put(eventType, eventTypeDescriptor);
+		}
+		final EventTypeComponent eventTypeComponent = eventTypeDescriptor.eventTypeComponent;
+
+		final Class<?> eventClass = event.getClass();
+		if (eventTypeDescriptor.lastEventClass != eventClass) {
+			if (eventTypeComponent.getEventTypeClass().isAssignableFrom(eventClass)) {
+				eventTypeDescriptor.lastEventClass = eventClass;
+			}
+			else {
+				logger.info(""+eventTypeComponent.getEventTypeClass().toString());
+				logger.info(""+eventTypeComponent.getEventTypeClass().getCanonicalName());
+				logger.info(""+Arrays.toString(eventTypeComponent.getEventTypeClass().getDeclaredMethods()));
+				logger.info(""+eventTypeComponent.getEventTypeClass().getClass().toString());
+				logger.info(""+eventTypeComponent.getEventTypeClass().getClass().getCanonicalName());
+				logger.info(""+event.getClass().toString());
+				logger.info(""+event.getClass().getCanonicalName());
+				logger.info(""+Arrays.toString(event.getClass().getDeclaredMethods()));
+				logger.info("*"+eventTypeComponent);
+				logger.info("*"+eventTypeComponent.getEventTypeID());
+				logger.info("*"+event);
+				logger.info("&"+eventTypeComponent.getClassLoader());
+				logger.info("&"+eventTypeComponent.getEventTypeClass().getClassLoader());
+				logger.info("&"+event.getClass().getClassLoader());
+				//throw new UnrecognizedEventException(
+				//	"the class of the event object fired is not assignable to the event class of the event type.\n" +
+				//	" EventClass: "+event.getClass()+", component class: "+eventTypeComponent.getEventTypeClass());
+			}
+		}
+
+		if (!(activityHandle instanceof NullActivityHandle)) {
+			throw new UnrecognizedActivityException(activityHandle);
+		}
+		return (NullActivityHandle) activityHandle;
+	}
+
+	/**
+	 * Fires an event on the null activity with the specified handle, creating
+	 * the activity if needed. A transaction must be active.
+	 * 
+	 * @param event
+	 * @param eventType
+	 * @param nullActivityHandle
+	 * @param address
+	 */
+	private void fireEvent(Object event, EventTypeID eventType,
+			NullActivityHandle nullActivityHandle, Address address) {
+		final ActivityContextHandle ach = nullActivityHandle.getActivityContextHandle();
+		ActivityContext ac = sleeContainer.getActivityContextFactory()
+				.getActivityContext(ach);
+		if (ac == null) {
+			sleeContainer.getNullActivityFactory().createNullActivity(
+					nullActivityHandle, false);
+			ac = sleeContainer.getActivityContextFactory()
+					.getActivityContext(ach);
+			if (ac == null) {
+				throw new SLEEException(
+						"unable to create null ac for external activity handle "
+								+ nullActivityHandle);
+			}
+		}
+		ac.fireEvent(eventType, event, address, null, null,null,null);
+	}
+
 	/* (non-Javadoc)
 	 * @see javax.slee.connection.SleeConnection#getEventTypeID(java.lang.String, java.lang.String, java.lang.String)
 	 */
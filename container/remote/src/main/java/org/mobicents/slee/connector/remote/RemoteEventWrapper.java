@@ -22,16 +22,10 @@
 
 package org.mobicents.slee.connector.remote;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.Externalizable;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectInput;
-import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
-import java.io.ObjectStreamClass;
 import java.io.Serializable;
 import java.util.Arrays;
 
@@ -58,17 +52,12 @@ public class RemoteEventWrapper implements Externalizable {
 
 	public void setEvent(Serializable event) throws IOException {
 
-		ByteArrayOutputStream bos = new ByteArrayOutputStream();
-		ObjectOutputStream os = new ObjectOutputStream(bos);
-		os.writeObject(event);
-		this.serializedEvent = bos.toByteArray(); // do that in APP thread :)
+		this.serializedEvent = SerializationEventCodec.INSTANCE.encode(event); // do that in APP thread :)
 	}
 
 	public Object getEvent() throws IOException, ClassNotFoundException {
 
-		ByteArrayInputStream bis = new ByteArrayInputStream(this.serializedEvent);
-		TCCLObjectInputStream ois = new TCCLObjectInputStream(bis);
-		return ois.readObject();
+		return SerializationEventCodec.INSTANCE.decode(this.serializedEvent, Thread.currentThread().getContextClassLoader());
 	}
 
 	/*
@@ -123,44 +112,4 @@ public class RemoteEventWrapper implements Externalizable {
 		return true;
 	}
 
-	
-	/**
-	 * Small class with hack to make ObjectInputStream aware of Thread Context Class Loader
-	 * @author baranowb
-	 *
-	 */
-	private class TCCLObjectInputStream extends ObjectInputStream
-	{
-		//possibly this should be moved to more generic package, so we can use it, ie. Marshaler objects of RA??
-		
-		/**
-		 * @throws IOException
-		 * @throws SecurityException
-		 */
-		public TCCLObjectInputStream() throws IOException, SecurityException {
-			super();
-		}
-
-		/**
-		 * @param in
-		 * @throws IOException
-		 */
-		public TCCLObjectInputStream(InputStream in) throws IOException {
-			super(in);
-		}
-
-		@Override
-		public Class resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
-			ClassLoader currentTccl = null;
-			try {
-				currentTccl = Thread.currentThread().getContextClassLoader();
-				return currentTccl.loadClass(desc.getName());
-			} catch (Exception e) {
-
-			}
-
-			return super.resolveClass(desc);
-		}
-
-	}
 }
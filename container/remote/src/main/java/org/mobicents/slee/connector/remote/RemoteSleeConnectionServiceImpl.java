@@ -33,6 +33,8 @@ import javax.slee.EventTypeID;
 import javax.slee.connection.ExternalActivityHandle;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 
@@ -117,6 +119,46 @@ public class RemoteSleeConnectionServiceImpl extends UnicastRemoteObject impleme
 		}
 	}
 
+	/**
+	 * @see RemoteSleeConnectionServiceImpl#fireEvents(EventInvocationBatch)
+	 */
+	public void fireEvents(EventInvocationBatch batch) {
+		final int size = batch.size();
+		final List<EventInvocation> eventInvocations = new ArrayList<EventInvocation>(size);
+		EventTypeID eventType = null;
+		SleeComponent sleeComponent = null;
+		for (int i = 0; i < size; i++) {
+			eventType = batch.getEventType(i);
+			try {
+				sleeComponent = this.repository.getComponentByID(eventType);
+				if (sleeComponent == null) {
+					log.error("Failed to fire event due to: event type " + eventType + " not installed");
+					continue;
+				}
+				eventInvocations.add(new EventInvocation(batch.getEvent(i, sleeComponent.getClassLoader()),
+						eventType, batch.getActivityHandle(i), batch.getAddress(i)));
+			} catch (Exception e) {
+				// be good citized
+				log.error("Failed to fire event due to:", e);
+			}
+		}
+		if (eventInvocations.isEmpty()) {
+			return;
+		}
+
+		try {
+			final Exception[] result = this.service.fireEvents(eventInvocations);
+			for (int i = 0; i < result.length; i++) {
+				if (result[i] != null) {
+					log.error("Failed to fire event due to:", result[i]);
+				}
+			}
+		} catch (Exception e) {
+			//be good citized
+			log.error("Failed to fire events due to:", e);
+		}
+	}
+
 	/**
 	 * @see RemoteSleeConnectionServiceImpl#getEventTypeID(String, String, String)
 	 */
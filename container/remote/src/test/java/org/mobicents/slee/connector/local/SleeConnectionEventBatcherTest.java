@@ -0,0 +1,258 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.connector.local;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.resource.ResourceException;
+import javax.slee.Address;
+import javax.slee.EventTypeID;
+import javax.slee.UnrecognizedActivityException;
+import javax.slee.UnrecognizedEventException;
+import javax.slee.connection.ExternalActivityHandle;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.connector.remote.EventInvocation;
+import org.mobicents.slee.container.AbstractSleeContainerModule;
+
+/**
+ * Tests the coalescing of events by {@link SleeConnectionEventBatcher}.
+ * 
+ * @author martins
+ *
+ */
+public class SleeConnectionEventBatcherTest extends TestCase {
+
+	private static final EventTypeID EVENT_TYPE = new EventTypeID("name", "vendor", "1.0");
+
+	private static final long TIMEOUT = 5000;
+
+	/**
+	 * the events of each fireEvents invocation
+	 */
+	private List<List<Object>> batches;
+
+	/**
+	 * the events the service fails, or all if the service fails with
+	 * {@link #FAIL_ALL}
+	 */
+	private List<Object> failedEvents;
+
+	private static final Object FAIL_ALL = "failAll";
+
+	/**
+	 * counted down each time the service fires a batch
+	 */
+	private CountDownLatch fireEventsInvoked;
+
+	/**
+	 * the service fires batches once released
+	 */
+	private CountDownLatch fireEventsAllowed;
+
+	private SleeConnectionEventBatcher batcher;
+
+	@Override
+	protected void setUp() throws Exception {
+		batches = Collections.synchronizedList(new ArrayList<List<Object>>());
+		failedEvents = new ArrayList<Object>();
+		fireEventsInvoked = new CountDownLatch(1);
+		fireEventsAllowed = new CountDownLatch(0);
+		batcher = null;
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (batcher != null) {
+			batcher.shutdown();
+		}
+	}
+
+	public void testEventsWithinWindowFiredTogether() throws Exception {
+		batcher = new SleeConnectionEventBatcher(service(), 200, 10, 100);
+		Future<Void> f1 = batcher.submit(event("e1"));
+		Future<Void> f2 = batcher.submit(event("e2"));
+		Future<Void> f3 = batcher.submit(event("e3"));
+		assertNull(f1.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertNull(f2.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertNull(f3.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertEquals(1, batches.size());
+		assertEquals(listOf("e1", "e2", "e3"), batches.get(0));
+	}
+
+	public void testFullBatchFiredBeforeWindowEnd() throws Exception {
+		batcher = new SleeConnectionEventBatcher(service(), 60000, 2, 100);
+		Future<Void> f1 = batcher.submit(event("e1"));
+		Future<Void> f2 = batcher.submit(event("e2"));
+		assertNull(f1.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertNull(f2.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertEquals(1, batches.size());
+		assertEquals(listOf("e1", "e2"), batches.get(0));
+	}
+
+	public void testEventFailureFailsOnlyThatEvent() throws Exception {
+		failedEvents.add("e2");
+		batcher = new SleeConnectionEventBatcher(service(), 60000, 3, 100);
+		Future<Void> f1 = batcher.submit(event("e1"));
+		Future<Void> f2 = batcher.submit(event("e2"));
+		Future<Void> f3 = batcher.submit(event("e3"));
+		assertNull(f1.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertFailed(f2, IllegalStateException.class);
+		assertNull(f3.get(TIMEOUT, TimeUnit.MILLISECONDS));
+	}
+
+	public void testServiceFailureFailsAllEvents() throws Exception {
+		failedEvents.add(FAIL_ALL);
+		batcher = new SleeConnectionEventBatcher(service(), 60000, 2, 100);
+		Future<Void> f1 = batcher.submit(event("e1"));
+		Future<Void> f2 = batcher.submit(event("e2"));
+		assertFailed(f1, ResourceException.class);
+		assertFailed(f2, ResourceException.class);
+	}
+
+	public void testShutdownFailsPendingEvents() throws Exception {
+		batcher = new SleeConnectionEventBatcher(service(), 60000, 10, 100);
+		Future<Void> f1 = batcher.submit(event("e1"));
+		batcher.shutdown();
+		assertFailed(f1, ResourceException.class);
+		try {
+			batcher.submit(event("e2"));
+			fail("expected ResourceException");
+		} catch (ResourceException e) {
+			// expected
+		}
+		assertTrue(batches.isEmpty());
+	}
+
+	public void testEventRejectedWhenQueueFull() throws Exception {
+		fireEventsAllowed = new CountDownLatch(1);
+		batcher = new SleeConnectionEventBatcher(service(), 60000, 1, 2);
+		Future<Void> f1 = batcher.submit(event("e1"));
+		// e1 is taken from the queue, and its batch blocks in the service
+		assertTrue(fireEventsInvoked.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		Future<Void> f2 = batcher.submit(event("e2"));
+		Future<Void> f3 = batcher.submit(event("e3"));
+		try {
+			batcher.submit(event("e4"));
+			fail("expected ResourceException");
+		} catch (ResourceException e) {
+			// expected
+		}
+		fireEventsAllowed.countDown();
+		assertNull(f1.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertNull(f2.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertNull(f3.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		// the queue has room again
+		assertNull(batcher.submit(event("e5")).get(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertFalse(batches.contains(listOf("e4")));
+	}
+
+	private void assertFailed(Future<Void> future, Class<? extends Throwable> cause) throws Exception {
+		try {
+			future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+			fail("expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(cause.isInstance(e.getCause()));
+		}
+	}
+
+	private static EventInvocation event(Object event) {
+		return new EventInvocation(event, EVENT_TYPE, null, null);
+	}
+
+	private static List<Object> listOf(Object... events) {
+		List<Object> list = new ArrayList<Object>();
+		Collections.addAll(list, events);
+		return list;
+	}
+
+	/**
+	 * 
+	 * @return a service which records the batches fired, failing the events
+	 *         in {@link #failedEvents}
+	 */
+	private SleeConnectionService service() {
+		return new FakeSleeConnectionService();
+	}
+
+	/**
+	 * A service which records the batches fired, failing the events in
+	 * {@link #failedEvents}, and blocking each batch until
+	 * {@link #fireEventsAllowed} is released.
+	 */
+	private class FakeSleeConnectionService extends AbstractSleeContainerModule implements SleeConnectionService {
+
+		public ExternalActivityHandle createActivityHandle() throws ResourceException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void fireEvent(Object event, EventTypeID eventType, ExternalActivityHandle activityHandle,
+				Address address) throws NullPointerException, UnrecognizedActivityException,
+				UnrecognizedEventException, ResourceException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Exception[] fireEvents(List<EventInvocation> eventInvocations) throws ResourceException {
+			fireEventsInvoked.countDown();
+			try {
+				fireEventsAllowed.await();
+			} catch (InterruptedException e) {
+				throw new ResourceException("interrupted");
+			}
+			if (failedEvents.contains(FAIL_ALL)) {
+				throw new ResourceException("failed");
+			}
+			List<Object> events = new ArrayList<Object>();
+			Exception[] result = new Exception[eventInvocations.size()];
+			for (int i = 0; i < result.length; i++) {
+				Object event = eventInvocations.get(i).event;
+				events.add(event);
+				if (failedEvents.contains(event)) {
+					result[i] = new IllegalStateException("failed " + event);
+				}
+			}
+			batches.add(events);
+			return result;
+		}
+
+		public Future<Void> fireEventAsync(Object event, EventTypeID eventType,
+				ExternalActivityHandle activityHandle, Address address) throws NullPointerException,
+				ResourceException {
+			throw new UnsupportedOperationException();
+		}
+
+		public EventTypeID getEventTypeID(String name, String vendor, String version)
+				throws UnrecognizedEventException, ResourceException {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
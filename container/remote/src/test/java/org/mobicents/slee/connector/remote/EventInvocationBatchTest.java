@@ -0,0 +1,197 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.connector.remote;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import javax.slee.Address;
+import javax.slee.AddressPlan;
+import javax.slee.EventTypeID;
+import javax.slee.connection.ExternalActivityHandle;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the framing of {@link EventInvocationBatch}.
+ * 
+ * @author martins
+ *
+ */
+public class EventInvocationBatchTest extends TestCase {
+
+	private static final EventTypeID EVENT_TYPE = new EventTypeID("name", "vendor", "1.0");
+
+	private static final Address ADDRESS = new Address(AddressPlan.IP, "127.0.0.1");
+
+	private static volatile boolean notACodecInitialized;
+
+	private final ClassLoader classLoader = EventInvocationBatchTest.class.getClassLoader();
+
+	public void testRoundTrip() throws Exception {
+		EventInvocationBatch batch = new EventInvocationBatch();
+		batch.add("event1", EVENT_TYPE, new TestActivityHandle(1), ADDRESS);
+		batch.add("event2", EVENT_TYPE, new TestActivityHandle(2), null);
+		EventInvocationBatch copy = copy(batch);
+		assertEquals(2, copy.size());
+		assertEquals(EVENT_TYPE, copy.getEventType(0));
+		assertEquals(new TestActivityHandle(1), copy.getActivityHandle(0));
+		assertEquals(ADDRESS, copy.getAddress(0));
+		assertEquals("event1", copy.getEvent(0, classLoader));
+		assertEquals(new TestActivityHandle(2), copy.getActivityHandle(1));
+		assertNull(copy.getAddress(1));
+		assertEquals("event2", copy.getEvent(1, classLoader));
+	}
+
+	public void testCodecRoundTrip() throws Exception {
+		EventInvocationBatch batch = new EventInvocationBatch(new StringCodec());
+		batch.add("event", EVENT_TYPE, new TestActivityHandle(1), null);
+		EventInvocationBatch copy = copy(batch);
+		assertEquals(1, copy.size());
+		assertEquals("event", copy.getEvent(0, classLoader));
+	}
+
+	public void testNotACodecRejectedWithoutInitialization() throws Exception {
+		notACodecInitialized = false;
+		EventInvocationBatch batch = read(NotACodec.class.getName(), 1);
+		try {
+			batch.getEvent(0, classLoader);
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		assertFalse(notACodecInitialized);
+	}
+
+	public void testOversizedEventRejectedWhenReading() throws Exception {
+		try {
+			read(SerializationEventCodec.class.getName(), EventInvocationBatch.MAX_EVENT_SIZE + 1);
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testNegativeEventSizeRejectedWhenReading() throws Exception {
+		try {
+			read(SerializationEventCodec.class.getName(), -1);
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testOversizedEventRejectedWhenAdding() throws Exception {
+		EventInvocationBatch batch = new EventInvocationBatch(new StringCodec());
+		StringBuilder sb = new StringBuilder(EventInvocationBatch.MAX_EVENT_SIZE + 1);
+		for (int i = 0; i <= EventInvocationBatch.MAX_EVENT_SIZE; i++) {
+			sb.append('a');
+		}
+		try {
+			batch.add(sb.toString(), EVENT_TYPE, new TestActivityHandle(1), null);
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(0, batch.size());
+	}
+
+	private EventInvocationBatch copy(EventInvocationBatch batch) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		oos.writeObject(batch);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		return (EventInvocationBatch) ois.readObject();
+	}
+
+	/**
+	 * Reads a batch with a single event, framed by hand with the specified
+	 * codec class name and encoded event length.
+	 */
+	private EventInvocationBatch read(String codecClassName, int dataLength) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		oos.writeUTF(codecClassName);
+		oos.writeInt(1);
+		oos.writeUTF(EVENT_TYPE.getName());
+		oos.writeUTF(EVENT_TYPE.getVendor());
+		oos.writeUTF(EVENT_TYPE.getVersion());
+		oos.writeObject(new TestActivityHandle(1));
+		oos.writeBoolean(false);
+		oos.writeInt(dataLength);
+		oos.write(new byte[] { 1 });
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		EventInvocationBatch batch = new EventInvocationBatch();
+		batch.readExternal(ois);
+		return batch;
+	}
+
+	public static class StringCodec implements EventCodec {
+
+		public byte[] encode(Object event) throws IOException {
+			return ((String) event).getBytes("UTF-8");
+		}
+
+		public Object decode(byte[] data, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+			return new String(data, "UTF-8");
+		}
+
+	}
+
+	public static class NotACodec {
+
+		static {
+			notACodecInitialized = true;
+		}
+
+	}
+
+	private static class TestActivityHandle implements ExternalActivityHandle, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+
+		TestActivityHandle(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof TestActivityHandle && ((TestActivityHandle) obj).id == id;
+		}
+
+	}
+
+}
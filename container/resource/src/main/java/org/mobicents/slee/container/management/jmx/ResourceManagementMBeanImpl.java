@@ -298,6 +298,31 @@ public class ResourceManagementMBeanImpl extends MobicentsServiceMBeanSupport im
 		}
 	}
 
+	public int getActivityCount(String entityName)
+			throws NullPointerException,
+			UnrecognizedResourceAdaptorEntityException, ManagementException {
+		try {
+			if (entityName == null) {
+				throw new NullPointerException("null entity name");
+			}
+			if (resourceManagement.getResourceAdaptorEntity(entityName) == null) {
+				throw new UnrecognizedResourceAdaptorEntityException(entityName);
+			}
+			return resourceManagement.getSleeContainer()
+					.getActivityContextFactory()
+					.getResourceAdaptorEntityActivityContextCount(entityName);
+		} catch (NullPointerException e) {
+			throw e;
+		} catch (UnrecognizedResourceAdaptorEntityException e) {
+			throw e;
+		} catch (Throwable e) {
+			String s = "failed to get activity count for RA entity with name "
+					+ entityName;
+			logger.error(s, e);
+			throw new ManagementException(s, e);
+		}
+	}
+
 	public ResourceAdaptorID getResourceAdaptor(String entityName)
 			throws NullPointerException,
 			UnrecognizedResourceAdaptorEntityException, ManagementException {
@@ -22,7 +22,9 @@
 
 package org.mobicents.slee.container.management.jmx;
 
+import javax.slee.management.ManagementException;
 import javax.slee.management.ResourceManagementMBean;
+import javax.slee.management.UnrecognizedResourceAdaptorEntityException;
 
 /**
  * 
@@ -31,4 +33,19 @@ import javax.slee.management.ResourceManagementMBean;
  */
 public interface ResourceManagementMBeanImplMBean extends 
 	ResourceManagementMBean {
+
+	/**
+	 * Retrieves the number of activities of the resource adaptor entity with
+	 * the specified name.
+	 * 
+	 * @param entityName
+	 * @return
+	 * @throws NullPointerException
+	 * @throws UnrecognizedResourceAdaptorEntityException
+	 * @throws ManagementException
+	 */
+	public int getActivityCount(String entityName)
+			throws NullPointerException,
+			UnrecognizedResourceAdaptorEntityException, ManagementException;
+
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.resource;
+
+import org.mobicents.slee.container.resource.ResourceAdaptorEntity;
+
+/**
+ * The result of validating a {@link FireableEventTypeImpl} for event firing,
+ * by a specific ra entity. It remains valid till the event type components
+ * in the component repository change, or a service is activated or
+ * deactivated.
+ * 
+ * @author martins
+ * 
+ */
+class FireableEventTypeDescriptor {
+
+	/**
+	 * the ra entity which validated the event type
+	 */
+	private final ResourceAdaptorEntity raEntity;
+
+	/**
+	 * the version of the event type components when validated
+	 */
+	private final int eventTypeComponentsVersion;
+
+	/**
+	 * the version of the services state of the ra entity when validated
+	 */
+	private final int servicesVersion;
+
+	/**
+	 * the event class of the event type component
+	 */
+	private final Class<?> eventTypeClass;
+
+	/**
+	 * the concrete class of the last event validated, which is assignable to
+	 * the event type class
+	 */
+	private volatile Class<?> lastEventClass;
+
+	/**
+	 * 
+	 * @param raEntity
+	 * @param eventTypeComponentsVersion
+	 * @param servicesVersion
+	 * @param eventTypeClass
+	 */
+	FireableEventTypeDescriptor(ResourceAdaptorEntity raEntity,
+			int eventTypeComponentsVersion, int servicesVersion,
+			Class<?> eventTypeClass) {
+		this.raEntity = raEntity;
+		this.eventTypeComponentsVersion = eventTypeComponentsVersion;
+		this.servicesVersion = servicesVersion;
+		this.eventTypeClass = eventTypeClass;
+	}
+
+	/**
+	 * 
+	 * @return the ra entity which validated the event type
+	 */
+	ResourceAdaptorEntity getResourceAdaptorEntity() {
+		return raEntity;
+	}
+
+	/**
+	 * Indicates if the descriptor of the ra entity is still valid.
+	 * 
+	 * @param eventTypeComponentsVersion
+	 *            the current version of the event type components
+	 * @param servicesVersion
+	 *            the current version of the services state of the ra entity
+	 * @return
+	 */
+	boolean isValid(int eventTypeComponentsVersion, int servicesVersion) {
+		return this.eventTypeComponentsVersion == eventTypeComponentsVersion
+				&& this.servicesVersion == servicesVersion;
+	}
+
+	/**
+	 * Indicates if the specified event object may be fired with the event
+	 * type.
+	 * 
+	 * @param event
+	 * @return
+	 */
+	boolean isAssignable(Object event) {
+		final Class<?> eventClass = event.getClass();
+		if (eventClass == lastEventClass) {
+			return true;
+		}
+		if (eventTypeClass.isAssignableFrom(eventClass)) {
+			lastEventClass = eventClass;
+			return true;
+		}
+		return false;
+	}
+
+}
@@ -25,6 +25,8 @@ package org.mobicents.slee.resource;
 import javax.slee.EventTypeID;
 import javax.slee.resource.FireableEventType;
 
+import org.mobicents.slee.container.resource.ResourceAdaptorEntity;
+
 /**
  * Implementation of the SLEE 1.1 specs {@link FireableEventType} class.
  * @author martins
@@ -47,6 +49,13 @@ public class FireableEventTypeImpl implements FireableEventType {
 	 */
 	private final EventTypeID eventTypeID;
 	
+	/**
+	 * the results of the last validation for event firing, one per ra entity
+	 * which fired events of this type
+	 */
+	private volatile FireableEventTypeDescriptor[] descriptors = NO_DESCRIPTORS;
+	
+	private static final FireableEventTypeDescriptor[] NO_DESCRIPTORS = {};
 	
 	public FireableEventTypeImpl(ClassLoader eventClassLoader,
 			String eventClassName, EventTypeID eventTypeID) {
@@ -67,6 +76,43 @@ public class FireableEventTypeImpl implements FireableEventType {
 		return eventTypeID;
 	}
 
+	/**
+	 * 
+	 * @param raEntity
+	 * @return the result of the last validation for event firing by the
+	 *         specified ra entity, may be null
+	 */
+	FireableEventTypeDescriptor getDescriptor(ResourceAdaptorEntity raEntity) {
+		for (FireableEventTypeDescriptor descriptor : descriptors) {
+			if (descriptor.getResourceAdaptorEntity() == raEntity) {
+				return descriptor;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Sets the result of the last validation for event firing, replacing the
+	 * one of the same ra entity.
+	 * 
+	 * @param descriptor
+	 */
+	synchronized void setDescriptor(FireableEventTypeDescriptor descriptor) {
+		final FireableEventTypeDescriptor[] current = descriptors;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].getResourceAdaptorEntity() == descriptor.getResourceAdaptorEntity()) {
+				final FireableEventTypeDescriptor[] updated = current.clone();
+				updated[i] = descriptor;
+				descriptors = updated;
+				return;
+			}
+		}
+		final FireableEventTypeDescriptor[] updated = new FireableEventTypeDescriptor[current.length + 1];
+		System.arraycopy(current, 0, updated, 0, current.length);
+		updated[current.length] = descriptor;
+		descriptors = updated;
+	}
+
 	@Override
 	public int hashCode() {
 		return eventTypeID.hashCode();
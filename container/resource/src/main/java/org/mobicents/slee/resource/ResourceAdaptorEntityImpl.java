@@ -25,6 +25,7 @@ package org.mobicents.slee.resource;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.slee.EventTypeID;
 import javax.slee.InvalidArgumentException;
@@ -51,12 +52,10 @@ import javax.slee.resource.ResourceAdaptorTypeID;
 import org.apache.log4j.Logger;
 import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.activity.ActivityContextHandle;
-import org.mobicents.slee.container.activity.ActivityType;
 import org.mobicents.slee.container.component.ra.ResourceAdaptorComponent;
 import org.mobicents.slee.container.component.ratype.ResourceAdaptorTypeComponent;
 import org.mobicents.slee.container.management.ResourceManagementImpl;
 import org.mobicents.slee.container.management.jmx.ResourceUsageMBean;
-import org.mobicents.slee.container.resource.ResourceAdaptorActivityContextHandle;
 import org.mobicents.slee.container.resource.ResourceAdaptorEntity;
 import org.mobicents.slee.container.resource.ResourceAdaptorObjectState;
 import org.mobicents.slee.resource.cluster.FaultTolerantResourceAdaptor;
@@ -128,6 +127,12 @@ public class ResourceAdaptorEntityImpl implements ResourceAdaptorEntity {
 	 */
 	private final Set<EventTypeID> allowedEventTypes;
 	
+	/**
+	 * the version of the services state, changed on each service activation
+	 * or deactivation
+	 */
+	private final AtomicInteger servicesVersion = new AtomicInteger();
+	
 	private boolean setFTContext = true;
 	
 	@SuppressWarnings("rawtypes")
@@ -446,29 +451,21 @@ public class ResourceAdaptorEntityImpl implements ResourceAdaptorEntity {
 	 */
 	private boolean hasActivities() {
 		try {	
-			for (ActivityContextHandle handle : sleeContainer
+			final int activities = sleeContainer
 					.getActivityContextFactory()
-					.getAllActivityContextsHandles()) {
-				if (handle.getActivityType() == ActivityType.RA) {
-					ResourceAdaptorActivityContextHandle raHandle = (ResourceAdaptorActivityContextHandle) handle;
-					if (raHandle.getResourceAdaptorEntity().equals(this)) {
-
-						logger.debug("**** AllActivityContextsHandles: "+sleeContainer
-								.getActivityContextFactory()
-								.getAllActivityContextsHandles());
+					.getResourceAdaptorEntityActivityContextCount(name);
+			if (activities > 0) {
 
-						if (logger.isDebugEnabled()) {
-							logger.debug("RA entity "+name+" has (at least) activity "+handle.getActivityHandle());
-						}
+				if (logger.isDebugEnabled()) {
+					logger.debug("RA entity "+name+" has "+activities+" activities");
+				}
 
-						//return true;
+				//return true;
 
-						logger.warn("WORKAROUND USAGE: ENDING RESOURCE ADAPTOR ACTIVITIES");
-						sleeContainer.getActivityContextFactory().WAremove("RA");
-						return false;
-					}
-				}
-			}			
+				logger.warn("WORKAROUND USAGE: ENDING RESOURCE ADAPTOR ACTIVITIES");
+				sleeContainer.getActivityContextFactory().WAremove("RA");
+				return false;
+			}
 		} catch (Throwable e) {
 			logger.error(e.getMessage(), e);
 		} 
@@ -555,6 +552,7 @@ public class ResourceAdaptorEntityImpl implements ResourceAdaptorEntity {
 	 * @param serviceInfo
 	 */
 	public void serviceActive(ServiceID serviceID) {
+		servicesVersion.incrementAndGet();
 		try {
 			ReceivableService receivableService = resourceAdaptorContext
 					.getServiceLookupFacility().getReceivableService(serviceID);
@@ -591,6 +589,7 @@ public class ResourceAdaptorEntityImpl implements ResourceAdaptorEntity {
 	 * @param serviceInfo
 	 */
 	public void serviceInactive(ServiceID serviceID) {
+		servicesVersion.incrementAndGet();
 		try {
 			ReceivableService receivableService = resourceAdaptorContext
 					.getServiceLookupFacility().getReceivableService(serviceID);
@@ -633,6 +632,16 @@ public class ResourceAdaptorEntityImpl implements ResourceAdaptorEntity {
 		return allowedEventTypes;
 	}
 
+	/**
+	 * Retrieves the version of the services state, which changes on each
+	 * service activation or deactivation.
+	 * 
+	 * @return
+	 */
+	public int getServicesVersion() {
+		return servicesVersion.get();
+	}
+
 	public FireableEventType getFireableEventType(EventTypeID eventTypeID) {
 		FireableEventType eventType = null;
 		try {
@@ -31,6 +31,7 @@ import javax.slee.resource.FireableEventType;
 import javax.slee.resource.ReceivableService;
 import javax.slee.resource.UnrecognizedActivityHandleException;
 
+import org.mobicents.slee.FireableEventBatch;
 import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.transaction.SleeTransaction;
 
@@ -84,4 +85,30 @@ public class SleeEndpointFireEventNotTransactedExecutor extends
 			}
 		}
 	}
+
+	/**
+	 * Executes a non transacted fire events operation, the transaction is
+	 * suspended once for the whole batch.
+	 * 
+	 * @param batch
+	 * @param refHandles
+	 * @throws ActivityIsEndingException
+	 * @throws FireEventException
+	 * @throws SLEEException
+	 * @throws UnrecognizedActivityHandleException
+	 */
+	void execute(final FireableEventBatch batch,
+			final ActivityHandle[] refHandles)
+			throws ActivityIsEndingException, FireEventException,
+			SLEEException, UnrecognizedActivityHandleException {
+
+		final SleeTransaction tx = super.suspendTransaction();
+		try {
+			sleeEndpoint._fireEvents(batch, refHandles, tx);
+		} finally {
+			if (tx != null) {
+				super.resumeTransaction(tx);
+			}
+		}
+	}
 }
@@ -22,6 +22,8 @@
 
 package org.mobicents.slee.resource;
 
+import java.util.HashMap;
+
 import javax.slee.Address;
 import javax.slee.SLEEException;
 import javax.slee.TransactionRequiredLocalException;
@@ -39,6 +41,7 @@ import javax.slee.resource.UnrecognizedActivityHandleException;
 import javax.transaction.SystemException;
 
 import org.apache.log4j.Logger;
+import org.mobicents.slee.FireableEventBatch;
 import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.activity.ActivityContext;
 import org.mobicents.slee.container.activity.ActivityContextFactory;
@@ -662,6 +665,83 @@ public class SleeEndpointImpl implements SleeEndpoint {
 				receivableService, eventFlags,null);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.SleeEndpointExt#fireEvents(org.mobicents.slee.FireableEventBatch)
+	 */
+	public void fireEvents(FireableEventBatch batch)
+			throws NullPointerException, UnrecognizedActivityHandleException,
+			IllegalEventException, ActivityIsEndingException,
+			FireEventException, SLEEException {
+
+		if (doTraceLogs) {
+			logger.trace("fireEvents( batch = " + batch + " )");
+		}
+
+		checkFireEventsPreconditions(batch);
+
+		fireEventNotTransactedExecutor.execute(batch,
+				getReferenceHandles(batch, false));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.SleeEndpointExt#fireEventsTransacted(org.mobicents.slee.FireableEventBatch)
+	 */
+	public void fireEventsTransacted(FireableEventBatch batch)
+			throws NullPointerException, UnrecognizedActivityHandleException,
+			IllegalEventException, TransactionRequiredLocalException,
+			ActivityIsEndingException, FireEventException, SLEEException {
+
+		if (doTraceLogs) {
+			logger.trace("fireEventsTransacted( batch = " + batch + " )");
+		}
+
+		checkFireEventsPreconditions(batch);
+		txManager.mandateTransaction();
+
+		_fireEvents(batch, getReferenceHandles(batch, true), null);
+	}
+
+	/**
+	 * Retrieves the ref handles for the events in the specified batch, each
+	 * distinct handle is only looked up once.
+	 * 
+	 * @param batch
+	 * @param transacted
+	 * @return null if there is no handle reference factory, and thus the ref
+	 *         handles are the batch handles
+	 */
+	private ActivityHandle[] getReferenceHandles(FireableEventBatch batch,
+			boolean transacted) {
+		final ActivityHandleReferenceFactory handleReferenceFactory = raEntity
+				.getHandleReferenceFactory();
+		if (handleReferenceFactory == null) {
+			return null;
+		}
+		final int size = batch.size();
+		final ActivityHandle[] refHandles = new ActivityHandle[size];
+		final HashMap<ActivityHandle, ActivityHandle> refHandlesMap = new HashMap<ActivityHandle, ActivityHandle>();
+		ActivityHandle handle = null;
+		ActivityHandle refHandle = null;
+		for (int i = 0; i < size; i++) {
+			handle = batch.getHandle(i);
+			refHandle = refHandlesMap.get(handle);
+			if (refHandle == null) {
+				refHandle = transacted ? handleReferenceFactory
+						.getReferenceTransacted(handle)
+						: handleReferenceFactory.getReference(handle);
+				refHandlesMap.put(handle, refHandle);
+			}
+			refHandles[i] = refHandle;
+		}
+		return refHandles;
+	}
+
 	/**
 	 * Checks that fire event methods can be invoked
 	 * 
@@ -686,24 +766,83 @@ public class SleeEndpointImpl implements SleeEndpoint {
 		if (eventType == null) {
 			throw new NullPointerException("eventType is null");
 		}
-		final EventTypeComponent eventTypeComponent = componentRepository
-				.getComponentByID(eventType.getEventType());
-		if (eventTypeComponent == null) {
-			throw new IllegalEventException(
-					"event type not installed (more on SLEE 1.1 specs 15.14.8)");
-		}
 
-		if (!eventTypeComponent.getEventTypeClass().isAssignableFrom(
-				event.getClass())) {
-			throw new IllegalEventException(
-					"the class of the event object fired is not assignable to the event class of the event type (more on SLEE 1.1 specs 15.14.8) ");
+		checkEventClass(checkFireableEventType(eventType), event);
+	}
+
+	/**
+	 * Checks that fire events methods can be invoked.
+	 * 
+	 * @param batch
+	 * @throws NullPointerException
+	 * @throws IllegalEventException
+	 * @throws IllegalStateException
+	 */
+	private void checkFireEventsPreconditions(FireableEventBatch batch)
+			throws NullPointerException, IllegalEventException,
+			IllegalStateException {
+
+		if (batch == null)
+			throw new NullPointerException("batch is null");
+
+		FireableEventType eventType = null;
+		Object event = null;
+		for (int i = 0; i < batch.size(); i++) {
+			event = batch.getEvent(i);
+			if (event == null)
+				throw new NullPointerException("event at index " + i
+						+ " is null");
+
+			if (batch.getHandle(i) == null)
+				throw new NullPointerException("handle at index " + i
+						+ " is null");
+
+			eventType = batch.getEventType(i);
+			if (eventType == null) {
+				throw new NullPointerException("eventType at index " + i
+						+ " is null");
+			}
+			checkEventClass(checkFireableEventType(eventType), event);
 		}
+	}
+
+	/**
+	 * Checks that the specified event type can be fired by the ra entity. The
+	 * result is kept in the event type, per ra entity, and reused till the
+	 * event type components installed change, or a service is activated or
+	 * deactivated.
+	 * 
+	 * @param eventType
+	 * @return the descriptor of the validated event type
+	 * @throws IllegalEventException
+	 */
+	private FireableEventTypeDescriptor checkFireableEventType(
+			FireableEventType eventType) throws IllegalEventException {
 
 		if (eventType.getClass() != FireableEventTypeImpl.class) {
 			throw new IllegalEventException(
 					"unknown implementation of FireableEventType");
 		}
 
+		final FireableEventTypeImpl eventTypeImpl = (FireableEventTypeImpl) eventType;
+		// read version before validating, so a concurrent change forces a new
+		// validation on next usage
+		final int eventTypeComponentsVersion = componentRepository
+				.getEventTypeComponentsVersion();
+		final int servicesVersion = raEntity.getServicesVersion();
+		FireableEventTypeDescriptor descriptor = eventTypeImpl.getDescriptor(raEntity);
+		if (descriptor != null
+				&& descriptor.isValid(eventTypeComponentsVersion, servicesVersion)) {
+			return descriptor;
+		}
+
+		final EventTypeComponent eventTypeComponent = componentRepository
+				.getComponentByID(eventType.getEventType());
+		if (eventTypeComponent == null) {
+			throw new IllegalEventException(
+					"event type not installed (more on SLEE 1.1 specs 15.14.8)");
+		}
+
 		if (raEntity.getAllowedEventTypes() != null
 				&& !raEntity.getAllowedEventTypes().contains(
 						eventType.getEventType())) {
@@ -712,6 +851,28 @@ public class SleeEndpointImpl implements SleeEndpoint {
 							+ eventType.getEventType()
 							+ " does not belongs to any of the ra types implemented by the resource adaptor");
 		}
+
+		descriptor = new FireableEventTypeDescriptor(raEntity,
+				eventTypeComponentsVersion, servicesVersion,
+				eventTypeComponent.getEventTypeClass());
+		eventTypeImpl.setDescriptor(descriptor);
+		return descriptor;
+	}
+
+	/**
+	 * Checks that the class of the event object is assignable to the event
+	 * class of its event type.
+	 * 
+	 * @param descriptor
+	 * @param event
+	 * @throws IllegalEventException
+	 */
+	private void checkEventClass(FireableEventTypeDescriptor descriptor,
+			Object event) throws IllegalEventException {
+		if (!descriptor.isAssignable(event)) {
+			throw new IllegalEventException(
+					"the class of the event object fired is not assignable to the event class of the event type (more on SLEE 1.1 specs 15.14.8) ");
+		}
 	}
 
 	/**
@@ -732,6 +893,69 @@ public class SleeEndpointImpl implements SleeEndpoint {
 			FireableEventType eventType, Object event, Address address,
 			ReceivableService receivableService, int eventFlags, final SleeTransaction barrierTx)
 			throws ActivityIsEndingException, SLEEException {
+		final ActivityContext ac = getActivityContext(realHandle, refHandle,
+				eventType, barrierTx);
+		fireEvent(ac, realHandle, eventType, event, address,
+				receivableService, eventFlags);
+	}
+
+	/**
+	 * Batch event firing logic independent of transaction management. The
+	 * activity context of each distinct handle is retrieved, and suspended if
+	 * needed, only once, and all are retrieved before firing the first event,
+	 * so an unrecognized handle fails the batch with no event fired.
+	 * 
+	 * @param batch
+	 * @param refHandles
+	 *            the ref handles, or null if these are the batch handles
+	 * @param barrierTx
+	 * @throws UnrecognizedActivityHandleException
+	 * @throws ActivityIsEndingException
+	 * @throws SLEEException
+	 */
+	void _fireEvents(FireableEventBatch batch, ActivityHandle[] refHandles,
+			final SleeTransaction barrierTx)
+			throws UnrecognizedActivityHandleException,
+			ActivityIsEndingException, SLEEException {
+		final int size = batch.size();
+		final ActivityContext[] acs = new ActivityContext[size];
+		final HashMap<ActivityHandle, ActivityContext> acsMap = new HashMap<ActivityHandle, ActivityContext>();
+		ActivityHandle realHandle = null;
+		ActivityHandle refHandle = null;
+		ActivityContext ac = null;
+		for (int i = 0; i < size; i++) {
+			realHandle = batch.getHandle(i);
+			refHandle = refHandles != null ? refHandles[i] : realHandle;
+			ac = acsMap.get(refHandle);
+			if (ac == null) {
+				ac = getActivityContext(realHandle, refHandle,
+						batch.getEventType(i), barrierTx);
+				acsMap.put(refHandle, ac);
+			}
+			acs[i] = ac;
+		}
+		for (int i = 0; i < size; i++) {
+			fireEvent(acs[i], batch.getHandle(i), batch.getEventType(i),
+					batch.getEvent(i), batch.getAddress(i),
+					batch.getReceivableService(i), batch.getEventFlags(i));
+		}
+	}
+
+	/**
+	 * Retrieves the activity context to fire an event, suspending it if a
+	 * barrier tx is provided.
+	 * 
+	 * @param realHandle
+	 * @param refHandle
+	 * @param eventType
+	 * @param barrierTx
+	 * @return
+	 * @throws UnrecognizedActivityHandleException
+	 */
+	private ActivityContext getActivityContext(ActivityHandle realHandle,
+			ActivityHandle refHandle, FireableEventType eventType,
+			final SleeTransaction barrierTx)
+			throws UnrecognizedActivityHandleException {
 		final ActivityContextHandle ach = new ResourceAdaptorActivityContextHandleImpl(
 				raEntity, refHandle);
 		// get ac
@@ -741,37 +965,56 @@ public class SleeEndpointImpl implements SleeEndpoint {
 					+ eventType.getEventType() + " on activity handle "
 					+ realHandle
 					+ " , the handle is not mapped to an activity context");
-		} else {
-			// suspend activity if needed
-			if (barrierTx != null) {
-				final ActivityEventQueueManager aeqm = ac.getLocalActivityContext().getEventQueueManager();
-				aeqm.createBarrier(barrierTx);
-				TransactionalAction action = new TransactionalAction() {
-					public void execute() {
-						aeqm.removeBarrier(barrierTx);					
-					}
-				};
-				final TransactionContext tc = barrierTx.getTransactionContext();
-				tc.getAfterCommitActions().add(action);
-				tc.getAfterRollbackActions().add(action);
-			}
-			final EventProcessingCallbacks callbacks = new EventProcessingCallbacks(
-					realHandle, eventType, event, address, receivableService,
-					eventFlags, raEntity);
-			final EventProcessingSucceedCallback succeedCallback = EventFlags
-					.hasRequestProcessingSuccessfulCallback(eventFlags) ? callbacks
-					: null;
-			final EventProcessingFailedCallback failedCallback = EventFlags
-					.hasRequestProcessingFailedCallback(eventFlags) ? callbacks
-					: null;
-			final EventUnreferencedCallback unreferencedCallback = EventFlags
-					.hasRequestEventReferenceReleasedCallback(eventFlags) ? callbacks
-					: null;
-			ac.fireEvent(eventType.getEventType(), event, address,
-					receivableService == null ? null : receivableService
-							.getService(), succeedCallback, failedCallback,
-					unreferencedCallback);
 		}
+		// suspend activity if needed
+		if (barrierTx != null) {
+			final ActivityEventQueueManager aeqm = ac.getLocalActivityContext().getEventQueueManager();
+			aeqm.createBarrier(barrierTx);
+			TransactionalAction action = new TransactionalAction() {
+				public void execute() {
+					aeqm.removeBarrier(barrierTx);					
+				}
+			};
+			final TransactionContext tc = barrierTx.getTransactionContext();
+			tc.getAfterCommitActions().add(action);
+			tc.getAfterRollbackActions().add(action);
+		}
+		return ac;
+	}
+
+	/**
+	 * Fires the event on the specified activity context.
+	 * 
+	 * @param ac
+	 * @param realHandle
+	 * @param eventType
+	 * @param event
+	 * @param address
+	 * @param receivableService
+	 * @param eventFlags
+	 * @throws ActivityIsEndingException
+	 * @throws SLEEException
+	 */
+	private void fireEvent(ActivityContext ac, ActivityHandle realHandle,
+			FireableEventType eventType, Object event, Address address,
+			ReceivableService receivableService, int eventFlags)
+			throws ActivityIsEndingException, SLEEException {
+		final EventProcessingCallbacks callbacks = new EventProcessingCallbacks(
+				realHandle, eventType, event, address, receivableService,
+				eventFlags, raEntity);
+		final EventProcessingSucceedCallback succeedCallback = EventFlags
+				.hasRequestProcessingSuccessfulCallback(eventFlags) ? callbacks
+				: null;
+		final EventProcessingFailedCallback failedCallback = EventFlags
+				.hasRequestProcessingFailedCallback(eventFlags) ? callbacks
+				: null;
+		final EventUnreferencedCallback unreferencedCallback = EventFlags
+				.hasRequestEventReferenceReleasedCallback(eventFlags) ? callbacks
+				: null;
+		ac.fireEvent(eventType.getEventType(), event, address,
+				receivableService == null ? null : receivableService
+						.getService(), succeedCallback, failedCallback,
+				unreferencedCallback);
 	}
 
 	// OTHER ...
@@ -0,0 +1,1251 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.resource;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.ObjectName;
+import javax.slee.Address;
+import javax.slee.ComponentID;
+import javax.slee.EventTypeID;
+import javax.slee.SbbID;
+import javax.slee.ServiceID;
+import javax.slee.TransactionRequiredLocalException;
+import javax.slee.facilities.AlarmFacility;
+import javax.slee.facilities.AlarmLevel;
+import javax.slee.facilities.Level;
+import javax.slee.facilities.TimerID;
+import javax.slee.management.LibraryID;
+import javax.slee.management.NotificationSource;
+import javax.slee.management.ResourceAdaptorEntityNotification;
+import javax.slee.profile.ProfileSpecificationID;
+import javax.slee.resource.ActivityHandle;
+import javax.slee.resource.ActivityIsEndingException;
+import javax.slee.resource.ConfigProperties;
+import javax.slee.resource.FailureReason;
+import javax.slee.resource.FireableEventType;
+import javax.slee.resource.IllegalEventException;
+import javax.slee.resource.Marshaler;
+import javax.slee.resource.ReceivableService;
+import javax.slee.resource.ResourceAdaptor;
+import javax.slee.resource.ResourceAdaptorContext;
+import javax.slee.resource.ResourceAdaptorID;
+import javax.slee.resource.ResourceAdaptorTypeID;
+import javax.slee.resource.UnrecognizedActivityHandleException;
+import javax.slee.transaction.CommitListener;
+import javax.slee.transaction.RollbackListener;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.FireableEventBatch;
+import org.mobicents.slee.SleeEndpointExt;
+import org.mobicents.slee.container.AbstractSleeContainerModule;
+import org.mobicents.slee.container.SleeContainer;
+import org.mobicents.slee.container.activity.ActivityContext;
+import org.mobicents.slee.container.activity.ActivityContextFactory;
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.activity.ActivityContextInterface;
+import org.mobicents.slee.container.activity.ActivityType;
+import org.mobicents.slee.container.activity.LocalActivityContext;
+import org.mobicents.slee.container.component.ClassPool;
+import org.mobicents.slee.container.component.ComponentDescriptorFactory;
+import org.mobicents.slee.container.component.ComponentRepository;
+import org.mobicents.slee.container.component.SleeComponent;
+import org.mobicents.slee.container.component.UsageParameterDescriptor;
+import org.mobicents.slee.container.component.UsageParametersInterfaceDescriptor;
+import org.mobicents.slee.container.component.classloading.ClassLoaderFactory;
+import org.mobicents.slee.container.component.classloading.ComponentClassLoader;
+import org.mobicents.slee.container.component.classloading.URLClassLoaderDomain;
+import org.mobicents.slee.container.component.common.ProfileSpecRefDescriptor;
+import org.mobicents.slee.container.component.du.DeployableUnit;
+import org.mobicents.slee.container.component.du.DeployableUnitManagement;
+import org.mobicents.slee.container.component.event.EventTypeComponent;
+import org.mobicents.slee.container.component.event.EventTypeDescriptor;
+import org.mobicents.slee.container.component.library.LibraryComponent;
+import org.mobicents.slee.container.component.profile.ProfileSpecificationComponent;
+import org.mobicents.slee.container.component.ra.ConfigPropertyDescriptor;
+import org.mobicents.slee.container.component.ra.ResourceAdaptorComponent;
+import org.mobicents.slee.container.component.ra.ResourceAdaptorDescriptor;
+import org.mobicents.slee.container.component.ratype.ResourceAdaptorTypeComponent;
+import org.mobicents.slee.container.component.sbb.SbbComponent;
+import org.mobicents.slee.container.component.security.PermissionHolder;
+import org.mobicents.slee.container.component.service.ServiceComponent;
+import org.mobicents.slee.container.event.EventContext;
+import org.mobicents.slee.container.event.EventProcessingFailedCallback;
+import org.mobicents.slee.container.event.EventProcessingSucceedCallback;
+import org.mobicents.slee.container.event.EventUnreferencedCallback;
+import org.mobicents.slee.container.facilities.NotificationSourceWrapper;
+import org.mobicents.slee.container.management.AlarmManagement;
+import org.mobicents.slee.container.management.ComponentManagement;
+import org.mobicents.slee.container.management.ResourceManagementImpl;
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+import org.mobicents.slee.container.transaction.SleeTransaction;
+import org.mobicents.slee.container.transaction.SleeTransactionManager;
+import org.mobicents.slee.container.transaction.TransactionContext;
+
+/**
+ * Tests the batched event firing of {@link SleeEndpointImpl}, through the
+ * endpoint a resource adaptor gets from its context.
+ * 
+ * @author martins
+ *
+ */
+public class SleeEndpointImplTest extends TestCase {
+
+	private static final TestHandle ACTIVITY_1 = new TestHandle("activity1");
+	private static final TestHandle ACTIVITY_2 = new TestHandle("activity2");
+	private static final TestHandle UNKNOWN_ACTIVITY = new TestHandle("unknown");
+
+	private static final EventTypeID EVENT_TYPE_ID = new EventTypeID("name", "vendor", "1.0");
+	private static final EventTypeID NOT_INSTALLED_EVENT_TYPE_ID = new EventTypeID("other", "vendor", "1.0");
+
+	private FakeTransactionManager txManager;
+	private FakeActivityContextFactory acFactory;
+	private FakeComponentRepository componentRepository;
+
+	private FireableEventType eventType;
+	private ResourceAdaptorEntityImpl raEntity;
+	private FakeResourceAdaptor ra;
+	private FakeResourceAdaptor otherRa;
+	private SleeEndpointExt sleeEndpoint;
+
+	@Override
+	protected void setUp() throws Exception {
+		txManager = new FakeTransactionManager();
+		acFactory = new FakeActivityContextFactory();
+		acFactory.activityContexts.put(ACTIVITY_1, new FakeActivityContext());
+		acFactory.activityContexts.put(ACTIVITY_2, new FakeActivityContext());
+		componentRepository = new FakeComponentRepository();
+		componentRepository.eventTypeComponents.put(EVENT_TYPE_ID,
+				new FakeEventTypeComponent(String.class));
+		new SleeContainer(null, null, null, new FakeComponentManagement(
+				componentRepository), null, null, ResourceManagementImpl
+				.getInstance(), null, null, null, null, acFactory, null, null,
+				null, null, txManager, null, null, new FakeAlarmManagement(),
+				null, null, null, null, null, null);
+		raEntity = createResourceAdaptorEntity("ra");
+		ra = (FakeResourceAdaptor) raEntity.getResourceAdaptorObject()
+				.getResourceAdaptorObject();
+		sleeEndpoint = (SleeEndpointExt) ra.context.getSleeEndpoint();
+		eventType = new FireableEventTypeImpl(String.class.getClassLoader(),
+				String.class.getName(), EVENT_TYPE_ID);
+	}
+
+	private ResourceAdaptorEntityImpl createResourceAdaptorEntity(String name)
+			throws Exception {
+		return new ResourceAdaptorEntityImpl(name,
+				new FakeResourceAdaptorComponent(), new ConfigProperties(),
+				ResourceManagementImpl.getInstance(),
+				new ResourceAdaptorEntityNotification(name), null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		((ResourceAdaptorEntityTimer) ra.context.getTimer()).realCancel();
+		if (otherRa != null) {
+			((ResourceAdaptorEntityTimer) otherRa.context.getTimer()).realCancel();
+		}
+	}
+
+	public void testEventsFiredInOrderWithOneLookupPerActivity() throws Exception {
+		FireableEventBatch batch = new FireableEventBatch();
+		batch.add(ACTIVITY_1, eventType, "e1");
+		batch.add(ACTIVITY_2, eventType, "e2");
+		batch.add(ACTIVITY_1, eventType, "e3");
+		sleeEndpoint.fireEvents(batch);
+		assertEquals(Arrays.asList("e1", "e2", "e3"), acFactory.firedEvents);
+		assertEquals(Arrays.asList(ACTIVITY_1, ACTIVITY_2), acFactory.lookups);
+	}
+
+	public void testTransactedEventsFiredInOrder() throws Exception {
+		txManager.transaction = true;
+		FireableEventBatch batch = new FireableEventBatch();
+		batch.add(ACTIVITY_1, eventType, "e1");
+		batch.add(ACTIVITY_2, eventType, "e2");
+		batch.add(ACTIVITY_1, eventType, "e3");
+		sleeEndpoint.fireEventsTransacted(batch);
+		assertEquals(Arrays.asList("e1", "e2", "e3"), acFactory.firedEvents);
+		assertEquals(Arrays.asList(ACTIVITY_1, ACTIVITY_2), acFactory.lookups);
+	}
+
+	public void testTransactedEventsRequireTransaction() throws Exception {
+		FireableEventBatch batch = new FireableEventBatch();
+		batch.add(ACTIVITY_1, eventType, "e1");
+		try {
+			sleeEndpoint.fireEventsTransacted(batch);
+			fail("expected TransactionRequiredLocalException");
+		} catch (TransactionRequiredLocalException e) {
+			// expected
+		}
+		assertTrue(acFactory.firedEvents.isEmpty());
+	}
+
+	public void testUnrecognizedHandleFiresNoEvent() throws Exception {
+		FireableEventBatch batch = new FireableEventBatch();
+		batch.add(ACTIVITY_1, eventType, "e1");
+		batch.add(ACTIVITY_2, eventType, "e2");
+		batch.add(UNKNOWN_ACTIVITY, eventType, "e3");
+		try {
+			sleeEndpoint.fireEvents(batch);
+			fail("expected UnrecognizedActivityHandleException");
+		} catch (UnrecognizedActivityHandleException e) {
+			// expected
+		}
+		assertTrue(acFactory.firedEvents.isEmpty());
+	}
+
+	public void testEndingActivityStopsRemainingEvents() throws Exception {
+		acFactory.activityContexts.get(ACTIVITY_2).ending = true;
+		FireableEventBatch batch = new FireableEventBatch();
+		batch.add(ACTIVITY_1, eventType, "e1");
+		batch.add(ACTIVITY_2, eventType, "e2");
+		batch.add(ACTIVITY_1, eventType, "e3");
+		try {
+			sleeEndpoint.fireEvents(batch);
+			fail("expected ActivityIsEndingException");
+		} catch (ActivityIsEndingException e) {
+			// expected
+		}
+		// the events fired before the failure are kept
+		assertEquals(Arrays.asList("e1"), acFactory.firedEvents);
+	}
+
+	public void testNullPreconditions() throws Exception {
+		try {
+			sleeEndpoint.fireEvents(null);
+			fail("expected NullPointerException");
+		} catch (NullPointerException e) {
+			// expected
+		}
+		assertNullPreconditionFails(new FireableEventBatch().add(ACTIVITY_1,
+				eventType, "e1").add(ACTIVITY_1, eventType, null));
+		assertNullPreconditionFails(new FireableEventBatch().add(ACTIVITY_1,
+				eventType, "e1").add(null, eventType, "e2"));
+		assertNullPreconditionFails(new FireableEventBatch().add(ACTIVITY_1,
+				eventType, "e1").add(ACTIVITY_1, null, "e2"));
+		assertTrue(acFactory.firedEvents.isEmpty());
+		assertTrue(acFactory.lookups.isEmpty());
+	}
+
+	public void testIllegalEventPreconditions() throws Exception {
+		// not the container's fireable event type implementation
+		assertIllegalEventPreconditionFails(new FireableEventBatch().add(
+				ACTIVITY_1, eventType, "e1").add(ACTIVITY_1,
+				new TestEventType(), "e2"));
+		// event type not installed
+		assertIllegalEventPreconditionFails(new FireableEventBatch().add(
+				ACTIVITY_1, eventType, "e1").add(
+				ACTIVITY_1,
+				new FireableEventTypeImpl(String.class.getClassLoader(),
+						String.class.getName(), NOT_INSTALLED_EVENT_TYPE_ID),
+				"e2"));
+		// event object not assignable to the event type class
+		assertIllegalEventPreconditionFails(new FireableEventBatch().add(
+				ACTIVITY_1, eventType, "e1").add(ACTIVITY_1, eventType,
+				Integer.valueOf(2)));
+		assertTrue(acFactory.firedEvents.isEmpty());
+		assertTrue(acFactory.lookups.isEmpty());
+	}
+
+	public void testEventTypeValidatedOncePerComponentsVersion() throws Exception {
+		FireableEventBatch batch = new FireableEventBatch();
+		batch.add(ACTIVITY_1, eventType, "e1");
+		batch.add(ACTIVITY_2, eventType, "e2");
+		sleeEndpoint.fireEvents(batch);
+		sleeEndpoint.fireEvents(batch);
+		assertEquals(1, componentRepository.eventTypeComponentLookups);
+		// a change in the event type components forces a new validation
+		componentRepository.eventTypeComponentsVersion++;
+		sleeEndpoint.fireEvents(batch);
+		assertEquals(2, componentRepository.eventTypeComponentLookups);
+		assertEquals(6, acFactory.firedEvents.size());
+	}
+
+	public void testEventTypeValidatedOncePerRaEntity() throws Exception {
+		otherRa = (FakeResourceAdaptor) createResourceAdaptorEntity("otherRa")
+				.getResourceAdaptorObject().getResourceAdaptorObject();
+		final SleeEndpointExt otherSleeEndpoint = (SleeEndpointExt) otherRa.context
+				.getSleeEndpoint();
+		FireableEventBatch batch = new FireableEventBatch();
+		batch.add(ACTIVITY_1, eventType, "e1");
+		// the event type is shared by both ra entities, each validates it once
+		sleeEndpoint.fireEvents(batch);
+		otherSleeEndpoint.fireEvents(batch);
+		assertEquals(2, componentRepository.eventTypeComponentLookups);
+		sleeEndpoint.fireEvents(batch);
+		otherSleeEndpoint.fireEvents(batch);
+		sleeEndpoint.fireEvents(batch);
+		assertEquals(2, componentRepository.eventTypeComponentLookups);
+		assertEquals(5, acFactory.firedEvents.size());
+	}
+
+	public void testEventTypeValidatedOncePerServicesState() throws Exception {
+		final ServiceID serviceID = new ServiceID("name", "vendor", "1.0");
+		FireableEventBatch batch = new FireableEventBatch();
+		batch.add(ACTIVITY_1, eventType, "e1");
+		sleeEndpoint.fireEvents(batch);
+		sleeEndpoint.fireEvents(batch);
+		assertEquals(1, componentRepository.eventTypeComponentLookups);
+		// a service activation forces a new validation
+		raEntity.serviceActive(serviceID);
+		sleeEndpoint.fireEvents(batch);
+		sleeEndpoint.fireEvents(batch);
+		assertEquals(2, componentRepository.eventTypeComponentLookups);
+		// a service stopping does not
+		raEntity.serviceStopping(serviceID);
+		sleeEndpoint.fireEvents(batch);
+		assertEquals(2, componentRepository.eventTypeComponentLookups);
+		// a service deactivation does
+		raEntity.serviceInactive(serviceID);
+		sleeEndpoint.fireEvents(batch);
+		sleeEndpoint.fireEvents(batch);
+		assertEquals(3, componentRepository.eventTypeComponentLookups);
+		assertEquals(7, acFactory.firedEvents.size());
+	}
+
+	private void assertNullPreconditionFails(FireableEventBatch batch)
+			throws Exception {
+		try {
+			sleeEndpoint.fireEvents(batch);
+			fail("expected NullPointerException");
+		} catch (NullPointerException e) {
+			// expected
+		}
+		try {
+			sleeEndpoint.fireEventsTransacted(batch);
+			fail("expected NullPointerException");
+		} catch (NullPointerException e) {
+			// expected
+		}
+	}
+
+	private void assertIllegalEventPreconditionFails(
+			FireableEventBatch batch) throws Exception {
+		try {
+			sleeEndpoint.fireEvents(batch);
+			fail("expected IllegalEventException");
+		} catch (IllegalEventException e) {
+			// expected
+		}
+		try {
+			sleeEndpoint.fireEventsTransacted(batch);
+			fail("expected IllegalEventException");
+		} catch (IllegalEventException e) {
+			// expected
+		}
+	}
+
+	private static class TestHandle implements ActivityHandle {
+
+		private final String id;
+
+		TestHandle(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof TestHandle && ((TestHandle) obj).id.equals(id);
+		}
+
+		@Override
+		public String toString() {
+			return id;
+		}
+
+	}
+
+	private static class TestEventType implements FireableEventType {
+
+		public EventTypeID getEventType() {
+			return EVENT_TYPE_ID;
+		}
+
+		public String getEventClassName() {
+			return String.class.getName();
+		}
+
+		public ClassLoader getEventClassLoader() {
+			return String.class.getClassLoader();
+		}
+
+	}
+
+}
+
+class FakeTransactionManager extends AbstractSleeContainerModule implements
+		SleeTransactionManager {
+
+	/**
+	 * indicates if the calling thread is in a transaction, which the
+	 * endpoint only checks, no transaction object is ever returned
+	 */
+	boolean transaction;
+
+	public void mandateTransaction() throws TransactionRequiredLocalException {
+		if (!transaction) {
+			throw new TransactionRequiredLocalException("no transaction");
+		}
+	}
+
+	public boolean requireTransaction() {
+		return false;
+	}
+
+	public void requireTransactionEnd(boolean terminateTx, boolean doRollback) {
+	}
+
+	public TransactionContext getTransactionContext() {
+		return null;
+	}
+
+	public boolean getRollbackOnly() {
+		return false;
+	}
+
+	public TransactionManager getRealTransactionManager() {
+		return null;
+	}
+
+	public void requireRealTransaction() {
+	}
+
+	public SleeTransaction getTransaction() {
+		return null;
+	}
+
+	public javax.slee.transaction.SleeTransaction beginSleeTransaction() {
+		return null;
+	}
+
+	public javax.slee.transaction.SleeTransaction getSleeTransaction() {
+		return null;
+	}
+
+	public javax.slee.transaction.SleeTransaction asSleeTransaction(
+			Transaction transaction) {
+		return null;
+	}
+
+	public void asyncCommit(CommitListener commitListener) {
+	}
+
+	public void asyncRollback(RollbackListener rollbackListener) {
+	}
+
+	public void begin() {
+	}
+
+	public void commit() {
+	}
+
+	public int getStatus() {
+		return 0;
+	}
+
+	public void resume(Transaction transaction) {
+	}
+
+	public void rollback() {
+	}
+
+	public void setRollbackOnly() {
+	}
+
+	public void setTransactionTimeout(int seconds) {
+	}
+
+	public Transaction suspend() {
+		return null;
+	}
+
+}
+
+class FakeActivityContextFactory extends AbstractSleeContainerModule
+		implements ActivityContextFactory {
+
+	/**
+	 * the activity contexts of the known activities
+	 */
+	final Map<ActivityHandle, FakeActivityContext> activityContexts = new HashMap<ActivityHandle, FakeActivityContext>();
+
+	/**
+	 * the handles of the activity contexts retrieved, in order
+	 */
+	final List<ActivityHandle> lookups = new ArrayList<ActivityHandle>();
+
+	/**
+	 * the events fired on all activity contexts, in order
+	 */
+	final List<Object> firedEvents = new ArrayList<Object>();
+
+	public ActivityContext createActivityContext(ActivityContextHandle ach,
+			int activityFlags) {
+		return null;
+	}
+
+	public ActivityContext getActivityContext(ActivityContextHandle ach) {
+		lookups.add(ach.getActivityHandle());
+		final FakeActivityContext ac = activityContexts.get(ach
+				.getActivityHandle());
+		if (ac != null) {
+			ac.firedEvents = firedEvents;
+		}
+		return ac;
+	}
+
+	public ActivityContext getActivityContext(ActivityContextHandle ach,
+			boolean updateLastAccessTime) {
+		return getActivityContext(ach);
+	}
+
+	public ActivityContext getActivityContext(String sid) {
+		return null;
+	}
+
+	public ActivityContext getActivityContext(String sid,
+			boolean updateLastAccessTime) {
+		return null;
+	}
+
+	public Set<ActivityContextHandle> getAllActivityContextsHandles() {
+		return null;
+	}
+
+	public int getActivityContextCount() {
+		return activityContexts.size();
+	}
+
+	public int getActivityContextCount(ActivityType type) {
+		return 0;
+	}
+
+	public int getResourceAdaptorEntityActivityContextCount(String entityName) {
+		return 0;
+	}
+
+	public Set<ActivityContextHandle> getResourceAdaptorEntityActivityContextsHandles(
+			String entityName) {
+		return null;
+	}
+
+	public boolean activityContextExists(ActivityContextHandle ach) {
+		return activityContexts.containsKey(ach.getActivityHandle());
+	}
+
+	public void WAremove(String sid) {
+	}
+
+}
+
+class FakeActivityContext implements ActivityContext {
+
+	/**
+	 * if true the activity refuses new events
+	 */
+	boolean ending;
+
+	/**
+	 * where the events fired are recorded
+	 */
+	List<Object> firedEvents;
+
+	public void fireEvent(EventTypeID eventTypeId, Object event,
+			Address address, ServiceID serviceID,
+			EventProcessingSucceedCallback succeedCallback,
+			EventProcessingFailedCallback failedCallback,
+			EventUnreferencedCallback unreferencedCallback)
+			throws ActivityIsEndingException {
+		if (ending) {
+			throw new ActivityIsEndingException("activity is ending");
+		}
+		firedEvents.add(event);
+	}
+
+	public void fireEvent(EventTypeID eventTypeId, Object event,
+			Address address, ServiceID serviceID, EventContext reference)
+			throws ActivityIsEndingException {
+		fireEvent(eventTypeId, event, address, serviceID, null, null, null);
+	}
+
+	public boolean isEnding() {
+		return ending;
+	}
+
+	public void activityEnded() {
+	}
+
+	public void addNameBinding(String name) {
+	}
+
+	public boolean attachSbbEntity(SbbEntityID sbbEntityId) {
+		return false;
+	}
+
+	public boolean attachTimer(TimerID timerID) {
+		return false;
+	}
+
+	public void detachSbbEntity(SbbEntityID sbbEntityId) {
+	}
+
+	public boolean detachTimer(TimerID timerID) {
+		return false;
+	}
+
+	public void endActivity() {
+	}
+
+	public ActivityContextHandle getActivityContextHandle() {
+		return null;
+	}
+
+	public ActivityContextInterface getActivityContextInterface() {
+		return null;
+	}
+
+	public Set<TimerID> getAttachedTimers() {
+		return null;
+	}
+
+	public Object getDataAttribute(String key) {
+		return null;
+	}
+
+	@SuppressWarnings("rawtypes")
+	public Map getDataAttributes() {
+		return null;
+	}
+
+	public LocalActivityContext getLocalActivityContext() {
+		return null;
+	}
+
+	public Set<String> getNamingBindings() {
+		return null;
+	}
+
+	public Set<SbbEntityID> getSbbAttachmentSet() {
+		return null;
+	}
+
+	public Set<SbbEntityID> getSortedSbbAttachmentSet(
+			Set<SbbEntityID> excludeSet) {
+		return null;
+	}
+
+	public boolean removeNameBinding(String aciName) {
+		return false;
+	}
+
+	public void setDataAttribute(String key, Object newValue) {
+	}
+
+	public void beforeDeliveringEvent(EventContext eventContext) {
+	}
+
+	public String getStringID() {
+		return null;
+	}
+
+}
+
+class FakeComponentManagement extends AbstractSleeContainerModule implements
+		ComponentManagement {
+
+	private final ComponentRepository componentRepository;
+
+	FakeComponentManagement(ComponentRepository componentRepository) {
+		this.componentRepository = componentRepository;
+	}
+
+	public ComponentRepository getComponentRepository() {
+		return componentRepository;
+	}
+
+	public ClassLoaderFactory getClassLoaderFactory() {
+		return null;
+	}
+
+	public ComponentDescriptorFactory getComponentDescriptorFactory() {
+		return null;
+	}
+
+	public DeployableUnitManagement getDeployableUnitManagement() {
+		return null;
+	}
+
+}
+
+class FakeComponentRepository implements ComponentRepository {
+
+	/**
+	 * the event type components installed
+	 */
+	final Map<EventTypeID, EventTypeComponent> eventTypeComponents = new HashMap<EventTypeID, EventTypeComponent>();
+
+	int eventTypeComponentsVersion;
+
+	/**
+	 * how many times an event type component was retrieved
+	 */
+	int eventTypeComponentLookups;
+
+	public EventTypeComponent getComponentByID(EventTypeID id) {
+		eventTypeComponentLookups++;
+		return eventTypeComponents.get(id);
+	}
+
+	public int getEventTypeComponentsVersion() {
+		return eventTypeComponentsVersion;
+	}
+
+	public Set<EventTypeID> getEventComponentIDs() {
+		return eventTypeComponents.keySet();
+	}
+
+	public LibraryComponent getComponentByID(LibraryID id) {
+		return null;
+	}
+
+	public ProfileSpecificationComponent getComponentByID(
+			ProfileSpecificationID id) {
+		return null;
+	}
+
+	public ResourceAdaptorComponent getComponentByID(ResourceAdaptorID id) {
+		return null;
+	}
+
+	public ResourceAdaptorTypeComponent getComponentByID(
+			ResourceAdaptorTypeID id) {
+		return null;
+	}
+
+	public SbbComponent getComponentByID(SbbID id) {
+		return null;
+	}
+
+	public ServiceComponent getComponentByID(ServiceID id) {
+		return null;
+	}
+
+	public Set<LibraryID> getLibraryIDs() {
+		return null;
+	}
+
+	public Set<ProfileSpecificationID> getProfileSpecificationIDs() {
+		return null;
+	}
+
+	public ComponentID[] getReferringComponents(ComponentID componentID) {
+		return null;
+	}
+
+	public Set<SleeComponent> getReferringComponents(SleeComponent component) {
+		return null;
+	}
+
+	public Set<ResourceAdaptorID> getResourceAdaptorIDs() {
+		return null;
+	}
+
+	public Set<ResourceAdaptorTypeID> getResourceAdaptorTypeIDs() {
+		return null;
+	}
+
+	public Set<SbbID> getSbbIDs() {
+		return null;
+	}
+
+	public Set<ServiceID> getServiceIDs() {
+		return null;
+	}
+
+	public boolean isInstalled(ComponentID componentID) {
+		return false;
+	}
+
+	public boolean putComponent(EventTypeComponent component) {
+		return false;
+	}
+
+	public boolean putComponent(LibraryComponent component) {
+		return false;
+	}
+
+	public boolean putComponent(ProfileSpecificationComponent component) {
+		return false;
+	}
+
+	public boolean putComponent(ResourceAdaptorComponent component) {
+		return false;
+	}
+
+	public boolean putComponent(ResourceAdaptorTypeComponent component) {
+		return false;
+	}
+
+	public boolean putComponent(SbbComponent component) {
+		return false;
+	}
+
+	public boolean putComponent(ServiceComponent component) {
+		return false;
+	}
+
+	public void removeComponent(EventTypeID componentID) {
+	}
+
+	public void removeComponent(LibraryID componentID) {
+	}
+
+	public void removeComponent(ProfileSpecificationID componentID) {
+	}
+
+	public void removeComponent(ResourceAdaptorID componentID) {
+	}
+
+	public void removeComponent(ResourceAdaptorTypeID componentID) {
+	}
+
+	public void removeComponent(SbbID componentID) {
+	}
+
+	public void removeComponent(ServiceID componentID) {
+	}
+
+}
+
+/**
+ * Base for the component fakes, with no deployment information.
+ */
+abstract class FakeSleeComponent implements SleeComponent {
+
+	public ComponentClassLoader getClassLoader() {
+		return null;
+	}
+
+	public URLClassLoaderDomain getClassLoaderDomain() {
+		return null;
+	}
+
+	public ClassPool getClassPool() {
+		return null;
+	}
+
+	public File getDeploymentDir() {
+		return null;
+	}
+
+	public void setDeploymentDir(File deploymentDir) {
+	}
+
+	public String getDeploymentUnitSource() {
+		return null;
+	}
+
+	public void setDeploymentUnitSource(String deploymentUnitSource) {
+	}
+
+	public DeployableUnit getDeployableUnit() {
+		return null;
+	}
+
+	public void setDeployableUnit(DeployableUnit deployableUnit) {
+	}
+
+	public Set<PermissionHolder> getPermissions() {
+		return null;
+	}
+
+	public boolean addToDeployableUnit() {
+		return false;
+	}
+
+	public Set<ComponentID> getDependenciesSet() {
+		return null;
+	}
+
+	public ComponentID getComponentID() {
+		return null;
+	}
+
+	public boolean isSlee11() {
+		return true;
+	}
+
+	public boolean validate() {
+		return true;
+	}
+
+	public javax.slee.management.ComponentDescriptor getComponentDescriptor() {
+		return null;
+	}
+
+	public void processSecurityPermissions() {
+	}
+
+	public void undeployed() {
+	}
+
+}
+
+class FakeEventTypeComponent extends FakeSleeComponent implements
+		EventTypeComponent {
+
+	private Class<?> eventTypeClass;
+
+	FakeEventTypeComponent(Class<?> eventTypeClass) {
+		this.eventTypeClass = eventTypeClass;
+	}
+
+	public Class<?> getEventTypeClass() {
+		return eventTypeClass;
+	}
+
+	public void setEventTypeClass(Class<?> eventTypeClass) {
+		this.eventTypeClass = eventTypeClass;
+	}
+
+	public EventTypeDescriptor getDescriptor() {
+		return null;
+	}
+
+	public EventTypeID getEventTypeID() {
+		return null;
+	}
+
+	public javax.slee.management.EventTypeDescriptor getSpecsDescriptor() {
+		return null;
+	}
+
+	public Set<ServiceComponent> getActiveServicesWhichDefineEventAsInitial() {
+		return null;
+	}
+
+	public void activatedServiceWhichDefineEventAsInitial(
+			ServiceComponent serviceComponent) {
+	}
+
+	public void deactivatedServiceWhichDefineEventAsInitial(
+			ServiceComponent serviceComponent) {
+	}
+
+}
+
+class FakeResourceAdaptorComponent extends FakeSleeComponent implements
+		ResourceAdaptorComponent {
+
+	private final ResourceAdaptorDescriptor descriptor = new FakeResourceAdaptorDescriptor();
+
+	public ResourceAdaptorDescriptor getDescriptor() {
+		return descriptor;
+	}
+
+	public ConfigProperties getDefaultConfigPropertiesInstance() {
+		return new ConfigProperties();
+	}
+
+	public Class<?> getResourceAdaptorClass() {
+		return FakeResourceAdaptor.class;
+	}
+
+	public void setResourceAdaptorClass(Class<?> c) {
+	}
+
+	public ResourceAdaptorID getResourceAdaptorID() {
+		return null;
+	}
+
+	public javax.slee.resource.ResourceAdaptorDescriptor getSpecsDescriptor() {
+		return null;
+	}
+
+	public Class<?> getUsageParametersInterface() {
+		return null;
+	}
+
+	public void setUsageParametersInterface(Class<?> usageParametersInterface) {
+	}
+
+	public Class<?> getUsageParametersConcreteClass() {
+		return null;
+	}
+
+	public void setUsageParametersConcreteClass(
+			Class<?> usageParametersConcreteClass) {
+	}
+
+	public Class<?> getUsageParametersMBeanConcreteInterface() {
+		return null;
+	}
+
+	public void setUsageParametersMBeanConcreteInterface(
+			Class<?> usageParametersMBeanConcreteInterface) {
+	}
+
+	public Class<?> getUsageParametersMBeanImplConcreteClass() {
+		return null;
+	}
+
+	public void setUsageParametersMBeanImplConcreteClass(
+			Class<?> usageParametersMBeanImplConcreteClass) {
+	}
+
+	public Class<?> getUsageNotificationManagerMBeanConcreteInterface() {
+		return null;
+	}
+
+	public void setUsageNotificationManagerMBeanConcreteInterface(
+			Class<?> usageNotificationManagerMBeanConcreteInterface) {
+	}
+
+	public Class<?> getUsageNotificationManagerMBeanImplConcreteClass() {
+		return null;
+	}
+
+	public void setUsageNotificationManagerMBeanImplConcreteClass(
+			Class<?> usageNotificationManagerMBeanImplConcreteClass) {
+	}
+
+	public List<UsageParameterDescriptor> getUsageParametersList() {
+		return null;
+	}
+
+}
+
+class FakeResourceAdaptorDescriptor implements ResourceAdaptorDescriptor {
+
+	/**
+	 * ignores the ra type event type check, so the ra types are not needed
+	 */
+	public boolean getIgnoreRaTypeEventTypeCheck() {
+		return true;
+	}
+
+	public List<ResourceAdaptorTypeID> getResourceAdaptorTypeRefs() {
+		return null;
+	}
+
+	public List<? extends ProfileSpecRefDescriptor> getProfileSpecRefs() {
+		return null;
+	}
+
+	public List<? extends ConfigPropertyDescriptor> getConfigProperties() {
+		return null;
+	}
+
+	public UsageParametersInterfaceDescriptor getResourceAdaptorUsageParametersInterface() {
+		return null;
+	}
+
+	public String getResourceAdaptorClassName() {
+		return FakeResourceAdaptor.class.getName();
+	}
+
+	public boolean getSupportsActiveReconfiguration() {
+		return false;
+	}
+
+	public ResourceAdaptorID getResourceAdaptorID() {
+		return null;
+	}
+
+	public String getSecurityPermissions() {
+		return null;
+	}
+
+	public Set<LibraryID> getLibraryRefs() {
+		return null;
+	}
+
+	public Set<ComponentID> getDependenciesSet() {
+		return null;
+	}
+
+	public boolean isSlee11() {
+		return true;
+	}
+
+}
+
+class FakeAlarmManagement extends AbstractSleeContainerModule implements
+		AlarmManagement {
+
+	public AlarmFacility newAlarmFacility(NotificationSource notificationSource) {
+		return null;
+	}
+
+	public boolean isAlarmAlive(String alarmID) {
+		return false;
+	}
+
+	public boolean isSourceOwnerOfAlarm(
+			NotificationSourceWrapper notificationSource, String alarmID) {
+		return false;
+	}
+
+	public boolean clearAlarm(String alarmID) {
+		return false;
+	}
+
+	public int clearAlarms(NotificationSource notificationSource) {
+		return 0;
+	}
+
+	public int clearAlarms(NotificationSource notificationSource,
+			String alarmType) {
+		return 0;
+	}
+
+	public String raiseAlarm(NotificationSourceWrapper notificationSource,
+			String alarmType, String instanceID, AlarmLevel alarmLevel,
+			String message, Throwable cause) {
+		return null;
+	}
+
+	public boolean isRegisteredAlarmComponent(ComponentID componentID) {
+		return false;
+	}
+
+	public void createAlarm(ComponentID alarmSource, Level alarmLevel,
+			String alarmType, String message, Throwable cause, long timestamp) {
+	}
+
+	public void unRegisterComponent(SbbID sbbID) {
+	}
+
+	public void registerComponent(SbbID sbbID) {
+	}
+
+	public ObjectName getAlarmMBeanObjectName() {
+		return null;
+	}
+
+}
+
+/**
+ * The ra object of the entity tested, which keeps the context, and thus the
+ * endpoint, the container provides.
+ */
+class FakeResourceAdaptor implements ResourceAdaptor {
+
+	ResourceAdaptorContext context;
+
+	public void setResourceAdaptorContext(ResourceAdaptorContext context) {
+		this.context = context;
+	}
+
+	public void unsetResourceAdaptorContext() {
+		this.context = null;
+	}
+
+	public void raConfigure(ConfigProperties properties) {
+	}
+
+	public void raUnconfigure() {
+	}
+
+	public void raActive() {
+	}
+
+	public void raStopping() {
+	}
+
+	public void raInactive() {
+	}
+
+	public void raVerifyConfiguration(ConfigProperties properties) {
+	}
+
+	public void raConfigurationUpdate(ConfigProperties properties) {
+	}
+
+	public Object getResourceAdaptorInterface(String className) {
+		return null;
+	}
+
+	public Marshaler getMarshaler() {
+		return null;
+	}
+
+	public void serviceActive(ReceivableService serviceInfo) {
+	}
+
+	public void serviceStopping(ReceivableService serviceInfo) {
+	}
+
+	public void serviceInactive(ReceivableService serviceInfo) {
+	}
+
+	public void queryLiveness(ActivityHandle handle) {
+	}
+
+	public Object getActivity(ActivityHandle handle) {
+		return null;
+	}
+
+	public ActivityHandle getActivityHandle(Object activity) {
+		return null;
+	}
+
+	public void administrativeRemove(ActivityHandle handle) {
+	}
+
+	public void eventProcessingSuccessful(ActivityHandle handle,
+			FireableEventType eventType, Object event, Address address,
+			ReceivableService service, int flags) {
+	}
+
+	public void eventProcessingFailed(ActivityHandle handle,
+			FireableEventType eventType, Object event, Address address,
+			ReceivableService service, int flags, FailureReason reason) {
+	}
+
+	public void eventUnreferenced(ActivityHandle handle,
+			FireableEventType eventType, Object event, Address address,
+			ReceivableService service, int flags) {
+	}
+
+	public void activityEnded(ActivityHandle handle) {
+	}
+
+	public void activityUnreferenced(ActivityHandle handle) {
+	}
+
+}
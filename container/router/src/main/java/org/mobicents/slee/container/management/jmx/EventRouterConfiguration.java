@@ -25,7 +25,13 @@
  */
 package org.mobicents.slee.container.management.jmx;
 
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import javax.slee.ServiceID;
+
 import org.apache.log4j.Logger;
+import org.mobicents.slee.util.concurrent.RingBufferWaitStrategy;
 
 /**
  * @author martins
@@ -41,6 +47,10 @@ public class EventRouterConfiguration implements
 	private String executorMapperClassName;
 	private Boolean collectStats;
 	private boolean confirmSbbEntityAttachement;
+	private Integer executorQueueSize;
+	private RingBufferWaitStrategy executorWaitStrategy = RingBufferWaitStrategy.BLOCKING;
+	private boolean batchSbbDeliveries;
+	private final Set<ServiceID> batchSbbDeliveriesServices = new CopyOnWriteArraySet<ServiceID>();
 	
 	@Override
 	public boolean isConfirmSbbEntityAttachement() {
@@ -113,6 +123,119 @@ public class EventRouterConfiguration implements
 				
 	}
 	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterConfigurationMBean#getExecutorQueueSize()
+	 */
+	public int getExecutorQueueSize() {
+		return executorQueueSize == null ? 0 : executorQueueSize;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterConfigurationMBean#setExecutorQueueSize(int)
+	 */
+	public void setExecutorQueueSize(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("executor queue size must not be negative");
+		}
+		if (this.executorQueueSize != null) {
+			logger.warn("Setting executorQueueSize property to "
+				+ value
+				+ ". If called with server running a stop and start is need to apply changes.");
+		}
+		this.executorQueueSize = value;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterConfigurationMBean#getExecutorWaitStrategy()
+	 */
+	public String getExecutorWaitStrategy() {
+		return executorWaitStrategy.name();
+	}
+	
+	/**
+	 * 
+	 * @return
+	 */
+	public RingBufferWaitStrategy getExecutorWaitStrategyValue() {
+		return executorWaitStrategy;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterConfigurationMBean#setExecutorWaitStrategy(java.lang.String)
+	 */
+	public void setExecutorWaitStrategy(String value) throws IllegalArgumentException {
+		final RingBufferWaitStrategy waitStrategy = RingBufferWaitStrategy.valueOf(value);
+		if (waitStrategy != this.executorWaitStrategy) {
+			logger.warn("Setting executorWaitStrategy property to "
+				+ value
+				+ ". If called with server running a stop and start is need to apply changes.");
+		}
+		this.executorWaitStrategy = waitStrategy;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterConfigurationMBean#isBatchSbbDeliveries()
+	 */
+	public boolean isBatchSbbDeliveries() {
+		return batchSbbDeliveries;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterConfigurationMBean#setBatchSbbDeliveries(boolean)
+	 */
+	public void setBatchSbbDeliveries(boolean value) {
+		this.batchSbbDeliveries = value;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterConfigurationMBean#getBatchSbbDeliveriesServices()
+	 */
+	public ServiceID[] getBatchSbbDeliveriesServices() {
+		return batchSbbDeliveriesServices.toArray(new ServiceID[batchSbbDeliveriesServices.size()]);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterConfigurationMBean#addBatchSbbDeliveriesService(javax.slee.ServiceID)
+	 */
+	public void addBatchSbbDeliveriesService(ServiceID serviceID) throws NullPointerException {
+		if (serviceID == null) {
+			throw new NullPointerException("null service id");
+		}
+		batchSbbDeliveriesServices.add(serviceID);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterConfigurationMBean#removeBatchSbbDeliveriesService(javax.slee.ServiceID)
+	 */
+	public void removeBatchSbbDeliveriesService(ServiceID serviceID) throws NullPointerException {
+		if (serviceID == null) {
+			throw new NullPointerException("null service id");
+		}
+		batchSbbDeliveriesServices.remove(serviceID);
+	}
+	
+	/**
+	 * Indicates if deliveries of an event to sbb entities of the specified
+	 * service may share a transaction with the delivery to the next sbb
+	 * entity.
+	 * 
+	 * @param serviceID
+	 * @return
+	 */
+	public boolean isBatchSbbDeliveries(ServiceID serviceID) {
+		return batchSbbDeliveries || (!batchSbbDeliveriesServices.isEmpty() && batchSbbDeliveriesServices.contains(serviceID));
+	}
+	
+	/**
+	 * Indicates if deliveries of events may share transactions, for any
+	 * service.
+	 * 
+	 * @return
+	 */
+	public boolean isBatchSbbDeliveriesEnabled() {
+		return batchSbbDeliveries || !batchSbbDeliveriesServices.isEmpty();
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
@@ -120,7 +243,7 @@ public class EventRouterConfiguration implements
 	public String toString() {
 		return "Event Router Executors: "
 			+ eventRouterThreads+", Collect Stats: "+collectStats+", Executor<->Activity Mapper Class: "
-			+ executorMapperClassName;
+			+ executorMapperClassName+", Executor Queue Size: "+getExecutorQueueSize()+", Executor Wait Strategy: "+executorWaitStrategy+", Batch Sbb Deliveries: "+batchSbbDeliveries+", Batch Sbb Deliveries Services: "+batchSbbDeliveriesServices;
 	}
 }
 
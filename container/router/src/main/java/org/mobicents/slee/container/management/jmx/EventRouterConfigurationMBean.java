@@ -22,6 +22,8 @@
 
 package org.mobicents.slee.container.management.jmx;
 
+import javax.slee.ServiceID;
+
 /**
  * JMX interface for the SLEE event router configuration.
  * 
@@ -88,4 +90,86 @@ public interface EventRouterConfigurationMBean {
 	 */
 	public void setConfirmSbbEntityAttachement(boolean value);
 	
+	/**
+	 * Retrieves the capacity of each executor's working queue, if 0 (default)
+	 * the queue is unbounded, otherwise a bounded ring buffer is used, which
+	 * turns on congestion control when full.
+	 * 
+	 * @return
+	 */
+	public int getExecutorQueueSize();
+	
+	/**
+	 * Sets the capacity of each executor's working queue, 0 means unbounded.
+	 * 
+	 * Note that setting a different value for this method will only be
+	 * effective on server (re)start.
+	 * 
+	 * @param value
+	 */
+	public void setExecutorQueueSize(int value);
+	
+	/**
+	 * Retrieves the wait strategy used by executors with a bounded working
+	 * queue, one of BUSY_SPIN, YIELDING or BLOCKING.
+	 * 
+	 * @return
+	 */
+	public String getExecutorWaitStrategy();
+	
+	/**
+	 * Sets the wait strategy used by executors with a bounded working queue,
+	 * one of BUSY_SPIN, YIELDING or BLOCKING.
+	 * 
+	 * Note that setting a different value for this method will only be
+	 * effective on server (re)start.
+	 * 
+	 * @param value
+	 * @throws IllegalArgumentException
+	 */
+	public void setExecutorWaitStrategy(String value) throws IllegalArgumentException;
+	
+	/**
+	 * Indicates if the event router delivers an event to all sbb entities,
+	 * which handle it, in a single transaction, instead of one transaction
+	 * per sbb entity. If a transaction used to deliver the event to multiple
+	 * sbb entities rolls back then the event router falls back to one
+	 * transaction per sbb entity, redelivering the event to those which
+	 * handled it in the rolled back transaction.
+	 * 
+	 * @return
+	 */
+	public boolean isBatchSbbDeliveries();
+	
+	/**
+	 * 
+	 * @param value
+	 */
+	public void setBatchSbbDeliveries(boolean value);
+	
+	/**
+	 * Retrieves the services which have deliveries to its sbb entities
+	 * batched, even if batching is not enabled for all services.
+	 * 
+	 * @return
+	 */
+	public ServiceID[] getBatchSbbDeliveriesServices();
+	
+	/**
+	 * Enables batching of deliveries to sbb entities of the specified service.
+	 * 
+	 * @param serviceID
+	 * @throws NullPointerException
+	 */
+	public void addBatchSbbDeliveriesService(ServiceID serviceID) throws NullPointerException;
+	
+	/**
+	 * Disables batching of deliveries to sbb entities of the specified
+	 * service, unless enabled for all services.
+	 * 
+	 * @param serviceID
+	 * @throws NullPointerException
+	 */
+	public void removeBatchSbbDeliveriesService(ServiceID serviceID) throws NullPointerException;
+	
 }
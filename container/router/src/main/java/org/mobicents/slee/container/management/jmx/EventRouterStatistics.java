@@ -109,6 +109,70 @@ public class EventRouterStatistics implements
 		return getEventRouterStatistics().getAverageEventRoutingTime(executor,eventTypeID);
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterStatisticsMBean#getEventRoutingTimePercentiles()
+	 */
+	public long[] getEventRoutingTimePercentiles() throws ManagementException {
+		return getEventRouterStatistics().getEventRoutingTimePercentiles();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterStatisticsMBean#getEventRoutingTimePercentiles(javax.slee.EventTypeID)
+	 */
+	public long[] getEventRoutingTimePercentiles(EventTypeID eventTypeID) throws ManagementException {
+		return getEventRouterStatistics().getEventRoutingTimePercentiles(eventTypeID);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterStatisticsMBean#getEventRoutingTimePercentiles(int)
+	 */
+	public long[] getEventRoutingTimePercentiles(int executor) throws ManagementException {
+		return getEventRouterStatistics().getEventRoutingTimePercentiles(executor);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterStatisticsMBean#getEventRoutingTimePercentiles(int, javax.slee.EventTypeID)
+	 */
+	public long[] getEventRoutingTimePercentiles(int executor, EventTypeID eventTypeID) throws ManagementException {
+		return getEventRouterStatistics().getEventRoutingTimePercentiles(executor, eventTypeID);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterStatisticsMBean#getEventQueueWaitTimePercentiles()
+	 */
+	public long[] getEventQueueWaitTimePercentiles() throws ManagementException {
+		return getEventRouterStatistics().getEventQueueWaitTimePercentiles();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterStatisticsMBean#getEventQueueWaitTimePercentiles(javax.slee.EventTypeID)
+	 */
+	public long[] getEventQueueWaitTimePercentiles(EventTypeID eventTypeID) throws ManagementException {
+		return getEventRouterStatistics().getEventQueueWaitTimePercentiles(eventTypeID);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterStatisticsMBean#getEventQueueWaitTimePercentiles(int)
+	 */
+	public long[] getEventQueueWaitTimePercentiles(int executor) throws ManagementException {
+		return getEventRouterStatistics().getEventQueueWaitTimePercentiles(executor);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.EventRouterStatisticsMBean#getEventQueueWaitTimePercentiles(int, javax.slee.EventTypeID)
+	 */
+	public long[] getEventQueueWaitTimePercentiles(int executor, EventTypeID eventTypeID) throws ManagementException {
+		return getEventRouterStatistics().getEventQueueWaitTimePercentiles(executor, eventTypeID);
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -52,6 +52,38 @@ public interface EventRouterStatisticsMBean {
 	 * Return avg routing time for particular event type in specific executor.
 	 */
 	public long getAverageEventRoutingTime(int executor, EventTypeID eventTypeID) throws ManagementException;
+	/**
+	 * Return routing time percentiles 50, 90, 99 and 99.9, followed by the max, within container. This stat includes all executors.
+	 */
+	public long[] getEventRoutingTimePercentiles() throws ManagementException;
+	/**
+	 * Return routing time percentiles 50, 90, 99 and 99.9, followed by the max, of particular event type. This includes routing in all executors.
+	 */
+	public long[] getEventRoutingTimePercentiles(EventTypeID eventTypeID) throws ManagementException;
+	/**
+	 * Return routing time percentiles 50, 90, 99 and 99.9, followed by the max, for executor with passed index.
+	 */
+	public long[] getEventRoutingTimePercentiles(int executor) throws ManagementException;
+	/**
+	 * Return routing time percentiles 50, 90, 99 and 99.9, followed by the max, for particular event type in specific executor.
+	 */
+	public long[] getEventRoutingTimePercentiles(int executor, EventTypeID eventTypeID) throws ManagementException;
+	/**
+	 * Return percentiles 50, 90, 99 and 99.9, followed by the max, of the time events wait in executor queues, before routing starts. This stat includes all executors.
+	 */
+	public long[] getEventQueueWaitTimePercentiles() throws ManagementException;
+	/**
+	 * Return percentiles 50, 90, 99 and 99.9, followed by the max, of the time events of particular event type wait in executor queues. This includes all executors.
+	 */
+	public long[] getEventQueueWaitTimePercentiles(EventTypeID eventTypeID) throws ManagementException;
+	/**
+	 * Return percentiles 50, 90, 99 and 99.9, followed by the max, of the time events wait in the queue of executor with passed index.
+	 */
+	public long[] getEventQueueWaitTimePercentiles(int executor) throws ManagementException;
+	/**
+	 * Return percentiles 50, 90, 99 and 99.9, followed by the max, of the time events of particular event type wait in the queue of specific executor.
+	 */
+	public long[] getEventQueueWaitTimePercentiles(int executor, EventTypeID eventTypeID) throws ManagementException;
 	/**
 	 * Return number of events routed of this event type.
 	 */
@@ -0,0 +1,198 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ * This file incorporates work covered by the following copyright contributed under the GNU LGPL : Copyright 2007-2011 Red Hat.
+ */
+package org.mobicents.slee.runtime.eventrouter;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.event.EventContext;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
+import org.mobicents.slee.runtime.eventrouter.routingtask.EventRoutingTaskImpl;
+
+/**
+ * The {@link EventRouterExecutor} view of a queue of activities, in a pool of
+ * {@link WorkStealingEventRouterExecutor}s. Each activity is always mapped to
+ * the same queue, and the whole queue is submitted to the executor which last processed it, or
+ * stolen by an idle one, ensuring that tasks are executed serially and in
+ * order.
+ * 
+ * @author martins
+ * 
+ */
+public class ActivityEventRouterExecutor implements EventRouterExecutor {
+
+	/**
+	 * the max number of tasks executed, before the activity queue goes back to
+	 * the end of the executor's queue, so activities with lots of events do not
+	 * starve the others
+	 */
+	private static final int MAX_TASKS_PER_TURN = 16;
+
+	private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+	/**
+	 * indicates if the activity queue is submitted to an executor or being
+	 * processed by one
+	 */
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	/**
+	 * the executor the activity was mapped to, which accounts the activity in
+	 * its stats
+	 */
+	private final WorkStealingEventRouterExecutor mappedExecutor;
+
+	/**
+	 * the executor which last processed the activity queue
+	 */
+	private volatile WorkStealingEventRouterExecutor affineExecutor;
+
+	/**
+	 * 
+	 * @param mappedExecutor
+	 */
+	public ActivityEventRouterExecutor(
+			WorkStealingEventRouterExecutor mappedExecutor) {
+		this.mappedExecutor = mappedExecutor;
+		this.affineExecutor = mappedExecutor;
+	}
+
+	/**
+	 * Submits the activity queue to an executor, if not done already.
+	 */
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			affineExecutor.submit(this);
+		}
+	}
+
+	/**
+	 * Executes the pending tasks of the activity, up to
+	 * {@link #MAX_TASKS_PER_TURN}, in the specified executor's thread.
+	 * 
+	 * @param executor
+	 */
+	void runTasks(WorkStealingEventRouterExecutor executor) {
+		affineExecutor = executor;
+		Runnable task = null;
+		for (int i = 0; i < MAX_TASKS_PER_TURN; i++) {
+			task = tasks.poll();
+			if (task == null) {
+				break;
+			}
+			executor.runTask(task);
+		}
+		scheduled.set(false);
+		if (!tasks.isEmpty()) {
+			schedule();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#activityMapped
+	 * (org.mobicents.slee.container.activity.ActivityContextHandle)
+	 */
+	public void activityMapped(ActivityContextHandle ach) {
+		mappedExecutor.activityMapped(ach);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#activityUnmapped
+	 * (org.mobicents.slee.container.activity.ActivityContextHandle)
+	 */
+	public void activityUnmapped(ActivityContextHandle ach) {
+		mappedExecutor.activityUnmapped(ach);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#execute(java
+	 * .lang.Runnable)
+	 */
+	public void execute(Runnable task) {
+		tasks.offer(task);
+		schedule();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#executeNow
+	 * (java.lang.Runnable)
+	 */
+	public void executeNow(Runnable task) throws InterruptedException,
+			ExecutionException {
+		final FutureTask<Void> futureTask = new FutureTask<Void>(task, null);
+		execute(futureTask);
+		futureTask.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#getStatistics
+	 * ()
+	 */
+	public EventRouterExecutorStatistics getStatistics() {
+		return mappedExecutor.getStatistics();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#routeEvent
+	 * (org.mobicents.slee.container.event.EventContext)
+	 */
+	public void routeEvent(EventContext event) {
+		final EventRoutingTaskImpl task = new EventRoutingTaskImpl(event,
+				mappedExecutor.getSleeContainer());
+		if (mappedExecutor.getStatistics() != null) {
+			task.setQueuedTime(System.nanoTime());
+		}
+		execute(task);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#shutdown()
+	 */
+	public void shutdown() {
+		// the executors of the pool are shutdown by the event router
+	}
+
+}
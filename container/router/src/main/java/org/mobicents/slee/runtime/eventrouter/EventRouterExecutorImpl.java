@@ -20,7 +20,10 @@
  */
 package org.mobicents.slee.runtime.eventrouter;
 
+import javax.slee.EventTypeID;
+
 import org.mobicents.slee.container.SleeContainer;
+import org.mobicents.slee.container.SleeThreadLocals;
 import org.mobicents.slee.container.activity.ActivityContextHandle;
 import org.mobicents.slee.container.event.EventContext;
 import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
@@ -28,7 +31,10 @@ import org.mobicents.slee.container.eventrouter.EventRoutingTask;
 import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
 import org.mobicents.slee.runtime.eventrouter.routingtask.EventRoutingTaskImpl;
 import org.mobicents.slee.runtime.eventrouter.stats.EventRouterExecutorStatisticsImpl;
+import org.mobicents.slee.util.concurrent.RingBufferExecutorService;
+import org.mobicents.slee.util.concurrent.RingBufferWaitStrategy;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -49,56 +55,105 @@ public class EventRouterExecutorImpl implements EventRouterExecutor {
 	private final SleeContainer sleeContainer;
 	
 	/**
-	 * Used to collect executing stats of an {@link EventRoutingTask}.
+	 * the time when the task being executed started, only accessed by the
+	 * executor's thread
+	 */
+	private long taskStartTime;
+	
+	/**
+	 * the event type of the task being executed, if it routes an event,
+	 * retrieved before running the task since its event context may be
+	 * released and recycled once the routing ends
+	 */
+	private EventTypeID taskEventTypeId;
+	
+	/**
+	 * The default executor, a single thread {@link ThreadPoolExecutor} with an
+	 * unbounded queue, which collects executing stats of each task.
+	 * 
+	 * @author martins
+	 * 
+	 */
+	private class StatsCollectingThreadPoolExecutor extends ThreadPoolExecutor {
+
+		public StatsCollectingThreadPoolExecutor(
+				LinkedBlockingQueue<Runnable> executorQueue,
+				ThreadFactory threadFactory) {
+			super(1, 1, 0L, TimeUnit.MILLISECONDS, executorQueue,
+					threadFactory);
+		}
+
+		@Override
+		protected void beforeExecute(Thread t, Runnable r) {
+			taskStarted(r);
+		}
+
+		@Override
+		protected void afterExecute(Runnable r, Throwable t) {
+			taskEnded(r);
+		}
+	}
+
+	/**
+	 * A {@link RingBufferExecutorService} with bounded capacity, which
+	 * collects executing stats of each task, and turns congestion control on
+	 * when full.
 	 * 
 	 * @author martins
 	 * 
 	 */
-	private class EventRoutingTaskStatsCollector implements Runnable {
+	private class StatsCollectingRingBufferExecutor extends
+			RingBufferExecutorService {
 
-		private final EventRoutingTask eventRoutingTask;
+		public StatsCollectingRingBufferExecutor(int capacity,
+				RingBufferWaitStrategy waitStrategy, ThreadFactory threadFactory) {
+			super(capacity, waitStrategy, threadFactory);
+		}
+
+		@Override
+		protected void beforeExecute(Thread t, Runnable r) {
+			taskStarted(r);
+		}
 
-		public EventRoutingTaskStatsCollector(EventRoutingTask eventRoutingTask) {
-			this.eventRoutingTask = eventRoutingTask;
+		@Override
+		protected void afterExecute(Runnable r, Throwable t) {
+			taskEnded(r);
 		}
 
-		/*
-		 * (non-Javadoc)
-		 * 
-		 * @see java.lang.Runnable#run()
-		 */
-		public void run() {
-			final long startTime = System.nanoTime();
-			eventRoutingTask.run();
-			stats.eventRouted(eventRoutingTask.getEventContext().getEventTypeId(), System
-					.nanoTime()
-					- startTime);
+		@Override
+		protected void capacityExhausted() {
+			sleeContainer.getCongestionControl()
+					.eventRouterExecutorQueueFull();
+		}
+
+		@Override
+		protected void capacityRestored() {
+			sleeContainer.getCongestionControl()
+					.eventRouterExecutorQueueAvailable();
 		}
 	}
 
 	/**
-	 * Used to collect executing stats of a misc {@link Runnable} task.
+	 * Marks the threads created as event router threads.
 	 * 
 	 * @author martins
 	 * 
 	 */
-	private class MiscTaskStatsCollector implements Runnable {
+	private static class EventRouterThreadFactory implements ThreadFactory {
 
-		private final Runnable runnable;
+		private final ThreadFactory threadFactory;
 
-		public MiscTaskStatsCollector(Runnable runnable) {
-			this.runnable = runnable;
+		public EventRouterThreadFactory(ThreadFactory threadFactory) {
+			this.threadFactory = threadFactory;
 		}
 
-		/*
-		 * (non-Javadoc)
-		 * 
-		 * @see java.lang.Runnable#run()
-		 */
-		public void run() {
-			final long startTime = System.nanoTime();
-			runnable.run();
-			stats.miscTaskExecuted(System.nanoTime() - startTime);
+		public Thread newThread(final Runnable r) {
+			return threadFactory.newThread(new Runnable() {
+				public void run() {
+					SleeThreadLocals.setEventRouterThread();
+					r.run();
+				}
+			});
 		}
 	}
 
@@ -106,12 +161,74 @@ public class EventRouterExecutorImpl implements EventRouterExecutor {
 	 * 
 	 */
 	public EventRouterExecutorImpl(boolean collectStats, ThreadFactory threadFactory, SleeContainer sleeContainer) {
-		final LinkedBlockingQueue<Runnable> executorQueue = new LinkedBlockingQueue<Runnable>();
-		this.executor = new ThreadPoolExecutor(1, 1,
-                        0L, TimeUnit.MILLISECONDS,
-                        executorQueue, threadFactory);
-		stats = collectStats ? new EventRouterExecutorStatisticsImpl(Collections.unmodifiableCollection(executorQueue)) : null;
+		this(collectStats, 0, null, threadFactory, sleeContainer);
+	}
+
+	/**
+	 * 
+	 * @param collectStats
+	 * @param queueCapacity
+	 *            if greater than 0 a bounded ring buffer executor is used,
+	 *            with the specified capacity
+	 * @param waitStrategy
+	 *            the wait strategy of the ring buffer executor
+	 * @param threadFactory
+	 * @param sleeContainer
+	 */
+	public EventRouterExecutorImpl(boolean collectStats, int queueCapacity, RingBufferWaitStrategy waitStrategy, ThreadFactory threadFactory, SleeContainer sleeContainer) {
 		this.sleeContainer = sleeContainer;
+		threadFactory = new EventRouterThreadFactory(threadFactory);
+		final Collection<Runnable> executorQueue;
+		if (queueCapacity > 0) {
+			final StatsCollectingRingBufferExecutor ringBufferExecutor = new StatsCollectingRingBufferExecutor(queueCapacity, waitStrategy, threadFactory);
+			executorQueue = ringBufferExecutor.getQueue();
+			this.executor = ringBufferExecutor;
+		}
+		else {
+			final LinkedBlockingQueue<Runnable> linkedBlockingQueue = new LinkedBlockingQueue<Runnable>();
+			executorQueue = linkedBlockingQueue;
+			this.executor = new StatsCollectingThreadPoolExecutor(linkedBlockingQueue, threadFactory);
+		}
+		stats = collectStats ? new EventRouterExecutorStatisticsImpl(Collections.unmodifiableCollection(executorQueue)) : null;
+	}
+
+	/**
+	 * Invoked by the executor's thread before running a task.
+	 * 
+	 * @param task
+	 */
+	private void taskStarted(Runnable task) {
+		if (stats != null) {
+			if (task instanceof EventRoutingTaskImpl) {
+				taskEventTypeId = ((EventRoutingTaskImpl) task).getEventTypeId();
+			}
+			else if (task instanceof EventRoutingTask) {
+				taskEventTypeId = ((EventRoutingTask) task).getEventContext().getEventTypeId();
+			}
+			taskStartTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Invoked by the executor's thread after running a task, collects the
+	 * executing stats of an {@link EventRoutingTask} or misc task.
+	 * 
+	 * @param task
+	 */
+	private void taskEnded(Runnable task) {
+		if (stats != null) {
+			if (task instanceof EventRoutingTaskImpl) {
+				final EventRoutingTaskImpl eventRoutingTask = (EventRoutingTaskImpl) task;
+				stats.eventRouted(taskEventTypeId, eventRoutingTask.getQueueWaitTime(taskStartTime), System.nanoTime() - taskStartTime);
+			}
+			else if (task instanceof EventRoutingTask) {
+				stats.eventRouted(taskEventTypeId, -1L, System.nanoTime() - taskStartTime);
+			}
+			else {
+				stats.miscTaskExecuted(System.nanoTime() - taskStartTime);
+			}
+			taskEventTypeId = null;
+		}
 	}
 
 	/*
@@ -143,22 +260,14 @@ public class EventRouterExecutorImpl implements EventRouterExecutor {
 	 * .lang.Runnable)
 	 */
 	public void execute(Runnable task) {
-		if (stats == null) {
-			executor.execute(task);
-		} else {
-			executor.execute(new MiscTaskStatsCollector(task));
-		}
+		executor.execute(task);
 	}
 
 	/* (non-Javadoc)
 	 * @see org.mobicents.slee.core.runtime.eventrouter.EventRouterExecutor#executeNow(java.lang.Runnable)
 	 */
 	public void executeNow(Runnable task) throws InterruptedException, ExecutionException {
-		if (stats == null) {
-			executor.submit(task).get();
-		} else {
-			executor.submit(new MiscTaskStatsCollector(task)).get();
-		}
+		executor.submit(task).get();
 	}
 	
 	/* (non-Javadoc)
@@ -183,13 +292,11 @@ public class EventRouterExecutorImpl implements EventRouterExecutor {
 	 * @see org.mobicents.slee.runtime.eventrouter.EventRouterExecutor#routeEvent(org.mobicents.slee.core.event.SleeEvent)
 	 */
 	public void routeEvent(EventContext event) {
-		final EventRoutingTaskImpl eventRoutingTask = new EventRoutingTaskImpl(event,sleeContainer);
-		if (stats == null) {
-			executor.execute(eventRoutingTask);
-		} else {
-			executor.execute(new EventRoutingTaskStatsCollector(
-					eventRoutingTask));
+		final EventRoutingTaskImpl task = new EventRoutingTaskImpl(event,sleeContainer);
+		if (stats != null) {
+			task.setQueuedTime(System.nanoTime());
 		}
+		executor.execute(task);
 	}
 
 }
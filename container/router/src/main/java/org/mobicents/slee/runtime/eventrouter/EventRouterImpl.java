@@ -78,19 +78,24 @@ public class EventRouterImpl extends AbstractSleeContainerModule implements Even
 				executor.shutdown();
 			}
 		}
-		// create new ones
-		this.executors = new EventRouterExecutor[configuration.getEventRouterThreads()];
-		for (int i = 0; i < configuration.getEventRouterThreads(); i++) {
-			this.executors[i] = new EventRouterExecutorImpl(configuration.isCollectStats(), new SleeThreadFactory("SLEE-EventRouterExecutor-"+i), sleeContainer);
-		}	
 		// create mapper
 		try {
 			Class<?> executorMapperClass = Class.forName(configuration.getExecutorMapperClassName());
 			executorMapper = (EventRouterExecutorMapper) executorMapperClass.newInstance();
-			executorMapper.setExecutors(executors);
 		} catch (Throwable e) {
 			throw new IllegalStateException("Unable to create event router executor mapper class instance",e);
-		}		
+		}
+		// create new executors, the mapper may provide its own impl
+		if (executorMapper instanceof EventRouterExecutorFactory) {
+			this.executors = ((EventRouterExecutorFactory) executorMapper).createExecutors(configuration.getEventRouterThreads(), configuration.isCollectStats(), sleeContainer);
+		}
+		else {
+			this.executors = new EventRouterExecutor[configuration.getEventRouterThreads()];
+			for (int i = 0; i < configuration.getEventRouterThreads(); i++) {
+				this.executors[i] = new EventRouterExecutorImpl(configuration.isCollectStats(), configuration.getExecutorQueueSize(), configuration.getExecutorWaitStrategyValue(), new SleeThreadFactory("SLEE-EventRouterExecutor-"+i), sleeContainer);
+			}
+		}
+		executorMapper.setExecutors(executors);
 		// create stats
 		statistics = new EventRouterStatisticsImpl(this);
 	}
@@ -0,0 +1,346 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ * This file incorporates work covered by the following copyright contributed under the GNU LGPL : Copyright 2007-2011 Red Hat.
+ */
+package org.mobicents.slee.runtime.eventrouter;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.slee.EventTypeID;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.container.SleeContainer;
+import org.mobicents.slee.container.SleeThreadLocals;
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.event.EventContext;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.container.eventrouter.EventRoutingTask;
+import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
+import org.mobicents.slee.runtime.eventrouter.routingtask.EventRoutingTaskImpl;
+import org.mobicents.slee.runtime.eventrouter.stats.EventRouterExecutorStatisticsImpl;
+
+/**
+ * An {@link EventRouterExecutor} which is one of the workers of a work
+ * stealing pool. Instead of a queue of tasks, the executor holds a queue of
+ * {@link ActivityEventRouterExecutor}s, each with pending tasks for the
+ * activities mapped to it. When its own queue is empty the executor steals a
+ * whole activity queue from another executor, thus the per activity FIFO ordering is kept,
+ * since an activity queue is never processed by more than one executor at the
+ * same time.
+ * 
+ * @author martins
+ * 
+ */
+public class WorkStealingEventRouterExecutor implements EventRouterExecutor,
+		Runnable {
+
+	private static final Logger logger = Logger
+			.getLogger(WorkStealingEventRouterExecutor.class);
+
+	/**
+	 * the max time an idle executor sleeps, before trying to steal work again
+	 */
+	private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(50);
+
+	private final int index;
+
+	/**
+	 * the activities with pending tasks, which are owned by this executor
+	 */
+	private final ConcurrentLinkedDeque<ActivityEventRouterExecutor> readyActivities = new ConcurrentLinkedDeque<ActivityEventRouterExecutor>();
+
+	/**
+	 * the number of idle executors in the pool
+	 */
+	private final AtomicInteger idleExecutors;
+
+	/**
+	 * holds misc tasks and events which are submitted directly to this
+	 * executor, and not through an activity
+	 */
+	private final ActivityEventRouterExecutor directTasks;
+
+	private final EventRouterExecutorStatisticsImpl stats;
+	private final SleeContainer sleeContainer;
+	private final Thread thread;
+
+	private WorkStealingEventRouterExecutor[] pool;
+
+	private volatile boolean idle;
+	private volatile boolean running = true;
+
+	/**
+	 * 
+	 * @param index
+	 * @param idleExecutors
+	 * @param collectStats
+	 * @param threadFactory
+	 * @param sleeContainer
+	 */
+	public WorkStealingEventRouterExecutor(int index,
+			AtomicInteger idleExecutors, boolean collectStats,
+			ThreadFactory threadFactory, SleeContainer sleeContainer) {
+		this.index = index;
+		this.idleExecutors = idleExecutors;
+		this.sleeContainer = sleeContainer;
+		this.stats = collectStats ? new EventRouterExecutorStatisticsImpl(
+				Collections.unmodifiableCollection(readyActivities)) : null;
+		this.directTasks = new ActivityEventRouterExecutor(this);
+		this.thread = threadFactory.newThread(this);
+	}
+
+	/**
+	 * Sets the executors of the pool this executor belongs, which includes
+	 * itself, and starts the executor's thread.
+	 * 
+	 * @param pool
+	 */
+	public void start(WorkStealingEventRouterExecutor[] pool) {
+		this.pool = pool;
+		thread.start();
+	}
+
+	SleeContainer getSleeContainer() {
+		return sleeContainer;
+	}
+
+	/**
+	 * Submits an activity with pending tasks to this executor.
+	 * 
+	 * @param activity
+	 */
+	void submit(ActivityEventRouterExecutor activity) {
+		readyActivities.offer(activity);
+		if (idle) {
+			LockSupport.unpark(thread);
+		} else if (idleExecutors.get() > 0) {
+			// this executor is busy, wake up an idle one so it can steal the
+			// activity
+			for (WorkStealingEventRouterExecutor executor : pool) {
+				if (executor.idle) {
+					LockSupport.unpark(executor.thread);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the specified task, which belongs to an activity currently
+	 * processed by this executor.
+	 * 
+	 * @param task
+	 */
+	void runTask(Runnable task) {
+		if (stats == null) {
+			try {
+				task.run();
+			} catch (Throwable e) {
+				logger.error("Failure executing task", e);
+			}
+			return;
+		}
+		try {
+			// the event type is retrieved before running the task, once the
+			// routing ends the event context may be released and recycled
+			if (task instanceof EventRoutingTaskImpl) {
+				final EventRoutingTaskImpl eventRoutingTask = (EventRoutingTaskImpl) task;
+				final EventTypeID eventTypeId = eventRoutingTask
+						.getEventTypeId();
+				final long startTime = System.nanoTime();
+				final long queueWaitTime = eventRoutingTask
+						.getQueueWaitTime(startTime);
+				try {
+					task.run();
+				} finally {
+					stats.eventRouted(eventTypeId, queueWaitTime,
+							System.nanoTime() - startTime);
+				}
+			} else if (task instanceof EventRoutingTask) {
+				final EventTypeID eventTypeId = ((EventRoutingTask) task)
+						.getEventContext().getEventTypeId();
+				final long startTime = System.nanoTime();
+				try {
+					task.run();
+				} finally {
+					stats.eventRouted(eventTypeId, -1L, System.nanoTime()
+							- startTime);
+				}
+			} else {
+				final long startTime = System.nanoTime();
+				try {
+					task.run();
+				} finally {
+					stats.miscTaskExecuted(System.nanoTime() - startTime);
+				}
+			}
+		} catch (Throwable e) {
+			logger.error("Failure executing task", e);
+		}
+	}
+
+	/**
+	 * Steals the most recently submitted activity of another executor.
+	 * 
+	 * @return null if there was no activity to steal
+	 */
+	private ActivityEventRouterExecutor steal() {
+		ActivityEventRouterExecutor activity = null;
+		for (int i = 1; i < pool.length; i++) {
+			activity = pool[(index + i) % pool.length].readyActivities
+					.pollLast();
+			if (activity != null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Executor " + index
+							+ " stole activity queue from executor "
+							+ ((index + i) % pool.length));
+				}
+				break;
+			}
+		}
+		return activity;
+	}
+
+	private void park() {
+		idle = true;
+		idleExecutors.incrementAndGet();
+		try {
+			if (running && readyActivities.isEmpty()) {
+				LockSupport.parkNanos(this, MAX_IDLE_PARK_NANOS);
+			}
+		} finally {
+			idleExecutors.decrementAndGet();
+			idle = false;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		SleeThreadLocals.setEventRouterThread();
+		ActivityEventRouterExecutor activity = null;
+		while (true) {
+			activity = readyActivities.poll();
+			if (activity == null) {
+				if (!running) {
+					break;
+				}
+				activity = steal();
+				if (activity == null) {
+					park();
+					continue;
+				}
+			}
+			activity.runTasks(this);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#activityMapped
+	 * (org.mobicents.slee.container.activity.ActivityContextHandle)
+	 */
+	public void activityMapped(ActivityContextHandle ach) {
+		if (stats != null) {
+			stats.activityMapped(ach);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#activityUnmapped
+	 * (org.mobicents.slee.container.activity.ActivityContextHandle)
+	 */
+	public void activityUnmapped(ActivityContextHandle ach) {
+		if (stats != null) {
+			stats.activityUnmapped(ach);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#execute(java
+	 * .lang.Runnable)
+	 */
+	public void execute(Runnable task) {
+		directTasks.execute(task);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#executeNow
+	 * (java.lang.Runnable)
+	 */
+	public void executeNow(Runnable task) throws InterruptedException,
+			ExecutionException {
+		directTasks.executeNow(task);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#getStatistics
+	 * ()
+	 */
+	public EventRouterExecutorStatistics getStatistics() {
+		return stats;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#routeEvent
+	 * (org.mobicents.slee.container.event.EventContext)
+	 */
+	public void routeEvent(EventContext event) {
+		directTasks.routeEvent(event);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.container.eventrouter.EventRouterExecutor#shutdown()
+	 */
+	public void shutdown() {
+		running = false;
+		LockSupport.unpark(thread);
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.slee.runtime.eventrouter.mapping;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mobicents.slee.container.SleeContainer;
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.runtime.eventrouter.ActivityEventRouterExecutor;
+import org.mobicents.slee.runtime.eventrouter.EventRouterExecutorFactory;
+import org.mobicents.slee.runtime.eventrouter.WorkStealingEventRouterExecutor;
+import org.mobicents.slee.util.concurrent.SleeThreadFactory;
+
+/**
+ * {@link EventRouterExecutor} to {@link ActivityContextHandle} mapping which
+ * uses a pool of {@link WorkStealingEventRouterExecutor}s. Each activity is
+ * initially assigned to an executor using the hashcode of its handle, but idle
+ * executors steal the queues of activities from overloaded executors, so a few
+ * activities with lots of events do not saturate a single executor.
+ * 
+ * @author martins
+ * 
+ */
+public class WorkStealingEventRouterExecutorMapper extends
+		AbstractEventRouterExecutorMapper implements EventRouterExecutorFactory {
+
+	/**
+	 * the number of activity queues per executor, activities are mapped to
+	 * these queues, which are the unit of work stealing
+	 */
+	static final int QUEUES_PER_EXECUTOR = 16;
+
+	/**
+	 * the activity queues, shared by all activities mapped to each
+	 */
+	private ActivityEventRouterExecutor[] activityQueues;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.runtime.eventrouter.EventRouterExecutorFactory#createExecutors
+	 * (int, boolean, org.mobicents.slee.container.SleeContainer)
+	 */
+	public EventRouterExecutor[] createExecutors(int size,
+			boolean collectStats, SleeContainer sleeContainer) {
+		final AtomicInteger idleExecutors = new AtomicInteger(0);
+		final WorkStealingEventRouterExecutor[] executors = new WorkStealingEventRouterExecutor[size];
+		for (int i = 0; i < size; i++) {
+			executors[i] = new WorkStealingEventRouterExecutor(i,
+					idleExecutors, collectStats, new SleeThreadFactory(
+							"SLEE-EventRouterExecutor-" + i), sleeContainer);
+		}
+		for (WorkStealingEventRouterExecutor executor : executors) {
+			executor.start(executors);
+		}
+		return executors;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.mobicents.slee.runtime.eventrouter.mapping.AbstractEventRouterExecutorMapper
+	 * #setExecutors(org.mobicents.slee.container.eventrouter.EventRouterExecutor[])
+	 */
+	@Override
+	public void setExecutors(EventRouterExecutor[] executors) {
+		for (EventRouterExecutor executor : executors) {
+			if (!(executor instanceof WorkStealingEventRouterExecutor)) {
+				throw new IllegalArgumentException(
+						"executors must be instances of "
+								+ WorkStealingEventRouterExecutor.class);
+			}
+		}
+		final ActivityEventRouterExecutor[] activityQueues = new ActivityEventRouterExecutor[executors.length
+				* QUEUES_PER_EXECUTOR];
+		for (int i = 0; i < activityQueues.length; i++) {
+			activityQueues[i] = new ActivityEventRouterExecutor(
+					(WorkStealingEventRouterExecutor) executors[i
+							% executors.length]);
+		}
+		this.activityQueues = activityQueues;
+		super.setExecutors(executors);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.mobicents.slee.runtime.eventrouter.mapping.
+	 * AbstractEventRouterExecutorMapper
+	 * #getExecutor(org.mobicents.slee.runtime.activity.ActivityContextHandle)
+	 */
+	@Override
+	public EventRouterExecutor getExecutor(
+			ActivityContextHandle activityContextHandle) {
+		// an activity is always mapped to the same queue, thus its tasks
+		// are executed serially and in order
+		return activityQueues[(activityContextHandle.hashCode() & Integer.MAX_VALUE)
+				% activityQueues.length];
+	}
+
+}
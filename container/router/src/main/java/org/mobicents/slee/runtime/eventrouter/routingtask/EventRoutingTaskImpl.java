@@ -25,6 +25,7 @@ package org.mobicents.slee.runtime.eventrouter.routingtask;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Set;
 
@@ -44,11 +45,14 @@ import org.mobicents.slee.container.component.service.ServiceComponent;
 import org.mobicents.slee.container.event.EventContext;
 import org.mobicents.slee.container.eventrouter.EventRoutingTask;
 import org.mobicents.slee.container.eventrouter.SbbInvocationState;
+import org.mobicents.slee.container.management.jmx.EventRouterConfiguration;
 import org.mobicents.slee.container.sbb.SbbObject;
 import org.mobicents.slee.container.sbbentity.SbbEntity;
 import org.mobicents.slee.container.sbbentity.SbbEntityID;
+import org.mobicents.slee.container.sbbentity.SbbEntityLockUnavailableException;
 import org.mobicents.slee.container.transaction.SleeTransactionManager;
 import org.mobicents.slee.container.transaction.TransactionalAction;
+import org.mobicents.slee.runtime.eventrouter.EventRouterImpl;
 
 public class EventRoutingTaskImpl implements EventRoutingTask {
 
@@ -88,17 +92,30 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 	 */
 	private final EventContext eventContext;
 	
+	/**
+	 * the event type of the routed event, kept since the event context may
+	 * be recycled once the routing ends
+	 */
+	private final EventTypeID eventTypeId;
+	
 	/**
 	 * indicates which phase we are in routing of event
 	 */
 	private RoutingPhase routingPhase = RoutingPhase.DELIVERING;
 	
+	/**
+	 * the time, in nanos, when the task was submitted to an executor, 0 if
+	 * not collecting stats
+	 */
+	private long queuedTime;
+	
 	/**
 	 * 
 	 * @param eventContext
 	 */
 	public EventRoutingTaskImpl(EventContext eventContext, SleeContainer sleeContainer) {
 		this.eventContext = eventContext;
+		this.eventTypeId = eventContext.getEventTypeId();
 		this.container = sleeContainer;
 	}
 	
@@ -109,6 +126,39 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 		return eventContext;
 	}
 	
+	/**
+	 * Retrieves the event type of the routed event, safe to use after the
+	 * routing ends.
+	 * @return
+	 */
+	public EventTypeID getEventTypeId() {
+		return eventTypeId;
+	}
+	
+	/**
+	 * Sets the time, in nanos, when the task was submitted to an executor.
+	 * @param queuedTime
+	 */
+	public void setQueuedTime(long queuedTime) {
+		this.queuedTime = queuedTime;
+	}
+	
+	/**
+	 * Retrieves the time the task waited in the executor's queue, till the
+	 * specified start time, only available the first time the task runs.
+	 * 
+	 * @param startTime
+	 * @return -1 if not available
+	 */
+	public long getQueueWaitTime(long startTime) {
+		if (queuedTime == 0L) {
+			return -1L;
+		}
+		final long result = startTime - queuedTime;
+		queuedTime = 0L;
+		return result;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see java.lang.Runnable#run()
@@ -185,11 +235,9 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 					return;
 				}
 				else {
+					// the resume is only signaled after the tx which requested it completed, no need to wait here 
 					if (debugLogging)
 						logger.debug("\n\n\nResuming the routing for"+eventContext);
-					// needed to ensure tests/events/eventcontext/Test1108039Test.xml passes
-					// the test must be fixed
-					Thread.sleep(10);
 				}
 			}
 			
@@ -215,6 +263,19 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 			
 			boolean sbbHandledEvent = false;
 			
+			final EventRouterConfiguration configuration = ((EventRouterImpl) container.getEventRouter()).getConfiguration();
+			// if true the event may be delivered to multiple sbb entities in the same tx
+			boolean batchDeliveries = configuration.isBatchSbbDeliveriesEnabled();
+			// indicates if the tx used in the last invocation sequence was kept open for the next one
+			boolean batchedTx = false;
+			boolean keepTxOpen;
+			// what the invocation sequences that share the open tx changed in the event context 
+			LinkedList<SbbEntityID> batchedSbbEntities = null;
+			LinkedList<ServiceComponent> batchedServiceComponents = null;
+			boolean serviceComponentRemoved;
+			// indicates if the deliveries batched in the open tx must be committed before the next one
+			boolean endBatch;
+			
 			do {
 				
 				// For each SBB that is attached to this activity context and active service to process event as initial
@@ -232,6 +293,9 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 				deliverEvent = true;
 				rollbackTx = true;
 				rollbackOnlySet = false;
+				keepTxOpen = false;
+				serviceComponentRemoved = false;
+				endBatch = false;
 				
 				try {
 
@@ -257,7 +321,9 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 
 					// If this fails then we propagate up since there's nothing to roll-back anyway
 
-					txMgr.begin();			
+					if (!batchedTx) {
+						txMgr.begin();
+					}
 
 					sbbEntitiesThatHandledCurrentEvent = activityCurrentEventContext.getSbbEntitiesThatHandledEvent();
 
@@ -265,6 +331,16 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 
 						// load ac
 						ac = container.getActivityContextFactory().getActivityContext(eventContext.getActivityContextHandle(),true);
+						if (ac == null && batchedTx) {
+							// the deliveries batched in the open tx may have ended the ac, 
+							// roll these back and redeliver the event in one tx per sbb entity
+							txMgr.rollback();
+							undoBatchedDeliveries(sbbEntitiesThatHandledCurrentEvent, serviceComponents, batchedSbbEntities, batchedServiceComponents);
+							batchedSbbEntities = null;
+							batchedServiceComponents = null;
+							batchDeliveries = false;
+							continue;
+						}
 						if (ac == null) {
 							logger.error("Unable to route event "+eventContext+". The activity context is gone");
 							try {
@@ -280,10 +356,21 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 						if (routingPhase == RoutingPhase.DELIVERING) {
 							
 							// calculate highest priority attached sbb entity that needs to handle the event
+							if (batchedTx) {
+								// the open tx holds the locks of the sbb entities which handled the event,
+								// waiting for another one could deadlock with a thread doing the same
+								txMgr.getTransactionContext().setSbbEntityLockWaitAllowed(false);
+							}
 							try {
 								nextSbbEntityFinderResult = nextSbbEntityFinder.next(ac, eventContext, sbbEntitiesThatHandledCurrentEvent,container);								
+							} catch (SbbEntityLockUnavailableException e) {
+								throw e;
 							} catch (Exception e) {
 								logger.warn("Failed to find next sbb entity to deliver the event "+eventContext+" in "+ac.getActivityContextHandle(), e);
+							} finally {
+								if (batchedTx) {
+									txMgr.getTransactionContext().setSbbEntityLockWaitAllowed(true);
+								}
 							}
 
 							// calculate highest priority service to process event as initial
@@ -292,12 +379,27 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 							}
 
 							// compare highest priority sbb entity already attached with highest priority service to process event as initial
-							if (nextSbbEntityFinderResult == null) {
+							if (batchedTx
+									&& serviceComponent != null
+									&& (nextSbbEntityFinderResult == null || serviceComponent.getDescriptor().getDefaultPriority() >= nextSbbEntityFinderResult.sbbEntity.getPriority())) {
+								// the initial event processing may wait for sbb entity locks, which the open tx can't do,
+								// and must run the service's initial event selector once, so it's done in a new tx
+								if (debugLogging)
+									logger.debug(serviceComponent+" processes the event as initial, committing batched deliveries first");
+								endBatch = true;
+							} else if (batchedTx && nextSbbEntityFinderResult != null
+									&& !nextSbbEntityFinderResult.sbbEntity.getSbbEntityId().isRootSbbEntity()) {
+								// claiming the root sbb entity may wait for its lock, which the open tx can't do
+								if (debugLogging)
+									logger.debug("Sbb entity "+nextSbbEntityFinderResult.sbbEntity.getSbbEntityId()+" is not root, committing batched deliveries first");
+								endBatch = true;
+							} else if (nextSbbEntityFinderResult == null) {
 								if (serviceComponent != null) {
 									if (debugLogging)
 										logger.debug("No sbb entities attached, which didn't already route the event, but "+serviceComponent+" defines the event type as initial, starting initial event processing");
 									// let the service process event as initial
 									serviceComponents.removeFirst();
+									serviceComponentRemoved = true;
 									sbbEntity = initialEventProcessor.processInitialEvent(serviceComponent, eventContext, container, ac);	
 									// if service returned no sbb entity and there are no more service components we are done
 									if (sbbEntity == null && serviceComponents.isEmpty()) {										
@@ -317,6 +419,7 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 										logger.debug("Found an sbb entity attached, which didn't already route the event, but "+serviceComponent+" defines the event type as initial and has the same or higher priority, starting initial event processing");
 									// the service has higher or equal priority as the sbb entity, let the service process the eventas initial
 									serviceComponents.removeFirst();
+									serviceComponentRemoved = true;
 									sbbEntity = initialEventProcessor.processInitialEvent(serviceComponent, eventContext, container, ac);												
 								}
 								else {
@@ -445,6 +548,13 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 							}
 						}
 						
+					} catch (SbbEntityLockUnavailableException e) {
+						// commit the deliveries done in the open tx, the next
+						// sbb entity will be handled in a tx which may wait for its lock
+						if (debugLogging) {
+							logger.debug("Sbb entity to deliver "+eventContext+" is locked by other thread, committing batched deliveries before waiting for the lock");
+						}
+						endBatch = true;
 					} catch (Exception e) {
 						logger.error("Caught exception while routing "+eventContext, e);
 						if (sbbEntity != null) {
@@ -467,7 +577,7 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 					// will not has any impact on this because the
 					// ac.DeliveredSet
 					// is not in the cache.
-					if (!finished) {
+					if (!finished && !endBatch) {
 						if (serviceComponents.isEmpty()) {
 							// no more services to process event as initial
 							try {
@@ -574,6 +684,34 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 									.trace("Rolling back SLEE Originated Invocation Sequence");
 						}
 						txMgr.rollback();
+						if (batchedTx) {
+							// the tx also delivered the event to other sbb entities,
+							// fall back to one tx per sbb entity and redeliver to those
+							undoBatchedDeliveries(sbbEntitiesThatHandledCurrentEvent, serviceComponents, batchedSbbEntities, batchedServiceComponents);
+							batchedSbbEntities = null;
+							batchedServiceComponents = null;
+							batchDeliveries = false;
+							finished = false;
+						}
+					} else if (batchDeliveries && !finished
+							&& routingPhase == RoutingPhase.DELIVERING
+							&& sbbEntity != null && rootSbbEntityId == null
+							&& configuration.isBatchSbbDeliveries(sbbEntity.getSbbEntityId().getServiceID())
+							&& !activityCurrentEventContext.isSuspended()) {
+						// keep the tx open and deliver the event to the next sbb entity in it
+						if (debugLogging) {
+							logger
+									.trace("Keeping tx of SLEE Originated Invocation Sequence open, to batch deliveries");
+						}
+						if (batchedSbbEntities == null) {
+							batchedSbbEntities = new LinkedList<SbbEntityID>();
+							batchedServiceComponents = new LinkedList<ServiceComponent>();
+						}
+						batchedSbbEntities.add(sbbEntity.getSbbEntityId());
+						if (serviceComponentRemoved) {
+							batchedServiceComponents.add(serviceComponent);
+						}
+						keepTxOpen = true;
 					} else {
 						
 						if (finished) {
@@ -607,6 +745,8 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 									.trace("Committing SLEE Originated Invocation Sequence");
 						}
 						txMgr.commit();
+						batchedSbbEntities = null;
+						batchedServiceComponents = null;
 						
 						// if we are not in delivering mode anymore and tx commits then we allow the loop to exit
 						if (routingPhase != RoutingPhase.DELIVERING) {
@@ -657,21 +797,31 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 				} catch (Throwable t) {
 					logger.error("Unhandled Throwable in event router: ", t);
 				} finally {
-					try {
-						// FIXME this should not be possible, check if this is ever called by tck!!!
-						final Transaction forgottenTx = txMgr.getTransaction();
-						if (forgottenTx != null) {
-							logger
-							.error("HOUSTON WE HAVE A PROBLEM! Transaction "+forgottenTx+" left open in event routing.");
-							if (rollbackTx) {
-								txMgr.rollback();
-							} else {
-								txMgr.commit();
+					if (!keepTxOpen) {
+						try {
+							// FIXME this should not be possible, check if this is ever called by tck!!!
+							final Transaction forgottenTx = txMgr.getTransaction();
+							if (forgottenTx != null) {
+								logger
+								.error("HOUSTON WE HAVE A PROBLEM! Transaction "+forgottenTx+" left open in event routing.");
+								if (rollbackTx) {
+									txMgr.rollback();
+									if (batchedSbbEntities != null) {
+										undoBatchedDeliveries(activityCurrentEventContext.getSbbEntitiesThatHandledEvent(), serviceComponents, batchedSbbEntities, batchedServiceComponents);
+										batchDeliveries = false;
+										finished = false;
+									}
+								} else {
+									txMgr.commit();
+								}
 							}
+						} catch (SystemException se) {
+							logger.error(se.getMessage(), se);
 						}
-					} catch (SystemException se) {
-						logger.error(se.getMessage(), se);
+						batchedSbbEntities = null;
+						batchedServiceComponents = null;
 					}
+					batchedTx = keepTxOpen;
 					if (sbbEntity != null) {
 						if (debugLogging) {
 							logger
@@ -716,4 +866,24 @@ public class EventRoutingTaskImpl implements EventRoutingTask {
 				oldClassLoader);
 	}
 
+	/**
+	 * Reverts the changes done in the event context by invocation sequences,
+	 * which shared a tx that rolled back, so that the event is delivered again
+	 * to the related sbb entities.
+	 * 
+	 * @param sbbEntitiesThatHandledCurrentEvent
+	 * @param serviceComponents
+	 * @param batchedSbbEntities
+	 * @param batchedServiceComponents
+	 */
+	private void undoBatchedDeliveries(Set<SbbEntityID> sbbEntitiesThatHandledCurrentEvent, LinkedList<ServiceComponent> serviceComponents, LinkedList<SbbEntityID> batchedSbbEntities, LinkedList<ServiceComponent> batchedServiceComponents) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Tx with batched deliveries of "+eventContext+" rolled back, redelivering to "+batchedSbbEntities+" in separated txs");
+		}
+		sbbEntitiesThatHandledCurrentEvent.removeAll(batchedSbbEntities);
+		for (Iterator<ServiceComponent> it = batchedServiceComponents.descendingIterator(); it.hasNext();) {
+			serviceComponents.addFirst(it.next());
+		}
+	}
+
 }
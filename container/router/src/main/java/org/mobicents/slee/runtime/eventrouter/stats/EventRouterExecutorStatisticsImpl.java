@@ -26,8 +26,7 @@
 package org.mobicents.slee.runtime.eventrouter.stats;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.slee.EventTypeID;
@@ -35,12 +34,12 @@ import javax.slee.EventTypeID;
 import org.mobicents.slee.container.activity.ActivityContextHandle;
 import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
 import org.mobicents.slee.container.eventrouter.stats.EventTypeRoutingStatistics;
+import org.mobicents.slee.container.eventrouter.stats.LatencyHistogram;
 
 /**
- * Impl of {@link EventRouterExecutorStatistics}. This class is not thread safe
- * due to performance overhead introduced when collecting stats, i.e., errors in
- * values due to multiple threads accessing the statistics state are not
- * important.
+ * Impl of {@link EventRouterExecutorStatistics}. Stats are updated by the
+ * executor's thread only, and may be safely read by other threads, e.g.
+ * through JMX.
  * 
  * @author martins
  * 
@@ -50,19 +49,22 @@ public class EventRouterExecutorStatisticsImpl implements
 
 	private AtomicInteger activitiesMapped = new AtomicInteger(0);
 	
-	private final Map<EventTypeID, EventTypeRoutingStatisticsImpl> eventTypeRoutingStatisticsMap = new HashMap<EventTypeID, EventTypeRoutingStatisticsImpl>();
+	private final ConcurrentHashMap<EventTypeID, EventTypeRoutingStatisticsImpl> eventTypeRoutingStatisticsMap = new ConcurrentHashMap<EventTypeID, EventTypeRoutingStatisticsImpl>();
 
-	private long miscTasksExecuted = 0L;
-	private long miscTaskExecutingTime = 0L;
+	private volatile long miscTasksExecuted = 0L;
+	private volatile long miscTaskExecutingTime = 0L;
 
-	private long tasksExecuted = 0L;
-	private long taskExecutingTime = 0L;
+	private volatile long tasksExecuted = 0L;
+	private volatile long taskExecutingTime = 0L;
+
+	private final LatencyHistogramImpl eventRoutingTimeHistogram = new LatencyHistogramImpl();
+	private final LatencyHistogramImpl eventQueueWaitTimeHistogram = new LatencyHistogramImpl();
 
 	private final long startTime = System.nanoTime();
 
-	private final Collection<Runnable> executorWorkingQueue; 
+	private final Collection<?> executorWorkingQueue; 
 	
-	public EventRouterExecutorStatisticsImpl(Collection<Runnable> executorWorkingQueue) {
+	public EventRouterExecutorStatisticsImpl(Collection<?> executorWorkingQueue) {
 		this.executorWorkingQueue = executorWorkingQueue;
 	}
 	
@@ -88,22 +90,30 @@ public class EventRouterExecutorStatisticsImpl implements
 	}
 	
 	/**
-	 * Adds the time for an event routing with a specific {@link EventTypeID}.
+	 * Adds the times for an event routing with a specific {@link EventTypeID}.
 	 * 
 	 * @param eventTypeID
 	 *            the id of the event type
+	 * @param queueWaitTime
+	 *            the time the event waited in the executor's queue, in nanos,
+	 *            negative if unknown
 	 * @param routingTime
-	 *            the time spent to route the event, in milliseconds
+	 *            the time spent to route the event, in nanos
 	 */
-	public void eventRouted(EventTypeID eventTypeID, long routingTime) {
+	public void eventRouted(EventTypeID eventTypeID, long queueWaitTime, long routingTime) {
 		EventTypeRoutingStatisticsImpl eventTypeRoutingStatistics = eventTypeRoutingStatisticsMap.get(eventTypeID);
 		if (eventTypeRoutingStatistics == null) {
-			synchronized (eventTypeRoutingStatisticsMap) {
-				eventTypeRoutingStatistics = new EventTypeRoutingStatisticsImpl(eventTypeID);
-				eventTypeRoutingStatisticsMap.put(eventTypeID, eventTypeRoutingStatistics); 
+			eventTypeRoutingStatistics = new EventTypeRoutingStatisticsImpl(eventTypeID);
+			final EventTypeRoutingStatisticsImpl existent = eventTypeRoutingStatisticsMap.putIfAbsent(eventTypeID, eventTypeRoutingStatistics);
+			if (existent != null) {
+				eventTypeRoutingStatistics = existent;
 			}
 		}
-		eventTypeRoutingStatistics.eventRouted(routingTime);
+		eventTypeRoutingStatistics.eventRouted(queueWaitTime, routingTime);
+		eventRoutingTimeHistogram.record(routingTime);
+		if (queueWaitTime >= 0L) {
+			eventQueueWaitTimeHistogram.record(queueWaitTime);
+		}
 		taskExecuted(routingTime);
 	}
 
@@ -150,6 +160,22 @@ public class EventRouterExecutorStatisticsImpl implements
 				: eventTypeRoutingStatistics.getAverageEventRoutingTime();
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics#getEventRoutingTimeHistogram()
+	 */
+	public LatencyHistogram getEventRoutingTimeHistogram() {
+		return eventRoutingTimeHistogram;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics#getEventQueueWaitTimeHistogram()
+	 */
+	public LatencyHistogram getEventQueueWaitTimeHistogram() {
+		return eventQueueWaitTimeHistogram;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -283,6 +309,8 @@ public class EventRouterExecutorStatisticsImpl implements
 			sb.append(eventTypeRoutingStatistics).append('\n');
 		}
 		sb.append("Average event routing time: ").append(getAverageEventRoutingTime()).append('\n');
+		sb.append("Event routing time: ").append(eventRoutingTimeHistogram).append('\n');
+		sb.append("Event queue wait time: ").append(eventQueueWaitTimeHistogram).append('\n');
 		sb.append("Executed Tasks: ").append(getExecutedTasks()).append('\n');
 		sb.append("Executing Time: ").append(getExecutingTime()).append('\n');
 		sb.append("Idle Time: ").append(getIdleTime()).append('\n');
@@ -26,6 +26,7 @@ import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
 import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
 import org.mobicents.slee.container.eventrouter.stats.EventRouterStatistics;
 import org.mobicents.slee.container.eventrouter.stats.EventTypeRoutingStatistics;
+import org.mobicents.slee.container.eventrouter.stats.LatencyHistogram;
 import org.mobicents.slee.runtime.eventrouter.EventRouterImpl;
 
 /**
@@ -131,6 +132,122 @@ public class EventRouterStatisticsImpl implements EventRouterStatistics {
 		return executorStats == null ? 0 : executorStats.getAverageEventRoutingTime(eventTypeID);
 	}
 	
+	private static final long[] NO_PERCENTILES = new LatencyHistogramImpl().getPercentiles();
+	
+	/**
+	 * Retrieves the histogram of all executors, for the specified event type,
+	 * or for all event types if null.
+	 * @param eventTypeID
+	 * @param queueWaitTime
+	 *            if true the queue wait time histogram is retrieved, otherwise
+	 *            the routing time one
+	 * @return
+	 */
+	private LatencyHistogram getLatencyHistogram(EventTypeID eventTypeID, boolean queueWaitTime) {
+		final LatencyHistogramImpl result = new LatencyHistogramImpl();
+		for (int i = 0; i < getExecutors().length; i++) {
+			final LatencyHistogramImpl histogram = (LatencyHistogramImpl) getLatencyHistogram(i, eventTypeID, queueWaitTime);
+			if (histogram != null) {
+				result.add(histogram);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Retrieves the histogram of the specified executor, for the specified
+	 * event type, or for all event types if null.
+	 * @param executor
+	 * @param eventTypeID
+	 * @param queueWaitTime
+	 *            if true the queue wait time histogram is retrieved, otherwise
+	 *            the routing time one
+	 * @return null if the executor has no stats for the event type
+	 */
+	private LatencyHistogram getLatencyHistogram(int executor, EventTypeID eventTypeID, boolean queueWaitTime) {
+		final EventRouterExecutorStatistics executorStats = getExecutors()[executor].getStatistics();
+		if (executorStats == null) {
+			return null;
+		}
+		if (eventTypeID == null) {
+			return queueWaitTime ? executorStats.getEventQueueWaitTimeHistogram() : executorStats.getEventRoutingTimeHistogram();
+		}
+		final EventTypeRoutingStatistics eventTypeRoutingStatistics = executorStats.getEventTypeRoutingStatistics(eventTypeID);
+		if (eventTypeRoutingStatistics == null) {
+			return null;
+		}
+		return queueWaitTime ? eventTypeRoutingStatistics.getQueueWaitTimeHistogram() : eventTypeRoutingStatistics.getRoutingTimeHistogram();
+	}
+	
+	private long[] getPercentiles(int executor, EventTypeID eventTypeID, boolean queueWaitTime) {
+		final LatencyHistogram histogram = getLatencyHistogram(executor, eventTypeID, queueWaitTime);
+		return histogram == null ? NO_PERCENTILES.clone() : histogram.getPercentiles();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterStatistics#getEventRoutingTimePercentiles()
+	 */
+	public long[] getEventRoutingTimePercentiles() {
+		return getLatencyHistogram(null, false).getPercentiles();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterStatistics#getEventRoutingTimePercentiles(javax.slee.EventTypeID)
+	 */
+	public long[] getEventRoutingTimePercentiles(EventTypeID eventTypeID) {
+		return getLatencyHistogram(eventTypeID, false).getPercentiles();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterStatistics#getEventRoutingTimePercentiles(int)
+	 */
+	public long[] getEventRoutingTimePercentiles(int executor) {
+		return getPercentiles(executor, null, false);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterStatistics#getEventRoutingTimePercentiles(int, javax.slee.EventTypeID)
+	 */
+	public long[] getEventRoutingTimePercentiles(int executor, EventTypeID eventTypeID) {
+		return getPercentiles(executor, eventTypeID, false);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterStatistics#getEventQueueWaitTimePercentiles()
+	 */
+	public long[] getEventQueueWaitTimePercentiles() {
+		return getLatencyHistogram(null, true).getPercentiles();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterStatistics#getEventQueueWaitTimePercentiles(javax.slee.EventTypeID)
+	 */
+	public long[] getEventQueueWaitTimePercentiles(EventTypeID eventTypeID) {
+		return getLatencyHistogram(eventTypeID, true).getPercentiles();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterStatistics#getEventQueueWaitTimePercentiles(int)
+	 */
+	public long[] getEventQueueWaitTimePercentiles(int executor) {
+		return getPercentiles(executor, null, true);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventRouterStatistics#getEventQueueWaitTimePercentiles(int, javax.slee.EventTypeID)
+	 */
+	public long[] getEventQueueWaitTimePercentiles(int executor, EventTypeID eventTypeID) {
+		return getPercentiles(executor, eventTypeID, true);
+	}
+	
 	/* (non-Javadoc)
 	 * @see org.mobicents.slee.runtime.eventrouter.stats.EventRouterStatisticsMBean#getEventsRouted(javax.slee.EventTypeID)
 	 */
@@ -260,6 +377,8 @@ public class EventRouterStatisticsImpl implements EventRouterStatistics {
 		sb.append("Global Statistics\n");
 		sb.append("\tActivities mapped: ").append(getActivitiesMapped()).append('\n');
 		sb.append("\tAverage event routing time: ").append(getAverageEventRoutingTime()).append('\n');
+		sb.append("\tEvent routing time: ").append(getLatencyHistogram(null, false)).append('\n');
+		sb.append("\tEvent queue wait time: ").append(getLatencyHistogram(null, true)).append('\n');
 		sb.append("\tExecuted Tasks: ").append(getExecutedTasks()).append('\n');
 		sb.append("\tMisc Tasks Executed: ").append(getMiscTasksExecuted()).append('\n');
 		sb.append("\tWorking Queue Size: ").append(getWorkingQueueSize()).append('\n');
@@ -269,6 +388,8 @@ public class EventRouterStatisticsImpl implements EventRouterStatistics {
 			sb.append("\tAverage event routing time: ").append(getAverageEventRoutingTime(eventTypeID)).append('\n');
 			sb.append("\tEvent routing time: ").append(getRoutingTime(eventTypeID)).append('\n');
 			sb.append("\tEvents routed: ").append(getEventsRouted(eventTypeID)).append('\n');
+			sb.append("\tEvent routing time: ").append(getLatencyHistogram(eventTypeID, false)).append('\n');
+			sb.append("\tEvent queue wait time: ").append(getLatencyHistogram(eventTypeID, true)).append('\n');
 		}
 		for (int i = 0; i < getExecutors().length; i++) {
 			sb.append("\nExecutor ").append(i).append(" statistics:\n");
@@ -29,13 +29,13 @@ import javax.slee.EventTypeID;
 
 import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
 import org.mobicents.slee.container.eventrouter.stats.EventTypeRoutingStatistics;
+import org.mobicents.slee.container.eventrouter.stats.LatencyHistogram;
 
 /**
- * Impl of {@link EventRouterExecutorStatistics}. This class is not thread safe
- * due to performance overhead introduced when collecting stats, i.e., errors in
- * values due to multiple threads accessing the statistics state are not
- * important. Note that stats updates are not concurrent, each instance belongs
- * and is used by a single {@link EventRouterExecutorStatisticsImpl}.
+ * Impl of {@link EventRouterExecutorStatistics}. Note that stats updates are
+ * not concurrent, each instance belongs and is used by a single
+ * {@link EventRouterExecutorStatisticsImpl}, yet values may be safely read by
+ * other threads.
  * 
  * @author martins
  * 
@@ -44,8 +44,10 @@ public class EventTypeRoutingStatisticsImpl implements
 		EventTypeRoutingStatistics {
 
 	private final EventTypeID eventTypeID;
-	private long eventsRouted = 0L;
-	private long routingTime = 0L;
+	private volatile long eventsRouted = 0L;
+	private volatile long routingTime = 0L;
+	private final LatencyHistogramImpl routingTimeHistogram = new LatencyHistogramImpl();
+	private final LatencyHistogramImpl queueWaitTimeHistogram = new LatencyHistogramImpl();
 
 	/**
 	 * 
@@ -58,14 +60,21 @@ public class EventTypeRoutingStatisticsImpl implements
 	}
 
 	/**
-	 * Adds the time for an event routing.
+	 * Adds the times for an event routing.
 	 * 
+	 * @param queueWaitTime
+	 *            the time the event waited in the executor's queue, in nanos,
+	 *            negative if unknown
 	 * @param routingTime
 	 *            the time spent to route the event, in nanos
 	 */
-	public void eventRouted(long routingTime) {
+	public void eventRouted(long queueWaitTime, long routingTime) {
 		this.eventsRouted++;
 		this.routingTime += routingTime;
+		routingTimeHistogram.record(routingTime);
+		if (queueWaitTime >= 0L) {
+			queueWaitTimeHistogram.record(queueWaitTime);
+		}
 	}
 
 	/*
@@ -73,7 +82,24 @@ public class EventTypeRoutingStatisticsImpl implements
 	 * @see org.mobicents.slee.container.eventrouter.stats.EventTypeRoutingStatistics#getAverageEventRoutingTime()
 	 */
 	public long getAverageEventRoutingTime() {
-		return routingTime == 0L ? 0L : routingTime / eventsRouted;
+		final long events = eventsRouted;
+		return events == 0L ? 0L : routingTime / events;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventTypeRoutingStatistics#getRoutingTimeHistogram()
+	 */
+	public LatencyHistogram getRoutingTimeHistogram() {
+		return routingTimeHistogram;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.EventTypeRoutingStatistics#getQueueWaitTimeHistogram()
+	 */
+	public LatencyHistogram getQueueWaitTimeHistogram() {
+		return queueWaitTimeHistogram;
 	}
 	
 	/*
@@ -142,6 +168,6 @@ public class EventTypeRoutingStatisticsImpl implements
 	 */
 	@Override
 	public String toString() {
-		return eventTypeID+" routing statistics: EVENTS = "+eventsRouted+", TIME = "+routingTime+", AVERAGE "+getAverageEventRoutingTime();
+		return eventTypeID+" routing statistics: EVENTS = "+eventsRouted+", TIME = "+routingTime+", AVERAGE "+getAverageEventRoutingTime()+"\n\tROUTING TIME: "+routingTimeHistogram+"\n\tQUEUE WAIT TIME: "+queueWaitTimeHistogram;
 	}
 }
@@ -0,0 +1,206 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.eventrouter.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.mobicents.slee.container.eventrouter.stats.LatencyHistogram;
+
+/**
+ * Impl of {@link LatencyHistogram}, with fixed size log-linear buckets, in the
+ * same fashion of HDR histograms: times up to 31 nanos are exact, higher
+ * times are split by power of 2 magnitude, each in 16 linear sub buckets,
+ * which keeps the error under 1/16 of the time. Times higher than 2^40 nanos
+ * (around 18 minutes) are accounted in the last bucket.
+ * 
+ * Recording a time is allocation free and lock free, and the histogram may be
+ * read concurrently, e.g. through JMX.
+ * 
+ * @author martins
+ * 
+ */
+public class LatencyHistogramImpl implements LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int EXACT_VALUES = SUB_BUCKETS << 1;
+	private static final int MAX_MAGNITUDE = 39;
+	private static final long MAX_TRACKABLE_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+	static final int BUCKETS = EXACT_VALUES + (MAX_MAGNITUDE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private static final double[] PERCENTILES = { 50d, 90d, 99d, 99.9d };
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong maxValue = new AtomicLong();
+
+	/**
+	 * Records the specified time.
+	 * 
+	 * @param value
+	 *            the time in nanos
+	 */
+	public void record(long value) {
+		if (value < 0L) {
+			value = 0L;
+		}
+		counts.incrementAndGet(bucketIndex(value));
+		count.incrementAndGet();
+		updateMaxValue(value);
+	}
+
+	/**
+	 * Adds all times recorded in the specified histogram to this one.
+	 * 
+	 * @param other
+	 */
+	public void add(LatencyHistogramImpl other) {
+		long value;
+		for (int i = 0; i < BUCKETS; i++) {
+			value = other.counts.get(i);
+			if (value != 0L) {
+				counts.addAndGet(i, value);
+			}
+		}
+		count.addAndGet(other.count.get());
+		updateMaxValue(other.maxValue.get());
+	}
+
+	private void updateMaxValue(long value) {
+		long current;
+		while (value > (current = maxValue.get())) {
+			if (maxValue.compareAndSet(current, value)) {
+				return;
+			}
+		}
+	}
+
+	static int bucketIndex(long value) {
+		if (value < EXACT_VALUES) {
+			return (int) value;
+		}
+		if (value > MAX_TRACKABLE_VALUE) {
+			value = MAX_TRACKABLE_VALUE;
+		}
+		final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = magnitude - SUB_BUCKET_BITS;
+		final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+		return EXACT_VALUES + (magnitude - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long highestValueInBucket(int index) {
+		if (index < EXACT_VALUES) {
+			return index;
+		}
+		final int magnitude = (index - EXACT_VALUES) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+		final int subBucket = (index - EXACT_VALUES) % SUB_BUCKETS;
+		final int shift = magnitude - SUB_BUCKET_BITS;
+		return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.LatencyHistogram#getCount()
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.LatencyHistogram#getMaxValue()
+	 */
+	public long getMaxValue() {
+		return maxValue.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.LatencyHistogram#getValueAtPercentile(double)
+	 */
+	public long getValueAtPercentile(double percentile) {
+		// snapshot the counts, those may be updated while reading
+		final long[] snapshot = new long[BUCKETS];
+		long total = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		return getValueAtPercentile(snapshot, total, percentile);
+	}
+
+	private long getValueAtPercentile(long[] snapshot, long total, double percentile) {
+		if (total == 0L) {
+			return 0L;
+		}
+		if (percentile > 100d) {
+			percentile = 100d;
+		}
+		long target = (long) Math.ceil((percentile / 100d) * total);
+		if (target < 1L) {
+			target = 1L;
+		}
+		final long max = maxValue.get();
+		long accumulated = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			accumulated += snapshot[i];
+			if (accumulated >= target) {
+				final long value = highestValueInBucket(i);
+				return value > max ? max : value;
+			}
+		}
+		return max;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.eventrouter.stats.LatencyHistogram#getPercentiles()
+	 */
+	public long[] getPercentiles() {
+		final long[] snapshot = new long[BUCKETS];
+		long total = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		final long[] result = new long[PERCENTILES.length + 1];
+		for (int i = 0; i < PERCENTILES.length; i++) {
+			result[i] = getValueAtPercentile(snapshot, total, PERCENTILES[i]);
+		}
+		result[PERCENTILES.length] = total == 0L ? 0L : maxValue.get();
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		final long[] percentiles = getPercentiles();
+		return "COUNT = " + getCount() + ", P50 = " + percentiles[0]
+				+ ", P90 = " + percentiles[1] + ", P99 = " + percentiles[2]
+				+ ", P99.9 = " + percentiles[3] + ", MAX = " + percentiles[4];
+	}
+}
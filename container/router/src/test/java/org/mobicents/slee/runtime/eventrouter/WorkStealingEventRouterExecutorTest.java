@@ -0,0 +1,254 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.eventrouter;
+
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.slee.ActivityContextInterface;
+import javax.slee.Address;
+import javax.slee.EventTypeID;
+import javax.slee.ServiceID;
+import javax.slee.resource.FailureReason;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.SleeContainer;
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.activity.LocalActivityContext;
+import org.mobicents.slee.container.component.service.ServiceComponent;
+import org.mobicents.slee.container.event.EventContext;
+import org.mobicents.slee.container.event.EventContextHandle;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.container.eventrouter.EventRoutingTask;
+import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
+import org.mobicents.slee.container.management.jmx.EventRouterConfiguration;
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+import org.mobicents.slee.runtime.eventrouter.mapping.WorkStealingEventRouterExecutorMapper;
+import org.mobicents.slee.runtime.eventrouter.routingtask.EventRoutingTaskImpl;
+
+public class WorkStealingEventRouterExecutorTest extends TestCase {
+
+	private static final EventTypeID EVENT_TYPE_ID = new EventTypeID("name",
+			"vendor", "1.0");
+
+	private WorkStealingEventRouterExecutorMapper mapper;
+	private EventRouterExecutor[] executors;
+
+	@Override
+	protected void setUp() throws Exception {
+		// the routing task logic gets the event router configuration from
+		// the container
+		new SleeContainer(null, null, null, null, null, null, null, null,
+				null, new EventRouterImpl(new EventRouterConfiguration()),
+				null, null, null, null, null, null, null, null, null, null,
+				null, null, null, null, null, null)
+				.beforeModulesInitialization();
+		mapper = new WorkStealingEventRouterExecutorMapper();
+		executors = mapper.createExecutors(1, true, null);
+		mapper.setExecutors(executors);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (EventRouterExecutor executor : executors) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Routes events with pooled contexts, released once the routing ends,
+	 * and ensures the stats do not use the released contexts.
+	 * 
+	 * @throws Exception
+	 */
+	public void testPooledEventContextWithStats() throws Exception {
+		final EventRouterExecutor executor = mapper
+				.getExecutor(new TestActivityContextHandle(1));
+		final int events = 100;
+		for (int i = 0; i < events; i++) {
+			final PooledEventContext eventContext = new PooledEventContext();
+			executor.execute(new EventRoutingTaskImpl(eventContext, null) {
+				@Override
+				public void run() {
+					eventContext.release();
+				}
+			});
+			final PooledEventContext otherEventContext = new PooledEventContext();
+			executor.execute(new EventRoutingTask() {
+				public EventContext getEventContext() {
+					return otherEventContext;
+				}
+
+				public void run() {
+					otherEventContext.release();
+				}
+			});
+		}
+		// the executor is still alive and runs the queue till the end
+		final CountDownLatch executed = new CountDownLatch(1);
+		executor.execute(new Runnable() {
+			public void run() {
+				executed.countDown();
+			}
+		});
+		assertTrue("executor stopped", executed.await(10, TimeUnit.SECONDS));
+		final EventRouterExecutorStatistics stats = executor.getStatistics();
+		// the stats of the last task are recorded after it runs
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (stats.getMiscTasksExecuted() == 0
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(2 * events, stats.getEventsRouted(EVENT_TYPE_ID));
+		assertEquals(1, stats.getMiscTasksExecuted());
+	}
+
+	/**
+	 * Simulates an event context of the pool, in debug mode, failing any
+	 * access after it is released.
+	 */
+	private static class PooledEventContext implements EventContext {
+
+		private volatile boolean released;
+
+		void release() {
+			released = true;
+		}
+
+		private void checkNotReleased() {
+			if (released) {
+				throw new IllegalStateException("event context released");
+			}
+		}
+
+		public EventTypeID getEventTypeId() {
+			checkNotReleased();
+			return EVENT_TYPE_ID;
+		}
+
+		public void barrierEvent(EventContext eventContext) {
+			checkNotReleased();
+		}
+
+		public void eventProcessingFailed(FailureReason reason) {
+			checkNotReleased();
+		}
+
+		public void eventProcessingSucceed(boolean sbbProcessedEvent) {
+			checkNotReleased();
+		}
+
+		public LinkedList<ServiceComponent> getActiveServicesToProcessEventAsInitial() {
+			checkNotReleased();
+			return null;
+		}
+
+		public ActivityContextHandle getActivityContextHandle() {
+			checkNotReleased();
+			return null;
+		}
+
+		public Address getAddress() {
+			checkNotReleased();
+			return null;
+		}
+
+		public Object getEvent() {
+			checkNotReleased();
+			return null;
+		}
+
+		public EventContextHandle getEventContextHandle() {
+			checkNotReleased();
+			return null;
+		}
+
+		public LocalActivityContext getLocalActivityContext() {
+			checkNotReleased();
+			return null;
+		}
+
+		public Set<SbbEntityID> getSbbEntitiesThatHandledEvent() {
+			checkNotReleased();
+			return null;
+		}
+
+		public ServiceID getService() {
+			checkNotReleased();
+			return null;
+		}
+
+		public boolean isActivityEndEvent() {
+			checkNotReleased();
+			return false;
+		}
+
+		public boolean isSuspendedNotTransacted() {
+			checkNotReleased();
+			return false;
+		}
+
+		public boolean routedRequiresTransaction() {
+			checkNotReleased();
+			return false;
+		}
+
+		public void routed() {
+			checkNotReleased();
+		}
+
+		public void canceled() {
+			checkNotReleased();
+		}
+
+		public void fired() {
+			checkNotReleased();
+		}
+
+		public ActivityContextInterface getActivityContextInterface() {
+			checkNotReleased();
+			return null;
+		}
+
+		public void suspendDelivery() {
+			checkNotReleased();
+		}
+
+		public void suspendDelivery(int timeout) {
+			checkNotReleased();
+		}
+
+		public void resumeDelivery() {
+			checkNotReleased();
+		}
+
+		public boolean isSuspended() {
+			checkNotReleased();
+			return false;
+		}
+	}
+
+}
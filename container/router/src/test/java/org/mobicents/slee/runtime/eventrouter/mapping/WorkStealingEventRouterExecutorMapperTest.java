@@ -0,0 +1,140 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.eventrouter.mapping;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.runtime.eventrouter.TestActivityContextHandle;
+
+public class WorkStealingEventRouterExecutorMapperTest extends TestCase {
+
+	private static final int EXECUTORS = 4;
+
+	private WorkStealingEventRouterExecutorMapper mapper;
+	private EventRouterExecutor[] executors;
+
+	@Override
+	protected void setUp() throws Exception {
+		mapper = new WorkStealingEventRouterExecutorMapper();
+		executors = mapper.createExecutors(EXECUTORS, false, null);
+		mapper.setExecutors(executors);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (EventRouterExecutor executor : executors) {
+			executor.shutdown();
+		}
+	}
+
+	public void testSameExecutorForSameActivity() {
+		for (int i = 0; i < 1000; i++) {
+			assertSame(mapper.getExecutor(new TestActivityContextHandle(i)),
+					mapper.getExecutor(new TestActivityContextHandle(i)));
+		}
+	}
+
+	public void testOrderingPerActivity() throws Exception {
+		final int activities = 64;
+		final int tasksPerActivity = 2000;
+		final int[] lastValues = new int[activities];
+		final AtomicInteger failures = new AtomicInteger(0);
+		final CountDownLatch done = new CountDownLatch(activities
+				* tasksPerActivity);
+		final Thread[] producers = new Thread[EXECUTORS];
+		for (int i = 0; i < producers.length; i++) {
+			final int producer = i;
+			producers[i] = new Thread() {
+				public void run() {
+					for (int j = 1; j <= tasksPerActivity; j++) {
+						for (int k = producer; k < activities; k += EXECUTORS) {
+							final int activity = k;
+							final int value = j;
+							mapper.getExecutor(
+									new TestActivityContextHandle(activity))
+									.execute(new Runnable() {
+										public void run() {
+											if (lastValues[activity] != value - 1) {
+												failures.incrementAndGet();
+											}
+											lastValues[activity] = value;
+											done.countDown();
+										}
+									});
+						}
+					}
+				}
+			};
+			producers[i].start();
+		}
+		assertTrue("tasks not executed", done.await(30, TimeUnit.SECONDS));
+		assertEquals("tasks of an activity executed out of order", 0,
+				failures.get());
+	}
+
+	public void testStealingFromBusyExecutor() throws Exception {
+		final CountDownLatch stolenTasksDone = new CountDownLatch(100);
+		final AtomicReference<Thread> busyThread = new AtomicReference<Thread>();
+		final AtomicReference<Thread> stealingThread = new AtomicReference<Thread>();
+		final CountDownLatch busyTaskDone = new CountDownLatch(1);
+		final AtomicInteger stolen = new AtomicInteger(0);
+		executors[0].execute(new Runnable() {
+			public void run() {
+				final Thread thread = Thread.currentThread();
+				busyThread.set(thread);
+				// the activity with this handle is mapped to the executor
+				// running this task
+				final String[] name = thread.getName().split("-");
+				final int index = Integer.parseInt(name[2]);
+				final EventRouterExecutor activityExecutor = mapper
+						.getExecutor(new TestActivityContextHandle(index));
+				for (int i = 0; i < 100; i++) {
+					activityExecutor.execute(new Runnable() {
+						public void run() {
+							stealingThread.set(Thread.currentThread());
+							stolen.incrementAndGet();
+							stolenTasksDone.countDown();
+						}
+					});
+				}
+				try {
+					// blocks the executor till the tasks are done
+					stolenTasksDone.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				busyTaskDone.countDown();
+			}
+		});
+		assertTrue("busy task not done", busyTaskDone.await(15, TimeUnit.SECONDS));
+		assertEquals("tasks of busy executor not stolen", 100, stolen.get());
+		assertNotSame(busyThread.get(), stealingThread.get());
+	}
+
+}
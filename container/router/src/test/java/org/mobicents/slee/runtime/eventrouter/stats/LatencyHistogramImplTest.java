@@ -0,0 +1,209 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.eventrouter.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link LatencyHistogramImpl}.
+ * 
+ * @author martins
+ *
+ */
+public class LatencyHistogramImplTest extends TestCase {
+
+	/**
+	 * the highest time not accounted in the overflow bucket, 2^40-1 nanos
+	 */
+	private static final long MAX_TRACKABLE_VALUE = (1L << 40) - 1;
+
+	public void testExactBuckets() {
+		for (long value = 0; value < 32; value++) {
+			final int index = LatencyHistogramImpl.bucketIndex(value);
+			assertEquals(value, index);
+			assertEquals(value, LatencyHistogramImpl.highestValueInBucket(index));
+		}
+	}
+
+	public void testBucketBoundaries() {
+		assertEquals(32, LatencyHistogramImpl.bucketIndex(32));
+		assertEquals(33, LatencyHistogramImpl.highestValueInBucket(32));
+		assertEquals(47, LatencyHistogramImpl.bucketIndex(63));
+		assertEquals(48, LatencyHistogramImpl.bucketIndex(64));
+		// each bucket starts after the previous one ends, and its width is
+		// under 1/16 of its values
+		for (int index = 32; index < LatencyHistogramImpl.BUCKETS; index++) {
+			final long lowest = LatencyHistogramImpl.highestValueInBucket(index - 1) + 1;
+			final long highest = LatencyHistogramImpl.highestValueInBucket(index);
+			assertTrue(highest >= lowest);
+			assertEquals(index, LatencyHistogramImpl.bucketIndex(lowest));
+			assertEquals(index, LatencyHistogramImpl.bucketIndex(highest));
+			assertEquals(index - 1, LatencyHistogramImpl.bucketIndex(lowest - 1));
+			assertTrue(highest - lowest <= lowest / 16);
+		}
+		assertEquals(MAX_TRACKABLE_VALUE, LatencyHistogramImpl.highestValueInBucket(LatencyHistogramImpl.BUCKETS - 1));
+	}
+
+	public void testOverflowBucket() {
+		final int lastBucket = LatencyHistogramImpl.BUCKETS - 1;
+		assertEquals(lastBucket, LatencyHistogramImpl.bucketIndex(MAX_TRACKABLE_VALUE));
+		assertEquals(lastBucket, LatencyHistogramImpl.bucketIndex(MAX_TRACKABLE_VALUE + 1));
+		assertEquals(lastBucket, LatencyHistogramImpl.bucketIndex(Long.MAX_VALUE));
+		final LatencyHistogramImpl histogram = new LatencyHistogramImpl();
+		histogram.record(10);
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(2, histogram.getCount());
+		// the max is exact, percentiles are capped by the overflow bucket
+		assertEquals(Long.MAX_VALUE, histogram.getMaxValue());
+		assertEquals(10, histogram.getValueAtPercentile(50d));
+		assertEquals(MAX_TRACKABLE_VALUE, histogram.getValueAtPercentile(100d));
+		assertEquals(Long.MAX_VALUE, histogram.getPercentiles()[4]);
+	}
+
+	public void testEmpty() {
+		final LatencyHistogramImpl histogram = new LatencyHistogramImpl();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMaxValue());
+		assertEquals(0, histogram.getValueAtPercentile(50d));
+		for (long value : histogram.getPercentiles()) {
+			assertEquals(0, value);
+		}
+	}
+
+	public void testZeroAndNegativeValues() {
+		final LatencyHistogramImpl histogram = new LatencyHistogramImpl();
+		histogram.record(0);
+		histogram.record(-5);
+		assertEquals(2, histogram.getCount());
+		assertEquals(0, histogram.getMaxValue());
+		assertEquals(0, histogram.getValueAtPercentile(50d));
+		assertEquals(0, histogram.getValueAtPercentile(100d));
+	}
+
+	public void testMaxValue() {
+		final LatencyHistogramImpl histogram = new LatencyHistogramImpl();
+		histogram.record(1000);
+		histogram.record(5);
+		assertEquals(1000, histogram.getMaxValue());
+		// the percentile is never higher than the max recorded
+		assertEquals(1000, histogram.getValueAtPercentile(100d));
+		assertEquals(1000, histogram.getValueAtPercentile(200d));
+		assertEquals(5, histogram.getValueAtPercentile(0d));
+	}
+
+	public void testPercentiles() {
+		final LatencyHistogramImpl histogram = new LatencyHistogramImpl();
+		final int count = 10000;
+		for (int value = 1; value <= count; value++) {
+			histogram.record(value);
+		}
+		assertEquals(count, histogram.getCount());
+		assertEquals(count, histogram.getMaxValue());
+		final double[] percentiles = { 1d, 50d, 90d, 99d, 99.9d, 100d };
+		for (double percentile : percentiles) {
+			final long exact = (long) Math.ceil(percentile * count / 100d);
+			final long value = histogram.getValueAtPercentile(percentile);
+			assertTrue(percentile + " -> " + value, value >= exact);
+			assertTrue(percentile + " -> " + value, value <= exact + exact / 16);
+		}
+		final long[] values = histogram.getPercentiles();
+		assertEquals(5, values.length);
+		assertEquals(histogram.getValueAtPercentile(50d), values[0]);
+		assertEquals(histogram.getValueAtPercentile(90d), values[1]);
+		assertEquals(histogram.getValueAtPercentile(99d), values[2]);
+		assertEquals(histogram.getValueAtPercentile(99.9d), values[3]);
+		assertEquals(count, values[4]);
+		assertEquals("COUNT = " + count + ", P50 = " + values[0] + ", P90 = "
+				+ values[1] + ", P99 = " + values[2] + ", P99.9 = " + values[3]
+				+ ", MAX = " + count, histogram.toString());
+	}
+
+	public void testAdd() {
+		final LatencyHistogramImpl histogram1 = new LatencyHistogramImpl();
+		final LatencyHistogramImpl histogram2 = new LatencyHistogramImpl();
+		for (int i = 0; i < 10; i++) {
+			histogram1.record(10);
+			histogram2.record(1000);
+		}
+		histogram2.record(5000);
+		histogram1.add(histogram2);
+		assertEquals(21, histogram1.getCount());
+		assertEquals(5000, histogram1.getMaxValue());
+		assertEquals(10, histogram1.getValueAtPercentile(40d));
+		assertTrue(histogram1.getValueAtPercentile(90d) >= 1000);
+		// the added histogram is not changed
+		assertEquals(11, histogram2.getCount());
+	}
+
+	public void testConcurrentRecording() throws Exception {
+		final LatencyHistogramImpl histogram = new LatencyHistogramImpl();
+		final int threads = 4;
+		final int records = 100000;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final CountDownLatch start = new CountDownLatch(1);
+			final List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (int i = 0; i < threads; i++) {
+				final int thread = i;
+				results.add(executor.submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						start.await();
+						for (int j = 0; j < records; j++) {
+							histogram.record(j % 100);
+						}
+						histogram.record(1000 + thread);
+						return null;
+					}
+				}));
+			}
+			start.countDown();
+			// reads are allowed while recording
+			while (histogram.getCount() < threads * records) {
+				assertTrue(histogram.getValueAtPercentile(50d) <= 1000 + threads);
+			}
+			for (Future<Void> result : results) {
+				result.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		final long total = threads * (records + 1L);
+		assertEquals(total, histogram.getCount());
+		assertEquals(1000 + threads - 1, histogram.getMaxValue());
+		// no record lost, the counts of the buckets match the total
+		assertEquals(1000 + threads - 1, histogram.getValueAtPercentile(100d));
+		assertEquals(99, histogram.getValueAtPercentile(100d * (total - threads) / total));
+		// the median is 50, reported as the highest value of its bucket
+		assertEquals(LatencyHistogramImpl.highestValueInBucket(LatencyHistogramImpl.bucketIndex(50)), histogram.getValueAtPercentile(50d));
+	}
+
+}
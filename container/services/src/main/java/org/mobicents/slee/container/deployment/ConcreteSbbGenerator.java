@@ -53,6 +53,7 @@ import org.mobicents.slee.container.activity.ActivityContextInterface;
 import org.mobicents.slee.container.component.ClassPool;
 import org.mobicents.slee.container.component.sbb.AbstractSbbClassInfo;
 import org.mobicents.slee.container.component.sbb.CMPFieldDescriptor;
+import org.mobicents.slee.container.component.sbb.CMPFieldsLayout;
 import org.mobicents.slee.container.component.sbb.EventEntryDescriptor;
 import org.mobicents.slee.container.component.sbb.GetChildRelationMethodDescriptor;
 import org.mobicents.slee.container.component.sbb.GetProfileCMPMethodDescriptor;
@@ -85,6 +86,11 @@ public class ConcreteSbbGenerator {
 	 */
 	private Boolean initializeReferenceDataTypesWithNull = false;
 
+	/**
+	 * configuration from bean, if true cmp fields are accessed by slot
+	 */
+	private Boolean compactCMPFieldStorage = false;
+
 	/**
 	 * the sbb component
 	 */
@@ -140,6 +146,14 @@ public class ConcreteSbbGenerator {
 		catch (Exception e) {
 			logger.error("InitializeReferenceDataTypesWithNull is not configured in jboss-beans.xml. Exception message: " + e.getMessage());
 		}
+		try {
+			MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+			this.compactCMPFieldStorage = (Boolean) mbeanServer.
+				getAttribute(new ObjectName(MobicentsManagementMBean.OBJECT_NAME), "CompactCMPFieldStorage");
+		}
+		catch (Exception e) {
+			logger.error("CompactCMPFieldStorage is not configured. Exception message: " + e.getMessage());
+		}
 
 		this.sbbComponent = sbbComponent;
 		this.deployDir = sbbComponent.getDeploymentDir().getAbsolutePath();
@@ -708,6 +722,11 @@ public class ConcreteSbbGenerator {
 	protected void createCMPAccessors(Collection<CMPFieldDescriptor> cmps)
 			throws DeploymentException {
 
+		// in compact storage each cmp field gets a slot, by order
+		final String[] slotNames = new String[cmps.size()];
+		final char[] slotTypes = new char[cmps.size()];
+		int slot = 0;
+		
 		for (CMPFieldDescriptor cmp : cmps) {
 			String fieldName = cmp.getCmpFieldName();
 			// Set the first char of the accessor to UpperCase to follow the
@@ -733,6 +752,8 @@ public class ConcreteSbbGenerator {
 			String setterHandlerMethodName = "setCMPFieldOfType";
 			try {
 				CtClass ctClassCmpType = getterMethod.getReturnType();
+				slotNames[slot] = cmp.getCmpFieldName();
+				slotTypes[slot] = CMPFieldsLayout.getTypeDescriptor(ctClassCmpType.getName());
 				if (ctClassCmpType.isPrimitive()) {
 					// boolean, byte, char, short, int, long, float, double
 					String ctClassCmpTypeName = ctClassCmpType.getName();
@@ -830,6 +851,22 @@ public class ConcreteSbbGenerator {
 				throw new SLEEException("Cannot determine the cmp type for cmp field named "+fieldName, cce);
 			}
 			
+			// the handler methods identify the field by name, or by slot
+			final String cmpFieldRef;
+			if (compactCMPFieldStorage) {
+				cmpFieldRef = String.valueOf(slot);
+				if (slotTypes[slot] != CMPFieldsLayout.TYPE_REFERENCE) {
+					// primitive values are not boxed
+					getterHandlerMethodName = getterHandlerMethodName.replace("getCMPFieldOfType", "getPrimitiveCMPFieldOfType");
+					getterHandlerMethodNeedResultCast = false;
+					setterHandlerMethodName = "setPrimitiveCMPField";
+				}
+			}
+			else {
+				cmpFieldRef = "\"" + cmp.getCmpFieldName() + "\"";
+			}
+			slot++;
+			
 			try {
 				// copy method from abstract to concrete class
 				CtMethod concreteGetterMethod = CtNewMethod.copy(getterMethod,
@@ -841,7 +878,7 @@ public class ConcreteSbbGenerator {
 				String concreteGetterMethodBody = "{ "
 						+ "if (sbbEntity == null) "
 						+ "    throw new TransactionRequiredLocalException(\"Cannot get CMP field. SBB entity is null\");"
-						+ "return " + ( getterHandlerMethodNeedResultCast ? "($r)" : "") + SbbAbstractMethodHandler.class.getName() + "." + getterHandlerMethodName+ "(sbbEntity,\"" + cmp.getCmpFieldName() + "\");"
+						+ "return " + ( getterHandlerMethodNeedResultCast ? "($r)" : "") + SbbAbstractMethodHandler.class.getName() + "." + getterHandlerMethodName+ "(sbbEntity," + cmpFieldRef + ");"
 						+ " }";
 				if (logger.isTraceEnabled()) {
 		            logger.trace("Generated method " + getterMethodName
@@ -878,8 +915,8 @@ public class ConcreteSbbGenerator {
 						+ "if (sbbEntity == null) "
 						+ "    throw new TransactionRequiredLocalException(\"Cannot set CMP field. SBB entity is null\");"
 						+ SbbAbstractMethodHandler.class.getName()
-						+ "."+setterHandlerMethodName+"(sbbEntity,\"" + cmp.getCmpFieldName()
-						+ "\",$1); }";
+						+ "."+setterHandlerMethodName+"(sbbEntity," + cmpFieldRef
+						+ ",$1); }";
 				if (logger.isTraceEnabled()) {
 		            logger.trace("Generated method " + setterMethodName
 							+ " , body = " + concreteSetterMethodBody);
@@ -892,6 +929,7 @@ public class ConcreteSbbGenerator {
 			}
 		}
 
+		sbbComponent.setCMPFieldsLayout(compactCMPFieldStorage ? new CMPFieldsLayout(slotNames, slotTypes) : null);
 	}
 
 	private String getEventTypeIDInstantionString(EventEntryDescriptor mEventEntry) {
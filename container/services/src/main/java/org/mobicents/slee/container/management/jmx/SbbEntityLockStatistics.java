@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.slee.runtime.sbbentity.SbbEntityFactoryImpl;
+import org.mobicents.slee.runtime.sbbentity.SbbEntityLockFacility;
+import org.mobicents.slee.runtime.sbbentity.StripedSbbEntityLockFacility;
+
+/**
+ * 
+ * @author martins
+ * 
+ */
+public class SbbEntityLockStatistics implements SbbEntityLockStatisticsMBean {
+
+	private final SbbEntityFactoryImpl sbbEntityFactory;
+
+	public SbbEntityLockStatistics(SbbEntityFactoryImpl sbbEntityFactory) {
+		this.sbbEntityFactory = sbbEntityFactory;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.SbbEntityLockStatisticsMBean#getLockStripes()
+	 */
+	public int getLockStripes() {
+		final SbbEntityLockFacility lockFacility = sbbEntityFactory.getLockFacility();
+		return lockFacility instanceof StripedSbbEntityLockFacility ? lockFacility.getLocksCount() : 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.SbbEntityLockStatisticsMBean#getLocks()
+	 */
+	public int getLocks() {
+		final SbbEntityLockFacility lockFacility = sbbEntityFactory.getLockFacility();
+		return lockFacility == null ? 0 : lockFacility.getLocksCount();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.SbbEntityLockStatisticsMBean#getLockAcquisitions()
+	 */
+	public long getLockAcquisitions() {
+		final SbbEntityLockFacility lockFacility = sbbEntityFactory.getLockFacility();
+		return lockFacility == null ? 0 : lockFacility.getAcquisitions();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.SbbEntityLockStatisticsMBean#getContendedLockAcquisitions()
+	 */
+	public long getContendedLockAcquisitions() {
+		final SbbEntityLockFacility lockFacility = sbbEntityFactory.getLockFacility();
+		return lockFacility == null ? 0 : lockFacility.getContendedAcquisitions();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.SbbEntityLockStatisticsMBean#getLockTimeouts()
+	 */
+	public long getLockTimeouts() {
+		final SbbEntityLockFacility lockFacility = sbbEntityFactory.getLockFacility();
+		return lockFacility == null ? 0 : lockFacility.getTimeouts();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.SbbEntityLockStatisticsMBean#getLockWaitTime()
+	 */
+	public long getLockWaitTime() {
+		final SbbEntityLockFacility lockFacility = sbbEntityFactory.getLockFacility();
+		return lockFacility == null ? 0 : TimeUnit.NANOSECONDS.toMillis(lockFacility.getWaitTime());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.SbbEntityLockStatisticsMBean#getMaxLockWaitTime()
+	 */
+	public long getMaxLockWaitTime() {
+		final SbbEntityLockFacility lockFacility = sbbEntityFactory.getLockFacility();
+		return lockFacility == null ? 0 : TimeUnit.NANOSECONDS.toMillis(lockFacility.getMaxWaitTime());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.SbbEntityLockStatisticsMBean#resetStatistics()
+	 */
+	public void resetStatistics() {
+		final SbbEntityLockFacility lockFacility = sbbEntityFactory.getLockFacility();
+		if (lockFacility != null) {
+			lockFacility.resetStatistics();
+		}
+	}
+
+}
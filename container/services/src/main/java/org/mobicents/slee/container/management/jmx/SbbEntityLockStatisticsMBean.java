@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+/**
+ * JMX interface for the sbb entity lock statistics.
+ * @author martins
+ *
+ */
+public interface SbbEntityLockStatisticsMBean {
+
+	public static final String OBJECT_NAME = "org.mobicents.slee:name=SbbEntityLockStatistics";
+
+	/**
+	 * Retrieves the number of striped sbb entity locks, 0 if a lock is kept
+	 * per sbb entity.
+	 * 
+	 * @return
+	 */
+	public int getLockStripes();
+
+	/**
+	 * Retrieves the number of sbb entity lock objects currently held.
+	 * 
+	 * @return
+	 */
+	public int getLocks();
+
+	/**
+	 * Retrieves the number of sbb entity locks acquired.
+	 * 
+	 * @return
+	 */
+	public long getLockAcquisitions();
+
+	/**
+	 * Retrieves the number of sbb entity lock acquisitions which had to wait
+	 * for the lock to be released by another thread.
+	 * 
+	 * @return
+	 */
+	public long getContendedLockAcquisitions();
+
+	/**
+	 * Retrieves the number of sbb entity lock acquisitions which timed out.
+	 * 
+	 * @return
+	 */
+	public long getLockTimeouts();
+
+	/**
+	 * Retrieves the total time, in milliseconds, waited to acquire sbb entity
+	 * locks.
+	 * 
+	 * @return
+	 */
+	public long getLockWaitTime();
+
+	/**
+	 * Retrieves the max time, in milliseconds, waited to acquire a sbb entity
+	 * lock.
+	 * 
+	 * @return
+	 */
+	public long getMaxLockWaitTime();
+
+	/**
+	 * Resets the sbb entity lock statistics.
+	 */
+	public void resetStatistics();
+
+}
@@ -0,0 +1,403 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.sbb;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.pool.ObjectPool;
+import org.apache.commons.pool.PoolableObjectFactory;
+import org.apache.log4j.Logger;
+import org.mobicents.slee.container.SleeThreadLocals;
+
+/**
+ * An {@link ObjectPool} which does not use any lock on borrow and return.
+ * Each event router executor thread keeps a small private free list, backed
+ * by a lock-free stack shared by all threads, which receives the objects that
+ * do not fit in the private list. Other threads, which may be short lived,
+ * only use the shared stack. Idle objects are not evicted, and if the max
+ * active limit is reached a borrow fails immediately.
+ * 
+ * The lifecycle of pooled objects is the same as with the generic object pool,
+ * all methods of the {@link PoolableObjectFactory} are used.
+ * 
+ * @author martins
+ * 
+ */
+public class LockFreeObjectPool implements ObjectPool {
+
+	private static final Logger logger = Logger.getLogger(LockFreeObjectPool.class);
+
+	/**
+	 * node of the shared stack
+	 */
+	private static class Node {
+
+		private final Object object;
+		private Node next;
+
+		public Node(Object object) {
+			this.object = object;
+		}
+	}
+
+	private final AtomicReference<Node> sharedStackTop = new AtomicReference<Node>();
+	private final AtomicInteger sharedStackSize = new AtomicInteger(0);
+
+	/**
+	 * free list of a thread
+	 */
+	@SuppressWarnings("serial")
+	private static class LocalFreeList extends AtomicReferenceArray<Object> {
+
+		private final WeakReference<Thread> owner;
+
+		public LocalFreeList(int length, Thread owner) {
+			super(length);
+			this.owner = new WeakReference<Thread>(owner);
+		}
+
+		boolean isOwnerAlive() {
+			final Thread thread = owner.get();
+			return thread != null && thread.isAlive();
+		}
+	}
+
+	/**
+	 * all thread local free lists, so these can be emptied on clear and close
+	 */
+	private final ConcurrentLinkedQueue<LocalFreeList> localFreeLists = new ConcurrentLinkedQueue<LocalFreeList>();
+
+	private final ThreadLocal<LocalFreeList> localFreeList = new ThreadLocal<LocalFreeList>() {
+		@Override
+		protected LocalFreeList initialValue() {
+			final LocalFreeList freeList = new LocalFreeList(localMaxIdle, Thread.currentThread());
+			localFreeLists.add(freeList);
+			return freeList;
+		}
+	};
+
+	private final AtomicInteger numActive = new AtomicInteger(0);
+
+	private final int maxActive;
+	private final int maxIdle;
+	private final int localMaxIdle;
+	private final boolean testOnBorrow;
+	private final boolean testOnReturn;
+
+	private PoolableObjectFactory factory;
+
+	private volatile boolean closed;
+
+	/**
+	 * 
+	 * @param factory
+	 * @param maxActive
+	 *            the max number of borrowed objects, a negative value means
+	 *            no limit
+	 * @param maxIdle
+	 *            the max number of idle objects in the shared stack, a
+	 *            negative value means no limit
+	 * @param localMaxIdle
+	 *            the max number of idle objects in each thread free list
+	 * @param testOnBorrow
+	 * @param testOnReturn
+	 */
+	public LockFreeObjectPool(PoolableObjectFactory factory, int maxActive,
+			int maxIdle, int localMaxIdle, boolean testOnBorrow,
+			boolean testOnReturn) {
+		this.factory = factory;
+		this.maxActive = maxActive;
+		this.maxIdle = maxIdle;
+		this.localMaxIdle = localMaxIdle > 0 ? localMaxIdle : 0;
+		this.testOnBorrow = testOnBorrow;
+		this.testOnReturn = testOnReturn;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.commons.pool.ObjectPool#borrowObject()
+	 */
+	public Object borrowObject() throws Exception {
+		if (closed) {
+			throw new IllegalStateException("pool closed");
+		}
+		if (maxActive > 0) {
+			if (numActive.incrementAndGet() > maxActive) {
+				numActive.decrementAndGet();
+				throw new NoSuchElementException("pool exhausted");
+			}
+		}
+		else {
+			numActive.incrementAndGet();
+		}
+		try {
+			Object obj = null;
+			while ((obj = pollIdle()) != null) {
+				try {
+					factory.activateObject(obj);
+					if (!testOnBorrow || factory.validateObject(obj)) {
+						return obj;
+					}
+				} catch (Throwable e) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("failed to activate idle object " + obj, e);
+					}
+				}
+				destroy(obj);
+			}
+			obj = factory.makeObject();
+			factory.activateObject(obj);
+			return obj;
+		} catch (Exception e) {
+			numActive.decrementAndGet();
+			throw e;
+		} catch (Error e) {
+			numActive.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.commons.pool.ObjectPool#returnObject(java.lang.Object)
+	 */
+	public void returnObject(Object obj) throws Exception {
+		numActive.decrementAndGet();
+		if (testOnReturn && !factory.validateObject(obj)) {
+			destroy(obj);
+			return;
+		}
+		try {
+			factory.passivateObject(obj);
+		} catch (Exception e) {
+			destroy(obj);
+			return;
+		}
+		if (closed || !offerIdle(obj)) {
+			destroy(obj);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.commons.pool.ObjectPool#invalidateObject(java.lang.Object)
+	 */
+	public void invalidateObject(Object obj) throws Exception {
+		numActive.decrementAndGet();
+		factory.destroyObject(obj);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.commons.pool.ObjectPool#addObject()
+	 */
+	public void addObject() throws Exception {
+		if (closed) {
+			throw new IllegalStateException("pool closed");
+		}
+		final Object obj = factory.makeObject();
+		factory.passivateObject(obj);
+		if (!pushShared(obj)) {
+			destroy(obj);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.commons.pool.ObjectPool#getNumIdle()
+	 */
+	public int getNumIdle() {
+		int numIdle = sharedStackSize.get();
+		for (LocalFreeList freeList : localFreeLists) {
+			for (int i = 0; i < freeList.length(); i++) {
+				if (freeList.get(i) != null) {
+					numIdle++;
+				}
+			}
+		}
+		return numIdle;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.commons.pool.ObjectPool#getNumActive()
+	 */
+	public int getNumActive() {
+		return numActive.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.commons.pool.ObjectPool#clear()
+	 */
+	public void clear() throws Exception {
+		Object obj = null;
+		LocalFreeList freeList = null;
+		for (Iterator<LocalFreeList> it = localFreeLists.iterator(); it.hasNext();) {
+			freeList = it.next();
+			for (int i = 0; i < freeList.length(); i++) {
+				obj = freeList.getAndSet(i, null);
+				if (obj != null) {
+					destroy(obj);
+				}
+			}
+			if (!freeList.isOwnerAlive()) {
+				// the thread terminated, nobody uses the list anymore
+				it.remove();
+			}
+		}
+		while ((obj = popShared()) != null) {
+			destroy(obj);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.commons.pool.ObjectPool#close()
+	 */
+	public void close() throws Exception {
+		closed = true;
+		clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.commons.pool.ObjectPool#setFactory(org.apache.commons.pool.PoolableObjectFactory)
+	 */
+	public void setFactory(PoolableObjectFactory factory) throws IllegalStateException, UnsupportedOperationException {
+		if (numActive.get() > 0) {
+			throw new IllegalStateException("objects already borrowed from pool");
+		}
+		try {
+			clear();
+		} catch (Exception e) {
+			logger.error("failed to clear pool", e);
+		}
+		this.factory = factory;
+	}
+
+	// --- idle objects management
+
+	/**
+	 * Indicates if the current thread should use a thread local free list,
+	 * only event router threads do, since these are few and long lived.
+	 * 
+	 * @return
+	 */
+	private boolean useLocalFreeList() {
+		return localMaxIdle > 0 && SleeThreadLocals.isEventRouterThread();
+	}
+
+	/**
+	 * Retrieves an idle object, first from the thread local free list, if the
+	 * thread has one, and then from the shared stack.
+	 * 
+	 * @return null if there is no idle object
+	 */
+	private Object pollIdle() {
+		if (useLocalFreeList()) {
+			final LocalFreeList freeList = localFreeList.get();
+			Object obj = null;
+			for (int i = freeList.length() - 1; i >= 0; i--) {
+				if (freeList.get(i) != null) {
+					// getAndSet since a clear may race for the same slot
+					obj = freeList.getAndSet(i, null);
+					if (obj != null) {
+						return obj;
+					}
+				}
+			}
+		}
+		return popShared();
+	}
+
+	/**
+	 * Stores an idle object, first in the thread local free list, if the
+	 * thread has one, and then in the shared stack.
+	 * 
+	 * @param obj
+	 * @return false if the object could not be stored due to limits
+	 */
+	private boolean offerIdle(Object obj) {
+		if (useLocalFreeList()) {
+			final LocalFreeList freeList = localFreeList.get();
+			for (int i = 0; i < freeList.length(); i++) {
+				if (freeList.get(i) == null && freeList.compareAndSet(i, null, obj)) {
+					if (closed) {
+						// the pool was closed concurrently, make sure the object
+						// does not stay behind
+						return freeList.getAndSet(i, null) != obj;
+					}
+					return true;
+				}
+			}
+		}
+		return pushShared(obj);
+	}
+
+	private boolean pushShared(Object obj) {
+		if (maxIdle >= 0) {
+			if (sharedStackSize.incrementAndGet() > maxIdle) {
+				sharedStackSize.decrementAndGet();
+				return false;
+			}
+		}
+		else {
+			sharedStackSize.incrementAndGet();
+		}
+		final Node node = new Node(obj);
+		Node top = null;
+		do {
+			top = sharedStackTop.get();
+			node.next = top;
+		} while (!sharedStackTop.compareAndSet(top, node));
+		return true;
+	}
+
+	private Object popShared() {
+		Node top = null;
+		do {
+			top = sharedStackTop.get();
+			if (top == null) {
+				return null;
+			}
+		} while (!sharedStackTop.compareAndSet(top, top.next));
+		sharedStackSize.decrementAndGet();
+		return top.object;
+	}
+
+	private void destroy(Object obj) {
+		try {
+			factory.destroyObject(obj);
+		} catch (Throwable e) {
+			logger.error("failed to destroy object " + obj, e);
+		}
+	}
+
+}
@@ -123,17 +123,7 @@ public class SbbAbstractMethodHandler {
 	 * @param cmpFieldValue
 	 */
 	public static void setCMPFieldOfTypeActivityContextInterface(SbbEntity sbbEntity, String cmpFieldName, ActivityContextInterface cmpFieldValue) {
-		if (cmpFieldValue == null) {
-			sbbEntity.setCMPField(cmpFieldName, null);
-			return;
-		}
-		org.mobicents.slee.container.activity.ActivityContextInterface aci = null;
-		try {
-			aci = (org.mobicents.slee.container.activity.ActivityContextInterface) cmpFieldValue;
-		} catch (ClassCastException e) {
-			throw new IllegalArgumentException("CMP value being set (" + cmpFieldValue + ") is an unknown ActivityContextInterface implementation");
-		}
-		sbbEntity.setCMPField(cmpFieldName, aci.getActivityContext().getActivityContextHandle());
+		sbbEntity.setCMPField(cmpFieldName, toCMPValue(cmpFieldValue));
 	}
 
 	/**
@@ -143,17 +133,7 @@ public class SbbAbstractMethodHandler {
 	 * @param cmpFieldValue
 	 */
 	public static void setCMPFieldOfTypeEventContext(SbbEntity sbbEntity, String cmpFieldName, javax.slee.EventContext cmpFieldValue) {
-		if (cmpFieldValue == null) {
-			sbbEntity.setCMPField(cmpFieldName, null);
-			return;
-		}
-		EventContext eventContextImpl = null;
-		try {
-			eventContextImpl = (EventContext) cmpFieldValue;
-		} catch (ClassCastException e) {
-			throw new IllegalArgumentException("CMP value being set (" + cmpFieldValue + ") is an unknown EventContext implementation");
-		}
-		sbbEntity.setCMPField(cmpFieldName,eventContextImpl.getEventContextHandle());
+		sbbEntity.setCMPField(cmpFieldName, toCMPValue(cmpFieldValue));
 	}
 
 	/**
@@ -173,18 +153,7 @@ public class SbbAbstractMethodHandler {
 	 * @param object
 	 */
 	public static void setCMPFieldOfTypeProfileLocalObject(SbbEntity sbbEntity, String cmpFieldName, javax.slee.profile.ProfileLocalObject cmpFieldValue) {
-		if (cmpFieldValue == null) {
-			sbbEntity.setCMPField(cmpFieldName, null);
-			return;
-		}
-		ProfileLocalObject profileLocalObjectConcreteImpl = null;
-		try {
-			profileLocalObjectConcreteImpl = (ProfileLocalObject) cmpFieldValue;
-		} catch (ClassCastException e) {
-			throw new IllegalArgumentException("CMP value being set (" + cmpFieldValue + ") is an unknown ProfileLocalObject implementation");
-		}
-		final ProfileLocalObjectCmpValue profileLocalObjectCmpValue = new ProfileLocalObjectCmpValue(profileLocalObjectConcreteImpl.getProfileTableName(),profileLocalObjectConcreteImpl.getProfileName());
-		sbbEntity.setCMPField(cmpFieldName, profileLocalObjectCmpValue);
+		sbbEntity.setCMPField(cmpFieldName, toCMPValue(cmpFieldValue));
 	}
 
 	/**
@@ -194,21 +163,7 @@ public class SbbAbstractMethodHandler {
 	 * @param cmpFieldValue
 	 */
 	public static void setCMPFieldOfTypeSbbLocalObject(SbbEntity sbbEntity, String cmpFieldName, SbbLocalObject cmpFieldValue) {
-		if (cmpFieldValue == null) {
-			sbbEntity.setCMPField(cmpFieldName, null);
-			return;
-		}
-		SbbLocalObjectImpl sbbLocalObjectImpl = null;
-		try {
-			sbbLocalObjectImpl = (SbbLocalObjectImpl) cmpFieldValue;
-		} catch (ClassCastException e) {
-			throw new IllegalArgumentException("CMP value being set ("+ cmpFieldValue+ ") is an unknown SbbLocalObject implementation");
-		}
-		final CMPFieldDescriptor field = sbbEntity.getSbbComponent().getDescriptor().getCmpFields().get(cmpFieldName);
-		if (field.getSbbRef() != null && !field.getSbbRef().equals(sbbLocalObjectImpl.getSbbEntity().getSbbComponent().getSbbID())) {
-			throw new IllegalArgumentException("CMP value being set ("+ sbbLocalObjectImpl.getSbbEntity().getSbbComponent().getSbbID()+ ") is for a different sbb then the one expected ("+ field.getSbbRef() + ")");
-		}
-		sbbEntity.setCMPField(cmpFieldName, sbbLocalObjectImpl.getSbbEntityId());
+		sbbEntity.setCMPField(cmpFieldName, toCMPValue(sbbEntity, cmpFieldName, cmpFieldValue));
 	}
 	
 	/**
@@ -227,13 +182,7 @@ public class SbbAbstractMethodHandler {
 	 * @return
 	 */
 	public static Integer getCMPFieldOfTypeInteger(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
-		if (cmpFieldValue == null) {
-			return DEFAULT_CMP_VALUE_INTEGER;
-		}
-		else {
-			return (Integer) cmpFieldValue;
-		}
+		return asInteger(sbbEntity.getCMPField(cmpFieldName));
 	}
 	
 	/**
@@ -242,13 +191,7 @@ public class SbbAbstractMethodHandler {
 	 * @return
 	 */
 	public static Boolean getCMPFieldOfTypeBoolean(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
-		if (cmpFieldValue == null) {			
-			return DEFAULT_CMP_VALUE_BOOLEAN;
-		}
-		else {
-			return (Boolean) cmpFieldValue;
-		}
+		return asBoolean(sbbEntity.getCMPField(cmpFieldName));
 	}
 	
 	/**
@@ -257,13 +200,7 @@ public class SbbAbstractMethodHandler {
 	 * @return
 	 */
 	public static Byte getCMPFieldOfTypeByte(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
-		if (cmpFieldValue == null) {
-			return DEFAULT_CMP_VALUE_BYTE;
-		}
-		else {
-			return (Byte) cmpFieldValue;
-		}
+		return asByte(sbbEntity.getCMPField(cmpFieldName));
 	}
 	
 	/**
@@ -272,13 +209,7 @@ public class SbbAbstractMethodHandler {
 	 * @return
 	 */
 	public static Character getCMPFieldOfTypeChar(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
-		if (cmpFieldValue == null) {			
-			return DEFAULT_CMP_VALUE_CHAR;
-		}
-		else {
-			return (Character) cmpFieldValue;
-		}
+		return asChar(sbbEntity.getCMPField(cmpFieldName));
 	}
 	
 	/**
@@ -287,13 +218,7 @@ public class SbbAbstractMethodHandler {
 	 * @return
 	 */
 	public static Short getCMPFieldOfTypeShort(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
-		if (cmpFieldValue == null) {			
-			return DEFAULT_CMP_VALUE_SHORT;
-		}
-		else {
-			return (Short) cmpFieldValue;
-		}
+		return asShort(sbbEntity.getCMPField(cmpFieldName));
 	}
 	
 	/**
@@ -302,13 +227,7 @@ public class SbbAbstractMethodHandler {
 	 * @return
 	 */
 	public static Long getCMPFieldOfTypeLong(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
-		if (cmpFieldValue == null) {
-			return DEFAULT_CMP_VALUE_LONG;
-		}
-		else {
-			return (Long) cmpFieldValue;
-		}
+		return asLong(sbbEntity.getCMPField(cmpFieldName));
 	}
 	
 	/**
@@ -317,13 +236,7 @@ public class SbbAbstractMethodHandler {
 	 * @return
 	 */
 	public static Double getCMPFieldOfTypeDouble(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
-		if (cmpFieldValue == null) {
-			return DEFAULT_CMP_VALUE_DOUBLE;
-		}
-		else {
-			return (Double) cmpFieldValue;
-		}
+		return asDouble(sbbEntity.getCMPField(cmpFieldName));
 	}
 	
 	/**
@@ -332,13 +245,7 @@ public class SbbAbstractMethodHandler {
 	 * @return
 	 */
 	public static Float getCMPFieldOfTypeFloat(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
-		if (cmpFieldValue == null) {
-			return DEFAULT_CMP_VALUE_FLOAT;
-		}
-		else {
-			return (Float) cmpFieldValue;
-		}
+		return asFloat(sbbEntity.getCMPField(cmpFieldName));
 	}
 	
 	/**
@@ -348,7 +255,268 @@ public class SbbAbstractMethodHandler {
 	 * @return
 	 */
 	public static ActivityContextInterface getCMPFieldOfTypeActivityContextInterface(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
+		return asActivityContextInterface(sbbEntity, sbbEntity.getCMPField(cmpFieldName));
+	}
+	
+	/**
+	 * 
+	 * @param sbbEntity
+	 * @param cmpFieldName
+	 * @return
+	 */
+	public static javax.slee.EventContext getCMPFieldOfTypeEventContext(SbbEntity sbbEntity,String cmpFieldName) {
+		return asEventContext(sbbEntity.getCMPField(cmpFieldName));
+	}
+	
+	/**
+	 * 
+	 * @param sbbEntity
+	 * @param cmpFieldName
+	 * @return
+	 */
+	public static javax.slee.profile.ProfileLocalObject getCMPFieldOfTypeProfileLocalObject(SbbEntity sbbEntity,String cmpFieldName) {
+		return asProfileLocalObject(sbbEntity.getCMPField(cmpFieldName));
+	}
+	
+	/**
+	 * 
+	 * @param sbbEntity
+	 * @param cmpFieldName
+	 * @return
+	 */
+	public static SbbLocalObject getCMPFieldOfTypeSbbLocalObject(SbbEntity sbbEntity,String cmpFieldName) {
+		return asSbbLocalObject(sbbEntity.getCMPField(cmpFieldName));
+	}
+	
+	// CMP ACCESSORs BY SLOT, used when the cmp fields layout is defined
+	
+	public static boolean getPrimitiveCMPFieldOfTypeBoolean(SbbEntity sbbEntity, int slot) {
+		return sbbEntity.getPrimitiveCMPField(slot) != 0;
+	}
+	
+	public static byte getPrimitiveCMPFieldOfTypeByte(SbbEntity sbbEntity, int slot) {
+		return (byte) sbbEntity.getPrimitiveCMPField(slot);
+	}
+	
+	public static char getPrimitiveCMPFieldOfTypeChar(SbbEntity sbbEntity, int slot) {
+		return (char) sbbEntity.getPrimitiveCMPField(slot);
+	}
+	
+	public static short getPrimitiveCMPFieldOfTypeShort(SbbEntity sbbEntity, int slot) {
+		return (short) sbbEntity.getPrimitiveCMPField(slot);
+	}
+	
+	public static int getPrimitiveCMPFieldOfTypeInteger(SbbEntity sbbEntity, int slot) {
+		return (int) sbbEntity.getPrimitiveCMPField(slot);
+	}
+	
+	public static long getPrimitiveCMPFieldOfTypeLong(SbbEntity sbbEntity, int slot) {
+		return sbbEntity.getPrimitiveCMPField(slot);
+	}
+	
+	public static float getPrimitiveCMPFieldOfTypeFloat(SbbEntity sbbEntity, int slot) {
+		return Float.intBitsToFloat((int) sbbEntity.getPrimitiveCMPField(slot));
+	}
+	
+	public static double getPrimitiveCMPFieldOfTypeDouble(SbbEntity sbbEntity, int slot) {
+		return Double.longBitsToDouble(sbbEntity.getPrimitiveCMPField(slot));
+	}
+	
+	public static void setPrimitiveCMPField(SbbEntity sbbEntity, int slot, boolean cmpFieldValue) {
+		sbbEntity.setPrimitiveCMPField(slot, cmpFieldValue ? 1 : 0);
+	}
+	
+	public static void setPrimitiveCMPField(SbbEntity sbbEntity, int slot, byte cmpFieldValue) {
+		sbbEntity.setPrimitiveCMPField(slot, cmpFieldValue);
+	}
+	
+	public static void setPrimitiveCMPField(SbbEntity sbbEntity, int slot, char cmpFieldValue) {
+		sbbEntity.setPrimitiveCMPField(slot, cmpFieldValue);
+	}
+	
+	public static void setPrimitiveCMPField(SbbEntity sbbEntity, int slot, short cmpFieldValue) {
+		sbbEntity.setPrimitiveCMPField(slot, cmpFieldValue);
+	}
+	
+	public static void setPrimitiveCMPField(SbbEntity sbbEntity, int slot, int cmpFieldValue) {
+		sbbEntity.setPrimitiveCMPField(slot, cmpFieldValue);
+	}
+	
+	public static void setPrimitiveCMPField(SbbEntity sbbEntity, int slot, long cmpFieldValue) {
+		sbbEntity.setPrimitiveCMPField(slot, cmpFieldValue);
+	}
+	
+	public static void setPrimitiveCMPField(SbbEntity sbbEntity, int slot, float cmpFieldValue) {
+		sbbEntity.setPrimitiveCMPField(slot, Float.floatToRawIntBits(cmpFieldValue));
+	}
+	
+	public static void setPrimitiveCMPField(SbbEntity sbbEntity, int slot, double cmpFieldValue) {
+		sbbEntity.setPrimitiveCMPField(slot, Double.doubleToRawLongBits(cmpFieldValue));
+	}
+	
+	public static void setCMPFieldOfTypeActivityContextInterface(SbbEntity sbbEntity, int slot, ActivityContextInterface cmpFieldValue) {
+		sbbEntity.setCMPField(slot, toCMPValue(cmpFieldValue));
+	}
+
+	public static void setCMPFieldOfTypeEventContext(SbbEntity sbbEntity, int slot, javax.slee.EventContext cmpFieldValue) {
+		sbbEntity.setCMPField(slot, toCMPValue(cmpFieldValue));
+	}
+
+	public static void setCMPFieldOfTypePrimitiveOrUnknown(SbbEntity sbbEntity, int slot, Object cmpFieldValue) {
+		sbbEntity.setCMPField(slot, cmpFieldValue);
+	}
+
+	public static void setCMPFieldOfTypeProfileLocalObject(SbbEntity sbbEntity, int slot, javax.slee.profile.ProfileLocalObject cmpFieldValue) {
+		sbbEntity.setCMPField(slot, toCMPValue(cmpFieldValue));
+	}
+
+	public static void setCMPFieldOfTypeSbbLocalObject(SbbEntity sbbEntity, int slot, SbbLocalObject cmpFieldValue) {
+		sbbEntity.setCMPField(slot, toCMPValue(sbbEntity, sbbEntity.getSbbComponent().getCMPFieldsLayout().getName(slot), cmpFieldValue));
+	}
+	
+	public static Object getCMPFieldOfTypeUnknown(SbbEntity sbbEntity, int slot) {
+		return sbbEntity.getCMPField(slot);
+	}
+	
+	public static Integer getCMPFieldOfTypeInteger(SbbEntity sbbEntity, int slot) {
+		return asInteger(sbbEntity.getCMPField(slot));
+	}
+	
+	public static Boolean getCMPFieldOfTypeBoolean(SbbEntity sbbEntity, int slot) {
+		return asBoolean(sbbEntity.getCMPField(slot));
+	}
+	
+	public static Byte getCMPFieldOfTypeByte(SbbEntity sbbEntity, int slot) {
+		return asByte(sbbEntity.getCMPField(slot));
+	}
+	
+	public static Character getCMPFieldOfTypeChar(SbbEntity sbbEntity, int slot) {
+		return asChar(sbbEntity.getCMPField(slot));
+	}
+	
+	public static Short getCMPFieldOfTypeShort(SbbEntity sbbEntity, int slot) {
+		return asShort(sbbEntity.getCMPField(slot));
+	}
+	
+	public static Long getCMPFieldOfTypeLong(SbbEntity sbbEntity, int slot) {
+		return asLong(sbbEntity.getCMPField(slot));
+	}
+	
+	public static Double getCMPFieldOfTypeDouble(SbbEntity sbbEntity, int slot) {
+		return asDouble(sbbEntity.getCMPField(slot));
+	}
+	
+	public static Float getCMPFieldOfTypeFloat(SbbEntity sbbEntity, int slot) {
+		return asFloat(sbbEntity.getCMPField(slot));
+	}
+	
+	public static ActivityContextInterface getCMPFieldOfTypeActivityContextInterface(SbbEntity sbbEntity, int slot) {
+		return asActivityContextInterface(sbbEntity, sbbEntity.getCMPField(slot));
+	}
+	
+	public static javax.slee.EventContext getCMPFieldOfTypeEventContext(SbbEntity sbbEntity, int slot) {
+		return asEventContext(sbbEntity.getCMPField(slot));
+	}
+	
+	public static javax.slee.profile.ProfileLocalObject getCMPFieldOfTypeProfileLocalObject(SbbEntity sbbEntity, int slot) {
+		return asProfileLocalObject(sbbEntity.getCMPField(slot));
+	}
+	
+	public static SbbLocalObject getCMPFieldOfTypeSbbLocalObject(SbbEntity sbbEntity, int slot) {
+		return asSbbLocalObject(sbbEntity.getCMPField(slot));
+	}
+	
+	// CMP VALUE CONVERTERS
+	
+	private static Object toCMPValue(ActivityContextInterface cmpFieldValue) {
+		if (cmpFieldValue == null) {
+			return null;
+		}
+		org.mobicents.slee.container.activity.ActivityContextInterface aci = null;
+		try {
+			aci = (org.mobicents.slee.container.activity.ActivityContextInterface) cmpFieldValue;
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("CMP value being set (" + cmpFieldValue + ") is an unknown ActivityContextInterface implementation");
+		}
+		return aci.getActivityContext().getActivityContextHandle();
+	}
+	
+	private static Object toCMPValue(javax.slee.EventContext cmpFieldValue) {
+		if (cmpFieldValue == null) {
+			return null;
+		}
+		EventContext eventContextImpl = null;
+		try {
+			eventContextImpl = (EventContext) cmpFieldValue;
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("CMP value being set (" + cmpFieldValue + ") is an unknown EventContext implementation");
+		}
+		return eventContextImpl.getEventContextHandle();
+	}
+	
+	private static Object toCMPValue(javax.slee.profile.ProfileLocalObject cmpFieldValue) {
+		if (cmpFieldValue == null) {
+			return null;
+		}
+		ProfileLocalObject profileLocalObjectConcreteImpl = null;
+		try {
+			profileLocalObjectConcreteImpl = (ProfileLocalObject) cmpFieldValue;
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("CMP value being set (" + cmpFieldValue + ") is an unknown ProfileLocalObject implementation");
+		}
+		return new ProfileLocalObjectCmpValue(profileLocalObjectConcreteImpl.getProfileTableName(),profileLocalObjectConcreteImpl.getProfileName());
+	}
+	
+	private static Object toCMPValue(SbbEntity sbbEntity, String cmpFieldName, SbbLocalObject cmpFieldValue) {
+		if (cmpFieldValue == null) {
+			return null;
+		}
+		SbbLocalObjectImpl sbbLocalObjectImpl = null;
+		try {
+			sbbLocalObjectImpl = (SbbLocalObjectImpl) cmpFieldValue;
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("CMP value being set ("+ cmpFieldValue+ ") is an unknown SbbLocalObject implementation");
+		}
+		final CMPFieldDescriptor field = sbbEntity.getSbbComponent().getDescriptor().getCmpFields().get(cmpFieldName);
+		if (field.getSbbRef() != null && !field.getSbbRef().equals(sbbLocalObjectImpl.getSbbEntity().getSbbComponent().getSbbID())) {
+			throw new IllegalArgumentException("CMP value being set ("+ sbbLocalObjectImpl.getSbbEntity().getSbbComponent().getSbbID()+ ") is for a different sbb then the one expected ("+ field.getSbbRef() + ")");
+		}
+		return sbbLocalObjectImpl.getSbbEntityId();
+	}
+	
+	private static Integer asInteger(Object cmpFieldValue) {
+		return cmpFieldValue == null ? DEFAULT_CMP_VALUE_INTEGER : (Integer) cmpFieldValue;
+	}
+	
+	private static Boolean asBoolean(Object cmpFieldValue) {
+		return cmpFieldValue == null ? DEFAULT_CMP_VALUE_BOOLEAN : (Boolean) cmpFieldValue;
+	}
+	
+	private static Byte asByte(Object cmpFieldValue) {
+		return cmpFieldValue == null ? DEFAULT_CMP_VALUE_BYTE : (Byte) cmpFieldValue;
+	}
+	
+	private static Character asChar(Object cmpFieldValue) {
+		return cmpFieldValue == null ? DEFAULT_CMP_VALUE_CHAR : (Character) cmpFieldValue;
+	}
+	
+	private static Short asShort(Object cmpFieldValue) {
+		return cmpFieldValue == null ? DEFAULT_CMP_VALUE_SHORT : (Short) cmpFieldValue;
+	}
+	
+	private static Long asLong(Object cmpFieldValue) {
+		return cmpFieldValue == null ? DEFAULT_CMP_VALUE_LONG : (Long) cmpFieldValue;
+	}
+	
+	private static Double asDouble(Object cmpFieldValue) {
+		return cmpFieldValue == null ? DEFAULT_CMP_VALUE_DOUBLE : (Double) cmpFieldValue;
+	}
+	
+	private static Float asFloat(Object cmpFieldValue) {
+		return cmpFieldValue == null ? DEFAULT_CMP_VALUE_FLOAT : (Float) cmpFieldValue;
+	}
+	
+	private static ActivityContextInterface asActivityContextInterface(SbbEntity sbbEntity, Object cmpFieldValue) {
 		if (cmpFieldValue == null) {
 			return null;
 		}
@@ -362,14 +530,7 @@ public class SbbAbstractMethodHandler {
 		}
 	}
 	
-	/**
-	 * 
-	 * @param sbbEntity
-	 * @param cmpFieldName
-	 * @return
-	 */
-	public static javax.slee.EventContext getCMPFieldOfTypeEventContext(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
+	private static javax.slee.EventContext asEventContext(Object cmpFieldValue) {
 		if (cmpFieldValue == null) {
 			return null;
 		}
@@ -378,14 +539,7 @@ public class SbbAbstractMethodHandler {
 		}
 	}
 	
-	/**
-	 * 
-	 * @param sbbEntity
-	 * @param cmpFieldName
-	 * @return
-	 */
-	public static javax.slee.profile.ProfileLocalObject getCMPFieldOfTypeProfileLocalObject(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
+	private static javax.slee.profile.ProfileLocalObject asProfileLocalObject(Object cmpFieldValue) {
 		if (cmpFieldValue == null) {
 			return null;
 		}
@@ -400,14 +554,7 @@ public class SbbAbstractMethodHandler {
 		}
 	}
 	
-	/**
-	 * 
-	 * @param sbbEntity
-	 * @param cmpFieldName
-	 * @return
-	 */
-	public static SbbLocalObject getCMPFieldOfTypeSbbLocalObject(SbbEntity sbbEntity,String cmpFieldName) {
-		final Object cmpFieldValue = sbbEntity.getCMPField(cmpFieldName);
+	private static SbbLocalObject asSbbLocalObject(Object cmpFieldValue) {
 		if (cmpFieldValue == null) {
 			return null;
 		}
@@ -55,6 +55,16 @@ public class SbbObjectPoolManagementImpl implements SbbObjectPoolManagementImplM
 
 	private GenericObjectPool.Config config;
 
+	/**
+	 * if true the pools created are {@link LockFreeObjectPool}s
+	 */
+	private boolean lockFreePools = false;
+
+	/**
+	 * the max idle objects in each thread free list, for lock free pools
+	 */
+	private int localMaxIdle = 4;
+
 	public SbbObjectPoolManagementImpl(SleeContainer sleeContainer) {
 		this.sleeContainer = sleeContainer;
 		// create pool config mbean with default pool configuration
@@ -143,9 +153,17 @@ public class SbbObjectPoolManagementImpl implements SbbObjectPoolManagementImplM
 	 */
 	private void createObjectPool(final ServiceID serviceID, final SbbComponent sbbComponent) {
 		// create the pool for the given SbbID
-		GenericObjectPoolFactory poolFactory = new GenericObjectPoolFactory(
-				new SbbObjectPoolFactory(serviceID,sbbComponent), config);
-		final ObjectPool objectPool = poolFactory.createPool();
+		final SbbObjectPoolFactory sbbObjectPoolFactory = new SbbObjectPoolFactory(serviceID,sbbComponent);
+		ObjectPool objectPool = null;
+		if (lockFreePools) {
+			objectPool = new LockFreeObjectPool(sbbObjectPoolFactory,
+					config.maxActive, config.maxIdle, localMaxIdle,
+					config.testOnBorrow, config.testOnReturn);
+		}
+		else {
+			objectPool = new GenericObjectPoolFactory(sbbObjectPoolFactory,
+					config).createPool();
+		}
 		final SbbObjectPoolImpl oldObjectPool = pools.put(new ObjectPoolMapKey(serviceID,sbbComponent.getSbbID()),
 				new SbbObjectPoolImpl(sbbComponent,serviceID,objectPool));
 		if (oldObjectPool != null) {
@@ -327,6 +345,22 @@ public class SbbObjectPoolManagementImpl implements SbbObjectPoolManagementImplM
 		config.whenExhaustedAction = whenExhaustedAction;
 	}
 
+	public boolean getLockFreePools() {
+		return lockFreePools;
+	}
+
+	public void setLockFreePools(boolean lockFreePools) {
+		this.lockFreePools = lockFreePools;
+	}
+
+	public int getLocalMaxIdle() {
+		return localMaxIdle;
+	}
+
+	public void setLocalMaxIdle(int localMaxIdle) {
+		this.localMaxIdle = localMaxIdle;
+	}
+
 	public void reconfig() {
 		for (ObjectPoolMapKey key : pools.keySet()) {
 			final SbbComponent sbbComponent = sleeContainer.getComponentRepository().getComponentByID(key.sbbID);
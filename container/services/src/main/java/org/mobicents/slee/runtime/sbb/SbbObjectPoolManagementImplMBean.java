@@ -180,6 +180,34 @@ public interface SbbObjectPoolManagementImplMBean {
 	 */
 	public void setWhenExhaustedAction(byte whenExhaustedAction);
 	
+	/**
+	 * Indicates if pools use thread local free lists backed by a lock free
+	 * shared stack, instead of a commons pool generic object pool. Such pools
+	 * only use the max active, max idle, test on borrow and test on return
+	 * parameters, and fail immediately when exhausted.
+	 */
+	public boolean getLockFreePools();
+	
+	/**
+	 * Changes the pool implementation, applied only to new pools or on reconfig.
+	 * @see #getLockFreePools()
+	 * @param lockFreePools
+	 */
+	public void setLockFreePools(boolean lockFreePools);
+	
+	/**
+	 * Retrieves the max number of idle objects each thread keeps in its own
+	 * free list, for lock free pools.
+	 */
+	public int getLocalMaxIdle();
+	
+	/**
+	 * Changes the max number of idle objects each thread keeps in its own
+	 * free list, for lock free pools.
+	 * @param localMaxIdle
+	 */
+	public void setLocalMaxIdle(int localMaxIdle);
+	
 	/**
 	 * Triggers process to reconfig all current pools
 	 */
@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.sbbentity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mobicents.slee.container.component.sbb.CMPFieldsLayout;
+import org.mobicents.slee.container.transaction.TransactionContext;
+import org.mobicents.slee.container.transaction.TransactionalAction;
+
+/**
+ * The cmp fields of a sbb entity, stored in slots as defined by the
+ * {@link CMPFieldsLayout} of the sbb component, with values of primitive
+ * fields unboxed. Fields are loaded from the cache at once, and the ones
+ * changed are written back to the cache at once, before the tx commits.
+ * 
+ * @author martins
+ * 
+ */
+abstract class SbbEntityCMPFields {
+
+	private final CMPFieldsLayout layout;
+
+	private final Object[] values;
+
+	private final long[] primitiveValues;
+
+	private final boolean[] changed;
+
+	private final TransactionContext txContext;
+
+	private boolean hasChanges;
+
+	/**
+	 * indicates if the changed fields were already written to the cache,
+	 * before the tx commits, thus further changes are written directly
+	 */
+	private boolean stored;
+
+	/**
+	 * 
+	 * @param layout
+	 * @param cacheValues
+	 *            the cmp field values in the cache, by name
+	 * @param txContext
+	 *            the context of the tx where the fields are accessed
+	 */
+	SbbEntityCMPFields(CMPFieldsLayout layout, Map<String, Object> cacheValues, TransactionContext txContext) {
+		this.layout = layout;
+		this.txContext = txContext;
+		final int size = layout.size();
+		this.values = new Object[size];
+		this.primitiveValues = new long[size];
+		this.changed = new boolean[size];
+		if (!cacheValues.isEmpty()) {
+			for (int slot = 0; slot < size; slot++) {
+				final Object value = cacheValues.get(layout.getName(slot));
+				final char type = layout.getType(slot);
+				if (type == CMPFieldsLayout.TYPE_REFERENCE) {
+					values[slot] = value;
+				} else {
+					primitiveValues[slot] = CMPFieldsLayout.unbox(type, value);
+				}
+			}
+		}
+	}
+
+	Object get(int slot) {
+		final char type = layout.getType(slot);
+		if (type == CMPFieldsLayout.TYPE_REFERENCE) {
+			return values[slot];
+		} else {
+			return CMPFieldsLayout.box(type, primitiveValues[slot]);
+		}
+	}
+
+	void set(int slot, Object value) {
+		final char type = layout.getType(slot);
+		if (type == CMPFieldsLayout.TYPE_REFERENCE) {
+			values[slot] = value;
+		} else {
+			primitiveValues[slot] = CMPFieldsLayout.unbox(type, value);
+		}
+		changed(slot);
+	}
+
+	long getPrimitive(int slot) {
+		return primitiveValues[slot];
+	}
+
+	void setPrimitive(int slot, long value) {
+		primitiveValues[slot] = value;
+		changed(slot);
+	}
+
+	/**
+	 * Ensures the field changed is written to the cache, once for all fields
+	 * changed, before the tx commits.
+	 * 
+	 * @param slot
+	 */
+	private void changed(int slot) {
+		changed[slot] = true;
+		if (stored) {
+			hasChanges = true;
+			store();
+		} else if (!hasChanges) {
+			hasChanges = true;
+			final TransactionalAction action = new TransactionalAction() {
+				@Override
+				public void execute() {
+					store();
+				}
+			};
+			txContext.getBeforeCommitActions().add(action);
+		}
+	}
+
+	private void store() {
+		stored = true;
+		store(getChanges());
+	}
+
+	/**
+	 * Retrieves the values of the fields changed, by name, and resets the
+	 * changes.
+	 * 
+	 * @return
+	 */
+	Map<String, Object> getChanges() {
+		final Map<String, Object> result = new HashMap<String, Object>();
+		if (hasChanges) {
+			for (int slot = 0; slot < changed.length; slot++) {
+				if (changed[slot]) {
+					result.put(layout.getName(slot), get(slot));
+					changed[slot] = false;
+				}
+			}
+			hasChanges = false;
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the values of the fields changed, by name, to the cache.
+	 * 
+	 * @param changes
+	 */
+	abstract void store(Map<String, Object> changes);
+
+}
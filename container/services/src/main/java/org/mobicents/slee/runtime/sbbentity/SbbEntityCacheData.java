@@ -33,6 +33,7 @@ import org.restcomm.cache.MobicentsCache;
 import javax.slee.EventTypeID;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -220,6 +221,21 @@ public class SbbEntityCacheData extends CacheData {
 		}
 	}
 	
+	public void setCmpFields(Map<String,Object> cmpValues) {
+		final Node<String,Object> node = getCmpFieldsChildNode(true);
+		node.putAll(cmpValues);
+	}
+
+	public Map<String,Object> getCmpFields() {
+		final Node<String,Object> node = getCmpFieldsChildNode(false);
+		if (node == null) {
+			return Collections.emptyMap();
+		}
+		else {
+			return node.getData();
+		}
+	}
+	
 	public Set<SbbEntityID> getChildRelationSbbEntities(String getChildRelationMethod) {
 		final Node node = getChildRelationsChildNode(false);
 		if (node == null) {
@@ -31,12 +31,10 @@ import org.mobicents.slee.container.transaction.TransactionContext;
 import org.mobicents.slee.container.transaction.TransactionalAction;
 
 import javax.slee.CreateException;
-import javax.slee.SLEEException;
 import javax.slee.ServiceID;
 import java.util.Collections;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -60,12 +58,45 @@ public class SbbEntityFactoryImpl extends AbstractSleeContainerModule implements
 	
 	protected SbbEntityLockFacility lockFacility;
 	
+	/**
+	 * the number of striped sbb entity locks, if 0 a lock is kept per sbb
+	 * entity
+	 */
+	private final int lockStripes;
+	
 	private final SbbEntityIDComparator sbbEntityIDComparator = new SbbEntityIDComparator(this); 
 	
+	public SbbEntityFactoryImpl() {
+		this(0);
+	}
+	
+	/**
+	 * 
+	 * @param lockStripes
+	 *            the number of striped sbb entity locks, if 0 a lock is kept
+	 *            per sbb entity
+	 */
+	public SbbEntityFactoryImpl(int lockStripes) {
+		this.lockStripes = lockStripes;
+	}
+	
 	@Override
 	public void sleeInitialization() {
-		// SergeyLee: test
-		this.lockFacility = new SbbEntityLockFacility(sleeContainer);
+		if (lockStripes > 0) {
+			this.lockFacility = new StripedSbbEntityLockFacility(lockStripes);
+		}
+		else {
+			// SergeyLee: test
+			this.lockFacility = new MapSbbEntityLockFacility(sleeContainer);
+		}
+	}
+	
+	/**
+	 * Retrieves the facility providing the sbb entity locks.
+	 * @return
+	 */
+	public SbbEntityLockFacility getLockFacility() {
+		return lockFacility;
 	}
 	
 	@Override
@@ -107,7 +138,7 @@ public class SbbEntityFactoryImpl extends AbstractSleeContainerModule implements
 
 		// get lock
 		final ReentrantLock lock = lockFacility.get(sbbeId);
-		lockOrFail(lock,sbbeId);
+		lockFacility.lockOrFail(lock,sbbeId,txContext.isSbbEntityLockWaitAllowed());
 		// we hold the lock now
 				
 		// create sbb entity
@@ -203,7 +234,7 @@ public class SbbEntityFactoryImpl extends AbstractSleeContainerModule implements
 			if (lockSbbEntity) {
 				lockedSbbEntityID = sbbeId.getRootSBBEntityID();
 				lock = lockFacility.get(lockedSbbEntityID);
-				lockOrFail(lock,lockedSbbEntityID);											
+				lockFacility.lockOrFail(lock,lockedSbbEntityID,txContext.isSbbEntityLockWaitAllowed());											
 			}															
 						
 			// get sbb entity data from cache
@@ -315,31 +346,6 @@ public class SbbEntityFactoryImpl extends AbstractSleeContainerModule implements
 					sbbeId) : null;		
 	}
 	
-	/**
-	 * 
-	 * @param lock
-	 * @param sbbeId
-	 * @throws SLEEException
-	 */
-	private static void lockOrFail(ReentrantLock lock, SbbEntityID sbbeId) throws SLEEException {
-		if (doTraceLogs) {
-			logger.trace(Thread.currentThread()+" trying to acquire lock "+lock+" for sbb entity with id "+sbbeId);
-		}
-		boolean locked;
-		try { 
-			locked = lock.tryLock(10, TimeUnit.SECONDS);
-		}
-		catch (Throwable e) {
-			throw new SLEEException(e.getMessage(),e);
-		}
-		if (!locked) {
-			throw new SLEEException("timeout while acquiring lock "+lock+" for sbb entity with id "+sbbeId);
-		}
-		if (doTraceLogs) {
-			logger.trace(Thread.currentThread()+" acquired lock "+lock+" for sbb entity with id "+sbbeId);
-		}
-	}
-	
 	@Override
 	public Set<SbbEntityID> getSbbEntityIDs() {
 		final SbbEntityFactoryCacheData cacheData = new SbbEntityFactoryCacheData(sleeContainer.getCluster());
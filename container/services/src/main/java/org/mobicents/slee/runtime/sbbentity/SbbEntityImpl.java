@@ -30,6 +30,7 @@ import java.security.PrivilegedExceptionAction;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 
 import javax.slee.ActivityContextInterface;
@@ -44,6 +45,7 @@ import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.SleeThreadLocals;
 import org.mobicents.slee.container.activity.ActivityContext;
 import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.component.sbb.CMPFieldsLayout;
 import org.mobicents.slee.container.component.sbb.EventEntryDescriptor;
 import org.mobicents.slee.container.component.sbb.GetChildRelationMethodDescriptor;
 import org.mobicents.slee.container.component.sbb.SbbComponent;
@@ -132,6 +134,13 @@ public class SbbEntityImpl implements SbbEntity {
 			log.debug("Sbb entity "+getSbbEntityId()+" getting cmp field "+cmpFieldName);
 		}
 		sleeContainer.getTransactionManager().mandateTransaction();
+		final CMPFieldsLayout cmpFieldsLayout = getSbbComponent().getCMPFieldsLayout();
+		if (cmpFieldsLayout != null) {
+			final int slot = cmpFieldsLayout.getSlot(cmpFieldName);
+			if (slot >= 0) {
+				return getCMPFields(cmpFieldsLayout).get(slot);
+			}
+		}
 		return cacheData.getCmpField(cmpFieldName); 
 	}
 		
@@ -144,9 +153,85 @@ public class SbbEntityImpl implements SbbEntity {
 			log.debug("Sbb entity "+getSbbEntityId()+" setting cmp field "+cmpFieldName+" to value "+cmpFieldValue);
 		}
 		sleeContainer.getTransactionManager().mandateTransaction();							
+		final CMPFieldsLayout cmpFieldsLayout = getSbbComponent().getCMPFieldsLayout();
+		if (cmpFieldsLayout != null) {
+			final int slot = cmpFieldsLayout.getSlot(cmpFieldName);
+			if (slot >= 0) {
+				getCMPFields(cmpFieldsLayout).set(slot, cmpFieldValue);
+				return;
+			}
+		}
 		cacheData.setCmpField(cmpFieldName, cmpFieldValue);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.sbbentity.SbbEntity#getCMPField(int)
+	 */
+	public Object getCMPField(int slot) {
+		if (log.isDebugEnabled()) {
+			log.debug("Sbb entity "+getSbbEntityId()+" getting cmp field in slot "+slot);
+		}
+		sleeContainer.getTransactionManager().mandateTransaction();
+		return getCMPFields(getSbbComponent().getCMPFieldsLayout()).get(slot);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.sbbentity.SbbEntity#setCMPField(int, java.lang.Object)
+	 */
+	public void setCMPField(int slot, Object cmpFieldValue) {
+		if (log.isDebugEnabled()) {
+			log.debug("Sbb entity "+getSbbEntityId()+" setting cmp field in slot "+slot+" to value "+cmpFieldValue);
+		}
+		sleeContainer.getTransactionManager().mandateTransaction();
+		getCMPFields(getSbbComponent().getCMPFieldsLayout()).set(slot, cmpFieldValue);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.sbbentity.SbbEntity#getPrimitiveCMPField(int)
+	 */
+	public long getPrimitiveCMPField(int slot) {
+		if (log.isDebugEnabled()) {
+			log.debug("Sbb entity "+getSbbEntityId()+" getting cmp field in slot "+slot);
+		}
+		sleeContainer.getTransactionManager().mandateTransaction();
+		return getCMPFields(getSbbComponent().getCMPFieldsLayout()).getPrimitive(slot);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.sbbentity.SbbEntity#setPrimitiveCMPField(int, long)
+	 */
+	public void setPrimitiveCMPField(int slot, long cmpFieldValue) {
+		if (log.isDebugEnabled()) {
+			log.debug("Sbb entity "+getSbbEntityId()+" setting cmp field in slot "+slot+" to value "+cmpFieldValue);
+		}
+		sleeContainer.getTransactionManager().mandateTransaction();
+		getCMPFields(getSbbComponent().getCMPFieldsLayout()).setPrimitive(slot, cmpFieldValue);
+	}
+
+	/**
+	 * the cmp fields, loaded from cache on first access, if the sbb
+	 * component defines a cmp fields layout
+	 */
+	private SbbEntityCMPFields cmpFields;
+
+	private SbbEntityCMPFields getCMPFields(CMPFieldsLayout cmpFieldsLayout) {
+		if (cmpFields == null) {
+			cmpFields = new SbbEntityCMPFields(cmpFieldsLayout, cacheData.getCmpFields(), sleeContainer.getTransactionManager().getTransactionContext()) {
+				@Override
+				void store(Map<String, Object> changes) {
+					if (!cacheData.isRemoved()) {
+						cacheData.setCmpFields(changes);
+					}
+				}
+			};
+		}
+		return cmpFields;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.mobicents.slee.runtime.sbbentity.SbbEntity#afterACAttach(org.mobicents.slee.runtime.activity.ActivityContextHandle)
@@ -354,6 +439,7 @@ public class SbbEntityImpl implements SbbEntity {
 		}
 
 		cacheData.remove();
+		cmpFields = null;
 				
 		if (log.isDebugEnabled()) {
 			log.debug("Removed sbb entity " + getSbbEntityId());
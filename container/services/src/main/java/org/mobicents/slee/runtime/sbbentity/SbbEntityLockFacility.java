@@ -23,167 +23,200 @@
 package org.mobicents.slee.runtime.sbbentity;
 
 import org.apache.log4j.Logger;
-import org.infinispan.notifications.Listener;
-import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
-import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
-import org.infinispan.tree.Fqn;
-import org.infinispan.tree.impl.NodeKey;
-import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.sbbentity.SbbEntityID;
-import org.restcomm.cache.MobicentsCache;
+import org.mobicents.slee.container.sbbentity.SbbEntityLockUnavailableException;
 
-import javax.slee.ServiceID;
+import javax.slee.SLEEException;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Provides the locks which serialize the access to sbb entities, and
+ * collects statistics about their acquisition.
  * 
  * @author martins
  *
  */
-@Listener
-public class SbbEntityLockFacility {
+public abstract class SbbEntityLockFacility {
 
 	private static final Logger logger = Logger.getLogger(SbbEntityLockFacility.class);
-	private boolean doTraceLogs = logger.isTraceEnabled();
-	private boolean doInfoLogs = logger.isInfoEnabled();
 	
 	/**
+	 * the max time, in seconds, to wait for a lock
+	 */
+	private static final long LOCK_TIMEOUT = 10;
+	
+	private final AtomicLong acquisitions = new AtomicLong();
+	
+	private final AtomicLong contendedAcquisitions = new AtomicLong();
+	
+	private final AtomicLong timeouts = new AtomicLong();
+	
+	private final AtomicLong waitTime = new AtomicLong();
+	
+	private final AtomicLong maxWaitTime = new AtomicLong();
+	
+	/**
+	 * Retrieves the lock for the specified sbb entity.
+	 * @param sbbEntityId
+	 * @return
+	 */
+	public abstract ReentrantLock get(SbbEntityID sbbEntityId);
+	
+	/**
+	 * Indicates the lock for the specified sbb entity is not needed anymore.
+	 * @param sbbEntityId
+	 * @return the lock removed, if any
+	 */
+	public abstract ReentrantLock remove(SbbEntityID sbbEntityId);
+	
+	/**
+	 * Retrieves the ids of the sbb entities with a lock.
+	 * @return
+	 */
+	public abstract Set<SbbEntityID> getSbbEntitiesWithLocks();
+	
+	/**
+	 * Retrieves the number of lock objects held by the facility.
+	 * @return
+	 */
+	public abstract int getLocksCount();
+	
+	/**
+	 * Acquires the specified lock, waiting at most {@link #LOCK_TIMEOUT}
+	 * seconds.
 	 * 
+	 * @param lock
+	 * @param sbbeId
+	 * @throws SLEEException if the lock was not acquired
 	 */
-	private final ConcurrentHashMap<SbbEntityID,ReentrantLock> locks = new ConcurrentHashMap<SbbEntityID, ReentrantLock>();
+	public void lockOrFail(ReentrantLock lock, SbbEntityID sbbeId) throws SLEEException {
+		lockOrFail(lock, sbbeId, true);
+	}
 	
 	/**
+	 * Acquires the specified lock, waiting at most {@link #LOCK_TIMEOUT}
+	 * seconds if wait is allowed.
 	 * 
+	 * @param lock
+	 * @param sbbeId
+	 * @param wait
+	 *            if false and the lock is held by other thread the
+	 *            acquisition fails right away
+	 * @throws SbbEntityLockUnavailableException
+	 *             if the lock is held by other thread and wait is not
+	 *             allowed, by the caller or by {@link #isWaitAllowed(ReentrantLock)}
+	 * @throws SLEEException
+	 *             if the lock was not acquired
 	 */
-
-	public SbbEntityLockFacility(SleeContainer container) {
-		//container.getCluster().addDataRemovalListener(new DataRemovaClusterListener());
-		MobicentsCache cache = container.getCluster().getMobicentsCache();
-		if (!cache.isLocalMode()) {
-			// SergeyLee: test
-			cache.getJBossCache().getCache().addListener(this);
+	public void lockOrFail(ReentrantLock lock, SbbEntityID sbbeId, boolean wait) throws SLEEException {
+		final boolean doTraceLogs = logger.isTraceEnabled();
+		if (doTraceLogs) {
+			logger.trace(Thread.currentThread()+" trying to acquire lock "+lock+" for sbb entity with id "+sbbeId);
+		}
+		if (!lock.tryLock()) {
+			if (!wait || !isWaitAllowed(lock)) {
+				throw new SbbEntityLockUnavailableException("lock "+lock+" for sbb entity with id "+sbbeId+" is held by other thread");
+			}
+			// lock is held by other thread, wait for it
+			contendedAcquisitions.incrementAndGet();
+			final long startTime = System.nanoTime();
+			boolean locked;
+			try { 
+				locked = lock.tryLock(LOCK_TIMEOUT, TimeUnit.SECONDS);
+			}
+			catch (Throwable e) {
+				throw new SLEEException(e.getMessage(),e);
+			}
+			finally {
+				lockWaited(System.nanoTime() - startTime);
+			}
+			if (!locked) {
+				timeouts.incrementAndGet();
+				throw new SLEEException("timeout while acquiring lock "+lock+" for sbb entity with id "+sbbeId);
+			}
+		}
+		acquisitions.incrementAndGet();
+		if (doTraceLogs) {
+			logger.trace(Thread.currentThread()+" acquired lock "+lock+" for sbb entity with id "+sbbeId);
 		}
 	}
-
 	
 	/**
+	 * Indicates if the current thread, which failed to acquire the specified
+	 * lock right away, may wait for it without risking a deadlock with the
+	 * thread holding it.
 	 * 
-	 * @param sbbEntityId
+	 * @param lock
 	 * @return
 	 */
-	public ReentrantLock get(SbbEntityID sbbEntityId) {
-		ReentrantLock lock = locks.get(sbbEntityId);
-		if (lock == null) {
-			final ReentrantLock newLock = new ReentrantLock();
-			lock = locks.putIfAbsent(sbbEntityId, newLock);
-			if (lock == null) {
-				if(doInfoLogs) {
-					logger.info(Thread.currentThread()+" put of lock "+newLock+" for "+sbbEntityId);
-				}
-				lock = newLock;
+	protected boolean isWaitAllowed(ReentrantLock lock) {
+		return true;
+	}
+	
+	private void lockWaited(long time) {
+		waitTime.addAndGet(time);
+		long max = maxWaitTime.get();
+		while (time > max) {
+			if (maxWaitTime.compareAndSet(max, time)) {
+				break;
 			}
+			max = maxWaitTime.get();
 		}
-		return lock;
 	}
 	
 	/**
-	 * 
-	 * @param sbbEntityId
+	 * Retrieves the number of locks acquired.
 	 * @return
 	 */
-	public ReentrantLock remove(SbbEntityID sbbEntityId) {
-		if(doInfoLogs) {
-			logger.info(Thread.currentThread()+" removed lock for "+sbbEntityId);
-		}
-		return locks.remove(sbbEntityId);
+	public long getAcquisitions() {
+		return acquisitions.get();
 	}
 	
 	/**
-	 * 
+	 * Retrieves the number of lock acquisitions which had to wait for
+	 * another thread to release the lock, including the ones which timed out.
 	 * @return
 	 */
-	public Set<SbbEntityID> getSbbEntitiesWithLocks() {
-		return locks.keySet();
+	public long getContendedAcquisitions() {
+		return contendedAcquisitions.get();
 	}
 	
-	// FIXME this does not work in the new sbbe tree model, ensure cluster framework gets such feature
-	/*
-	private class DataRemovaClusterListener implements DataRemovalListener {
-
-		private final Fqn<?> baseFqn = null;
-		
-		@SuppressWarnings("unchecked")
-		public void dataRemoved(Fqn arg0) {
-			final SbbEntityID sbbEntityId = (SbbEntityID) arg0.getLastElement();
-			if(locks.remove(sbbEntityId) != null) {
-				if(doTraceLogs) {
-					logger.trace("Remotely removed lock for "+sbbEntityId);
-				}
-			}
-		}
-
-		@SuppressWarnings("unchecked")
-		public Fqn getBaseFqn() {
-			return baseFqn;
-		}
-		
-	}*/
-	
-	@CacheEntryRemoved
-	public void onNodeRemovedEvent(CacheEntryRemovedEvent event) {
-		if(!event.isOriginLocal() && !event.isPre()) {
-			// remote node removal
-			Fqn fqn = ((NodeKey)event.getKey()).getFqn();
-			if (fqn != null) {
-				if(doInfoLogs) {
-					logger.info("onNodeRemovedEvent( fqn = "+fqn+", size = "+fqn.size()+" )");
-				}
-				if (fqn.get(0).equals(SbbEntityFactoryCacheData.SBB_ENTITY_FACTORY_FQN_NAME)) {
-					// is child of sbb entity factory cache data, i.e., /sbbe
-					int fqnSize = fqn.size();
-					if (fqnSize < 3) {
-						return;
-					}
-					SbbEntityID sbbEntityID = null;
-					if (fqnSize == 3) {
-						// /sbbe/serviceid/convergenceName root sbb entity
-						ServiceID serviceID = (ServiceID) fqn.get(1);
-						String convergenceName = (String) fqn.get(2);
-						sbbEntityID = new RootSbbEntityID(serviceID, convergenceName);
-						if (doInfoLogs) {
-							logger.info("Root sbb entity " + sbbEntityID + " was remotely removed, ensuring there is no local lock");
-						}
-					} else {
-						// must end as /chd/chdRelationName/childId
-						if (!fqn.get(fqnSize - 3).equals(SbbEntityCacheData.CHILD_RELATIONs_CHILD_NODE_NAME)) {
-							return;
-						}
-						// let get the party started and rebuild the sbb entity id!
-						ServiceID serviceID = (ServiceID) fqn.get(1);
-						String convergenceName = (String) fqn.get(2);
-						sbbEntityID = new RootSbbEntityID(serviceID, convergenceName);
-						int i = 3;
-						while (fqnSize >= i + 3) {
-							// fqn get(i) is chd, skip
-							String childRelationName = (String) fqn.get(i + 1);
-							String childId = (String) fqn.get(i + 2);
-							sbbEntityID = new NonRootSbbEntityID(sbbEntityID, childRelationName, childId);
-							i += 3;
-						}
-						if (doInfoLogs) {
-							logger.info("Non root sbb entity " + sbbEntityID + " was remotely removed, ensuring there is no local lock");
-						}
-					}
-					if (locks.remove(sbbEntityID) != null) {
-						if (doInfoLogs) {
-							logger.info("Remotely removed lock for " + sbbEntityID);
-						}
-					}
-				}
-			}
-		}
-	}	
-		
- }
\ No newline at end of file
+	/**
+	 * Retrieves the number of lock acquisitions which timed out.
+	 * @return
+	 */
+	public long getTimeouts() {
+		return timeouts.get();
+	}
+	
+	/**
+	 * Retrieves the total time, in nanoseconds, waited to acquire locks.
+	 * @return
+	 */
+	public long getWaitTime() {
+		return waitTime.get();
+	}
+	
+	/**
+	 * Retrieves the max time, in nanoseconds, waited to acquire a lock.
+	 * @return
+	 */
+	public long getMaxWaitTime() {
+		return maxWaitTime.get();
+	}
+	
+	/**
+	 * Resets the lock acquisition statistics.
+	 */
+	public void resetStatistics() {
+		acquisitions.set(0);
+		contendedAcquisitions.set(0);
+		timeouts.set(0);
+		waitTime.set(0);
+		maxWaitTime.set(0);
+	}
+	
+}
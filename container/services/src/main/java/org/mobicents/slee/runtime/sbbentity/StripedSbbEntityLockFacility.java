@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.sbbentity;
+
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link SbbEntityLockFacility} with a fixed number of locks, each shared
+ * by all sbb entities with ids hashing to it, thus locks are never created
+ * or removed once the facility is built.
+ * 
+ * Sbb entities sharing a lock are serialized, so the number of locks should
+ * be much higher than the number of event router threads. Since locks are
+ * reentrant a thread may hold the lock of multiple sbb entities in the same
+ * stripe.
+ * 
+ * A thread may also hold the locks of sbb entities in different stripes, for
+ * instance when multiple deliveries are batched in the same transaction, so
+ * a thread only waits for a stripe if it holds no stripe with higher index.
+ * Any chain of waiting threads thus follows increasing stripe indexes and
+ * can't close a cycle.
+ * 
+ * @author martins
+ *
+ */
+public class StripedSbbEntityLockFacility extends SbbEntityLockFacility {
+
+	private final ReentrantLock[] locks;
+	
+	private final int mask;
+	
+	/**
+	 * 
+	 * @param stripes
+	 *            the number of locks, rounded up to a power of two
+	 */
+	public StripedSbbEntityLockFacility(int stripes) {
+		int size = 1;
+		while (size < stripes) {
+			size <<= 1;
+		}
+		this.locks = new ReentrantLock[size];
+		for (int i = 0; i < size; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		this.mask = size - 1;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.sbbentity.SbbEntityLockFacility#get(org.mobicents.slee.container.sbbentity.SbbEntityID)
+	 */
+	public ReentrantLock get(SbbEntityID sbbEntityId) {
+		int hash = sbbEntityId.hashCode();
+		// only the low bits select the stripe, fold the upper half of the
+		// root sbb entity id hash (convergence name hash * 31 + service id
+		// hash) into them
+		hash ^= (hash >>> 16);
+		return locks[hash & mask];
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.sbbentity.SbbEntityLockFacility#isWaitAllowed(java.util.concurrent.locks.ReentrantLock)
+	 */
+	@Override
+	protected boolean isWaitAllowed(ReentrantLock lock) {
+		// only in the contended path, scan the stripes above the one wanted
+		for (int i = locks.length - 1; i >= 0 && locks[i] != lock; i--) {
+			if (locks[i].isHeldByCurrentThread()) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.sbbentity.SbbEntityLockFacility#remove(org.mobicents.slee.container.sbbentity.SbbEntityID)
+	 */
+	public ReentrantLock remove(SbbEntityID sbbEntityId) {
+		// locks are shared and never removed
+		return null;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.sbbentity.SbbEntityLockFacility#getSbbEntitiesWithLocks()
+	 */
+	public Set<SbbEntityID> getSbbEntitiesWithLocks() {
+		return Collections.emptySet();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.sbbentity.SbbEntityLockFacility#getLocksCount()
+	 */
+	public int getLocksCount() {
+		return locks.length;
+	}
+	
+}
@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.component.sbb;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author martins
+ *
+ */
+public class CMPFieldsLayoutTest {
+
+	private static final String[] NAMES = { "ref", "bool", "b", "c", "s", "i", "l", "f", "d" };
+	
+	private static final char[] TYPES = { CMPFieldsLayout.TYPE_REFERENCE,
+			CMPFieldsLayout.TYPE_BOOLEAN, CMPFieldsLayout.TYPE_BYTE,
+			CMPFieldsLayout.TYPE_CHAR, CMPFieldsLayout.TYPE_SHORT,
+			CMPFieldsLayout.TYPE_INT, CMPFieldsLayout.TYPE_LONG,
+			CMPFieldsLayout.TYPE_FLOAT, CMPFieldsLayout.TYPE_DOUBLE };
+	
+	@Test
+	public void testSlots() throws Exception {
+		final CMPFieldsLayout layout = new CMPFieldsLayout(NAMES, TYPES);
+		Assert.assertEquals(NAMES.length, layout.size());
+		for (int slot = 0; slot < NAMES.length; slot++) {
+			Assert.assertEquals(NAMES[slot], layout.getName(slot));
+			Assert.assertEquals(TYPES[slot], layout.getType(slot));
+			Assert.assertEquals(slot, layout.getSlot(NAMES[slot]));
+		}
+		Assert.assertEquals(-1, layout.getSlot("unknown"));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testSizesMismatch() throws Exception {
+		new CMPFieldsLayout(new String[] { "a", "b" }, new char[] { CMPFieldsLayout.TYPE_INT });
+	}
+	
+	@Test
+	public void testTypeDescriptor() throws Exception {
+		Assert.assertEquals(CMPFieldsLayout.TYPE_BOOLEAN, CMPFieldsLayout.getTypeDescriptor("boolean"));
+		Assert.assertEquals(CMPFieldsLayout.TYPE_BYTE, CMPFieldsLayout.getTypeDescriptor("byte"));
+		Assert.assertEquals(CMPFieldsLayout.TYPE_CHAR, CMPFieldsLayout.getTypeDescriptor("char"));
+		Assert.assertEquals(CMPFieldsLayout.TYPE_SHORT, CMPFieldsLayout.getTypeDescriptor("short"));
+		Assert.assertEquals(CMPFieldsLayout.TYPE_INT, CMPFieldsLayout.getTypeDescriptor("int"));
+		Assert.assertEquals(CMPFieldsLayout.TYPE_LONG, CMPFieldsLayout.getTypeDescriptor("long"));
+		Assert.assertEquals(CMPFieldsLayout.TYPE_FLOAT, CMPFieldsLayout.getTypeDescriptor("float"));
+		Assert.assertEquals(CMPFieldsLayout.TYPE_DOUBLE, CMPFieldsLayout.getTypeDescriptor("double"));
+		// wrappers are references, these may be null
+		Assert.assertEquals(CMPFieldsLayout.TYPE_REFERENCE, CMPFieldsLayout.getTypeDescriptor(Integer.class.getName()));
+		Assert.assertEquals(CMPFieldsLayout.TYPE_REFERENCE, CMPFieldsLayout.getTypeDescriptor(String.class.getName()));
+	}
+	
+	@Test
+	public void testBoxAndUnbox() throws Exception {
+		assertRoundTrip(CMPFieldsLayout.TYPE_BOOLEAN, Boolean.TRUE);
+		assertRoundTrip(CMPFieldsLayout.TYPE_BOOLEAN, Boolean.FALSE);
+		assertRoundTrip(CMPFieldsLayout.TYPE_BYTE, Byte.valueOf(Byte.MIN_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_BYTE, Byte.valueOf(Byte.MAX_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_CHAR, Character.valueOf(Character.MAX_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_CHAR, Character.valueOf('x'));
+		assertRoundTrip(CMPFieldsLayout.TYPE_SHORT, Short.valueOf(Short.MIN_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_SHORT, Short.valueOf(Short.MAX_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_INT, Integer.valueOf(Integer.MIN_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_INT, Integer.valueOf(Integer.MAX_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_LONG, Long.valueOf(Long.MIN_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_LONG, Long.valueOf(Long.MAX_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_FLOAT, Float.valueOf(-1.5f));
+		assertRoundTrip(CMPFieldsLayout.TYPE_FLOAT, Float.valueOf(Float.MAX_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_FLOAT, Float.valueOf(Float.NaN));
+		assertRoundTrip(CMPFieldsLayout.TYPE_DOUBLE, Double.valueOf(-1.5d));
+		assertRoundTrip(CMPFieldsLayout.TYPE_DOUBLE, Double.valueOf(Double.MIN_VALUE));
+		assertRoundTrip(CMPFieldsLayout.TYPE_DOUBLE, Double.valueOf(Double.NEGATIVE_INFINITY));
+		// floats are kept as their bits, not as the numeric value
+		Assert.assertEquals(Float.floatToRawIntBits(2.5f), CMPFieldsLayout.unbox(CMPFieldsLayout.TYPE_FLOAT, Float.valueOf(2.5f)));
+		Assert.assertEquals(Double.doubleToRawLongBits(2.5d), CMPFieldsLayout.unbox(CMPFieldsLayout.TYPE_DOUBLE, Double.valueOf(2.5d)));
+	}
+	
+	@Test
+	public void testUnboxNull() throws Exception {
+		// an unset primitive field has the default value of the type
+		for (int slot = 1; slot < TYPES.length; slot++) {
+			Assert.assertEquals(0, CMPFieldsLayout.unbox(TYPES[slot], null));
+		}
+		Assert.assertEquals(Boolean.FALSE, CMPFieldsLayout.box(CMPFieldsLayout.TYPE_BOOLEAN, 0));
+		Assert.assertEquals(Byte.valueOf((byte) 0), CMPFieldsLayout.box(CMPFieldsLayout.TYPE_BYTE, 0));
+		Assert.assertEquals(Character.valueOf((char) 0), CMPFieldsLayout.box(CMPFieldsLayout.TYPE_CHAR, 0));
+		Assert.assertEquals(Short.valueOf((short) 0), CMPFieldsLayout.box(CMPFieldsLayout.TYPE_SHORT, 0));
+		Assert.assertEquals(Integer.valueOf(0), CMPFieldsLayout.box(CMPFieldsLayout.TYPE_INT, 0));
+		Assert.assertEquals(Long.valueOf(0), CMPFieldsLayout.box(CMPFieldsLayout.TYPE_LONG, 0));
+		Assert.assertEquals(Float.valueOf(0), CMPFieldsLayout.box(CMPFieldsLayout.TYPE_FLOAT, 0));
+		Assert.assertEquals(Double.valueOf(0), CMPFieldsLayout.box(CMPFieldsLayout.TYPE_DOUBLE, 0));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testBoxReference() throws Exception {
+		CMPFieldsLayout.box(CMPFieldsLayout.TYPE_REFERENCE, 0);
+	}
+	
+	private void assertRoundTrip(char type, Object value) {
+		Assert.assertEquals(value, CMPFieldsLayout.box(type, CMPFieldsLayout.unbox(type, value)));
+	}
+	
+}
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.slee.ServiceID;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+import org.mobicents.slee.runtime.sbbentity.RootSbbEntityID;
+import org.mobicents.slee.runtime.sbbentity.SbbEntityFactoryImpl;
+import org.mobicents.slee.runtime.sbbentity.SbbEntityLockFacility;
+
+/**
+ * 
+ * @author martins
+ *
+ */
+public class SbbEntityLockStatisticsTest {
+
+	private static final ServiceID SERVICE_ID = new ServiceID("name", "vendor", "1.0");
+	
+	@Test
+	public void testNotInitialized() throws Exception {
+		final SbbEntityLockStatistics statistics = new SbbEntityLockStatistics(new SbbEntityFactoryImpl(16));
+		Assert.assertEquals(0, statistics.getLockStripes());
+		Assert.assertEquals(0, statistics.getLocks());
+		Assert.assertEquals(0, statistics.getLockAcquisitions());
+		Assert.assertEquals(0, statistics.getContendedLockAcquisitions());
+		Assert.assertEquals(0, statistics.getLockTimeouts());
+		Assert.assertEquals(0, statistics.getLockWaitTime());
+		Assert.assertEquals(0, statistics.getMaxLockWaitTime());
+		statistics.resetStatistics();
+	}
+	
+	@Test
+	public void testStripedLocks() throws Exception {
+		final SbbEntityFactoryImpl sbbEntityFactory = new SbbEntityFactoryImpl(10);
+		sbbEntityFactory.sleeInitialization();
+		final SbbEntityLockStatistics statistics = new SbbEntityLockStatistics(sbbEntityFactory);
+		Assert.assertEquals(16, statistics.getLockStripes());
+		Assert.assertEquals(16, statistics.getLocks());
+		
+		final SbbEntityLockFacility lockFacility = sbbEntityFactory.getLockFacility();
+		final SbbEntityID sbbEntityID = new RootSbbEntityID(SERVICE_ID, "a");
+		final ReentrantLock lock = lockFacility.get(sbbEntityID);
+		lockFacility.lockOrFail(lock, sbbEntityID);
+		lockFacility.lockOrFail(lock, sbbEntityID);
+		lock.unlock();
+		lock.unlock();
+		Assert.assertEquals(2, statistics.getLockAcquisitions());
+		Assert.assertEquals(0, statistics.getContendedLockAcquisitions());
+		Assert.assertEquals(0, statistics.getLockTimeouts());
+		
+		statistics.resetStatistics();
+		Assert.assertEquals(0, statistics.getLockAcquisitions());
+		// stripes are not statistics
+		Assert.assertEquals(16, statistics.getLockStripes());
+	}
+	
+}
@@ -0,0 +1,211 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.sbb;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.pool.PoolableObjectFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mobicents.slee.container.SleeThreadLocals;
+
+/**
+ * 
+ * @author martins
+ *
+ */
+public class LockFreeObjectPoolTest {
+
+	private static class TestObjectFactory implements PoolableObjectFactory {
+
+		final AtomicInteger made = new AtomicInteger();
+		final AtomicInteger destroyed = new AtomicInteger();
+
+		public Object makeObject() throws Exception {
+			made.incrementAndGet();
+			return new Object();
+		}
+
+		public void destroyObject(Object obj) throws Exception {
+			destroyed.incrementAndGet();
+		}
+
+		public boolean validateObject(Object obj) {
+			return true;
+		}
+
+		public void activateObject(Object obj) throws Exception {
+		}
+
+		public void passivateObject(Object obj) throws Exception {
+		}
+	}
+
+	/**
+	 * Runs the specified runnable in a new thread, which is an event router
+	 * thread if requested, and waits for it to end.
+	 */
+	private static void runInThread(final Runnable runnable, final boolean eventRouterThread) throws Exception {
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final Thread thread = new Thread() {
+			public void run() {
+				if (eventRouterThread) {
+					SleeThreadLocals.setEventRouterThread();
+				}
+				try {
+					runnable.run();
+				} catch (Throwable e) {
+					failure.set(e);
+				}
+			}
+		};
+		thread.start();
+		thread.join(10000);
+		Assert.assertFalse(thread.isAlive());
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+	}
+
+	private static Runnable borrowAndReturn(final LockFreeObjectPool pool, final AtomicReference<Object> borrowed) {
+		return new Runnable() {
+			public void run() {
+				try {
+					final Object obj = pool.borrowObject();
+					if (borrowed != null) {
+						borrowed.set(obj);
+					}
+					pool.returnObject(obj);
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+	}
+
+	@Test
+	public void testOtherThreadsUseSharedStack() throws Exception {
+		final TestObjectFactory factory = new TestObjectFactory();
+		final LockFreeObjectPool pool = new LockFreeObjectPool(factory, -1, -1, 4, false, false);
+		final AtomicReference<Object> first = new AtomicReference<Object>();
+		final AtomicReference<Object> second = new AtomicReference<Object>();
+		runInThread(borrowAndReturn(pool, first), false);
+		Assert.assertEquals(1, pool.getNumIdle());
+		// the object returned by the terminated thread is reused by another one
+		runInThread(borrowAndReturn(pool, second), false);
+		Assert.assertSame(first.get(), second.get());
+		Assert.assertEquals(1, factory.made.get());
+		Assert.assertEquals(1, pool.getNumIdle());
+		Assert.assertEquals(0, pool.getNumActive());
+	}
+
+	@Test
+	public void testEventRouterThreadsUseLocalFreeList() throws Exception {
+		final TestObjectFactory factory = new TestObjectFactory();
+		final LockFreeObjectPool pool = new LockFreeObjectPool(factory, -1, -1, 4, false, false);
+		final AtomicReference<Object> first = new AtomicReference<Object>();
+		final AtomicReference<Object> second = new AtomicReference<Object>();
+		runInThread(borrowAndReturn(pool, first), true);
+		Assert.assertEquals(1, pool.getNumIdle());
+		// the object is in the free list of the event router thread
+		runInThread(borrowAndReturn(pool, second), false);
+		Assert.assertNotSame(first.get(), second.get());
+		Assert.assertEquals(2, factory.made.get());
+		Assert.assertEquals(2, pool.getNumIdle());
+		// clear destroys the objects in both the local free list and the shared stack
+		pool.clear();
+		Assert.assertEquals(0, pool.getNumIdle());
+		Assert.assertEquals(2, factory.destroyed.get());
+	}
+
+	@Test
+	public void testConcurrentBorrowReturnAndClear() throws Exception {
+		final TestObjectFactory factory = new TestObjectFactory();
+		final int maxActive = 4;
+		final LockFreeObjectPool pool = new LockFreeObjectPool(factory, maxActive, 8, 2, false, false);
+		final int threads = 8;
+		final int iterations = 2000;
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActiveSeen = new AtomicInteger();
+		final AtomicInteger exhausted = new AtomicInteger();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			final boolean eventRouterThread = i % 2 == 0;
+			new Thread() {
+				public void run() {
+					if (eventRouterThread) {
+						SleeThreadLocals.setEventRouterThread();
+					}
+					try {
+						start.await();
+						for (int j = 0; j < iterations; j++) {
+							final Object obj;
+							try {
+								obj = pool.borrowObject();
+							} catch (NoSuchElementException e) {
+								exhausted.incrementAndGet();
+								Thread.yield();
+								continue;
+							}
+							final int nowActive = active.incrementAndGet();
+							int max = maxActiveSeen.get();
+							while (nowActive > max && !maxActiveSeen.compareAndSet(max, nowActive)) {
+								max = maxActiveSeen.get();
+							}
+							if (j % 10 == 0) {
+								Thread.yield();
+							}
+							active.decrementAndGet();
+							pool.returnObject(obj);
+							if (j % 100 == 0) {
+								pool.clear();
+							}
+						}
+					} catch (Throwable e) {
+						failure.set(e);
+					} finally {
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+		start.countDown();
+		done.await();
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		Assert.assertTrue(maxActiveSeen.get() <= maxActive);
+		Assert.assertEquals(0, pool.getNumActive());
+		// every object made is either idle or destroyed
+		Assert.assertEquals(factory.made.get() - factory.destroyed.get(), pool.getNumIdle());
+		pool.close();
+		Assert.assertEquals(0, pool.getNumIdle());
+		Assert.assertEquals(factory.made.get(), factory.destroyed.get());
+	}
+
+}
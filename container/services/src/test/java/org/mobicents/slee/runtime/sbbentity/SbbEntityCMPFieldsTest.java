@@ -0,0 +1,458 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.sbbentity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.slee.ActivityContextInterface;
+import javax.slee.EventTypeID;
+import javax.slee.SbbID;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mobicents.slee.container.activity.ActivityContext;
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.component.sbb.CMPFieldsLayout;
+import org.mobicents.slee.container.component.sbb.SbbComponent;
+import org.mobicents.slee.container.event.EventContext;
+import org.mobicents.slee.container.eventrouter.EventRoutingTransactionData;
+import org.mobicents.slee.container.sbb.SbbLocalObject;
+import org.mobicents.slee.container.sbb.SbbObject;
+import org.mobicents.slee.container.sbb.SbbObjectPool;
+import org.mobicents.slee.container.sbbentity.ChildRelation;
+import org.mobicents.slee.container.sbbentity.SbbEntity;
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+import org.mobicents.slee.container.transaction.TransactionContext;
+import org.mobicents.slee.container.transaction.TransactionalAction;
+import org.mobicents.slee.runtime.sbb.SbbAbstractMethodHandler;
+
+/**
+ * 
+ * @author martins
+ *
+ */
+public class SbbEntityCMPFieldsTest {
+
+	private static final int REFERENCE = 0;
+	private static final int BOOLEAN = 1;
+	private static final int BYTE = 2;
+	private static final int CHAR = 3;
+	private static final int SHORT = 4;
+	private static final int INT = 5;
+	private static final int LONG = 6;
+	private static final int FLOAT = 7;
+	private static final int DOUBLE = 8;
+
+	private static final CMPFieldsLayout LAYOUT = new CMPFieldsLayout(
+			new String[] { "ref", "bool", "b", "c", "s", "i", "l", "f", "d" },
+			new char[] { CMPFieldsLayout.TYPE_REFERENCE,
+					CMPFieldsLayout.TYPE_BOOLEAN, CMPFieldsLayout.TYPE_BYTE,
+					CMPFieldsLayout.TYPE_CHAR, CMPFieldsLayout.TYPE_SHORT,
+					CMPFieldsLayout.TYPE_INT, CMPFieldsLayout.TYPE_LONG,
+					CMPFieldsLayout.TYPE_FLOAT, CMPFieldsLayout.TYPE_DOUBLE });
+
+	@Test
+	public void testUnsetFields() throws Exception {
+		final TestCMPFields fields = new TestCMPFields(Collections.<String, Object> emptyMap(), new TestTransactionContext());
+		assertUnsetFields(fields);
+		// fields missing in the cache are unset too
+		final Map<String, Object> cacheValues = new HashMap<String, Object>();
+		cacheValues.put("unknown", Integer.valueOf(1));
+		assertUnsetFields(new TestCMPFields(cacheValues, new TestTransactionContext()));
+	}
+
+	private void assertUnsetFields(TestCMPFields fields) {
+		Assert.assertNull(fields.get(REFERENCE));
+		for (int slot = BOOLEAN; slot <= DOUBLE; slot++) {
+			Assert.assertEquals(0, fields.getPrimitive(slot));
+		}
+		Assert.assertEquals(Boolean.FALSE, fields.get(BOOLEAN));
+		Assert.assertEquals(Byte.valueOf((byte) 0), fields.get(BYTE));
+		Assert.assertEquals(Character.valueOf((char) 0), fields.get(CHAR));
+		Assert.assertEquals(Short.valueOf((short) 0), fields.get(SHORT));
+		Assert.assertEquals(Integer.valueOf(0), fields.get(INT));
+		Assert.assertEquals(Long.valueOf(0), fields.get(LONG));
+		Assert.assertEquals(Float.valueOf(0), fields.get(FLOAT));
+		Assert.assertEquals(Double.valueOf(0), fields.get(DOUBLE));
+	}
+
+	@Test
+	public void testLoadFromCache() throws Exception {
+		final Map<String, Object> cacheValues = getCacheValues();
+		final TestCMPFields fields = new TestCMPFields(cacheValues, new TestTransactionContext());
+		for (int slot = REFERENCE; slot <= DOUBLE; slot++) {
+			Assert.assertEquals(cacheValues.get(LAYOUT.getName(slot)), fields.get(slot));
+		}
+		Assert.assertEquals(1, fields.getPrimitive(BOOLEAN));
+		Assert.assertEquals(-1, fields.getPrimitive(INT));
+		Assert.assertEquals(Float.floatToRawIntBits(1.5f), fields.getPrimitive(FLOAT));
+		Assert.assertEquals(Double.doubleToRawLongBits(-2.5d), fields.getPrimitive(DOUBLE));
+	}
+
+	@Test
+	public void testSetBySlot() throws Exception {
+		final TestCMPFields fields = new TestCMPFields(Collections.<String, Object> emptyMap(), new TestTransactionContext());
+		// boxed values of primitive fields are unboxed
+		fields.set(INT, Integer.valueOf(7));
+		Assert.assertEquals(7, fields.getPrimitive(INT));
+		fields.set(BOOLEAN, Boolean.TRUE);
+		Assert.assertEquals(1, fields.getPrimitive(BOOLEAN));
+		// setting null in a primitive field sets its default value
+		fields.set(INT, null);
+		Assert.assertEquals(0, fields.getPrimitive(INT));
+		// primitive values are boxed on get
+		fields.setPrimitive(LONG, Long.MAX_VALUE);
+		Assert.assertEquals(Long.valueOf(Long.MAX_VALUE), fields.get(LONG));
+		fields.setPrimitive(DOUBLE, Double.doubleToRawLongBits(0.25d));
+		Assert.assertEquals(Double.valueOf(0.25d), fields.get(DOUBLE));
+		fields.setPrimitive(CHAR, 'z');
+		Assert.assertEquals(Character.valueOf('z'), fields.get(CHAR));
+		final Object reference = new Object();
+		fields.set(REFERENCE, reference);
+		Assert.assertSame(reference, fields.get(REFERENCE));
+	}
+
+	@Test
+	public void testBeforeCommitStore() throws Exception {
+		final TestTransactionContext txContext = new TestTransactionContext();
+		final TestCMPFields fields = new TestCMPFields(getCacheValues(), txContext);
+		// reads do not write to the cache
+		fields.get(REFERENCE);
+		fields.getPrimitive(INT);
+		Assert.assertTrue(txContext.beforeCommitActions.isEmpty());
+		// changes are written once, before commit
+		fields.setPrimitive(INT, 5);
+		fields.set(REFERENCE, "b");
+		fields.setPrimitive(INT, 6);
+		Assert.assertEquals(1, txContext.beforeCommitActions.size());
+		Assert.assertTrue(fields.stores.isEmpty());
+		txContext.beforeCommit();
+		Assert.assertEquals(1, fields.stores.size());
+		final Map<String, Object> expected = new HashMap<String, Object>();
+		expected.put("i", Integer.valueOf(6));
+		expected.put("ref", "b");
+		Assert.assertEquals(expected, fields.stores.get(0));
+		// after that changes are written directly
+		fields.setPrimitive(LONG, 3);
+		Assert.assertEquals(1, txContext.beforeCommitActions.size());
+		Assert.assertEquals(2, fields.stores.size());
+		Assert.assertEquals(Collections.singletonMap("l", Long.valueOf(3)), fields.stores.get(1));
+	}
+
+	@Test
+	public void testNoChangesNoStore() throws Exception {
+		final TestTransactionContext txContext = new TestTransactionContext();
+		final TestCMPFields fields = new TestCMPFields(getCacheValues(), txContext);
+		for (int slot = REFERENCE; slot <= DOUBLE; slot++) {
+			fields.get(slot);
+		}
+		Assert.assertTrue(txContext.beforeCommitActions.isEmpty());
+		Assert.assertTrue(fields.getChanges().isEmpty());
+	}
+
+	@Test
+	public void testGeneratedAccessorsRoundTrip() throws Exception {
+		// the generated cmp accessors invoke the handler with the slot
+		final TestTransactionContext txContext = new TestTransactionContext();
+		final TestSbbEntity sbbEntity = new TestSbbEntity(new TestCMPFields(Collections.<String, Object> emptyMap(), txContext));
+		Assert.assertFalse(SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeBoolean(sbbEntity, BOOLEAN));
+		Assert.assertEquals(0, SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeInteger(sbbEntity, INT));
+		Assert.assertEquals(0f, SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeFloat(sbbEntity, FLOAT), 0f);
+		SbbAbstractMethodHandler.setCMPFieldOfTypePrimitiveOrUnknown(sbbEntity, REFERENCE, "a");
+		SbbAbstractMethodHandler.setPrimitiveCMPField(sbbEntity, BOOLEAN, true);
+		SbbAbstractMethodHandler.setPrimitiveCMPField(sbbEntity, BYTE, (byte) -2);
+		SbbAbstractMethodHandler.setPrimitiveCMPField(sbbEntity, CHAR, 'c');
+		SbbAbstractMethodHandler.setPrimitiveCMPField(sbbEntity, SHORT, (short) -3);
+		SbbAbstractMethodHandler.setPrimitiveCMPField(sbbEntity, INT, -4);
+		SbbAbstractMethodHandler.setPrimitiveCMPField(sbbEntity, LONG, -5L);
+		SbbAbstractMethodHandler.setPrimitiveCMPField(sbbEntity, FLOAT, -6.5f);
+		SbbAbstractMethodHandler.setPrimitiveCMPField(sbbEntity, DOUBLE, -7.5d);
+		Assert.assertEquals("a", SbbAbstractMethodHandler.getCMPFieldOfTypeUnknown(sbbEntity, REFERENCE));
+		Assert.assertTrue(SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeBoolean(sbbEntity, BOOLEAN));
+		Assert.assertEquals((byte) -2, SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeByte(sbbEntity, BYTE));
+		Assert.assertEquals('c', SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeChar(sbbEntity, CHAR));
+		Assert.assertEquals((short) -3, SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeShort(sbbEntity, SHORT));
+		Assert.assertEquals(-4, SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeInteger(sbbEntity, INT));
+		Assert.assertEquals(-5L, SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeLong(sbbEntity, LONG));
+		Assert.assertEquals(-6.5f, SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeFloat(sbbEntity, FLOAT), 0f);
+		Assert.assertEquals(-7.5d, SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeDouble(sbbEntity, DOUBLE), 0d);
+		// the values written to the cache are boxed and keyed by name, as
+		// when fields are accessed by name, and load back in the same slots
+		txContext.beforeCommit();
+		final Map<String, Object> stored = sbbEntity.cmpFields.stores.get(0);
+		Assert.assertEquals(getCacheValues().keySet(), stored.keySet());
+		Assert.assertEquals(Integer.valueOf(-4), stored.get("i"));
+		Assert.assertEquals(Float.valueOf(-6.5f), stored.get("f"));
+		final TestSbbEntity loadedSbbEntity = new TestSbbEntity(new TestCMPFields(stored, new TestTransactionContext()));
+		Assert.assertEquals("a", SbbAbstractMethodHandler.getCMPFieldOfTypeUnknown(loadedSbbEntity, REFERENCE));
+		Assert.assertEquals(Integer.valueOf(-4), SbbAbstractMethodHandler.getCMPFieldOfTypeInteger(loadedSbbEntity, INT));
+		Assert.assertEquals('c', SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeChar(loadedSbbEntity, CHAR));
+		Assert.assertEquals(-7.5d, SbbAbstractMethodHandler.getPrimitiveCMPFieldOfTypeDouble(loadedSbbEntity, DOUBLE), 0d);
+	}
+
+	private static Map<String, Object> getCacheValues() {
+		final Map<String, Object> cacheValues = new HashMap<String, Object>();
+		cacheValues.put("ref", "a");
+		cacheValues.put("bool", Boolean.TRUE);
+		cacheValues.put("b", Byte.valueOf((byte) -1));
+		cacheValues.put("c", Character.valueOf('c'));
+		cacheValues.put("s", Short.valueOf((short) -1));
+		cacheValues.put("i", Integer.valueOf(-1));
+		cacheValues.put("l", Long.valueOf(-1));
+		cacheValues.put("f", Float.valueOf(1.5f));
+		cacheValues.put("d", Double.valueOf(-2.5d));
+		return cacheValues;
+	}
+
+	/**
+	 * The cmp fields, storing the changes in a list instead of the cache.
+	 */
+	private static class TestCMPFields extends SbbEntityCMPFields {
+
+		private final List<Map<String, Object>> stores = new ArrayList<Map<String, Object>>();
+
+		TestCMPFields(Map<String, Object> cacheValues, TransactionContext txContext) {
+			super(LAYOUT, cacheValues, txContext);
+		}
+
+		@Override
+		void store(Map<String, Object> changes) {
+			stores.add(changes);
+		}
+
+	}
+
+	private static class TestTransactionContext implements TransactionContext {
+
+		private final List<TransactionalAction> beforeCommitActions = new ArrayList<TransactionalAction>();
+
+		void beforeCommit() {
+			for (TransactionalAction action : beforeCommitActions) {
+				action.execute();
+			}
+		}
+
+		public List<TransactionalAction> getAfterCommitActions() {
+			return null;
+		}
+
+		public List<TransactionalAction> getAfterCommitPriorityActions() {
+			return null;
+		}
+
+		public List<TransactionalAction> getAfterCommitCompletedActions() {
+			return null;
+		}
+
+		public List<TransactionalAction> getAfterRollbackActions() {
+			return null;
+		}
+
+		public List<TransactionalAction> getBeforeCommitActions() {
+			return beforeCommitActions;
+		}
+
+		public List<TransactionalAction> getBeforeCommitPriorityActions() {
+			return null;
+		}
+
+		@SuppressWarnings("rawtypes")
+		public Map getData() {
+			return null;
+		}
+
+		public EventRoutingTransactionData getEventRoutingTransactionData() {
+			return null;
+		}
+
+		public void setEventRoutingTransactionData(EventRoutingTransactionData eventRoutingTransactionData) {
+		}
+
+		public Set<SbbEntityID> getInvokedNonReentrantSbbEntities() {
+			return null;
+		}
+
+		public boolean isSbbEntityLockWaitAllowed() {
+			return true;
+		}
+
+		public void setSbbEntityLockWaitAllowed(boolean sbbEntityLockWaitAllowed) {
+		}
+
+	}
+
+	/**
+	 * A sbb entity with only the cmp fields by slot.
+	 */
+	private static class TestSbbEntity implements SbbEntity {
+
+		private final TestCMPFields cmpFields;
+
+		TestSbbEntity(TestCMPFields cmpFields) {
+			this.cmpFields = cmpFields;
+		}
+
+		public void setCMPField(int slot, Object cmpFieldValue) {
+			cmpFields.set(slot, cmpFieldValue);
+		}
+
+		public Object getCMPField(int slot) {
+			return cmpFields.get(slot);
+		}
+
+		public void setPrimitiveCMPField(int slot, long cmpFieldValue) {
+			cmpFields.setPrimitive(slot, cmpFieldValue);
+		}
+
+		public long getPrimitiveCMPField(int slot) {
+			return cmpFields.getPrimitive(slot);
+		}
+
+		public SbbEntityID getSbbEntityId() {
+			throw new UnsupportedOperationException();
+		}
+
+		public SbbID getSbbId() {
+			throw new UnsupportedOperationException();
+		}
+
+		public SbbComponent getSbbComponent() {
+			throw new UnsupportedOperationException();
+		}
+
+		public Set<ActivityContextHandle> getActivityContexts() {
+			throw new UnsupportedOperationException();
+		}
+
+		public String[] getEventMask(ActivityContextHandle ach) {
+			throw new UnsupportedOperationException();
+		}
+
+		public boolean isAttached(ActivityContextHandle ach) {
+			throw new UnsupportedOperationException();
+		}
+
+		public SbbLocalObject getSbbLocalObject() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void setEventMask(ActivityContextHandle ach, String[] eventNames) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void afterACDetach(ActivityContextHandle ach) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void afterACAttach(ActivityContextHandle ach) {
+			throw new UnsupportedOperationException();
+		}
+
+		public int getAttachmentCount() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		public SbbObjectPool getObjectPool() {
+			throw new UnsupportedOperationException();
+		}
+
+		public SbbObject getSbbObject() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void assignSbbObject() throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		public byte getPriority() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void setPriority(byte priority) {
+			throw new UnsupportedOperationException();
+		}
+
+		public boolean isCreated() {
+			throw new UnsupportedOperationException();
+		}
+
+		public Set<EventTypeID> getMaskedEventTypes(ActivityContextHandle ach) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void invokeEventHandler(EventContext sleeEvent, ActivityContext ac, EventContext eventContextImpl) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		public boolean isRemoved() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void passivateAndReleaseSbbObject() {
+			throw new UnsupportedOperationException();
+		}
+
+		public ChildRelation getChildRelation(String accessorName) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void trashObject() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void sbbRolledBack(Object event, ActivityContextInterface activityContextInterface, boolean removeRollback) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void removeAndReleaseSbbObject() throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		public void setCMPField(String cmpFieldName, Object cmpFieldValue) {
+			throw new UnsupportedOperationException();
+		}
+
+		public Object getCMPField(String cmpFieldName) {
+			throw new UnsupportedOperationException();
+		}
+
+		public boolean isReentrant() {
+			throw new UnsupportedOperationException();
+		}
+
+		public ActivityContextInterface asSbbActivityContextInterface(ActivityContextInterface aci) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
@@ -0,0 +1,387 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.sbbentity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.slee.ServiceID;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mobicents.slee.container.sbbentity.SbbEntityID;
+import org.mobicents.slee.container.sbbentity.SbbEntityLockUnavailableException;
+
+/**
+ * 
+ * @author martins
+ *
+ */
+public class SbbEntityLockFacilityTest {
+
+	private static final ServiceID SERVICE_ID = new ServiceID("name", "vendor", "1.0");
+	
+	@Test
+	public void testStripes() throws Exception {
+		Assert.assertEquals(1, new StripedSbbEntityLockFacility(0).getLocksCount());
+		Assert.assertEquals(16, new StripedSbbEntityLockFacility(16).getLocksCount());
+		Assert.assertEquals(32, new StripedSbbEntityLockFacility(17).getLocksCount());
+		final StripedSbbEntityLockFacility lockFacility = new StripedSbbEntityLockFacility(16);
+		final SbbEntityID sbbEntityID = new RootSbbEntityID(SERVICE_ID, "a");
+		Assert.assertSame(lockFacility.get(sbbEntityID), lockFacility.get(new RootSbbEntityID(SERVICE_ID, "a")));
+		// locks are shared, never removed
+		Assert.assertNull(lockFacility.remove(sbbEntityID));
+		Assert.assertSame(lockFacility.get(sbbEntityID), lockFacility.get(new RootSbbEntityID(SERVICE_ID, "a")));
+		Assert.assertTrue(lockFacility.getSbbEntitiesWithLocks().isEmpty());
+		// ids are spread over the stripes
+		final Set<ReentrantLock> locks = new HashSet<ReentrantLock>();
+		for (int i = 0; i < 256; i++) {
+			locks.add(lockFacility.get(new RootSbbEntityID(SERVICE_ID, "id" + i)));
+		}
+		Assert.assertEquals(16, locks.size());
+	}
+	
+	@Test
+	public void testStatistics() throws Exception {
+		final StripedSbbEntityLockFacility lockFacility = new StripedSbbEntityLockFacility(16);
+		final SbbEntityID sbbEntityID = new RootSbbEntityID(SERVICE_ID, "a");
+		final ReentrantLock lock = lockFacility.get(sbbEntityID);
+		lockFacility.lockOrFail(lock, sbbEntityID);
+		lock.unlock();
+		Assert.assertEquals(1, lockFacility.getAcquisitions());
+		Assert.assertEquals(0, lockFacility.getContendedAcquisitions());
+		final Thread holder = holdLock(lock, 200);
+		lockFacility.lockOrFail(lock, sbbEntityID);
+		lock.unlock();
+		holder.join(10000);
+		Assert.assertEquals(2, lockFacility.getAcquisitions());
+		Assert.assertEquals(1, lockFacility.getContendedAcquisitions());
+		Assert.assertEquals(0, lockFacility.getTimeouts());
+		Assert.assertTrue(lockFacility.getWaitTime() > 0);
+		Assert.assertEquals(lockFacility.getWaitTime(), lockFacility.getMaxWaitTime());
+		lockFacility.resetStatistics();
+		Assert.assertEquals(0, lockFacility.getAcquisitions());
+		Assert.assertEquals(0, lockFacility.getContendedAcquisitions());
+		Assert.assertEquals(0, lockFacility.getWaitTime());
+		Assert.assertEquals(0, lockFacility.getMaxWaitTime());
+	}
+	
+	/**
+	 * A thread holding a stripe must not wait for a lower stripe, the thread
+	 * holding that one may be waiting for the higher stripe.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testNoWaitForLowerStripe() throws Exception {
+		final StripedSbbEntityLockFacility lockFacility = new StripedSbbEntityLockFacility(64);
+		final SbbEntityID[] ids = getIdsInStripeOrder(lockFacility);
+		final ReentrantLock lowLock = lockFacility.get(ids[0]);
+		final ReentrantLock highLock = lockFacility.get(ids[1]);
+		lockFacility.lockOrFail(highLock, ids[1]);
+		final Thread holder = holdLock(lowLock, 10000);
+		final long startTime = System.nanoTime();
+		try {
+			lockFacility.lockOrFail(lowLock, ids[0], true);
+			Assert.fail("waited for a lower stripe while holding a higher one");
+		} catch (SbbEntityLockUnavailableException e) {
+			// expected
+		}
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime) < 1);
+		Assert.assertEquals(0, lockFacility.getContendedAcquisitions());
+		highLock.unlock();
+		holder.interrupt();
+		holder.join(10000);
+		// holding no stripe it waits as usual
+		lockFacility.lockOrFail(lowLock, ids[0], true);
+		lowLock.unlock();
+	}
+	
+	/**
+	 * A thread holding a stripe may wait for a higher stripe, and reenter a
+	 * stripe it holds regardless of order.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testWaitForHigherStripe() throws Exception {
+		final StripedSbbEntityLockFacility lockFacility = new StripedSbbEntityLockFacility(64);
+		final SbbEntityID[] ids = getIdsInStripeOrder(lockFacility);
+		final ReentrantLock lowLock = lockFacility.get(ids[0]);
+		final ReentrantLock highLock = lockFacility.get(ids[1]);
+		lockFacility.lockOrFail(lowLock, ids[0]);
+		final Thread holder = holdLock(highLock, 200);
+		lockFacility.lockOrFail(highLock, ids[1], true);
+		Assert.assertEquals(1, lockFacility.getContendedAcquisitions());
+		lockFacility.lockOrFail(lowLock, ids[0], true);
+		Assert.assertEquals(2, lowLock.getHoldCount());
+		lowLock.unlock();
+		lowLock.unlock();
+		highLock.unlock();
+		holder.join(10000);
+	}
+	
+	/**
+	 * Two threads holding a stripe each and then needing the other's, both
+	 * allowed to wait, only the one holding the higher stripe fails.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testOppositeOrderAcquisitionDoesNotDeadlock() throws Exception {
+		final StripedSbbEntityLockFacility lockFacility = new StripedSbbEntityLockFacility(64);
+		final SbbEntityID[] ids = getIdsInStripeOrder(lockFacility);
+		final CountDownLatch bothLocked = new CountDownLatch(2);
+		final AtomicInteger unavailable = new AtomicInteger();
+		final AtomicInteger completed = new AtomicInteger();
+		final class Delivery extends Thread {
+			final SbbEntityID first;
+			final SbbEntityID second;
+			Delivery(SbbEntityID first, SbbEntityID second) {
+				this.first = first;
+				this.second = second;
+			}
+			public void run() {
+				final ReentrantLock firstLock = lockFacility.get(first);
+				final ReentrantLock secondLock = lockFacility.get(second);
+				lockFacility.lockOrFail(firstLock, first);
+				bothLocked.countDown();
+				try {
+					bothLocked.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				try {
+					lockFacility.lockOrFail(secondLock, second, true);
+				} catch (SbbEntityLockUnavailableException e) {
+					unavailable.incrementAndGet();
+					firstLock.unlock();
+					return;
+				}
+				secondLock.unlock();
+				firstLock.unlock();
+				completed.incrementAndGet();
+			}
+		}
+		final Delivery lowFirst = new Delivery(ids[0], ids[1]);
+		final Delivery highFirst = new Delivery(ids[1], ids[0]);
+		lowFirst.start();
+		highFirst.start();
+		lowFirst.join(5000);
+		highFirst.join(5000);
+		Assert.assertFalse(lowFirst.isAlive());
+		Assert.assertFalse(highFirst.isAlive());
+		Assert.assertEquals(1, completed.get());
+		Assert.assertEquals(1, unavailable.get());
+		Assert.assertEquals(0, lockFacility.getTimeouts());
+	}
+	
+	@Test
+	public void testNoWaitFailsIfLockHeldByOtherThread() throws Exception {
+		final StripedSbbEntityLockFacility lockFacility = new StripedSbbEntityLockFacility(16);
+		final SbbEntityID sbbEntityID = new RootSbbEntityID(SERVICE_ID, "a");
+		final ReentrantLock lock = lockFacility.get(sbbEntityID);
+		final CountDownLatch locked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Thread holder = new Thread() {
+			public void run() {
+				lock.lock();
+				try {
+					locked.countDown();
+					release.await();
+				} catch (InterruptedException e) {
+					// ignore
+				} finally {
+					lock.unlock();
+				}
+			}
+		};
+		holder.start();
+		Assert.assertTrue(locked.await(10, TimeUnit.SECONDS));
+		final long startTime = System.nanoTime();
+		try {
+			lockFacility.lockOrFail(lock, sbbEntityID, false);
+			Assert.fail("lock acquired while held by other thread");
+		} catch (SbbEntityLockUnavailableException e) {
+			// expected
+		}
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime) < 1);
+		Assert.assertFalse(lock.isHeldByCurrentThread());
+		Assert.assertEquals(0, lockFacility.getTimeouts());
+		release.countDown();
+		holder.join(10000);
+		// once released it may be acquired without waiting
+		lockFacility.lockOrFail(lock, sbbEntityID, false);
+		Assert.assertTrue(lock.isHeldByCurrentThread());
+		lock.unlock();
+	}
+	
+	@Test
+	public void testNoWaitReentersLockHeldByCurrentThread() throws Exception {
+		final StripedSbbEntityLockFacility lockFacility = new StripedSbbEntityLockFacility(1);
+		final SbbEntityID sbbEntityID1 = new RootSbbEntityID(SERVICE_ID, "a");
+		final SbbEntityID sbbEntityID2 = new RootSbbEntityID(SERVICE_ID, "b");
+		// a single stripe, both sbb entities share the lock
+		final ReentrantLock lock = lockFacility.get(sbbEntityID1);
+		Assert.assertSame(lock, lockFacility.get(sbbEntityID2));
+		lockFacility.lockOrFail(lock, sbbEntityID1);
+		lockFacility.lockOrFail(lock, sbbEntityID2, false);
+		Assert.assertEquals(2, lock.getHoldCount());
+		lock.unlock();
+		lock.unlock();
+	}
+	
+	/**
+	 * Two threads holding one lock each and then needing the other's lock,
+	 * such as two batched deliveries visiting sbb entities in different
+	 * order, must not wait for each other. Each fails, releases what it holds
+	 * and then waits for the lock it needs.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testNoWaitAvoidsDeadlock() throws Exception {
+		final StripedSbbEntityLockFacility lockFacility = new StripedSbbEntityLockFacility(64);
+		final SbbEntityID sbbEntityID1 = new RootSbbEntityID(SERVICE_ID, "a");
+		SbbEntityID id = null;
+		for (int i = 0; id == null; i++) {
+			final SbbEntityID candidate = new RootSbbEntityID(SERVICE_ID, "b" + i);
+			if (lockFacility.get(candidate) != lockFacility.get(sbbEntityID1)) {
+				id = candidate;
+			}
+		}
+		final SbbEntityID sbbEntityID2 = id;
+		final CountDownLatch bothLocked = new CountDownLatch(2);
+		final AtomicInteger unavailable = new AtomicInteger();
+		final AtomicInteger completed = new AtomicInteger();
+		final class Delivery extends Thread {
+			final SbbEntityID first;
+			final SbbEntityID second;
+			Delivery(SbbEntityID first, SbbEntityID second) {
+				this.first = first;
+				this.second = second;
+			}
+			public void run() {
+				final ReentrantLock firstLock = lockFacility.get(first);
+				final ReentrantLock secondLock = lockFacility.get(second);
+				lockFacility.lockOrFail(firstLock, first);
+				bothLocked.countDown();
+				try {
+					bothLocked.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				try {
+					lockFacility.lockOrFail(secondLock, second, false);
+				} catch (SbbEntityLockUnavailableException e) {
+					unavailable.incrementAndGet();
+					// flush what is held, then wait
+					firstLock.unlock();
+					lockFacility.lockOrFail(secondLock, second, true);
+					secondLock.unlock();
+					completed.incrementAndGet();
+					return;
+				}
+				secondLock.unlock();
+				firstLock.unlock();
+				completed.incrementAndGet();
+			}
+		}
+		final Delivery delivery1 = new Delivery(sbbEntityID1, sbbEntityID2);
+		final Delivery delivery2 = new Delivery(sbbEntityID2, sbbEntityID1);
+		delivery1.start();
+		delivery2.start();
+		delivery1.join(5000);
+		delivery2.join(5000);
+		Assert.assertEquals(2, completed.get());
+		Assert.assertTrue(unavailable.get() >= 1);
+		Assert.assertEquals(0, lockFacility.getTimeouts());
+	}
+	
+	/**
+	 * Retrieves two sbb entity ids, the first in a lower stripe than the second.
+	 * 
+	 * @param lockFacility
+	 * @return
+	 */
+	private static SbbEntityID[] getIdsInStripeOrder(StripedSbbEntityLockFacility lockFacility) {
+		final SbbEntityID[] ids = new SbbEntityID[2];
+		final List<ReentrantLock> stripes = new ArrayList<ReentrantLock>();
+		for (int i = 0; stripes.size() < 2; i++) {
+			final SbbEntityID id = new RootSbbEntityID(SERVICE_ID, "id" + i);
+			final ReentrantLock lock = lockFacility.get(id);
+			if (!stripes.contains(lock)) {
+				ids[stripes.size()] = id;
+				stripes.add(lock);
+			}
+		}
+		// holding the higher stripe no wait is allowed for the lower one
+		stripes.get(0).lock();
+		try {
+			if (!lockFacility.isWaitAllowed(stripes.get(1))) {
+				final SbbEntityID id = ids[0];
+				ids[0] = ids[1];
+				ids[1] = id;
+			}
+		} finally {
+			stripes.get(0).unlock();
+		}
+		return ids;
+	}
+	
+	/**
+	 * Starts a thread which holds the specified lock for the specified time,
+	 * returning once it is held.
+	 * 
+	 * @param lock
+	 * @param time
+	 * @return
+	 * @throws InterruptedException
+	 */
+	private static Thread holdLock(final ReentrantLock lock, final long time) throws InterruptedException {
+		final CountDownLatch locked = new CountDownLatch(1);
+		final Thread holder = new Thread() {
+			public void run() {
+				lock.lock();
+				try {
+					locked.countDown();
+					Thread.sleep(time);
+				} catch (InterruptedException e) {
+					// release
+				} finally {
+					lock.unlock();
+				}
+			}
+		};
+		holder.start();
+		Assert.assertTrue(locked.await(10, TimeUnit.SECONDS));
+		return holder;
+	}
+	
+}
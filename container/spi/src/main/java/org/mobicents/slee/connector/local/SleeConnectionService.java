@@ -23,6 +23,8 @@
 package org.mobicents.slee.connector.local;
 
 import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.Future;
 
 import javax.resource.ResourceException;
 import javax.slee.Address;
@@ -32,6 +34,8 @@ import javax.slee.UnrecognizedEventException;
 import javax.slee.connection.ExternalActivityHandle;
 import javax.slee.connection.SleeConnection;
 
+import org.mobicents.slee.SleeConnectionExt;
+import org.mobicents.slee.connector.remote.EventInvocation;
 import org.mobicents.slee.container.SleeContainerModule;
 
 /**
@@ -64,6 +68,40 @@ public interface SleeConnectionService extends SleeContainerModule {
 	throws NullPointerException,
 	UnrecognizedActivityException, UnrecognizedEventException, ResourceException;
 
+	/**
+	 * Fires the specified events in a single transaction, or in the caller's
+	 * transaction if there is one. An event which fails validation or firing
+	 * does not prevent the firing of the others, the transaction is rolled
+	 * back and the others fired in a new one. If the caller's transaction is
+	 * used, a firing failure marks it for rollback, and fails all events.
+	 * 
+	 * @param eventInvocations
+	 * @return the exception which prevented the firing of each event, or null
+	 *         if the event was fired
+	 * @throws ResourceException
+	 *             if the SLEE is not running, or the transaction commit
+	 *             failed, in which case no event was fired
+	 */
+	public Exception[] fireEvents(List<EventInvocation> eventInvocations)
+	throws ResourceException;
+
+	/**
+	 * @see SleeConnectionExt#fireEventAsync(Object, EventTypeID,
+	 *      ExternalActivityHandle, Address)
+	 * @param event
+	 * @param eventType
+	 * @param activityHandle
+	 * @param address
+	 * @return
+	 * @throws NullPointerException
+	 * @throws ResourceException
+	 *             if the SLEE is not running, or too many events wait to be
+	 *             fired
+	 */
+	public Future<Void> fireEventAsync(Object event, EventTypeID eventType,
+			ExternalActivityHandle activityHandle, Address address)
+	throws NullPointerException, ResourceException;
+
 	/**
 	 * @see SleeConnection#getEventTypeID(String, String, String)
 	 * @param name
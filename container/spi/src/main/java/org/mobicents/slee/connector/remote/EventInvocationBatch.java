@@ -0,0 +1,273 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.connector.remote;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+
+import javax.slee.Address;
+import javax.slee.AddressPlan;
+import javax.slee.EventTypeID;
+import javax.slee.connection.ExternalActivityHandle;
+
+/**
+ * A batch of events fired through a remote SLEE connection in a single
+ * invocation. Events are encoded by an {@link EventCodec} when added, in the
+ * application thread, and the batch is written as a compact length prefixed
+ * sequence of event type, activity handle, address and encoded event.
+ * 
+ * The events are decoded by the SLEE with the class loader of each event
+ * type, so the codec must be available to the event type components.
+ * 
+ * @author martins
+ * 
+ */
+public class EventInvocationBatch implements Externalizable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * the max size, in bytes, of an encoded event, checked before decoding
+	 * the batch so that a corrupted or hostile stream does not allocate huge
+	 * buffers
+	 */
+	public static final int MAX_EVENT_SIZE = 16 * 1024 * 1024;
+
+	private String codecClassName;
+
+	private transient EventCodec codec;
+
+	private final ArrayList<EventTypeID> eventTypes = new ArrayList<EventTypeID>();
+
+	private final ArrayList<ExternalActivityHandle> activityHandles = new ArrayList<ExternalActivityHandle>();
+
+	private final ArrayList<Address> addresses = new ArrayList<Address>();
+
+	private final ArrayList<byte[]> events = new ArrayList<byte[]>();
+
+	/**
+	 * Creates a batch which encodes events with java serialization.
+	 */
+	public EventInvocationBatch() {
+		this(SerializationEventCodec.INSTANCE);
+	}
+
+	/**
+	 * Creates a batch which encodes events with the specified codec.
+	 * 
+	 * @param codec
+	 */
+	public EventInvocationBatch(EventCodec codec) {
+		if (codec == null) {
+			throw new NullPointerException("null codec");
+		}
+		this.codec = codec;
+		this.codecClassName = codec.getClass().getName();
+	}
+
+	/**
+	 * Adds an event to the batch.
+	 * 
+	 * @param event
+	 * @param eventType
+	 * @param activityHandle
+	 * @param address
+	 * @throws NullPointerException
+	 *             if the event, event type or activity handle is null
+	 * @throws IOException
+	 *             if the event encoding fails, or the encoded event is bigger
+	 *             than {@link #MAX_EVENT_SIZE}
+	 */
+	public void add(Object event, EventTypeID eventType,
+			ExternalActivityHandle activityHandle, Address address)
+			throws NullPointerException, IOException {
+		if (event == null) {
+			throw new NullPointerException("event is null");
+		}
+		if (eventType == null) {
+			throw new NullPointerException("event type is null");
+		}
+		if (activityHandle == null) {
+			throw new NullPointerException("activity handle is null");
+		}
+		final byte[] data = codec.encode(event);
+		if (data.length > MAX_EVENT_SIZE) {
+			throw new IOException("encoded event size " + data.length
+					+ " exceeds the max of " + MAX_EVENT_SIZE + " bytes");
+		}
+		eventTypes.add(eventType);
+		activityHandles.add(activityHandle);
+		addresses.add(address);
+		events.add(data);
+	}
+
+	/**
+	 * 
+	 * @return the number of events in the batch
+	 */
+	public int size() {
+		return events.size();
+	}
+
+	/**
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public EventTypeID getEventType(int index) {
+		return eventTypes.get(index);
+	}
+
+	/**
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public ExternalActivityHandle getActivityHandle(int index) {
+		return activityHandles.get(index);
+	}
+
+	/**
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public Address getAddress(int index) {
+		return addresses.get(index);
+	}
+
+	/**
+	 * Decodes the event with the specified index.
+	 * 
+	 * @param index
+	 * @param classLoader
+	 *            the class loader of the event type
+	 * @return
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public Object getEvent(int index, ClassLoader classLoader)
+			throws IOException, ClassNotFoundException {
+		return getCodec(classLoader).decode(events.get(index), classLoader);
+	}
+
+	private EventCodec getCodec(ClassLoader classLoader) throws IOException,
+			ClassNotFoundException {
+		if (codec == null) {
+			if (codecClassName.equals(SerializationEventCodec.class.getName())) {
+				codec = SerializationEventCodec.INSTANCE;
+			} else {
+				// do not initialize the class before knowing it is a codec
+				final Class<?> codecClass = Class.forName(codecClassName,
+						false, classLoader);
+				if (!EventCodec.class.isAssignableFrom(codecClass)) {
+					throw new IOException(codecClassName + " is not an "
+							+ EventCodec.class.getName());
+				}
+				try {
+					codec = (EventCodec) codecClass.newInstance();
+				} catch (InstantiationException e) {
+					throw new IOException("failed to create codec "
+							+ codecClassName + ": " + e.getMessage());
+				} catch (IllegalAccessException e) {
+					throw new IOException("failed to create codec "
+							+ codecClassName + ": " + e.getMessage());
+				}
+			}
+		}
+		return codec;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.Externalizable#writeExternal(java.io.ObjectOutput)
+	 */
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeUTF(codecClassName);
+		final int size = events.size();
+		out.writeInt(size);
+		EventTypeID eventType = null;
+		Address address = null;
+		byte[] data = null;
+		for (int i = 0; i < size; i++) {
+			eventType = eventTypes.get(i);
+			out.writeUTF(eventType.getName());
+			out.writeUTF(eventType.getVendor());
+			out.writeUTF(eventType.getVersion());
+			out.writeObject(activityHandles.get(i));
+			address = addresses.get(i);
+			if (address == null) {
+				out.writeBoolean(false);
+			} else {
+				out.writeBoolean(true);
+				out.writeInt(address.getAddressPlan().toInt());
+				out.writeUTF(address.getAddressString());
+			}
+			data = events.get(i);
+			out.writeInt(data.length);
+			out.write(data);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.Externalizable#readExternal(java.io.ObjectInput)
+	 */
+	public void readExternal(ObjectInput in) throws IOException,
+			ClassNotFoundException {
+		codecClassName = in.readUTF();
+		codec = null;
+		final int size = in.readInt();
+		if (size < 0) {
+			throw new IOException("invalid number of events " + size);
+		}
+		byte[] data = null;
+		int dataLength = 0;
+		for (int i = 0; i < size; i++) {
+			eventTypes.add(new EventTypeID(in.readUTF(), in.readUTF(), in
+					.readUTF()));
+			activityHandles.add((ExternalActivityHandle) in.readObject());
+			if (in.readBoolean()) {
+				addresses.add(new Address(AddressPlan.fromInt(in.readInt()), in
+						.readUTF()));
+			} else {
+				addresses.add(null);
+			}
+			dataLength = in.readInt();
+			if (dataLength < 0 || dataLength > MAX_EVENT_SIZE) {
+				throw new IOException("invalid encoded event size "
+						+ dataLength + ", the max is " + MAX_EVENT_SIZE
+						+ " bytes");
+			}
+			data = new byte[dataLength];
+			in.readFully(data);
+			events.add(data);
+		}
+	}
+
+}
@@ -73,6 +73,16 @@ public interface RemoteSleeConnectionService extends Remote {
 	public void fireEvent(Object event, EventTypeID eventType, ExternalActivityHandle activityHandle, Address address)
 	throws RemoteException;
 
+	/**
+	 * Fires all events in the batch, in a single transaction.
+	 * 
+	 * @see SleeConnection#fireEvent(Object, EventTypeID,
+	 *      ExternalActivityHandle, Address)
+	 * @param batch
+	 * @throws RemoteException
+	 */
+	public void fireEvents(EventInvocationBatch batch) throws RemoteException;
+
 	/**
 	 * @see SleeConnection#getEventTypeID(String, String, String)
 	 * @param name
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.connector.remote;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * The default {@link EventCodec}, which uses java serialization.
+ * 
+ * @author martins
+ * 
+ */
+public class SerializationEventCodec implements EventCodec {
+
+	/**
+	 * the shared instance of this codec
+	 */
+	public static final SerializationEventCodec INSTANCE = new SerializationEventCodec();
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.mobicents.slee.connector.remote.EventCodec#encode(java.lang.Object)
+	 */
+	public byte[] encode(Object event) throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(event);
+		oos.close();
+		return bos.toByteArray();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.mobicents.slee.connector.remote.EventCodec#decode(byte[],
+	 * java.lang.ClassLoader)
+	 */
+	public Object decode(byte[] data, ClassLoader classLoader)
+			throws IOException, ClassNotFoundException {
+		final ObjectInputStream ois = new ClassLoaderObjectInputStream(
+				new ByteArrayInputStream(data), classLoader);
+		try {
+			return ois.readObject();
+		} finally {
+			ois.close();
+		}
+	}
+
+	/**
+	 * An {@link ObjectInputStream} which resolves classes with a specific
+	 * class loader, falling back to the default resolution.
+	 */
+	private static class ClassLoaderObjectInputStream extends
+			ObjectInputStream {
+
+		private final ClassLoader classLoader;
+
+		public ClassLoaderObjectInputStream(InputStream in,
+				ClassLoader classLoader) throws IOException {
+			super(in);
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc)
+				throws IOException, ClassNotFoundException {
+			if (classLoader != null) {
+				try {
+					return Class.forName(desc.getName(), false, classLoader);
+				} catch (ClassNotFoundException e) {
+					// ignore, try default resolution
+				}
+			}
+			return super.resolveClass(desc);
+		}
+
+	}
+
+}
@@ -222,8 +222,9 @@ public class SleeContainer {
 
 		this.cluster = cluster;
 
-		this.uuidGenerator = new MobicentsUUIDGenerator(cluster
-				.getMobicentsCache().isLocalMode());
+		// a container without cluster, such as one built by unit tests, is local
+		this.uuidGenerator = new MobicentsUUIDGenerator(cluster == null
+				|| cluster.getMobicentsCache().isLocalMode());
 
 		this.alarmMBeanImpl = alarmMBeanImpl;
 		addModule(alarmMBeanImpl);
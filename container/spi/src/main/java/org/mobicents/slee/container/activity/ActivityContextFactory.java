@@ -103,6 +103,32 @@ public interface ActivityContextFactory extends SleeContainerModule {
 	 */
 	public int getActivityContextCount();
 
+	/**
+	 * Retrieves the number of activity contexts of the specified type.
+	 * 
+	 * @param activityType
+	 * @return
+	 */
+	public int getActivityContextCount(ActivityType activityType);
+
+	/**
+	 * Retrieves the number of activity contexts of the resource adaptor entity
+	 * with the specified name.
+	 * 
+	 * @param raEntityName
+	 * @return
+	 */
+	public int getResourceAdaptorEntityActivityContextCount(String raEntityName);
+
+	/**
+	 * Retrieves the handles of the activity contexts of the resource adaptor
+	 * entity with the specified name.
+	 * 
+	 * @param raEntityName
+	 * @return
+	 */
+	public Set<ActivityContextHandle> getResourceAdaptorEntityActivityContextsHandles(String raEntityName);
+
 	/**
 	 * Indicates if the activity context exists in SLEE.
 	 * 
@@ -106,6 +106,14 @@ public interface ComponentRepository {
 	 */
 	public Set<EventTypeID> getEventComponentIDs();
 	
+	/**
+	 * Retrieves the version of the event type components in the repository,
+	 * which changes each time an event type component is installed or
+	 * uninstalled, allowing cached event type data to be invalidated.
+	 * @return
+	 */
+	public int getEventTypeComponentsVersion();
+	
 	/**
 	 * Retrieves the ids for all library components in the repository.
 	 * @return
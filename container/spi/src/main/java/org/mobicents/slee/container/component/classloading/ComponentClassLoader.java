@@ -33,6 +33,11 @@ package org.mobicents.slee.container.component.classloading;
  */
 public abstract class ComponentClassLoader extends ClassLoader {
 	
+	static {
+		// allows parallel capable component class loader impls
+		registerAsParallelCapable();
+	}
+
 	public ComponentClassLoader(ClassLoader parent) {
 		super(parent);
 	}
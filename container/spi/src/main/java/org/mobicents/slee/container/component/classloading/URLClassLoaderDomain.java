@@ -33,6 +33,11 @@ import java.net.URLClassLoader;
  */
 public abstract class URLClassLoaderDomain extends URLClassLoader {
 
+	static {
+		// allows parallel capable domain impls
+		registerAsParallelCapable();
+	}
+
 	/**
 	 * @param urls
 	 */
@@ -0,0 +1,207 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.component.sbb;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The slots assigned to the cmp fields of a sbb, when the concrete sbb class
+ * is generated, to store the cmp fields of a sbb entity in arrays, with
+ * values of primitive fields unboxed.
+ * 
+ * Types of fields are identified by the JVM type descriptor of the
+ * primitive type, or {@link #TYPE_REFERENCE} for any other type.
+ * 
+ * @author martins
+ * 
+ */
+public class CMPFieldsLayout {
+
+	public static final char TYPE_REFERENCE = 'L';
+	public static final char TYPE_BOOLEAN = 'Z';
+	public static final char TYPE_BYTE = 'B';
+	public static final char TYPE_CHAR = 'C';
+	public static final char TYPE_SHORT = 'S';
+	public static final char TYPE_INT = 'I';
+	public static final char TYPE_LONG = 'J';
+	public static final char TYPE_FLOAT = 'F';
+	public static final char TYPE_DOUBLE = 'D';
+
+	private final String[] names;
+
+	private final char[] types;
+
+	private final Map<String, Integer> slots;
+
+	/**
+	 * 
+	 * @param names
+	 *            the cmp field names, indexed by slot
+	 * @param types
+	 *            the cmp field types, indexed by slot
+	 */
+	public CMPFieldsLayout(String[] names, char[] types) {
+		if (names.length != types.length) {
+			throw new IllegalArgumentException("names and types sizes differ");
+		}
+		this.names = names;
+		this.types = types;
+		this.slots = new HashMap<String, Integer>(names.length * 2);
+		for (int i = 0; i < names.length; i++) {
+			slots.put(names[i], Integer.valueOf(i));
+		}
+	}
+
+	/**
+	 * Retrieves the number of slots.
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * Retrieves the name of the cmp field with the specified slot.
+	 * 
+	 * @param slot
+	 * @return
+	 */
+	public String getName(int slot) {
+		return names[slot];
+	}
+
+	/**
+	 * Retrieves the type of the cmp field with the specified slot.
+	 * 
+	 * @param slot
+	 * @return
+	 */
+	public char getType(int slot) {
+		return types[slot];
+	}
+
+	/**
+	 * Retrieves the slot of the cmp field with the specified name.
+	 * 
+	 * @param name
+	 * @return the slot, or -1 if there is no cmp field with such name
+	 */
+	public int getSlot(String name) {
+		final Integer slot = slots.get(name);
+		return slot == null ? -1 : slot.intValue();
+	}
+
+	/**
+	 * Retrieves the type descriptor for the specified class, which is
+	 * {@link #TYPE_REFERENCE} for all non primitive classes.
+	 * 
+	 * @param className
+	 * @return
+	 */
+	public static char getTypeDescriptor(String className) {
+		if (className.equals(boolean.class.getName())) {
+			return TYPE_BOOLEAN;
+		} else if (className.equals(byte.class.getName())) {
+			return TYPE_BYTE;
+		} else if (className.equals(char.class.getName())) {
+			return TYPE_CHAR;
+		} else if (className.equals(short.class.getName())) {
+			return TYPE_SHORT;
+		} else if (className.equals(int.class.getName())) {
+			return TYPE_INT;
+		} else if (className.equals(long.class.getName())) {
+			return TYPE_LONG;
+		} else if (className.equals(float.class.getName())) {
+			return TYPE_FLOAT;
+		} else if (className.equals(double.class.getName())) {
+			return TYPE_DOUBLE;
+		} else {
+			return TYPE_REFERENCE;
+		}
+	}
+
+	/**
+	 * Converts the specified value of a primitive cmp field, as kept in a
+	 * long, to its boxed form.
+	 * 
+	 * @param type
+	 * @param value
+	 * @return
+	 */
+	public static Object box(char type, long value) {
+		switch (type) {
+		case TYPE_BOOLEAN:
+			return Boolean.valueOf(value != 0);
+		case TYPE_BYTE:
+			return Byte.valueOf((byte) value);
+		case TYPE_CHAR:
+			return Character.valueOf((char) value);
+		case TYPE_SHORT:
+			return Short.valueOf((short) value);
+		case TYPE_INT:
+			return Integer.valueOf((int) value);
+		case TYPE_LONG:
+			return Long.valueOf(value);
+		case TYPE_FLOAT:
+			return Float.valueOf(Float.intBitsToFloat((int) value));
+		case TYPE_DOUBLE:
+			return Double.valueOf(Double.longBitsToDouble(value));
+		default:
+			throw new IllegalArgumentException("not a primitive type " + type);
+		}
+	}
+
+	/**
+	 * Converts the specified boxed value of a primitive cmp field to a long,
+	 * null is converted to the default value of the type.
+	 * 
+	 * @param type
+	 * @param value
+	 * @return
+	 */
+	public static long unbox(char type, Object value) {
+		if (value == null) {
+			return 0;
+		}
+		switch (type) {
+		case TYPE_BOOLEAN:
+			return ((Boolean) value).booleanValue() ? 1 : 0;
+		case TYPE_CHAR:
+			return ((Character) value).charValue();
+		case TYPE_FLOAT:
+			return Float.floatToRawIntBits(((Float) value).floatValue());
+		case TYPE_DOUBLE:
+			return Double.doubleToRawLongBits(((Double) value).doubleValue());
+		case TYPE_BYTE:
+		case TYPE_SHORT:
+		case TYPE_INT:
+		case TYPE_LONG:
+			return ((Number) value).longValue();
+		default:
+			throw new IllegalArgumentException("not a primitive type " + type);
+		}
+	}
+
+}
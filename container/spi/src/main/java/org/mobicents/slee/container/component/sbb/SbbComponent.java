@@ -248,4 +248,17 @@ public interface SbbComponent extends SleeComponentWithUsageParametersInterface
 	 * @param alarmFacility
 	 */
 	public void setAlarmFacility(AlarmFacility alarmFacility);
+	
+	/**
+	 * Retrieves the slots assigned to the cmp fields, when the concrete sbb
+	 * class was generated.
+	 * @return null if cmp fields are not stored in slots
+	 */
+	public CMPFieldsLayout getCMPFieldsLayout();
+	
+	/**
+	 * 
+	 * @param cmpFieldsLayout
+	 */
+	public void setCMPFieldsLayout(CMPFieldsLayout cmpFieldsLayout);
 }
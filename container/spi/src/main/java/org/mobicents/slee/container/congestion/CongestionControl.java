@@ -45,4 +45,17 @@ public interface CongestionControl extends SleeContainerModule {
 	 *         congestion control being active.
 	 */
 	public boolean refuseFireEvent();
+
+	/**
+	 * Indicates that the working queue of an event router executor is full,
+	 * which turns congestion control on, till
+	 * {@link #eventRouterExecutorQueueAvailable()} is invoked.
+	 */
+	public void eventRouterExecutorQueueFull();
+
+	/**
+	 * Indicates that the working queue of an event router executor, which
+	 * previously was full, has space available again.
+	 */
+	public void eventRouterExecutorQueueAvailable();
 }
@@ -137,6 +137,19 @@ public interface EventRouterExecutorStatistics {
 	 */
 	public long getAverageEventRoutingTime(EventTypeID eventTypeID);
 	
+	/**
+	 * Retrieves the histogram of the time spent to route one event.
+	 * @return
+	 */
+	public LatencyHistogram getEventRoutingTimeHistogram();
+	
+	/**
+	 * Retrieves the histogram of the time one event waited in the executor's
+	 * queue, i.e. since it was submitted till the routing started.
+	 * @return
+	 */
+	public LatencyHistogram getEventQueueWaitTimeHistogram();
+	
 	/**
 	 * Retrieves the size of the executor's working queue. 
 	 * @return
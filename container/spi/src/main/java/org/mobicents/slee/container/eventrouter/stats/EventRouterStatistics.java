@@ -83,6 +83,67 @@ public interface EventRouterStatistics {
 	 */
 	public long getAverageEventRoutingTime(int executor, EventTypeID eventTypeID);
 
+	/**
+	 * Retrieves the percentiles 50, 90, 99 and 99.9, followed by the max, of
+	 * the time spent to route one event.
+	 * @return
+	 */
+	public long[] getEventRoutingTimePercentiles();
+
+	/**
+	 * Retrieves the percentiles 50, 90, 99 and 99.9, followed by the max, of
+	 * the time spent to route one event of the specified type.
+	 * @return
+	 */
+	public long[] getEventRoutingTimePercentiles(EventTypeID eventTypeID);
+
+	/**
+	 * Retrieves the percentiles 50, 90, 99 and 99.9, followed by the max, of
+	 * the time spent to route one event, for the specified event router
+	 * executor.
+	 * @return
+	 */
+	public long[] getEventRoutingTimePercentiles(int executor);
+
+	/**
+	 * Retrieves the percentiles 50, 90, 99 and 99.9, followed by the max, of
+	 * the time spent to route one event of the specified type, for the
+	 * specified event router executor.
+	 * @return
+	 */
+	public long[] getEventRoutingTimePercentiles(int executor, EventTypeID eventTypeID);
+
+	/**
+	 * Retrieves the percentiles 50, 90, 99 and 99.9, followed by the max, of
+	 * the time one event waits in the executor's queue before being routed.
+	 * @return
+	 */
+	public long[] getEventQueueWaitTimePercentiles();
+
+	/**
+	 * Retrieves the percentiles 50, 90, 99 and 99.9, followed by the max, of
+	 * the time one event of the specified type waits in the executor's queue
+	 * before being routed.
+	 * @return
+	 */
+	public long[] getEventQueueWaitTimePercentiles(EventTypeID eventTypeID);
+
+	/**
+	 * Retrieves the percentiles 50, 90, 99 and 99.9, followed by the max, of
+	 * the time one event waits in the queue of the specified event router
+	 * executor, before being routed.
+	 * @return
+	 */
+	public long[] getEventQueueWaitTimePercentiles(int executor);
+
+	/**
+	 * Retrieves the percentiles 50, 90, 99 and 99.9, followed by the max, of
+	 * the time one event of the specified type waits in the queue of the
+	 * specified event router executor, before being routed.
+	 * @return
+	 */
+	public long[] getEventQueueWaitTimePercentiles(int executor, EventTypeID eventTypeID);
+
 	/**
 	 * Retrieves the statistics for the specified event router executor.
 	 * 
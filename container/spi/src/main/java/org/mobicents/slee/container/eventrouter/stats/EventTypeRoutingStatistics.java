@@ -62,4 +62,19 @@ public interface EventTypeRoutingStatistics {
 	 */
 	public long getRoutingTime();
 
+	/**
+	 * Retrieves the histogram of the time spent routing one event.
+	 * 
+	 * @return
+	 */
+	public LatencyHistogram getRoutingTimeHistogram();
+
+	/**
+	 * Retrieves the histogram of the time one event waited in the executor's
+	 * queue, i.e. since it was submitted till the routing started.
+	 * 
+	 * @return
+	 */
+	public LatencyHistogram getQueueWaitTimeHistogram();
+
 }
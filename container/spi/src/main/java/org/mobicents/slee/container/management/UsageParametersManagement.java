@@ -35,6 +35,7 @@ import org.mobicents.slee.container.component.service.ServiceComponent;
 import org.mobicents.slee.container.management.jmx.ProfileTableUsageMBean;
 import org.mobicents.slee.container.management.jmx.ResourceUsageMBean;
 import org.mobicents.slee.container.management.jmx.ServiceUsageMBean;
+import org.mobicents.slee.container.profile.ProfileTableCacheStatistics;
 
 /**
  * @author martins
@@ -46,13 +47,15 @@ public interface UsageParametersManagement extends SleeContainerModule {
 	 * 
 	 * @param profileTableName
 	 * @param component
+	 * @param cacheStatistics the statistics of the profile table cache, null if there is no cache
 	 * @return
 	 * @throws NotCompliantMBeanException
 	 * @throws MalformedObjectNameException
 	 * @throws NullPointerException
 	 */
 	public ProfileTableUsageMBean newProfileTableUsageMBean(
-			String profileTableName, ProfileSpecificationComponent component)
+			String profileTableName, ProfileSpecificationComponent component,
+			ProfileTableCacheStatistics cacheStatistics)
 			throws NotCompliantMBeanException, MalformedObjectNameException,
 			NullPointerException;
 
@@ -26,6 +26,7 @@
 package org.mobicents.slee.container.management.jmx;
 
 import javax.management.ObjectName;
+import javax.slee.management.ManagementException;
 
 /**
  * @author martins
@@ -65,4 +66,38 @@ public interface ProfileTableUsageMBean extends javax.slee.management.ProfileTab
 	 */
 	public void remove();
 
+	/**
+	 * Retrieves the number of profile lookups served by the profile table
+	 * cache.
+	 * 
+	 * @return 0 if the profile table has no cache
+	 * @throws ManagementException
+	 */
+	public long getProfileCacheHits() throws ManagementException;
+
+	/**
+	 * Retrieves the number of profile lookups not served by the profile table
+	 * cache.
+	 * 
+	 * @return 0 if the profile table has no cache
+	 * @throws ManagementException
+	 */
+	public long getProfileCacheMisses() throws ManagementException;
+
+	/**
+	 * Retrieves the number of entries evicted from the profile table cache.
+	 * 
+	 * @return 0 if the profile table has no cache
+	 * @throws ManagementException
+	 */
+	public long getProfileCacheEvictions() throws ManagementException;
+
+	/**
+	 * Retrieves the number of profiles in the profile table cache.
+	 * 
+	 * @return 0 if the profile table has no cache
+	 * @throws ManagementException
+	 */
+	public int getProfileCacheSize() throws ManagementException;
+
 }
@@ -64,4 +64,11 @@ public interface ProfileTable extends javax.slee.profile.ProfileTable {
 	
 	public ProfileSpecificationComponent getProfileSpecificationComponent();
 
+	/**
+	 * Retrieves the statistics of the table's profile cache.
+	 * 
+	 * @return null if the table has no profile cache
+	 */
+	public ProfileTableCacheStatistics getCacheStatistics();
+
 }
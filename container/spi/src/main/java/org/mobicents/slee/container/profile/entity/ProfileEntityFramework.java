@@ -138,6 +138,32 @@ public interface ProfileEntityFramework {
 	public ProfileEntity retrieveProfile(String profileTable,
 			String profileName);
 
+	/**
+	 * Retrieves the values of the specified attribute in a profile entity, as
+	 * keys which match the ones returned by
+	 * {@link #getProfileAttributeIndexKey(ProfileAttribute, Object)} for the
+	 * attribute values used in
+	 * {@link #findProfilesByAttribute(String, ProfileAttribute, Object)}.
+	 * 
+	 * @param profileEntity
+	 * @param profileAttribute
+	 * @return
+	 */
+	public Collection<Object> getProfileAttributeIndexKeys(
+			ProfileEntity profileEntity, ProfileAttribute profileAttribute);
+
+	/**
+	 * Retrieves the key which identifies the profiles matching the specified
+	 * attribute value, in an index built from
+	 * {@link #getProfileAttributeIndexKeys(ProfileEntity, ProfileAttribute)}.
+	 * 
+	 * @param profileAttribute
+	 * @param attributeValue
+	 * @return
+	 */
+	public Object getProfileAttributeIndexKey(
+			ProfileAttribute profileAttribute, Object attributeValue);
+
 	/**
 	 * 
 	 * @param component
@@ -33,14 +33,16 @@ import javax.slee.resource.IllegalEventException;
 import javax.slee.resource.ReceivableService;
 import javax.slee.resource.UnrecognizedActivityHandleException;
 
+import org.mobicents.slee.SleeEndpointExt;
+
 /**
  * An extension to {@link javax.slee.resource.SleeEndpoint} that provides custom
- * functionality.
+ * functionality, including the public {@link SleeEndpointExt} batch firing.
  * 
  * @author martins
  * 
  */
-public interface SleeEndpoint extends javax.slee.resource.SleeEndpoint {
+public interface SleeEndpoint extends SleeEndpointExt {
 
 	/**
 	 * Indicates if the activity exists in SLEE.
@@ -226,6 +226,40 @@ public interface SbbEntity {
 	 */
 	public Object getCMPField(String cmpFieldName);
 	
+	/**
+	 * Sets the value of the cmp field with the specified slot, in the sbb
+	 * component {@link org.mobicents.slee.container.component.sbb.CMPFieldsLayout}.
+	 * @param slot
+	 * @param cmpFieldValue
+	 */
+	public void setCMPField(int slot, Object cmpFieldValue);
+
+	/**
+	 * Retrieves the value of the cmp field with the specified slot, in the sbb
+	 * component {@link org.mobicents.slee.container.component.sbb.CMPFieldsLayout}.
+	 * @param slot
+	 * @return
+	 */
+	public Object getCMPField(int slot);
+	
+	/**
+	 * Sets the value of the primitive cmp field with the specified slot,
+	 * converted to a long as done by
+	 * {@link org.mobicents.slee.container.component.sbb.CMPFieldsLayout#unbox(char, Object)}.
+	 * @param slot
+	 * @param cmpFieldValue
+	 */
+	public void setPrimitiveCMPField(int slot, long cmpFieldValue);
+
+	/**
+	 * Retrieves the value of the primitive cmp field with the specified slot,
+	 * converted to a long as done by
+	 * {@link org.mobicents.slee.container.component.sbb.CMPFieldsLayout#unbox(char, Object)}.
+	 * @param slot
+	 * @return
+	 */
+	public long getPrimitiveCMPField(int slot);
+	
 	/**
 	 * @see SbbComponent#isReentrant()
 	 * @return
@@ -0,0 +1,46 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.sbbentity;
+
+import javax.slee.SLEEException;
+
+/**
+ * Exception thrown when the lock of a sbb entity is held by other thread and
+ * the current transaction is not allowed to wait for it.
+ * 
+ * @author martins
+ * 
+ */
+public class SbbEntityLockUnavailableException extends SLEEException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 
+	 * @param message
+	 */
+	public SbbEntityLockUnavailableException(String message) {
+		super(message);
+	}
+
+}
@@ -93,6 +93,14 @@ public interface SleeTransactionManager extends SleeContainerModule, javax.slee.
      */
     public TransactionManager getRealTransactionManager();
     
+    /**
+     * Ensures the current transaction, if any, is backed by a transaction of
+     * the underlying transaction manager, which is needed before using
+     * resources joining transactions through it, such as JPA entity managers.
+     * @throws SystemException
+     */
+    public void requireRealTransaction() throws SystemException;
+    
     @Override
     public SleeTransaction getTransaction() throws SystemException;
     
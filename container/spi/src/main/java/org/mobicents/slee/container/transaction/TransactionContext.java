@@ -43,6 +43,8 @@ import org.mobicents.slee.container.sbbentity.SbbEntityID;
  *   
  *   + After Commit Action, an action to execute after the transaction is committed and the priority actions execution
  *   
+ *   + After Commit Completed Action, an action to execute after the transaction is committed, once the whole transaction completion ended
+ *   
  *   + After Rollback Action, an action to execute after the transaction rollbacks 
  * 
  * @author ? 
@@ -63,6 +65,18 @@ public interface TransactionContext {
 	 */
 	public List<TransactionalAction> getAfterCommitPriorityActions();
 
+	/**
+	 * Retrieves the list of actions which should be executed after commit
+	 * succeeds, once the whole transaction completion ended, that is, all
+	 * resources involved applied the commit and the thread which requested it,
+	 * through the SLEE transaction manager, returned from the request. Such
+	 * actions should be used to signal other threads that may read the state
+	 * changed by the transaction.
+	 * 
+	 * @return
+	 */
+	public List<TransactionalAction> getAfterCommitCompletedActions();
+
 	/**
 	 * Retrieves the list of actions which should be executed after rollback
 	 * @return
@@ -108,4 +122,19 @@ public interface TransactionContext {
 	 */
 	public Set<SbbEntityID> getInvokedNonReentrantSbbEntities();
 	
-}
\ No newline at end of file
+	/**
+	 * Indicates if the transaction may wait for a sbb entity lock held by
+	 * other thread. If not the lock acquisition fails right away with a
+	 * {@link org.mobicents.slee.container.sbbentity.SbbEntityLockUnavailableException}.
+	 * 
+	 * @return
+	 */
+	public boolean isSbbEntityLockWaitAllowed();
+	
+	/**
+	 * 
+	 * @param sbbEntityLockWaitAllowed
+	 */
+	public void setSbbEntityLockWaitAllowed(boolean sbbEntityLockWaitAllowed);
+	
+}
\ No newline at end of file
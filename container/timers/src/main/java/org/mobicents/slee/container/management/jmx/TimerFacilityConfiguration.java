@@ -43,6 +43,8 @@ public class TimerFacilityConfiguration implements
 	
 	private boolean taskExecutionWaitsForTxCommitConfirmation = true;
 	
+	private boolean timingWheel = false;
+	
 	@Override
 	public boolean getTaskExecutionWaitsForTxCommitConfirmation() {
 		return taskExecutionWaitsForTxCommitConfirmation;
@@ -108,4 +110,20 @@ public class TimerFacilityConfiguration implements
 		}
 		this.purgePeriod = value;
 	}
+	
+	@Override
+	public boolean getTimingWheel() {
+		return timingWheel;
+	}
+	
+	@Override
+	public void setTimingWheel(boolean value) {
+		if (value != this.timingWheel) {
+			logger
+			.warn("Setting timer facility timing wheel to "
+					+ value
+					+ ". If called with server running a stop and start is need to apply changes.");
+		}
+		this.timingWheel = value;
+	}
 }
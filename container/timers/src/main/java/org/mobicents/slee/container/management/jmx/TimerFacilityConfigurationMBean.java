@@ -66,6 +66,7 @@ public interface TimerFacilityConfigurationMBean {
 	 * which set the timer, finished commit. This confirmation is the only
 	 * guarantee that short timers (such as the ones with 0 delay), set on new
 	 * tx aware activities, will not execute before all state (such as the actual AC), is committed.
+	 * Executions before the confirmation are deferred till it, without blocking timer threads.
 	 * 
 	 * @return
 	 */
@@ -80,4 +81,25 @@ public interface TimerFacilityConfigurationMBean {
 	 */
 	public void setTaskExecutionWaitsForTxCommitConfirmation(boolean value);
 	
+	/**
+	 * Indicates if the timer facility uses a hierarchical timing wheel,
+	 * instead of the fault tolerant scheduler, when the SLEE is not clustered.
+	 * Timers are then scheduled and canceled in constant time, and expired
+	 * timers are handed off directly to the event router executor of the
+	 * timer's activity context.
+	 * 
+	 * @return
+	 */
+	public boolean getTimingWheel();
+	
+	/**
+	 * Defines if the timer facility uses a hierarchical timing wheel, instead
+	 * of the fault tolerant scheduler, when the SLEE is not clustered.
+	 * 
+	 * Note that setting a different value for this method will only be effective on server (re)start.
+	 * 
+	 * @param value
+	 */
+	public void setTimingWheel(boolean value);
+	
 }
@@ -21,8 +21,6 @@
 
 package org.mobicents.slee.runtime.facilities;
 
-import java.util.concurrent.CountDownLatch;
-
 import javax.slee.ActivityContextInterface;
 import javax.slee.Address;
 import javax.slee.TransactionRequiredLocalException;
@@ -73,6 +71,11 @@ public class TimerFacilityImpl extends AbstractSleeContainerModule implements Ti
 			
 	private FaultTolerantScheduler scheduler;
 	
+	/**
+	 * the timer engine used instead of the scheduler, if the SLEE is not clustered and it is enabled in the configuration
+	 */
+	private TimerFacilityTimingWheel timingWheel;
+	
 	private final TimerFacilityConfiguration configuration;
 	
 	/**
@@ -90,18 +93,37 @@ public class TimerFacilityImpl extends AbstractSleeContainerModule implements Ti
 	public void sleeStarting() {
 		if (scheduler != null) {
 			scheduler.shutdownNow();
+			scheduler = null;
+		}
+		if (timingWheel != null) {
+			timingWheel.shutdownNow();
+			timingWheel = null;
+		}
+		if (configuration.getTimingWheel() && sleeContainer.getCluster().getMobicentsCache().isLocalMode()) {
+			logger.info("SLEE Timer facility using a timing wheel, with "+timerResolution+" ms ticks.");
+			timingWheel = new TimerFacilityTimingWheel(timerResolution, SLEE_THREAD_FACTORY);
+			return;
 		}
-		scheduler = new FaultTolerantScheduler("timer-facility",configuration.getTimerThreads(),sleeContainer.getCluster(),(byte)10, sleeContainer.getTransactionManager().getRealTransactionManager(),new TimerFacilityTimerTaskFactory(),configuration.getPurgePeriod(), SLEE_THREAD_FACTORY);
+		// the scheduler is given the SLEE tx manager, local SLEE transactions are unknown to the underlying one
+		scheduler = new FaultTolerantScheduler("timer-facility",configuration.getTimerThreads(),sleeContainer.getCluster(),(byte)10, sleeContainer.getTransactionManager(),new TimerFacilityTimerTaskFactory(),configuration.getPurgePeriod(), SLEE_THREAD_FACTORY);
 	}
 	
 	/**
 	 * Retrieves 
-	 * @return the scheduler
+	 * @return the scheduler, null if the timing wheel is used
 	 */
 	public FaultTolerantScheduler getScheduler() {
 		return scheduler;
 	}
 	
+	/**
+	 * Retrieves 
+	 * @return the timing wheel, null if the scheduler is used
+	 */
+	public TimerFacilityTimingWheel getTimingWheel() {
+		return timingWheel;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see javax.slee.facilities.TimerFacility#setTimer(javax.slee.ActivityContextInterface, javax.slee.Address, long, javax.slee.facilities.TimerOptions)
@@ -166,20 +188,30 @@ public class TimerFacilityImpl extends AbstractSleeContainerModule implements Ti
 		// schedule timer task
 		TimerFacilityTimerTaskData taskData = new TimerFacilityTimerTaskData(timerID, aciImpl.getActivityContext().getActivityContextHandle(), address, startTime, period, numRepetitions, timerOptions);
     	final TimerFacilityTimerTask task = new TimerFacilityTimerTask(taskData);
-    	if(configuration.getTaskExecutionWaitsForTxCommitConfirmation()) {
-    		final CountDownLatch countDownLatch = new CountDownLatch(1);
-    		task.setCountDownLatch(countDownLatch);
-    		TransactionalAction action = new TransactionalAction() {			
-    			@Override
-    			public void execute() {
-    				countDownLatch.countDown();				
-    			}
-    		};
-    		TransactionContext txContext = txMgr.getTransactionContext();
-    		txContext.getAfterCommitActions().add(action);
-    		txContext.getAfterRollbackActions().add(action);
+    	if (timingWheel != null) {
+    		// the wheel only arms the task once the tx commits
+    		timingWheel.schedule(task);
+    	}
+    	else {
+    		if(configuration.getTaskExecutionWaitsForTxCommitConfirmation()) {
+    			// runs before the tx completion are deferred, not blocking the scheduler thread
+    			task.waitForTransactionCompletion();
+    			TransactionContext txContext = txMgr.getTransactionContext();
+    			txContext.getAfterCommitActions().add(new TransactionalAction() {			
+    				@Override
+    				public void execute() {
+    					task.transactionCompleted(true);				
+    				}
+    			});
+    			txContext.getAfterRollbackActions().add(new TransactionalAction() {			
+    				@Override
+    				public void execute() {
+    					task.transactionCompleted(false);				
+    				}
+    			});
+    		}
+    		scheduler.schedule(task);
     	}
-		scheduler.schedule(task);				
 
 		// If we started a tx for this operation, we commit it now
 		if (startedTx) {
@@ -226,7 +258,7 @@ public class TimerFacilityImpl extends AbstractSleeContainerModule implements Ti
 	
 	public void cancelTimer(TimerID timerID, boolean detachAC) {
 		// cancel task in scheduler
-		final TimerFacilityTimerTask task = (TimerFacilityTimerTask) scheduler.cancel(timerID);
+		final TimerFacilityTimerTask task = timingWheel != null ? timingWheel.cancel(timerID) : (TimerFacilityTimerTask) scheduler.cancel(timerID);
 		if (detachAC && task != null) {
 			// detach this timer from the ac
 			ActivityContext ac = sleeContainer.getActivityContextFactory()
@@ -266,7 +298,7 @@ public class TimerFacilityImpl extends AbstractSleeContainerModule implements Ti
 		
 		sleeContainer.getTransactionManager().mandateTransaction();
 		
-		TimerFacilityTimerTaskData taskData = (TimerFacilityTimerTaskData) scheduler.getTimerTaskData(timerID);
+		TimerFacilityTimerTaskData taskData = timingWheel != null ? timingWheel.getTimerTaskData(timerID) : (TimerFacilityTimerTaskData) scheduler.getTimerTaskData(timerID);
 		if (taskData != null) {
 			try {
 				return sleeContainer.getActivityContextFactory().getActivityContext(taskData.getActivityContextHandle()).getActivityContextInterface();
@@ -282,6 +314,6 @@ public class TimerFacilityImpl extends AbstractSleeContainerModule implements Ti
 	@Override
 	public String toString() {
 		return 	"Timer Facility: " +
-				"\n+-- " + scheduler.toDetailedString();
+				"\n+-- " + (timingWheel != null ? timingWheel.toDetailedString() : scheduler.toDetailedString());
 	}
 }
@@ -22,7 +22,7 @@
 
 package org.mobicents.slee.runtime.facilities;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import javax.slee.facilities.TimerOptions;
 import javax.slee.facilities.TimerPreserveMissed;
@@ -30,7 +30,7 @@ import javax.slee.facilities.TimerPreserveMissed;
 import org.apache.log4j.Logger;
 import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.activity.ActivityContext;
-import org.mobicents.slee.container.activity.ActivityContextFactory;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
 import org.mobicents.slee.container.facilities.TimerFacility;
 import org.restcomm.timers.TimerTask;
 
@@ -44,7 +44,19 @@ public class TimerFacilityTimerTask extends TimerTask {
 	private final static SleeContainer sleeContainer = SleeContainer
 			.lookupFromJndi();
 
-	private CountDownLatch countDownLatch = null;
+	private static final AtomicIntegerFieldUpdater<TimerFacilityTimerTask> DEFERRED_RUNS_UPDATER = AtomicIntegerFieldUpdater.newUpdater(TimerFacilityTimerTask.class, "deferredRuns");
+	
+	/**
+	 * the number of runs deferred while waiting for the completion of the tx
+	 * which set the timer, -1 if not waiting
+	 */
+	private volatile int deferredRuns = -1;
+	
+	/**
+	 * the timing wheel which scheduled the task, null if scheduled by the
+	 * fault tolerant scheduler
+	 */
+	private volatile TimerFacilityTimingWheel timingWheel;
 	
 	public TimerFacilityTimerTask(TimerFacilityTimerTaskData data) {
 		super(data);
@@ -56,24 +68,88 @@ public class TimerFacilityTimerTask extends TimerTask {
 		return data;
 	}
 
-	public void setCountDownLatch(CountDownLatch countDownLatch) {
-		this.countDownLatch = countDownLatch;
+	/**
+	 * Indicates the task was scheduled by the specified timing wheel.
+	 * 
+	 * @param timingWheel
+	 */
+	void setTimingWheel(TimerFacilityTimingWheel timingWheel) {
+		this.timingWheel = timingWheel;
+	}
+
+	/**
+	 * Makes the task defer its runs until
+	 * {@link #transactionCompleted(boolean)} is invoked.
+	 */
+	public void waitForTransactionCompletion() {
+		deferredRuns = 0;
+	}
+	
+	/**
+	 * Indicates the tx which set the timer completed, if committed the runs
+	 * deferred meanwhile are handed off to the event router executor of the
+	 * timer's activity context.
+	 * 
+	 * @param committed
+	 */
+	public void transactionCompleted(boolean committed) {
+		final int runs = DEFERRED_RUNS_UPDATER.getAndSet(this, -1);
+		if (runs > 0) {
+			if (committed) {
+				final EventRouterExecutor executor = getExecutor();
+				if (executor == null) {
+					// the activity context is gone, the timer can't fire
+					remove();
+					return;
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Handing off " + runs + " deferred run(s) of task with timer ID "
+						+ getData().getTaskID());
+				}
+				try {
+					executor.execute(new Runnable() {
+						public void run() {
+							for (int i = 0; i < runs; i++) {
+								runInternal();
+							}
+						}
+					});
+				} catch (Throwable e) {
+					logger.error("Failed to hand off deferred run(s) of task with timer ID "
+						+ getData().getTaskID() + " to event router executor", e);
+				}
+			}
+			else {
+				// the timer doesn't exist
+				unschedule();
+			}
+		}
 	}
 	
 	public void runTask() {
 
-		if(countDownLatch != null) {
-			try {
-				countDownLatch.await();
-			} catch (InterruptedException e) {
-				logger.error("failed to wait on tx commit confirmation", e);
+		int runs = deferredRuns;
+		while (runs >= 0) {
+			// the tx which set the timer is not completed, defer the run
+			if (DEFERRED_RUNS_UPDATER.compareAndSet(this, runs, runs + 1)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Deferring run of task with timer ID "
+						+ getData().getTaskID() + " till tx completion");
+				}
+				return;
 			}
+			runs = deferredRuns;
 		}
 		runInternal();
 			
 	}
 
-	private void runInternal() {
+	/**
+	 * Executes a run of the task, synchronized since deferred runs, handed off
+	 * to an executor, may overlap the runs of the scheduler, and the task data
+	 * is not thread safe.
+	 */
+	private synchronized void runInternal() {
 
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing task with timer ID "
@@ -90,12 +166,7 @@ public class TimerFacilityTimerTask extends TimerTask {
 		// done
 		if (remainingRepetitions > 0) {
 
-			final TimerFacility timerFacility = sleeContainer
-					.getTimerFacility();
-
-			long tRes = timerFacility.getResolution();
 			long tSys = System.currentTimeMillis();
-			long tDto = timerFacility.getDefaultTimeout();
 
 			boolean postIt = false;
 
@@ -116,6 +187,9 @@ public class TimerFacilityTimerTask extends TimerTask {
 							.trace("TimerPreserveMissed.ALL so posting the event");
 				}
 			} else {
+				final TimerFacility timerFacility = getTimerFacility();
+				long tRes = timerFacility.getResolution();
+				long tDto = timerFacility.getDefaultTimeout();
 				long timeOut;
 				if (timerOptions.getTimeout() == 0) {
 					timeOut = tDto;
@@ -188,7 +262,7 @@ public class TimerFacilityTimerTask extends TimerTask {
 			boolean timerEnded = remainingRepetitions == 0;
 			if (timerEnded && period > 0) {
 				// periodic timer that ended, cancel it's execution in scheduler
-				cancel();
+				cancelExecutions();
 			}
 
 			if (postIt) {
@@ -205,35 +279,19 @@ public class TimerFacilityTimerTask extends TimerTask {
 				// Post the timer event to the queue.
 				data.setLastTick(System.currentTimeMillis());
 
-				final ActivityContextFactory acFactory = sleeContainer
-						.getActivityContextFactory();
-				final ActivityContext ac = acFactory.getActivityContext(data
-						.getActivityContextHandle());
-
+				// if the timer ended we use the event processing callbacks
+				// to cancel the timer after the event is routed
+				final CancelTimerEventProcessingCallbacks cancelTimerCallback = timerEnded ? new CancelTimerEventProcessingCallbacks(
+						this)
+						: null;
 				// the AC can be null if the activity is
 				// removed concurrently with the task execution
-				if (ac == null) {
+				if (!fireEvent(timerEvent, cancelTimerCallback)) {
 					logger.warn("Cannot fire timer event with id "
 							+ data.getTaskID()
 							+ " , because the underlying aci with id "
 							+ data.getActivityContextHandle() + " is gone.");
 					remove();
-				} else {
-					if (logger.isTraceEnabled()) {
-						logger
-								.trace("Posting timer event on event router queue. Activity context:  "
-										+ ac.getActivityContextHandle()
-										+ " remainingRepetitions: "
-										+ data.getRemainingRepetitions());
-					}
-					// if the timer ended we use the event processing callbacks
-					// to cancel the timer after the event is routed
-					final CancelTimerEventProcessingCallbacks cancelTimerCallback = timerEnded ? new CancelTimerEventProcessingCallbacks(
-							this)
-							: null;
-					ac.fireEvent(TimerEventImpl.EVENT_TYPE_ID, timerEvent, data
-							.getAddress(), null, null, null,
-							cancelTimerCallback);
 				}
 
 			} else {
@@ -251,9 +309,69 @@ public class TimerFacilityTimerTask extends TimerTask {
 
 	}
 
+	/**
+	 * Fires the timer event on the timer's activity context.
+	 * 
+	 * @param timerEvent
+	 * @param cancelTimerCallback
+	 * @return false if the activity context is gone
+	 */
+	boolean fireEvent(TimerEventImpl timerEvent,
+			CancelTimerEventProcessingCallbacks cancelTimerCallback) {
+		final ActivityContext ac = sleeContainer.getActivityContextFactory()
+				.getActivityContext(data.getActivityContextHandle());
+		if (ac == null) {
+			return false;
+		}
+		if (logger.isTraceEnabled()) {
+			logger
+					.trace("Posting timer event on event router queue. Activity context:  "
+							+ ac.getActivityContextHandle()
+							+ " remainingRepetitions: "
+							+ data.getRemainingRepetitions());
+		}
+		ac.fireEvent(TimerEventImpl.EVENT_TYPE_ID, timerEvent, data
+				.getAddress(), null, null, null, cancelTimerCallback);
+		return true;
+	}
+
+	/**
+	 * Retrieves the executor of the local activity context of the timer.
+	 * 
+	 * @return null if the activity context is gone
+	 */
+	EventRouterExecutor getExecutor() {
+		final ActivityContext ac = sleeContainer.getActivityContextFactory()
+				.getActivityContext(data.getActivityContextHandle());
+		return ac != null ? ac.getLocalActivityContext().getExecutorService()
+				: null;
+	}
+
+	TimerFacility getTimerFacility() {
+		return sleeContainer.getTimerFacility();
+	}
+
+	private void cancelExecutions() {
+		final TimerFacilityTimingWheel timingWheel = this.timingWheel;
+		if (timingWheel != null) {
+			timingWheel.disarm(data.getTimerID());
+		} else {
+			cancel();
+		}
+	}
+
+	private void unschedule() {
+		final TimerFacilityTimingWheel timingWheel = this.timingWheel;
+		if (timingWheel != null) {
+			timingWheel.cancel(data.getTimerID());
+		} else {
+			super.removeFromScheduler();
+		}
+	}
+
 	protected void remove() {
 		// remove from scheduler
-		super.removeFromScheduler();
+		unschedule();
 		// detach this timer from the ac
 		final ActivityContext ac = sleeContainer.getActivityContextFactory()
 				.getActivityContext(data.getActivityContextHandle());
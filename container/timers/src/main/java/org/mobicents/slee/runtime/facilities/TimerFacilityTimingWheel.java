@@ -0,0 +1,506 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.facilities;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import javax.slee.facilities.TimerID;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.container.SleeContainer;
+import org.mobicents.slee.container.activity.ActivityContext;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.container.transaction.TransactionContext;
+import org.mobicents.slee.container.transaction.TransactionalAction;
+
+/**
+ * A hierarchical timing wheel, used by the timer facility instead of the fault
+ * tolerant scheduler when the SLEE is not clustered.
+ * 
+ * The wheel has 4 levels of 256 slots, the first level slots are one tick
+ * long, each slot of the next levels spans a full rotation of the previous
+ * level. Schedule and cancel requests are O(1), they are queued and applied
+ * by the wheel thread, which is the only one touching the slots. On each tick
+ * the wheel thread cascades the due slots of the upper levels and expires the
+ * current slot of the first level, handing off the expired tasks, in a single
+ * batch per executor, to the event router executor of the task's local
+ * activity context, the same executor which routes the activity events.
+ * 
+ * Tasks scheduled or canceled within a transaction are only armed or disarmed
+ * once the transaction commits.
+ * 
+ * @author martins
+ * 
+ */
+public class TimerFacilityTimingWheel implements Runnable {
+
+	private static final Logger logger = Logger
+			.getLogger(TimerFacilityTimingWheel.class);
+
+	private static final int WHEEL_BITS = 8;
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+	private static final int LEVELS = 4;
+
+	/**
+	 * the max ticks an entry can be placed ahead, entries with farther
+	 * deadlines are placed at this distance, and re-placed when cascaded
+	 */
+	private static final long MAX_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+	private static final SleeContainer sleeContainer = SleeContainer
+			.lookupFromJndi();
+
+	private final Entry[][] slots = new Entry[LEVELS][WHEEL_SIZE];
+
+	private final ConcurrentHashMap<TimerID, Entry> entries = new ConcurrentHashMap<TimerID, Entry>();
+
+	private final Queue<Entry> pendingArms = new ConcurrentLinkedQueue<Entry>();
+
+	private final Queue<Entry> pendingDisarms = new ConcurrentLinkedQueue<Entry>();
+
+	private final long tickNanos;
+
+	private final long originNanos;
+
+	/**
+	 * the next tick to process, only accessed by the wheel thread
+	 */
+	private long currentTick;
+
+	private final Thread thread;
+
+	private volatile boolean running = true;
+
+	/**
+	 * 
+	 * @param tickMillis
+	 *            the duration of a tick, in milliseconds
+	 * @param threadFactory
+	 */
+	public TimerFacilityTimingWheel(long tickMillis, ThreadFactory threadFactory) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("tick must be positive");
+		}
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+		this.originNanos = System.nanoTime();
+		this.thread = threadFactory.newThread(this);
+		this.thread.start();
+	}
+
+	/**
+	 * Schedules the specified task, if there is an active transaction the
+	 * task is only armed after it commits.
+	 * 
+	 * @param task
+	 */
+	public void schedule(TimerFacilityTimerTask task) {
+		final TimerFacilityTimerTaskData data = task.getTimerFacilityTimerTaskData();
+		final TimerID timerID = data.getTimerID();
+		final Entry entry = new Entry(task);
+		task.setTimingWheel(this);
+		entries.put(timerID, entry);
+		final TransactionContext txContext = getTransactionContext();
+		if (txContext == null) {
+			arm(entry);
+		} else {
+			txContext.getAfterCommitActions().add(new TransactionalAction() {
+				@Override
+				public void execute() {
+					arm(entry);
+				}
+			});
+			txContext.getAfterRollbackActions().add(new TransactionalAction() {
+				@Override
+				public void execute() {
+					entries.remove(timerID, entry);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Cancels the task with the specified timer id, if there is an active
+	 * transaction the task is only disarmed after it commits.
+	 * 
+	 * @param timerID
+	 * @return the task canceled, null if there is no task with such timer id
+	 */
+	public TimerFacilityTimerTask cancel(final TimerID timerID) {
+		final Entry entry = entries.remove(timerID);
+		if (entry == null) {
+			return null;
+		}
+		final TransactionContext txContext = getTransactionContext();
+		if (txContext == null) {
+			disarm(entry);
+		} else {
+			txContext.getAfterCommitActions().add(new TransactionalAction() {
+				@Override
+				public void execute() {
+					disarm(entry);
+				}
+			});
+			txContext.getAfterRollbackActions().add(new TransactionalAction() {
+				@Override
+				public void execute() {
+					entries.putIfAbsent(timerID, entry);
+				}
+			});
+		}
+		return entry.task;
+	}
+
+	/**
+	 * Stops further executions of the task with the specified timer id,
+	 * without forgetting it.
+	 * 
+	 * @param timerID
+	 */
+	void disarm(TimerID timerID) {
+		final Entry entry = entries.get(timerID);
+		if (entry != null) {
+			disarm(entry);
+		}
+	}
+
+	/**
+	 * Retrieves the data of the task with the specified timer id.
+	 * 
+	 * @param timerID
+	 * @return null if there is no task with such timer id
+	 */
+	public TimerFacilityTimerTaskData getTimerTaskData(TimerID timerID) {
+		final Entry entry = entries.get(timerID);
+		return entry != null ? entry.task.getTimerFacilityTimerTaskData()
+				: null;
+	}
+
+	/**
+	 * Stops the wheel thread, all tasks are discarded.
+	 */
+	public void shutdownNow() {
+		running = false;
+		thread.interrupt();
+		entries.clear();
+	}
+
+	/**
+	 * Retrieves the context of the transaction associated with the calling
+	 * thread.
+	 * 
+	 * @return null if there is no such transaction
+	 */
+	TransactionContext getTransactionContext() {
+		return sleeContainer.getTransactionManager().getTransactionContext();
+	}
+
+	/**
+	 * Retrieves the executor of the local activity context which owns the
+	 * specified task.
+	 * 
+	 * @param data
+	 * @return null if the activity context is gone
+	 */
+	EventRouterExecutor getExecutor(TimerFacilityTimerTaskData data) {
+		final ActivityContext ac = sleeContainer.getActivityContextFactory()
+				.getActivityContext(data.getActivityContextHandle());
+		return ac != null ? ac.getLocalActivityContext().getExecutorService()
+				: null;
+	}
+
+	private void arm(Entry entry) {
+		if (ENTRY_STATE_UPDATER.compareAndSet(entry, Entry.CREATED,
+				Entry.ARMED)) {
+			pendingArms.add(entry);
+		}
+	}
+
+	private void disarm(Entry entry) {
+		if (ENTRY_STATE_UPDATER.getAndSet(entry, Entry.DISARMED) == Entry.ARMED) {
+			pendingDisarms.add(entry);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		while (running) {
+			final long sleepNanos = originNanos + (currentTick + 1) * tickNanos
+					- System.nanoTime();
+			if (sleepNanos > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(sleepNanos);
+				} catch (InterruptedException e) {
+					continue;
+				}
+			}
+			try {
+				tick();
+			} catch (Throwable e) {
+				logger.error("Failure processing timing wheel tick", e);
+			}
+		}
+	}
+
+	/**
+	 * Processes the next tick, only invoked by the wheel thread.
+	 */
+	void tick() {
+		final long tick = currentTick;
+		// apply the requests queued since last tick
+		Entry entry = null;
+		while ((entry = pendingArms.poll()) != null) {
+			if (entry.state == Entry.ARMED) {
+				entry.deadlineNanos = System.nanoTime()
+						- originNanos
+						+ TimeUnit.MILLISECONDS.toNanos(Math.max(0L, entry.task
+								.getTimerFacilityTimerTaskData().getStartTime()
+								- System.currentTimeMillis()));
+				place(entry);
+			}
+		}
+		while ((entry = pendingDisarms.poll()) != null) {
+			unlink(entry);
+		}
+		// cascade the upper levels slots which are now due, into lower levels
+		int index = (int) tick & WHEEL_MASK;
+		for (int level = 1; index == 0 && level < LEVELS; level++) {
+			index = (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+			Entry cascaded = detach(level, index);
+			while (cascaded != null) {
+				final Entry next = cascaded.next;
+				cascaded.next = null;
+				place(cascaded);
+				cascaded = next;
+			}
+		}
+		// expire the current slot
+		Entry expired = detach(0, (int) tick & WHEEL_MASK);
+		currentTick = tick + 1;
+		if (expired == null) {
+			return;
+		}
+		final Map<EventRouterExecutor, List<TimerFacilityTimerTask>> batches = new IdentityHashMap<EventRouterExecutor, List<TimerFacilityTimerTask>>();
+		List<TimerFacilityTimerTask> orphans = null;
+		while (expired != null) {
+			final Entry next = expired.next;
+			expired.next = null;
+			if (expired.state == Entry.ARMED) {
+				final TimerFacilityTimerTaskData data = expired.task
+						.getTimerFacilityTimerTaskData();
+				final EventRouterExecutor executor = getExecutor(data);
+				if (executor != null) {
+					List<TimerFacilityTimerTask> batch = batches.get(executor);
+					if (batch == null) {
+						batch = new ArrayList<TimerFacilityTimerTask>();
+						batches.put(executor, batch);
+					}
+					batch.add(expired.task);
+				} else {
+					// the activity context is gone, the task run removes it
+					if (orphans == null) {
+						orphans = new ArrayList<TimerFacilityTimerTask>();
+					}
+					orphans.add(expired.task);
+				}
+				final long period = data.getPeriod();
+				if (period > 0) {
+					// fixed rate, late executions are caught up one per tick
+					expired.deadlineNanos += TimeUnit.MILLISECONDS
+							.toNanos(period);
+					place(expired);
+				}
+			}
+			expired = next;
+		}
+		for (Map.Entry<EventRouterExecutor, List<TimerFacilityTimerTask>> batch : batches
+				.entrySet()) {
+			try {
+				batch.getKey().execute(new ExpiredTasksBatch(batch.getValue()));
+			} catch (Throwable e) {
+				logger.error("Failed to hand off expired timer tasks "
+						+ batch.getValue() + " to event router executor", e);
+			}
+		}
+		if (orphans != null) {
+			new ExpiredTasksBatch(orphans).run();
+		}
+	}
+
+	/**
+	 * Places the entry in the slot matching its deadline, relative to the
+	 * current tick.
+	 * 
+	 * @param entry
+	 */
+	private void place(Entry entry) {
+		// never expire before the deadline
+		long deadline = (entry.deadlineNanos + tickNanos - 1) / tickNanos;
+		long delta = deadline - currentTick;
+		if (delta < 0) {
+			// late, expire on the current tick
+			deadline = currentTick;
+			delta = 0;
+		} else if (delta > MAX_TICKS) {
+			deadline = currentTick + MAX_TICKS;
+			delta = MAX_TICKS;
+		}
+		int level = 0;
+		while (level < LEVELS - 1
+				&& (delta >>> (WHEEL_BITS * (level + 1))) != 0) {
+			level++;
+		}
+		final int index = (int) (deadline >>> (WHEEL_BITS * level))
+				& WHEEL_MASK;
+		final Entry head = slots[level][index];
+		entry.level = level;
+		entry.index = index;
+		entry.prev = null;
+		entry.next = head;
+		if (head != null) {
+			head.prev = entry;
+		}
+		slots[level][index] = entry;
+	}
+
+	/**
+	 * Unlinks the entry from its slot, if placed.
+	 * 
+	 * @param entry
+	 */
+	private void unlink(Entry entry) {
+		if (entry.level < 0) {
+			return;
+		}
+		if (entry.prev == null) {
+			slots[entry.level][entry.index] = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+		if (entry.next != null) {
+			entry.next.prev = entry.prev;
+		}
+		entry.prev = null;
+		entry.next = null;
+		entry.level = -1;
+	}
+
+	/**
+	 * Removes all entries from the specified slot.
+	 * 
+	 * @param level
+	 * @param index
+	 * @return the first entry of the slot, the others chained through
+	 *         {@link Entry#next}
+	 */
+	private Entry detach(int level, int index) {
+		final Entry head = slots[level][index];
+		slots[level][index] = null;
+		for (Entry entry = head; entry != null; entry = entry.next) {
+			entry.prev = null;
+			entry.level = -1;
+		}
+		return head;
+	}
+
+	@Override
+	public String toString() {
+		return "TimerFacilityTimingWheel[ tick = "
+				+ TimeUnit.NANOSECONDS.toMillis(tickNanos) + " ms , tasks = "
+				+ entries.size() + " ]";
+	}
+
+	/**
+	 * 
+	 * @return
+	 */
+	public String toDetailedString() {
+		return toString() + "\n+-- Tasks: " + entries.values();
+	}
+
+	private static final AtomicIntegerFieldUpdater<Entry> ENTRY_STATE_UPDATER = AtomicIntegerFieldUpdater
+			.newUpdater(Entry.class, "state");
+
+	private static final class Entry {
+
+		static final int CREATED = 0;
+		static final int ARMED = 1;
+		static final int DISARMED = 2;
+
+		final TimerFacilityTimerTask task;
+
+		volatile int state = CREATED;
+
+		// the following fields are only accessed by the wheel thread
+
+		long deadlineNanos;
+
+		int level = -1;
+
+		int index;
+
+		Entry prev;
+
+		Entry next;
+
+		Entry(TimerFacilityTimerTask task) {
+			this.task = task;
+		}
+
+		@Override
+		public String toString() {
+			return task.getTimerFacilityTimerTaskData().toString();
+		}
+	}
+
+	private static final class ExpiredTasksBatch implements Runnable {
+
+		private final List<TimerFacilityTimerTask> tasks;
+
+		ExpiredTasksBatch(List<TimerFacilityTimerTask> tasks) {
+			this.tasks = tasks;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			for (TimerFacilityTimerTask task : tasks) {
+				task.runTask();
+			}
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.mobicents.slee.runtime.facilities;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.slee.facilities.TimerOptions;
+import javax.slee.facilities.TimerPreserveMissed;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.event.EventContext;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
+import org.mobicents.slee.container.transaction.TransactionContext;
+
+/**
+ * Tests the runs of a {@link TimerFacilityTimerTask} deferred till the tx
+ * which set the timer completes.
+ * 
+ * @author martins
+ * 
+ */
+public class TimerFacilityTimerTaskTest extends TestCase {
+
+	private TimerFacilityTimingWheel wheel;
+
+	private QueueExecutor executor;
+
+	@Override
+	protected void setUp() throws Exception {
+		executor = new QueueExecutor();
+		wheel = new TimerFacilityTimingWheel(100, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				// the wheel only tracks the tasks, never ticks
+				return new Thread();
+			}
+		}) {
+			@Override
+			TransactionContext getTransactionContext() {
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		wheel.shutdownNow();
+	}
+
+	public void testRunWithoutTransactionWait() {
+		final TestTask task = schedule("1", 10);
+		task.runTask();
+		assertEquals(1, task.events.size());
+	}
+
+	public void testDeferredRunsHandedOffOnCommit() {
+		final TestTask task = schedule("1", 10);
+		task.waitForTransactionCompletion();
+		task.runTask();
+		task.runTask();
+		assertEquals(0, task.events.size());
+		task.transactionCompleted(true);
+		// not run by the committing thread
+		assertEquals(0, task.events.size());
+		assertEquals(1, executor.tasks.size());
+		executor.runAll();
+		assertEquals(2, task.events.size());
+		// no longer deferring
+		task.runTask();
+		assertEquals(3, task.events.size());
+	}
+
+	public void testDeferredRunsDiscardedOnRollback() {
+		final TestTask task = schedule("1", 10);
+		task.waitForTransactionCompletion();
+		task.runTask();
+		task.transactionCompleted(false);
+		assertTrue(executor.tasks.isEmpty());
+		assertEquals(0, task.events.size());
+		// the timer doesn't exist
+		assertNull(wheel.getTimerTaskData(task.getTimerFacilityTimerTaskData().getTimerID()));
+	}
+
+	public void testCommitWithoutDeferredRuns() {
+		final TestTask task = schedule("1", 10);
+		task.waitForTransactionCompletion();
+		task.transactionCompleted(true);
+		assertTrue(executor.tasks.isEmpty());
+		task.runTask();
+		assertEquals(1, task.events.size());
+	}
+
+	public void testDeferredRunsSerializedWithSchedulerRuns() throws Exception {
+		final int repetitions = 500;
+		final TestTask task = schedule("1", repetitions);
+		task.waitForTransactionCompletion();
+		for (int i = 0; i < repetitions; i++) {
+			task.runTask();
+		}
+		final ExecutorService otherThread = Executors.newSingleThreadExecutor();
+		try {
+			task.executor = new QueueExecutor() {
+				@Override
+				public void execute(Runnable runnable) {
+					otherThread.execute(runnable);
+				}
+			};
+			task.transactionCompleted(true);
+			// the scheduler keeps running the task meanwhile
+			for (int i = 0; i < repetitions; i++) {
+				task.runTask();
+			}
+		} finally {
+			otherThread.shutdown();
+			assertTrue(otherThread.awaitTermination(10, TimeUnit.SECONDS));
+		}
+		// never more events than repetitions, each with its own remaining
+		// repetitions
+		assertEquals(repetitions, task.events.size());
+		final Set<Integer> remaining = new HashSet<Integer>();
+		for (TimerEventImpl event : task.events) {
+			assertTrue(remaining.add(event.getRemainingRepetitions()));
+		}
+		assertEquals(0, task.getTimerFacilityTimerTaskData().getRemainingRepetitions());
+	}
+
+	private TestTask schedule(String id, int repetitions) {
+		final TimerOptions timerOptions = new TimerOptions();
+		timerOptions.setPreserveMissed(TimerPreserveMissed.ALL);
+		final TestTask task = new TestTask(new TimerFacilityTimerTaskData(
+				new TimerIDImpl(id), null, null, System.currentTimeMillis(),
+				1000, repetitions, timerOptions));
+		task.executor = executor;
+		wheel.schedule(task);
+		return task;
+	}
+
+	private static class TestTask extends TimerFacilityTimerTask {
+
+		final List<TimerEventImpl> events = new ArrayList<TimerEventImpl>();
+
+		EventRouterExecutor executor;
+
+		TestTask(TimerFacilityTimerTaskData data) {
+			super(data);
+		}
+
+		@Override
+		boolean fireEvent(TimerEventImpl timerEvent,
+				CancelTimerEventProcessingCallbacks cancelTimerCallback) {
+			synchronized (events) {
+				events.add(timerEvent);
+			}
+			return true;
+		}
+
+		@Override
+		EventRouterExecutor getExecutor() {
+			return executor;
+		}
+
+	}
+
+	/**
+	 * Queues the tasks executed, till the test runs these.
+	 */
+	private static class QueueExecutor implements EventRouterExecutor {
+
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+
+		void runAll() {
+			for (Runnable task : tasks) {
+				task.run();
+			}
+			tasks.clear();
+		}
+
+		public void activityMapped(ActivityContextHandle ach) {
+		}
+
+		public void activityUnmapped(ActivityContextHandle ach) {
+		}
+
+		public void execute(Runnable task) {
+			tasks.add(task);
+		}
+
+		public void executeNow(Runnable task) {
+			execute(task);
+		}
+
+		public EventRouterExecutorStatistics getStatistics() {
+			return null;
+		}
+
+		public void routeEvent(EventContext event) {
+		}
+
+		public void shutdown() {
+		}
+	}
+
+}
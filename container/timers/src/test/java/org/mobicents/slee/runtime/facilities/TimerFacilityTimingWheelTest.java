@@ -0,0 +1,238 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.facilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.activity.ActivityContextHandle;
+import org.mobicents.slee.container.event.EventContext;
+import org.mobicents.slee.container.eventrouter.EventRouterExecutor;
+import org.mobicents.slee.container.eventrouter.stats.EventRouterExecutorStatistics;
+import org.mobicents.slee.container.transaction.TransactionContext;
+
+import javax.slee.facilities.TimerOptions;
+
+/**
+ * Drives the ticks of a {@link TimerFacilityTimingWheel} without its thread.
+ * 
+ * @author martins
+ * 
+ */
+public class TimerFacilityTimingWheelTest extends TestCase {
+
+	private static final long TICK_MILLIS = 100;
+
+	private TestExecutor executor;
+	private TimerFacilityTimingWheel wheel;
+
+	/**
+	 * the number of ticks processed by the wheel
+	 */
+	private int ticks;
+
+	@Override
+	protected void setUp() throws Exception {
+		ticks = 0;
+		executor = new TestExecutor();
+		wheel = new TimerFacilityTimingWheel(TICK_MILLIS, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				// the test drives the ticks
+				return new Thread();
+			}
+		}) {
+			@Override
+			TransactionContext getTransactionContext() {
+				return null;
+			}
+
+			@Override
+			EventRouterExecutor getExecutor(TimerFacilityTimerTaskData data) {
+				return executor;
+			}
+		};
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		wheel.shutdownNow();
+	}
+
+	public void testExpiresOnDeadlineTick() {
+		final TestTask task = schedule("1", 10 * TICK_MILLIS, 0);
+		final int tick = tickUntilRun(task, 20);
+		assertTrue("expired on tick " + tick, tick >= 10 && tick <= 11);
+		assertEquals(1, task.runs);
+		tick(20);
+		assertEquals(1, task.runs);
+	}
+
+	public void testCascadesFromUpperLevels() {
+		// level 1 deadline
+		final TestTask task1 = schedule("1", 1000 * TICK_MILLIS, 0);
+		// level 2 deadline
+		final TestTask task2 = schedule("2", 70000 * TICK_MILLIS, 0);
+		int tick = tickUntilRun(task1, 1100);
+		assertTrue("expired on tick " + tick, tick >= 1000 && tick <= 1001);
+		assertEquals(0, task2.runs);
+		tick = tickUntilRun(task2, 70100);
+		assertTrue("expired on tick " + tick, tick >= 70000 && tick <= 70001);
+		assertEquals(1, task1.runs);
+		assertEquals(1, task2.runs);
+	}
+
+	public void testCancel() {
+		final TestTask task1 = schedule("1", 10 * TICK_MILLIS, 0);
+		final TestTask task2 = schedule("2", 10 * TICK_MILLIS, 0);
+		// cancel one task before it is armed by the wheel thread, the other
+		// after
+		assertSame(task1, wheel.cancel(task1.getTimerFacilityTimerTaskData()
+				.getTimerID()));
+		tick(1);
+		assertSame(task2, wheel.cancel(task2.getTimerFacilityTimerTaskData()
+				.getTimerID()));
+		assertNull(wheel.cancel(task2.getTimerFacilityTimerTaskData()
+				.getTimerID()));
+		tick(20);
+		assertEquals(0, task1.runs);
+		assertEquals(0, task2.runs);
+		assertNull(wheel.getTimerTaskData(task2.getTimerFacilityTimerTaskData()
+				.getTimerID()));
+	}
+
+	public void testPeriodicRearm() {
+		final TestTask task = schedule("1", 0, 5 * TICK_MILLIS);
+		final int tick = tickUntilRun(task, 2);
+		tick(50);
+		// the first run plus one per period
+		assertEquals(11, task.runs);
+		assertTrue("expired on tick " + tick, tick <= 1);
+		wheel.cancel(task.getTimerFacilityTimerTaskData().getTimerID());
+		final int runs = task.runs;
+		tick(50);
+		assertEquals(runs, task.runs);
+	}
+
+	public void testBatchesPerExecutor() {
+		final List<TestTask> tasks = new ArrayList<TestTask>();
+		for (int i = 0; i < 10; i++) {
+			tasks.add(schedule(Integer.toString(i), 0, 0));
+		}
+		tickUntilRun(tasks.get(0), 2);
+		assertEquals(1, executor.batches);
+		for (TestTask task : tasks) {
+			assertEquals(1, task.runs);
+		}
+	}
+
+	public void testActivityContextGone() {
+		final TestExecutor executor = this.executor;
+		// no executor for the task, its activity context is gone
+		this.executor = null;
+		final TestTask task = schedule("1", 0, 0);
+		tickUntilRun(task, 2);
+		assertEquals(0, executor.batches);
+	}
+
+	private TestTask schedule(String id, long delay, long period) {
+		final TestTask task = new TestTask(new TimerFacilityTimerTaskData(
+				new TimerIDImpl(id), null, null, System.currentTimeMillis()
+						+ delay, period, period > 0 ? Integer.MAX_VALUE : 1,
+				new TimerOptions()));
+		wheel.schedule(task);
+		return task;
+	}
+
+	private void tick(int count) {
+		for (int i = 0; i < count; i++) {
+			wheel.tick();
+			ticks++;
+		}
+	}
+
+	/**
+	 * Ticks the wheel until the specified task runs.
+	 * 
+	 * @param task
+	 * @param maxTicks
+	 * @return the tick which expired the task
+	 */
+	private int tickUntilRun(TestTask task, int maxTicks) {
+		while (ticks < maxTicks) {
+			tick(1);
+			if (task.runs > 0) {
+				return ticks - 1;
+			}
+		}
+		fail("task not run after " + maxTicks + " ticks");
+		return -1;
+	}
+
+	private static class TestTask extends TimerFacilityTimerTask {
+
+		int runs;
+
+		TestTask(TimerFacilityTimerTaskData data) {
+			super(data);
+		}
+
+		@Override
+		public void runTask() {
+			runs++;
+		}
+	}
+
+	private static class TestExecutor implements EventRouterExecutor {
+
+		int batches;
+
+		public void activityMapped(ActivityContextHandle ach) {
+		}
+
+		public void activityUnmapped(ActivityContextHandle ach) {
+		}
+
+		public void execute(Runnable task) {
+			batches++;
+			task.run();
+		}
+
+		public void executeNow(Runnable task) {
+			execute(task);
+		}
+
+		public EventRouterExecutorStatistics getStatistics() {
+			return null;
+		}
+
+		public void routeEvent(EventContext event) {
+		}
+
+		public void shutdown() {
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.runtime.transaction.AsyncTransactionExecutor;
+
+/**
+ * @author martins
+ * 
+ */
+public class TransactionManagerConfiguration implements
+		TransactionManagerConfigurationMBean {
+
+	private static final Logger logger = Logger
+			.getLogger(TransactionManagerConfiguration.class);
+
+	private boolean localTransactions;
+
+	private AsyncTransactionExecutor.Strategy asyncExecutionStrategy = AsyncTransactionExecutor.Strategy.BOUNDED;
+
+	private int asyncExecutorThreads = 16;
+
+	private int asyncExecutorQueueSize = 1000;
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerConfigurationMBean#isLocalTransactions()
+	 */
+	public boolean isLocalTransactions() {
+		return localTransactions;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerConfigurationMBean#setLocalTransactions(boolean)
+	 */
+	public void setLocalTransactions(boolean value) {
+		if (value != this.localTransactions) {
+			logger.warn("Setting localTransactions property to "
+				+ value
+				+ ". If called with server running a stop and start is need to apply changes.");
+		}
+		this.localTransactions = value;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerConfigurationMBean#getAsyncExecutionStrategy()
+	 */
+	public String getAsyncExecutionStrategy() {
+		return asyncExecutionStrategy.name();
+	}
+
+	/**
+	 * 
+	 * @return
+	 */
+	public AsyncTransactionExecutor.Strategy getAsyncExecutionStrategyValue() {
+		return asyncExecutionStrategy;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerConfigurationMBean#setAsyncExecutionStrategy(java.lang.String)
+	 */
+	public void setAsyncExecutionStrategy(String value) throws IllegalArgumentException {
+		final AsyncTransactionExecutor.Strategy strategy = AsyncTransactionExecutor.Strategy.valueOf(value);
+		if (strategy != this.asyncExecutionStrategy) {
+			logger.warn("Setting asyncExecutionStrategy property to "
+				+ value
+				+ ". If called with server running a stop and start is need to apply changes.");
+		}
+		this.asyncExecutionStrategy = strategy;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerConfigurationMBean#getAsyncExecutorThreads()
+	 */
+	public int getAsyncExecutorThreads() {
+		return asyncExecutorThreads;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerConfigurationMBean#setAsyncExecutorThreads(int)
+	 */
+	public void setAsyncExecutorThreads(int value) {
+		if (value < 1) {
+			throw new IllegalArgumentException("the number of threads must be greater than 0");
+		}
+		if (value != this.asyncExecutorThreads) {
+			logger.warn("Setting asyncExecutorThreads property to "
+				+ value
+				+ ". If called with server running a stop and start is need to apply changes.");
+		}
+		this.asyncExecutorThreads = value;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerConfigurationMBean#getAsyncExecutorQueueSize()
+	 */
+	public int getAsyncExecutorQueueSize() {
+		return asyncExecutorQueueSize;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerConfigurationMBean#setAsyncExecutorQueueSize(int)
+	 */
+	public void setAsyncExecutorQueueSize(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("the queue size must not be negative");
+		}
+		if (value != this.asyncExecutorQueueSize) {
+			logger.warn("Setting asyncExecutorQueueSize property to "
+				+ value
+				+ ". If called with server running a stop and start is need to apply changes.");
+		}
+		this.asyncExecutorQueueSize = value;
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+/**
+ * JMX interface for the SLEE transaction manager configuration.
+ * @author martins
+ *
+ */
+public interface TransactionManagerConfigurationMBean {
+
+	public static final String OBJECT_NAME = "org.mobicents.slee:name=TransactionManagerConfiguration";
+
+	/**
+	 * Indicates if SLEE transactions are kept in the container, only
+	 * escalating to a transaction of the underlying tx manager when a
+	 * resource needs it.
+	 * 
+	 * @return
+	 */
+	public boolean isLocalTransactions();
+
+	/**
+	 * Defines if SLEE transactions are kept in the container, only escalating
+	 * to a transaction of the underlying tx manager when a resource needs it.
+	 * 
+	 * Note that setting a different value for this method will only be
+	 * effective on server (re)start.
+	 * 
+	 * @param value
+	 */
+	public void setLocalTransactions(boolean value);
+
+	/**
+	 * Retrieves the strategy to execute async tx commits and rollbacks, one of
+	 * CACHED, BOUNDED or VIRTUAL.
+	 * 
+	 * @return
+	 */
+	public String getAsyncExecutionStrategy();
+
+	/**
+	 * Sets the strategy to execute async tx commits and rollbacks, one of
+	 * CACHED, BOUNDED or VIRTUAL.
+	 * 
+	 * Note that setting a different value for this method will only be
+	 * effective on server (re)start.
+	 * 
+	 * @param value
+	 * @throws IllegalArgumentException
+	 */
+	public void setAsyncExecutionStrategy(String value) throws IllegalArgumentException;
+
+	/**
+	 * Retrieves the max number of threads executing async tx commits and
+	 * rollbacks, with the BOUNDED strategy.
+	 * 
+	 * @return
+	 */
+	public int getAsyncExecutorThreads();
+
+	/**
+	 * Sets the max number of threads executing async tx commits and
+	 * rollbacks, with the BOUNDED strategy.
+	 * 
+	 * Note that setting a different value for this method will only be
+	 * effective on server (re)start.
+	 * 
+	 * @param value
+	 */
+	public void setAsyncExecutorThreads(int value);
+
+	/**
+	 * Retrieves the capacity of the queue of async tx commits and rollbacks,
+	 * with the BOUNDED strategy, 0 means unbounded.
+	 * 
+	 * @return
+	 */
+	public int getAsyncExecutorQueueSize();
+
+	/**
+	 * Sets the capacity of the queue of async tx commits and rollbacks, with
+	 * the BOUNDED strategy, 0 means unbounded. When full the commit or
+	 * rollback is executed by the thread requesting it.
+	 * 
+	 * Note that setting a different value for this method will only be
+	 * effective on server (re)start.
+	 * 
+	 * @param value
+	 */
+	public void setAsyncExecutorQueueSize(int value);
+
+}
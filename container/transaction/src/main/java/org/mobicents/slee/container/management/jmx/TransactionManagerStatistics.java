@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+import org.mobicents.slee.runtime.transaction.AsyncTransactionExecutor;
+import org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl;
+
+/**
+ * 
+ * @author martins
+ * 
+ */
+public class TransactionManagerStatistics implements
+		TransactionManagerStatisticsMBean {
+
+	private final SleeTransactionManagerImpl transactionManager;
+
+	public TransactionManagerStatistics(SleeTransactionManagerImpl transactionManager) {
+		this.transactionManager = transactionManager;
+	}
+
+	private AsyncTransactionExecutor getAsyncExecutor() {
+		return transactionManager.getAsyncExecutor();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerStatisticsMBean#getAsyncExecutionStrategy()
+	 */
+	public String getAsyncExecutionStrategy() {
+		return getAsyncExecutor().getStrategy().name();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerStatisticsMBean#getAsyncCompletionsInFlight()
+	 */
+	public int getAsyncCompletionsInFlight() {
+		return getAsyncExecutor().getInFlight();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerStatisticsMBean#getAsyncCompletionsSubmitted()
+	 */
+	public long getAsyncCompletionsSubmitted() {
+		return getAsyncExecutor().getSubmitted();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerStatisticsMBean#getAsyncCompletionsCallerRuns()
+	 */
+	public long getAsyncCompletionsCallerRuns() {
+		return getAsyncExecutor().getCallerRuns();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerStatisticsMBean#getAsyncCompletionsQueued()
+	 */
+	public int getAsyncCompletionsQueued() {
+		return getAsyncExecutor().getQueueSize();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerStatisticsMBean#getAsyncExecutorPoolSize()
+	 */
+	public int getAsyncExecutorPoolSize() {
+		return getAsyncExecutor().getThreads();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.TransactionManagerStatisticsMBean#getAsyncExecutorLargestPoolSize()
+	 */
+	public int getAsyncExecutorLargestPoolSize() {
+		return getAsyncExecutor().getLargestThreads();
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.container.management.jmx;
+
+/**
+ * JMX interface for the SLEE transaction manager statistics.
+ * @author martins
+ *
+ */
+public interface TransactionManagerStatisticsMBean {
+
+	public static final String OBJECT_NAME = "org.mobicents.slee:name=TransactionManagerStatistics";
+
+	/**
+	 * Retrieves the strategy in use to execute async tx commits and
+	 * rollbacks, which may differ from the configured one if not supported.
+	 * 
+	 * @return
+	 */
+	public String getAsyncExecutionStrategy();
+
+	/**
+	 * Retrieves the number of async tx commits and rollbacks submitted and
+	 * not yet finished.
+	 * 
+	 * @return
+	 */
+	public int getAsyncCompletionsInFlight();
+
+	/**
+	 * Retrieves the number of async tx commits and rollbacks submitted.
+	 * 
+	 * @return
+	 */
+	public long getAsyncCompletionsSubmitted();
+
+	/**
+	 * Retrieves the number of async tx commits and rollbacks executed by the
+	 * thread requesting them, due to a full queue.
+	 * 
+	 * @return
+	 */
+	public long getAsyncCompletionsCallerRuns();
+
+	/**
+	 * Retrieves the number of async tx commits and rollbacks waiting in the
+	 * queue.
+	 * 
+	 * @return
+	 */
+	public int getAsyncCompletionsQueued();
+
+	/**
+	 * Retrieves the number of threads executing async tx commits and
+	 * rollbacks.
+	 * 
+	 * @return
+	 */
+	public int getAsyncExecutorPoolSize();
+
+	/**
+	 * Retrieves the largest number of threads that have ever executed async
+	 * tx commits and rollbacks at the same time, -1 with virtual threads.
+	 * 
+	 * @return
+	 */
+	public int getAsyncExecutorLargestPoolSize();
+
+}
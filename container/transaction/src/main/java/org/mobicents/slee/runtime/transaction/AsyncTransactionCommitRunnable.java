@@ -34,7 +34,7 @@ import javax.transaction.Transaction;
  * @author martins
  *
  */
-public class AsyncTransactionCommitRunnable implements Runnable {
+public class AsyncTransactionCommitRunnable implements AsyncTransactionRunnable {
 
 	private final CommitListener commitListener;
 	private final Transaction transaction;
@@ -74,4 +74,26 @@ public class AsyncTransactionCommitRunnable implements Runnable {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.AsyncTransactionRunnable#rejected()
+	 */
+	public void rejected() {
+		// the executor is shutdown, rollback instead of committing in the submitter thread
+		try {
+			transaction.rollback();
+			if (commitListener != null) {
+				commitListener.rolledBack(new RollbackException("async commit rejected, the executor is shutdown"));
+			}
+		} catch (SystemException e) {
+			if (commitListener != null) {
+				commitListener.systemException(e);
+			}
+		} catch (Exception e) {
+			if (commitListener != null) {
+				commitListener.systemException(new SystemException(e.getMessage()));
+			}
+		}
+	}
+
 }
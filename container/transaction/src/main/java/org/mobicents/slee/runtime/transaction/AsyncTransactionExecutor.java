@@ -0,0 +1,282 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.transaction;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.util.concurrent.SleeThreadFactory;
+
+/**
+ * Executes the async commits and rollbacks of SLEE transactions, with one of
+ * the {@link Strategy}s, and counts the completions submitted, in flight and
+ * executed by the submitter due to a full queue.
+ * 
+ * @author martins
+ * 
+ */
+public class AsyncTransactionExecutor {
+
+	private static final Logger logger = Logger.getLogger(AsyncTransactionExecutor.class);
+
+	private final static SleeThreadFactory SLEE_THREAD_FACTORY = new SleeThreadFactory("SLEE-TransactionManager");
+
+	/**
+	 * The strategies to execute async tx completions.
+	 */
+	public enum Strategy {
+		/**
+		 * unbounded pool of threads, created on demand and reused while
+		 * available
+		 */
+		CACHED,
+		/**
+		 * bounded pool of threads with a bounded queue, when the queue is full
+		 * the completion is executed by the submitter thread
+		 */
+		BOUNDED,
+		/**
+		 * a new virtual thread per completion, requires a JVM supporting
+		 * virtual threads, otherwise BOUNDED is used
+		 */
+		VIRTUAL
+	}
+
+	private final ExecutorService executorService;
+
+	/**
+	 * the executor service as thread pool, null for virtual threads
+	 */
+	private final ThreadPoolExecutor threadPool;
+
+	private final Strategy strategy;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicLong submitted = new AtomicLong();
+
+	private final AtomicLong callerRuns = new AtomicLong();
+
+	/**
+	 * 
+	 * @param strategy
+	 * @param threads
+	 *            the max number of threads, for the BOUNDED strategy
+	 * @param queueSize
+	 *            the capacity of the queue, for the BOUNDED strategy, 0 means
+	 *            unbounded
+	 */
+	public AsyncTransactionExecutor(Strategy strategy, int threads, int queueSize) {
+		ExecutorService executorService = null;
+		if (strategy == Strategy.VIRTUAL) {
+			executorService = newVirtualThreadPerTaskExecutor();
+			if (executorService == null) {
+				logger.warn("Virtual threads not supported by the JVM, async tx completions will use a bounded thread pool");
+				strategy = Strategy.BOUNDED;
+			}
+		}
+		if (strategy == Strategy.CACHED) {
+			executorService = Executors.newCachedThreadPool(SLEE_THREAD_FACTORY);
+		} else if (strategy == Strategy.BOUNDED) {
+			if (threads < 1) {
+				throw new IllegalArgumentException("the number of threads must be greater than 0");
+			}
+			final ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, queueSize > 0 ? new ArrayBlockingQueue<Runnable>(queueSize) : new LinkedBlockingQueue<Runnable>(), SLEE_THREAD_FACTORY, new CallerRunsHandler());
+			threadPool.allowCoreThreadTimeOut(true);
+			executorService = threadPool;
+		}
+		this.strategy = strategy;
+		this.executorService = executorService;
+		this.threadPool = executorService instanceof ThreadPoolExecutor ? (ThreadPoolExecutor) executorService : null;
+	}
+
+	/**
+	 * Creates an executor with a new virtual thread per task, through
+	 * reflection since it depends on the JVM version.
+	 * 
+	 * @return null if virtual threads are not supported
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (Throwable e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Executes a tx completion when the bounded queue is full, in the
+	 * submitter thread, slowing down who produces async completions. Once the
+	 * executor is shutdown the completion is rejected.
+	 */
+	private class CallerRunsHandler implements RejectedExecutionHandler {
+
+		public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("async tx executor is shutdown");
+			}
+			callerRuns.incrementAndGet();
+			r.run();
+		}
+	}
+
+	/**
+	 * Wraps a completion task to track the ones in flight.
+	 */
+	private class Task implements Runnable {
+
+		private final Runnable runnable;
+
+		Task(Runnable runnable) {
+			this.runnable = runnable;
+		}
+
+		public void run() {
+			try {
+				runnable.run();
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}
+
+		/**
+		 * Completes the tx in the submitter thread, the executor rejected
+		 * the task.
+		 */
+		void rejected() {
+			try {
+				if (runnable instanceof AsyncTransactionRunnable) {
+					((AsyncTransactionRunnable) runnable).rejected();
+				} else {
+					logger.warn("Async tx completion " + runnable + " rejected, the executor is shutdown");
+				}
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Executes the specified tx completion runnable. If the executor is
+	 * shutdown an {@link AsyncTransactionRunnable} completes the tx in the
+	 * submitter thread, other runnables are discarded.
+	 * 
+	 * @param runnable
+	 */
+	public void execute(Runnable runnable) {
+		submitted.incrementAndGet();
+		inFlight.incrementAndGet();
+		final Task task = new Task(runnable);
+		try {
+			executorService.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.rejected();
+		} catch (RuntimeException e) {
+			inFlight.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * Shuts down the executor, completions already submitted are still
+	 * executed, later ones are rejected.
+	 */
+	public void shutdown() {
+		executorService.shutdown();
+	}
+
+	/**
+	 * Retrieves the strategy in use, which may differ from the configured
+	 * one if not supported.
+	 * 
+	 * @return
+	 */
+	public Strategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Retrieves the number of completions submitted and not yet finished.
+	 * 
+	 * @return
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Retrieves the number of completions submitted.
+	 * 
+	 * @return
+	 */
+	public long getSubmitted() {
+		return submitted.get();
+	}
+
+	/**
+	 * Retrieves the number of completions executed by the submitter thread,
+	 * due to a full queue.
+	 * 
+	 * @return
+	 */
+	public long getCallerRuns() {
+		return callerRuns.get();
+	}
+
+	/**
+	 * Retrieves the number of completions waiting in the queue.
+	 * 
+	 * @return 0 for virtual threads
+	 */
+	public int getQueueSize() {
+		return threadPool != null ? threadPool.getQueue().size() : 0;
+	}
+
+	/**
+	 * Retrieves the number of threads in the pool.
+	 * 
+	 * @return the number of completions in flight for virtual threads
+	 */
+	public int getThreads() {
+		return threadPool != null ? threadPool.getPoolSize() : inFlight.get();
+	}
+
+	/**
+	 * Retrieves the largest number of threads that have ever been in the pool.
+	 * 
+	 * @return -1 for virtual threads
+	 */
+	public int getLargestThreads() {
+		return threadPool != null ? threadPool.getLargestPoolSize() : -1;
+	}
+
+}
@@ -31,7 +31,7 @@ import javax.transaction.Transaction;
  * @author martins
  *
  */
-public class AsyncTransactionRollbackRunnable implements Runnable {
+public class AsyncTransactionRollbackRunnable implements AsyncTransactionRunnable {
 
 	private final RollbackListener rollbackListener;
 	private final Transaction transaction;
@@ -59,4 +59,13 @@ public class AsyncTransactionRollbackRunnable implements Runnable {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.AsyncTransactionRunnable#rejected()
+	 */
+	public void rejected() {
+		// the executor is shutdown, rollback in the submitter thread
+		run();
+	}
+
 }
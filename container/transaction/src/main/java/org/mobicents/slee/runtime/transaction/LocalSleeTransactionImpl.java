@@ -0,0 +1,446 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import javax.slee.transaction.CommitListener;
+import javax.slee.transaction.RollbackListener;
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.HeuristicRollbackException;
+import javax.transaction.NotSupportedException;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+import javax.transaction.xa.XAResource;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.container.transaction.SleeTransaction;
+import org.mobicents.slee.container.transaction.TransactionContext;
+
+/**
+ * A {@link SleeTransaction} which lives only in the SLEE, its state is kept in
+ * the object itself and the {@link TransactionContextImpl} actions are
+ * executed directly on completion. A transaction of the underlying tx manager
+ * is only started if a resource needs to join it, in that case it is
+ * completed together with this transaction.
+ * 
+ * @author martins
+ * 
+ */
+public class LocalSleeTransactionImpl implements SleeTransaction {
+
+	private static final Logger logger = Logger.getLogger(LocalSleeTransactionImpl.class);
+
+	private static final AtomicIntegerFieldUpdater<LocalSleeTransactionImpl> STATUS_UPDATER = AtomicIntegerFieldUpdater.newUpdater(LocalSleeTransactionImpl.class, "status");
+
+	/**
+	 * the transaction manager
+	 */
+	private final LocalSleeTransactionManagerImpl transactionManager;
+
+	/**
+	 * the tx context
+	 */
+	private final TransactionContextImpl txContext;
+
+	/**
+	 * the tx id
+	 */
+	private final long transactionId;
+
+	/**
+	 * the tx status, one of {@link Status} constants
+	 */
+	private volatile int status = Status.STATUS_ACTIVE;
+
+	/**
+	 * the transaction of the underlying tx manager, only exists if a resource
+	 * needed it
+	 */
+	private volatile Transaction realTransaction;
+
+	/**
+	 * synchronizations registered before a real transaction exists
+	 */
+	private List<Synchronization> synchronizations;
+
+	/**
+	 * 
+	 * @param transactionId
+	 * @param transactionManager
+	 */
+	LocalSleeTransactionImpl(long transactionId, LocalSleeTransactionManagerImpl transactionManager) {
+		this.transactionId = transactionId;
+		this.transactionManager = transactionManager;
+		this.txContext = new TransactionContextImpl();
+	}
+
+	/**
+	 * Retrieves the tx context.
+	 * @return
+	 */
+	public TransactionContext getTransactionContext() {
+		return txContext;
+	}
+
+	/**
+	 * Retrieves the transaction of the underlying tx manager.
+	 * @return null if no resource required it
+	 */
+	Transaction getRealTransaction() {
+		return realTransaction;
+	}
+
+	/**
+	 * Retrieves the transaction of the underlying tx manager, starting it if
+	 * needed. The real transaction is associated with the current thread only
+	 * if this transaction is.
+	 * 
+	 * @return
+	 * @throws SystemException
+	 */
+	Transaction requireRealTransaction() throws SystemException {
+		if (realTransaction == null) {
+			final int status = this.status;
+			if (status != Status.STATUS_ACTIVE && status != Status.STATUS_MARKED_ROLLBACK) {
+				throw new IllegalStateException("There is no active tx, tx is in state: " + status);
+			}
+			final TransactionManager tm = transactionManager.getRealTransactionManager();
+			try {
+				tm.begin();
+			} catch (NotSupportedException e) {
+				throw new SystemException(e.getMessage());
+			}
+			realTransaction = tm.getTransaction();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Started real tx " + realTransaction + " for local tx " + this);
+			}
+			if (status == Status.STATUS_MARKED_ROLLBACK) {
+				realTransaction.setRollbackOnly();
+			}
+			if (!transactionManager.isCurrentTransaction(this)) {
+				tm.suspend();
+			}
+		}
+		return realTransaction;
+	}
+
+	/**
+	 * Dissociates the real transaction, if exists, from the current thread.
+	 * 
+	 * @throws SystemException
+	 */
+	void suspendRealTransaction() throws SystemException {
+		final Transaction realTransaction = this.realTransaction;
+		if (realTransaction != null) {
+			final TransactionManager tm = transactionManager.getRealTransactionManager();
+			if (realTransaction.equals(tm.getTransaction())) {
+				tm.suspend();
+			}
+		}
+	}
+
+	/**
+	 * Verifies the transaction is active and dissociates it from the current
+	 * thread, before an async completion.
+	 * 
+	 * @throws IllegalStateException
+	 */
+	private void beforeAsyncOperation() throws IllegalStateException {
+		final int status = this.status;
+		if (status != Status.STATUS_ACTIVE && status != Status.STATUS_MARKED_ROLLBACK) {
+			throw new IllegalStateException("There is no active tx, tx is in state: " + status);
+		}
+		transactionManager.dissociate(this);
+		try {
+			suspendRealTransaction();
+		} catch (SystemException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see javax.slee.transaction.SleeTransaction#asyncCommit(javax.slee.transaction.CommitListener)
+	 */
+	public void asyncCommit(CommitListener commitListener) throws IllegalStateException, SecurityException {
+		beforeAsyncOperation();
+		transactionManager.getAsyncExecutor().execute(new AsyncTransactionCommitRunnable(commitListener, this));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see javax.slee.transaction.SleeTransaction#asyncRollback(javax.slee.transaction.RollbackListener)
+	 */
+	public void asyncRollback(RollbackListener rollbackListener) throws IllegalStateException, SecurityException {
+		beforeAsyncOperation();
+		transactionManager.getAsyncExecutor().execute(new AsyncTransactionRollbackRunnable(rollbackListener, this));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see javax.slee.transaction.SleeTransaction#delistResource(javax.transaction.xa.XAResource, int)
+	 */
+	public boolean delistResource(XAResource xaRes, int flag) throws IllegalStateException, SystemException {
+		final Transaction realTransaction = this.realTransaction;
+		if (realTransaction == null) {
+			return false;
+		}
+		return realTransaction.delistResource(xaRes, flag);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see javax.slee.transaction.SleeTransaction#enlistResource(javax.transaction.xa.XAResource)
+	 */
+	public boolean enlistResource(XAResource xaRes) throws IllegalStateException, RollbackException {
+		try {
+			return requireRealTransaction().enlistResource(xaRes);
+		} catch (SystemException e) {
+			// this should be a bug in slee 1.1 api, the exceptions thrown
+			// should match jta transaction interface
+			throw new RuntimeException(e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see javax.transaction.Transaction#registerSynchronization(javax.transaction.Synchronization)
+	 */
+	public void registerSynchronization(Synchronization sync) throws RollbackException, IllegalStateException, SystemException {
+		final Transaction realTransaction = this.realTransaction;
+		if (realTransaction != null) {
+			realTransaction.registerSynchronization(sync);
+			return;
+		}
+		final int status = this.status;
+		if (status == Status.STATUS_MARKED_ROLLBACK) {
+			throw new RollbackException("tx marked for rollback");
+		}
+		if (status != Status.STATUS_ACTIVE && status != Status.STATUS_PREPARING) {
+			throw new IllegalStateException("There is no active tx, tx is in state: " + status);
+		}
+		if (synchronizations == null) {
+			synchronizations = new ArrayList<Synchronization>(2);
+		}
+		synchronizations.add(sync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see javax.transaction.Transaction#commit()
+	 */
+	public void commit() throws RollbackException, HeuristicMixedException, HeuristicRollbackException, SecurityException, IllegalStateException, SystemException {
+		if (!STATUS_UPDATER.compareAndSet(this, Status.STATUS_ACTIVE, Status.STATUS_PREPARING)) {
+			if (STATUS_UPDATER.compareAndSet(this, Status.STATUS_MARKED_ROLLBACK, Status.STATUS_ROLLING_BACK)) {
+				completeRollback();
+				throw new RollbackException("tx marked for rollback");
+			}
+			throw new IllegalStateException("There is no active tx, tx is in state: " + status);
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Starting commit of local tx " + this);
+		}
+		txContext.completionRequested();
+		try {
+			try {
+				beforeCompletion();
+			} catch (RuntimeException e) {
+				status = Status.STATUS_ROLLING_BACK;
+				completeRollback();
+				final RollbackException rollbackException = new RollbackException(e.getMessage());
+				rollbackException.initCause(e);
+				throw rollbackException;
+			}
+			if (!STATUS_UPDATER.compareAndSet(this, Status.STATUS_PREPARING, Status.STATUS_COMMITTING)) {
+				// set rollback only during before completion
+				status = Status.STATUS_ROLLING_BACK;
+				completeRollback();
+				throw new RollbackException("tx marked for rollback");
+			}
+			final Transaction realTransaction = this.realTransaction;
+			if (realTransaction != null) {
+				boolean committed = false;
+				try {
+					realTransaction.commit();
+					committed = true;
+				} finally {
+					suspendRealTransaction();
+					if (!committed) {
+						status = Status.STATUS_ROLLEDBACK;
+						afterCompletion(Status.STATUS_ROLLEDBACK);
+					}
+				}
+			}
+			status = Status.STATUS_COMMITTED;
+			afterCompletion(Status.STATUS_COMMITTED);
+		} finally {
+			txContext.completionRequestEnded();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see javax.transaction.Transaction#rollback()
+	 */
+	public void rollback() throws IllegalStateException, SystemException {
+		if (!STATUS_UPDATER.compareAndSet(this, Status.STATUS_ACTIVE, Status.STATUS_ROLLING_BACK) && !STATUS_UPDATER.compareAndSet(this, Status.STATUS_MARKED_ROLLBACK, Status.STATUS_ROLLING_BACK)) {
+			throw new IllegalStateException("There is no active tx, tx is in state: " + status);
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Starting rollback of local tx " + this);
+		}
+		completeRollback();
+	}
+
+	/**
+	 * Rolls back the real transaction, if exists, and executes the after
+	 * rollback logic.
+	 * 
+	 * @throws SystemException
+	 */
+	private void completeRollback() throws SystemException {
+		try {
+			final Transaction realTransaction = this.realTransaction;
+			if (realTransaction != null) {
+				try {
+					realTransaction.rollback();
+				} finally {
+					suspendRealTransaction();
+				}
+			}
+		} finally {
+			status = Status.STATUS_ROLLEDBACK;
+			afterCompletion(Status.STATUS_ROLLEDBACK);
+		}
+	}
+
+	/**
+	 * Executes the before commit actions and synchronizations.
+	 */
+	private void beforeCompletion() {
+		txContext.executeBeforeCommitPriorityActions();
+		txContext.executeBeforeCommitActions();
+		if (synchronizations != null) {
+			for (Synchronization synchronization : synchronizations) {
+				synchronization.beforeCompletion();
+			}
+		}
+	}
+
+	/**
+	 * Dissociates the tx from the thread and executes the after commit or
+	 * rollback actions and synchronizations.
+	 * 
+	 * @param status
+	 */
+	private void afterCompletion(int status) {
+		transactionManager.dissociate(this);
+		try {
+			if (status == Status.STATUS_COMMITTED) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Completed commit of local tx " + this);
+				}
+				txContext.executeAfterCommitPriorityActions();
+				txContext.executeAfterCommitActions();
+				txContext.afterCommit();
+			} else {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Completed rollback of local tx " + this);
+				}
+				txContext.executeAfterRollbackActions();
+			}
+		} finally {
+			if (synchronizations != null) {
+				for (Synchronization synchronization : synchronizations) {
+					try {
+						synchronization.afterCompletion(status);
+					} catch (Throwable e) {
+						logger.error("Failure in synchronization after completion of local tx " + this, e);
+					}
+				}
+				synchronizations = null;
+			}
+			txContext.cleanup();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see javax.transaction.Transaction#getStatus()
+	 */
+	public int getStatus() throws SystemException {
+		return status;
+	}
+
+	/**
+	 * Indicates if the tx is marked for rollback.
+	 * @return
+	 */
+	boolean isRollbackOnly() {
+		return status == Status.STATUS_MARKED_ROLLBACK;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see javax.transaction.Transaction#setRollbackOnly()
+	 */
+	public void setRollbackOnly() throws IllegalStateException, SystemException {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Marking local tx " + this + " for rollback.");
+		}
+		if (!STATUS_UPDATER.compareAndSet(this, Status.STATUS_ACTIVE, Status.STATUS_MARKED_ROLLBACK) && !STATUS_UPDATER.compareAndSet(this, Status.STATUS_PREPARING, Status.STATUS_MARKED_ROLLBACK) && status != Status.STATUS_MARKED_ROLLBACK) {
+			throw new IllegalStateException("There is no active tx, tx is in state: " + status);
+		}
+		final Transaction realTransaction = this.realTransaction;
+		if (realTransaction != null) {
+			realTransaction.setRollbackOnly();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "local:" + transactionId;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (transactionId ^ (transactionId >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj != null && obj.getClass() == this.getClass()) {
+			return ((LocalSleeTransactionImpl) obj).transactionId == this.transactionId;
+		} else {
+			return false;
+		}
+	}
+
+}
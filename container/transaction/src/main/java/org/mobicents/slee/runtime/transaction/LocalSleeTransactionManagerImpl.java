@@ -0,0 +1,311 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.transaction;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.HeuristicRollbackException;
+import javax.transaction.InvalidTransactionException;
+import javax.transaction.NotSupportedException;
+import javax.transaction.RollbackException;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.apache.log4j.Logger;
+import org.mobicents.slee.container.management.jmx.TransactionManagerConfiguration;
+import org.mobicents.slee.container.transaction.SleeTransaction;
+import org.mobicents.slee.container.transaction.TransactionContext;
+
+/**
+ * SLEE Tx manager which begins {@link LocalSleeTransactionImpl}s, transactions
+ * kept in the SLEE and bound to the thread which begins them, only escalating
+ * to a transaction of the underlying tx manager when a resource needs it. To
+ * be used in non clustered deployments, where no XA resource is normally
+ * involved in the event processing.
+ * 
+ * Transactions started directly in the underlying tx manager are still
+ * handled as in {@link SleeTransactionManagerImpl}.
+ * 
+ * @author martins
+ * 
+ */
+public class LocalSleeTransactionManagerImpl extends SleeTransactionManagerImpl {
+
+	private static final Logger logger = Logger.getLogger(LocalSleeTransactionManagerImpl.class);
+
+	/**
+	 * the local tx associated with each thread
+	 */
+	private final ThreadLocal<LocalSleeTransactionImpl> currentTransaction = new ThreadLocal<LocalSleeTransactionImpl>();
+
+	/**
+	 * generator of local tx ids
+	 */
+	private final AtomicLong transactionIds = new AtomicLong();
+
+	/**
+	 * 
+	 * @param transactionManager
+	 */
+	public LocalSleeTransactionManagerImpl(TransactionManager transactionManager) {
+		super(transactionManager);
+	}
+
+	/**
+	 * 
+	 * @param transactionManager
+	 * @param configuration
+	 */
+	public LocalSleeTransactionManagerImpl(TransactionManager transactionManager, TransactionManagerConfiguration configuration) {
+		super(transactionManager, configuration);
+	}
+
+	/**
+	 * Indicates if the specified tx is the one associated with the current
+	 * thread.
+	 * 
+	 * @param transaction
+	 * @return
+	 */
+	boolean isCurrentTransaction(LocalSleeTransactionImpl transaction) {
+		return currentTransaction.get() == transaction;
+	}
+
+	/**
+	 * Dissociates the specified tx from the current thread, if it is the one
+	 * associated.
+	 * 
+	 * @param transaction
+	 */
+	void dissociate(LocalSleeTransactionImpl transaction) {
+		if (currentTransaction.get() == transaction) {
+			currentTransaction.remove();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#requireRealTransaction()
+	 */
+	@Override
+	public void requireRealTransaction() throws SystemException {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			transaction.requireRealTransaction();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#getRollbackOnly()
+	 */
+	@Override
+	public boolean getRollbackOnly() throws SystemException {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			return transaction.isRollbackOnly();
+		}
+		return super.getRollbackOnly();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#begin()
+	 */
+	@Override
+	public void begin() throws NotSupportedException, SystemException {
+		beginSleeTransaction();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#beginSleeTransaction()
+	 */
+	@Override
+	public SleeTransaction beginSleeTransaction() throws NotSupportedException, SystemException {
+		if (currentTransaction.get() != null) {
+			throw new NotSupportedException("nested transactions are not supported");
+		}
+		final LocalSleeTransactionImpl transaction = new LocalSleeTransactionImpl(transactionIds.incrementAndGet(), this);
+		currentTransaction.set(transaction);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Started local tx " + transaction);
+		}
+		return transaction;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#getTransaction()
+	 */
+	@Override
+	public SleeTransaction getTransaction() throws SystemException {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			return transaction;
+		}
+		return super.getTransaction();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#getSleeTransaction()
+	 */
+	@Override
+	public SleeTransaction getSleeTransaction() throws SystemException {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			return transaction;
+		}
+		return super.getSleeTransaction();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#asSleeTransaction(javax.transaction.Transaction)
+	 */
+	@Override
+	public SleeTransaction asSleeTransaction(Transaction transaction) throws NullPointerException, IllegalArgumentException, SystemException {
+		if (transaction != null && transaction.getClass() == LocalSleeTransactionImpl.class) {
+			return (SleeTransaction) transaction;
+		}
+		return super.asSleeTransaction(transaction);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#commit()
+	 */
+	@Override
+	public void commit() throws RollbackException, HeuristicMixedException, HeuristicRollbackException, SecurityException, IllegalStateException, SystemException {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			transaction.commit();
+		}
+		else {
+			super.commit();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#getStatus()
+	 */
+	@Override
+	public int getStatus() throws SystemException {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			return transaction.getStatus();
+		}
+		return super.getStatus();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#resume(javax.transaction.Transaction)
+	 */
+	@Override
+	public void resume(Transaction transaction) throws InvalidTransactionException, IllegalStateException, SystemException {
+		if (transaction != null && transaction.getClass() == LocalSleeTransactionImpl.class) {
+			if (currentTransaction.get() != null) {
+				throw new IllegalStateException("thread already associated with a transaction");
+			}
+			final LocalSleeTransactionImpl localTransaction = (LocalSleeTransactionImpl) transaction;
+			if (logger.isTraceEnabled()) {
+				logger.trace("Resuming local tx " + localTransaction);
+			}
+			final Transaction realTransaction = localTransaction.getRealTransaction();
+			if (realTransaction != null) {
+				getRealTransactionManager().resume(realTransaction);
+			}
+			currentTransaction.set(localTransaction);
+		}
+		else {
+			super.resume(transaction);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#rollback()
+	 */
+	@Override
+	public void rollback() throws IllegalStateException, SecurityException, SystemException {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			transaction.rollback();
+		}
+		else {
+			super.rollback();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#setRollbackOnly()
+	 */
+	@Override
+	public void setRollbackOnly() throws IllegalStateException, SystemException {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			transaction.setRollbackOnly();
+		}
+		else {
+			super.setRollbackOnly();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#suspend()
+	 */
+	@Override
+	public Transaction suspend() throws SystemException {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Suspending local tx " + transaction);
+			}
+			currentTransaction.remove();
+			transaction.suspendRealTransaction();
+			return transaction;
+		}
+		return super.suspend();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManagerImpl#getTransactionContext()
+	 */
+	@Override
+	public TransactionContext getTransactionContext() {
+		final LocalSleeTransactionImpl transaction = currentTransaction.get();
+		if (transaction != null) {
+			return transaction.getTransactionContext();
+		}
+		return super.getTransactionContext();
+	}
+
+}
@@ -146,7 +146,7 @@ public class SleeTransactionImpl implements SleeTransaction {
 	public void asyncCommit(CommitListener commitListener)
 			throws IllegalStateException, SecurityException {
 		beforeAsyncOperation();
-		transactionManager.getExecutorService().submit(new AsyncTransactionCommitRunnable(
+		transactionManager.getAsyncExecutor().execute(new AsyncTransactionCommitRunnable(
 				commitListener, transaction));
 	}
 
@@ -157,7 +157,7 @@ public class SleeTransactionImpl implements SleeTransaction {
 	public void asyncRollback(RollbackListener rollbackListener)
 			throws IllegalStateException, SecurityException {
 		beforeAsyncOperation();
-		transactionManager.getExecutorService().submit(new AsyncTransactionRollbackRunnable(
+		transactionManager.getAsyncExecutor().execute(new AsyncTransactionRollbackRunnable(
 				rollbackListener, transaction));
 	}
 
@@ -195,11 +195,18 @@ public class SleeTransactionImpl implements SleeTransaction {
 		if (asyncOperationInitiated.get()) {
 			throw new IllegalStateException();
 		}
+		final TransactionContextImpl txContext = (TransactionContextImpl) this.txContext;
+		if (txContext != null) {
+			txContext.completionRequested();
+		}
 		try {
 			transaction.commit();		
 		}
 		finally {
 			suspendIfAssoaciatedWithThread();
+			if (txContext != null) {
+				txContext.completionRequestEnded();
+			}
 		}
 	}
 
@@ -21,9 +21,6 @@
 
 package org.mobicents.slee.runtime.transaction;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 import javax.slee.SLEEException;
 import javax.slee.TransactionRequiredLocalException;
 import javax.slee.transaction.CommitListener;
@@ -40,12 +37,12 @@ import javax.transaction.TransactionManager;
 
 import org.apache.log4j.Logger;
 import org.mobicents.slee.container.AbstractSleeContainerModule;
+import org.mobicents.slee.container.management.jmx.TransactionManagerConfiguration;
 import org.mobicents.slee.container.transaction.SleeTransaction;
 import org.mobicents.slee.container.transaction.SleeTransactionManager;
 import org.mobicents.slee.container.transaction.TransactionContext;
 
 import com.arjuna.ats.internal.jta.transaction.arjunacore.TransactionImple;
-import org.mobicents.slee.util.concurrent.SleeThreadFactory;
 
 /**
  * Implementation of SLEE Tx manager.
@@ -63,17 +60,20 @@ public class SleeTransactionManagerImpl extends AbstractSleeContainerModule impl
 	private static final Logger logger = Logger
 			.getLogger(SleeTransactionManagerImpl.class);
 
-    private final static SleeThreadFactory SLEE_THREAD_FACTORY = new SleeThreadFactory("SLEE-TransactionManager");
-
     /**
 	 * the underlying JTA tx manager
 	 */
 	private final TransactionManager transactionManager;
 	
 	/**
-	 * an executor service for async operations invoked on {@link SleeTransaction}
+	 * the tx manager configuration
+	 */
+	private final TransactionManagerConfiguration configuration;
+	
+	/**
+	 * the executor for async operations invoked on {@link SleeTransaction}
 	 */
-	private ExecutorService executorService;
+	private volatile AsyncTransactionExecutor asyncExecutor;
 	
 	private static final boolean doTraceLogs = logger.isTraceEnabled();
 	
@@ -82,18 +82,57 @@ public class SleeTransactionManagerImpl extends AbstractSleeContainerModule impl
 	 * @param transactionManager
 	 */
 	public SleeTransactionManagerImpl(TransactionManager transactionManager) {		
-		this.transactionManager = transactionManager;
+		this(transactionManager, new TransactionManagerConfiguration());
 	}
 
 	/**
 	 * 
+	 * @param transactionManager
+	 * @param configuration
+	 */
+	public SleeTransactionManagerImpl(TransactionManager transactionManager, TransactionManagerConfiguration configuration) {		
+		this.transactionManager = transactionManager;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Retrieves the tx manager configuration.
 	 * @return
 	 */
-	ExecutorService getExecutorService() {
-		if (executorService == null) {
-			executorService = Executors.newCachedThreadPool(SLEE_THREAD_FACTORY);
+	public TransactionManagerConfiguration getConfiguration() {
+		return configuration;
+	}
+	
+	/**
+	 * Retrieves the executor for async operations invoked on {@link SleeTransaction}, created on first use.
+	 * @return
+	 */
+	public AsyncTransactionExecutor getAsyncExecutor() {
+		AsyncTransactionExecutor result = asyncExecutor;
+		if (result == null) {
+			synchronized (this) {
+				result = asyncExecutor;
+				if (result == null) {
+					result = new AsyncTransactionExecutor(configuration.getAsyncExecutionStrategyValue(), configuration.getAsyncExecutorThreads(), configuration.getAsyncExecutorQueueSize());
+					asyncExecutor = result;
+				}
+			}
+		}
+		return result;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.AbstractSleeContainerModule#sleeShutdown()
+	 */
+	@Override
+	public void sleeShutdown() {
+		super.sleeShutdown();
+		synchronized (this) {
+			if (asyncExecutor != null) {
+				asyncExecutor.shutdown();
+				asyncExecutor = null;
+			}
 		}
-		return executorService;
 	}
 	
 	/* (non-Javadoc)
@@ -103,6 +142,13 @@ public class SleeTransactionManagerImpl extends AbstractSleeContainerModule impl
 		return transactionManager;
 	}
 
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.container.transaction.SleeTransactionManager#requireRealTransaction()
+	 */
+	public void requireRealTransaction() throws SystemException {
+		// all transactions are started in the underlying tx manager
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.mobicents.slee.runtime.transaction.SleeTransactionManager#getRollbackOnly()
@@ -332,8 +378,19 @@ public class SleeTransactionManagerImpl extends AbstractSleeContainerModule impl
 			IllegalStateException, SystemException {
 		if (doTraceLogs) {
 			logger.trace("Starting commit of tx "+transactionManager.getTransaction());
-		}	
-		transactionManager.commit();		
+		}
+		final TransactionContextImpl txContext = (TransactionContextImpl) TransactionContextThreadLocal.getTransactionContext();
+		if (txContext == null) {
+			transactionManager.commit();
+			return;
+		}
+		txContext.completionRequested();
+		try {
+			transactionManager.commit();
+		}
+		finally {
+			txContext.completionRequestEnded();
+		}
 	}
 
 	/*
@@ -71,6 +71,7 @@ public class SleeTransactionSynchronization implements Synchronization {
 			}
 			txContext.executeAfterCommitPriorityActions();
 			txContext.executeAfterCommitActions();
+			txContext.afterCommit();
 			break;
 
 		case Status.STATUS_ROLLEDBACK:
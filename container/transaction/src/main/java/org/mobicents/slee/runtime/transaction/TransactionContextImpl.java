@@ -49,6 +49,8 @@ import org.mobicents.slee.container.transaction.TransactionalAction;
  *   
  *   + After Commit Action, an action to execute after the transaction is committed and the priority actions execution
  *   
+ *   + After Commit Completed Action, an action to execute after the transaction is committed, once the whole transaction completion ended
+ *   
  *   + After Rollback Action, an action to execute after the transaction rollbacks 
  * 
  * @author ? 
@@ -69,6 +71,21 @@ public class TransactionContextImpl implements TransactionContext {
 	 */
 	private List<TransactionalAction> afterCommitActions;
 
+	/**
+	 * {@link TransactionalAction}s which should be executed after transaction commit succeeds and the whole completion ended
+	 */
+	private List<TransactionalAction> afterCommitCompletedActions;
+	
+	/**
+	 * indicates if the thread which requested the tx completion will execute the after commit completed actions, once the tx manager returns 
+	 */
+	private volatile boolean completionRequested;
+	
+	/**
+	 * indicates if the tx committed while its completion was requested, and the after commit completed actions are pending
+	 */
+	private volatile boolean committed;
+
 	/**
 	 * {@link TransactionalAction}s which should be executed after transaction rollback
 	 */
@@ -122,6 +139,17 @@ public class TransactionContextImpl implements TransactionContext {
 		return afterCommitPriorityActions;
 	}
 
+	/**
+	 * Retrieves the list of actions which should be executed after commit succeeds and the whole completion ended 
+	 * @return
+	 */
+	public List<TransactionalAction> getAfterCommitCompletedActions() {
+		if (afterCommitCompletedActions == null) {
+			afterCommitCompletedActions = new ArrayList<TransactionalAction>();
+		}
+		return afterCommitCompletedActions;
+	}
+
 	/**
 	 * Retrieves the list of actions which should be executed after rollback
 	 * @return
@@ -193,6 +221,53 @@ public class TransactionContextImpl implements TransactionContext {
 		}
 	}
 
+	/**
+	 * Executes actions scheduled after commit succeeds and the whole completion ended
+	 */
+	protected void executeAfterCommitCompletedActions() {
+		if (afterCommitCompletedActions != null) {
+			if (trace) {
+				logger.trace("Executing after commit completed actions");
+			}
+			executeActions(afterCommitCompletedActions,trace);
+			afterCommitCompletedActions = null;
+		}
+	}
+	
+	/**
+	 * Indicates that the current thread is requesting the tx completion, and
+	 * will notify when the tx manager returns from the request.
+	 */
+	protected void completionRequested() {
+		completionRequested = true;
+	}
+	
+	/**
+	 * Indicates the tx committed, if the completion was not requested by a
+	 * thread which will notify its end, then the after commit completed
+	 * actions are executed right away.
+	 */
+	protected void afterCommit() {
+		if (completionRequested) {
+			committed = true;
+		}
+		else {
+			executeAfterCommitCompletedActions();
+		}
+	}
+	
+	/**
+	 * Indicates that the tx manager returned from the completion request, the
+	 * after commit completed actions are executed if the tx committed.
+	 */
+	protected void completionRequestEnded() {
+		completionRequested = false;
+		if (committed) {
+			committed = false;
+			executeAfterCommitCompletedActions();
+		}
+	}
+
 	/**
 	 * Executes actions scheduled for after a rollback
 	 */
@@ -276,4 +351,25 @@ public class TransactionContextImpl implements TransactionContext {
 		return invokedSbbEntities;
 	}
 	
-}
\ No newline at end of file
+	/**
+	 * indicates if the tx may wait for a sbb entity lock held by other thread
+	 */
+	private boolean sbbEntityLockWaitAllowed = true;
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.transaction.TransactionContext#isSbbEntityLockWaitAllowed()
+	 */
+	public boolean isSbbEntityLockWaitAllowed() {
+		return sbbEntityLockWaitAllowed;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.transaction.TransactionContext#setSbbEntityLockWaitAllowed(boolean)
+	 */
+	public void setSbbEntityLockWaitAllowed(boolean sbbEntityLockWaitAllowed) {
+		this.sbbEntityLockWaitAllowed = sbbEntityLockWaitAllowed;
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,232 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.transaction;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.slee.transaction.CommitListener;
+import javax.slee.transaction.RollbackListener;
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.HeuristicRollbackException;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.xa.XAResource;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link AsyncTransactionExecutor} strategies, and the completions
+ * submitted after it is shutdown.
+ * 
+ */
+public class AsyncTransactionExecutorTest extends TestCase {
+
+	/**
+	 * Records the completion methods invoked on a tx.
+	 */
+	private static class TestTransaction implements Transaction {
+
+		final AtomicInteger commits = new AtomicInteger();
+
+		final AtomicInteger rollbacks = new AtomicInteger();
+
+		public void commit() {
+			commits.incrementAndGet();
+		}
+
+		public void rollback() {
+			rollbacks.incrementAndGet();
+		}
+
+		public boolean delistResource(XAResource xaRes, int flag) {
+			return false;
+		}
+
+		public boolean enlistResource(XAResource xaRes) {
+			return false;
+		}
+
+		public int getStatus() {
+			return Status.STATUS_ACTIVE;
+		}
+
+		public void registerSynchronization(Synchronization sync) {
+		}
+
+		public void setRollbackOnly() {
+		}
+	}
+
+	private static class TestCommitListener implements CommitListener {
+
+		final AtomicInteger committed = new AtomicInteger();
+
+		final AtomicInteger rolledBack = new AtomicInteger();
+
+		public void committed() {
+			committed.incrementAndGet();
+		}
+
+		public void rolledBack(RollbackException rbe) {
+			rolledBack.incrementAndGet();
+		}
+
+		public void heuristicMixed(HeuristicMixedException hme) {
+		}
+
+		public void heuristicRollback(HeuristicRollbackException hrbe) {
+		}
+
+		public void systemException(SystemException se) {
+		}
+	}
+
+	private static class TestRollbackListener implements RollbackListener {
+
+		final AtomicInteger rolledBack = new AtomicInteger();
+
+		public void rolledBack() {
+			rolledBack.incrementAndGet();
+		}
+
+		public void systemException(SystemException se) {
+		}
+	}
+
+	private static void awaitNoneInFlight(AsyncTransactionExecutor executor) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (executor.getInFlight() != 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, executor.getInFlight());
+	}
+
+	public void testBoundedRunsInSubmitterWhenQueueIsFull() throws Exception {
+		final AsyncTransactionExecutor executor = new AsyncTransactionExecutor(AsyncTransactionExecutor.Strategy.BOUNDED, 1, 1);
+		try {
+			final CountDownLatch running = new CountDownLatch(1);
+			final CountDownLatch release = new CountDownLatch(1);
+			// occupies the only thread
+			executor.execute(new Runnable() {
+				public void run() {
+					running.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						// ignore
+					}
+				}
+			});
+			assertTrue(running.await(10, TimeUnit.SECONDS));
+			// fills the queue
+			final CountDownLatch queuedRan = new CountDownLatch(1);
+			executor.execute(new Runnable() {
+				public void run() {
+					queuedRan.countDown();
+				}
+			});
+			// runs in this thread
+			final Thread submitter = Thread.currentThread();
+			final Thread[] runner = new Thread[1];
+			executor.execute(new Runnable() {
+				public void run() {
+					runner[0] = Thread.currentThread();
+				}
+			});
+			assertSame(submitter, runner[0]);
+			assertEquals(1, executor.getCallerRuns());
+			release.countDown();
+			assertTrue(queuedRan.await(10, TimeUnit.SECONDS));
+			awaitNoneInFlight(executor);
+			assertEquals(3, executor.getSubmitted());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testCachedExecutesAll() throws Exception {
+		final AsyncTransactionExecutor executor = new AsyncTransactionExecutor(AsyncTransactionExecutor.Strategy.CACHED, 0, 0);
+		try {
+			assertEquals(AsyncTransactionExecutor.Strategy.CACHED, executor.getStrategy());
+			final int completions = 100;
+			final TestTransaction transaction = new TestTransaction();
+			final TestCommitListener listener = new TestCommitListener();
+			for (int i = 0; i < completions; i++) {
+				executor.execute(new AsyncTransactionCommitRunnable(listener, transaction));
+			}
+			awaitNoneInFlight(executor);
+			assertEquals(completions, transaction.commits.get());
+			assertEquals(completions, listener.committed.get());
+			assertEquals(0, executor.getCallerRuns());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private void testRejectedAfterShutdown(AsyncTransactionExecutor executor) throws Exception {
+		executor.shutdown();
+
+		// a commit is rolled back in the submitter thread
+		final TestTransaction commitTransaction = new TestTransaction();
+		final TestCommitListener commitListener = new TestCommitListener();
+		executor.execute(new AsyncTransactionCommitRunnable(commitListener, commitTransaction));
+		assertEquals(0, commitTransaction.commits.get());
+		assertEquals(1, commitTransaction.rollbacks.get());
+		assertEquals(0, commitListener.committed.get());
+		assertEquals(1, commitListener.rolledBack.get());
+		assertEquals(0, executor.getInFlight());
+
+		// a rollback is executed in the submitter thread
+		final TestTransaction rollbackTransaction = new TestTransaction();
+		final TestRollbackListener rollbackListener = new TestRollbackListener();
+		executor.execute(new AsyncTransactionRollbackRunnable(rollbackListener, rollbackTransaction));
+		assertEquals(1, rollbackTransaction.rollbacks.get());
+		assertEquals(1, rollbackListener.rolledBack.get());
+		assertEquals(0, executor.getInFlight());
+
+		// other runnables are discarded
+		final AtomicInteger runs = new AtomicInteger();
+		executor.execute(new Runnable() {
+			public void run() {
+				runs.incrementAndGet();
+			}
+		});
+		assertEquals(0, runs.get());
+		assertEquals(0, executor.getInFlight());
+		assertEquals(0, executor.getCallerRuns());
+	}
+
+	public void testBoundedRejectsAfterShutdown() throws Exception {
+		testRejectedAfterShutdown(new AsyncTransactionExecutor(AsyncTransactionExecutor.Strategy.BOUNDED, 2, 10));
+	}
+
+	public void testCachedRejectsAfterShutdown() throws Exception {
+		testRejectedAfterShutdown(new AsyncTransactionExecutor(AsyncTransactionExecutor.Strategy.CACHED, 0, 0));
+	}
+
+}
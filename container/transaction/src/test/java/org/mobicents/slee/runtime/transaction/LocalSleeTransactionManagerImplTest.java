@@ -0,0 +1,242 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+import javax.transaction.xa.XAResource;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.transaction.SleeTransaction;
+import org.mobicents.slee.container.transaction.TransactionContext;
+import org.mobicents.slee.container.transaction.TransactionalAction;
+
+/**
+ * Tests the {@link LocalSleeTransactionManagerImpl}, which completes
+ * transactions without the underlying tx manager unless a resource requires
+ * it.
+ * 
+ */
+public class LocalSleeTransactionManagerImplTest extends TestCase {
+
+	/**
+	 * Minimal underlying tx manager, recording the operations done on its
+	 * transactions.
+	 */
+	private static class RealTransactionManager implements TransactionManager {
+
+		final List<String> operations = new ArrayList<String>();
+
+		Transaction current;
+
+		public void begin() {
+			operations.add("begin");
+			current = new RealTransaction(operations);
+		}
+
+		public Transaction getTransaction() {
+			return current;
+		}
+
+		public Transaction suspend() {
+			final Transaction result = current;
+			current = null;
+			return result;
+		}
+
+		public void resume(Transaction tx) {
+			current = tx;
+		}
+
+		public int getStatus() {
+			return Status.STATUS_NO_TRANSACTION;
+		}
+
+		public void commit() {
+		}
+
+		public void rollback() {
+		}
+
+		public void setRollbackOnly() {
+		}
+
+		public void setTransactionTimeout(int seconds) {
+		}
+	}
+
+	/**
+	 * A transaction of the underlying tx manager, recording the operations
+	 * done on it.
+	 */
+	private static class RealTransaction implements Transaction {
+
+		private final List<String> operations;
+
+		RealTransaction(List<String> operations) {
+			this.operations = operations;
+		}
+
+		public void commit() {
+			operations.add("commit");
+		}
+
+		public boolean delistResource(XAResource xaRes, int flag) {
+			operations.add("delistResource");
+			return false;
+		}
+
+		public boolean enlistResource(XAResource xaRes) {
+			operations.add("enlistResource");
+			return false;
+		}
+
+		public int getStatus() {
+			operations.add("getStatus");
+			return 0;
+		}
+
+		public void registerSynchronization(Synchronization sync) {
+			operations.add("registerSynchronization");
+		}
+
+		public void rollback() {
+			operations.add("rollback");
+		}
+
+		public void setRollbackOnly() {
+			operations.add("setRollbackOnly");
+		}
+	}
+
+	private static TransactionalAction newAction(final List<String> executed, final String name) {
+		return new TransactionalAction() {
+			public void execute() {
+				executed.add(name);
+			}
+		};
+	}
+
+	private RealTransactionManager realTransactionManager;
+
+	private LocalSleeTransactionManagerImpl txManager;
+
+	@Override
+	protected void setUp() throws Exception {
+		realTransactionManager = new RealTransactionManager();
+		txManager = new LocalSleeTransactionManagerImpl(realTransactionManager);
+	}
+
+	/**
+	 * A commit executes all tx context actions in order, without touching
+	 * the underlying tx manager.
+	 * 
+	 * @throws Exception
+	 */
+	public void testCommit() throws Exception {
+		assertTrue(txManager.requireTransaction());
+		final SleeTransaction tx = txManager.getTransaction();
+		assertSame(tx, txManager.getSleeTransaction());
+		final TransactionContext txContext = txManager.getTransactionContext();
+		final List<String> executed = new ArrayList<String>();
+		txContext.getAfterCommitCompletedActions().add(newAction(executed, "afterCommitCompleted"));
+		txContext.getAfterCommitActions().add(newAction(executed, "afterCommit"));
+		txContext.getAfterCommitPriorityActions().add(newAction(executed, "afterCommitPriority"));
+		txContext.getBeforeCommitActions().add(newAction(executed, "beforeCommit"));
+		txContext.getBeforeCommitPriorityActions().add(newAction(executed, "beforeCommitPriority"));
+		txContext.getAfterRollbackActions().add(newAction(executed, "afterRollback"));
+		txManager.commit();
+		assertEquals("[beforeCommitPriority, beforeCommit, afterCommitPriority, afterCommit, afterCommitCompleted]", executed.toString());
+		assertEquals(Status.STATUS_COMMITTED, tx.getStatus());
+		assertNull(txManager.getTransaction());
+		assertTrue(realTransactionManager.operations.isEmpty());
+	}
+
+	/**
+	 * A tx marked for rollback can't commit, the after rollback actions are
+	 * executed instead.
+	 * 
+	 * @throws Exception
+	 */
+	public void testRollbackOnly() throws Exception {
+		txManager.begin();
+		final List<String> executed = new ArrayList<String>();
+		txManager.getTransactionContext().getAfterCommitActions().add(newAction(executed, "afterCommit"));
+		txManager.getTransactionContext().getAfterRollbackActions().add(newAction(executed, "afterRollback"));
+		txManager.setRollbackOnly();
+		assertTrue(txManager.getRollbackOnly());
+		try {
+			txManager.commit();
+			fail("commit of tx marked for rollback must fail");
+		} catch (RollbackException e) {
+			// expected
+		}
+		assertEquals("[afterRollback]", executed.toString());
+		assertNull(txManager.getTransaction());
+	}
+
+	/**
+	 * A suspended tx is not seen by the thread until resumed.
+	 * 
+	 * @throws Exception
+	 */
+	public void testSuspendResume() throws Exception {
+		txManager.begin();
+		final Transaction tx = txManager.suspend();
+		assertNotNull(tx);
+		assertNull(txManager.getTransaction());
+		txManager.resume(tx);
+		assertSame(tx, txManager.getTransaction());
+		txManager.rollback();
+		assertEquals(Status.STATUS_ROLLEDBACK, tx.getStatus());
+		assertNull(txManager.getTransaction());
+	}
+
+	/**
+	 * Once a resource requires it, a transaction is started in the underlying
+	 * tx manager, and completed with the local one.
+	 * 
+	 * @throws Exception
+	 */
+	public void testRealTransaction() throws Exception {
+		txManager.begin();
+		txManager.requireRealTransaction();
+		txManager.requireRealTransaction();
+		assertEquals("[begin]", realTransactionManager.operations.toString());
+		assertNotNull(realTransactionManager.current);
+		final List<String> executed = new ArrayList<String>();
+		txManager.getTransactionContext().getAfterCommitActions().add(newAction(executed, "afterCommit"));
+		txManager.commit();
+		assertEquals("[begin, commit]", realTransactionManager.operations.toString());
+		assertEquals("[afterCommit]", executed.toString());
+		assertNull(realTransactionManager.current);
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.transaction;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import junit.framework.TestCase;
+
+import org.mobicents.slee.container.transaction.TransactionalAction;
+
+/**
+ * Tests the after commit completed actions of {@link TransactionContextImpl},
+ * which are used to signal other threads once a tx completion fully ended.
+ * 
+ */
+public class TransactionContextImplTest extends TestCase {
+
+	/**
+	 * A resource enlisted after the SLEE, which only applies the tx changes
+	 * in its own after completion callback.
+	 */
+	private static class ResourceSynchronization implements Synchronization {
+
+		volatile boolean applied;
+
+		public void beforeCompletion() {
+		}
+
+		public void afterCompletion(int status) {
+			applied = status == Status.STATUS_COMMITTED;
+		}
+	}
+
+	/**
+	 * Reproduces the race that resumed event routing used to hide with a
+	 * sleep, a thread signaled by an after commit action, while the tx
+	 * completion is still in progress, could see the resource state before
+	 * the commit was applied. The signal must only happen once the thread
+	 * that requested the commit returns.
+	 * 
+	 * @throws Exception
+	 */
+	public void testSignalAfterCompletionEnded() throws Exception {
+		final TransactionContextImpl txContext = new TransactionContextImpl();
+		final SleeTransactionSynchronization sleeSynchronization = new SleeTransactionSynchronization(null, txContext);
+		final ResourceSynchronization resource = new ResourceSynchronization();
+		final AtomicBoolean seenApplied = new AtomicBoolean();
+		final CountDownLatch signaled = new CountDownLatch(1);
+		final Thread signaledThread = new Thread() {
+			public void run() {
+				try {
+					signaled.await();
+					seenApplied.set(resource.applied);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+			}
+		};
+		signaledThread.start();
+		txContext.getAfterCommitCompletedActions().add(new TransactionalAction() {
+			public void execute() {
+				signaled.countDown();
+			}
+		});
+		// what the tx manager does on commit, the SLEE synchronization is
+		// registered first, when the tx begins
+		txContext.completionRequested();
+		sleeSynchronization.beforeCompletion();
+		resource.beforeCompletion();
+		sleeSynchronization.afterCompletion(Status.STATUS_COMMITTED);
+		assertEquals("signal sent before the tx completion ended", 1, signaled.getCount());
+		// give a chance to the signaled thread to run, if it was signaled
+		Thread.sleep(50);
+		resource.afterCompletion(Status.STATUS_COMMITTED);
+		txContext.completionRequestEnded();
+		signaledThread.join(TimeUnit.SECONDS.toMillis(5));
+		assertEquals(0, signaled.getCount());
+		assertTrue("signaled thread did not see the tx changes", seenApplied.get());
+	}
+
+	/**
+	 * If the commit was not requested through the SLEE the actions are
+	 * executed at the end of the SLEE synchronization callback.
+	 * 
+	 * @throws Exception
+	 */
+	public void testSignalWithoutCompletionRequest() throws Exception {
+		final TransactionContextImpl txContext = new TransactionContextImpl();
+		final SleeTransactionSynchronization sleeSynchronization = new SleeTransactionSynchronization(null, txContext);
+		final AtomicBoolean executed = new AtomicBoolean();
+		txContext.getAfterCommitCompletedActions().add(new TransactionalAction() {
+			public void execute() {
+				executed.set(true);
+			}
+		});
+		sleeSynchronization.beforeCompletion();
+		sleeSynchronization.afterCompletion(Status.STATUS_COMMITTED);
+		assertTrue(executed.get());
+	}
+
+	/**
+	 * The actions are not executed if the tx rolls back.
+	 * 
+	 * @throws Exception
+	 */
+	public void testNoSignalOnRollback() throws Exception {
+		final TransactionContextImpl txContext = new TransactionContextImpl();
+		final SleeTransactionSynchronization sleeSynchronization = new SleeTransactionSynchronization(null, txContext);
+		final AtomicBoolean executed = new AtomicBoolean();
+		txContext.getAfterCommitCompletedActions().add(new TransactionalAction() {
+			public void execute() {
+				executed.set(true);
+			}
+		});
+		txContext.completionRequested();
+		sleeSynchronization.afterCompletion(Status.STATUS_ROLLEDBACK);
+		txContext.completionRequestEnded();
+		assertFalse(executed.get());
+	}
+
+}
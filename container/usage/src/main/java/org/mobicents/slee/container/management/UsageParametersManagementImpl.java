@@ -35,6 +35,7 @@ import org.mobicents.slee.container.management.jmx.ResourceUsageMBean;
 import org.mobicents.slee.container.management.jmx.ResourceUsageMBeanImpl;
 import org.mobicents.slee.container.management.jmx.ServiceUsageMBean;
 import org.mobicents.slee.container.management.jmx.ServiceUsageMBeanImpl;
+import org.mobicents.slee.container.profile.ProfileTableCacheStatistics;
 
 /**
  * @author martins
@@ -48,14 +49,16 @@ public class UsageParametersManagementImpl extends AbstractSleeContainerModule
 	 * 
 	 * @seeorg.mobicents.slee.container.management.UsageParametersManagement#
 	 * newProfileTableUsageMBean(java.lang.String,
-	 * org.mobicents.slee.core.component.profile.ProfileSpecificationComponent)
+	 * org.mobicents.slee.core.component.profile.ProfileSpecificationComponent,
+	 * org.mobicents.slee.container.profile.ProfileTableCacheStatistics)
 	 */
 	public ProfileTableUsageMBean newProfileTableUsageMBean(
-			String profileTableName, ProfileSpecificationComponent component)
+			String profileTableName, ProfileSpecificationComponent component,
+			ProfileTableCacheStatistics cacheStatistics)
 			throws NotCompliantMBeanException, MalformedObjectNameException,
 			NullPointerException {
 		return new ProfileTableUsageMBeanImpl(profileTableName, component,
-				sleeContainer);
+				cacheStatistics, sleeContainer);
 	}
 
 	/*
@@ -34,6 +34,7 @@ import javax.slee.usage.UsageNotificationManagerMBean;
 import org.apache.log4j.Logger;
 import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.component.profile.ProfileSpecificationComponent;
+import org.mobicents.slee.container.profile.ProfileTableCacheStatistics;
 
 /**
  * Implementation of the {@link ProfileTableUsageMBean} from SLEE 1.1 specs.
@@ -60,14 +61,21 @@ public class ProfileTableUsageMBeanImpl extends AbstractUsageMBeanImplParent
 	 */
 	private final String profileTableName;
 
+	/**
+	 * the statistics of the profile table cache, null if there is no cache
+	 */
+	private final ProfileTableCacheStatistics cacheStatistics;
+
 	public ProfileTableUsageMBeanImpl(String profileTableName,
-			ProfileSpecificationComponent component, SleeContainer sleeContainer)
-			throws NotCompliantMBeanException, MalformedObjectNameException,
-			NullPointerException {
+			ProfileSpecificationComponent component,
+			ProfileTableCacheStatistics cacheStatistics,
+			SleeContainer sleeContainer) throws NotCompliantMBeanException,
+			MalformedObjectNameException, NullPointerException {
 
 		super(ProfileTableUsageMBean.class, component,
 				new ProfileTableNotification(profileTableName), sleeContainer);
 		this.profileTableName = profileTableName;
+		this.cacheStatistics = cacheStatistics;
 		
 		setObjectName(new ObjectName(ProfileTableUsageMBean.BASE_OBJECT_NAME + ','
 				+ ProfileTableUsageMBean.PROFILE_TABLE_NAME_KEY + '='
@@ -131,4 +139,48 @@ public class ProfileTableUsageMBeanImpl extends AbstractUsageMBeanImplParent
 		
 		return profileTableName;
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ProfileTableUsageMBean#getProfileCacheHits()
+	 */
+	public long getProfileCacheHits() throws ManagementException {
+
+		ensureMBeanIsNotClosed();
+
+		return cacheStatistics != null ? cacheStatistics.getHits() : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ProfileTableUsageMBean#getProfileCacheMisses()
+	 */
+	public long getProfileCacheMisses() throws ManagementException {
+
+		ensureMBeanIsNotClosed();
+
+		return cacheStatistics != null ? cacheStatistics.getMisses() : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ProfileTableUsageMBean#getProfileCacheEvictions()
+	 */
+	public long getProfileCacheEvictions() throws ManagementException {
+
+		ensureMBeanIsNotClosed();
+
+		return cacheStatistics != null ? cacheStatistics.getEvictions() : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.mobicents.slee.container.management.jmx.ProfileTableUsageMBean#getProfileCacheSize()
+	 */
+	public int getProfileCacheSize() throws ManagementException {
+
+		ensureMBeanIsNotClosed();
+
+		return cacheStatistics != null ? cacheStatistics.getSize() : 0;
+	}
 }
@@ -156,6 +156,16 @@ public class UsageMBeanImpl extends StandardMBean implements UsageMBean,
 		}
 	}
 
+	/**
+	 * Indicates if there are listeners attached, allowing callers to skip
+	 * computing values for usage notifications no one will receive.
+	 * 
+	 * @return
+	 */
+	public boolean hasNotificationListeners() {
+		return !listeners.isEmpty();
+	}
+
 	/**
 	 * Send the notification.
 	 * 
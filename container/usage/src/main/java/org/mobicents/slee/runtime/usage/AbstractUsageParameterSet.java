@@ -28,13 +28,14 @@ package org.mobicents.slee.runtime.usage;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.slee.management.NotificationSource;
 import javax.slee.usage.SampleStatistics;
 
 import org.mobicents.slee.container.SleeContainer;
 import org.mobicents.slee.container.management.jmx.UsageMBeanImpl;
-import org.mobicents.slee.runtime.usage.local.UsageMBeanLocalData;
 
 /**
  * Base class for impl of usage parameters, it offers basic ops for params.
@@ -48,6 +49,11 @@ public abstract class AbstractUsageParameterSet {
 	
 	private final UsageMBeanData usageMbeanData;
 	
+	/**
+	 * the set's parameters, resolved once so updates don't go through the usage mbean data
+	 */
+	private final Map<String, UsageParameter> usageParameters = new HashMap<String, UsageParameter>();
+	
 	private NotificationSource notificationSource;
 	private String parameterSetName;
 	private UsageMBeanImpl usageMBean;
@@ -71,14 +77,12 @@ public abstract class AbstractUsageParameterSet {
 		}
 		
 		// now init.
-		this.usageMbeanData = new UsageMBeanLocalData(notificationSource,this.parameterSetName);
+		this.usageMbeanData = new StripedUsageMBeanData(notificationSource,this.parameterSetName);
 		this.usageMbeanData.create();
 		
 		Collection<String> paramNames = this.getParameterNames();
 		for (String parameterName : paramNames) {
-			if (this.usageMbeanData.getParameter(parameterName) == null) {
-				this.usageMbeanData.setParameter(parameterName, new UsageParameter(this.notificationSource,parameterName));
-			}
+			this.usageParameters.put(parameterName, this.usageMbeanData.getOrCreateParameter(parameterName));
 		}
 
 	}
@@ -117,51 +121,35 @@ public abstract class AbstractUsageParameterSet {
 	}
 
 	private void resetParameter(String parameterName) {
-		UsageParameter parameter = this.usageMbeanData.getParameter(parameterName);
+		UsageParameter parameter = this.usageParameters.get(parameterName);
 		if (parameter != null) {
 			parameter.reset();
-			this.usageMbeanData.setParameter(parameterName, parameter);
-
 		}
 
 	}
 
 	public void incrementParameter(String parameterName, long incValue) {
-		UsageParameter usageParameter = this.usageMbeanData.getParameter(parameterName);
+		UsageParameter usageParameter = this.usageParameters.get(parameterName);
 		usageParameter.increment(incValue);
-		this.usageMbeanData.setParameter(parameterName, usageParameter);
-		this.usageMBean.sendUsageNotification(usageParameter.getValue(), usageParameter.getCount(), getParameterSetName(), parameterName, true);
+		if (this.usageMBean.hasNotificationListeners()) {
+			this.usageMBean.sendUsageNotification(usageParameter.getValue(), usageParameter.getCount(), getParameterSetName(), parameterName, true);
+		}
 	}
 
 	public long getParameter(String parameterName, boolean reset) {
-		UsageParameter usageParameter = this.usageMbeanData.getParameter(parameterName);
-
-		long tmpValue = usageParameter.getValue();
-		if (reset) {
-			usageParameter.reset();
-			this.usageMbeanData.setParameter(parameterName, usageParameter);
-		}
-		return tmpValue;
+		return this.usageParameters.get(parameterName).getValue(reset);
 	}
 
 	public void sampleParameter(String parameterName, long sample) {
-		UsageParameter usageParameter = this.usageMbeanData.getParameter(parameterName);
+		UsageParameter usageParameter = this.usageParameters.get(parameterName);
 		usageParameter.sample(sample);
-		this.usageMbeanData.setParameter(parameterName, usageParameter);
-		this.usageMBean.sendUsageNotification(sample, usageParameter.getCount(), getParameterSetName(), parameterName, false);
+		if (this.usageMBean.hasNotificationListeners()) {
+			this.usageMBean.sendUsageNotification(sample, usageParameter.getCount(), getParameterSetName(), parameterName, false);
+		}
 	}
 
 	public SampleStatistics getParameterSampleStatistics(String parameterName, boolean reset) {
-
-		UsageParameter usageParameter = this.usageMbeanData.getParameter(parameterName);
-
-		SampleStatistics ss = new SampleStatistics(usageParameter.getCount(), usageParameter.getMin(), usageParameter.getMax(), usageParameter.getMean());
-		if (reset) {
-			usageParameter.reset();
-			this.usageMbeanData.setParameter(parameterName, usageParameter);
-		}
-		return ss;
-
+		return this.usageParameters.get(parameterName).getSampleStatistics(reset);
 	}
 
 	/**
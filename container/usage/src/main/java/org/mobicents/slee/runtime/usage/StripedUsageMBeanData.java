@@ -0,0 +1,150 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.usage;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.slee.management.NotificationSource;
+
+/**
+ * Stores usage parameters locally, in {@link UsageParameter}s backed by
+ * striped cells, thus this should be used once usage param replication is not
+ * desirable. The parameters of a set are created once, and then shared by all
+ * usage parameter set objects with the same notification source and name.
+ * 
+ * @author martins
+ * 
+ */
+class StripedUsageMBeanData implements UsageMBeanData {
+
+	/**
+	 * the parameters of each usage parameter set
+	 */
+	private static final ConcurrentHashMap<Key, ConcurrentHashMap<String, UsageParameter>> usageParameterSets = new ConcurrentHashMap<Key, ConcurrentHashMap<String, UsageParameter>>();
+
+	private final NotificationSource notificationSource;
+
+	private final Key key;
+
+	/**
+	 * @param notificationSource
+	 * @param usageParameterSetName
+	 */
+	StripedUsageMBeanData(NotificationSource notificationSource,
+			String usageParameterSetName) {
+		this.notificationSource = notificationSource;
+		this.key = new Key(notificationSource, usageParameterSetName);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.usage.UsageMBeanData#create()
+	 */
+	public boolean create() {
+		return usageParameterSets.putIfAbsent(key,
+				new ConcurrentHashMap<String, UsageParameter>()) == null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.usage.UsageMBeanData#getParameter(java.lang.String)
+	 */
+	public UsageParameter getParameter(String parameterName) {
+		final ConcurrentHashMap<String, UsageParameter> usageParameters = usageParameterSets.get(key);
+		return usageParameters != null ? usageParameters.get(parameterName) : null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.usage.UsageMBeanData#getOrCreateParameter(java.lang.String)
+	 */
+	public UsageParameter getOrCreateParameter(String parameterName) {
+		final ConcurrentHashMap<String, UsageParameter> usageParameters = getUsageParameters();
+		UsageParameter usageParameter = usageParameters.get(parameterName);
+		if (usageParameter == null) {
+			// concurrent creators must end up with the same parameter, or updates would be lost
+			final UsageParameter newUsageParameter = new UsageParameter(notificationSource, parameterName);
+			usageParameter = usageParameters.putIfAbsent(parameterName, newUsageParameter);
+			if (usageParameter == null) {
+				usageParameter = newUsageParameter;
+			}
+		}
+		return usageParameter;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.usage.UsageMBeanData#getParameterNames()
+	 */
+	public Collection<String> getParameterNames() {
+		return Collections.unmodifiableSet(getUsageParameters().keySet());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.mobicents.slee.runtime.usage.UsageMBeanData#remove()
+	 */
+	public boolean remove() {
+		return usageParameterSets.remove(key) != null;
+	}
+
+	private ConcurrentHashMap<String, UsageParameter> getUsageParameters() {
+		final ConcurrentHashMap<String, UsageParameter> usageParameters = usageParameterSets.get(key);
+		if (usageParameters == null) {
+			throw new IllegalStateException("Usage param set not found ( notification source = "+key.notificationSource+" , usage param set name = "+key.usageParameterSetName+" ) ");
+		}
+		return usageParameters;
+	}
+
+	/**
+	 * Identifies a usage parameter set.
+	 */
+	private static class Key {
+
+		private final NotificationSource notificationSource;
+
+		private final String usageParameterSetName;
+
+		Key(NotificationSource notificationSource, String usageParameterSetName) {
+			this.notificationSource = notificationSource;
+			this.usageParameterSetName = usageParameterSetName;
+		}
+
+		@Override
+		public int hashCode() {
+			return notificationSource.hashCode() * 31 + usageParameterSetName.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (obj == null || obj.getClass() != getClass()) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return other.notificationSource.equals(notificationSource)
+					&& other.usageParameterSetName.equals(usageParameterSetName);
+		}
+
+	}
+
+}
@@ -40,10 +40,14 @@ public interface UsageMBeanData {
 	UsageParameter getParameter(String parameterName);
 
 	/**
+	 * Retrieves the parameter with the specified name, creating it if it does
+	 * not exist, all usage parameter sets with the same name and notification
+	 * source share it.
+	 * 
 	 * @param parameterName
-	 * @param usageParameter
+	 * @return
 	 */
-	void setParameter(String parameterName, UsageParameter usageParameter);
+	UsageParameter getOrCreateParameter(String parameterName);
 
 	/**
 	 * 
@@ -28,12 +28,17 @@ package org.mobicents.slee.runtime.usage;
 import java.io.Serializable;
 import java.math.BigDecimal;
 
+import javax.slee.usage.SampleStatistics;
+
 import org.apache.log4j.Logger;
 
 /**
- * Simple pojo which holds param state.
+ * Holds the state of a usage parameter. Updates do not allocate, the value,
+ * count, min and max are kept in striped cells and only combined when read,
+ * the mean of samples is computed on read too.
  * 
  * @author baranowb
+ * @author martins
  */
 public class UsageParameter implements Serializable {
 
@@ -44,20 +49,10 @@ public class UsageParameter implements Serializable {
 
 	private static final Logger logger = Logger.getLogger(UsageParameter.class);
 
-	// NOTE: it seems that javassit does some sort of magic here - cause with
-	// generated code and "long" tck passes ... 
-	// private long value;
-	private BigDecimal value;
-	private long min;
-	private long max;
-	private long count;
-	private double mean;
-
-	private Serializable parentId;
-	private String parameterName;
+	private final UsageParameterCells cells = new UsageParameterCells();
 
-	public UsageParameter() {
-	}
+	private final Serializable parentId;
+	private final String parameterName;
 
 	/**
 	 * 
@@ -65,93 +60,82 @@ public class UsageParameter implements Serializable {
 	public UsageParameter(Serializable parentId, String parameterName) {
 		this.parentId = parentId;
 		this.parameterName = parameterName;
-		reset();
 	}
 
 	public long getValue() {
-		return value.longValue();
+		return cells.snapshot(false).value;
 	}
 
-	public void setValue(long value) {
-		// this.value = value;
-		this.value = new BigDecimal(value);
+	/**
+	 * Retrieves the value, resetting the parameter if requested. Updates done
+	 * concurrently with the reset are never lost, these will be in the
+	 * returned value or in the parameter after the reset.
+	 * 
+	 * @param reset
+	 * @return
+	 */
+	public long getValue(boolean reset) {
+		return cells.snapshot(reset).value;
 	}
 
 	public long getMin() {
-		return min;
-	}
-
-	public void setMin(long min) {
-		this.min = min;
+		return cells.snapshot(false).min;
 	}
 
 	public long getMax() {
-		return max;
-	}
-
-	public void setMax(long max) {
-		this.max = max;
+		return cells.snapshot(false).max;
 	}
 
 	public long getCount() {
-		return count;
+		return cells.snapshot(false).count;
 	}
 
-	public void setCount(long count) {
-		this.count = count;
+	public double getMean() {
+		final UsageParameterCells.Snapshot snapshot = cells.snapshot(false);
+		return mean(snapshot.value, snapshot.count);
 	}
 
-	public double getMean() {
-		return mean;
+	private static double mean(long value, long count) {
+		if (count == 0L) {
+			return 0;
+		}
+		return new BigDecimal(value).divide(new BigDecimal(count), BigDecimal.ROUND_HALF_UP).longValue();
 	}
 
-	public void setMean(double mean) {
-		this.mean = mean;
+	/**
+	 * Retrieves the sample statistics, resetting the parameter if requested.
+	 * The count, min, max and mean are taken from the same snapshot of the
+	 * parameter.
+	 * 
+	 * @param reset
+	 * @return
+	 */
+	public SampleStatistics getSampleStatistics(boolean reset) {
+		final UsageParameterCells.Snapshot snapshot = cells.snapshot(reset);
+		return new SampleStatistics(snapshot.count, snapshot.min, snapshot.max, mean(snapshot.value, snapshot.count));
 	}
 
 	public void reset() {
-
-		value = new BigDecimal(0);
-		min = Long.MAX_VALUE;
-		max = Long.MIN_VALUE;
-		count = 0;
-		mean = 0;
+		cells.snapshot(true);
 	}
 
 	public void increment(long incValue) {
+		cells.add(incValue);
 		if (logger.isTraceEnabled()) {
-			logger.trace("Before increment: " + incValue + ". " + this);
-		}
-		this.count++;
-		// this.value+=incValue;
-		this.value = this.value.add(new BigDecimal(incValue));
-		if (logger.isDebugEnabled()) {
-			logger.debug("After increment: " + this);
+			logger.trace("After increment: " + incValue + ". " + this);
 		}
-
 	}
 
 	public void sample(long sample) {
+		cells.sample(sample);
 		if (logger.isTraceEnabled()) {
-			logger.trace("Before sample: " + sample + ". " + this);
+			logger.trace("After sample: " + sample + ". " + this);
 		}
-		// this.value+=sample;
-		this.value = this.value.add(new BigDecimal(sample));
-		this.count++;
-		if (this.max < sample)
-			this.max = sample;
-		if (this.min > sample)
-			this.min = sample;
-		// this.mean = (this.value)/this.count;
-		this.mean = this.value.divide(new BigDecimal(this.count), BigDecimal.ROUND_HALF_UP).longValue();
-		if (logger.isDebugEnabled()) {
-			logger.debug("After sample: " + this);
-		}
-
 	}
 
 	public String toString() {
-		return super.toString() + ":" + this.parentId + ":" + this.parameterName + ":" + count + ":" + value + ":" + min + ":" + max + ":" + mean;
+		final UsageParameterCells.Snapshot snapshot = cells.snapshot(false);
+		return super.toString() + ":" + this.parentId + ":" + this.parameterName + ":" + snapshot.count + ":" + snapshot.value + ":" + snapshot.min + ":" + snapshot.max + ":" + mean(snapshot.value, snapshot.count);
 	}
 
 }
@@ -0,0 +1,238 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.usage;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Striped cells with the value, count, min and max of a usage parameter. A
+ * thread updates the cell selected by its id, and only readers combine all
+ * cells. There is a single cell until threads contend on it, then the number
+ * of cells doubles, up to the next power of two of the available processors.
+ * <p>
+ * Each cell is guarded by its own spin lock, so an update only contends with
+ * threads on the same cell, and readers lock all cells to get a consistent
+ * snapshot, and reset it without losing concurrent updates.
+ * 
+ * @author martins
+ * 
+ */
+class UsageParameterCells implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * max number of cells, the next power of two of the available processors,
+	 * capped to 64
+	 */
+	private static final int MAX_CELLS = maxCells();
+
+	private static int maxCells() {
+		final int processors = Math.min(Runtime.getRuntime().availableProcessors(), 64);
+		int cells = 1;
+		while (cells < processors) {
+			cells <<= 1;
+		}
+		return cells;
+	}
+
+	/**
+	 * the cells, only replaced by a bigger array while holding the monitor of
+	 * this object
+	 */
+	private volatile Cell[] cells = new Cell[] { new Cell() };
+
+	/**
+	 * Retrieves the hash of the current thread, used to select its cell.
+	 * 
+	 * @return
+	 */
+	private static int hash() {
+		long id = Thread.currentThread().getId();
+		// spread sequential thread ids over the cells
+		int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Retrieves the locked cell of the current thread, growing the cells if
+	 * it was locked by other thread.
+	 * 
+	 * @return
+	 */
+	private Cell lockCell() {
+		final int hash = hash();
+		Cell[] cells = this.cells;
+		Cell cell = cells[hash & (cells.length - 1)];
+		if (cell.tryLock()) {
+			return cell;
+		}
+		if (cells.length < MAX_CELLS) {
+			grow(cells);
+			cells = this.cells;
+			cell = cells[hash & (cells.length - 1)];
+		}
+		cell.lock();
+		return cell;
+	}
+
+	/**
+	 * Doubles the number of cells, unless other thread already did it.
+	 * 
+	 * @param current
+	 */
+	private synchronized void grow(Cell[] current) {
+		if (cells == current) {
+			final Cell[] grown = new Cell[current.length << 1];
+			System.arraycopy(current, 0, grown, 0, current.length);
+			for (int i = current.length; i < grown.length; i++) {
+				grown[i] = new Cell();
+			}
+			cells = grown;
+		}
+	}
+
+	/**
+	 * Adds the specified value, and counts the update.
+	 * 
+	 * @param value
+	 */
+	public void add(long value) {
+		final Cell cell = lockCell();
+		cell.value += value;
+		cell.count++;
+		cell.unlock();
+	}
+
+	/**
+	 * Adds the specified sample, counting it, and updating the min and max.
+	 * 
+	 * @param sample
+	 */
+	public void sample(long sample) {
+		final Cell cell = lockCell();
+		cell.value += sample;
+		cell.count++;
+		if (sample < cell.min) {
+			cell.min = sample;
+		}
+		if (sample > cell.max) {
+			cell.max = sample;
+		}
+		cell.unlock();
+	}
+
+	/**
+	 * Retrieves a consistent snapshot of all cells, resetting these if
+	 * requested. Updates done concurrently are either in the snapshot or
+	 * remain in the cells, none is lost.
+	 * 
+	 * @param reset
+	 * @return
+	 */
+	public synchronized Snapshot snapshot(boolean reset) {
+		// the cells are not replaced while the monitor is held
+		final Cell[] cells = this.cells;
+		for (Cell cell : cells) {
+			cell.lock();
+		}
+		final Snapshot snapshot = new Snapshot();
+		for (Cell cell : cells) {
+			snapshot.value += cell.value;
+			snapshot.count += cell.count;
+			if (cell.min < snapshot.min) {
+				snapshot.min = cell.min;
+			}
+			if (cell.max > snapshot.max) {
+				snapshot.max = cell.max;
+			}
+			if (reset) {
+				cell.reset();
+			}
+		}
+		for (Cell cell : cells) {
+			cell.unlock();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * The sums of all cells at a point in time.
+	 */
+	static class Snapshot {
+
+		long value;
+		long count;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+
+	}
+
+	/**
+	 * A cell, padded so cells of different threads do not share cache lines.
+	 */
+	private static class Cell implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final AtomicIntegerFieldUpdater<Cell> LOCKED = AtomicIntegerFieldUpdater
+				.newUpdater(Cell.class, "locked");
+
+		long p0, p1, p2, p3, p4, p5, p6;
+
+		private volatile int locked;
+
+		long value;
+		long count;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+
+		long q0, q1, q2, q3, q4, q5, q6;
+
+		boolean tryLock() {
+			return locked == 0 && LOCKED.compareAndSet(this, 0, 1);
+		}
+
+		void lock() {
+			while (!tryLock()) {
+				Thread.yield();
+			}
+		}
+
+		void unlock() {
+			// the volatile write publishes the cell's changes to the next
+			// thread locking it
+			locked = 0;
+		}
+
+		void reset() {
+			value = 0L;
+			count = 0L;
+			min = Long.MAX_VALUE;
+			max = Long.MIN_VALUE;
+		}
+
+	}
+
+}
@@ -1,97 +0,0 @@
-/*
- * JBoss, Home of Professional Open Source
- * Copyright 2011, Red Hat, Inc. and individual contributors
- * by the @authors tag. See the copyright.txt in the distribution for a
- * full listing of individual contributors.
- *
- * This is free software; you can redistribute it and/or modify it
- * under the terms of the GNU Lesser General Public License as
- * published by the Free Software Foundation; either version 2.1 of
- * the License, or (at your option) any later version.
- *
- * This software is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
- * Lesser General Public License for more details.
- *
- * You should have received a copy of the GNU Lesser General Public
- * License along with this software; if not, write to the Free
- * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
- * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
- */
-
-/**
- * 
- */
-package org.mobicents.slee.runtime.usage.local;
-
-import java.util.Collections;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-
-import org.mobicents.slee.runtime.usage.UsageParameter;
-
-/**
- * @author martins
- *
- */
-public class UsageParamSetLocalData {
-
-	private final ConcurrentHashMap<String, UsageParameter> usageParams = new ConcurrentHashMap<String, UsageParameter>();
-	
-	private final String usageParamSetName;
-
-	/**
-	 * @param usageParamSetName
-	 */
-	public UsageParamSetLocalData(String usageParamSetName) {
-		this.usageParamSetName = usageParamSetName;
-	}
-
-	/**
-	 * Retrieves 
-	 * @return the usageParams
-	 */
-	public Set<String> getParameterNames() {
-		return Collections.unmodifiableSet(usageParams.keySet());
-	}
-	
-	/**
-	 * 
-	 * @param name
-	 * @return
-	 */
-	public UsageParameter getUsageParam(String name) {
-		return usageParams.get(name);
-	}
-	
-	/**
-	 * 
-	 * @param name
-	 * @param usageParam
-	 */
-	public void setUsageParam(String name, UsageParameter usageParam) {
-		usageParams.put(name, usageParam);
-	}
-	
-	/* (non-Javadoc)
-	 * @see java.lang.Object#hashCode()
-	 */
-	@Override
-	public int hashCode() {
-		return usageParamSetName.hashCode();
-	}
-	
-	/* (non-Javadoc)
-	 * @see java.lang.Object#equals(java.lang.Object)
-	 */
-	@Override
-	public boolean equals(Object obj) {
-		if (obj != null && obj.getClass() == this.getClass()) {
-			return ((UsageParamSetLocalData)obj).usageParamSetName.equals(this.usageParamSetName);
-		}
-		else {
-			return false;
-		}
-	}		
-}
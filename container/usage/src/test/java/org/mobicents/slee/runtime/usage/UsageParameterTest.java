@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.slee.runtime.usage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.slee.usage.SampleStatistics;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the concurrent updates and reads of {@link UsageParameter}.
+ * 
+ * @author martins
+ *
+ */
+public class UsageParameterTest extends TestCase {
+
+	private static final int THREADS = 8;
+
+	private static final int UPDATES = 100000;
+
+	public void testNoUpdates() {
+		UsageParameter parameter = new UsageParameter("source", "name");
+		assertEquals(0L, parameter.getValue());
+		SampleStatistics statistics = parameter.getSampleStatistics(false);
+		assertEquals(0L, statistics.getSampleCount());
+		assertEquals(Long.MAX_VALUE, statistics.getMinimum());
+		assertEquals(Long.MIN_VALUE, statistics.getMaximum());
+		assertEquals(0.0, statistics.getMean());
+	}
+
+	public void testSampleStatistics() {
+		UsageParameter parameter = new UsageParameter("source", "name");
+		parameter.sample(10L);
+		parameter.sample(2L);
+		parameter.sample(30L);
+		SampleStatistics statistics = parameter.getSampleStatistics(true);
+		assertEquals(3L, statistics.getSampleCount());
+		assertEquals(2L, statistics.getMinimum());
+		assertEquals(30L, statistics.getMaximum());
+		assertEquals(14.0, statistics.getMean());
+		statistics = parameter.getSampleStatistics(false);
+		assertEquals(0L, statistics.getSampleCount());
+		assertEquals(Long.MAX_VALUE, statistics.getMinimum());
+	}
+
+	public void testConcurrentIncrementsNotLost() throws Exception {
+		final UsageParameter parameter = new UsageParameter("source", "name");
+		runConcurrently(new Runnable() {
+			public void run() {
+				for (int i = 0; i < UPDATES; i++) {
+					parameter.increment(2L);
+				}
+			}
+		});
+		assertEquals(2L * THREADS * UPDATES, parameter.getValue());
+		assertEquals((long) THREADS * UPDATES, parameter.getCount());
+	}
+
+	public void testConcurrentIncrementsNotLostOnReset() throws Exception {
+		final UsageParameter parameter = new UsageParameter("source", "name");
+		final CountDownLatch done = new CountDownLatch(1);
+		final long[] resetSum = new long[1];
+		Thread resetter = new Thread() {
+			public void run() {
+				while (done.getCount() > 0) {
+					resetSum[0] += parameter.getValue(true);
+				}
+			}
+		};
+		resetter.start();
+		runConcurrently(new Runnable() {
+			public void run() {
+				for (int i = 0; i < UPDATES; i++) {
+					parameter.increment(1L);
+				}
+			}
+		});
+		done.countDown();
+		resetter.join();
+		assertEquals((long) THREADS * UPDATES, resetSum[0] + parameter.getValue());
+	}
+
+	public void testConsistentSnapshotWithConcurrentSamples() throws Exception {
+		final UsageParameter parameter = new UsageParameter("source", "name");
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicReference<String> inconsistency = new AtomicReference<String>();
+		Thread reader = new Thread() {
+			public void run() {
+				while (done.getCount() > 0) {
+					SampleStatistics statistics = parameter.getSampleStatistics(false);
+					// all samples are 5, so any snapshot with samples has min, max and mean 5
+					if (statistics.getSampleCount() > 0
+							&& (statistics.getMinimum() != 5L || statistics.getMaximum() != 5L || statistics.getMean() != 5.0)) {
+						inconsistency.set(statistics.toString());
+					}
+				}
+			}
+		};
+		reader.start();
+		runConcurrently(new Runnable() {
+			public void run() {
+				for (int i = 0; i < UPDATES; i++) {
+					parameter.sample(5L);
+				}
+			}
+		});
+		done.countDown();
+		reader.join();
+		assertNull(inconsistency.get());
+		assertEquals((long) THREADS * UPDATES, parameter.getSampleStatistics(false).getSampleCount());
+	}
+
+	/**
+	 * Runs the specified task in {@link #THREADS} threads, started together,
+	 * waiting for all to end.
+	 * 
+	 * @param task
+	 * @throws Exception
+	 */
+	private void runConcurrently(final Runnable task) throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < THREADS; i++) {
+			Thread thread = new Thread() {
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					task.run();
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+}
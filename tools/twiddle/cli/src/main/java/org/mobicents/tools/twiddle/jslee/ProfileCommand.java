@@ -73,6 +73,17 @@ public class ProfileCommand extends AbstractSleeCommand {
 		out.println("    -n, --rename                   Renames profile table, based on options. Both are required. Supported options are:");
 		out.println("            --current-name         Sets current name of profile table.");
 		out.println("            --new-name             Sets new name for profile table.");
+		out.println("    -i, --import                   Imports profiles from a CSV or JSON file local to the server, into a profile table. Requires \"--table-name\" and \"--file\". Supported options:");
+		out.println("            --table-name           Indicates name of the profile table where profiles are created.");
+		out.println("            --file                 Indicates the CSV file, its first line names the profile name column followed by the profile attributes, or a JSON file, ending in \".json\", with an array of profile objects.");
+		out.println("            --batch-size           Sets max number of profiles created in each transaction, defaults to 1000.");
+		out.println("            --workers              Sets number of parallel workers creating profiles, defaults to 4.");
+		out.println("            --dry-run              Validates profiles without storing them.");
+		out.println("            --progress             Retrieves progress of the running profile import, if any.");
+		out.println("    -x, --export                   Exports profiles of a profile table to a CSV or JSON file local to the server, in the import format. Requires \"--table-name\" and \"--file\". Supported options:");
+		out.println("            --table-name           Indicates name of the profile table to export.");
+		out.println("            --file                 Indicates the file, JSON if its name ends in \".json\", CSV otherwise.");
+		out.println("            --batch-size           Sets max number of profiles read in each transaction, defaults to 1000.");
 		//its weird, other MBeans define methods like getXXXUsage or something...
 		out.println("    -g, --get                      Fetches information regarding profiles and profile tables based on option, exactly one must be present. Supported options:");
 		out.println("            --profile-spec         Retrieves ProfileSpecification ID for given table name,");
@@ -103,6 +114,12 @@ public class ProfileCommand extends AbstractSleeCommand {
 		out.println("");
 		out.println("     6. Create profile in table:");
 		out.println("" + name + " -c --table-name=NewCallControl --profile-name=newuser");
+		out.println("");
+		out.println("     7. Import profiles into table, from file in the server:");
+		out.println("" + name + " -i --table-name=NewCallControl --file=/tmp/users.csv --batch-size=500 --workers=8");
+		out.println("");
+		out.println("     8. Export profiles of table, to file in the server:");
+		out.println("" + name + " -x --table-name=NewCallControl --file=/tmp/users.json");
 		out.flush();
 
 	}
@@ -114,7 +131,7 @@ public class ProfileCommand extends AbstractSleeCommand {
 	 */
 	@Override
 	protected void processArguments(String[] args) throws CommandException {
-		String sopts = ":lcrng";
+		String sopts = ":lcrngix";
 		
 		LongOpt[] lopts = { 
 				new LongOpt("list", LongOpt.NO_ARGUMENT, null, 'l'),
@@ -134,6 +151,15 @@ public class ProfileCommand extends AbstractSleeCommand {
 					//new LongOpt("profile-name", LongOpt.REQUIRED_ARGUMENT, null, GetOperation.profile_name),
 					new LongOpt("profile-spec", LongOpt.REQUIRED_ARGUMENT, null, GetOperation.profile_spec),
 					//new LongOpt("profile", LongOpt.REQUIRED_ARGUMENT, null, GetOperation.profile),
+				new LongOpt("import", LongOpt.NO_ARGUMENT, null, 'i'),
+					//"table-name" covered above
+					new LongOpt("file", LongOpt.REQUIRED_ARGUMENT, null, ImportOperation.file),
+					new LongOpt("batch-size", LongOpt.REQUIRED_ARGUMENT, null, ImportOperation.batch_size),
+					new LongOpt("workers", LongOpt.REQUIRED_ARGUMENT, null, ImportOperation.workers),
+					new LongOpt("dry-run", LongOpt.NO_ARGUMENT, null, ImportOperation.dry_run),
+					new LongOpt("progress", LongOpt.NO_ARGUMENT, null, ImportOperation.progress),
+				new LongOpt("export", LongOpt.NO_ARGUMENT, null, 'x'),
+					//"table-name", "file" and "batch-size" covered above
 				};
 
 		Getopt getopt = new Getopt(null, args, sopts, lopts);
@@ -178,6 +204,18 @@ public class ProfileCommand extends AbstractSleeCommand {
 				super.operation.buildOperation(getopt, args);
 
 				break;
+			case 'i':
+
+				super.operation = new ImportOperation(super.context, super.log, this);
+				super.operation.buildOperation(getopt, args);
+
+				break;
+			case 'x':
+
+				super.operation = new ExportOperation(super.context, super.log, this);
+				super.operation.buildOperation(getopt, args);
+
+				break;
 			
 
 			
@@ -566,4 +604,171 @@ public class ProfileCommand extends AbstractSleeCommand {
 
 		}
 	}
+
+	private class ImportOperation extends AbstractOperation {
+		public static final char table_name = 'b';
+		public static final char file = 'f';
+		public static final char batch_size = 's';
+		public static final char workers = 'w';
+		public static final char dry_run = 'y';
+		public static final char progress = 'q';
+
+		private static final String OPERATION_importProfiles = "importProfiles";
+		private static final String OPERATION_getProfileImportProgress = "getProfileImportProgress";
+
+		private String stringTableName;
+		private String stringFile;
+		private int batchSize = 1000;
+		private int workersCount = 4;
+		private boolean dryRun;
+		private boolean getProgress;
+
+		public ImportOperation(CommandContext context, Logger log, AbstractSleeCommand sleeCommand) {
+			super(context, log, sleeCommand);
+		}
+
+		@Override
+		public void buildOperation(Getopt opts, String[] args) throws CommandException {
+			int code;
+
+			while ((code = opts.getopt()) != -1) {
+				switch (code) {
+				case ':':
+					throw new CommandException("Option requires an argument: " + args[opts.getOptind() - 1]);
+
+				case '?':
+					throw new CommandException("Invalid (or ambiguous) option: " + args[opts.getOptind() - 1]);
+
+				case table_name:
+
+					this.stringTableName = opts.getOptarg();
+					break;
+				case file:
+
+					this.stringFile = opts.getOptarg();
+					break;
+				case batch_size:
+
+					this.batchSize = parseInt(opts.getOptarg(), "--batch-size");
+					break;
+				case workers:
+
+					this.workersCount = parseInt(opts.getOptarg(), "--workers");
+					break;
+				case dry_run:
+
+					this.dryRun = true;
+					break;
+				case progress:
+
+					this.getProgress = true;
+					break;
+
+				default:
+					throw new CommandException("Operation \"" + this.operationName + "\" for command: \"" + sleeCommand.getName()
+							+ "\", found unexpected opt: " + args[opts.getOptind() - 1]);
+
+				}
+			}
+			if (this.getProgress) {
+				super.operationName = OPERATION_getProfileImportProgress;
+				return;
+			}
+			if (this.stringTableName == null || this.stringFile == null) {
+				throw new CommandException("Operation \"" + this.operationName + "\" for command: \"" + sleeCommand.getName()
+						+ "\", expects both \"--table-name\" and \"--file\" to be present");
+			}
+			super.operationName = OPERATION_importProfiles;
+			super.addArg(this.stringTableName, String.class, false);
+			super.addArg(this.stringFile, String.class, false);
+			super.addArg(this.batchSize, int.class, false);
+			super.addArg(this.workersCount, int.class, false);
+			super.addArg(this.dryRun, boolean.class, false);
+		}
+
+		private int parseInt(String value, String option) throws CommandException {
+			try {
+				return Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				throw new CommandException("Operation \"" + this.operationName + "\" for command: \"" + sleeCommand.getName()
+						+ "\", expects a number as \"" + option + "\" argument: " + value, e);
+			}
+		}
+
+		@Override
+		protected String prepareResultText() {
+			if (super.operationName.equals(OPERATION_importProfiles)) {
+				return (dryRun ? "Profiles validated: " : "Profiles imported: ") + super.operationResult;
+			} else {
+				return super.operationResult == null ? "No profile import running." : super.operationResult.toString();
+			}
+		}
+	}
+
+	private class ExportOperation extends AbstractOperation {
+		public static final char table_name = 'b';
+		public static final char file = 'f';
+		public static final char batch_size = 's';
+
+		private static final String OPERATION_exportProfiles = "exportProfiles";
+
+		private String stringTableName;
+		private String stringFile;
+		private int batchSize = 1000;
+
+		public ExportOperation(CommandContext context, Logger log, AbstractSleeCommand sleeCommand) {
+			super(context, log, sleeCommand);
+			super.operationName = OPERATION_exportProfiles;
+		}
+
+		@Override
+		public void buildOperation(Getopt opts, String[] args) throws CommandException {
+			int code;
+
+			while ((code = opts.getopt()) != -1) {
+				switch (code) {
+				case ':':
+					throw new CommandException("Option requires an argument: " + args[opts.getOptind() - 1]);
+
+				case '?':
+					throw new CommandException("Invalid (or ambiguous) option: " + args[opts.getOptind() - 1]);
+
+				case table_name:
+
+					this.stringTableName = opts.getOptarg();
+					break;
+				case file:
+
+					this.stringFile = opts.getOptarg();
+					break;
+				case batch_size:
+
+					try {
+						this.batchSize = Integer.parseInt(opts.getOptarg());
+					} catch (NumberFormatException e) {
+						throw new CommandException("Operation \"" + this.operationName + "\" for command: \"" + sleeCommand.getName()
+								+ "\", expects a number as \"--batch-size\" argument: " + opts.getOptarg(), e);
+					}
+					break;
+
+				default:
+					throw new CommandException("Operation \"" + this.operationName + "\" for command: \"" + sleeCommand.getName()
+							+ "\", found unexpected opt: " + args[opts.getOptind() - 1]);
+
+				}
+			}
+			if (this.stringTableName == null || this.stringFile == null) {
+				throw new CommandException("Operation \"" + this.operationName + "\" for command: \"" + sleeCommand.getName()
+						+ "\", expects both \"--table-name\" and \"--file\" to be present");
+			}
+			super.addArg(this.stringTableName, String.class, false);
+			super.addArg(this.stringFile, String.class, false);
+			super.addArg(this.batchSize, int.class, false);
+		}
+
+		@Override
+		protected String prepareResultText() {
+			return "Profiles exported: " + super.operationResult;
+		}
+	}
 }
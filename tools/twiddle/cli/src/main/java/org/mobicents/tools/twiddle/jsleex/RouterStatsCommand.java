@@ -91,6 +91,22 @@ public class RouterStatsCommand extends AbstractSleeCommand {
 		out.println("          --eventTypeId         Specifies EventTypeID for which avg time should be retrieved. Requires EventTypeID argument.");
 		out.println("          --executor            Specifies executor for which avg time should be retrieved. Requires positive integer argument.");
 		//public long getRoutingTime(int executor, EventTypeID eventTypeID) throws ManagementException;
+		out.println("    -l, --routing-percentiles   Returns routing time percentiles 50, 90, 99 and 99.9, followed by the max. Without any option this returns it for all executors and events. ");
+		out.println("                                Options may be used in any conjunctions: ");
+		out.println("           --eventTypeId        Specifies EventTypeID for which percentiles should be retrieved. Requires EventTypeID argument.");
+		out.println("           --executor           Specifies executor for which percentiles should be retrieved. Requires positive integer argument.");
+		//public long[] getEventRoutingTimePercentiles() throws ManagementException;
+		//public long[] getEventRoutingTimePercentiles(EventTypeID eventTypeID) throws ManagementException;
+		//public long[] getEventRoutingTimePercentiles(int executor) throws ManagementException;
+		//public long[] getEventRoutingTimePercentiles(int executor, EventTypeID eventTypeID) throws ManagementException;
+		out.println("    -w, --wait-percentiles      Returns percentiles 50, 90, 99 and 99.9, followed by the max, of time events wait in executor queue. Without any option this returns it for all executors and events. ");
+		out.println("                                Options may be used in any conjunctions: ");
+		out.println("           --eventTypeId        Specifies EventTypeID for which percentiles should be retrieved. Requires EventTypeID argument.");
+		out.println("           --executor           Specifies executor for which percentiles should be retrieved. Requires positive integer argument.");
+		//public long[] getEventQueueWaitTimePercentiles() throws ManagementException;
+		//public long[] getEventQueueWaitTimePercentiles(EventTypeID eventTypeID) throws ManagementException;
+		//public long[] getEventQueueWaitTimePercentiles(int executor) throws ManagementException;
+		//public long[] getEventQueueWaitTimePercentiles(int executor, EventTypeID eventTypeID) throws ManagementException;
 		//public String printAllStats() throws ManagementException;
 		out.println("    -p, print-all               Prints all statistics. Does not require argument.");
 		out.println("Examples: ");
@@ -100,6 +116,9 @@ public class RouterStatsCommand extends AbstractSleeCommand {
 		out.println("");
 		out.println("     2. Get number of milliseconds spent on routing certain event type in certain executor:");
 		out.println("" + name + "  -r --eventTypeId=EventTypeID[name=javax.sip.message.Request.OPTIONS,vendor=net.java.slee,version=1.2] --executor=2");
+		out.println("");
+		out.println("     3. Get routing time percentiles, in nanoseconds, of certain event type:");
+		out.println("" + name + " -l --eventTypeId=EventTypeID[name=javax.sip.message.Request.INVITE,vendor=net.java.slee,version=1.2]");
 		
 		
 
@@ -114,7 +133,7 @@ public class RouterStatsCommand extends AbstractSleeCommand {
 
 	@Override
 	protected void processArguments(String[] args) throws CommandException {
-		String sopts = ":m::are::i:c::t:x:op";
+		String sopts = ":m::are::i:c::t:x:oplw";
 		LongOpt[] lopts = { 
 				
 				new LongOpt("mapped-activities", LongOpt.OPTIONAL_ARGUMENT, null, 'm'),
@@ -129,7 +148,9 @@ public class RouterStatsCommand extends AbstractSleeCommand {
 				new LongOpt("executing-time", LongOpt.REQUIRED_ARGUMENT, null, 't'),
 				new LongOpt("misc-executing-time", LongOpt.REQUIRED_ARGUMENT, null, 'x'),
 				new LongOpt("routing-time", LongOpt.NO_ARGUMENT, null, 'o'),
-				new LongOpt("print-all", LongOpt.NO_ARGUMENT, null, 'p')
+				new LongOpt("print-all", LongOpt.NO_ARGUMENT, null, 'p'),
+				new LongOpt("routing-percentiles", LongOpt.NO_ARGUMENT, null, 'l'),
+				new LongOpt("wait-percentiles", LongOpt.NO_ARGUMENT, null, 'w')
 		};
 
 		Getopt getopt = new Getopt(null, args, sopts, lopts);
@@ -206,6 +227,18 @@ public class RouterStatsCommand extends AbstractSleeCommand {
 				super.operation.buildOperation(getopt, args);
 
 				break;	
+			case 'l':
+
+				super.operation = new PercentilesOperation(super.context, super.log, this, PercentilesOperation.OPERATION_getEventRoutingTimePercentiles);
+				super.operation.buildOperation(getopt, args);
+
+				break;
+			case 'w':
+
+				super.operation = new PercentilesOperation(super.context, super.log, this, PercentilesOperation.OPERATION_getEventQueueWaitTimePercentiles);
+				super.operation.buildOperation(getopt, args);
+
+				break;
 				
 			default:
 				throw new CommandException("Command: \"" + getName() + "\", found unexpected opt: " + args[getopt.getOptind() - 1]);
@@ -308,6 +341,75 @@ public class RouterStatsCommand extends AbstractSleeCommand {
 		}
 	}
 
+	private class PercentilesOperation extends AbstractOperation {
+		
+		private static final String OPERATION_getEventRoutingTimePercentiles = "getEventRoutingTimePercentiles";
+		private static final String OPERATION_getEventQueueWaitTimePercentiles = "getEventQueueWaitTimePercentiles";
+		
+		private String stringEventTypeId;
+		private String stringExecutor;
+
+		public PercentilesOperation(CommandContext context, Logger log, AbstractSleeCommand sleeCommand, String operationName) {
+			super(context, log, sleeCommand);
+			super.operationName = operationName;
+		}
+
+		@Override
+		public void buildOperation(Getopt opts, String[] args) throws CommandException {
+			int code;
+
+			while ((code = opts.getopt()) != -1) {
+				switch (code) {
+				case ':':
+					throw new CommandException("Option requires an argument: " + args[opts.getOptind() - 1]);
+
+				case '?':
+					throw new CommandException("Invalid (or ambiguous) option: " + args[opts.getOptind() - 1]);
+
+				case AvgTimeOperation.eventTypeId:
+					if (stringEventTypeId != null) {
+						throw new CommandException("Event Type can be specified only once.");
+					}
+					stringEventTypeId = opts.getOptarg();
+
+					break;
+				case AvgTimeOperation.executor:
+					if (stringExecutor != null) {
+						throw new CommandException("Executor can be specified only once.");
+					}
+					stringExecutor = opts.getOptarg();
+
+					break;
+
+				default:
+					throw new CommandException("Operation \"" + this.operationName + "\" for command: \"" + sleeCommand.getName()
+							+ "\", found unexpected opt: " + args[opts.getOptind() - 1]);
+
+				}
+
+			}
+
+			if (stringExecutor != null) {
+				// add arg
+				try {
+					addArg(Integer.parseInt(stringExecutor), int.class, false);
+				} catch (Exception e) {
+					throw new CommandException("Failed to parse Integer: \"" + stringExecutor + "\"", e);
+				}
+			}
+
+			if (stringEventTypeId != null) {
+				// add arg
+				try {
+					addArg(stringEventTypeId, EventTypeID.class, true);
+				} catch (Exception e) {
+					throw new CommandException("Failed to parse EventTypeID: \"" + stringEventTypeId + "\"", e);
+				}
+			}
+
+		}
+	}
+
 	private class EventsRoutedOperation extends AbstractOperation {
 		private static final String OPERATION_getEventsRouted = "getEventsRouted";
 		private String stringEventTypeId;